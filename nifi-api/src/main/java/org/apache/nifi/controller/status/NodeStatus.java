@@ -43,6 +43,7 @@ public class NodeStatus implements Cloneable {
 
     private List<StorageStatus> contentRepositories = new ArrayList<>();
     private List<StorageStatus> provenanceRepositories = new ArrayList<>();
+    private List<SchedulingPoolStatus> schedulingPools = new ArrayList<>();
 
     public long getCreatedAtInMs() {
         return createdAtInMs;
@@ -166,6 +167,15 @@ public class NodeStatus implements Cloneable {
         this.provenanceRepositories.addAll(provenanceRepositories);
     }
 
+    public List<SchedulingPoolStatus> getSchedulingPools() {
+        return schedulingPools;
+    }
+
+    public void setSchedulingPools(final List<SchedulingPoolStatus> schedulingPools) {
+        this.schedulingPools = new ArrayList<>();
+        this.schedulingPools.addAll(schedulingPools);
+    }
+
     @Override
     protected NodeStatus clone() {
         final NodeStatus clonedObj = new NodeStatus();
@@ -191,6 +201,10 @@ public class NodeStatus implements Cloneable {
         provenanceRepositories.stream().map(r -> r.clone()).forEach(r -> clonedProvenanceRepositories.add(r));
         clonedObj.provenanceRepositories = clonedProvenanceRepositories;
 
+        final List<SchedulingPoolStatus> clonedSchedulingPools = new ArrayList<>();
+        schedulingPools.stream().map(p -> p.clone()).forEach(p -> clonedSchedulingPools.add(p));
+        clonedObj.schedulingPools = clonedSchedulingPools;
+
         return clonedObj;
     }
 
@@ -212,6 +226,7 @@ public class NodeStatus implements Cloneable {
         sb.append(", flowFileRepositoryUsedSpace=").append(flowFileRepositoryUsedSpace);
         sb.append(", contentRepositories=").append(contentRepositories);
         sb.append(", provenanceRepositories=").append(provenanceRepositories);
+        sb.append(", schedulingPools=").append(schedulingPools);
         sb.append('}');
         return sb.toString();
     }
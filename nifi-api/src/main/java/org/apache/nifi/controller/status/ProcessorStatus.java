@@ -43,6 +43,7 @@ public class ProcessorStatus implements Cloneable {
     private long averageLineageDuration;
     private int activeThreadCount;
     private int terminatedThreadCount;
+    private long runDurationMillis;
     private int flowFilesReceived;
     private long bytesReceived;
     private int flowFilesSent;
@@ -201,6 +202,18 @@ public class ProcessorStatus implements Cloneable {
         this.terminatedThreadCount = terminatedThreadCount;
     }
 
+    /**
+     * @return the run duration, in milliseconds, that the Processor is currently using, which is either the run duration configured for it or,
+     * if the framework is tuning its run duration, the run duration chosen by the framework
+     */
+    public long getRunDurationMillis() {
+        return runDurationMillis;
+    }
+
+    public void setRunDurationMillis(final long runDurationMillis) {
+        this.runDurationMillis = runDurationMillis;
+    }
+
     public int getFlowFilesReceived() {
         return flowFilesReceived;
     }
@@ -246,6 +259,7 @@ public class ProcessorStatus implements Cloneable {
         final ProcessorStatus clonedObj = new ProcessorStatus();
         clonedObj.activeThreadCount = activeThreadCount;
         clonedObj.terminatedThreadCount = terminatedThreadCount;
+        clonedObj.runDurationMillis = runDurationMillis;
         clonedObj.bytesRead = bytesRead;
         clonedObj.bytesWritten = bytesWritten;
         clonedObj.flowFilesReceived = flowFilesReceived;
@@ -305,6 +319,8 @@ public class ProcessorStatus implements Cloneable {
         builder.append(activeThreadCount);
         builder.append(", terminatedThreadCount=");
         builder.append(terminatedThreadCount);
+        builder.append(", runDurationMillis=");
+        builder.append(runDurationMillis);
         builder.append(", counters=");
         builder.append(counters);
         builder.append("]");
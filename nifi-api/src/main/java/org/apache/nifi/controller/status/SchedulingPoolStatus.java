@@ -0,0 +1,111 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.controller.status;
+
+/**
+ * The status of a scheduling pool, which runs the Timer-Driven components of the Process Groups that are assigned to it.
+ */
+public class SchedulingPoolStatus implements Cloneable {
+    private String name;
+    private int maxThreads;
+    private int activeThreads;
+    private long cpuTimeMillis;
+    private long cpuUtilization;
+    private long throttledInvocations;
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(final String name) {
+        this.name = name;
+    }
+
+    public int getMaxThreads() {
+        return maxThreads;
+    }
+
+    public void setMaxThreads(final int maxThreads) {
+        this.maxThreads = maxThreads;
+    }
+
+    public int getActiveThreads() {
+        return activeThreads;
+    }
+
+    public void setActiveThreads(final int activeThreads) {
+        this.activeThreads = activeThreads;
+    }
+
+    /**
+     * @return the CPU time, in milliseconds, that the pool's components used since the previous status was captured
+     */
+    public long getCpuTimeMillis() {
+        return cpuTimeMillis;
+    }
+
+    public void setCpuTimeMillis(final long cpuTimeMillis) {
+        this.cpuTimeMillis = cpuTimeMillis;
+    }
+
+    /**
+     * @return the percentage of the pool's CPU quota, or of its threads if it has no quota, that was used since the previous status was captured
+     */
+    public long getCpuUtilization() {
+        return cpuUtilization;
+    }
+
+    public void setCpuUtilization(final long cpuUtilization) {
+        this.cpuUtilization = cpuUtilization;
+    }
+
+    /**
+     * @return the number of times since the previous status was captured that a component was delayed because the pool had exhausted its CPU quota
+     */
+    public long getThrottledInvocations() {
+        return throttledInvocations;
+    }
+
+    public void setThrottledInvocations(final long throttledInvocations) {
+        this.throttledInvocations = throttledInvocations;
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder builder = new StringBuilder("SchedulingPoolStatus{");
+        builder.append("name='").append(name).append('\'');
+        builder.append(", maxThreads=").append(maxThreads);
+        builder.append(", activeThreads=").append(activeThreads);
+        builder.append(", cpuTimeMillis=").append(cpuTimeMillis);
+        builder.append(", cpuUtilization=").append(cpuUtilization);
+        builder.append(", throttledInvocations=").append(throttledInvocations);
+        builder.append('}');
+        return builder.toString();
+    }
+
+    @Override
+    public SchedulingPoolStatus clone() {
+        final SchedulingPoolStatus clonedObj = new SchedulingPoolStatus();
+        clonedObj.name = name;
+        clonedObj.maxThreads = maxThreads;
+        clonedObj.activeThreads = activeThreads;
+        clonedObj.cpuTimeMillis = cpuTimeMillis;
+        clonedObj.cpuUtilization = cpuUtilization;
+        clonedObj.throttledInvocations = throttledInvocations;
+        return clonedObj;
+    }
+}
@@ -140,7 +140,7 @@ public class VersionedConnection extends VersionedComponent {
     }
 
     @ApiModelProperty(value = "The Strategy to use for load balancing data across the cluster, or null, if no Load Balance Strategy has been specified.",
-            allowableValues = "DO_NOT_LOAD_BALANCE, PARTITION_BY_ATTRIBUTE, ROUND_ROBIN, SINGLE_NODE")
+            allowableValues = "DO_NOT_LOAD_BALANCE, PARTITION_BY_ATTRIBUTE, PARTITION_BY_ATTRIBUTE_CONSISTENT_HASH, ROUND_ROBIN, SINGLE_NODE")
     public String getLoadBalanceStrategy() {
         return loadBalanceStrategy;
     }
@@ -149,7 +149,8 @@ public class VersionedConnection extends VersionedComponent {
         this.loadBalanceStrategy = loadBalanceStrategy;
     }
 
-    @ApiModelProperty("The attribute to use for partitioning data as it is load balanced across the cluster. If the Load Balance Strategy is configured to use PARTITION_BY_ATTRIBUTE, the value " +
+    @ApiModelProperty("The attribute to use for partitioning data as it is load balanced across the cluster. If the Load Balance Strategy is configured to use PARTITION_BY_ATTRIBUTE or " +
+            "PARTITION_BY_ATTRIBUTE_CONSISTENT_HASH, the value " +
             "returned by this method is the name of the FlowFile Attribute that will be used to determine which node in the cluster should receive a given FlowFile. If the Load Balance Strategy is " +
             "unset or is set to any other value, the Partitioning Attribute has no effect.")
     public String getPartitioningAttribute() {
@@ -161,7 +162,7 @@ public class VersionedConnection extends VersionedComponent {
     }
 
     @ApiModelProperty(value = "Whether or not compression should be used when transferring FlowFiles between nodes",
-            allowableValues = "DO_NOT_COMPRESS, COMPRESS_ATTRIBUTES_ONLY, COMPRESS_ATTRIBUTES_AND_CONTENT")
+            allowableValues = "DO_NOT_COMPRESS, COMPRESS_ATTRIBUTES_ONLY, COMPRESS_ATTRIBUTES_AND_CONTENT, COMPRESS_ATTRIBUTES_AND_CONTENT_LZ4, COMPRESS_ATTRIBUTES_AND_CONTENT_ZSTD")
     public String getLoadBalanceCompression() {
         return loadBalanceCompression;
     }
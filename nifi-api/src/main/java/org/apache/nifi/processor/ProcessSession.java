@@ -32,6 +32,8 @@ import org.apache.nifi.provenance.ProvenanceReporter;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
 import java.nio.file.Path;
 import java.util.Collection;
 import java.util.List;
@@ -989,6 +991,34 @@ public interface ProcessSession {
      */
     void exportTo(FlowFile flowFile, OutputStream destination);
 
+    /**
+     * Writes the content of the given FlowFile to the given destination channel. Implementations
+     * may transfer the content directly from the underlying storage to the channel without copying
+     * it into user space, which makes this method preferable to
+     * {@link #exportTo(FlowFile, OutputStream)} when the destination is a file or socket channel.
+     * The channel must be in blocking mode and is not closed by this method.
+     *
+     * @param flowFile to export the content of
+     * @param destination to export the content to
+     * @throws IllegalStateException if detected that this method is being
+     * called from within a callback of another method in this session and for
+     * the given FlowFile(s)
+     * @throws FlowFileHandlingException if the given FlowFile is already
+     * transferred or removed or doesn't belong to this session. Automatic
+     * rollback will occur.
+     * @throws MissingFlowFileException if the given FlowFile content cannot be
+     * found. The FlowFile should no longer be reference, will be internally
+     * destroyed, and the session is automatically rolled back and what is left
+     * of the FlowFile is destroyed.
+     * @throws FlowFileAccessException if some IO problem occurs accessing
+     * FlowFile content
+     * @throws ProcessException if some IO problem occurs writing to the
+     * destination, as with {@link #exportTo(FlowFile, OutputStream)}
+     */
+    default void exportTo(FlowFile flowFile, WritableByteChannel destination) {
+        exportTo(flowFile, Channels.newOutputStream(destination));
+    }
+
     /**
      * Returns a ProvenanceReporter that is tied to this ProcessSession.
      *
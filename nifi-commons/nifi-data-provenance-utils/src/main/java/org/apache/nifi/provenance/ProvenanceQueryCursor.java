@@ -0,0 +1,110 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.provenance;
+
+import java.util.Comparator;
+
+/**
+ * The position of a Provenance Event within the results of a paginated query. Results are ordered newest first by Event Time, and events
+ * that have the same Event Time are ordered by descending Event ID. A cursor is encoded in a continuation token as <code>eventTime:eventId</code>.
+ */
+public final class ProvenanceQueryCursor {
+    public static final Comparator<ProvenanceQueryCursor> NEWEST_FIRST = Comparator.comparingLong(ProvenanceQueryCursor::getEventTime)
+        .thenComparingLong(ProvenanceQueryCursor::getEventId)
+        .reversed();
+
+    private final long eventTime;
+    private final long eventId;
+
+    public ProvenanceQueryCursor(final long eventTime, final long eventId) {
+        this.eventTime = eventTime;
+        this.eventId = eventId;
+    }
+
+    public static ProvenanceQueryCursor of(final ProvenanceEventRecord event) {
+        return new ProvenanceQueryCursor(event.getEventTime(), event.getEventId());
+    }
+
+    /**
+     * @param continuationToken the continuation token that was returned with the previous page, or <code>null</code> for the first page
+     * @return the cursor of the last event of the previous page, or <code>null</code> if the token is <code>null</code>
+     * @throws IllegalArgumentException if the continuation token is not valid
+     */
+    public static ProvenanceQueryCursor fromToken(final String continuationToken) {
+        if (continuationToken == null) {
+            return null;
+        }
+
+        final int separatorIndex = continuationToken.indexOf(':');
+        if (separatorIndex < 1) {
+            throw new IllegalArgumentException("Invalid Provenance query continuation token: " + continuationToken);
+        }
+
+        try {
+            return new ProvenanceQueryCursor(Long.parseLong(continuationToken.substring(0, separatorIndex)), Long.parseLong(continuationToken.substring(separatorIndex + 1)));
+        } catch (final NumberFormatException nfe) {
+            throw new IllegalArgumentException("Invalid Provenance query continuation token: " + continuationToken);
+        }
+    }
+
+    public long getEventTime() {
+        return eventTime;
+    }
+
+    public long getEventId() {
+        return eventId;
+    }
+
+    /**
+     * @param eventTime the Event Time of an event
+     * @param eventId the Event ID of the event
+     * @return <code>true</code> if the given event comes after this cursor, and so belongs on a later page, <code>false</code> otherwise
+     */
+    public boolean isFollowedBy(final long eventTime, final long eventId) {
+        return eventTime < this.eventTime || (eventTime == this.eventTime && eventId < this.eventId);
+    }
+
+    /**
+     * @return the continuation token that refers to this cursor
+     */
+    public String toToken() {
+        return eventTime + ":" + eventId;
+    }
+
+    @Override
+    public boolean equals(final Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (!(obj instanceof ProvenanceQueryCursor)) {
+            return false;
+        }
+
+        final ProvenanceQueryCursor other = (ProvenanceQueryCursor) obj;
+        return eventTime == other.eventTime && eventId == other.eventId;
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * Long.hashCode(eventTime) + Long.hashCode(eventId);
+    }
+
+    @Override
+    public String toString() {
+        return "ProvenanceQueryCursor[eventTime=" + eventTime + ", eventId=" + eventId + "]";
+    }
+}
@@ -33,6 +33,7 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
@@ -86,6 +87,17 @@ public class NiFiProperties extends ApplicationProperties {
     public static final String TEMPLATE_DIRECTORY = "nifi.templates.directory";
     public static final String ADMINISTRATIVE_YIELD_DURATION = "nifi.administrative.yield.duration";
     public static final String BORED_YIELD_DURATION = "nifi.bored.yield.duration";
+    public static final String WORK_AWARE_SCHEDULING_ENABLED = "nifi.work.aware.scheduling.enabled";
+    public static final String WORK_AWARE_SCHEDULING_IDLE_CHECK_INTERVAL = "nifi.work.aware.scheduling.idle.check.interval";
+    public static final String VIRTUAL_THREADS_ENABLED = "nifi.virtual.threads.enabled";
+    public static final String VIRTUAL_THREADS_COMPONENT_TYPES = "nifi.virtual.threads.component.types";
+    public static final String VIRTUAL_THREADS_PINNED_THRESHOLD = "nifi.virtual.threads.pinned.threshold";
+    public static final String SCHEDULING_POOL_PREFIX = "nifi.scheduling.pool.";
+    public static final String SCHEDULING_POOL_THREADS_SUFFIX = ".threads";
+    public static final String SCHEDULING_POOL_CPU_QUOTA_SUFFIX = ".cpu.quota";
+    public static final String SCHEDULING_POOL_PROCESS_GROUPS_SUFFIX = ".process.groups";
+    public static final String RUN_DURATION_TUNING_ENABLED = "nifi.run.duration.tuning.enabled";
+    public static final String RUN_DURATION_TUNING_LATENCY_BUDGET = "nifi.run.duration.tuning.latency.budget";
     public static final String PROCESSOR_SCHEDULING_TIMEOUT = "nifi.processor.scheduling.timeout";
     public static final String BACKPRESSURE_COUNT = "nifi.queue.backpressure.count";
     public static final String BACKPRESSURE_SIZE = "nifi.queue.backpressure.size";
@@ -367,6 +379,9 @@ public class NiFiProperties extends ApplicationProperties {
     public static final String DEFAULT_ADMINISTRATIVE_YIELD_DURATION = "30 sec";
     public static final String DEFAULT_COMPONENT_STATUS_SNAPSHOT_FREQUENCY = "5 mins";
     public static final String DEFAULT_BORED_YIELD_DURATION = "10 millis";
+    public static final String DEFAULT_WORK_AWARE_SCHEDULING_IDLE_CHECK_INTERVAL = "10 secs";
+    public static final String DEFAULT_VIRTUAL_THREADS_PINNED_THRESHOLD = "20 millis";
+    public static final String DEFAULT_RUN_DURATION_TUNING_LATENCY_BUDGET = "100 millis";
     public static final String DEFAULT_ZOOKEEPER_CONNECT_TIMEOUT = "3 secs";
     public static final String DEFAULT_ZOOKEEPER_SESSION_TIMEOUT = "3 secs";
     public static final String DEFAULT_ZOOKEEPER_ROOT_NODE = "/nifi";
@@ -1586,6 +1601,55 @@ public class NiFiProperties extends ApplicationProperties {
         return getProperty(BORED_YIELD_DURATION, DEFAULT_BORED_YIELD_DURATION);
     }
 
+    /**
+     * @return whether Timer-Driven components that are waiting for incoming FlowFiles should be woken up when FlowFiles are enqueued, rather than
+     * checking for work after every bored yield
+     */
+    public boolean isWorkAwareSchedulingEnabled() {
+        return Boolean.parseBoolean(getProperty(WORK_AWARE_SCHEDULING_ENABLED, "false"));
+    }
+
+    public String getWorkAwareSchedulingIdleCheckInterval() {
+        return getProperty(WORK_AWARE_SCHEDULING_IDLE_CHECK_INTERVAL, DEFAULT_WORK_AWARE_SCHEDULING_IDLE_CHECK_INTERVAL);
+    }
+
+    public boolean isVirtualThreadsEnabled() {
+        return Boolean.parseBoolean(getProperty(VIRTUAL_THREADS_ENABLED, "false"));
+    }
+
+    public String getVirtualThreadsPinnedThreshold() {
+        return getProperty(VIRTUAL_THREADS_PINNED_THRESHOLD, DEFAULT_VIRTUAL_THREADS_PINNED_THRESHOLD);
+    }
+
+    /**
+     * Returns the names of the configured scheduling pools. A scheduling pool is configured by setting the number of threads
+     * that it may use, in the nifi.scheduling.pool.&lt;name&gt;.threads property.
+     *
+     * @return the names of the configured scheduling pools
+     */
+    public Set<String> getSchedulingPoolNames() {
+        final Set<String> poolNames = new HashSet<>();
+
+        for (final String propertyName : getPropertyKeys()) {
+            if (StringUtils.startsWith(propertyName, SCHEDULING_POOL_PREFIX) && propertyName.endsWith(SCHEDULING_POOL_THREADS_SUFFIX)) {
+                final String poolName = propertyName.substring(SCHEDULING_POOL_PREFIX.length(), propertyName.length() - SCHEDULING_POOL_THREADS_SUFFIX.length());
+                if (!poolName.isEmpty()) {
+                    poolNames.add(poolName);
+                }
+            }
+        }
+
+        return poolNames;
+    }
+
+    public boolean isRunDurationTuningEnabled() {
+        return Boolean.parseBoolean(getProperty(RUN_DURATION_TUNING_ENABLED, "false"));
+    }
+
+    public String getRunDurationTuningLatencyBudget() {
+        return getProperty(RUN_DURATION_TUNING_LATENCY_BUDGET, DEFAULT_RUN_DURATION_TUNING_LATENCY_BUDGET);
+    }
+
     public File getStateManagementConfigFile() {
         return new File(getProperty(STATE_MANAGEMENT_CONFIG_FILE, DEFAULT_STATE_MANAGEMENT_CONFIG_FILE));
     }
@@ -0,0 +1,170 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.nifi.wali;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+
+/**
+ * <p>
+ * Coordinates requests to sync a journal to disk so that threads requesting a sync at approximately the same time share a single fsync.
+ * </p>
+ *
+ * <p>
+ * Each caller provides the number of bytes that had been written to the journal when it requested the sync. If a sync that began after that
+ * point has already completed, the caller returns immediately. Otherwise, if no sync is in progress, the caller becomes the 'leader' of the next
+ * group: it waits for up to the configured window, or until the configured number of bytes has been written since the last sync, so that other
+ * callers may join the group, and then performs the sync on behalf of every caller whose data was written before the sync began. All other callers
+ * wait for the leader to complete. As a result, every caller blocks until its own data is durable, but the number of fsyncs that are performed
+ * does not grow with the number of callers.
+ * </p>
+ */
+class GroupCommitSync {
+    private final long windowNanos;
+    private final long maxGroupBytes;
+
+    private final Lock lock = new ReentrantLock();
+    private final Condition groupJoined = lock.newCondition();
+    private final Condition syncCompleted = lock.newCondition();
+
+    // All of the following are guarded by 'lock'
+    private long syncedBytes = 0L;
+    private boolean syncInProgress = false;
+    private long failedThroughBytes = -1L;
+    private IOException failure;
+    private long requestCount = 0L;
+    private long syncCount = 0L;
+
+    /**
+     * @param window the maximum amount of time that the leader of a group waits for other callers to join the group
+     * @param windowUnit the unit of the window
+     * @param maxGroupBytes once this many bytes have been written since the last sync, the leader stops waiting for other callers to join
+     */
+    GroupCommitSync(final long window, final TimeUnit windowUnit, final long maxGroupBytes) {
+        this.windowNanos = windowUnit.toNanos(window);
+        this.maxGroupBytes = maxGroupBytes;
+    }
+
+    /**
+     * Blocks until all of the bytes that had been written when this method was called are durable, performing the sync if necessary
+     *
+     * @param bytesWritten supplies the number of bytes that have been written to the journal
+     * @param sync performs the sync, making all bytes that had been written when it was invoked durable
+     * @throws IOException if the sync that was to make the caller's bytes durable failed
+     */
+    void sync(final LongSupplier bytesWritten, final SyncAction sync) throws IOException {
+        final long requiredBytes = bytesWritten.getAsLong();
+
+        lock.lock();
+        try {
+            requestCount++;
+
+            // Wake the leader, if there is one waiting for its group to fill up, so that it can check whether or not it has reached its limit.
+            groupJoined.signal();
+
+            while (syncedBytes < requiredBytes) {
+                if (requiredBytes <= failedThroughBytes) {
+                    throw new IOException("Failed to sync journal to disk", failure);
+                }
+
+                if (syncInProgress) {
+                    syncCompleted.awaitUninterruptibly();
+                    continue;
+                }
+
+                lead(bytesWritten, sync);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Must be called while holding the lock. The lock is released while the sync itself is performed.
+    private void lead(final LongSupplier bytesWritten, final SyncAction sync) throws IOException {
+        syncInProgress = true;
+
+        long groupTarget = syncedBytes;
+        try {
+            long remainingNanos = windowNanos;
+            final long deadline = System.nanoTime() + windowNanos;
+            while (remainingNanos > 0 && bytesWritten.getAsLong() - syncedBytes < maxGroupBytes) {
+                try {
+                    groupJoined.awaitNanos(remainingNanos);
+                } catch (final InterruptedException ie) {
+                    // Stop waiting for others to join the group, but still sync so that no caller is left waiting
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+
+                remainingNanos = deadline - System.nanoTime();
+            }
+
+            // Anything written before the sync begins is included in the sync
+            groupTarget = bytesWritten.getAsLong();
+
+            lock.unlock();
+            try {
+                sync.sync();
+            } finally {
+                lock.lock();
+            }
+
+            syncedBytes = Math.max(syncedBytes, groupTarget);
+            syncCount++;
+        } catch (final IOException ioe) {
+            failedThroughBytes = Math.max(failedThroughBytes, groupTarget);
+            failure = ioe;
+            throw ioe;
+        } finally {
+            syncInProgress = false;
+            syncCompleted.signalAll();
+        }
+    }
+
+    /**
+     * @return the number of times that a sync was requested
+     */
+    long getRequestCount() {
+        lock.lock();
+        try {
+            return requestCount;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return the number of times that a sync was actually performed
+     */
+    long getSyncCount() {
+        lock.lock();
+        try {
+            return syncCount;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    interface SyncAction {
+        void sync() throws IOException;
+    }
+}
@@ -25,6 +25,8 @@ import org.wali.UpdateType;
 
 import java.io.BufferedInputStream;
 import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.DataInputStream;
 import java.io.DataOutputStream;
 import java.io.EOFException;
@@ -33,6 +35,7 @@ import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
+import java.io.UncheckedIOException;
 import java.nio.file.Files;
 import java.util.Collection;
 import java.util.Collections;
@@ -42,34 +45,47 @@ import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.function.Consumer;
 
 public class HashMapSnapshot<T> implements WriteAheadSnapshot<T>, RecordLookup<T> {
     private static final Logger logger = LoggerFactory.getLogger(HashMapSnapshot.class);
-    private static final int ENCODING_VERSION = 1;
 
     private final ConcurrentMap<Object, T> recordMap = new ConcurrentHashMap<>();
     private final SerDeFactory<T> serdeFactory;
     private final Set<String> swapLocations = Collections.synchronizedSet(new HashSet<>());
     private final File storageDirectory;
+    private final boolean chunkedEncoding;
 
     public HashMapSnapshot(final File storageDirectory, final SerDeFactory<T> serdeFactory) {
+        this(storageDirectory, serdeFactory, false);
+    }
+
+    /**
+     * @param storageDirectory the directory to store the snapshot in
+     * @param serdeFactory the factory for the SerDe that serializes records
+     * @param chunkedEncoding whether or not to write snapshots in chunks that can be deserialized concurrently during recovery. Snapshots that are written
+     *            in chunks cannot be recovered by versions that predate the chunked encoding. Snapshots of either encoding can always be recovered.
+     */
+    public HashMapSnapshot(final File storageDirectory, final SerDeFactory<T> serdeFactory, final boolean chunkedEncoding) {
         this.serdeFactory = serdeFactory;
         this.storageDirectory = storageDirectory;
+        this.chunkedEncoding = chunkedEncoding;
     }
 
     private SnapshotHeader validateHeader(final DataInputStream dataIn) throws IOException {
         final String snapshotClass = dataIn.readUTF();
         logger.debug("Snapshot Class Name for {} is {}", storageDirectory, snapshotClass);
-        if (!snapshotClass.equals(HashMapSnapshot.class.getName())) {
+        if (!snapshotClass.equals(HashMapSnapshot.class.getName()) && !snapshotClass.equals(OffHeapSnapshot.class.getName())) {
             throw new IOException("Write-Ahead Log Snapshot located at " + storageDirectory + " was written using the "
                 + snapshotClass + " class; cannot restore using " + getClass().getName());
         }
 
         final int snapshotVersion = dataIn.readInt();
         logger.debug("Snapshot version for {} is {}", storageDirectory, snapshotVersion);
-        if (snapshotVersion > getVersion()) {
+        if (snapshotVersion > SnapshotChunks.CHUNKED_ENCODING_VERSION) {
             throw new IOException("Write-Ahead Log Snapshot located at " + storageDirectory + " was written using version "
-                + snapshotVersion + " of the " + snapshotClass + " class; cannot restore using Version " + getVersion());
+                + snapshotVersion + " of the " + snapshotClass + " class; cannot restore using Version " + SnapshotChunks.CHUNKED_ENCODING_VERSION);
         }
 
         final String serdeEncoding = dataIn.readUTF(); // ignore serde class name for now
@@ -85,13 +101,26 @@ public class HashMapSnapshot<T> implements WriteAheadSnapshot<T>, RecordLookup<T
         logger.debug("Number of Records for Snapshot at {} is {}", storageDirectory, numRecords);
 
         final SerDe<T> serde = serdeFactory.createSerDe(serdeEncoding);
-        serde.readHeader(dataIn);
+        final byte[] serdeHeader;
+        if (snapshotVersion < 2) {
+            serdeHeader = null;
+            serde.readHeader(dataIn);
+        } else {
+            serdeHeader = new byte[dataIn.readInt()];
+            dataIn.readFully(serdeHeader);
+            serde.readHeader(new DataInputStream(new ByteArrayInputStream(serdeHeader)));
+        }
 
-        return new SnapshotHeader(serde, serdeVersion, maxTransactionId, numRecords);
+        return new SnapshotHeader(snapshotVersion, serde, serdeEncoding, serdeHeader, serdeVersion, maxTransactionId, numRecords);
     }
 
     @Override
     public SnapshotRecovery<T> recover() throws IOException {
+        return recover(null);
+    }
+
+    @Override
+    public SnapshotRecovery<T> recover(final ExecutorService deserializationExecutor) throws IOException {
         final File partialFile = getPartialFile();
         final File snapshotFile = getSnapshotFile();
         final boolean partialExists = partialFile.exists();
@@ -131,20 +160,28 @@ public class HashMapSnapshot<T> implements WriteAheadSnapshot<T>, RecordLookup<T
             final long maxTransactionId = header.getMaxTransactionId();
 
             // Read all of the records that we expect to receive.
-            for (int i = 0; i < numRecords; i++) {
-                final T record = serde.deserializeRecord(dataIn, serdeVersion);
-                if (record == null) {
-                    throw new EOFException();
-                }
-
+            final Consumer<T> recordConsumer = record -> {
                 final UpdateType updateType = serde.getUpdateType(record);
                 if (updateType == UpdateType.DELETE) {
                     logger.warn("While recovering from snapshot, found record with type 'DELETE'; this record will not be restored");
-                    continue;
+                    return;
                 }
 
                 logger.trace("Recovered from snapshot: {}", record);
                 recordMap.put(serde.getRecordIdentifier(record), record);
+            };
+
+            if (header.getSnapshotVersion() < 2) {
+                for (int i = 0; i < numRecords; i++) {
+                    final T record = serde.deserializeRecord(dataIn, serdeVersion);
+                    if (record == null) {
+                        throw new EOFException();
+                    }
+
+                    recordConsumer.accept(record);
+                }
+            } else {
+                SnapshotChunks.readRecords(dataIn, numRecords, serde, header::createSerDe, serdeVersion, deserializationExecutor, recordConsumer);
             }
 
             // Determine the location of any swap files.
@@ -227,7 +264,7 @@ public class HashMapSnapshot<T> implements WriteAheadSnapshot<T>, RecordLookup<T
     }
 
     private int getVersion() {
-        return ENCODING_VERSION;
+        return SnapshotChunks.getEncodingVersion(chunkedEncoding);
     }
 
     private File getPartialFile() {
@@ -275,13 +312,23 @@ public class HashMapSnapshot<T> implements WriteAheadSnapshot<T>, RecordLookup<T
             dataOut.writeInt(serde.getVersion());
             dataOut.writeLong(snapshot.getMaxTransactionId());
             dataOut.writeInt(snapshot.getRecords().size());
-            serde.writeHeader(dataOut);
+
+            try (final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+                 final DataOutputStream dos = new DataOutputStream(baos)) {
+                serde.writeHeader(dos);
+                dos.flush();
+
+                SnapshotChunks.writeSerDeHeader(dataOut, baos.toByteArray(), chunkedEncoding);
+            }
 
             // Serialize each record
+            final SnapshotChunks.Writer chunkWriter = new SnapshotChunks.Writer(dataOut, chunkedEncoding);
             for (final T record : snapshot.getRecords().values()) {
                 logger.trace("Checkpointing {}", record);
-                serde.serializeRecord(record, dataOut);
+                serde.serializeRecord(record, chunkWriter.getRecordOutputStream());
+                chunkWriter.recordWritten();
             }
+            chunkWriter.finish();
 
             // Write out the number of swap locations, followed by the swap locations themselves.
             dataOut.writeInt(snapshot.getSwapLocations().size());
@@ -338,18 +385,40 @@ public class HashMapSnapshot<T> implements WriteAheadSnapshot<T>, RecordLookup<T
     }
 
     private class SnapshotHeader {
+        private final int snapshotVersion;
         private final SerDe<T> serde;
+        private final String serdeEncoding;
+        private final byte[] serdeHeader;
         private final int serdeVersion;
         private final int numRecords;
         private final long maxTransactionId;
 
-        public SnapshotHeader(final SerDe<T> serde, final int serdeVersion, final long maxTransactionId, final int numRecords) {
+        public SnapshotHeader(final int snapshotVersion, final SerDe<T> serde, final String serdeEncoding, final byte[] serdeHeader, final int serdeVersion,
+                              final long maxTransactionId, final int numRecords) {
+            this.snapshotVersion = snapshotVersion;
             this.serde = serde;
+            this.serdeEncoding = serdeEncoding;
+            this.serdeHeader = serdeHeader;
             this.serdeVersion = serdeVersion;
             this.maxTransactionId = maxTransactionId;
             this.numRecords = numRecords;
         }
 
+        public int getSnapshotVersion() {
+            return snapshotVersion;
+        }
+
+        public SerDe<T> createSerDe() {
+            final SerDe<T> newSerde = serdeFactory.createSerDe(serdeEncoding);
+            try {
+                newSerde.readHeader(new DataInputStream(new ByteArrayInputStream(serdeHeader)));
+            } catch (final IOException ioe) {
+                throw new UncheckedIOException("Failed to read SerDe header for Snapshot at " + storageDirectory, ioe);
+            }
+
+            return newSerde;
+        }
+
         public SerDe<T> getSerDe() {
             return serde;
         }
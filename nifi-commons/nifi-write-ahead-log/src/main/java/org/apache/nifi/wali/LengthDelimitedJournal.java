@@ -27,6 +27,7 @@ import org.wali.UpdateType;
 
 import java.io.BufferedInputStream;
 import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.DataInputStream;
 import java.io.DataOutputStream;
@@ -38,26 +39,36 @@ import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.io.UncheckedIOException;
 import java.nio.ByteBuffer;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.text.DecimalFormat;
+import java.util.ArrayDeque;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 public class LengthDelimitedJournal<T> implements WriteAheadJournal<T> {
     private static final Logger logger = LoggerFactory.getLogger(LengthDelimitedJournal.class);
-    private static final int DEFAULT_MAX_IN_HEAP_SERIALIZATION_BYTES = 5 * 1024 * 1024; // 5 MB
+    static final int DEFAULT_MAX_IN_HEAP_SERIALIZATION_BYTES = 5 * 1024 * 1024; // 5 MB
 
     private static final JournalSummary INACTIVE_JOURNAL_SUMMARY = new StandardJournalSummary(-1L, -1L, 0);
     private static final int JOURNAL_ENCODING_VERSION = 1;
     private static final byte TRANSACTION_FOLLOWS = 64;
     private static final byte JOURNAL_COMPLETE = 127;
     private static final int NUL_BYTE = 0;
+    private static final int MAX_PENDING_TRANSACTIONS = 256;
+    private static final long MAX_PENDING_TRANSACTION_BYTES = 64L * 1024 * 1024; // 64 MB
 
     private final File journalFile;
     private final File overflowDirectory;
@@ -65,6 +76,7 @@ public class LengthDelimitedJournal<T> implements WriteAheadJournal<T> {
     private final SerDeFactory<T> serdeFactory;
     private final ObjectPool<ByteArrayDataOutputStream> streamPool;
     private final int maxInHeapSerializationBytes;
+    private final GroupCommitSync groupCommitSync;
 
     private SerDe<T> serde;
     private FileOutputStream fileOut;
@@ -77,6 +89,7 @@ public class LengthDelimitedJournal<T> implements WriteAheadJournal<T> {
     private volatile Throwable poisonCause = null;
     private volatile boolean closed = false;
     private final ByteBuffer transactionPreamble = ByteBuffer.allocate(12); // guarded by synchronized block
+    private volatile long transactionBytesWritten = 0L; // only updated within synchronized block
 
     public LengthDelimitedJournal(final File journalFile, final SerDeFactory<T> serdeFactory, final ObjectPool<ByteArrayDataOutputStream> streamPool, final long initialTransactionId) {
         this(journalFile, serdeFactory, streamPool, initialTransactionId, DEFAULT_MAX_IN_HEAP_SERIALIZATION_BYTES);
@@ -84,6 +97,15 @@ public class LengthDelimitedJournal<T> implements WriteAheadJournal<T> {
 
     public LengthDelimitedJournal(final File journalFile, final SerDeFactory<T> serdeFactory, final ObjectPool<ByteArrayDataOutputStream> streamPool, final long initialTransactionId,
                                   final int maxInHeapSerializationBytes) {
+        this(journalFile, serdeFactory, streamPool, initialTransactionId, maxInHeapSerializationBytes, null);
+    }
+
+    /**
+     * Creates a journal whose calls to {@link #fsync()} are coordinated by the given GroupCommitSync, so that threads that call {@link #fsync()}
+     * concurrently share a single sync to disk
+     */
+    LengthDelimitedJournal(final File journalFile, final SerDeFactory<T> serdeFactory, final ObjectPool<ByteArrayDataOutputStream> streamPool, final long initialTransactionId,
+                           final int maxInHeapSerializationBytes, final GroupCommitSync groupCommitSync) {
         this.journalFile = journalFile;
         this.overflowDirectory = new File(journalFile.getParentFile(), "overflow-" + getBaseFilename(journalFile));
         this.serdeFactory = serdeFactory;
@@ -93,6 +115,7 @@ public class LengthDelimitedJournal<T> implements WriteAheadJournal<T> {
         this.initialTransactionId = initialTransactionId;
         this.currentTransactionId = initialTransactionId;
         this.maxInHeapSerializationBytes = maxInHeapSerializationBytes;
+        this.groupCommitSync = groupCommitSync;
     }
 
     public void dispose() {
@@ -215,11 +238,11 @@ public class LengthDelimitedJournal<T> implements WriteAheadJournal<T> {
         }
 
         final int serdeHeaderLength = in.readInt();
-        final InputStream serdeHeaderIn = new LimitingInputStream(in, serdeHeaderLength);
-        final DataInputStream dis = new DataInputStream(serdeHeaderIn);
-        serde.readHeader(dis);
+        final byte[] serdeHeader = new byte[serdeHeaderLength];
+        in.readFully(serdeHeader);
+        serde.readHeader(new DataInputStream(new ByteArrayInputStream(serdeHeader)));
 
-        return new SerDeAndVersion(serde, serdeVersion);
+        return new SerDeAndVersion(serde, serdeVersion, serdeClassName, serdeHeader);
     }
 
 
@@ -319,6 +342,8 @@ public class LengthDelimitedJournal<T> implements WriteAheadJournal<T> {
                     out.write(transactionPreamble.array());
                     baos.writeTo(out);
                     out.flush();
+
+                    transactionBytesWritten += 1 + transactionPreamble.capacity() + baos.size();
                 } catch (final Throwable t) {
                     // While the outter Throwable that wraps this "catch" will call Poison, it is imperative that we call poison()
                     // before the synchronized block is excited. Otherwise, another thread could potentially corrupt the journal before
@@ -376,7 +401,15 @@ public class LengthDelimitedJournal<T> implements WriteAheadJournal<T> {
     }
 
     @Override
-    public synchronized void fsync() throws IOException {
+    public void fsync() throws IOException {
+        if (groupCommitSync == null) {
+            syncToDisk();
+        } else {
+            groupCommitSync.sync(() -> transactionBytesWritten, this::forceToDisk);
+        }
+    }
+
+    private synchronized void syncToDisk() throws IOException {
         checkState();
 
         try {
@@ -388,6 +421,27 @@ public class LengthDelimitedJournal<T> implements WriteAheadJournal<T> {
         }
     }
 
+    private void forceToDisk() throws IOException {
+        // The force is performed outside of the synchronized block so that other threads can continue writing to the journal while it occurs.
+        // Anything that was written before the force began is guaranteed to be durable once it returns.
+        final FileOutputStream out;
+        synchronized (this) {
+            checkState();
+            out = fileOut;
+        }
+
+        if (out == null) {
+            return;
+        }
+
+        try {
+            out.getChannel().force(false);
+        } catch (final IOException ioe) {
+            poison(ioe);
+            throw ioe;
+        }
+    }
+
     @Override
     public synchronized void close() throws IOException {
         if (closed) {
@@ -411,12 +465,23 @@ public class LengthDelimitedJournal<T> implements WriteAheadJournal<T> {
 
     @Override
     public JournalRecovery recoverRecords(final Map<Object, T> recordMap, final Set<String> swapLocations) throws IOException {
+        return recoverRecords(recordMap, swapLocations, null);
+    }
+
+    @Override
+    public JournalRecovery recoverRecords(final Map<Object, T> recordMap, final Set<String> swapLocations, final ExecutorService deserializationExecutor) throws IOException {
         long maxTransactionId = -1L;
         int updateCount = 0;
 
         boolean eofException = false;
         logger.info("Recovering records from journal {}", journalFile);
         final double journalLength = journalFile.length();
+        final long recoveryStart = System.nanoTime();
+
+        // If a deserialization executor is provided, transactions are deserialized concurrently while they are applied, in order, by this thread.
+        // Transactions are handed off in order, so we keep track of those that have been submitted but not yet applied.
+        final Deque<PendingTransaction> pendingTransactions = new ArrayDeque<>();
+        final RecoveryTimings timings = new RecoveryTimings();
 
         try (final InputStream fis = new FileInputStream(journalFile);
             final InputStream bufferedIn = new BufferedInputStream(fis);
@@ -428,6 +493,17 @@ public class LengthDelimitedJournal<T> implements WriteAheadJournal<T> {
                 final SerDeAndVersion serdeAndVersion = validateHeader(in);
                 final SerDe<T> serde = serdeAndVersion.getSerDe();
 
+                final ObjectPool<SerDe<T>> serdePool;
+                if (deserializationExecutor == null) {
+                    serdePool = null;
+                } else if (serde.isCurrentRecordStateRequired()) {
+                    logger.info("Journal {} was written using {}, which requires the current record states in order to deserialize updates; will recover journal using a single thread",
+                        journalFile, serde.getClass().getName());
+                    serdePool = null;
+                } else {
+                    serdePool = new BlockingQueuePool<>(MAX_PENDING_TRANSACTIONS, serdeAndVersion::createSerDe, pooledSerde -> true, pooledSerde -> { });
+                }
+
                 // Ensure that we get a valid transaction indicator
                 int transactionIndicator = in.read();
                 if (transactionIndicator != TRANSACTION_FOLLOWS && transactionIndicator != JOURNAL_COMPLETE && transactionIndicator != -1) {
@@ -436,93 +512,62 @@ public class LengthDelimitedJournal<T> implements WriteAheadJournal<T> {
                 }
 
                 long consumedAtLog = 0L;
-
-                // We don't want to apply the updates in a transaction until we've finished recovering the entire
-                // transaction. Otherwise, we could apply say 8 out of 10 updates and then hit an EOF. In such a case,
-                // we want to rollback the entire transaction. We handle this by not updating recordMap or swapLocations
-                // variables directly but instead keeping track of the things that occurred and then once we've read the
-                // entire transaction, we can apply those updates to the recordMap and swapLocations.
-                final Map<Object, T> transactionRecordMap = new HashMap<>();
-                final Set<Object> idsRemoved = new HashSet<>();
-                final Set<String> swapLocationsRemoved = new HashSet<>();
-                final Set<String> swapLocationsAdded = new HashSet<>();
-                int transactionUpdates = 0;
+                long pendingBytes = 0L;
 
                 // While we have a transaction to recover, recover it
                 while (transactionIndicator == TRANSACTION_FOLLOWS) {
-                    transactionRecordMap.clear();
-                    idsRemoved.clear();
-                    swapLocationsRemoved.clear();
-                    swapLocationsAdded.clear();
-                    transactionUpdates = 0;
-
                     // Format is <Transaction ID: 8 bytes> <Transaction Length: 4 bytes> <Transaction data: # of bytes indicated by Transaction Length Field>
                     final long transactionId = in.readLong();
                     maxTransactionId = Math.max(maxTransactionId, transactionId);
                     final int transactionLength = in.readInt();
 
-                    // Use SerDe to deserialize the update. We use a LimitingInputStream to ensure that the SerDe is not able to read past its intended
-                    // length, in case there is a bug in the SerDe. We then use a ByteCountingInputStream so that we can ensure that all of the data has
-                    // been read and throw EOFException otherwise.
-                    final InputStream transactionLimitingIn = new LimitingInputStream(in, transactionLength);
-                    final ByteCountingInputStream transactionByteCountingIn = new ByteCountingInputStream(transactionLimitingIn);
-                    final DataInputStream transactionDis = new DataInputStream(transactionByteCountingIn);
-
-                    while (transactionByteCountingIn.getBytesConsumed() < transactionLength || serde.isMoreInExternalFile()) {
-                        final T record = serde.deserializeEdit(transactionDis, recordMap, serdeAndVersion.getVersion());
-
-                        // Update our RecordMap so that we have the most up-to-date version of the Record.
-                        final Object recordId = serde.getRecordIdentifier(record);
-                        final UpdateType updateType = serde.getUpdateType(record);
-
-                        switch (updateType) {
-                            case DELETE: {
-                                idsRemoved.add(recordId);
-                                transactionRecordMap.remove(recordId);
-                                break;
+                    if (serdePool == null) {
+                        // We don't want to apply the updates in a transaction until we've finished recovering the entire
+                        // transaction. Otherwise, we could apply say 8 out of 10 updates and then hit an EOF. In such a case,
+                        // we want to rollback the entire transaction. We handle this by not updating recordMap or swapLocations
+                        // variables directly but instead keeping track of the things that occurred and then once we've read the
+                        // entire transaction, we can apply those updates to the recordMap and swapLocations.
+                        final long decodeStart = System.nanoTime();
+                        final TransactionUpdate<T> update = readTransaction(in, transactionLength, serde, serdeAndVersion.getVersion(), recordMap);
+                        timings.deserializationNanos += System.nanoTime() - decodeStart;
+
+                        updateCount += applyTransaction(update, recordMap, swapLocations, timings);
+                    } else {
+                        // Read the entire transaction into memory and hand it off to be deserialized. If we encounter EOF while reading it,
+                        // the transaction is incomplete and is never submitted, so it will not be applied.
+                        final byte[] transactionBytes = new byte[transactionLength];
+                        in.readFully(transactionBytes);
+
+                        final int version = serdeAndVersion.getVersion();
+                        final Future<TransactionUpdate<T>> future = deserializationExecutor.submit(() -> {
+                            final SerDe<T> pooledSerde = serdePool.borrowObject();
+                            try {
+                                final DataInputStream transactionIn = new DataInputStream(new ByteArrayInputStream(transactionBytes));
+                                return readTransaction(transactionIn, transactionLength, pooledSerde, version, Collections.emptyMap());
+                            } finally {
+                                serdePool.returnObject(pooledSerde);
                             }
-                            case SWAP_IN: {
-                                final String location = serde.getLocation(record);
-                                if (location == null) {
-                                    logger.error("Recovered SWAP_IN record from edit log, but it did not contain a Location; skipping record");
-                                } else {
-                                    swapLocationsRemoved.add(location);
-                                    swapLocationsAdded.remove(location);
-                                    transactionRecordMap.put(recordId, record);
-                                }
-                                break;
+                        });
+
+                        pendingTransactions.addLast(new PendingTransaction(future, transactionLength));
+                        pendingBytes += transactionLength;
+
+                        while (pendingTransactions.size() >= MAX_PENDING_TRANSACTIONS || pendingBytes > MAX_PENDING_TRANSACTION_BYTES) {
+                            final PendingTransaction pending = pendingTransactions.removeFirst();
+                            pendingBytes -= pending.getLength();
+
+                            final TransactionUpdate<T> update;
+                            try {
+                                update = pending.await(timings);
+                            } catch (final EOFException eof) {
+                                // No transaction after this one may be applied
+                                cancel(pendingTransactions);
+                                throw eof;
                             }
-                            case SWAP_OUT: {
-                                final String location = serde.getLocation(record);
-                                if (location == null) {
-                                    logger.error("Recovered SWAP_OUT record from edit log, but it did not contain a Location; skipping record");
-                                } else {
-                                    swapLocationsRemoved.remove(location);
-                                    swapLocationsAdded.add(location);
-                                    idsRemoved.add(recordId);
-                                    transactionRecordMap.remove(recordId);
-                                }
-
-                                break;
-                            }
-                            default: {
-                                transactionRecordMap.put(recordId, record);
-                                idsRemoved.remove(recordId);
-                                break;
-                            }
-                        }
-
-                        transactionUpdates++;
-                    }
 
-                    // Apply the transaction
-                    for (final Object id : idsRemoved) {
-                        recordMap.remove(id);
+                            updateCount += applyTransaction(update, recordMap, swapLocations, timings);
+                        }
                     }
-                    recordMap.putAll(transactionRecordMap);
-                    swapLocations.removeAll(swapLocationsRemoved);
-                    swapLocations.addAll(swapLocationsAdded);
-                    updateCount += transactionUpdates;
 
                     // Check if there is another transaction to read
                     transactionIndicator = in.read();
@@ -555,15 +600,119 @@ public class LengthDelimitedJournal<T> implements WriteAheadJournal<T> {
                         + "This will sometimes happen after a sudden power loss. The rest of this journal file will be skipped for recovery purposes."
                         + "The following Exception was encountered while recovering the updates to the journal:", e);
                 } else {
+                    cancel(pendingTransactions);
+                    throw e;
+                }
+            }
+
+            // Apply any transactions that were fully read before we reached the end of the journal.
+            while (!pendingTransactions.isEmpty()) {
+                final PendingTransaction pending = pendingTransactions.removeFirst();
+                try {
+                    updateCount += applyTransaction(pending.await(timings), recordMap, swapLocations, timings);
+                } catch (final EOFException eof) {
+                    eofException = true;
+                    logger.warn("Encountered unexpected End-of-File when deserializing a transaction from journal file {}; assuming that NiFi was shutdown unexpectedly and continuing recovery",
+                        journalFile);
+                    cancel(pendingTransactions);
+                } catch (final IOException | RuntimeException e) {
+                    cancel(pendingTransactions);
                     throw e;
                 }
             }
         }
 
-        logger.info("Successfully recovered {} updates from journal {}", updateCount, journalFile);
+        final long recoveryMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - recoveryStart);
+        logger.info("Successfully recovered {} updates from journal {} in {} milliseconds ({} milliseconds deserializing or waiting for deserialization, {} milliseconds applying updates)",
+            updateCount, journalFile, recoveryMillis, TimeUnit.NANOSECONDS.toMillis(timings.deserializationNanos), TimeUnit.NANOSECONDS.toMillis(timings.applyNanos));
         return new StandardJournalRecovery(updateCount, maxTransactionId, eofException);
     }
 
+    /**
+     * Reads all of the updates in a single transaction, without applying them. The returned updates reflect the state of each record at the end of the transaction.
+     */
+    private TransactionUpdate<T> readTransaction(final DataInputStream in, final int transactionLength, final SerDe<T> serde, final int serdeVersion,
+                                                 final Map<Object, T> recordMap) throws IOException {
+        final TransactionUpdate<T> update = new TransactionUpdate<>();
+
+        // Use SerDe to deserialize the update. We use a LimitingInputStream to ensure that the SerDe is not able to read past its intended
+        // length, in case there is a bug in the SerDe. We then use a ByteCountingInputStream so that we can ensure that all of the data has
+        // been read and throw EOFException otherwise.
+        final InputStream transactionLimitingIn = new LimitingInputStream(in, transactionLength);
+        final ByteCountingInputStream transactionByteCountingIn = new ByteCountingInputStream(transactionLimitingIn);
+        final DataInputStream transactionDis = new DataInputStream(transactionByteCountingIn);
+
+        while (transactionByteCountingIn.getBytesConsumed() < transactionLength || serde.isMoreInExternalFile()) {
+            final T record = serde.deserializeEdit(transactionDis, recordMap, serdeVersion);
+
+            // Update our RecordMap so that we have the most up-to-date version of the Record.
+            final Object recordId = serde.getRecordIdentifier(record);
+            final UpdateType updateType = serde.getUpdateType(record);
+
+            switch (updateType) {
+                case DELETE: {
+                    update.idsRemoved.add(recordId);
+                    update.transactionRecordMap.remove(recordId);
+                    break;
+                }
+                case SWAP_IN: {
+                    final String location = serde.getLocation(record);
+                    if (location == null) {
+                        logger.error("Recovered SWAP_IN record from edit log, but it did not contain a Location; skipping record");
+                    } else {
+                        update.swapLocationsRemoved.add(location);
+                        update.swapLocationsAdded.remove(location);
+                        update.transactionRecordMap.put(recordId, record);
+                    }
+                    break;
+                }
+                case SWAP_OUT: {
+                    final String location = serde.getLocation(record);
+                    if (location == null) {
+                        logger.error("Recovered SWAP_OUT record from edit log, but it did not contain a Location; skipping record");
+                    } else {
+                        update.swapLocationsRemoved.remove(location);
+                        update.swapLocationsAdded.add(location);
+                        update.idsRemoved.add(recordId);
+                        update.transactionRecordMap.remove(recordId);
+                    }
+
+                    break;
+                }
+                default: {
+                    update.transactionRecordMap.put(recordId, record);
+                    update.idsRemoved.remove(recordId);
+                    break;
+                }
+            }
+
+            update.updateCount++;
+        }
+
+        return update;
+    }
+
+    private int applyTransaction(final TransactionUpdate<T> update, final Map<Object, T> recordMap, final Set<String> swapLocations, final RecoveryTimings timings) {
+        final long applyStart = System.nanoTime();
+
+        for (final Object id : update.idsRemoved) {
+            recordMap.remove(id);
+        }
+        recordMap.putAll(update.transactionRecordMap);
+        swapLocations.removeAll(update.swapLocationsRemoved);
+        swapLocations.addAll(update.swapLocationsAdded);
+
+        timings.applyNanos += System.nanoTime() - applyStart;
+        return update.updateCount;
+    }
+
+    private void cancel(final Deque<PendingTransaction> pendingTransactions) {
+        for (final PendingTransaction pending : pendingTransactions) {
+            pending.cancel();
+        }
+        pendingTransactions.clear();
+    }
+
     /**
      * In the case of a sudden power loss, it is common - at least in a Linux journaling File System -
      * that the partition file that is being written to will have many trailing "NUL bytes" (0's).
@@ -598,10 +747,30 @@ public class LengthDelimitedJournal<T> implements WriteAheadJournal<T> {
     private class SerDeAndVersion {
         private final SerDe<T> serde;
         private final int version;
+        private final String serdeClassName;
+        private final byte[] serdeHeader;
 
-        public SerDeAndVersion(final SerDe<T> serde, final int version) {
+        public SerDeAndVersion(final SerDe<T> serde, final int version, final String serdeClassName, final byte[] serdeHeader) {
             this.serde = serde;
             this.version = version;
+            this.serdeClassName = serdeClassName;
+            this.serdeHeader = serdeHeader;
+        }
+
+        /**
+         * Creates a new SerDe that is equivalent to the one returned by {@link #getSerDe()}, so that transactions can be deserialized concurrently
+         *
+         * @return a new SerDe that has been initialized with the journal's SerDe header
+         */
+        public SerDe<T> createSerDe() {
+            final SerDe<T> newSerde = serdeFactory.createSerDe(serdeClassName);
+            try {
+                newSerde.readHeader(new DataInputStream(new ByteArrayInputStream(serdeHeader)));
+            } catch (final IOException ioe) {
+                throw new UncheckedIOException("Failed to read SerDe header for journal " + journalFile, ioe);
+            }
+
+            return newSerde;
         }
 
         public SerDe<T> getSerDe() {
@@ -612,4 +781,60 @@ public class LengthDelimitedJournal<T> implements WriteAheadJournal<T> {
             return version;
         }
     }
+
+    /**
+     * The result of reading a single transaction from the journal, which is to be applied to the recovered records atomically.
+     */
+    private static class TransactionUpdate<T> {
+        private final Map<Object, T> transactionRecordMap = new HashMap<>();
+        private final Set<Object> idsRemoved = new HashSet<>();
+        private final Set<String> swapLocationsRemoved = new HashSet<>();
+        private final Set<String> swapLocationsAdded = new HashSet<>();
+        private int updateCount = 0;
+    }
+
+    private class PendingTransaction {
+        private final Future<TransactionUpdate<T>> future;
+        private final int length;
+
+        public PendingTransaction(final Future<TransactionUpdate<T>> future, final int length) {
+            this.future = future;
+            this.length = length;
+        }
+
+        public int getLength() {
+            return length;
+        }
+
+        public TransactionUpdate<T> await(final RecoveryTimings timings) throws IOException {
+            final long waitStart = System.nanoTime();
+            try {
+                return future.get();
+            } catch (final InterruptedException ie) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted while waiting for transaction from journal " + journalFile + " to be deserialized", ie);
+            } catch (final ExecutionException ee) {
+                final Throwable cause = ee.getCause();
+                if (cause instanceof IOException) {
+                    throw (IOException) cause;
+                }
+                if (cause instanceof RuntimeException) {
+                    throw (RuntimeException) cause;
+                }
+
+                throw new IOException("Failed to deserialize transaction from journal " + journalFile, cause);
+            } finally {
+                timings.deserializationNanos += System.nanoTime() - waitStart;
+            }
+        }
+
+        public void cancel() {
+            future.cancel(true);
+        }
+    }
+
+    private static class RecoveryTimings {
+        private long deserializationNanos = 0L;
+        private long applyNanos = 0L;
+    }
 }
@@ -0,0 +1,348 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.nifi.wali;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+
+/**
+ * <p>
+ * An open-addressing hash map from primitive <code>long</code> keys to opaque byte arrays, where both the hash table
+ * and the values are held in direct (off-heap) memory. The amount of heap that is used by this map does not depend on the
+ * number of entries that it holds.
+ * </p>
+ *
+ * <p>
+ * The table uses linear probing with backward-shift deletion, so no tombstones are ever left behind. Values are appended
+ * to a list of fixed-size blocks and are never modified in place: replacing or removing a value simply marks the old bytes as
+ * garbage. Once more than half of the written bytes are garbage, the live values are compacted into a fresh set of blocks.
+ * Because existing bytes are never overwritten, a {@link Capture} can continue to read the values that were live when it
+ * was taken while the map continues to be updated.
+ * </p>
+ *
+ * <p>
+ * This class is thread-safe. All access is serialized by synchronizing on the map itself; callers are expected to perform any
+ * expensive serialization or deserialization outside of these calls.
+ * </p>
+ */
+class OffHeapRecordMap {
+    static final int DEFAULT_BLOCK_SIZE = 64 * 1024 * 1024;
+
+    private static final int MIN_CAPACITY = 1024;
+    private static final int MAX_CAPACITY = 1 << 27; // 8 bytes per slot must fit into a single ByteBuffer
+    private static final float LOAD_FACTOR = 0.75F;
+    private static final long EMPTY = 0L;
+    private static final int LENGTH_PREFIX = 4;
+    private static final int MAX_ARRAY_LENGTH = Integer.MAX_VALUE - 8;
+
+    private final int blockSize;
+
+    // Hash table. Each slot is one long in 'keys' and one long in 'addresses'. An address of EMPTY indicates an unused slot.
+    private ByteBuffer keys;
+    private ByteBuffer addresses;
+    private int capacity;
+    private int mask;
+    private int size;
+
+    // Value storage. An address is encoded as ((block index + 1) << 32 | offset) so that no valid address is ever EMPTY.
+    private ByteBuffer[] blocks = new ByteBuffer[0];
+    private int blockCount = 0;
+    private long allocatedBytes = 0L;
+    private long writtenBytes = 0L;
+    private long liveBytes = 0L;
+
+    OffHeapRecordMap() {
+        this(DEFAULT_BLOCK_SIZE);
+    }
+
+    OffHeapRecordMap(final int blockSize) {
+        if (blockSize < LENGTH_PREFIX + 1) {
+            throw new IllegalArgumentException("Block size must be greater than " + LENGTH_PREFIX + " bytes");
+        }
+
+        this.blockSize = blockSize;
+        allocateTable(MIN_CAPACITY);
+    }
+
+    synchronized int size() {
+        return size;
+    }
+
+    synchronized long getAllocatedBytes() {
+        return allocatedBytes;
+    }
+
+    synchronized long getLiveBytes() {
+        return liveBytes;
+    }
+
+    synchronized long getGarbageBytes() {
+        return writtenBytes - liveBytes;
+    }
+
+    /**
+     * Returns a copy of the value that is associated with the given key, or <code>null</code> if there is no such value
+     *
+     * @param key the key
+     * @return a copy of the value, or <code>null</code> if the key is not present
+     */
+    synchronized byte[] get(final long key) {
+        final int slot = findSlot(key);
+        if (slot < 0) {
+            return null;
+        }
+
+        return readValue(blocks, addresses.getLong(slot * 8));
+    }
+
+    synchronized void put(final long key, final byte[] value, final int offset, final int length) {
+        final long address = writeValue(value, offset, length);
+
+        int slot = slotFor(key);
+        while (true) {
+            final long existingAddress = addresses.getLong(slot * 8);
+            if (existingAddress == EMPTY) {
+                keys.putLong(slot * 8, key);
+                addresses.putLong(slot * 8, address);
+                size++;
+                break;
+            }
+
+            if (keys.getLong(slot * 8) == key) {
+                markGarbage(existingAddress);
+                addresses.putLong(slot * 8, address);
+                break;
+            }
+
+            slot = (slot + 1) & mask;
+        }
+
+        if (size > capacity * LOAD_FACTOR) {
+            resize(capacity * 2);
+        }
+
+        compactIfNecessary();
+    }
+
+    synchronized boolean remove(final long key) {
+        int slot = findSlot(key);
+        if (slot < 0) {
+            return false;
+        }
+
+        markGarbage(addresses.getLong(slot * 8));
+
+        // Backward-shift deletion: move any subsequent entries in the probe sequence into the vacated slot if doing so
+        // brings them closer to their ideal slot. This keeps lookups correct without the need for tombstones.
+        int next = slot;
+        while (true) {
+            next = (next + 1) & mask;
+            final long nextAddress = addresses.getLong(next * 8);
+            if (nextAddress == EMPTY) {
+                break;
+            }
+
+            final long nextKey = keys.getLong(next * 8);
+            final int ideal = slotFor(nextKey);
+            final boolean shift = (next > slot) ? (ideal <= slot || ideal > next) : (ideal <= slot && ideal > next);
+            if (shift) {
+                keys.putLong(slot * 8, nextKey);
+                addresses.putLong(slot * 8, nextAddress);
+                slot = next;
+            }
+        }
+
+        keys.putLong(slot * 8, 0L);
+        addresses.putLong(slot * 8, EMPTY);
+        size--;
+        return true;
+    }
+
+    /**
+     * Creates a point-in-time view of all entries in the map. Only the keys and addresses are copied, into a heap array that is
+     * reclaimed by the garbage collector as soon as the view is no longer referenced; the values themselves are shared with the map,
+     * which is safe because values are never modified once written.
+     *
+     * @return a point-in-time view of the map
+     */
+    synchronized Capture capture() {
+        final long entryCount = (long) size * 2;
+        if (entryCount > MAX_ARRAY_LENGTH) {
+            throw new IllegalStateException("Cannot capture " + size + " records from an off-heap record map");
+        }
+
+        final long[] entries = new long[(int) entryCount];
+        int index = 0;
+        for (int slot = 0; slot < capacity; slot++) {
+            final long address = addresses.getLong(slot * 8);
+            if (address != EMPTY) {
+                entries[index++] = keys.getLong(slot * 8);
+                entries[index++] = address;
+            }
+        }
+
+        return new Capture(entries, size, Arrays.copyOf(blocks, blockCount));
+    }
+
+    private int slotFor(final long key) {
+        // Fibonacci hashing spreads sequential keys, such as FlowFile IDs, evenly across the table
+        final long hash = key * 0x9E3779B97F4A7C15L;
+        return (int) (hash >>> 32) & mask;
+    }
+
+    private int findSlot(final long key) {
+        int slot = slotFor(key);
+        while (true) {
+            if (addresses.getLong(slot * 8) == EMPTY) {
+                return -1;
+            }
+
+            if (keys.getLong(slot * 8) == key) {
+                return slot;
+            }
+
+            slot = (slot + 1) & mask;
+        }
+    }
+
+    private void allocateTable(final int tableCapacity) {
+        capacity = tableCapacity;
+        mask = tableCapacity - 1;
+        keys = ByteBuffer.allocateDirect(tableCapacity * 8).order(ByteOrder.nativeOrder());
+        addresses = ByteBuffer.allocateDirect(tableCapacity * 8).order(ByteOrder.nativeOrder());
+    }
+
+    private void resize(final int newCapacity) {
+        if (newCapacity > MAX_CAPACITY) {
+            throw new IllegalStateException("Cannot store more than " + (int) (MAX_CAPACITY * LOAD_FACTOR) + " records in an off-heap record map");
+        }
+
+        final ByteBuffer oldKeys = keys;
+        final ByteBuffer oldAddresses = addresses;
+        final int oldCapacity = capacity;
+
+        allocateTable(newCapacity);
+        for (int oldSlot = 0; oldSlot < oldCapacity; oldSlot++) {
+            final long address = oldAddresses.getLong(oldSlot * 8);
+            if (address == EMPTY) {
+                continue;
+            }
+
+            final long key = oldKeys.getLong(oldSlot * 8);
+            int slot = slotFor(key);
+            while (addresses.getLong(slot * 8) != EMPTY) {
+                slot = (slot + 1) & mask;
+            }
+
+            keys.putLong(slot * 8, key);
+            addresses.putLong(slot * 8, address);
+        }
+    }
+
+    private long writeValue(final byte[] value, final int offset, final int length) {
+        final int required = LENGTH_PREFIX + length;
+        ByteBuffer block = (blockCount == 0) ? null : blocks[blockCount - 1];
+        if (block == null || block.remaining() < required) {
+            block = ByteBuffer.allocateDirect(Math.max(blockSize, required)).order(ByteOrder.nativeOrder());
+            if (blockCount == blocks.length) {
+                blocks = Arrays.copyOf(blocks, Math.max(4, blocks.length * 2));
+            }
+            blocks[blockCount++] = block;
+            allocatedBytes += block.capacity();
+        }
+
+        final int position = block.position();
+        block.putInt(length);
+        block.put(value, offset, length);
+        writtenBytes += required;
+        liveBytes += required;
+
+        return ((long) blockCount << 32) | position;
+    }
+
+    private void markGarbage(final long address) {
+        final ByteBuffer block = blocks[(int) (address >>> 32) - 1];
+        final int length = block.getInt((int) address);
+        liveBytes -= LENGTH_PREFIX + length;
+    }
+
+    private void compactIfNecessary() {
+        // Only compact once there is at least one full block of garbage and garbage accounts for more than half of all written bytes.
+        // Unused space at the end of a block is not considered garbage, as compaction would not reclaim it.
+        final long garbageBytes = writtenBytes - liveBytes;
+        if (garbageBytes < blockSize || garbageBytes < liveBytes) {
+            return;
+        }
+
+        final ByteBuffer[] oldBlocks = blocks;
+        blocks = new ByteBuffer[0];
+        blockCount = 0;
+        allocatedBytes = 0L;
+        writtenBytes = 0L;
+        liveBytes = 0L;
+
+        // Any outstanding Capture retains its reference to the old blocks, so they will remain readable until it is released.
+        for (int slot = 0; slot < capacity; slot++) {
+            final long address = addresses.getLong(slot * 8);
+            if (address != EMPTY) {
+                final byte[] value = readValue(oldBlocks, address);
+                addresses.putLong(slot * 8, writeValue(value, 0, value.length));
+            }
+        }
+    }
+
+    private static byte[] readValue(final ByteBuffer[] blocks, final long address) {
+        final ByteBuffer block = blocks[(int) (address >>> 32) - 1];
+        final int offset = (int) address;
+        final int length = block.getInt(offset);
+
+        final ByteBuffer view = block.duplicate();
+        view.position(offset + LENGTH_PREFIX);
+        final byte[] value = new byte[length];
+        view.get(value);
+        return value;
+    }
+
+    /**
+     * An immutable, point-in-time view of the entries of an {@link OffHeapRecordMap}
+     */
+    static class Capture {
+        private final long[] entries;
+        private final int size;
+        private final ByteBuffer[] blocks;
+
+        private Capture(final long[] entries, final int size, final ByteBuffer[] blocks) {
+            this.entries = entries;
+            this.size = size;
+            this.blocks = blocks;
+        }
+
+        int size() {
+            return size;
+        }
+
+        long getKey(final int index) {
+            return entries[index * 2];
+        }
+
+        byte[] getValue(final int index) {
+            return readValue(blocks, entries[index * 2 + 1]);
+        }
+    }
+}
@@ -0,0 +1,639 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.nifi.wali;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.wali.SerDe;
+import org.wali.SerDeFactory;
+import org.wali.UpdateType;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.function.Consumer;
+
+/**
+ * <p>
+ * An implementation of {@link WriteAheadSnapshot} that, unlike the {@link HashMapSnapshot}, does not hold the 'active' records on the Java heap.
+ * Instead, each record is serialized and stored in an {@link OffHeapRecordMap}, keyed by its identifier. As a result, the amount of heap that is
+ * consumed by the snapshot remains constant regardless of how many records are active, except that writing a checkpoint briefly copies each record's
+ * identifier and location (16 bytes per record) onto the heap. This comes at the cost of having to deserialize a record whenever it is looked up,
+ * so it is most appropriate when the number of active records is very large.
+ * </p>
+ *
+ * <p>
+ * Record identifiers must be instances of {@link Number}; they are stored as primitive <code>long</code> values.
+ * </p>
+ *
+ * <p>
+ * The snapshot file that is written uses the same format as the {@link HashMapSnapshot}, and either implementation can recover a snapshot written by the other.
+ * Because the records are already held in their serialized form, checkpointing does not need to serialize each record but instead copies the bytes directly
+ * to the snapshot file.
+ * </p>
+ */
+public class OffHeapSnapshot<T> implements WriteAheadSnapshot<T>, RecordLookup<T> {
+    private static final Logger logger = LoggerFactory.getLogger(OffHeapSnapshot.class);
+    private static final int MAX_POOLED_SERDES = 64;
+    private static final int MAX_POOLED_BUFFERS = 64;
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final OffHeapRecordMap recordMap;
+    private final SerDeFactory<T> serdeFactory;
+    private final Set<String> swapLocations = Collections.synchronizedSet(new HashSet<>());
+    private final File storageDirectory;
+    private final boolean chunkedEncoding;
+
+    // All records that are stored in the record map are serialized using a SerDe obtained from serdeFactory.createSerDe(null), so they are
+    // all encoded using the same SerDe class, version and header.
+    private final String serdeEncoding;
+    private final int serdeVersion;
+    private final byte[] serdeHeader;
+    private final ObjectPool<SerDe<T>> serdePool;
+    private final ObjectPool<ByteArrayDataOutputStream> streamPool = new BlockingQueuePool<>(MAX_POOLED_BUFFERS,
+        () -> new ByteArrayDataOutputStream(BUFFER_SIZE),
+        stream -> stream.getByteArrayOutputStream().size() < BUFFER_SIZE,
+        stream -> stream.getByteArrayOutputStream().reset());
+
+    public OffHeapSnapshot(final File storageDirectory, final SerDeFactory<T> serdeFactory) {
+        this(storageDirectory, serdeFactory, OffHeapRecordMap.DEFAULT_BLOCK_SIZE);
+    }
+
+    public OffHeapSnapshot(final File storageDirectory, final SerDeFactory<T> serdeFactory, final int blockSize) {
+        this(storageDirectory, serdeFactory, blockSize, false);
+    }
+
+    /**
+     * @param storageDirectory the directory to store the snapshot in
+     * @param serdeFactory the factory for the SerDe that serializes records
+     * @param blockSize the size of each block of off-heap memory
+     * @param chunkedEncoding whether or not to write snapshots in chunks that can be deserialized concurrently during recovery
+     * @see HashMapSnapshot#HashMapSnapshot(File, SerDeFactory, boolean)
+     */
+    public OffHeapSnapshot(final File storageDirectory, final SerDeFactory<T> serdeFactory, final int blockSize, final boolean chunkedEncoding) {
+        this.serdeFactory = serdeFactory;
+        this.storageDirectory = storageDirectory;
+        this.chunkedEncoding = chunkedEncoding;
+        this.recordMap = new OffHeapRecordMap(blockSize);
+
+        final SerDe<T> serde = serdeFactory.createSerDe(null);
+        this.serdeEncoding = serde.getClass().getName();
+        this.serdeVersion = serde.getVersion();
+
+        try (final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+             final DataOutputStream dos = new DataOutputStream(baos)) {
+            serde.writeHeader(dos);
+            dos.flush();
+            this.serdeHeader = baos.toByteArray();
+        } catch (final IOException ioe) {
+            throw new UncheckedIOException("Failed to create header for SerDe " + serdeEncoding, ioe);
+        }
+
+        this.serdePool = new BlockingQueuePool<>(MAX_POOLED_SERDES, this::createSerDe, serdeToReuse -> true, serdeToReuse -> { });
+    }
+
+    private SerDe<T> createSerDe() {
+        final SerDe<T> serde = serdeFactory.createSerDe(serdeEncoding);
+        try {
+            serde.readHeader(new DataInputStream(new ByteArrayInputStream(serdeHeader)));
+        } catch (final IOException ioe) {
+            throw new UncheckedIOException("Failed to initialize SerDe " + serdeEncoding, ioe);
+        }
+
+        return serde;
+    }
+
+    private SnapshotHeader validateHeader(final DataInputStream dataIn) throws IOException {
+        final String snapshotClass = dataIn.readUTF();
+        logger.debug("Snapshot Class Name for {} is {}", storageDirectory, snapshotClass);
+        if (!snapshotClass.equals(OffHeapSnapshot.class.getName()) && !snapshotClass.equals(HashMapSnapshot.class.getName())) {
+            throw new IOException("Write-Ahead Log Snapshot located at " + storageDirectory + " was written using the "
+                + snapshotClass + " class; cannot restore using " + getClass().getName());
+        }
+
+        final int snapshotVersion = dataIn.readInt();
+        logger.debug("Snapshot version for {} is {}", storageDirectory, snapshotVersion);
+        if (snapshotVersion > SnapshotChunks.CHUNKED_ENCODING_VERSION) {
+            throw new IOException("Write-Ahead Log Snapshot located at " + storageDirectory + " was written using version "
+                + snapshotVersion + " of the " + snapshotClass + " class; cannot restore using Version " + SnapshotChunks.CHUNKED_ENCODING_VERSION);
+        }
+
+        final String serdeEncoding = dataIn.readUTF();
+        logger.debug("Serde encoding for Snapshot at {} is {}", storageDirectory, serdeEncoding);
+
+        final int serdeVersion = dataIn.readInt();
+        logger.debug("Serde version for Snapshot at {} is {}", storageDirectory, serdeVersion);
+
+        final long maxTransactionId = dataIn.readLong();
+        logger.debug("Max Transaction ID for Snapshot at {} is {}", storageDirectory, maxTransactionId);
+
+        final int numRecords = dataIn.readInt();
+        logger.debug("Number of Records for Snapshot at {} is {}", storageDirectory, numRecords);
+
+        final SerDe<T> serde = serdeFactory.createSerDe(serdeEncoding);
+        final byte[] serdeHeader;
+        if (snapshotVersion < 2) {
+            serdeHeader = null;
+            serde.readHeader(dataIn);
+        } else {
+            serdeHeader = new byte[dataIn.readInt()];
+            dataIn.readFully(serdeHeader);
+            serde.readHeader(new DataInputStream(new ByteArrayInputStream(serdeHeader)));
+        }
+
+        return new SnapshotHeader(snapshotVersion, serde, serdeEncoding, serdeHeader, serdeVersion, maxTransactionId, numRecords);
+    }
+
+    @Override
+    public SnapshotRecovery<T> recover() throws IOException {
+        return recover(null);
+    }
+
+    @Override
+    public SnapshotRecovery<T> recover(final ExecutorService deserializationExecutor) throws IOException {
+        final File partialFile = getPartialFile();
+        final File snapshotFile = getSnapshotFile();
+        final boolean partialExists = partialFile.exists();
+        final boolean snapshotExists = snapshotFile.exists();
+
+        // If there is no snapshot (which is the case before the first snapshot is ever created), then just
+        // return an empty recovery.
+        if (!partialExists && !snapshotExists) {
+            return new StandardSnapshotRecovery<>(new WriteThroughRecordMap(), new HashSet<>(), null, -1L);
+        }
+
+        if (partialExists && snapshotExists) {
+            // both files exist -- assume NiFi crashed/died while checkpointing. Delete the partial file.
+            Files.delete(partialFile.toPath());
+        } else if (partialExists) {
+            // partial exists but snapshot does not -- we must have completed creating the partial, deleted the snapshot
+            // but crashed before renaming the partial to the snapshot. Just rename partial to snapshot
+            Files.move(partialFile.toPath(), snapshotFile.toPath());
+        }
+
+        if (snapshotFile.length() == 0) {
+            logger.warn("{} Found 0-byte Snapshot file; skipping Snapshot file in recovery", this);
+            return new StandardSnapshotRecovery<>(new WriteThroughRecordMap(), new HashSet<>(), null, -1L);
+        }
+
+        try (final DataInputStream dataIn = new DataInputStream(new BufferedInputStream(new FileInputStream(snapshotFile)))) {
+            final SnapshotHeader header = validateHeader(dataIn);
+
+            final SerDe<T> serde = header.getSerDe();
+            final int serdeVersion = header.getSerDeVersion();
+            final int numRecords = header.getNumRecords();
+            final long maxTransactionId = header.getMaxTransactionId();
+
+            // The records that are recovered must be returned on the heap, as the caller will need all of them. However, the journals
+            // will subsequently be replayed against the recovered map, so we use a map that also writes through to the off-heap storage.
+            final WriteThroughRecordMap recoveredRecords = new WriteThroughRecordMap();
+            final Consumer<T> recordConsumer = record -> {
+                final UpdateType updateType = serde.getUpdateType(record);
+                if (updateType == UpdateType.DELETE) {
+                    logger.warn("While recovering from snapshot, found record with type 'DELETE'; this record will not be restored");
+                    return;
+                }
+
+                logger.trace("Recovered from snapshot: {}", record);
+                recoveredRecords.put(serde.getRecordIdentifier(record), record);
+            };
+
+            if (header.getSnapshotVersion() < 2) {
+                for (int i = 0; i < numRecords; i++) {
+                    final T record = serde.deserializeRecord(dataIn, serdeVersion);
+                    if (record == null) {
+                        throw new EOFException();
+                    }
+
+                    recordConsumer.accept(record);
+                }
+            } else {
+                SnapshotChunks.readRecords(dataIn, numRecords, serde, header::createSerDe, serdeVersion, deserializationExecutor, recordConsumer);
+            }
+
+            final int numSwapRecords = dataIn.readInt();
+            final Set<String> swapLocations = new HashSet<>();
+            for (int i = 0; i < numSwapRecords; i++) {
+                swapLocations.add(dataIn.readUTF());
+            }
+            this.swapLocations.addAll(swapLocations);
+
+            logger.info("{} restored {} Records and {} Swap Files from Snapshot, ending with Transaction ID {}",
+                new Object[] {this, numRecords, swapLocations.size(), maxTransactionId});
+
+            return new StandardSnapshotRecovery<>(recoveredRecords, swapLocations, snapshotFile, maxTransactionId);
+        }
+    }
+
+    @Override
+    public void update(final Collection<T> records) {
+        // Serialize all of the records before touching the record map so that the map's lock is held only for as long as it takes to copy the bytes.
+        final ByteArrayDataOutputStream bados = streamPool.borrowObject();
+        final SerDe<T> serde = serdePool.borrowObject();
+        try {
+            for (final T record : records) {
+                final long recordId = toLong(serdeFactory.getRecordIdentifier(record));
+                final UpdateType updateType = serdeFactory.getUpdateType(record);
+
+                switch (updateType) {
+                    case DELETE:
+                        recordMap.remove(recordId);
+                        break;
+                    case SWAP_OUT:
+                        final String location = serdeFactory.getLocation(record);
+                        if (location == null) {
+                            logger.error("Received Record (ID=" + recordId + ") with UpdateType of SWAP_OUT but "
+                                + "no indicator of where the Record is to be Swapped Out to; these records may be "
+                                + "lost when the repository is restored!");
+                        } else {
+                            recordMap.remove(recordId);
+                            this.swapLocations.add(location);
+                        }
+                        break;
+                    case SWAP_IN:
+                        final String swapLocation = serdeFactory.getLocation(record);
+                        if (swapLocation == null) {
+                            logger.error("Received Record (ID=" + recordId + ") with UpdateType of SWAP_IN but no "
+                                + "indicator of where the Record is to be Swapped In from; these records may be duplicated "
+                                + "when the repository is restored!");
+                        } else {
+                            swapLocations.remove(swapLocation);
+                        }
+                        store(recordId, record, serde, bados);
+                        break;
+                    default:
+                        store(recordId, record, serde, bados);
+                        break;
+                }
+            }
+        } catch (final IOException ioe) {
+            throw new UncheckedIOException("Failed to serialize records into off-heap Snapshot", ioe);
+        } finally {
+            serdePool.returnObject(serde);
+            streamPool.returnObject(bados);
+        }
+    }
+
+    private void store(final long recordId, final T record, final SerDe<T> serde, final ByteArrayDataOutputStream bados) throws IOException {
+        final ByteArrayOutputStream baos = bados.getByteArrayOutputStream();
+        baos.reset();
+
+        final DataOutputStream dataOut = bados.getDataOutputStream();
+        serde.serializeRecord(record, dataOut);
+        dataOut.flush();
+
+        final byte[] serialized = baos.toByteArray();
+        recordMap.put(recordId, serialized, 0, serialized.length);
+    }
+
+    private void store(final Object recordId, final T record) {
+        final ByteArrayDataOutputStream bados = streamPool.borrowObject();
+        final SerDe<T> serde = serdePool.borrowObject();
+        try {
+            store(toLong(recordId), record, serde, bados);
+        } catch (final IOException ioe) {
+            throw new UncheckedIOException("Failed to serialize record into off-heap Snapshot", ioe);
+        } finally {
+            serdePool.returnObject(serde);
+            streamPool.returnObject(bados);
+        }
+    }
+
+    private T deserialize(final byte[] serialized) {
+        final SerDe<T> serde = serdePool.borrowObject();
+        try {
+            return serde.deserializeRecord(new DataInputStream(new ByteArrayInputStream(serialized)), serdeVersion);
+        } catch (final IOException ioe) {
+            throw new UncheckedIOException("Failed to deserialize record from off-heap Snapshot", ioe);
+        } finally {
+            serdePool.returnObject(serde);
+        }
+    }
+
+    private static long toLong(final Object recordId) {
+        if (recordId instanceof Number) {
+            return ((Number) recordId).longValue();
+        }
+
+        throw new IllegalArgumentException("Cannot store record with identifier " + recordId + " in an off-heap Snapshot because the identifier is not numeric");
+    }
+
+    @Override
+    public int getRecordCount() {
+        return recordMap.size();
+    }
+
+    @Override
+    public T lookup(final Object recordId) {
+        final byte[] serialized = recordMap.get(toLong(recordId));
+        if (serialized == null) {
+            return null;
+        }
+
+        return deserialize(serialized);
+    }
+
+    @Override
+    public SnapshotCapture<T> prepareSnapshot(final long maxTransactionId) {
+        return prepareSnapshot(maxTransactionId, this.swapLocations);
+    }
+
+    @Override
+    public SnapshotCapture<T> prepareSnapshot(final long maxTransactionId, final Set<String> swapFileLocations) {
+        return new Snapshot(recordMap.capture(), new HashSet<>(swapFileLocations), maxTransactionId);
+    }
+
+    private int getVersion() {
+        return SnapshotChunks.getEncodingVersion(chunkedEncoding);
+    }
+
+    private File getPartialFile() {
+        return new File(storageDirectory, "checkpoint.partial");
+    }
+
+    private File getSnapshotFile() {
+        return new File(storageDirectory, "checkpoint");
+    }
+
+    @Override
+    public synchronized void writeSnapshot(final SnapshotCapture<T> snapshot) throws IOException {
+        final File snapshotFile = getSnapshotFile();
+        final File partialFile = getPartialFile();
+
+        // See HashMapSnapshot#writeSnapshot for an explanation of how the partial file is used to ensure that a viable snapshot always exists.
+        if (!snapshotFile.exists() && partialFile.exists()) {
+            final boolean rename = partialFile.renameTo(snapshotFile);
+            if (!rename) {
+                throw new IOException("Failed to rename partial snapshot file " + partialFile + " to " + snapshotFile);
+            }
+        }
+
+        // Write to the partial file.
+        try (final FileOutputStream fileOut = new FileOutputStream(getPartialFile());
+            final OutputStream bufferedOut = new BufferedOutputStream(fileOut);
+            final DataOutputStream dataOut = new DataOutputStream(bufferedOut)) {
+
+            // Write out the header
+            dataOut.writeUTF(OffHeapSnapshot.class.getName());
+            dataOut.writeInt(getVersion());
+            dataOut.writeUTF(serdeEncoding);
+            dataOut.writeInt(serdeVersion);
+            dataOut.writeLong(snapshot.getMaxTransactionId());
+            dataOut.writeInt(snapshot.getRecords().size());
+            SnapshotChunks.writeSerDeHeader(dataOut, serdeHeader, chunkedEncoding);
+
+            final SnapshotChunks.Writer chunkWriter = new SnapshotChunks.Writer(dataOut, chunkedEncoding);
+            if (snapshot instanceof OffHeapSnapshot.Snapshot) {
+                // The records are already serialized using the SerDe whose information was written to the header, so just copy the bytes.
+                final OffHeapRecordMap.Capture capture = ((Snapshot) snapshot).getCapture();
+                for (int i = 0; i < capture.size(); i++) {
+                    chunkWriter.getRecordOutputStream().write(capture.getValue(i));
+                    chunkWriter.recordWritten();
+                }
+            } else {
+                final SerDe<T> serde = serdePool.borrowObject();
+                try {
+                    for (final T record : snapshot.getRecords().values()) {
+                        logger.trace("Checkpointing {}", record);
+                        serde.serializeRecord(record, chunkWriter.getRecordOutputStream());
+                        chunkWriter.recordWritten();
+                    }
+                } finally {
+                    serdePool.returnObject(serde);
+                }
+            }
+            chunkWriter.finish();
+
+            // Write out the number of swap locations, followed by the swap locations themselves.
+            dataOut.writeInt(snapshot.getSwapLocations().size());
+            for (final String swapLocation : snapshot.getSwapLocations()) {
+                dataOut.writeUTF(swapLocation);
+            }
+
+            // Ensure that we flush the Buffered Output Stream and then perform an fsync().
+            // This ensures that the data is fully written to disk before we delete the existing snapshot.
+            dataOut.flush();
+            fileOut.getChannel().force(false);
+        }
+
+        // If the snapshot file exists, delete it
+        if (snapshotFile.exists()) {
+            if (!snapshotFile.delete()) {
+                logger.warn("Unable to delete existing Snapshot file " + snapshotFile);
+            }
+        }
+
+        // Rename the partial file to Snapshot.
+        final boolean rename = partialFile.renameTo(snapshotFile);
+        if (!rename) {
+            throw new IOException("Failed to rename partial snapshot file " + partialFile + " to " + snapshotFile);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "OffHeapSnapshot[" + storageDirectory + "]";
+    }
+
+
+    /**
+     * A SnapshotCapture whose records are lazily deserialized from a point-in-time capture of the off-heap record map
+     */
+    public class Snapshot implements SnapshotCapture<T> {
+        private final OffHeapRecordMap.Capture capture;
+        private final long maxTransactionId;
+        private final Set<String> swapLocations;
+        private final Map<Object, T> records;
+
+        private Snapshot(final OffHeapRecordMap.Capture capture, final Set<String> swapLocations, final long maxTransactionId) {
+            this.capture = capture;
+            this.swapLocations = swapLocations;
+            this.maxTransactionId = maxTransactionId;
+            this.records = new CapturedRecordMap(capture);
+        }
+
+        private OffHeapRecordMap.Capture getCapture() {
+            return capture;
+        }
+
+        @Override
+        public final Map<Object, T> getRecords() {
+            return records;
+        }
+
+        @Override
+        public long getMaxTransactionId() {
+            return maxTransactionId;
+        }
+
+        @Override
+        public Set<String> getSwapLocations() {
+            return swapLocations;
+        }
+    }
+
+    /**
+     * A read-only Map view of an {@link OffHeapRecordMap.Capture}. Records are deserialized only as they are iterated over.
+     */
+    private class CapturedRecordMap extends AbstractMap<Object, T> {
+        private final OffHeapRecordMap.Capture capture;
+
+        private CapturedRecordMap(final OffHeapRecordMap.Capture capture) {
+            this.capture = capture;
+        }
+
+        @Override
+        public int size() {
+            return capture.size();
+        }
+
+        @Override
+        public Set<Entry<Object, T>> entrySet() {
+            return new AbstractSet<Entry<Object, T>>() {
+                @Override
+                public int size() {
+                    return capture.size();
+                }
+
+                @Override
+                public Iterator<Entry<Object, T>> iterator() {
+                    return new Iterator<Entry<Object, T>>() {
+                        private int index = 0;
+
+                        @Override
+                        public boolean hasNext() {
+                            return index < capture.size();
+                        }
+
+                        @Override
+                        public Entry<Object, T> next() {
+                            if (!hasNext()) {
+                                throw new NoSuchElementException();
+                            }
+
+                            final T record = deserialize(capture.getValue(index));
+                            final Entry<Object, T> entry = new SimpleImmutableEntry<>(serdeFactory.getRecordIdentifier(record), record);
+                            index++;
+                            return entry;
+                        }
+                    };
+                }
+            };
+        }
+    }
+
+    /**
+     * A HashMap that is used to hold the records that are recovered from the Snapshot while the journals are replayed against it. All modifications
+     * are also applied to the off-heap record map, so that once recovery completes, the off-heap record map reflects the recovered state.
+     */
+    private class WriteThroughRecordMap extends HashMap<Object, T> {
+        @Override
+        public T put(final Object key, final T value) {
+            store(key, value);
+            return super.put(key, value);
+        }
+
+        @Override
+        public void putAll(final Map<?, ? extends T> map) {
+            for (final Map.Entry<?, ? extends T> entry : map.entrySet()) {
+                store(entry.getKey(), entry.getValue());
+            }
+            super.putAll(map);
+        }
+
+        @Override
+        public T remove(final Object key) {
+            recordMap.remove(toLong(key));
+            return super.remove(key);
+        }
+    }
+
+    private class SnapshotHeader {
+        private final int snapshotVersion;
+        private final SerDe<T> serde;
+        private final String serdeEncoding;
+        private final byte[] serdeHeader;
+        private final int serdeVersion;
+        private final int numRecords;
+        private final long maxTransactionId;
+
+        public SnapshotHeader(final int snapshotVersion, final SerDe<T> serde, final String serdeEncoding, final byte[] serdeHeader, final int serdeVersion,
+                              final long maxTransactionId, final int numRecords) {
+            this.snapshotVersion = snapshotVersion;
+            this.serde = serde;
+            this.serdeEncoding = serdeEncoding;
+            this.serdeHeader = serdeHeader;
+            this.serdeVersion = serdeVersion;
+            this.maxTransactionId = maxTransactionId;
+            this.numRecords = numRecords;
+        }
+
+        public int getSnapshotVersion() {
+            return snapshotVersion;
+        }
+
+        public SerDe<T> createSerDe() {
+            final SerDe<T> newSerde = serdeFactory.createSerDe(serdeEncoding);
+            try {
+                newSerde.readHeader(new DataInputStream(new ByteArrayInputStream(serdeHeader)));
+            } catch (final IOException ioe) {
+                throw new UncheckedIOException("Failed to read SerDe header for Snapshot at " + storageDirectory, ioe);
+            }
+
+            return newSerde;
+        }
+
+        public SerDe<T> getSerDe() {
+            return serde;
+        }
+
+        public int getSerDeVersion() {
+            return serdeVersion;
+        }
+
+        public long getMaxTransactionId() {
+            return maxTransactionId;
+        }
+
+        public int getNumRecords() {
+            return numRecords;
+        }
+    }
+}
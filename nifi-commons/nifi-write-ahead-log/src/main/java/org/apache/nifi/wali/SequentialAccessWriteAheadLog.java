@@ -27,7 +27,10 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReadWriteLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
@@ -77,10 +80,14 @@ public class SequentialAccessWriteAheadLog<T> implements WriteAheadRepository<T>
 
     private final WriteAheadSnapshot<T> snapshot;
     private final RecordLookup<T> recordLookup;
-    private SnapshotRecovery<T> snapshotRecovery;
+    private final int recoveryThreads;
+    private final boolean groupCommitEnabled;
+    private final long groupCommitWindowNanos;
+    private final long groupCommitMaxBytes;
 
     private volatile boolean recovered = false;
     private WriteAheadJournal<T> journal;
+    private GroupCommitSync groupCommitSync; // null unless group commit is enabled; guarded by journalWriteLock
     private volatile long nextTransactionId = 0L;
 
     public SequentialAccessWriteAheadLog(final File storageDirectory, final SerDeFactory<T> serdeFactory) throws IOException {
@@ -88,6 +95,72 @@ public class SequentialAccessWriteAheadLog<T> implements WriteAheadRepository<T>
     }
 
     public SequentialAccessWriteAheadLog(final File storageDirectory, final SerDeFactory<T> serdeFactory, final SyncListener syncListener) throws IOException {
+        this(storageDirectory, serdeFactory, syncListener, new HashMapSnapshot<>(storageDirectory, serdeFactory));
+    }
+
+    /**
+     * Creates a Write-Ahead Log that uses the given snapshot in order to keep track of the 'active' records and to perform checkpoints
+     *
+     * @param storageDirectory the directory to store the journals and snapshot in
+     * @param serdeFactory the factory for the serializer/deserializer for records
+     * @param syncListener a listener to notify when the journal is synced to disk, or <code>null</code>
+     * @param snapshot the snapshot, which is also used to lookup the current state of records
+     * @param <S> the type of the snapshot
+     * @throws IOException if unable to create the storage directory
+     */
+    public <S extends WriteAheadSnapshot<T> & RecordLookup<T>> SequentialAccessWriteAheadLog(final File storageDirectory, final SerDeFactory<T> serdeFactory,
+                                                                                         final SyncListener syncListener, final S snapshot) throws IOException {
+        this(storageDirectory, serdeFactory, syncListener, snapshot, 1);
+    }
+
+    /**
+     * Creates a Write-Ahead Log that uses the given snapshot in order to keep track of the 'active' records and to perform checkpoints, and that uses
+     * the given number of threads to deserialize records when they are recovered. Regardless of the number of threads, records are always applied in
+     * the order in which they were written.
+     *
+     * @param storageDirectory the directory to store the journals and snapshot in
+     * @param serdeFactory the factory for the serializer/deserializer for records
+     * @param syncListener a listener to notify when the journal is synced to disk, or <code>null</code>
+     * @param snapshot the snapshot, which is also used to lookup the current state of records
+     * @param recoveryThreads the number of threads to use for deserializing records during recovery; a value of 1 performs recovery using only the calling thread
+     * @param <S> the type of the snapshot
+     * @throws IOException if unable to create the storage directory
+     */
+    public <S extends WriteAheadSnapshot<T> & RecordLookup<T>> SequentialAccessWriteAheadLog(final File storageDirectory, final SerDeFactory<T> serdeFactory,
+                                                                                         final SyncListener syncListener, final S snapshot, final int recoveryThreads) throws IOException {
+        this(storageDirectory, serdeFactory, syncListener, snapshot, recoveryThreads, false, 0L, TimeUnit.NANOSECONDS, 0L);
+    }
+
+    /**
+     * Creates a Write-Ahead Log as described by {@link #SequentialAccessWriteAheadLog(File, SerDeFactory, SyncListener, WriteAheadSnapshot, int)}, optionally
+     * enabling group commit. When group commit is enabled, threads that call {@link #update(Collection, boolean)} with <code>forceSync</code> set to
+     * <code>true</code> at approximately the same time share a single sync of the journal to disk. Each such call still does not return until its own
+     * updates are durable.
+     *
+     * @param storageDirectory the directory to store the journals and snapshot in
+     * @param serdeFactory the factory for the serializer/deserializer for records
+     * @param syncListener a listener to notify when the journal is synced to disk, or <code>null</code>
+     * @param snapshot the snapshot, which is also used to lookup the current state of records
+     * @param recoveryThreads the number of threads to use for deserializing records during recovery; a value of 1 performs recovery using only the calling thread
+     * @param groupCommitEnabled whether or not concurrent syncs should be grouped together
+     * @param groupCommitWindow the maximum amount of time to wait for other updates to join a group before syncing. A value of 0 syncs immediately,
+     *            grouping only those updates that arrive while a previous sync is in progress
+     * @param groupCommitWindowUnit the unit of the group commit window
+     * @param groupCommitMaxBytes once this many bytes have been written since the last sync, the group is synced without waiting for the rest of the window
+     * @param <S> the type of the snapshot
+     * @throws IOException if unable to create the storage directory
+     */
+    public <S extends WriteAheadSnapshot<T> & RecordLookup<T>> SequentialAccessWriteAheadLog(final File storageDirectory, final SerDeFactory<T> serdeFactory,
+                                                                                         final SyncListener syncListener, final S snapshot, final int recoveryThreads,
+                                                                                         final boolean groupCommitEnabled, final long groupCommitWindow,
+                                                                                         final TimeUnit groupCommitWindowUnit, final long groupCommitMaxBytes) throws IOException {
+        if (recoveryThreads < 1) {
+            throw new IllegalArgumentException("Number of recovery threads must be at least 1");
+        }
+        if (groupCommitWindow < 0) {
+            throw new IllegalArgumentException("Group commit window cannot be negative");
+        }
+
         if (!storageDirectory.exists() && !storageDirectory.mkdirs()) {
             throw new IOException("Directory " + storageDirectory + " does not exist and cannot be created");
         }
@@ -95,9 +168,12 @@ public class SequentialAccessWriteAheadLog<T> implements WriteAheadRepository<T>
             throw new IOException("File " + storageDirectory + " is a regular file and not a directory");
         }
 
-        final HashMapSnapshot<T> hashMapSnapshot = new HashMapSnapshot<>(storageDirectory, serdeFactory);
-        this.snapshot = hashMapSnapshot;
-        this.recordLookup = hashMapSnapshot;
+        this.snapshot = snapshot;
+        this.recordLookup = snapshot;
+        this.recoveryThreads = recoveryThreads;
+        this.groupCommitEnabled = groupCommitEnabled;
+        this.groupCommitWindowNanos = groupCommitWindowUnit.toNanos(groupCommitWindow);
+        this.groupCommitMaxBytes = groupCommitMaxBytes;
 
         this.storageDirectory = storageDirectory;
         this.journalsDirectory = new File(storageDirectory, "journals");
@@ -140,11 +216,35 @@ public class SequentialAccessWriteAheadLog<T> implements WriteAheadRepository<T>
             throw new IllegalStateException("Cannot recover records from repository because record recovery has already commenced");
         }
 
-        logger.info("Recovering records from Write-Ahead Log at {}", storageDirectory);
+        logger.info("Recovering records from Write-Ahead Log at {} using {} threads", storageDirectory, recoveryThreads);
+
+        final ExecutorService recoveryExecutor = createRecoveryExecutor();
+        try {
+            return recoverRecords(recoveryExecutor);
+        } finally {
+            if (recoveryExecutor != null) {
+                recoveryExecutor.shutdownNow();
+            }
+        }
+    }
+
+    private ExecutorService createRecoveryExecutor() {
+        if (recoveryThreads < 2) {
+            return null;
+        }
 
+        final AtomicInteger threadCounter = new AtomicInteger(0);
+        return Executors.newFixedThreadPool(recoveryThreads, runnable -> {
+            final Thread thread = new Thread(runnable, "Write-Ahead Log Recovery Thread-" + threadCounter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    private Collection<T> recoverRecords(final ExecutorService recoveryExecutor) throws IOException {
         final long recoverStart = System.nanoTime();
         recovered = true;
-        snapshotRecovery = snapshot.recover();
+        final SnapshotRecovery<T> snapshotRecovery = snapshot.recover(recoveryExecutor);
         this.recoveredSwapLocations.addAll(snapshotRecovery.getRecoveredSwapLocations());
 
         final long snapshotRecoveryMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - recoverStart);
@@ -197,7 +297,7 @@ public class SequentialAccessWriteAheadLog<T> implements WriteAheadRepository<T>
             journalFilesRecovered++;
 
             try (final WriteAheadJournal<T> journal = new LengthDelimitedJournal<>(journalFile, serdeFactory, streamPool, 0L)) {
-                final JournalRecovery journalRecovery = journal.recoverRecords(recoveredRecords, swapLocations);
+                final JournalRecovery journalRecovery = journal.recoverRecords(recoveredRecords, swapLocations, recoveryExecutor);
                 final int updates = journalRecovery.getUpdateCount();
 
                 logger.debug("Recovered {} updates from journal {}", updates, journalFile);
@@ -212,11 +312,15 @@ public class SequentialAccessWriteAheadLog<T> implements WriteAheadRepository<T>
 
         final long recoverNanos = System.nanoTime() - recoverStart;
         final long recoveryMillis = TimeUnit.MILLISECONDS.convert(recoverNanos, TimeUnit.NANOSECONDS);
-        logger.info("Successfully recovered {} records in {} milliseconds. Now checkpointing to ensure that Write-Ahead Log is in a consistent state", recoveredRecords.size(), recoveryMillis);
+        logger.info("Successfully recovered {} records in {} milliseconds ({} milliseconds recovering Snapshot, {} milliseconds replaying journals). "
+            + "Now checkpointing to ensure that Write-Ahead Log is in a consistent state", recoveredRecords.size(), recoveryMillis, snapshotRecoveryMillis, recoveryMillis - snapshotRecoveryMillis);
 
         this.recoveredSwapLocations.addAll(swapLocations);
 
+        final long checkpointStart = System.nanoTime();
         checkpoint(this.recoveredSwapLocations);
+        logger.info("Completed recovery of Write-Ahead Log at {} in {} milliseconds, including {} milliseconds for the post-recovery checkpoint",
+            storageDirectory, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - recoverStart), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - checkpointStart));
 
         return recoveredRecords.values();
     }
@@ -280,6 +384,11 @@ public class SequentialAccessWriteAheadLog<T> implements WriteAheadRepository<T>
                     logger.error("Failed to close Journal while attempting to checkpoint Write-Ahead Log at {}", storageDirectory);
                 }
 
+                if (groupCommitSync != null) {
+                    logger.debug("Group commit performed {} syncs to disk for {} sync requests against previous journal of Write-Ahead Log at {}",
+                        groupCommitSync.getSyncCount(), groupCommitSync.getRequestCount(), storageDirectory);
+                }
+
                 nextTransactionId = Math.max(nextTransactionId, journalSummary.getLastTransactionId() + 1);
             }
 
@@ -305,7 +414,8 @@ public class SequentialAccessWriteAheadLog<T> implements WriteAheadRepository<T>
                 journalFile = new File(journalsDirectory, nextTransactionId + ".journal");
             }
 
-            journal = new LengthDelimitedJournal<>(journalFile, serdeFactory, streamPool, nextTransactionId);
+            groupCommitSync = groupCommitEnabled ? new GroupCommitSync(groupCommitWindowNanos, TimeUnit.NANOSECONDS, groupCommitMaxBytes) : null;
+            journal = new LengthDelimitedJournal<>(journalFile, serdeFactory, streamPool, nextTransactionId, LengthDelimitedJournal.DEFAULT_MAX_IN_HEAP_SERIALIZATION_BYTES, groupCommitSync);
             journal.writeHeader();
 
             logger.debug("Created new Journal starting with Transaction ID {}", nextTransactionId);
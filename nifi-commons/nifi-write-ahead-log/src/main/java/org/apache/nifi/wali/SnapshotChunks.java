@@ -0,0 +1,225 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.nifi.wali;
+
+import org.wali.SerDe;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * <p>
+ * In version 2 of the snapshot encoding, the records in a snapshot are written in chunks. Each chunk is written as
+ * <code>&lt;number of records: 4 bytes&gt; &lt;length of chunk: 4 bytes&gt; &lt;serialized records&gt;</code>. Because the length
+ * of each chunk is known up front, chunks can be read sequentially from disk and deserialized concurrently.
+ * </p>
+ *
+ * <p>
+ * Version 2 is written only when parallel recovery is configured. Otherwise, snapshots are written using version 1, in which the SerDe header and
+ * the records are written directly to the snapshot, so that a repository that does not use parallel recovery can still be read by earlier versions.
+ * </p>
+ */
+final class SnapshotChunks {
+    static final int ENCODING_VERSION = 1;
+    static final int CHUNKED_ENCODING_VERSION = 2;
+
+    static final int RECORDS_PER_CHUNK = 10_000;
+    private static final int INITIAL_CHUNK_BUFFER_SIZE = 1024 * 1024;
+    private static final int MAX_PENDING_CHUNKS = 16;
+
+    private SnapshotChunks() {
+    }
+
+    /**
+     * Reads the given number of records from the stream, providing each one to the given consumer in the order in which they were written
+     *
+     * @param in the stream to read from
+     * @param numRecords the total number of records in the snapshot
+     * @param serde the SerDe to use for deserializing records when no executor is provided
+     * @param serdeSupplier supplies a new SerDe for each chunk that is deserialized by the executor
+     * @param serdeVersion the version of the SerDe that was used to write the records
+     * @param executor the executor to use for deserializing chunks, or <code>null</code> to deserialize each chunk with the calling thread
+     * @param recordConsumer the consumer of the records
+     * @param <T> the type of record
+     * @throws IOException if unable to read or deserialize the records
+     */
+    static <T> void readRecords(final DataInputStream in, final int numRecords, final SerDe<T> serde, final Supplier<SerDe<T>> serdeSupplier, final int serdeVersion,
+                                final ExecutorService executor, final Consumer<T> recordConsumer) throws IOException {
+        final Deque<Future<List<T>>> pendingChunks = new ArrayDeque<>();
+
+        try {
+            int recordsRead = 0;
+            while (recordsRead < numRecords) {
+                final int chunkRecordCount = in.readInt();
+                final int chunkLength = in.readInt();
+                final byte[] chunk = new byte[chunkLength];
+                in.readFully(chunk);
+                recordsRead += chunkRecordCount;
+
+                if (executor == null) {
+                    deserializeChunk(chunk, chunkRecordCount, serde, serdeVersion).forEach(recordConsumer);
+                    continue;
+                }
+
+                pendingChunks.addLast(executor.submit(() -> deserializeChunk(chunk, chunkRecordCount, serdeSupplier.get(), serdeVersion)));
+                if (pendingChunks.size() >= MAX_PENDING_CHUNKS) {
+                    await(pendingChunks.removeFirst()).forEach(recordConsumer);
+                }
+            }
+
+            while (!pendingChunks.isEmpty()) {
+                await(pendingChunks.removeFirst()).forEach(recordConsumer);
+            }
+        } finally {
+            for (final Future<List<T>> future : pendingChunks) {
+                future.cancel(true);
+            }
+        }
+    }
+
+    private static <T> List<T> deserializeChunk(final byte[] chunk, final int recordCount, final SerDe<T> serde, final int serdeVersion) throws IOException {
+        final DataInputStream chunkIn = new DataInputStream(new ByteArrayInputStream(chunk));
+        final List<T> records = new ArrayList<>(recordCount);
+        for (int i = 0; i < recordCount; i++) {
+            final T record = serde.deserializeRecord(chunkIn, serdeVersion);
+            if (record == null) {
+                throw new EOFException();
+            }
+
+            records.add(record);
+        }
+
+        return records;
+    }
+
+    private static <T> List<T> await(final Future<List<T>> future) throws IOException {
+        try {
+            return future.get();
+        } catch (final InterruptedException ie) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for Snapshot records to be deserialized", ie);
+        } catch (final ExecutionException ee) {
+            final Throwable cause = ee.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+
+            throw new IOException("Failed to deserialize Snapshot records", cause);
+        }
+    }
+
+    /**
+     * @param chunked whether or not the snapshot is to be written using the chunked encoding
+     * @return the version of the snapshot encoding to write
+     */
+    static int getEncodingVersion(final boolean chunked) {
+        return chunked ? CHUNKED_ENCODING_VERSION : ENCODING_VERSION;
+    }
+
+    /**
+     * Writes the given SerDe header to the stream. As of version 2 of the encoding, the header is preceded by its length so that it can be
+     * provided to each SerDe that deserializes a chunk.
+     *
+     * @param out the stream to write to
+     * @param serdeHeader the header written by the SerDe
+     * @param chunked whether or not the snapshot is being written using the chunked encoding
+     * @throws IOException if unable to write to the stream
+     */
+    static void writeSerDeHeader(final DataOutputStream out, final byte[] serdeHeader, final boolean chunked) throws IOException {
+        if (chunked) {
+            out.writeInt(serdeHeader.length);
+        }
+
+        out.write(serdeHeader);
+    }
+
+    /**
+     * Writes serialized records to the underlying stream, buffering them into chunks if the chunked encoding is used
+     */
+    static class Writer {
+        private final DataOutputStream out;
+        private final boolean chunked;
+        private final ByteArrayDataOutputStream chunk;
+        private int recordsInChunk = 0;
+
+        Writer(final DataOutputStream out, final boolean chunked) {
+            this.out = out;
+            this.chunked = chunked;
+            this.chunk = chunked ? new ByteArrayDataOutputStream(INITIAL_CHUNK_BUFFER_SIZE) : null;
+        }
+
+        /**
+         * @return the stream that the next record is to be serialized to
+         */
+        DataOutputStream getRecordOutputStream() {
+            return chunked ? chunk.getDataOutputStream() : out;
+        }
+
+        /**
+         * Indicates that a record has been written to the stream returned by {@link #getRecordOutputStream()}
+         *
+         * @throws IOException if unable to write to the underlying stream
+         */
+        void recordWritten() throws IOException {
+            if (!chunked) {
+                return;
+            }
+
+            recordsInChunk++;
+            if (recordsInChunk >= RECORDS_PER_CHUNK) {
+                flushChunk();
+            }
+        }
+
+        /**
+         * Writes any records that have not yet been written to the underlying stream
+         *
+         * @throws IOException if unable to write to the underlying stream
+         */
+        void finish() throws IOException {
+            if (recordsInChunk > 0) {
+                flushChunk();
+            }
+        }
+
+        private void flushChunk() throws IOException {
+            chunk.getDataOutputStream().flush();
+            out.writeInt(recordsInChunk);
+            out.writeInt(chunk.getByteArrayOutputStream().size());
+            chunk.getByteArrayOutputStream().writeTo(out);
+
+            chunk.getByteArrayOutputStream().reset();
+            recordsInChunk = 0;
+        }
+    }
+}
@@ -22,11 +22,26 @@ import java.io.IOException;
 import java.util.Collection;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ExecutorService;
 
 public interface WriteAheadJournal<T> extends Closeable {
 
     JournalRecovery recoverRecords(Map<Object, T> recordMap, Set<String> swapLocations) throws IOException;
 
+    /**
+     * Recovers the records from the journal, applying all updates to the given record map and swap locations. If an executor is provided,
+     * transactions may be deserialized concurrently using that executor, but they are always applied in the order in which they were written.
+     *
+     * @param recordMap the record map to apply the updates to
+     * @param swapLocations the swap locations to apply the updates to
+     * @param deserializationExecutor the executor to use for deserializing transactions, or <code>null</code> to deserialize using only the calling thread
+     * @return information about the recovery
+     * @throws IOException if unable to read from the journal
+     */
+    default JournalRecovery recoverRecords(Map<Object, T> recordMap, Set<String> swapLocations, ExecutorService deserializationExecutor) throws IOException {
+        return recoverRecords(recordMap, swapLocations);
+    }
+
     /**
      * Updates the journal with the given set of records
      *
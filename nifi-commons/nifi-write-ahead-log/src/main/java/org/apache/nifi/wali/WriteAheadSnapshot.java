@@ -20,6 +20,7 @@ package org.apache.nifi.wali;
 import java.io.IOException;
 import java.util.Collection;
 import java.util.Set;
+import java.util.concurrent.ExecutorService;
 
 public interface WriteAheadSnapshot<T> {
     SnapshotCapture<T> prepareSnapshot(long maxTransactionId);
@@ -30,6 +31,17 @@ public interface WriteAheadSnapshot<T> {
 
     SnapshotRecovery<T> recover() throws IOException;
 
+    /**
+     * Recovers the snapshot, using the given executor, if it is not <code>null</code>, in order to deserialize records concurrently
+     *
+     * @param deserializationExecutor the executor to use for deserializing records, or <code>null</code> to use only the calling thread
+     * @return the recovered snapshot
+     * @throws IOException if unable to read the snapshot
+     */
+    default SnapshotRecovery<T> recover(ExecutorService deserializationExecutor) throws IOException {
+        return recover();
+    }
+
     void update(Collection<T> records);
 
     int getRecordCount();
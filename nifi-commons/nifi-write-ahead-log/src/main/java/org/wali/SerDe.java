@@ -185,4 +185,15 @@ public interface SerDe<T> {
     default boolean isMoreInExternalFile() throws IOException {
         return false;
     }
+
+    /**
+     * Indicates whether or not {@link #deserializeEdit(DataInputStream, Map, int)} makes use of the current record states in order to
+     * deserialize an edit. If it does not, the edits that are written to a journal can be deserialized concurrently, each with a separate
+     * SerDe instance, before they are applied in order.
+     *
+     * @return <code>true</code> if deserializing an edit requires the current record states, <code>false</code> otherwise
+     */
+    default boolean isCurrentRecordStateRequired() {
+        return true;
+    }
 }
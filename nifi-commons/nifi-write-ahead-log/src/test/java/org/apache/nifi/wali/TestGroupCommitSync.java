@@ -0,0 +1,132 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.nifi.wali;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class TestGroupCommitSync {
+
+    @Test
+    @Timeout(value = 30)
+    public void testConcurrentCallersShareSync() throws Exception {
+        final GroupCommitSync groupCommitSync = new GroupCommitSync(0L, TimeUnit.MILLISECONDS, Long.MAX_VALUE);
+        final AtomicLong bytesWritten = new AtomicLong(0L);
+        final AtomicLong durableBytes = new AtomicLong(0L);
+
+        final GroupCommitSync.SyncAction slowSync = () -> {
+            final long syncing = bytesWritten.get();
+            try {
+                Thread.sleep(2L);
+            } catch (final InterruptedException ie) {
+                Thread.currentThread().interrupt();
+            }
+            durableBytes.accumulateAndGet(syncing, Math::max);
+        };
+
+        final int threads = 16;
+        final int syncsPerThread = 50;
+        final ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            final List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                futures.add(executor.submit(() -> {
+                    for (int j = 0; j < syncsPerThread; j++) {
+                        final long written = bytesWritten.addAndGet(100L);
+                        groupCommitSync.sync(bytesWritten::get, slowSync);
+
+                        // Every caller must not return until its own bytes are durable
+                        assertTrue(durableBytes.get() >= written);
+                    }
+
+                    return null;
+                }));
+            }
+
+            for (final Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(threads * syncsPerThread, groupCommitSync.getRequestCount());
+        assertTrue(groupCommitSync.getSyncCount() < groupCommitSync.getRequestCount());
+    }
+
+    @Test
+    @Timeout(value = 30)
+    public void testLeaderSyncsOnceGroupBytesReached() throws Exception {
+        // With a very long window, the leader syncs only when the byte limit is reached
+        final GroupCommitSync groupCommitSync = new GroupCommitSync(1L, TimeUnit.HOURS, 1000L);
+        final AtomicLong bytesWritten = new AtomicLong(10L);
+
+        final Thread leader = new Thread(() -> {
+            try {
+                groupCommitSync.sync(bytesWritten::get, () -> { });
+            } catch (final IOException ioe) {
+                throw new RuntimeException(ioe);
+            }
+        });
+        leader.start();
+
+        bytesWritten.addAndGet(1000L);
+        groupCommitSync.sync(bytesWritten::get, () -> { });
+        leader.join();
+
+        assertEquals(2, groupCommitSync.getRequestCount());
+        assertEquals(1, groupCommitSync.getSyncCount());
+    }
+
+    @Test
+    public void testFailedSyncIsReportedAndLaterSyncSucceeds() throws IOException {
+        final GroupCommitSync groupCommitSync = new GroupCommitSync(0L, TimeUnit.MILLISECONDS, Long.MAX_VALUE);
+        final AtomicLong bytesWritten = new AtomicLong(100L);
+        final AtomicBoolean fail = new AtomicBoolean(true);
+
+        final GroupCommitSync.SyncAction syncAction = () -> {
+            if (fail.get()) {
+                throw new IOException("Intentional Unit Test Exception");
+            }
+        };
+
+        assertThrows(IOException.class, () -> groupCommitSync.sync(bytesWritten::get, syncAction));
+
+        // Bytes that were included in the failed sync cannot be reported as durable
+        fail.set(false);
+        assertThrows(IOException.class, () -> groupCommitSync.sync(() -> 100L, syncAction));
+
+        bytesWritten.addAndGet(100L);
+        groupCommitSync.sync(bytesWritten::get, syncAction);
+        assertEquals(1, groupCommitSync.getSyncCount());
+    }
+}
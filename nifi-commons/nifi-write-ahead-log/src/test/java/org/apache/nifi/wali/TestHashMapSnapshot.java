@@ -25,7 +25,9 @@ import org.wali.SerDeFactory;
 import org.wali.SingletonSerDeFactory;
 import org.wali.UpdateType;
 
+import java.io.DataInputStream;
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.util.Collections;
@@ -115,6 +117,48 @@ public class TestHashMapSnapshot {
         assertEquals(records, recoveredRecords);
     }
 
+    @Test
+    public void testEncodingVersion() throws IOException {
+        // Without parallel recovery, the snapshot is written using version 1 so that earlier versions can still read it
+        final HashMapSnapshot<DummyRecord> snapshot = new HashMapSnapshot<>(storageDirectory, serdeFactory);
+        final Map<Object, DummyRecord> records = createRecords(25_000);
+        snapshot.update(records.values());
+        snapshot.writeSnapshot(snapshot.prepareSnapshot(1L));
+        assertEquals(1, readEncodingVersion());
+
+        // A chunked snapshot can recover the version 1 snapshot and then writes version 2
+        final HashMapSnapshot<DummyRecord> chunkedSnapshot = new HashMapSnapshot<>(storageDirectory, serdeFactory, true);
+        assertEquals(records, chunkedSnapshot.recover().getRecords());
+        chunkedSnapshot.writeSnapshot(chunkedSnapshot.prepareSnapshot(2L));
+        assertEquals(2, readEncodingVersion());
+
+        // Disabling parallel recovery must not prevent the version 2 snapshot from being recovered
+        final HashMapSnapshot<DummyRecord> recoverySnapshot = new HashMapSnapshot<>(storageDirectory, serdeFactory);
+        final SnapshotRecovery<DummyRecord> recovery = recoverySnapshot.recover();
+        assertEquals(2L, recovery.getMaxTransactionId());
+        assertEquals(records, recovery.getRecords());
+
+        recoverySnapshot.writeSnapshot(recoverySnapshot.prepareSnapshot(3L));
+        assertEquals(1, readEncodingVersion());
+    }
+
+    private Map<Object, DummyRecord> createRecords(final int count) {
+        final Map<Object, DummyRecord> records = new HashMap<>();
+        for (int i = 0; i < count; i++) {
+            final DummyRecord record = new DummyRecord(String.valueOf(i), UpdateType.CREATE);
+            record.setProperty("key", String.valueOf(i));
+            records.put(record.getId(), record);
+        }
+        return records;
+    }
+
+    private int readEncodingVersion() throws IOException {
+        try (final DataInputStream in = new DataInputStream(new FileInputStream(new File(storageDirectory, "checkpoint")))) {
+            in.readUTF();
+            return in.readInt();
+        }
+    }
+
     @Test
     public void testOOMEWhenWritingResultsInPreviousSnapshotStillRecoverable() throws IOException {
         final HashMapSnapshot<DummyRecord> snapshot = new HashMapSnapshot<>(storageDirectory, serdeFactory);
@@ -0,0 +1,218 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.nifi.wali;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.wali.DummyRecord;
+import org.wali.DummyRecordSerde;
+import org.wali.SerDeFactory;
+import org.wali.SingletonSerDeFactory;
+import org.wali.UpdateType;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class TestOffHeapSnapshot {
+
+    private final File storageDirectory = new File("target/test-offheap-snapshot");
+    private SerDeFactory<DummyRecord> serdeFactory;
+
+    @BeforeEach
+    public void setup() throws IOException {
+        if (!storageDirectory.exists()) {
+            Files.createDirectories(storageDirectory.toPath());
+        }
+
+        final File[] childFiles = storageDirectory.listFiles();
+        for (final File childFile : childFiles) {
+            if (childFile.isFile()) {
+                Files.delete(childFile.toPath());
+            }
+        }
+
+        // The off-heap snapshot requires numeric record identifiers
+        final DummyRecordSerde serde = new DummyRecordSerde() {
+            @Override
+            public Object getRecordIdentifier(final DummyRecord record) {
+                return Long.valueOf(record.getId());
+            }
+        };
+        serdeFactory = new SingletonSerDeFactory<>(serde);
+    }
+
+    @Test
+    public void testSuccessfulRoundTrip() throws IOException {
+        final OffHeapSnapshot<DummyRecord> snapshot = new OffHeapSnapshot<>(storageDirectory, serdeFactory, 1024);
+        final Map<String, String> props = new HashMap<>();
+
+        for (int i = 0; i < 10; i++) {
+            final DummyRecord record = new DummyRecord(String.valueOf(i), UpdateType.CREATE);
+            props.put("key", String.valueOf(i));
+            record.setProperties(props);
+            snapshot.update(Collections.singleton(record));
+        }
+
+        for (int i = 2; i < 10; i += 2) {
+            final DummyRecord record = new DummyRecord(String.valueOf(i), UpdateType.DELETE);
+            snapshot.update(Collections.singleton(record));
+        }
+
+        for (int i = 1; i < 10; i += 2) {
+            final DummyRecord record = new DummyRecord(String.valueOf(i), UpdateType.SWAP_OUT);
+            record.setSwapLocation("swapFile-" + i);
+            snapshot.update(Collections.singleton(record));
+        }
+
+        final DummyRecord swapIn7 = new DummyRecord("7", UpdateType.SWAP_IN);
+        swapIn7.setSwapLocation("swapFile-7");
+        snapshot.update(Collections.singleton(swapIn7));
+
+        final Set<String> swappedOutLocations = new HashSet<>();
+        swappedOutLocations.add("swapFile-1");
+        swappedOutLocations.add("swapFile-3");
+        swappedOutLocations.add("swapFile-5");
+        swappedOutLocations.add("swapFile-9");
+
+        assertEquals(2, snapshot.getRecordCount());
+        assertEquals("0", snapshot.lookup(0L).getProperty("key"));
+        assertEquals(UpdateType.SWAP_IN, snapshot.lookup(7L).getUpdateType());
+        assertNull(snapshot.lookup(2L));
+
+        final SnapshotCapture<DummyRecord> capture = snapshot.prepareSnapshot(180L);
+        assertEquals(180L, capture.getMaxTransactionId());
+        assertEquals(swappedOutLocations, capture.getSwapLocations());
+
+        final Map<Object, DummyRecord> records = new HashMap<>(capture.getRecords());
+        assertEquals(2, records.size());
+        assertTrue(records.containsKey(0L));
+        assertTrue(records.containsKey(7L));
+
+        // Updates after the capture must not be visible to the capture
+        snapshot.update(Collections.singleton(new DummyRecord("0", UpdateType.DELETE)));
+        assertEquals(2, capture.getRecords().size());
+
+        snapshot.writeSnapshot(capture);
+
+        final OffHeapSnapshot<DummyRecord> recoverySnapshot = new OffHeapSnapshot<>(storageDirectory, serdeFactory, 1024);
+        final SnapshotRecovery<DummyRecord> recovery = recoverySnapshot.recover();
+        assertEquals(180L, recovery.getMaxTransactionId());
+        assertEquals(swappedOutLocations, recovery.getRecoveredSwapLocations());
+        assertEquals(records, recovery.getRecords());
+        assertEquals(2, recoverySnapshot.getRecordCount());
+
+        // Journal replay is applied to the recovered map, which must be reflected in the snapshot itself
+        recovery.getRecords().remove(7L);
+        assertEquals(1, recoverySnapshot.getRecordCount());
+        assertNull(recoverySnapshot.lookup(7L));
+    }
+
+    @Test
+    public void testRecoverSnapshotWrittenByHashMapSnapshot() throws IOException {
+        final HashMapSnapshot<DummyRecord> hashMapSnapshot = new HashMapSnapshot<>(storageDirectory, serdeFactory);
+        for (int i = 0; i < 100; i++) {
+            final DummyRecord record = new DummyRecord(String.valueOf(i), UpdateType.CREATE);
+            record.setProperty("index", String.valueOf(i));
+            hashMapSnapshot.update(Collections.singleton(record));
+        }
+
+        final SnapshotCapture<DummyRecord> hashMapCapture = hashMapSnapshot.prepareSnapshot(100L);
+        hashMapSnapshot.writeSnapshot(hashMapCapture);
+
+        final OffHeapSnapshot<DummyRecord> offHeapSnapshot = new OffHeapSnapshot<>(storageDirectory, serdeFactory);
+        final SnapshotRecovery<DummyRecord> offHeapRecovery = offHeapSnapshot.recover();
+        assertEquals(hashMapCapture.getRecords(), offHeapRecovery.getRecords());
+        assertEquals(100, offHeapSnapshot.getRecordCount());
+
+        offHeapSnapshot.writeSnapshot(offHeapSnapshot.prepareSnapshot(101L));
+
+        final HashMapSnapshot<DummyRecord> recoveredHashMapSnapshot = new HashMapSnapshot<>(storageDirectory, serdeFactory);
+        final SnapshotRecovery<DummyRecord> hashMapRecovery = recoveredHashMapSnapshot.recover();
+        assertEquals(101L, hashMapRecovery.getMaxTransactionId());
+        assertEquals(hashMapCapture.getRecords(), hashMapRecovery.getRecords());
+
+        // Snapshots written using the chunked encoding can also be recovered by either implementation
+        final OffHeapSnapshot<DummyRecord> chunkedSnapshot = new OffHeapSnapshot<>(storageDirectory, serdeFactory, 1024, true);
+        assertEquals(hashMapCapture.getRecords(), chunkedSnapshot.recover().getRecords());
+        chunkedSnapshot.writeSnapshot(chunkedSnapshot.prepareSnapshot(102L));
+
+        final SnapshotRecovery<DummyRecord> chunkedRecovery = new HashMapSnapshot<>(storageDirectory, serdeFactory).recover();
+        assertEquals(102L, chunkedRecovery.getMaxTransactionId());
+        assertEquals(hashMapCapture.getRecords(), chunkedRecovery.getRecords());
+    }
+
+    @Test
+    public void testNonNumericIdentifierRejected() {
+        final DummyRecordSerde serde = new DummyRecordSerde();
+        final OffHeapSnapshot<DummyRecord> snapshot = new OffHeapSnapshot<>(storageDirectory, new SingletonSerDeFactory<>(serde));
+        final Collection<DummyRecord> records = Collections.singleton(new DummyRecord("abc", UpdateType.CREATE));
+        assertThrows(IllegalArgumentException.class, () -> snapshot.update(records));
+    }
+
+    @Test
+    public void testRecordMapMatchesHashMapUnderRandomUpdates() {
+        // Use a tiny block size so that values span many blocks and compaction occurs frequently
+        final OffHeapRecordMap offHeapMap = new OffHeapRecordMap(256);
+        final Map<Long, byte[]> expected = new HashMap<>();
+        final Random random = new Random(42L);
+
+        for (int i = 0; i < 200_000; i++) {
+            final long key = random.nextInt(20_000);
+            if (random.nextInt(3) == 0) {
+                assertEquals(expected.remove(key) != null, offHeapMap.remove(key));
+            } else {
+                final byte[] value = new byte[random.nextInt(40)];
+                random.nextBytes(value);
+                expected.put(key, value);
+                offHeapMap.put(key, value, 0, value.length);
+            }
+        }
+
+        assertEquals(expected.size(), offHeapMap.size());
+        for (long key = 0; key < 20_000; key++) {
+            final byte[] expectedValue = expected.get(key);
+            if (expectedValue == null) {
+                assertNull(offHeapMap.get(key));
+            } else {
+                assertArrayEquals(expectedValue, offHeapMap.get(key));
+            }
+        }
+
+        assertTrue(offHeapMap.getGarbageBytes() < Math.max(256, offHeapMap.getLiveBytes()));
+
+        final OffHeapRecordMap.Capture capture = offHeapMap.capture();
+        assertEquals(expected.size(), capture.size());
+        for (int i = 0; i < capture.size(); i++) {
+            assertArrayEquals(expected.get(capture.getKey(i)), capture.getValue(i));
+        }
+    }
+}
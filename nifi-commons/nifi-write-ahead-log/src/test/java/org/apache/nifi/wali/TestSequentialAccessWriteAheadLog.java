@@ -22,8 +22,10 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.TestInfo;
 import org.wali.DummyRecord;
 import org.wali.DummyRecordSerde;
+import org.wali.SerDe;
 import org.wali.SerDeFactory;
 import org.wali.SingletonSerDeFactory;
+import org.wali.SyncListener;
 import org.wali.UpdateType;
 import org.wali.WriteAheadRepository;
 
@@ -35,10 +37,14 @@ import java.text.NumberFormat;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 import java.util.function.Function;
 import java.util.stream.Collectors;
@@ -182,6 +188,101 @@ public class TestSequentialAccessWriteAheadLog {
         assertEquals(expected, new HashSet<>(recovered));
     }
 
+    @Test
+    public void testGroupCommitWithConcurrentSyncedUpdates(TestInfo testInfo) throws Exception {
+        final File storageDir = new File("target", testInfo.getTestMethod().get().getName());
+        deleteRecursively(storageDir);
+        assertTrue(storageDir.mkdirs());
+
+        final SerDeFactory<DummyRecord> serdeFactory = new SingletonSerDeFactory<>(new DummyRecordSerde());
+        final SequentialAccessWriteAheadLog<DummyRecord> repo = new SequentialAccessWriteAheadLog<>(storageDir, serdeFactory, SyncListener.NOP_SYNC_LISTENER,
+            new HashMapSnapshot<>(storageDir, serdeFactory), 1, true, 100L, TimeUnit.MICROSECONDS, 1024L * 1024L);
+        assertTrue(repo.recoverRecords().isEmpty());
+
+        final int threadCount = 8;
+        final int updatesPerThread = 100;
+        final ExecutorService executor = Executors.newFixedThreadPool(threadCount);
+        try {
+            final List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threadCount; t++) {
+                final int threadIndex = t;
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < updatesPerThread; i++) {
+                        final DummyRecord record = new DummyRecord(threadIndex + "-" + i, UpdateType.CREATE);
+                        repo.update(Collections.singleton(record), true);
+                    }
+
+                    return null;
+                }));
+            }
+
+            for (final Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        repo.shutdown();
+
+        final SequentialAccessWriteAheadLog<DummyRecord> recoveryRepo = createRecoveryRepo(testInfo);
+        assertEquals(threadCount * updatesPerThread, recoveryRepo.recoverRecords().size());
+    }
+
+    @Test
+    public void testParallelRecovery(TestInfo testInfo) throws IOException {
+        final File storageDir = new File("target", testInfo.getTestMethod().get().getName());
+        deleteRecursively(storageDir);
+        assertTrue(storageDir.mkdirs());
+
+        final SerDeFactory<DummyRecord> serdeFactory = new StatelessDummyRecordSerdeFactory();
+        final SequentialAccessWriteAheadLog<DummyRecord> repo = new SequentialAccessWriteAheadLog<>(storageDir, serdeFactory, SyncListener.NOP_SYNC_LISTENER,
+            new HashMapSnapshot<>(storageDir, serdeFactory, true), 4);
+        assertTrue(repo.recoverRecords().isEmpty());
+
+        // Create enough records that the snapshot is written in several chunks
+        final Map<String, DummyRecord> expected = new HashMap<>();
+        final List<DummyRecord> created = new ArrayList<>();
+        for (int i = 0; i < 25_000; i++) {
+            final DummyRecord record = new DummyRecord(String.valueOf(i), UpdateType.CREATE);
+            record.setProperty("index", String.valueOf(i));
+            created.add(record);
+            expected.put(record.getId(), record);
+        }
+        repo.update(created, false);
+        repo.checkpoint();
+
+        // Updates and deletes that must be applied in order after the snapshot is recovered
+        for (int i = 0; i < 2_000; i++) {
+            final String id = String.valueOf(i % 500);
+            final DummyRecord record;
+            if (i % 7 == 0) {
+                record = new DummyRecord(id, UpdateType.DELETE);
+                expected.remove(id);
+            } else {
+                record = new DummyRecord(id, UpdateType.UPDATE);
+                record.setProperty("version", String.valueOf(i));
+                expected.put(id, record);
+            }
+
+            repo.update(Collections.singleton(record), false);
+        }
+        repo.shutdown();
+
+        final SequentialAccessWriteAheadLog<DummyRecord> recoveryRepo = new SequentialAccessWriteAheadLog<>(storageDir, serdeFactory, SyncListener.NOP_SYNC_LISTENER,
+            new HashMapSnapshot<>(storageDir, serdeFactory, true), 4);
+        final Map<String, DummyRecord> recovered = recoveryRepo.recoverRecords().stream()
+            .collect(Collectors.toMap(DummyRecord::getId, Function.identity()));
+        recoveryRepo.shutdown();
+
+        assertEquals(expected.size(), recovered.size());
+        for (final DummyRecord expectedRecord : expected.values()) {
+            final DummyRecord recoveredRecord = recovered.get(expectedRecord.getId());
+            assertNotNull(recoveredRecord);
+            assertEquals(expectedRecord.getProperties(), recoveredRecord.getProperties());
+        }
+    }
+
     private SequentialAccessWriteAheadLog<DummyRecord> createRecoveryRepo(TestInfo testInfo) throws IOException {
         final File targetDir = new File("target");
         final File storageDir = new File(targetDir, testInfo.getTestMethod().get().getName());
@@ -378,6 +479,38 @@ public class TestSequentialAccessWriteAheadLog {
         }
     }
 
+    /**
+     * Creates a new SerDe each time one is requested, and indicates that the SerDe does not require the current state of a record in order to deserialize an update
+     */
+    private static class StatelessDummyRecordSerdeFactory implements SerDeFactory<DummyRecord> {
+        private final DummyRecordSerde serde = new DummyRecordSerde();
+
+        @Override
+        public SerDe<DummyRecord> createSerDe(final String encodingName) {
+            return new DummyRecordSerde() {
+                @Override
+                public boolean isCurrentRecordStateRequired() {
+                    return false;
+                }
+            };
+        }
+
+        @Override
+        public Object getRecordIdentifier(final DummyRecord record) {
+            return serde.getRecordIdentifier(record);
+        }
+
+        @Override
+        public UpdateType getUpdateType(final DummyRecord record) {
+            return serde.getUpdateType(record);
+        }
+
+        @Override
+        public String getLocation(final DummyRecord record) {
+            return serde.getLocation(record);
+        }
+    }
+
     private void deleteRecursively(final File file) {
         final File[] children = file.listFiles();
         if (children != null) {
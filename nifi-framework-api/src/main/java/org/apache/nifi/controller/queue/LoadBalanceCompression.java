@@ -31,5 +31,15 @@ public enum LoadBalanceCompression {
     /**
      * FlowFiles' attributes and content will be compressed
      */
-    COMPRESS_ATTRIBUTES_AND_CONTENT;
+    COMPRESS_ATTRIBUTES_AND_CONTENT,
+
+    /**
+     * FlowFiles' attributes and content will be compressed using LZ4, which requires far less CPU than the default compression but does not compress as well
+     */
+    COMPRESS_ATTRIBUTES_AND_CONTENT_LZ4,
+
+    /**
+     * FlowFiles' attributes and content will be compressed using Zstandard, which compresses about as well as the default compression but requires less CPU
+     */
+    COMPRESS_ATTRIBUTES_AND_CONTENT_ZSTD;
 }
@@ -29,6 +29,13 @@ public enum LoadBalanceStrategy {
      */
     PARTITION_BY_ATTRIBUTE,
 
+    /**
+     * Determine which node to send a given FlowFile to based on the value of a user-specified FlowFile Attribute, as with {@link #PARTITION_BY_ATTRIBUTE}.
+     * However, the node is chosen using consistent hashing, so that when a node joins or leaves the cluster, only the FlowFiles whose node changes are
+     * redistributed, rather than nearly all of them.
+     */
+    PARTITION_BY_ATTRIBUTE_CONSISTENT_HASH,
+
     /**
      * FlowFiles will be distributed to nodes in the cluster in a Round-Robin fashion. However, if a node in the cluster is not able to receive data as fast as other nodes,
      * that node may be skipped in one or more iterations in order to maximize throughput of data distribution across the cluster.
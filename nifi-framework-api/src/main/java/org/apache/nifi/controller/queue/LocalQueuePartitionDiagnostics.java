@@ -29,4 +29,18 @@ public interface LocalQueuePartitionDiagnostics {
     boolean isAnyActiveFlowFilePenalized();
 
     boolean isAllActiveFlowFilesPenalized();
+
+    /**
+     * @return the number of times that a swap file was swapped in using contents that had already been read in the background
+     */
+    default long getSwapInPrefetchHitCount() {
+        return 0L;
+    }
+
+    /**
+     * @return the number of times that FlowFiles could not be obtained from the queue until a swap file had been read from disk
+     */
+    default long getSwapInStallCount() {
+        return 0L;
+    }
 }
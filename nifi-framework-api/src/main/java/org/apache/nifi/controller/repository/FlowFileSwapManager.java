@@ -21,6 +21,7 @@ import org.apache.nifi.controller.queue.FlowFileQueue;
 import java.io.IOException;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.Future;
 
 /**
  * Defines a mechanism by which FlowFiles can be move into external storage or
@@ -80,6 +81,37 @@ public interface FlowFileSwapManager {
      */
     SwapContents swapIn(String swapLocation, FlowFileQueue flowFileQueue) throws IncompleteSwapFileException, IOException;
 
+    /**
+     * Begins reading the swap file that lives at the given location in the background, so that its FlowFiles can be swapped in
+     * without waiting for the swap file to be read. Like {@link #peek(String, FlowFileQueue)}, this action does not modify the
+     * swap file or update the FlowFile Repository. The contents that are obtained should be provided to
+     * {@link #swapIn(String, FlowFileQueue, SwapContents)} in order to complete the swap in.
+     *
+     * @param swapLocation the location of the swap file
+     * @param flowFileQueue the queue that the FlowFiles belong to
+     * @return a Future that provides the contents of the swap file, or <code>null</code> if this Swap Manager does not prefetch swap files
+     */
+    default Future<SwapContents> prefetch(String swapLocation, FlowFileQueue flowFileQueue) {
+        return null;
+    }
+
+    /**
+     * Completes swapping in the FlowFiles from the swap file that lives at the given location, using contents that were
+     * previously obtained via {@link #prefetch(String, FlowFileQueue)} rather than reading the swap file again. The FlowFile
+     * Repository is then updated and the swap file is permanently removed from the external storage
+     *
+     * @param swapLocation the location of the swap file
+     * @param flowFileQueue the queue to which the FlowFiles belong
+     * @param contents the contents that were previously read from the swap file
+     *
+     * @return a SwapContents that includes FlowFiles that are stored in the given location
+     *
+     * @throws IOException if unable to update the FlowFileRepository
+     */
+    default SwapContents swapIn(String swapLocation, FlowFileQueue flowFileQueue, SwapContents contents) throws IOException {
+        return swapIn(swapLocation, flowFileQueue);
+    }
+
     /**
      * Determines swap files that exist for the given FlowFileQueue
      *
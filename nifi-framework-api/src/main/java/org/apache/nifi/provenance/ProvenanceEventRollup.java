@@ -0,0 +1,98 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.provenance;
+
+/**
+ * The number of Provenance Events of a given type that were emitted by a given component during a fixed time bucket, along with the total size of the
+ * FlowFile content that the events referenced.
+ */
+public class ProvenanceEventRollup {
+    private final long bucketStart;
+    private final long bucketMillis;
+    private final String componentId;
+    private final String componentType;
+    private final ProvenanceEventType eventType;
+    private final String destination;
+    private final long eventCount;
+    private final long byteCount;
+
+    public ProvenanceEventRollup(final long bucketStart, final long bucketMillis, final String componentId, final String componentType, final ProvenanceEventType eventType,
+                                 final String destination, final long eventCount, final long byteCount) {
+        this.bucketStart = bucketStart;
+        this.bucketMillis = bucketMillis;
+        this.componentId = componentId;
+        this.componentType = componentType;
+        this.eventType = eventType;
+        this.destination = destination;
+        this.eventCount = eventCount;
+        this.byteCount = byteCount;
+    }
+
+    /**
+     * @return the start time of the bucket, in milliseconds since epoch
+     */
+    public long getBucketStart() {
+        return bucketStart;
+    }
+
+    /**
+     * @return the length of the bucket, in milliseconds
+     */
+    public long getBucketMillis() {
+        return bucketMillis;
+    }
+
+    public String getComponentId() {
+        return componentId;
+    }
+
+    public String getComponentType() {
+        return componentType;
+    }
+
+    public ProvenanceEventType getEventType() {
+        return eventType;
+    }
+
+    /**
+     * @return the scheme and authority of the Transit URI of the events, such as <code>sftp://host:22</code>, <code>other</code> if the events were
+     * counted after the bucket reached its maximum number of keys, or <code>null</code> if the events do not have a Transit URI
+     */
+    public String getDestination() {
+        return destination;
+    }
+
+    /**
+     * @return the number of events
+     */
+    public long getEventCount() {
+        return eventCount;
+    }
+
+    /**
+     * @return the sum of the sizes of the FlowFiles that the events referenced, in bytes
+     */
+    public long getByteCount() {
+        return byteCount;
+    }
+
+    @Override
+    public String toString() {
+        return "ProvenanceEventRollup[bucketStart=" + bucketStart + ", componentId=" + componentId + ", eventType=" + eventType + ", destination=" + destination
+            + ", eventCount=" + eventCount + ", byteCount=" + byteCount + "]";
+    }
+}
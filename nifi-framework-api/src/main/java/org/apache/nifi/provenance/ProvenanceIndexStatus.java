@@ -0,0 +1,87 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.provenance;
+
+/**
+ * A point-in-time view of how well a Provenance Repository's indexing is keeping up with the rate at which events are stored
+ */
+public class ProvenanceIndexStatus {
+    private final long eventsAwaitingIndex;
+    private final long eventsIndexed;
+    private final int indexThreads;
+    private final int activeIndexThreads;
+    private final long commitCount;
+    private final long backPressureMillis;
+
+    public ProvenanceIndexStatus(final long eventsAwaitingIndex, final long eventsIndexed, final int indexThreads, final int activeIndexThreads,
+                                 final long commitCount, final long backPressureMillis) {
+        this.eventsAwaitingIndex = eventsAwaitingIndex;
+        this.eventsIndexed = eventsIndexed;
+        this.indexThreads = indexThreads;
+        this.activeIndexThreads = activeIndexThreads;
+        this.commitCount = commitCount;
+        this.backPressureMillis = backPressureMillis;
+    }
+
+    /**
+     * @return the number of events that have been stored but not yet indexed, and so are not yet returned by queries
+     */
+    public long getEventsAwaitingIndex() {
+        return eventsAwaitingIndex;
+    }
+
+    /**
+     * @return the number of events that have been indexed since the repository was initialized
+     */
+    public long getEventsIndexed() {
+        return eventsIndexed;
+    }
+
+    /**
+     * @return the number of threads that are available to index events
+     */
+    public int getIndexThreads() {
+        return indexThreads;
+    }
+
+    /**
+     * @return the number of threads that are currently indexing events
+     */
+    public int getActiveIndexThreads() {
+        return activeIndexThreads;
+    }
+
+    /**
+     * @return the number of times that an index has been committed since the repository was initialized
+     */
+    public long getCommitCount() {
+        return commitCount;
+    }
+
+    /**
+     * @return the number of milliseconds in the last 5 minutes that threads storing events have spent waiting for the indexing threads to catch up
+     */
+    public long getBackPressureMillis() {
+        return backPressureMillis;
+    }
+
+    @Override
+    public String toString() {
+        return "ProvenanceIndexStatus[eventsAwaitingIndex=" + eventsAwaitingIndex + ", eventsIndexed=" + eventsIndexed + ", indexThreads=" + indexThreads
+            + ", activeIndexThreads=" + activeIndexThreads + ", commitCount=" + commitCount + ", backPressureMillis=" + backPressureMillis + "]";
+    }
+}
@@ -21,6 +21,7 @@ import org.apache.nifi.authorization.user.NiFiUser;
 import org.apache.nifi.events.EventReporter;
 import org.apache.nifi.provenance.lineage.ComputeLineageSubmission;
 import org.apache.nifi.provenance.search.Query;
+import org.apache.nifi.provenance.search.QueryPage;
 import org.apache.nifi.provenance.search.QuerySubmission;
 import org.apache.nifi.provenance.search.SearchableField;
 
@@ -44,6 +45,17 @@ public interface ProvenanceRepository extends ProvenanceEventRepository {
     void initialize(EventReporter eventReporter, Authorizer authorizer, ProvenanceAuthorizableFactory resourceFactory, IdentifierLookup identifierLookup) throws IOException;
 
 
+    /**
+     * Adds the given events to the repository without indexing them, so that they are not returned by Provenance queries. The events
+     * can still be retrieved by ID. Implementations that do not maintain an index, or that cannot store events without indexing them,
+     * register the events as usual.
+     *
+     * @param events the events to register
+     */
+    default void registerUnindexedEvents(Iterable<ProvenanceEventRecord> events) {
+        registerEvents(events);
+    }
+
     /**
      * Retrieves the Provenance Event with the given ID. The event will be returned only
      * if the given user is authorized to access the event.
@@ -94,6 +106,49 @@ public interface ProvenanceRepository extends ProvenanceEventRepository {
      */
     QuerySubmission submitQuery(Query query, NiFiUser user);
 
+    /**
+     * Synchronously retrieves a single page of the events that match the given query, newest first by Event Time, with events that have the same
+     * Event Time ordered by descending Event ID. Unlike {@link #submitQuery(Query, NiFiUser)}, the results are not held by the repository between
+     * calls; instead, the returned page includes a continuation token that can be provided in order to retrieve the next page. Events that are added to the repository after the first page is retrieved are not included in later pages.
+     * The maximum number of results of the query is ignored.
+     *
+     * @param query the query to perform
+     * @param user The NiFi User to authorize the events against.
+     *             It can be {@code null} if called by NiFi components internally where authorization is not required.
+     * @param continuationToken the token that was returned with the previous page, or <code>null</code> to retrieve the first page
+     * @param pageSize the maximum number of events to return
+     * @return the page of events
+     * @throws IOException if unable to search the repository
+     * @throws IllegalArgumentException if the continuation token is not valid
+     * @throws UnsupportedOperationException if the repository does not support paginated queries
+     */
+    default QueryPage queryEvents(Query query, NiFiUser user, String continuationToken, int pageSize) throws IOException {
+        throw new UnsupportedOperationException(getClass().getSimpleName() + " does not support paginated Provenance queries");
+    }
+
+    /**
+     * Retrieves the aggregate rollups of Provenance Events that match the given query. Rollups are maintained incrementally as events are
+     * registered, so they are retrieved without reading any events and remain available after the events themselves have aged off.
+     * Rollups for components whose Provenance data the given user is not authorized to access are not returned.
+     *
+     * @param query the rollups to retrieve
+     * @param user The NiFi User to authorize the rollups against.
+     *             It can be {@code null} if called by NiFi components internally where authorization is not required.
+     * @return the matching rollups, ordered by bucket start time
+     * @throws UnsupportedOperationException if the repository does not maintain rollups
+     */
+    default List<ProvenanceEventRollup> getEventRollups(ProvenanceRollupQuery query, NiFiUser user) {
+        throw new UnsupportedOperationException(getClass().getSimpleName() + " does not maintain rollups of Provenance Events");
+    }
+
+    /**
+     * @return the current status of the repository's indexing of events, or an empty Optional if the repository does not index events
+     * or does not track this information
+     */
+    default Optional<ProvenanceIndexStatus> getIndexStatus() {
+        return Optional.empty();
+    }
+
     /**
      * Retrieves the most recent Provenance Event that is cached for the given component that is also accessible by the given user
      * @param componentId the ID of the component
@@ -0,0 +1,105 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.provenance;
+
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Describes which aggregate rollups of Provenance Events should be retrieved from a Provenance Repository
+ */
+public class ProvenanceRollupQuery {
+    private final Granularity granularity;
+    private final long startTime;
+    private final long endTime;
+    private final String componentId;
+    private final ProvenanceEventType eventType;
+
+    /**
+     * @param granularity the size of the time buckets to retrieve
+     * @param startTime the earliest time, in milliseconds since epoch, to retrieve rollups for. Any bucket that contains this time is included.
+     * @param endTime the latest time, in milliseconds since epoch, to retrieve rollups for. Buckets that start after this time are not included.
+     * @param componentId the ID of the component to retrieve rollups for, or <code>null</code> to retrieve rollups for all components
+     * @param eventType the type of event to retrieve rollups for, or <code>null</code> to retrieve rollups for all event types
+     */
+    public ProvenanceRollupQuery(final Granularity granularity, final long startTime, final long endTime, final String componentId, final ProvenanceEventType eventType) {
+        this.granularity = Objects.requireNonNull(granularity, "Granularity must be specified");
+        if (endTime < startTime) {
+            throw new IllegalArgumentException("End time of the rollup query must not be before the start time");
+        }
+
+        this.startTime = startTime;
+        this.endTime = endTime;
+        this.componentId = componentId;
+        this.eventType = eventType;
+    }
+
+    public Granularity getGranularity() {
+        return granularity;
+    }
+
+    public long getStartTime() {
+        return startTime;
+    }
+
+    public long getEndTime() {
+        return endTime;
+    }
+
+    public String getComponentId() {
+        return componentId;
+    }
+
+    public ProvenanceEventType getEventType() {
+        return eventType;
+    }
+
+    @Override
+    public String toString() {
+        return "ProvenanceRollupQuery[granularity=" + granularity + ", startTime=" + startTime + ", endTime=" + endTime + ", componentId=" + componentId
+            + ", eventType=" + eventType + "]";
+    }
+
+    /**
+     * The size of the fixed time buckets that events are rolled up into
+     */
+    public enum Granularity {
+        MINUTE(TimeUnit.MINUTES.toMillis(1L)),
+        HOUR(TimeUnit.HOURS.toMillis(1L));
+
+        private final long bucketMillis;
+
+        Granularity(final long bucketMillis) {
+            this.bucketMillis = bucketMillis;
+        }
+
+        /**
+         * @return the length of a bucket, in milliseconds
+         */
+        public long getBucketMillis() {
+            return bucketMillis;
+        }
+
+        /**
+         * @param timestamp a time, in milliseconds since epoch
+         * @return the start time of the bucket that contains the given time
+         */
+        public long getBucketStart(final long timestamp) {
+            return timestamp - Math.floorMod(timestamp, bucketMillis);
+        }
+    }
+}
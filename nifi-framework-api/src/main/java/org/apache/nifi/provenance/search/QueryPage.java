@@ -0,0 +1,55 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.provenance.search;
+
+import org.apache.nifi.provenance.ProvenanceEventRecord;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A single page of the Provenance Events that match a Query, newest first by Event Time, along with a token that can be used to obtain the next page
+ */
+public class QueryPage {
+    private final List<ProvenanceEventRecord> events;
+    private final String continuationToken;
+
+    public QueryPage(final List<ProvenanceEventRecord> events, final String continuationToken) {
+        this.events = Collections.unmodifiableList(events);
+        this.continuationToken = continuationToken;
+    }
+
+    /**
+     * @return the events on this page that the user is authorized to access, newest first. This may contain fewer events than the
+     * requested page size, even if more pages are available, because events that the user is not authorized to access are omitted.
+     */
+    public List<ProvenanceEventRecord> getEvents() {
+        return events;
+    }
+
+    /**
+     * @return an opaque token that can be provided to obtain the next page of results, or <code>null</code> if there are no more results
+     */
+    public String getContinuationToken() {
+        return continuationToken;
+    }
+
+    @Override
+    public String toString() {
+        return "QueryPage[events=" + events.size() + ", continuationToken=" + continuationToken + "]";
+    }
+}
@@ -240,7 +240,7 @@ public class ConnectionDTO extends ComponentDTO {
     }
 
     @ApiModelProperty(value = "How to load balance the data in this Connection across the nodes in the cluster.",
-        allowableValues = "DO_NOT_LOAD_BALANCE, PARTITION_BY_ATTRIBUTE, ROUND_ROBIN, SINGLE_NODE")
+        allowableValues = "DO_NOT_LOAD_BALANCE, PARTITION_BY_ATTRIBUTE, PARTITION_BY_ATTRIBUTE_CONSISTENT_HASH, ROUND_ROBIN, SINGLE_NODE")
     public String getLoadBalanceStrategy() {
         return loadBalanceStrategy;
     }
@@ -249,7 +249,8 @@ public class ConnectionDTO extends ComponentDTO {
         this.loadBalanceStrategy = loadBalanceStrategy;
     }
 
-    @ApiModelProperty(value = "The FlowFile Attribute to use for determining which node a FlowFile will go to if the Load Balancing Strategy is set to PARTITION_BY_ATTRIBUTE")
+    @ApiModelProperty(value = "The FlowFile Attribute to use for determining which node a FlowFile will go to if the Load Balancing Strategy is set to PARTITION_BY_ATTRIBUTE "
+        + "or PARTITION_BY_ATTRIBUTE_CONSISTENT_HASH")
     public String getLoadBalancePartitionAttribute() {
         return loadBalancePartitionAttribute;
     }
@@ -259,7 +260,7 @@ public class ConnectionDTO extends ComponentDTO {
     }
 
     @ApiModelProperty(value = "Whether or not data should be compressed when being transferred between nodes in the cluster.",
-        allowableValues = "DO_NOT_COMPRESS, COMPRESS_ATTRIBUTES_ONLY, COMPRESS_ATTRIBUTES_AND_CONTENT")
+        allowableValues = "DO_NOT_COMPRESS, COMPRESS_ATTRIBUTES_ONLY, COMPRESS_ATTRIBUTES_AND_CONTENT, COMPRESS_ATTRIBUTES_AND_CONTENT_LZ4, COMPRESS_ATTRIBUTES_AND_CONTENT_ZSTD")
     public String getLoadBalanceCompression() {
         return loadBalanceCompression;
     }
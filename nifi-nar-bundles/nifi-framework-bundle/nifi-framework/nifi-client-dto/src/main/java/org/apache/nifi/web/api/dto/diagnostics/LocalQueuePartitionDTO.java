@@ -34,6 +34,8 @@ public class LocalQueuePartitionDTO {
     private long inFlightByteCount;
     private Boolean allActiveQueueFlowFilesPenalized;
     private Boolean anyActiveQueueFlowFilesPenalized;
+    private long swapInPrefetchHitCount;
+    private long swapInStallCount;
 
     @ApiModelProperty("Total number of FlowFiles owned by the Connection")
     public int getTotalFlowFileCount() {
@@ -133,4 +135,22 @@ public class LocalQueuePartitionDTO {
     public void setAnyActiveQueueFlowFilesPenalized(Boolean anyFlowFilesPenalized) {
         this.anyActiveQueueFlowFilesPenalized = anyFlowFilesPenalized;
     }
+
+    @ApiModelProperty("The number of times that a Swap File was swapped in for this Connection after it had already been read in the background")
+    public long getSwapInPrefetchHitCount() {
+        return swapInPrefetchHitCount;
+    }
+
+    public void setSwapInPrefetchHitCount(long swapInPrefetchHitCount) {
+        this.swapInPrefetchHitCount = swapInPrefetchHitCount;
+    }
+
+    @ApiModelProperty("The number of times that FlowFiles could not be pulled from this Connection until a Swap File was read from disk")
+    public long getSwapInStallCount() {
+        return swapInStallCount;
+    }
+
+    public void setSwapInStallCount(long swapInStallCount) {
+        this.swapInStallCount = swapInStallCount;
+    }
 }
@@ -0,0 +1,76 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.web.api.dto.provenance;
+
+import io.swagger.annotations.ApiModelProperty;
+
+import javax.xml.bind.annotation.XmlType;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * A single page of the results of a provenance query.
+ */
+@XmlType(name = "provenancePage")
+public class ProvenancePageDTO {
+
+    private List<ProvenanceEventDTO> provenanceEvents;
+    private String continuationToken;
+    private Set<String> errors;
+
+    /**
+     * @return provenance events on this page
+     */
+    @ApiModelProperty(
+            value = "The provenance events on this page that matched the search criteria, newest first."
+    )
+    public List<ProvenanceEventDTO> getProvenanceEvents() {
+        return provenanceEvents;
+    }
+
+    public void setProvenanceEvents(List<ProvenanceEventDTO> provenanceEvents) {
+        this.provenanceEvents = provenanceEvents;
+    }
+
+    /**
+     * @return token to provide in order to retrieve the next page
+     */
+    @ApiModelProperty(
+            value = "The token to provide in order to retrieve the next page of results. Not present if there are no more results."
+    )
+    public String getContinuationToken() {
+        return continuationToken;
+    }
+
+    public void setContinuationToken(String continuationToken) {
+        this.continuationToken = continuationToken;
+    }
+
+    /**
+     * @return error messages
+     */
+    @ApiModelProperty(
+            value = "Any errors that occurred while retrieving the page."
+    )
+    public Set<String> getErrors() {
+        return errors;
+    }
+
+    public void setErrors(Set<String> errors) {
+        this.errors = errors;
+    }
+}
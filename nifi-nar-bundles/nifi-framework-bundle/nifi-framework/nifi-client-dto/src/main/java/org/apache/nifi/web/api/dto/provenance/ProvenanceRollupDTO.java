@@ -0,0 +1,136 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.web.api.dto.provenance;
+
+import io.swagger.annotations.ApiModelProperty;
+
+import javax.xml.bind.annotation.XmlType;
+import java.util.Date;
+
+/**
+ * The number of provenance events of a given type that a component emitted during a single time bucket.
+ */
+@XmlType(name = "provenanceRollup")
+public class ProvenanceRollupDTO {
+
+    private Date bucketStart;
+    private String componentId;
+    private String componentType;
+    private String eventType;
+    private String destination;
+    private Long eventCount;
+    private Long byteCount;
+
+    /**
+     * @return start of the time bucket
+     */
+    @ApiModelProperty(
+            value = "The start of the time bucket."
+    )
+    public Date getBucketStart() {
+        return bucketStart;
+    }
+
+    public void setBucketStart(Date bucketStart) {
+        this.bucketStart = bucketStart;
+    }
+
+    /**
+     * @return id of the component that emitted the events
+     */
+    @ApiModelProperty(
+            value = "The id of the component that emitted the events."
+    )
+    public String getComponentId() {
+        return componentId;
+    }
+
+    public void setComponentId(String componentId) {
+        this.componentId = componentId;
+    }
+
+    /**
+     * @return type of the component that emitted the events
+     */
+    @ApiModelProperty(
+            value = "The type of the component that emitted the events."
+    )
+    public String getComponentType() {
+        return componentType;
+    }
+
+    public void setComponentType(String componentType) {
+        this.componentType = componentType;
+    }
+
+    /**
+     * @return type of the events
+     */
+    @ApiModelProperty(
+            value = "The type of the events."
+    )
+    public String getEventType() {
+        return eventType;
+    }
+
+    public void setEventType(String eventType) {
+        this.eventType = eventType;
+    }
+
+    /**
+     * @return scheme and authority of the transit uri of the events
+     */
+    @ApiModelProperty(
+            value = "The scheme and authority of the transit uri of the events, such as sftp://host:22, or 'other' if the events were "
+                    + "counted after the bucket reached its maximum number of keys. Not present if the events do not have a transit uri."
+    )
+    public String getDestination() {
+        return destination;
+    }
+
+    public void setDestination(String destination) {
+        this.destination = destination;
+    }
+
+    /**
+     * @return number of events
+     */
+    @ApiModelProperty(
+            value = "The number of events."
+    )
+    public Long getEventCount() {
+        return eventCount;
+    }
+
+    public void setEventCount(Long eventCount) {
+        this.eventCount = eventCount;
+    }
+
+    /**
+     * @return total size of the flowfiles that the events referenced
+     */
+    @ApiModelProperty(
+            value = "The total size, in bytes, of the flowfiles that the events referenced."
+    )
+    public Long getByteCount() {
+        return byteCount;
+    }
+
+    public void setByteCount(Long byteCount) {
+        this.byteCount = byteCount;
+    }
+}
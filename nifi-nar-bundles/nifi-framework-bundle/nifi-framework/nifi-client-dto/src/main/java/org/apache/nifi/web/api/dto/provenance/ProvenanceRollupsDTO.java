@@ -0,0 +1,108 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.web.api.dto.provenance;
+
+import io.swagger.annotations.ApiModelProperty;
+
+import javax.xml.bind.annotation.XmlType;
+import java.util.Date;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * The rollups of provenance events into fixed time buckets that matched a request.
+ */
+@XmlType(name = "provenanceRollups")
+public class ProvenanceRollupsDTO {
+
+    private String granularity;
+    private Date startDate;
+    private Date endDate;
+    private List<ProvenanceRollupDTO> rollups;
+    private Set<String> errors;
+
+    /**
+     * @return size of the time buckets
+     */
+    @ApiModelProperty(
+            value = "The size of the time buckets.",
+            allowableValues = "MINUTE, HOUR"
+    )
+    public String getGranularity() {
+        return granularity;
+    }
+
+    public void setGranularity(String granularity) {
+        this.granularity = granularity;
+    }
+
+    /**
+     * @return earliest time that rollups were requested for
+     */
+    @ApiModelProperty(
+            value = "The earliest time that rollups were requested for."
+    )
+    public Date getStartDate() {
+        return startDate;
+    }
+
+    public void setStartDate(Date startDate) {
+        this.startDate = startDate;
+    }
+
+    /**
+     * @return latest time that rollups were requested for
+     */
+    @ApiModelProperty(
+            value = "The latest time that rollups were requested for."
+    )
+    public Date getEndDate() {
+        return endDate;
+    }
+
+    public void setEndDate(Date endDate) {
+        this.endDate = endDate;
+    }
+
+    /**
+     * @return the rollups
+     */
+    @ApiModelProperty(
+            value = "The rollups, ordered by the start of their time bucket."
+    )
+    public List<ProvenanceRollupDTO> getRollups() {
+        return rollups;
+    }
+
+    public void setRollups(List<ProvenanceRollupDTO> rollups) {
+        this.rollups = rollups;
+    }
+
+    /**
+     * @return error messages
+     */
+    @ApiModelProperty(
+            value = "Any errors that occurred while retrieving the rollups."
+    )
+    public Set<String> getErrors() {
+        return errors;
+    }
+
+    public void setErrors(Set<String> errors) {
+        this.errors = errors;
+    }
+}
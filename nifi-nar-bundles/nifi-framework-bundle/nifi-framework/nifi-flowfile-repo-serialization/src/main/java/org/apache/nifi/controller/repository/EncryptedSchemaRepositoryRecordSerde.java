@@ -258,4 +258,14 @@ public class EncryptedSchemaRepositoryRecordSerde implements SerDe<SerializedRep
     public int getVersion() {
         return wrappedSerDe.getVersion();
     }
+
+    /**
+     * Returns false, as each encrypted record is deserialized in its entirety, without regard to the current record states.
+     *
+     * @return false
+     */
+    @Override
+    public boolean isCurrentRecordStateRequired() {
+        return false;
+    }
 }
@@ -292,4 +292,14 @@ public class SchemaRepositoryRecordSerde extends RepositoryRecordSerde implement
     public boolean isMoreInExternalFile() throws IOException {
         return recordIterator != null && recordIterator.isNext();
     }
+
+    /**
+     * Returns false, as each record is written with its full schema-based state and so is deserialized without regard to the current record states.
+     *
+     * @return false
+     */
+    @Override
+    public boolean isCurrentRecordStateRequired() {
+        return false;
+    }
 }
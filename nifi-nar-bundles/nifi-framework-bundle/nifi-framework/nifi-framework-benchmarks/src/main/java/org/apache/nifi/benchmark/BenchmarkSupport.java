@@ -0,0 +1,145 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.benchmark;
+
+import org.apache.nifi.controller.repository.FileSystemRepository;
+import org.apache.nifi.controller.repository.FlowFileRecord;
+import org.apache.nifi.controller.repository.StandardContentRepositoryContext;
+import org.apache.nifi.controller.repository.StandardFlowFileRecord;
+import org.apache.nifi.controller.repository.WriteAheadFlowFileRepository;
+import org.apache.nifi.controller.repository.claim.ContentClaim;
+import org.apache.nifi.controller.repository.claim.ResourceClaimManager;
+import org.apache.nifi.events.EventReporter;
+import org.apache.nifi.flowfile.attributes.CoreAttributes;
+import org.apache.nifi.util.NiFiProperties;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+/**
+ * Utility methods that are shared by the framework benchmarks
+ */
+final class BenchmarkSupport {
+
+    private BenchmarkSupport() {
+    }
+
+    /**
+     * Creates the attributes for a FlowFile, consisting of the core attributes plus the given number of additional attributes
+     *
+     * @param attributeCount the number of additional attributes
+     * @param attributeSize the number of characters in the value of each additional attribute
+     * @return the attributes
+     */
+    static Map<String, String> createAttributes(final int attributeCount, final int attributeSize) {
+        final Map<String, String> attributes = new HashMap<>();
+        attributes.put(CoreAttributes.UUID.key(), UUID.randomUUID().toString());
+        attributes.put(CoreAttributes.FILENAME.key(), attributes.get(CoreAttributes.UUID.key()));
+        attributes.put(CoreAttributes.PATH.key(), "./");
+
+        final StringBuilder sb = new StringBuilder(attributeSize);
+        for (int i = 0; i < attributeSize; i++) {
+            sb.append((char) ('a' + i % 26));
+        }
+        final String value = sb.toString();
+
+        for (int i = 0; i < attributeCount; i++) {
+            attributes.put("attribute." + i, value);
+        }
+
+        return attributes;
+    }
+
+    static FlowFileRecord createFlowFile(final long id, final Map<String, String> attributes, final ContentClaim contentClaim, final long size) {
+        final long now = System.currentTimeMillis();
+        return new StandardFlowFileRecord.Builder()
+            .id(id)
+            .entryDate(now)
+            .lineageStart(now, 0L)
+            .lastQueued(now, id)
+            .addAttributes(attributes)
+            .addAttribute(CoreAttributes.UUID.key(), UUID.randomUUID().toString())
+            .contentClaim(contentClaim)
+            .size(size)
+            .build();
+    }
+
+    /**
+     * Creates NiFi Properties that place the FlowFile and Content Repositories in the given directory
+     *
+     * @param directory the directory to store repository data in
+     * @param additionalProperties any other properties to set
+     * @return the properties
+     */
+    static NiFiProperties createProperties(final Path directory, final Map<String, String> additionalProperties) {
+        final Map<String, String> properties = new HashMap<>();
+        properties.put(NiFiProperties.FLOWFILE_REPOSITORY_DIRECTORY, directory.resolve("flowfile_repository").toString());
+        properties.put(NiFiProperties.REPOSITORY_CONTENT_PREFIX + "default", directory.resolve("content_repository").toString());
+        properties.put(NiFiProperties.CONTENT_ARCHIVE_ENABLED, "false");
+        properties.putAll(additionalProperties);
+
+        // Use an empty path so that no properties file is read
+        return NiFiProperties.createBasicNiFiProperties("", properties);
+    }
+
+    /**
+     * Creates and initializes a FlowFile Repository that holds no FlowFiles
+     */
+    static WriteAheadFlowFileRepository createFlowFileRepository(final NiFiProperties properties, final ResourceClaimManager claimManager) throws IOException {
+        final WriteAheadFlowFileRepository repository = new WriteAheadFlowFileRepository(properties);
+        repository.initialize(claimManager);
+        repository.loadFlowFiles(Collections::emptyList);
+        return repository;
+    }
+
+    static FileSystemRepository createContentRepository(final NiFiProperties properties, final ResourceClaimManager claimManager) throws IOException {
+        final FileSystemRepository repository = new FileSystemRepository(properties);
+        repository.initialize(new StandardContentRepositoryContext(claimManager, EventReporter.NO_OP));
+        return repository;
+    }
+
+    static Path createTempDirectory(final String prefix) throws IOException {
+        final String baseDirectory = System.getProperty("nifi.benchmark.directory");
+        if (baseDirectory == null) {
+            return Files.createTempDirectory(prefix);
+        }
+
+        final Path base = new File(baseDirectory).toPath();
+        Files.createDirectories(base);
+        return Files.createTempDirectory(base, prefix);
+    }
+
+    static void deleteRecursively(final Path directory) throws IOException {
+        if (directory == null || !Files.exists(directory)) {
+            return;
+        }
+
+        try (final Stream<Path> paths = Files.walk(directory)) {
+            paths.sorted(Comparator.reverseOrder())
+                .map(Path::toFile)
+                .forEach(File::delete);
+        }
+    }
+}
@@ -0,0 +1,101 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.benchmark;
+
+import org.apache.nifi.controller.repository.metrics.RingBufferEventRepository;
+import org.apache.nifi.controller.repository.metrics.StandardFlowFileEvent;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link RingBufferEventRepository#updateRepository(org.apache.nifi.controller.repository.FlowFileEvent, String)}, which is called once for every
+ * session commit. The <code>componentCount</code> parameter controls how many components the updates are spread across, and therefore how much contention
+ * there is between threads for the same component's events.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class FlowFileEventRepositoryBenchmark {
+
+    @Param({"1", "100"})
+    private int componentCount;
+
+    private RingBufferEventRepository repository;
+    private String[] componentIds;
+    private StandardFlowFileEvent event;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        repository = new RingBufferEventRepository(5);
+
+        componentIds = new String[componentCount];
+        for (int i = 0; i < componentCount; i++) {
+            componentIds[i] = "component-" + i;
+        }
+
+        event = new StandardFlowFileEvent();
+        event.setFlowFilesIn(10);
+        event.setContentSizeIn(10240L);
+        event.setFlowFilesOut(10);
+        event.setContentSizeOut(10240L);
+        event.setBytesRead(10240L);
+        event.setBytesWritten(10240L);
+        event.setProcessingNanos(1_000_000L);
+        event.setInvocations(1);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        repository.close();
+    }
+
+    @Benchmark
+    @Threads(1)
+    public void updateRepository() {
+        update();
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public void updateRepositoryContended() {
+        update();
+    }
+
+    private void update() {
+        final String componentId = componentIds[ThreadLocalRandom.current().nextInt(componentCount)];
+        repository.updateRepository(event, componentId);
+    }
+}
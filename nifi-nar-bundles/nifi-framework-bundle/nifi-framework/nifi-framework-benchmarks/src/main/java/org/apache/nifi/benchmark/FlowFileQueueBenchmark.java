@@ -0,0 +1,124 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.benchmark;
+
+import org.apache.nifi.controller.ProcessScheduler;
+import org.apache.nifi.controller.queue.FlowFileQueue;
+import org.apache.nifi.controller.queue.NopConnectionEventListener;
+import org.apache.nifi.controller.queue.PollStrategy;
+import org.apache.nifi.controller.queue.StandardFlowFileQueue;
+import org.apache.nifi.controller.repository.FlowFileRecord;
+import org.apache.nifi.controller.repository.FlowFileRepository;
+import org.apache.nifi.controller.repository.FlowFileSwapManager;
+import org.apache.nifi.controller.repository.claim.StandardResourceClaimManager;
+import org.apache.nifi.events.EventReporter;
+import org.apache.nifi.provenance.ProvenanceEventRepository;
+import org.mockito.Mockito;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Measures the throughput of putting FlowFiles into a {@link StandardFlowFileQueue}, polling them, and acknowledging them, as a Processor would.
+ * The queue is shared by all benchmark threads, so running with more than one thread (e.g., <code>-t 4</code>) measures lock contention.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class FlowFileQueueBenchmark {
+    private static final AtomicLong idGenerator = new AtomicLong(0L);
+
+    /**
+     * The number of FlowFiles that are already queued when the benchmark starts, and therefore the size of the active queue being ordered
+     */
+    @Param({"0", "10000"})
+    private int backlog;
+
+    @Param({"1", "100", "1000"})
+    private int batchSize;
+
+    private FlowFileQueue queue;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        // Set the swap threshold high enough that the benchmark measures only the in-memory queue
+        queue = new StandardFlowFileQueue("benchmark-queue", new NopConnectionEventListener(), Mockito.mock(FlowFileRepository.class), Mockito.mock(ProvenanceEventRepository.class),
+            new StandardResourceClaimManager(), Mockito.mock(ProcessScheduler.class), Mockito.mock(FlowFileSwapManager.class), EventReporter.NO_OP, 10_000_000, "0 sec", 0L, "0 B");
+
+        final Map<String, String> attributes = BenchmarkSupport.createAttributes(0, 0);
+        final List<FlowFileRecord> flowFiles = new ArrayList<>(backlog);
+        for (int i = 0; i < backlog; i++) {
+            flowFiles.add(BenchmarkSupport.createFlowFile(idGenerator.getAndIncrement(), attributes, null, 0L));
+        }
+        queue.putAll(flowFiles);
+    }
+
+    @State(Scope.Thread)
+    public static class Batch {
+        private List<FlowFileRecord> flowFiles;
+
+        @Setup(Level.Trial)
+        public void setup(final FlowFileQueueBenchmark benchmark) {
+            final Map<String, String> attributes = BenchmarkSupport.createAttributes(0, 0);
+            flowFiles = new ArrayList<>(benchmark.batchSize);
+            for (int i = 0; i < benchmark.batchSize; i++) {
+                flowFiles.add(BenchmarkSupport.createFlowFile(idGenerator.getAndIncrement(), attributes, null, 0L));
+            }
+        }
+    }
+
+    @Benchmark
+    public void putPollAcknowledge(final Batch batch, final Blackhole blackhole) {
+        final Set<FlowFileRecord> expired = new HashSet<>();
+
+        // Re-queue the FlowFiles that were polled by the previous invocation so that no FlowFile is ever queued twice
+        if (batchSize == 1) {
+            queue.put(batch.flowFiles.get(0));
+            final FlowFileRecord polled = queue.poll(expired, PollStrategy.UNPENALIZED_FLOWFILES);
+            queue.acknowledge(polled);
+            batch.flowFiles.set(0, polled);
+            blackhole.consume(polled);
+        } else {
+            queue.putAll(batch.flowFiles);
+            final List<FlowFileRecord> polled = queue.poll(batchSize, expired, PollStrategy.UNPENALIZED_FLOWFILES);
+            queue.acknowledge(polled);
+            batch.flowFiles = polled;
+            blackhole.consume(polled);
+        }
+    }
+}
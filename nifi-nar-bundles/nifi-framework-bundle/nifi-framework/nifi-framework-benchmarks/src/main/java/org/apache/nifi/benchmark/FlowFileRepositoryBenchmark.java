@@ -0,0 +1,125 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.benchmark;
+
+import org.apache.nifi.controller.queue.FlowFileQueue;
+import org.apache.nifi.controller.repository.FlowFileRecord;
+import org.apache.nifi.controller.repository.RepositoryRecord;
+import org.apache.nifi.controller.repository.StandardRepositoryRecord;
+import org.apache.nifi.controller.repository.WriteAheadFlowFileRepository;
+import org.apache.nifi.controller.repository.claim.ResourceClaimManager;
+import org.apache.nifi.controller.repository.claim.StandardResourceClaimManager;
+import org.apache.nifi.util.NiFiProperties;
+import org.mockito.Mockito;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Measures {@link WriteAheadFlowFileRepository#updateRepository(java.util.Collection)} for a batch of newly created FlowFiles, followed by a second update that
+ * deletes them so that the repository does not grow during the run. The FlowFiles have no content, so that only the FlowFile Repository is measured. Running with more than one thread (e.g., <code>-t 8</code>) shows the benefit of
+ * group commit, which can be toggled with the <code>groupCommit</code> parameter.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 10)
+@Measurement(iterations = 5, time = 10)
+@Fork(1)
+@State(Scope.Benchmark)
+public class FlowFileRepositoryBenchmark {
+    private static final String GROUP_COMMIT_ENABLED = "nifi.flowfile.repository.wal.group.commit.enabled";
+
+    @Param({"1", "100", "1000"})
+    private int flowFileCount;
+
+    @Param({"0", "10"})
+    private int attributeCount;
+
+    @Param({"16", "1024"})
+    private int attributeSize;
+
+    @Param({"false", "true"})
+    private boolean groupCommit;
+
+    private final AtomicLong idGenerator = new AtomicLong(0L);
+
+    private Path directory;
+    private WriteAheadFlowFileRepository repository;
+    private FlowFileQueue queue;
+    private Map<String, String> attributes;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        directory = BenchmarkSupport.createTempDirectory("flowfile-repository-benchmark");
+        final NiFiProperties properties = BenchmarkSupport.createProperties(directory, Collections.singletonMap(GROUP_COMMIT_ENABLED, String.valueOf(groupCommit)));
+        final ResourceClaimManager claimManager = new StandardResourceClaimManager();
+        repository = BenchmarkSupport.createFlowFileRepository(properties, claimManager);
+
+        queue = Mockito.mock(FlowFileQueue.class);
+        Mockito.when(queue.getIdentifier()).thenReturn("benchmark-queue");
+        attributes = BenchmarkSupport.createAttributes(attributeCount, attributeSize);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        repository.close();
+        BenchmarkSupport.deleteRecursively(directory);
+    }
+
+    @Benchmark
+    public void createAndDelete() throws IOException {
+        final List<FlowFileRecord> flowFiles = new ArrayList<>(flowFileCount);
+        final List<RepositoryRecord> createRecords = new ArrayList<>(flowFileCount);
+        for (int i = 0; i < flowFileCount; i++) {
+            final FlowFileRecord flowFile = BenchmarkSupport.createFlowFile(idGenerator.getAndIncrement(), attributes, null, 0L);
+            flowFiles.add(flowFile);
+
+            final StandardRepositoryRecord record = new StandardRepositoryRecord(queue);
+            record.setWorking(flowFile, false);
+            record.setDestination(queue);
+            createRecords.add(record);
+        }
+        repository.updateRepository(createRecords);
+
+        final List<RepositoryRecord> deleteRecords = new ArrayList<>(flowFileCount);
+        for (final FlowFileRecord flowFile : flowFiles) {
+            final StandardRepositoryRecord record = new StandardRepositoryRecord(queue, flowFile);
+            record.markForDelete();
+            deleteRecords.add(record);
+        }
+        repository.updateRepository(deleteRecords);
+    }
+}
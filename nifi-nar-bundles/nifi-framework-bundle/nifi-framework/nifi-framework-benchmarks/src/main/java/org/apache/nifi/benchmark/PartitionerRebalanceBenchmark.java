@@ -0,0 +1,155 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.nifi.benchmark;
+
+import org.apache.nifi.cluster.protocol.NodeIdentifier;
+import org.apache.nifi.controller.queue.LoadBalanceStrategy;
+import org.apache.nifi.controller.queue.clustered.partition.ConsistentHashPartitioner;
+import org.apache.nifi.controller.queue.clustered.partition.CorrelationAttributePartitioner;
+import org.apache.nifi.controller.queue.clustered.partition.FlowFilePartitioner;
+import org.apache.nifi.controller.queue.clustered.partition.QueuePartition;
+import org.apache.nifi.controller.repository.FlowFileRecord;
+import org.mockito.Mockito;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures how many FlowFiles a connection that is partitioned by attribute must send to another node when a 10-node cluster loses one node.
+ * Each invocation assigns every FlowFile to a node using the full cluster and again using the cluster without the lost node, and counts the FlowFiles
+ * whose node changed. The fraction of FlowFiles moved is the <code>flowFilesMoved</code> counter divided by the <code>flowFilesPartitioned</code> counter:
+ * ideally about 1/10, since only the FlowFiles that were on the lost node need a new home.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PartitionerRebalanceBenchmark {
+    private static final String PARTITIONING_ATTRIBUTE = "partition.key";
+    private static final int NODE_COUNT = 10;
+
+    @Param({"PARTITION_BY_ATTRIBUTE", "PARTITION_BY_ATTRIBUTE_CONSISTENT_HASH"})
+    private LoadBalanceStrategy strategy;
+
+    /**
+     * The number of FlowFiles queued, each with a distinct value for the partitioning attribute
+     */
+    @Param({"10000"})
+    private int flowFileCount;
+
+    private FlowFilePartitioner partitioner;
+    private List<FlowFileRecord> flowFiles;
+
+    private QueuePartition[] clusterPartitions;
+    private QueuePartition[] reducedClusterPartitions;
+    private QueuePartition localPartition;
+    private Map<QueuePartition, NodeIdentifier> partitionNodeIds;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        final List<NodeIdentifier> nodeIds = new ArrayList<>(NODE_COUNT);
+        for (int i = 0; i < NODE_COUNT; i++) {
+            nodeIds.add(new NodeIdentifier("node-" + i, "node-" + i, 8443, "node-" + i, 6342, "node-" + i, 6343, "node-" + i, 10443, 8443, true, Collections.emptySet()));
+        }
+
+        final NodeIdentifier localNodeId = nodeIds.get(0);
+        switch (strategy) {
+            case PARTITION_BY_ATTRIBUTE:
+                partitioner = new CorrelationAttributePartitioner(PARTITIONING_ATTRIBUTE);
+                break;
+            case PARTITION_BY_ATTRIBUTE_CONSISTENT_HASH:
+                partitioner = new ConsistentHashPartitioner(PARTITIONING_ATTRIBUTE, () -> localNodeId);
+                break;
+            default:
+                throw new IllegalArgumentException("Unsupported Load Balance Strategy: " + strategy);
+        }
+
+        // The queue keeps one partition per node, sorted by address, with the local node's partition taking the place of its remote partition
+        partitionNodeIds = new IdentityHashMap<>();
+        clusterPartitions = new QueuePartition[NODE_COUNT];
+        for (int i = 0; i < NODE_COUNT; i++) {
+            final NodeIdentifier nodeId = nodeIds.get(i);
+            final QueuePartition partition = Mockito.mock(QueuePartition.class);
+            Mockito.when(partition.getNodeIdentifier()).thenReturn(nodeId == localNodeId ? Optional.empty() : Optional.of(nodeId));
+            Mockito.when(partition.getSwapPartitionName()).thenReturn(nodeId == localNodeId ? "local" : nodeId.getId());
+
+            clusterPartitions[i] = partition;
+            partitionNodeIds.put(partition, nodeId);
+        }
+        localPartition = clusterPartitions[0];
+
+        // Lose a node from the middle of the cluster, so that the partitions sorted after it shift position
+        final List<QueuePartition> remainingPartitions = new ArrayList<>();
+        Collections.addAll(remainingPartitions, clusterPartitions);
+        remainingPartitions.remove(NODE_COUNT / 2);
+        reducedClusterPartitions = remainingPartitions.toArray(new QueuePartition[0]);
+
+        flowFiles = new ArrayList<>(flowFileCount);
+        for (int i = 0; i < flowFileCount; i++) {
+            final Map<String, String> attributes = BenchmarkSupport.createAttributes(0, 0);
+            attributes.put(PARTITIONING_ATTRIBUTE, "key-" + i);
+            flowFiles.add(BenchmarkSupport.createFlowFile(i, attributes, null, 0L));
+        }
+    }
+
+    @Benchmark
+    public void rebalanceAfterNodeLoss(final RebalanceCounters counters) {
+        for (final FlowFileRecord flowFile : flowFiles) {
+            final QueuePartition before = partitioner.getPartition(flowFile, clusterPartitions, localPartition);
+            final QueuePartition after = partitioner.getPartition(flowFile, reducedClusterPartitions, localPartition);
+
+            counters.flowFilesPartitioned++;
+            if (partitionNodeIds.get(before) != partitionNodeIds.get(after)) {
+                counters.flowFilesMoved++;
+            }
+        }
+    }
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class RebalanceCounters {
+        public long flowFilesPartitioned;
+        public long flowFilesMoved;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            flowFilesPartitioned = 0L;
+            flowFilesMoved = 0L;
+        }
+    }
+}
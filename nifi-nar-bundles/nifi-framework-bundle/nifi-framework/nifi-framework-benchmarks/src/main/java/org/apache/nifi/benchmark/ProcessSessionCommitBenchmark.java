@@ -0,0 +1,201 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.benchmark;
+
+import org.apache.nifi.components.state.StateManager;
+import org.apache.nifi.connectable.ConnectableType;
+import org.apache.nifi.connectable.Connection;
+import org.apache.nifi.controller.BackoffMechanism;
+import org.apache.nifi.controller.ProcessScheduler;
+import org.apache.nifi.controller.ProcessorNode;
+import org.apache.nifi.controller.queue.FlowFileQueue;
+import org.apache.nifi.controller.queue.NopConnectionEventListener;
+import org.apache.nifi.controller.queue.PollStrategy;
+import org.apache.nifi.controller.queue.StandardFlowFileQueue;
+import org.apache.nifi.controller.repository.FileSystemRepository;
+import org.apache.nifi.controller.repository.FlowFileRecord;
+import org.apache.nifi.controller.repository.FlowFileSwapManager;
+import org.apache.nifi.controller.repository.StandardCounterRepository;
+import org.apache.nifi.controller.repository.StandardProcessSession;
+import org.apache.nifi.controller.repository.StandardRepositoryContext;
+import org.apache.nifi.controller.repository.WriteAheadFlowFileRepository;
+import org.apache.nifi.controller.repository.claim.ResourceClaimManager;
+import org.apache.nifi.controller.repository.claim.StandardResourceClaimManager;
+import org.apache.nifi.controller.repository.metrics.NopPerformanceTracker;
+import org.apache.nifi.controller.repository.metrics.RingBufferEventRepository;
+import org.apache.nifi.events.EventReporter;
+import org.apache.nifi.flowfile.FlowFile;
+import org.apache.nifi.groups.ProcessGroup;
+import org.apache.nifi.processor.FlowFileFilter;
+import org.apache.nifi.processor.Processor;
+import org.apache.nifi.processor.Relationship;
+import org.apache.nifi.provenance.VolatileProvenanceRepository;
+import org.apache.nifi.util.NiFiProperties;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mockito;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * <p>
+ * Measures {@link StandardProcessSession#commit()} against a real FlowFile Repository, Content Repository, Provenance Repository, and FlowFile Event Repository,
+ * all of which are stored in a temporary directory. The directory can be changed by setting the <code>nifi.benchmark.directory</code> system property
+ * (e.g., <code>-jvmArgsAppend -Dnifi.benchmark.directory=/data/bench</code>) in order to measure a particular disk.
+ * </p>
+ *
+ * <p>
+ * Each invocation creates and writes the given number of FlowFiles in one session and commits it, as a source Processor would. A second session then
+ * takes the FlowFiles from the Connection, removes them, and commits, as a terminal Processor would, so that the repositories do not grow during the run.
+ * Running with more than one thread (e.g., <code>-t 4</code>) measures contention between concurrent commits.
+ * </p>
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 10)
+@Measurement(iterations = 5, time = 10)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ProcessSessionCommitBenchmark {
+    private static final Relationship REL_SUCCESS = new Relationship.Builder().name("success").build();
+
+    @Param({"1", "100", "1000"})
+    private int flowFileCount;
+
+    @Param({"0", "10"})
+    private int attributeCount;
+
+    @Param({"16", "1024"})
+    private int attributeSize;
+
+    @Param({"1024"})
+    private int contentSize;
+
+    private Path directory;
+    private WriteAheadFlowFileRepository flowFileRepository;
+    private FileSystemRepository contentRepository;
+    private VolatileProvenanceRepository provenanceRepository;
+    private RingBufferEventRepository flowFileEventRepository;
+    private StandardRepositoryContext repositoryContext;
+
+    private Map<String, String> attributes;
+    private byte[] content;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        directory = BenchmarkSupport.createTempDirectory("session-commit-benchmark");
+        final NiFiProperties properties = BenchmarkSupport.createProperties(directory, Collections.emptyMap());
+        final ResourceClaimManager claimManager = new StandardResourceClaimManager();
+
+        flowFileRepository = BenchmarkSupport.createFlowFileRepository(properties, claimManager);
+        contentRepository = BenchmarkSupport.createContentRepository(properties, claimManager);
+        provenanceRepository = new VolatileProvenanceRepository(properties);
+        flowFileEventRepository = new RingBufferEventRepository(5);
+
+        final ProcessorNode connectable = Mockito.mock(ProcessorNode.class);
+        final FlowFileQueue queue = new StandardFlowFileQueue("benchmark-queue", new NopConnectionEventListener(), flowFileRepository, provenanceRepository,
+            claimManager, Mockito.mock(ProcessScheduler.class), Mockito.mock(FlowFileSwapManager.class), EventReporter.NO_OP, 10_000_000, "0 sec", 0L, "0 B");
+        final Connection connection = createConnection(connectable, queue);
+
+        final ProcessGroup processGroup = Mockito.mock(ProcessGroup.class);
+        Mockito.when(processGroup.getIdentifier()).thenReturn("benchmark-group");
+
+        Mockito.when(connectable.getIdentifier()).thenReturn("benchmark-component");
+        Mockito.when(connectable.getConnectableType()).thenReturn(ConnectableType.PROCESSOR);
+        Mockito.when(connectable.getComponentType()).thenReturn("Benchmark Processor");
+        Mockito.when(connectable.getProcessor()).thenReturn(Mockito.mock(Processor.class));
+        Mockito.when(connectable.getProcessGroup()).thenReturn(processGroup);
+        Mockito.when(connectable.getBackoffMechanism()).thenReturn(BackoffMechanism.PENALIZE_FLOWFILE);
+        Mockito.when(connectable.getMaxBackoffPeriod()).thenReturn("10 mins");
+        Mockito.when(connectable.hasIncomingConnection()).thenReturn(true);
+        Mockito.when(connectable.getIncomingConnections()).thenReturn(Collections.singletonList(connection));
+        Mockito.when(connectable.getConnections()).thenReturn(Collections.singleton(connection));
+        Mockito.when(connectable.getConnections(REL_SUCCESS)).thenReturn(Collections.singleton(connection));
+
+        repositoryContext = new StandardRepositoryContext(connectable, new AtomicLong(0L), contentRepository, flowFileRepository, flowFileEventRepository,
+            new StandardCounterRepository(), provenanceRepository, Mockito.mock(StateManager.class));
+
+        attributes = BenchmarkSupport.createAttributes(attributeCount, attributeSize);
+        content = new byte[contentSize];
+    }
+
+    @SuppressWarnings("unchecked")
+    private Connection createConnection(final ProcessorNode connectable, final FlowFileQueue queue) {
+        final Connection connection = Mockito.mock(Connection.class);
+        Mockito.when(connection.getIdentifier()).thenReturn("benchmark-connection");
+        Mockito.when(connection.getFlowFileQueue()).thenReturn(queue);
+        Mockito.when(connection.getSource()).thenReturn(connectable);
+        Mockito.when(connection.getDestination()).thenReturn(connectable);
+
+        Mockito.doAnswer(invocation -> {
+            queue.putAll(invocation.getArgument(0));
+            return null;
+        }).when(connection).enqueue(ArgumentMatchers.<Collection<FlowFileRecord>>any());
+        Mockito.doAnswer(invocation -> queue.poll(invocation.getArgument(0), PollStrategy.UNPENALIZED_FLOWFILES))
+            .when(connection).poll(ArgumentMatchers.any(Set.class));
+        Mockito.doAnswer(invocation -> queue.poll((FlowFileFilter) invocation.getArgument(0), invocation.getArgument(1), PollStrategy.UNPENALIZED_FLOWFILES))
+            .when(connection).poll(ArgumentMatchers.any(FlowFileFilter.class), ArgumentMatchers.any(Set.class));
+
+        return connection;
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        flowFileRepository.close();
+        contentRepository.shutdown();
+        provenanceRepository.close();
+        flowFileEventRepository.close();
+        BenchmarkSupport.deleteRecursively(directory);
+    }
+
+    @Benchmark
+    public void createAndRemove() {
+        final StandardProcessSession createSession = new StandardProcessSession(repositoryContext, () -> false, new NopPerformanceTracker());
+        for (int i = 0; i < flowFileCount; i++) {
+            FlowFile flowFile = createSession.create();
+            flowFile = createSession.putAllAttributes(flowFile, attributes);
+            flowFile = createSession.write(flowFile, out -> out.write(content));
+            createSession.transfer(flowFile, REL_SUCCESS);
+        }
+        createSession.commit();
+
+        final StandardProcessSession removeSession = new StandardProcessSession(repositoryContext, () -> false, new NopPerformanceTracker());
+        final List<FlowFile> flowFiles = removeSession.get(flowFileCount);
+        removeSession.remove(flowFiles);
+        removeSession.commit();
+    }
+}
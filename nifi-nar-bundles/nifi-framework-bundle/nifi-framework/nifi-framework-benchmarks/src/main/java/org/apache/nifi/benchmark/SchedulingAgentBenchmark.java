@@ -0,0 +1,221 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.benchmark;
+
+import org.apache.nifi.components.state.StateManagerProvider;
+import org.apache.nifi.connectable.Connectable;
+import org.apache.nifi.connectable.ConnectableType;
+import org.apache.nifi.connectable.Connection;
+import org.apache.nifi.controller.FlowController;
+import org.apache.nifi.controller.ProcessorNode;
+import org.apache.nifi.controller.ScheduledState;
+import org.apache.nifi.controller.queue.FlowFileQueue;
+import org.apache.nifi.controller.repository.FlowFileEventRepository;
+import org.apache.nifi.controller.repository.RepositoryContext;
+import org.apache.nifi.controller.repository.StandardRepositoryContext;
+import org.apache.nifi.controller.scheduling.LifecycleState;
+import org.apache.nifi.controller.scheduling.RepositoryContextFactory;
+import org.apache.nifi.controller.scheduling.TimerDrivenSchedulingAgent;
+import org.apache.nifi.controller.scheduling.WorkAwareSchedulingAgent;
+import org.apache.nifi.controller.status.FlowFileAvailability;
+import org.apache.nifi.engine.FlowEngine;
+import org.apache.nifi.nar.ExtensionManager;
+import org.apache.nifi.processor.Processor;
+import org.apache.nifi.util.NiFiProperties;
+import org.mockito.Mockito;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+/**
+ * Compares the {@link TimerDrivenSchedulingAgent} with the {@link WorkAwareSchedulingAgent} for a flow in which many Processors are scheduled
+ * but idle, waiting for FlowFiles that never arrive, and one Processor receives FlowFiles.
+ *
+ * <ul>
+ *     <li><code>idle</code> reports, as the auxiliary counters <code>workChecks</code> and <code>cpuMillis</code>, how often the idle Processors are
+ *     checked for work and how much CPU time all threads use per second while nothing is enqueued.</li>
+ *     <li><code>enqueueToTrigger</code> measures the time from a FlowFile being enqueued until the Processor that it was enqueued for is triggered.</li>
+ * </ul>
+ */
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SchedulingAgentBenchmark {
+    private static final String TIMER_DRIVEN = "timer-driven";
+    private static final String WORK_AWARE = "work-aware";
+
+    @Param({TIMER_DRIVEN, WORK_AWARE})
+    private String agentType;
+
+    @Param({"3000"})
+    private int idleProcessors;
+
+    @Param({"10 millis"})
+    private String boredYieldDuration;
+
+    private final AtomicLong workChecks = new AtomicLong(0L);
+    private final List<LifecycleState> scheduleStates = new ArrayList<>();
+    private final AtomicBoolean flowFileQueued = new AtomicBoolean(false);
+    private final AtomicLong triggerCount = new AtomicLong(0L);
+
+    private FlowEngine flowEngine;
+    private TimerDrivenSchedulingAgent agent;
+    private ProcessorNode receivingProcessor;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        flowEngine = new FlowEngine(Runtime.getRuntime().availableProcessors(), "Scheduling Benchmark", true);
+
+        final FlowController flowController = Mockito.mock(FlowController.class);
+        when(flowController.getStateManagerProvider()).thenReturn(Mockito.mock(StateManagerProvider.class));
+        when(flowController.getExtensionManager()).thenReturn(Mockito.mock(ExtensionManager.class));
+
+        final RepositoryContext repositoryContext = Mockito.mock(StandardRepositoryContext.class);
+        when(repositoryContext.getFlowFileEventRepository()).thenReturn(Mockito.mock(FlowFileEventRepository.class));
+        final RepositoryContextFactory contextFactory = Mockito.mock(RepositoryContextFactory.class);
+        when(contextFactory.newProcessContext(any(Connectable.class), any(AtomicLong.class))).thenReturn(repositoryContext);
+
+        final Map<String, String> properties = new HashMap<>();
+        properties.put(NiFiProperties.BORED_YIELD_DURATION, boredYieldDuration);
+        final NiFiProperties nifiProperties = NiFiProperties.createBasicNiFiProperties(null, properties);
+        agent = WORK_AWARE.equals(agentType)
+            ? new WorkAwareSchedulingAgent(flowController, flowEngine, contextFactory, nifiProperties)
+            : new TimerDrivenSchedulingAgent(flowController, flowEngine, contextFactory, nifiProperties);
+
+        for (int i = 0; i < idleProcessors; i++) {
+            schedule(createProcessor("idle-" + i, () -> {
+                workChecks.incrementAndGet();
+                return FlowFileAvailability.ACTIVE_QUEUE_EMPTY;
+            }));
+        }
+
+        receivingProcessor = createProcessor("receiving", () -> flowFileQueued.get() ? FlowFileAvailability.FLOWFILE_AVAILABLE : FlowFileAvailability.ACTIVE_QUEUE_EMPTY);
+        Mockito.doAnswer(invocation -> {
+            flowFileQueued.set(false);
+            return triggerCount.incrementAndGet();
+        }).when(receivingProcessor).onTrigger(any(), any());
+        schedule(receivingProcessor);
+    }
+
+    @TearDown(Level.Trial)
+    public void teardown() {
+        for (final LifecycleState scheduleState : scheduleStates) {
+            scheduleState.setScheduled(false);
+        }
+        flowEngine.shutdownNow();
+    }
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class IdleCounters {
+        public long workChecks;
+        public long cpuMillis;
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    public void idle(final IdleCounters counters) throws InterruptedException {
+        final long startChecks = workChecks.get();
+        final long startCpuNanos = getCpuNanos();
+        Thread.sleep(100L);
+        counters.workChecks += workChecks.get() - startChecks;
+        counters.cpuMillis += TimeUnit.NANOSECONDS.toMillis(getCpuNanos() - startCpuNanos);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SampleTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public long enqueueToTrigger() {
+        final long triggersBefore = triggerCount.get();
+
+        // Enqueue a FlowFile and notify the scheduler, as a Connection does
+        flowFileQueued.set(true);
+        agent.onEvent(receivingProcessor);
+
+        while (triggerCount.get() == triggersBefore) {
+            Thread.yield();
+        }
+
+        return triggerCount.get();
+    }
+
+    private void schedule(final ProcessorNode processor) {
+        final LifecycleState scheduleState = new LifecycleState();
+        scheduleState.setScheduled(true);
+        scheduleStates.add(scheduleState);
+        agent.doSchedule(processor, scheduleState);
+    }
+
+    private ProcessorNode createProcessor(final String identifier, final Supplier<FlowFileAvailability> availability) {
+        final ProcessorNode processor = Mockito.mock(ProcessorNode.class);
+        when(processor.getIdentifier()).thenReturn(identifier);
+        when(processor.getConnectableType()).thenReturn(ConnectableType.PROCESSOR);
+        when(processor.getRunnableComponent()).thenReturn(Mockito.mock(Processor.class));
+        when(processor.getScheduledState()).thenReturn(ScheduledState.RUNNING);
+        when(processor.getMaxConcurrentTasks()).thenReturn(1);
+        when(processor.getSchedulingPeriod(any(TimeUnit.class))).thenAnswer(invocation -> ((TimeUnit) invocation.getArgument(0)).convert(1L, TimeUnit.MILLISECONDS));
+        when(processor.hasIncomingConnection()).thenReturn(true);
+
+        final FlowFileQueue queue = Mockito.mock(FlowFileQueue.class);
+        when(queue.getFlowFileAvailability()).thenAnswer(invocation -> availability.get());
+
+        final Connection connection = Mockito.mock(Connection.class);
+        when(connection.getSource()).thenReturn(Mockito.mock(ProcessorNode.class));
+        when(connection.getDestination()).thenReturn(processor);
+        when(connection.getFlowFileQueue()).thenReturn(queue);
+        when(processor.getIncomingConnections()).thenReturn(Collections.singletonList(connection));
+        return processor;
+    }
+
+    private static long getCpuNanos() {
+        final ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+        long cpuNanos = 0L;
+        for (final long threadId : threadMXBean.getAllThreadIds()) {
+            // Threads that have terminated report -1
+            cpuNanos += Math.max(0L, threadMXBean.getThreadCpuTime(threadId));
+        }
+        return cpuNanos;
+    }
+}
@@ -0,0 +1,123 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.benchmark;
+
+import org.apache.nifi.controller.queue.FlowFileQueue;
+import org.apache.nifi.controller.repository.FlowFileRecord;
+import org.apache.nifi.controller.repository.SwapContents;
+import org.apache.nifi.controller.repository.claim.ContentClaim;
+import org.apache.nifi.controller.repository.claim.ResourceClaim;
+import org.apache.nifi.controller.repository.claim.ResourceClaimManager;
+import org.apache.nifi.controller.repository.claim.StandardContentClaim;
+import org.apache.nifi.controller.repository.claim.StandardResourceClaimManager;
+import org.apache.nifi.controller.swap.ColumnarSwapDeserializer;
+import org.apache.nifi.controller.swap.ColumnarSwapSerializer;
+import org.apache.nifi.controller.swap.SchemaSwapDeserializer;
+import org.apache.nifi.controller.swap.SchemaSwapSerializer;
+import org.apache.nifi.controller.swap.SwapDeserializer;
+import org.apache.nifi.controller.swap.SwapSerializer;
+import org.mockito.Mockito;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the Schema and Columnar swap file formats by serializing and deserializing a full swap file of FlowFiles.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SwapSerializationBenchmark {
+    private static final String SWAP_LOCATION = "swap-location";
+
+    @Param({"schema", "columnar"})
+    private String format;
+
+    @Param({"10000"})
+    private int flowFileCount;
+
+    @Param({"3", "20"})
+    private int attributeCount;
+
+    private SwapSerializer serializer;
+    private SwapDeserializer deserializer;
+    private FlowFileQueue queue;
+    private ResourceClaimManager claimManager;
+    private List<FlowFileRecord> flowFiles;
+    private byte[] serialized;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        if ("schema".equals(format)) {
+            serializer = new SchemaSwapSerializer();
+            deserializer = new SchemaSwapDeserializer();
+        } else {
+            serializer = new ColumnarSwapSerializer();
+            deserializer = new ColumnarSwapDeserializer();
+        }
+
+        queue = Mockito.mock(FlowFileQueue.class);
+        Mockito.when(queue.getIdentifier()).thenReturn("benchmark-queue");
+
+        claimManager = new StandardResourceClaimManager();
+        final Map<String, String> attributes = BenchmarkSupport.createAttributes(attributeCount, 32);
+        flowFiles = new ArrayList<>(flowFileCount);
+        for (int i = 0; i < flowFileCount; i++) {
+            final ResourceClaim resourceClaim = claimManager.newResourceClaim("container", "section", String.valueOf(i / 100), false, false);
+            final ContentClaim contentClaim = new StandardContentClaim(resourceClaim, (i % 100) * 1024L);
+            attributes.put("index", String.valueOf(i));
+            flowFiles.add(BenchmarkSupport.createFlowFile(i, attributes, contentClaim, 1024L));
+        }
+
+        serialized = serialize();
+    }
+
+    @Benchmark
+    public byte[] serialize() throws IOException {
+        final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        serializer.serializeFlowFiles(flowFiles, queue, SWAP_LOCATION, baos);
+        return baos.toByteArray();
+    }
+
+    @Benchmark
+    public SwapContents deserialize() throws IOException {
+        try (final DataInputStream in = new DataInputStream(new ByteArrayInputStream(serialized))) {
+            return deserializer.deserializeFlowFiles(in, SWAP_LOCATION, queue, claimManager);
+        }
+    }
+}
@@ -0,0 +1,292 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.nifi.cluster.coordination.http.endpoints;
+
+import org.apache.nifi.cluster.coordination.http.EndpointResponseMerger;
+import org.apache.nifi.cluster.manager.NodeResponse;
+import org.apache.nifi.cluster.protocol.NodeIdentifier;
+import org.apache.nifi.provenance.ProvenanceQueryCursor;
+import org.apache.nifi.web.api.dto.provenance.ProvenanceEventDTO;
+import org.apache.nifi.web.api.dto.provenance.ProvenancePageDTO;
+import org.apache.nifi.web.api.entity.ProvenancePageEntity;
+
+import java.io.UnsupportedEncodingException;
+import java.net.URI;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * <p>
+ * Merges the pages of provenance query results that are returned by each node in the cluster. Each node returns only a single page of its
+ * own results, newest first, so the merged page is produced by lazily interleaving the nodes' pages rather than by gathering and sorting every
+ * node's complete result set.
+ * </p>
+ *
+ * <p>
+ * The continuation token that is returned to the client records a continuation token for each node, so that each node resumes immediately after
+ * the last of its events that made it into the merged page. Events that a node returned but that did not make it into the merged page are
+ * simply returned again by that node for the next page.
+ * </p>
+ */
+public class ProvenancePageEndpointMerger implements EndpointResponseMerger {
+    public static final String PROVENANCE_PAGE_URI = "/nifi-api/provenance/page";
+    public static final String CONTINUATION_TOKEN_PARAM = "continuationToken";
+    public static final String PAGE_SIZE_PARAM = "pageSize";
+    public static final int DEFAULT_PAGE_SIZE = 100;
+
+    /**
+     * The node continuation token that indicates that a node has no more results
+     */
+    public static final String EXHAUSTED = "";
+
+    private static final Comparator<ProvenanceEventDTO> NEWEST_FIRST = Comparator.comparing(ProvenanceEventDTO::getEventTime).reversed()
+        .thenComparing(ProvenanceEventDTO::getClusterNodeId, Comparator.nullsLast(Comparator.<String>reverseOrder()))
+        .thenComparing(ProvenanceEventDTO::getEventId, Comparator.<Long>reverseOrder());
+
+    @Override
+    public boolean canHandle(final URI uri, final String method) {
+        return "POST".equalsIgnoreCase(method) && PROVENANCE_PAGE_URI.equals(uri.getPath());
+    }
+
+    @Override
+    public NodeResponse merge(final URI uri, final String method, final Set<NodeResponse> successfulResponses, final Set<NodeResponse> problematicResponses,
+                              final NodeResponse clientResponse) {
+        if (!canHandle(uri, method)) {
+            throw new IllegalArgumentException("Cannot use Endpoint Mapper of type " + getClass().getSimpleName() + " to map responses for URI " + uri + ", HTTP Method " + method);
+        }
+
+        final ProvenancePageEntity responseEntity = clientResponse.getClientResponse().readEntity(ProvenancePageEntity.class);
+
+        final Map<NodeIdentifier, ProvenancePageDTO> dtoMap = new HashMap<>();
+        for (final NodeResponse nodeResponse : successfulResponses) {
+            final ProvenancePageEntity nodeResponseEntity = nodeResponse == clientResponse ? responseEntity : nodeResponse.getClientResponse().readEntity(ProvenancePageEntity.class);
+            dtoMap.put(nodeResponse.getNodeId(), nodeResponseEntity.getPage());
+        }
+
+        final Map<String, String> queryParameters = getQueryParameters(uri);
+        final String pageSizeValue = queryParameters.get(PAGE_SIZE_PARAM);
+        final int pageSize = pageSizeValue == null ? DEFAULT_PAGE_SIZE : Integer.parseInt(pageSizeValue);
+        final Map<String, String> nodeTokens = decodeContinuationToken(queryParameters.get(CONTINUATION_TOKEN_PARAM));
+
+        mergeResponses(responseEntity.getPage(), dtoMap, nodeTokens, pageSize, problematicResponses);
+        return new NodeResponse(clientResponse, responseEntity);
+    }
+
+    protected void mergeResponses(final ProvenancePageDTO clientDto, final Map<NodeIdentifier, ProvenancePageDTO> dtoMap, final Map<String, String> nodeTokens,
+                                  final int pageSize, final Set<NodeResponse> problematicResponses) {
+        final Set<String> errors = new HashSet<>();
+        final PriorityQueue<NodeCursor> cursors = new PriorityQueue<>(Math.max(1, dtoMap.size()), Comparator.comparing(NodeCursor::peek, NEWEST_FIRST));
+        final List<NodeCursor> allCursors = new ArrayList<>(dtoMap.size());
+
+        for (final Map.Entry<NodeIdentifier, ProvenancePageDTO> entry : dtoMap.entrySet()) {
+            final NodeIdentifier nodeIdentifier = entry.getKey();
+            final String nodeAddress = nodeIdentifier.getApiAddress() + ":" + nodeIdentifier.getApiPort();
+            final ProvenancePageDTO nodeDto = entry.getValue();
+
+            final List<ProvenanceEventDTO> nodeEvents = nodeDto.getProvenanceEvents() == null ? new ArrayList<>() : nodeDto.getProvenanceEvents();
+            for (final ProvenanceEventDTO eventDto : nodeEvents) {
+                // Populate the cluster identifiers unless they were already populated by the Cluster Coordinator that federated the request
+                if (eventDto.getClusterNodeId() == null || eventDto.getClusterNodeAddress() == null) {
+                    eventDto.setClusterNodeId(nodeIdentifier.getId());
+                    eventDto.setClusterNodeAddress(nodeAddress);
+                    // add node identifier to the event's id so that it is unique across cluster
+                    eventDto.setId(nodeIdentifier.getId() + eventDto.getId());
+                }
+            }
+
+            if (nodeDto.getErrors() != null) {
+                for (final String error : nodeDto.getErrors()) {
+                    errors.add(nodeAddress + " -- " + error);
+                }
+            }
+
+            final NodeCursor cursor = new NodeCursor(nodeIdentifier.getId(), nodeEvents, nodeDto.getContinuationToken(), nodeTokens.get(nodeIdentifier.getId()));
+            allCursors.add(cursor);
+            if (cursor.hasNext()) {
+                cursors.add(cursor);
+            }
+        }
+
+        final List<ProvenanceEventDTO> selectedResults = new ArrayList<>(pageSize);
+        while (selectedResults.size() < pageSize && !cursors.isEmpty()) {
+            final NodeCursor cursor = cursors.poll();
+            selectedResults.add(cursor.next());
+            if (cursor.hasNext()) {
+                cursors.add(cursor);
+            }
+        }
+
+        // Nodes that could not be reached are asked again for the same page the next time
+        final Map<String, String> nextTokens = new HashMap<>(nodeTokens);
+        for (final NodeResponse problematicResponse : problematicResponses) {
+            final NodeIdentifier problemNode = problematicResponse.getNodeId();
+            final String problemNodeAddress = problemNode.getApiAddress() + ":" + problemNode.getApiPort();
+            errors.add(String.format("%s -- Request did not complete successfully (Status code: %s)", problemNodeAddress, problematicResponse.getStatus()));
+        }
+
+        for (final NodeCursor cursor : allCursors) {
+            final String nextToken = cursor.getNextToken();
+            if (nextToken == null) {
+                nextTokens.remove(cursor.getNodeId());
+            } else {
+                nextTokens.put(cursor.getNodeId(), nextToken);
+            }
+        }
+
+        if (!errors.isEmpty()) {
+            clientDto.setErrors(errors);
+        }
+
+        clientDto.setProvenanceEvents(selectedResults);
+        clientDto.setContinuationToken(encodeContinuationToken(nextTokens));
+    }
+
+    /**
+     * Determines the continuation token that a node should use in order to retrieve its portion of the next page of the cluster's results
+     *
+     * @param clusterContinuationToken the continuation token that was returned to the client by the Cluster Coordinator, or <code>null</code> for the first page
+     * @param nodeId the ID of the node
+     * @return the node's continuation token, {@link #EXHAUSTED} if the node has no more results, or <code>null</code> if the node should return its first page
+     * @throws IllegalArgumentException if the continuation token is not valid
+     */
+    public static String getNodeContinuationToken(final String clusterContinuationToken, final String nodeId) {
+        return decodeContinuationToken(clusterContinuationToken).get(nodeId);
+    }
+
+    static String encodeContinuationToken(final Map<String, String> nodeTokens) {
+        if (nodeTokens.isEmpty() || nodeTokens.values().stream().allMatch(EXHAUSTED::equals)) {
+            return null;
+        }
+
+        final StringBuilder sb = new StringBuilder();
+        for (final Map.Entry<String, String> entry : new TreeMap<>(nodeTokens).entrySet()) {
+            if (sb.length() > 0) {
+                sb.append(',');
+            }
+            sb.append(entry.getKey()).append('=').append(entry.getValue());
+        }
+
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(sb.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    static Map<String, String> decodeContinuationToken(final String continuationToken) {
+        final Map<String, String> nodeTokens = new HashMap<>();
+        if (continuationToken == null || continuationToken.isEmpty()) {
+            return nodeTokens;
+        }
+
+        final String decoded;
+        try {
+            decoded = new String(Base64.getUrlDecoder().decode(continuationToken), StandardCharsets.UTF_8);
+        } catch (final IllegalArgumentException iae) {
+            throw new IllegalArgumentException("Invalid Provenance query continuation token: " + continuationToken);
+        }
+
+        for (final String nodeToken : decoded.split(",")) {
+            final int separatorIndex = nodeToken.indexOf('=');
+            if (separatorIndex < 1) {
+                throw new IllegalArgumentException("Invalid Provenance query continuation token: " + continuationToken);
+            }
+
+            nodeTokens.put(nodeToken.substring(0, separatorIndex), nodeToken.substring(separatorIndex + 1));
+        }
+
+        return nodeTokens;
+    }
+
+    private static Map<String, String> getQueryParameters(final URI uri) {
+        final Map<String, String> parameters = new HashMap<>();
+        final String query = uri.getRawQuery();
+        if (query == null) {
+            return parameters;
+        }
+
+        try {
+            for (final String parameter : query.split("&")) {
+                final int separatorIndex = parameter.indexOf('=');
+                if (separatorIndex > 0) {
+                    parameters.put(URLDecoder.decode(parameter.substring(0, separatorIndex), "UTF-8"), URLDecoder.decode(parameter.substring(separatorIndex + 1), "UTF-8"));
+                }
+            }
+        } catch (final UnsupportedEncodingException uee) {
+            throw new IllegalStateException(uee);
+        }
+
+        return parameters;
+    }
+
+    private static class NodeCursor {
+        private final String nodeId;
+        private final List<ProvenanceEventDTO> events;
+        private final String pageContinuationToken;
+        private final String requestContinuationToken;
+        private int consumed = 0;
+
+        NodeCursor(final String nodeId, final List<ProvenanceEventDTO> events, final String pageContinuationToken, final String requestContinuationToken) {
+            this.nodeId = nodeId;
+            this.events = events;
+            this.pageContinuationToken = pageContinuationToken;
+            this.requestContinuationToken = requestContinuationToken;
+        }
+
+        String getNodeId() {
+            return nodeId;
+        }
+
+        boolean hasNext() {
+            return consumed < events.size();
+        }
+
+        ProvenanceEventDTO peek() {
+            return events.get(consumed);
+        }
+
+        ProvenanceEventDTO next() {
+            return events.get(consumed++);
+        }
+
+        /**
+         * @return the token that the node should be given for the next page, or <code>null</code> if the node should be asked for its first page
+         */
+        String getNextToken() {
+            if (consumed == 0 && hasNext()) {
+                // None of the node's events were used, so it must provide the same events again
+                return requestContinuationToken;
+            }
+
+            if (!hasNext()) {
+                // All of the node's events were used, so continue wherever the node indicated
+                return pageContinuationToken == null ? EXHAUSTED : pageContinuationToken;
+            }
+
+            // Continue immediately after the last of the node's events that was used
+            final ProvenanceEventDTO lastUsed = events.get(consumed - 1);
+            return new ProvenanceQueryCursor(lastUsed.getEventTime().getTime(), lastUsed.getEventId()).toToken();
+        }
+    }
+}
@@ -0,0 +1,157 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.nifi.cluster.coordination.http.endpoints;
+
+import org.apache.nifi.cluster.manager.NodeResponse;
+import org.apache.nifi.cluster.protocol.NodeIdentifier;
+import org.apache.nifi.web.api.dto.provenance.ProvenanceRollupDTO;
+import org.apache.nifi.web.api.dto.provenance.ProvenanceRollupsDTO;
+import org.apache.nifi.web.api.entity.ProvenanceRollupsEntity;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Merges the rollups of provenance events that are returned by each node in the cluster by summing the counts of the rollups that are for
+ * the same time bucket, component, event type, and destination.
+ */
+public class ProvenanceRollupsEndpointMerger extends AbstractSingleDTOEndpoint<ProvenanceRollupsEntity, ProvenanceRollupsDTO> {
+    public static final String PROVENANCE_ROLLUPS_URI = "/nifi-api/provenance/rollups";
+
+    private static final Comparator<ProvenanceRollupDTO> ROLLUP_ORDER = Comparator.comparing(ProvenanceRollupDTO::getBucketStart)
+        .thenComparing(ProvenanceRollupDTO::getComponentId, Comparator.nullsFirst(Comparator.naturalOrder()))
+        .thenComparing(ProvenanceRollupDTO::getEventType, Comparator.nullsFirst(Comparator.naturalOrder()))
+        .thenComparing(ProvenanceRollupDTO::getDestination, Comparator.nullsFirst(Comparator.naturalOrder()));
+
+    @Override
+    public boolean canHandle(final URI uri, final String method) {
+        return "GET".equalsIgnoreCase(method) && PROVENANCE_ROLLUPS_URI.equals(uri.getPath());
+    }
+
+    @Override
+    protected Class<ProvenanceRollupsEntity> getEntityClass() {
+        return ProvenanceRollupsEntity.class;
+    }
+
+    @Override
+    protected ProvenanceRollupsDTO getDto(final ProvenanceRollupsEntity entity) {
+        return entity.getRollups();
+    }
+
+    @Override
+    protected void mergeResponses(final ProvenanceRollupsDTO clientDto, final Map<NodeIdentifier, ProvenanceRollupsDTO> dtoMap,
+                                  final Set<NodeResponse> successfulResponses, final Set<NodeResponse> problematicResponses) {
+        final Set<String> errors = new HashSet<>();
+        final Map<RollupKey, ProvenanceRollupDTO> mergedRollups = new LinkedHashMap<>();
+
+        for (final Map.Entry<NodeIdentifier, ProvenanceRollupsDTO> entry : dtoMap.entrySet()) {
+            final NodeIdentifier nodeIdentifier = entry.getKey();
+            final String nodeAddress = nodeIdentifier.getApiAddress() + ":" + nodeIdentifier.getApiPort();
+            final ProvenanceRollupsDTO nodeDto = entry.getValue();
+
+            if (nodeDto.getRollups() != null) {
+                for (final ProvenanceRollupDTO nodeRollup : nodeDto.getRollups()) {
+                    final RollupKey key = new RollupKey(nodeRollup);
+                    final ProvenanceRollupDTO mergedRollup = mergedRollups.get(key);
+                    if (mergedRollup == null) {
+                        mergedRollups.put(key, copy(nodeRollup));
+                    } else {
+                        mergedRollup.setEventCount(sum(mergedRollup.getEventCount(), nodeRollup.getEventCount()));
+                        mergedRollup.setByteCount(sum(mergedRollup.getByteCount(), nodeRollup.getByteCount()));
+                    }
+                }
+            }
+
+            if (nodeDto.getErrors() != null) {
+                for (final String error : nodeDto.getErrors()) {
+                    errors.add(nodeAddress + " -- " + error);
+                }
+            }
+        }
+
+        for (final NodeResponse problematicResponse : problematicResponses) {
+            final NodeIdentifier problemNode = problematicResponse.getNodeId();
+            final String problemNodeAddress = problemNode.getApiAddress() + ":" + problemNode.getApiPort();
+            errors.add(String.format("%s -- Request did not complete successfully (Status code: %s)", problemNodeAddress, problematicResponse.getStatus()));
+        }
+
+        final List<ProvenanceRollupDTO> rollups = new ArrayList<>(mergedRollups.values());
+        rollups.sort(ROLLUP_ORDER);
+        clientDto.setRollups(rollups);
+
+        if (!errors.isEmpty()) {
+            clientDto.setErrors(errors);
+        }
+    }
+
+    private static long sum(final Long a, final Long b) {
+        return (a == null ? 0L : a) + (b == null ? 0L : b);
+    }
+
+    private static ProvenanceRollupDTO copy(final ProvenanceRollupDTO rollup) {
+        final ProvenanceRollupDTO copy = new ProvenanceRollupDTO();
+        copy.setBucketStart(rollup.getBucketStart());
+        copy.setComponentId(rollup.getComponentId());
+        copy.setComponentType(rollup.getComponentType());
+        copy.setEventType(rollup.getEventType());
+        copy.setDestination(rollup.getDestination());
+        copy.setEventCount(rollup.getEventCount());
+        copy.setByteCount(rollup.getByteCount());
+        return copy;
+    }
+
+    private static class RollupKey {
+        private final long bucketStart;
+        private final String componentId;
+        private final String eventType;
+        private final String destination;
+
+        private RollupKey(final ProvenanceRollupDTO rollup) {
+            this.bucketStart = rollup.getBucketStart() == null ? 0L : rollup.getBucketStart().getTime();
+            this.componentId = rollup.getComponentId();
+            this.eventType = rollup.getEventType();
+            this.destination = rollup.getDestination();
+        }
+
+        @Override
+        public boolean equals(final Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof RollupKey)) {
+                return false;
+            }
+
+            final RollupKey other = (RollupKey) obj;
+            return bucketStart == other.bucketStart && Objects.equals(componentId, other.componentId) && Objects.equals(eventType, other.eventType)
+                && Objects.equals(destination, other.destination);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(bucketStart, componentId, eventType, destination);
+        }
+    }
+}
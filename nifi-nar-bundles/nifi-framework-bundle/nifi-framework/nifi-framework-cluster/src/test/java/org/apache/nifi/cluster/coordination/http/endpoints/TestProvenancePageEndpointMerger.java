@@ -0,0 +1,155 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.cluster.coordination.http.endpoints;
+
+import org.apache.nifi.cluster.manager.NodeResponse;
+import org.apache.nifi.cluster.protocol.NodeIdentifier;
+import org.apache.nifi.web.api.dto.provenance.ProvenanceEventDTO;
+import org.apache.nifi.web.api.dto.provenance.ProvenancePageDTO;
+import org.junit.jupiter.api.Test;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class TestProvenancePageEndpointMerger {
+    private final NodeIdentifier node1 = new NodeIdentifier("node-1", "localhost", 9000, "localhost", 9001, "localhost", 9002, 9003, false);
+    private final NodeIdentifier node2 = new NodeIdentifier("node-2", "localhost", 8000, "localhost", 8001, "localhost", 8002, 8003, false);
+
+    @Test
+    public void testCanHandle() {
+        final ProvenancePageEndpointMerger merger = new ProvenancePageEndpointMerger();
+        assertTrue(merger.canHandle(URI.create("http://localhost:8080/nifi-api/provenance/page"), "POST"));
+        assertTrue(merger.canHandle(URI.create("http://localhost:8080/nifi-api/provenance/page?pageSize=10"), "POST"));
+        assertFalse(merger.canHandle(URI.create("http://localhost:8080/nifi-api/provenance/page"), "GET"));
+        assertFalse(merger.canHandle(URI.create("http://localhost:8080/nifi-api/provenance"), "POST"));
+        assertFalse(merger.canHandle(URI.create("http://localhost:8080/nifi-api/provenance/page/1234"), "POST"));
+    }
+
+    @Test
+    public void testMergeInterleavesNodePages() {
+        final ProvenancePageEndpointMerger merger = new ProvenancePageEndpointMerger();
+
+        // node-1 has events at times 10, 8, 6 and more beyond; node-2 has events at times 9, 7 and no more
+        final Map<NodeIdentifier, ProvenancePageDTO> dtoMap = new HashMap<>();
+        dtoMap.put(node1, createPage("6:18", event(20L, 10L), event(19L, 8L), event(18L, 6L)));
+        dtoMap.put(node2, createPage(null, event(5L, 9L), event(4L, 7L)));
+
+        final ProvenancePageDTO clientDto = new ProvenancePageDTO();
+        merger.mergeResponses(clientDto, dtoMap, Collections.emptyMap(), 3, Collections.emptySet());
+
+        final List<Long> eventTimes = clientDto.getProvenanceEvents().stream().map(event -> event.getEventTime().getTime()).collect(Collectors.toList());
+        assertEquals(3, eventTimes.size());
+        assertEquals(10L, eventTimes.get(0).longValue());
+        assertEquals(9L, eventTimes.get(1).longValue());
+        assertEquals(8L, eventTimes.get(2).longValue());
+        assertEquals("node-1", clientDto.getProvenanceEvents().get(0).getClusterNodeId());
+
+        // node-1 must resume after event 19 at time 8, the last of its events that was used; node-2 must resume after event 5 at time 9
+        assertEquals("8:19", ProvenancePageEndpointMerger.getNodeContinuationToken(clientDto.getContinuationToken(), "node-1"));
+        assertEquals("9:5", ProvenancePageEndpointMerger.getNodeContinuationToken(clientDto.getContinuationToken(), "node-2"));
+    }
+
+    @Test
+    public void testMergeExhaustedNodes() {
+        final ProvenancePageEndpointMerger merger = new ProvenancePageEndpointMerger();
+
+        final Map<String, String> requestTokens = new HashMap<>();
+        requestTokens.put("node-1", "8:19");
+        requestTokens.put("node-2", ProvenancePageEndpointMerger.EXHAUSTED);
+
+        final Map<NodeIdentifier, ProvenancePageDTO> dtoMap = new HashMap<>();
+        dtoMap.put(node1, createPage("6:18", event(18L, 6L)));
+        dtoMap.put(node2, createPage(null));
+
+        final ProvenancePageDTO clientDto = new ProvenancePageDTO();
+        merger.mergeResponses(clientDto, dtoMap, requestTokens, 3, Collections.emptySet());
+        assertEquals(1, clientDto.getProvenanceEvents().size());
+        assertEquals("6:18", ProvenancePageEndpointMerger.getNodeContinuationToken(clientDto.getContinuationToken(), "node-1"));
+        assertEquals(ProvenancePageEndpointMerger.EXHAUSTED, ProvenancePageEndpointMerger.getNodeContinuationToken(clientDto.getContinuationToken(), "node-2"));
+
+        // Once every node is exhausted, there is no continuation token
+        requestTokens.put("node-1", "6:18");
+        dtoMap.put(node1, createPage(null, event(16L, 5L)));
+        dtoMap.put(node2, createPage(null));
+
+        final ProvenancePageDTO lastDto = new ProvenancePageDTO();
+        merger.mergeResponses(lastDto, dtoMap, requestTokens, 3, Collections.emptySet());
+        assertEquals(1, lastDto.getProvenanceEvents().size());
+        assertNull(lastDto.getContinuationToken());
+    }
+
+    @Test
+    public void testMergeProblematicNode() {
+        final ProvenancePageEndpointMerger merger = new ProvenancePageEndpointMerger();
+
+        final Map<String, String> requestTokens = new HashMap<>();
+        requestTokens.put("node-1", "8:19");
+        requestTokens.put("node-2", "9:5");
+
+        final Map<NodeIdentifier, ProvenancePageDTO> dtoMap = new HashMap<>();
+        dtoMap.put(node1, createPage("4:17", event(18L, 6L), event(17L, 4L)));
+
+        final URI uri = URI.create("http://localhost:8080/nifi-api/provenance/page");
+        final NodeResponse problematicResponse = new NodeResponse(node2, "POST", uri, new RuntimeException("Intentional Unit Test Exception"));
+
+        final ProvenancePageDTO clientDto = new ProvenancePageDTO();
+        merger.mergeResponses(clientDto, dtoMap, requestTokens, 3, Collections.singleton(problematicResponse));
+        assertEquals(2, clientDto.getProvenanceEvents().size());
+        assertEquals(1, clientDto.getErrors().size());
+        assertTrue(clientDto.getErrors().iterator().next().startsWith("localhost:8000 -- "));
+
+        // The node that could not be reached is asked for the same page again
+        assertEquals("4:17", ProvenancePageEndpointMerger.getNodeContinuationToken(clientDto.getContinuationToken(), "node-1"));
+        assertEquals("9:5", ProvenancePageEndpointMerger.getNodeContinuationToken(clientDto.getContinuationToken(), "node-2"));
+    }
+
+    @Test
+    public void testInvalidContinuationToken() {
+        assertNull(ProvenancePageEndpointMerger.getNodeContinuationToken(null, "node-1"));
+        assertThrows(IllegalArgumentException.class, () -> ProvenancePageEndpointMerger.getNodeContinuationToken("!!!", "node-1"));
+    }
+
+    private ProvenancePageDTO createPage(final String continuationToken, final ProvenanceEventDTO... events) {
+        final List<ProvenanceEventDTO> eventList = new ArrayList<>();
+        Collections.addAll(eventList, events);
+
+        final ProvenancePageDTO page = new ProvenancePageDTO();
+        page.setProvenanceEvents(eventList);
+        page.setContinuationToken(continuationToken);
+        return page;
+    }
+
+    private ProvenanceEventDTO event(final long eventId, final long eventTime) {
+        final ProvenanceEventDTO event = new ProvenanceEventDTO();
+        event.setId(String.valueOf(eventId));
+        event.setEventId(eventId);
+        event.setEventTime(new Date(eventTime));
+        return event;
+    }
+}
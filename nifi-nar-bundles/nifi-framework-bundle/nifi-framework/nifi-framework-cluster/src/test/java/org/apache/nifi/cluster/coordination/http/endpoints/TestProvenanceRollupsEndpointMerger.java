@@ -0,0 +1,97 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.cluster.coordination.http.endpoints;
+
+import org.apache.nifi.cluster.protocol.NodeIdentifier;
+import org.apache.nifi.web.api.dto.provenance.ProvenanceRollupDTO;
+import org.apache.nifi.web.api.dto.provenance.ProvenanceRollupsDTO;
+import org.junit.jupiter.api.Test;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class TestProvenanceRollupsEndpointMerger {
+    private final NodeIdentifier node1 = new NodeIdentifier("node-1", "localhost", 9000, "localhost", 9001, "localhost", 9002, 9003, false);
+    private final NodeIdentifier node2 = new NodeIdentifier("node-2", "localhost", 8000, "localhost", 8001, "localhost", 8002, 8003, false);
+
+    @Test
+    public void testCanHandle() {
+        final ProvenanceRollupsEndpointMerger merger = new ProvenanceRollupsEndpointMerger();
+        assertTrue(merger.canHandle(URI.create("http://localhost:8080/nifi-api/provenance/rollups?granularity=HOUR"), "GET"));
+        assertFalse(merger.canHandle(URI.create("http://localhost:8080/nifi-api/provenance/rollups"), "POST"));
+        assertFalse(merger.canHandle(URI.create("http://localhost:8080/nifi-api/provenance/page"), "GET"));
+    }
+
+    @Test
+    public void testMergeSumsMatchingRollups() {
+        final ProvenanceRollupsEndpointMerger merger = new ProvenanceRollupsEndpointMerger();
+
+        final Map<NodeIdentifier, ProvenanceRollupsDTO> dtoMap = new HashMap<>();
+        dtoMap.put(node1, createRollups(rollup(60_000L, "1", "SEND", "sftp://host", 2L, 200L), rollup(0L, "1", "SEND", "sftp://host", 1L, 100L)));
+        dtoMap.put(node2, createRollups(rollup(60_000L, "1", "SEND", "sftp://host", 3L, 300L), rollup(60_000L, "1", "SEND", "https://host", 1L, 10L)));
+
+        final ProvenanceRollupsDTO clientDto = new ProvenanceRollupsDTO();
+        merger.mergeResponses(clientDto, dtoMap, Collections.emptySet(), Collections.emptySet());
+
+        final List<ProvenanceRollupDTO> rollups = clientDto.getRollups();
+        assertEquals(3, rollups.size());
+
+        assertEquals(0L, rollups.get(0).getBucketStart().getTime());
+        assertEquals(1L, rollups.get(0).getEventCount().longValue());
+
+        assertEquals("https://host", rollups.get(1).getDestination());
+        assertEquals(1L, rollups.get(1).getEventCount().longValue());
+
+        assertEquals("sftp://host", rollups.get(2).getDestination());
+        assertEquals(60_000L, rollups.get(2).getBucketStart().getTime());
+        assertEquals(5L, rollups.get(2).getEventCount().longValue());
+        assertEquals(500L, rollups.get(2).getByteCount().longValue());
+        assertNull(clientDto.getErrors());
+    }
+
+    private ProvenanceRollupsDTO createRollups(final ProvenanceRollupDTO... rollups) {
+        final List<ProvenanceRollupDTO> rollupList = new ArrayList<>();
+        Collections.addAll(rollupList, rollups);
+
+        final ProvenanceRollupsDTO dto = new ProvenanceRollupsDTO();
+        dto.setGranularity("MINUTE");
+        dto.setRollups(rollupList);
+        return dto;
+    }
+
+    private ProvenanceRollupDTO rollup(final long bucketStart, final String componentId, final String eventType, final String destination, final long eventCount,
+                                       final long byteCount) {
+        final ProvenanceRollupDTO rollup = new ProvenanceRollupDTO();
+        rollup.setBucketStart(new Date(bucketStart));
+        rollup.setComponentId(componentId);
+        rollup.setEventType(eventType);
+        rollup.setDestination(destination);
+        rollup.setEventCount(eventCount);
+        rollup.setByteCount(byteCount);
+        return rollup;
+    }
+}
@@ -148,8 +148,9 @@ public final class StandardConnection implements Connection, ConnectionEventList
 
     @Override
     public void triggerDestinationEvent() {
-        if (getDestination().getSchedulingStrategy() == SchedulingStrategy.EVENT_DRIVEN) {
-            scheduler.registerEvent(getDestination());
+        final Connectable destination = getDestination();
+        if (scheduler.isEventNotificationRequired(destination.getSchedulingStrategy())) {
+            scheduler.registerEvent(destination);
         }
     }
 
@@ -75,9 +75,12 @@ import java.io.BufferedOutputStream;
 import java.io.ByteArrayInputStream;
 import java.io.Closeable;
 import java.io.EOFException;
+import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.ArrayList;
@@ -127,6 +130,8 @@ public class StandardProcessSession implements ProcessSession, ProvenanceEventEn
     private static final Logger LOG = LoggerFactory.getLogger(StandardProcessSession.class);
     private static final Logger claimLog = LoggerFactory.getLogger(StandardProcessSession.class.getSimpleName() + ".claims");
     private static final int MAX_ROLLBACK_FLOWFILES_TO_LOG = 5;
+    // Content exported to a channel is transferred in chunks of this size so that task termination is checked between chunks
+    private static final long CHANNEL_EXPORT_CHUNK_SIZE = 1024 * 1024;
 
     private final Map<Long, StandardRepositoryRecord> records = new ConcurrentHashMap<>();
     private final Map<String, StandardFlowFileEvent> connectionCounts = new ConcurrentHashMap<>();
@@ -3628,6 +3633,16 @@ public class StandardProcessSession implements ProcessSession, ProvenanceEventEn
     @Override
     public void exportTo(FlowFile source, final OutputStream destination) {
         verifyTaskActive();
+
+        // When writing to a file, transfer the content directly to the file's channel rather than copying it through the JVM
+        if (destination instanceof FileOutputStream) {
+            final FileChannel destinationChannel = ((FileOutputStream) destination).getChannel();
+            if (destinationChannel != null) {
+                exportTo(source, destinationChannel);
+                return;
+            }
+        }
+
         source = validateRecordState(source);
         final StandardRepositoryRecord record = getRecord(source);
 
@@ -3679,6 +3694,52 @@ public class StandardProcessSession implements ProcessSession, ProvenanceEventEn
         }
     }
 
+    @Override
+    public void exportTo(FlowFile source, final WritableByteChannel destination) {
+        verifyTaskActive();
+        source = validateRecordState(source);
+        final StandardRepositoryRecord record = getRecord(source);
+
+        if (record.getCurrentClaim() == null) {
+            return;
+        }
+
+        try {
+            ensureNotAppending(record.getCurrentClaim());
+            claimCache.flush(record.getCurrentClaim());
+        } catch (final IOException e) {
+            throw new FlowFileAccessException("Failed to access ContentClaim for " + source.toString(), e);
+        }
+
+        final ContentClaim claim = record.getCurrentClaim();
+        final long size = source.getSize();
+        long copied = 0L;
+
+        // Hold a read on the FlowFile, as the stream-based export does, so that it cannot be removed or modified while its content is being exported
+        incrementReadCount(source);
+        try {
+            while (copied < size) {
+                // Check between chunks, since the transfer does not pass through a TaskTerminationOutputStream
+                verifyTaskActive();
+
+                final long chunkSize = Math.min(CHANNEL_EXPORT_CHUNK_SIZE, size - copied);
+                final long chunkCopied = context.getContentRepository().exportTo(claim, destination, record.getCurrentClaimOffset() + copied, chunkSize);
+                copied += chunkCopied;
+
+                if (chunkCopied < chunkSize) {
+                    throw new EOFException("Expected to export " + size + " bytes of " + source + " but only " + copied + " bytes were available");
+                }
+            }
+        } catch (final ContentNotFoundException nfe) {
+            handleContentNotFound(nfe, record);
+        } catch (final IOException ioe) {
+            throw new ProcessException("IOException thrown from " + connectableDescription + ": " + ioe.toString(), ioe);
+        } finally {
+            decrementReadCount(source);
+            bytesRead += copied;
+        }
+    }
+
     private void handleContentNotFound(final ContentNotFoundException nfe, final Collection<StandardRepositoryRecord> suspectRecords) {
         for (final StandardRepositoryRecord record : suspectRecords) {
             handleContentNotFound(nfe, record);
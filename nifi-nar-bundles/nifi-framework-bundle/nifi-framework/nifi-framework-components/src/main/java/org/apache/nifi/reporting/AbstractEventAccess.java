@@ -660,6 +660,7 @@ public abstract class AbstractEventAccess implements EventAccess {
         status.setExecutionNode(procNode.getExecutionNode());
         status.setTerminatedThreadCount(procNode.getTerminatedThreadCount());
         status.setActiveThreadCount(procNode.getActiveThreadCount());
+        status.setRunDurationMillis(procNode.getEffectiveRunDuration(TimeUnit.MILLISECONDS));
 
         return status;
     }
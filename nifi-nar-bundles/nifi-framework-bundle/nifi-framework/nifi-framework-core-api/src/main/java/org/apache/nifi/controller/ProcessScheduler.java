@@ -203,6 +203,15 @@ public interface ProcessScheduler {
      */
     void registerEvent(Connectable worker);
 
+    /**
+     * Indicates whether or not the components that use the given {@link SchedulingStrategy} need to be notified, via
+     * {@link #registerEvent(Connectable)}, when FlowFiles are enqueued into their incoming connections
+     *
+     * @param schedulingStrategy scheduling strategy
+     * @return <code>true</code> if such components need to be notified, <code>false</code> otherwise
+     */
+    boolean isEventNotificationRequired(SchedulingStrategy schedulingStrategy);
+
     /**
      * Notifies the ProcessScheduler of how many threads are available to use
      * for the given {@link SchedulingStrategy}
@@ -51,6 +51,7 @@ public abstract class ProcessorNode extends AbstractComponentNode implements Con
     public static final String DEFAULT_MAX_BACKOFF_PERIOD = "10 mins";
 
     protected final AtomicReference<ScheduledState> scheduledState;
+    private volatile long tunedRunDurationNanos = -1L;
 
     public ProcessorNode(final String id,
                          final ValidationContextFactory validationContextFactory, final ControllerServiceProvider serviceProvider,
@@ -73,6 +74,34 @@ public abstract class ProcessorNode extends AbstractComponentNode implements Con
 
     public abstract boolean isTriggeredSerially();
 
+    /**
+     * @param timeUnit the unit of the returned duration
+     * @return the run duration that the framework has chosen for this Processor, or <code>-1</code> if the framework is not tuning its run duration
+     */
+    public long getTunedRunDuration(final TimeUnit timeUnit) {
+        final long nanos = tunedRunDurationNanos;
+        return nanos < 0L ? -1L : timeUnit.convert(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Sets the run duration that the framework has chosen for this Processor, which takes precedence over the configured run duration
+     *
+     * @param duration the run duration, or <code>-1</code> to use the configured run duration
+     * @param timeUnit the unit of the duration
+     */
+    public void setTunedRunDuration(final long duration, final TimeUnit timeUnit) {
+        this.tunedRunDurationNanos = duration < 0L ? -1L : timeUnit.toNanos(duration);
+    }
+
+    /**
+     * @param timeUnit the unit of the returned duration
+     * @return the run duration that the Processor is currently using, which is the tuned run duration if the framework is tuning it, or else the configured run duration
+     */
+    public long getEffectiveRunDuration(final TimeUnit timeUnit) {
+        final long tuned = getTunedRunDuration(timeUnit);
+        return tuned < 0L ? getRunDuration(timeUnit) : tuned;
+    }
+
     public abstract boolean isEventDrivenSupported();
 
     public abstract boolean isExecutionNodeRestricted();
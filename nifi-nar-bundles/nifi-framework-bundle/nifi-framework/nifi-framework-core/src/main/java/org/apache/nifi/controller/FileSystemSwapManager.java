@@ -27,6 +27,8 @@ import org.apache.nifi.controller.repository.SwapContents;
 import org.apache.nifi.controller.repository.SwapManagerInitializationContext;
 import org.apache.nifi.controller.repository.SwapSummary;
 import org.apache.nifi.controller.repository.claim.ResourceClaimManager;
+import org.apache.nifi.controller.swap.ColumnarSwapDeserializer;
+import org.apache.nifi.controller.swap.ColumnarSwapSerializer;
 import org.apache.nifi.controller.swap.SchemaSwapDeserializer;
 import org.apache.nifi.controller.swap.SchemaSwapSerializer;
 import org.apache.nifi.controller.swap.SimpleSwapDeserializer;
@@ -34,6 +36,7 @@ import org.apache.nifi.controller.swap.StandardSwapContents;
 import org.apache.nifi.controller.swap.StandardSwapSummary;
 import org.apache.nifi.controller.swap.SwapDeserializer;
 import org.apache.nifi.controller.swap.SwapSerializer;
+import org.apache.nifi.engine.FlowEngine;
 import org.apache.nifi.events.EventReporter;
 import org.apache.nifi.reporting.Severity;
 import org.apache.nifi.repository.schema.FieldCache;
@@ -65,6 +68,8 @@ import java.util.List;
 import java.util.Objects;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
@@ -81,9 +86,17 @@ public class FileSystemSwapManager implements FlowFileSwapManager {
     private static final Pattern TEMP_SWAP_FILE_PATTERN = Pattern.compile("\\d+-.+?(\\..*?)?\\.swap\\.part");
 
     public static final String EVENT_CATEGORY = "Swap FlowFiles";
+
+    public static final String SWAP_SERIALIZATION_FORMAT = "nifi.swap.manager.serialization.format";
+    public static final String SCHEMA_SERIALIZATION_FORMAT = "schema";
+    public static final String COLUMNAR_SERIALIZATION_FORMAT = "columnar";
+    public static final String SWAP_PREFETCH_THREADS = "nifi.swap.manager.prefetch.threads";
+
     private static final Logger logger = LoggerFactory.getLogger(FileSystemSwapManager.class);
 
     private final File storageDirectory;
+    private final SwapSerializer swapSerializer;
+    private final ExecutorService prefetchExecutor;
     private final FieldCache fieldCache = new CaffeineFieldCache(10_000_000);
 
     // effectively final
@@ -98,17 +111,54 @@ public class FileSystemSwapManager implements FlowFileSwapManager {
      */
     public FileSystemSwapManager() {
         storageDirectory = null;
+        swapSerializer = null;
+        prefetchExecutor = null;
     }
 
     public FileSystemSwapManager(final NiFiProperties nifiProperties) {
-        this(nifiProperties.getFlowFileRepositoryPath());
+        this(nifiProperties.getFlowFileRepositoryPath(), nifiProperties.getProperty(SWAP_SERIALIZATION_FORMAT, SCHEMA_SERIALIZATION_FORMAT),
+            getPrefetchThreadCount(nifiProperties));
     }
 
     public FileSystemSwapManager(final Path flowFileRepoPath) {
+        this(flowFileRepoPath, SCHEMA_SERIALIZATION_FORMAT);
+    }
+
+    public FileSystemSwapManager(final Path flowFileRepoPath, final String serializationFormat) {
+        this(flowFileRepoPath, serializationFormat, 0);
+    }
+
+    public FileSystemSwapManager(final Path flowFileRepoPath, final String serializationFormat, final int prefetchThreads) {
+        if (SCHEMA_SERIALIZATION_FORMAT.equalsIgnoreCase(serializationFormat.trim())) {
+            this.swapSerializer = new SchemaSwapSerializer();
+        } else if (COLUMNAR_SERIALIZATION_FORMAT.equalsIgnoreCase(serializationFormat.trim())) {
+            this.swapSerializer = new ColumnarSwapSerializer();
+        } else {
+            throw new IllegalArgumentException("Invalid value for property " + SWAP_SERIALIZATION_FORMAT + ": '" + serializationFormat + "'. Must be either '"
+                + SCHEMA_SERIALIZATION_FORMAT + "' or '" + COLUMNAR_SERIALIZATION_FORMAT + "'");
+        }
+
         this.storageDirectory = flowFileRepoPath.resolve("swap").toFile();
         if (!storageDirectory.exists() && !storageDirectory.mkdirs()) {
             throw new RuntimeException("Cannot create Swap Storage directory " + storageDirectory.getAbsolutePath());
         }
+
+        // Swap files are only prefetched if threads are configured for it, as each prefetched swap file holds its FlowFiles in heap
+        // until the queue swaps them in.
+        this.prefetchExecutor = prefetchThreads > 0 ? new FlowEngine(prefetchThreads, "Swap In Prefetch", true) : null;
+    }
+
+    private static int getPrefetchThreadCount(final NiFiProperties nifiProperties) {
+        final String value = nifiProperties.getProperty(SWAP_PREFETCH_THREADS, "0").trim();
+        try {
+            final int threads = Integer.parseInt(value);
+            if (threads < 0) {
+                throw new IllegalArgumentException("Invalid value for property " + SWAP_PREFETCH_THREADS + ": '" + value + "'. Must be a non-negative integer");
+            }
+            return threads;
+        } catch (final NumberFormatException nfe) {
+            throw new IllegalArgumentException("Invalid value for property " + SWAP_PREFETCH_THREADS + ": '" + value + "'. Must be a non-negative integer");
+        }
     }
 
 
@@ -141,7 +191,7 @@ public class FileSystemSwapManager implements FlowFileSwapManager {
         final File swapTempFile = new File(swapFile.getParentFile(), swapFile.getName() + ".part");
         final String swapLocation = swapFile.getAbsolutePath();
 
-        final SwapSerializer serializer = new SchemaSwapSerializer();
+        final SwapSerializer serializer = swapSerializer;
         try (final OutputStream os = getOutputStream(swapTempFile);
             final OutputStream out = new BufferedOutputStream(os)) {
             out.write(MAGIC_HEADER);
@@ -168,17 +218,50 @@ public class FileSystemSwapManager implements FlowFileSwapManager {
     @Override
     public SwapContents swapIn(final String swapLocation, final FlowFileQueue flowFileQueue) throws IOException {
         final File swapFile = new File(swapLocation);
+        if (!isValidSwapLocation(swapFile)) {
+            return createEmptySwapContents();
+        }
+
+        final SwapContents swapContents = peek(swapLocation, flowFileQueue);
+        return completeSwapIn(swapFile, swapContents, flowFileQueue);
+    }
 
+    @Override
+    public SwapContents swapIn(final String swapLocation, final FlowFileQueue flowFileQueue, final SwapContents contents) throws IOException {
+        final File swapFile = new File(swapLocation);
+        if (!isValidSwapLocation(swapFile)) {
+            return createEmptySwapContents();
+        }
+
+        return completeSwapIn(swapFile, contents, flowFileQueue);
+    }
+
+    @Override
+    public Future<SwapContents> prefetch(final String swapLocation, final FlowFileQueue flowFileQueue) {
+        if (prefetchExecutor == null) {
+            return null;
+        }
+
+        return prefetchExecutor.submit(() -> peek(swapLocation, flowFileQueue));
+    }
+
+    private boolean isValidSwapLocation(final File swapFile) {
         final boolean validLocation = flowFileRepository.isValidSwapLocationSuffix(swapFile.getName());
         if (!validLocation) {
-            warn("Cannot swap in FlowFiles from location " + swapLocation + " because the FlowFile Repository does not know about this Swap Location. " +
+            warn("Cannot swap in FlowFiles from location " + swapFile.getAbsolutePath() + " because the FlowFile Repository does not know about this Swap Location. " +
                 "This file should be manually removed. This typically occurs when a Swap File is written but the FlowFile Repository is not updated yet to reflect this. " +
                 "This is generally not a cause for concern, but may be indicative of a failure to update the FlowFile Repository.");
-            final SwapSummary swapSummary = new StandardSwapSummary(new QueueSize(0, 0), 0L, Collections.emptyList(), 0L, 0L);
-            return new StandardSwapContents(swapSummary, Collections.emptyList());
         }
 
-        final SwapContents swapContents = peek(swapLocation, flowFileQueue);
+        return validLocation;
+    }
+
+    private SwapContents createEmptySwapContents() {
+        final SwapSummary swapSummary = new StandardSwapSummary(new QueueSize(0, 0), 0L, Collections.emptyList(), 0L, 0L);
+        return new StandardSwapContents(swapSummary, Collections.emptyList());
+    }
+
+    private SwapContents completeSwapIn(final File swapFile, final SwapContents swapContents, final FlowFileQueue flowFileQueue) throws IOException {
         flowFileRepository.swapFlowFilesIn(swapFile.getAbsolutePath(), swapContents.getFlowFiles(), flowFileQueue);
 
         if (!swapFile.delete()) {
@@ -383,6 +466,9 @@ public class FileSystemSwapManager implements FlowFileSwapManager {
             if (serializationName.equals(SchemaSwapDeserializer.getSerializationName())) {
                 return new SchemaSwapDeserializer(fieldCache);
             }
+            if (serializationName.equals(ColumnarSwapDeserializer.getSerializationName())) {
+                return new ColumnarSwapDeserializer();
+            }
 
             throw new IOException("Cannot find a suitable Deserializer for swap file, written with Serialization Name '" + serializationName + "'");
         } else {
@@ -0,0 +1,178 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.nifi.controller.queue;
+
+import org.apache.nifi.controller.repository.FlowFileRecord;
+
+import java.util.AbstractQueue;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+import java.util.Queue;
+
+/**
+ * <p>
+ * A queue that orders FlowFiles in the same way as a {@link PriorityQueue} with the given {@link QueuePrioritizer}, for connections in which
+ * FlowFiles almost always arrive in priority order. This is the case when FlowFiles are processed in the order in which they were queued, using the
+ * FirstInFirstOutPrioritizer, and also when no prioritizers are configured, in which case FlowFiles are ordered by Content Claim and most
+ * FlowFiles arrive with Content Claims that were written after those of the FlowFiles before them.
+ * </p>
+ *
+ * <p>
+ * Rather than maintaining a heap of all FlowFiles, this queue appends each FlowFile to a deque if it does not precede the last FlowFile in the deque,
+ * so that adding and polling FlowFiles are constant-time operations. FlowFiles that arrive out of order, such as those that are returned to the queue
+ * when a session is rolled back, are held in a heap, as are penalized FlowFiles. The head of the queue is the first of the heads of these structures,
+ * so polling requires no comparisons at all unless FlowFiles are held in the heaps.
+ * </p>
+ *
+ * <p>
+ * This class is not thread-safe.
+ * </p>
+ */
+class ArrivalOrderedPriorityQueue extends AbstractQueue<FlowFileRecord> {
+    private final Comparator<FlowFileRecord> prioritizer;
+    private final ArrayDeque<FlowFileRecord> inOrder;
+    private final PriorityQueue<FlowFileRecord> outOfOrder;
+    private final PriorityQueue<FlowFileRecord> penalized;
+
+    ArrivalOrderedPriorityQueue(final int initialCapacity, final QueuePrioritizer prioritizer) {
+        this.prioritizer = prioritizer;
+        this.inOrder = new ArrayDeque<>(initialCapacity);
+        this.outOfOrder = new PriorityQueue<>(prioritizer);
+        this.penalized = new PriorityQueue<>(prioritizer);
+    }
+
+    @Override
+    public boolean offer(final FlowFileRecord flowFile) {
+        if (flowFile.isPenalized()) {
+            penalized.add(flowFile);
+        } else if (inOrder.isEmpty() || prioritizer.compare(flowFile, inOrder.peekLast()) >= 0) {
+            inOrder.addLast(flowFile);
+        } else {
+            outOfOrder.add(flowFile);
+        }
+
+        return true;
+    }
+
+    @Override
+    public FlowFileRecord poll() {
+        final Queue<FlowFileRecord> source = getHeadSource();
+        return source == null ? null : source.poll();
+    }
+
+    @Override
+    public FlowFileRecord peek() {
+        final Queue<FlowFileRecord> source = getHeadSource();
+        return source == null ? null : source.peek();
+    }
+
+    /**
+     * @return the structure whose head is the head of this queue, or <code>null</code> if this queue is empty
+     */
+    private Queue<FlowFileRecord> getHeadSource() {
+        Queue<FlowFileRecord> source = null;
+        FlowFileRecord head = null;
+
+        final FlowFileRecord firstInOrder = inOrder.peekFirst();
+        if (firstInOrder != null) {
+            source = inOrder;
+            head = firstInOrder;
+        }
+
+        final FlowFileRecord firstOutOfOrder = outOfOrder.peek();
+        if (firstOutOfOrder != null && (head == null || prioritizer.compare(firstOutOfOrder, head) < 0)) {
+            source = outOfOrder;
+            head = firstOutOfOrder;
+        }
+
+        // The QueuePrioritizer orders a penalized FlowFile whose penalty has expired among the FlowFiles that are not penalized. If all
+        // FlowFiles are penalized, the one whose penalty expires first is the head of the queue.
+        final FlowFileRecord firstPenalized = penalized.peek();
+        if (firstPenalized != null && (head == null || prioritizer.compare(firstPenalized, head) < 0)) {
+            source = penalized;
+        }
+
+        return source;
+    }
+
+    @Override
+    public int size() {
+        return inOrder.size() + outOfOrder.size() + penalized.size();
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return inOrder.isEmpty() && outOfOrder.isEmpty() && penalized.isEmpty();
+    }
+
+    @Override
+    public void clear() {
+        inOrder.clear();
+        outOfOrder.clear();
+        penalized.clear();
+    }
+
+    /**
+     * @return an iterator over all FlowFiles in the queue, in no particular order
+     */
+    @Override
+    public Iterator<FlowFileRecord> iterator() {
+        return new Iterator<FlowFileRecord>() {
+            private final List<Iterator<FlowFileRecord>> iterators = Arrays.asList(inOrder.iterator(), outOfOrder.iterator(), penalized.iterator());
+            private int index = 0;
+            private Iterator<FlowFileRecord> lastReturnedFrom;
+
+            @Override
+            public boolean hasNext() {
+                while (index < iterators.size()) {
+                    if (iterators.get(index).hasNext()) {
+                        return true;
+                    }
+                    index++;
+                }
+
+                return false;
+            }
+
+            @Override
+            public FlowFileRecord next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+
+                lastReturnedFrom = iterators.get(index);
+                return lastReturnedFrom.next();
+            }
+
+            @Override
+            public void remove() {
+                if (lastReturnedFrom == null) {
+                    throw new IllegalStateException();
+                }
+
+                lastReturnedFrom.remove();
+                lastReturnedFrom = null;
+            }
+        };
+    }
+}
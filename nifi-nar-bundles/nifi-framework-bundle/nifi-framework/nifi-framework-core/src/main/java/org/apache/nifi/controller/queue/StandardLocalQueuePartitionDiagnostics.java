@@ -21,11 +21,20 @@ public class StandardLocalQueuePartitionDiagnostics implements LocalQueuePartiti
     private final FlowFileQueueSize queueSize;
     private final boolean anyPenalized;
     private final boolean allPenalized;
+    private final long swapInPrefetchHitCount;
+    private final long swapInStallCount;
 
     public StandardLocalQueuePartitionDiagnostics(final FlowFileQueueSize queueSize, final boolean anyPenalized, final boolean allPenalized) {
+        this(queueSize, anyPenalized, allPenalized, 0L, 0L);
+    }
+
+    public StandardLocalQueuePartitionDiagnostics(final FlowFileQueueSize queueSize, final boolean anyPenalized, final boolean allPenalized,
+                                                  final long swapInPrefetchHitCount, final long swapInStallCount) {
         this.queueSize = queueSize;
         this.anyPenalized = anyPenalized;
         this.allPenalized = allPenalized;
+        this.swapInPrefetchHitCount = swapInPrefetchHitCount;
+        this.swapInStallCount = swapInStallCount;
     }
 
     @Override
@@ -57,4 +66,14 @@ public class StandardLocalQueuePartitionDiagnostics implements LocalQueuePartiti
     public boolean isAllActiveFlowFilesPenalized() {
         return allPenalized;
     }
+
+    @Override
+    public long getSwapInPrefetchHitCount() {
+        return swapInPrefetchHitCount;
+    }
+
+    @Override
+    public long getSwapInStallCount() {
+        return swapInStallCount;
+    }
 }
@@ -0,0 +1,139 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.nifi.controller.queue;
+
+import org.apache.nifi.controller.repository.FlowFileSwapManager;
+import org.apache.nifi.controller.repository.SwapContents;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * <p>
+ * Keeps track of the swap file that a {@link SwappablePriorityQueue} has asked the {@link FlowFileSwapManager} to read in the background,
+ * so that when the queue runs out of active FlowFiles the contents of its next swap file are already in memory.
+ * </p>
+ *
+ * <p>
+ * At most one swap file is prefetched at a time. If the prefetch fails for any reason, the queue falls back to reading the swap file itself,
+ * so that failures are reported in the same way as they would have been without prefetching.
+ * </p>
+ *
+ * <p>
+ * This class is not thread-safe; all methods other than the metric accessors must be called while holding the queue's write lock.
+ * </p>
+ */
+class SwapInPrefetcher {
+    private static final Logger logger = LoggerFactory.getLogger(SwapInPrefetcher.class);
+
+    private final FlowFileSwapManager swapManager;
+    private final FlowFileQueue flowFileQueue;
+
+    private final AtomicLong hitCount = new AtomicLong(0L);
+    private final AtomicLong stallCount = new AtomicLong(0L);
+
+    private String prefetchLocation;
+    private Future<SwapContents> prefetchFuture;
+
+    SwapInPrefetcher(final FlowFileSwapManager swapManager, final FlowFileQueue flowFileQueue) {
+        this.swapManager = swapManager;
+        this.flowFileQueue = flowFileQueue;
+    }
+
+    /**
+     * Begins reading the swap file at the given location in the background, unless it is already being read
+     *
+     * @param swapLocation the location of the swap file that will be swapped in next
+     */
+    void prefetch(final String swapLocation) {
+        if (swapLocation.equals(prefetchLocation)) {
+            return;
+        }
+
+        cancel();
+
+        final Future<SwapContents> future = swapManager.prefetch(swapLocation, flowFileQueue);
+        if (future != null) {
+            logger.debug("Prefetching Swap File {} for {}", swapLocation, flowFileQueue);
+            prefetchLocation = swapLocation;
+            prefetchFuture = future;
+        }
+    }
+
+    /**
+     * Obtains the contents of the swap file at the given location if they were prefetched, waiting for the read to complete if it is still in progress
+     *
+     * @param swapLocation the location of the swap file that is to be swapped in
+     * @return the contents of the swap file, or <code>null</code> if the swap file was not prefetched or could not be read, in which case
+     *         the caller must read the swap file itself
+     */
+    SwapContents take(final String swapLocation) {
+        if (!swapLocation.equals(prefetchLocation)) {
+            cancel();
+            stallCount.incrementAndGet();
+            return null;
+        }
+
+        final Future<SwapContents> future = prefetchFuture;
+        prefetchLocation = null;
+        prefetchFuture = null;
+
+        final boolean completed = future.isDone();
+        try {
+            final SwapContents contents = future.get();
+            if (completed) {
+                hitCount.incrementAndGet();
+            } else {
+                stallCount.incrementAndGet();
+            }
+
+            return contents;
+        } catch (final InterruptedException ie) {
+            Thread.currentThread().interrupt();
+        } catch (final ExecutionException ee) {
+            logger.debug("Failed to prefetch Swap File {} for {}; it will be read again when swapped in", swapLocation, flowFileQueue, ee.getCause());
+        }
+
+        stallCount.incrementAndGet();
+        return null;
+    }
+
+    /**
+     * Discards any swap file contents that have been or are being prefetched. This must be called whenever the queue's swap locations change
+     * such that the prefetched swap file may no longer be the next one to be swapped in.
+     */
+    void cancel() {
+        if (prefetchFuture != null) {
+            prefetchFuture.cancel(false);
+        }
+
+        prefetchLocation = null;
+        prefetchFuture = null;
+    }
+
+    long getHitCount() {
+        return hitCount.get();
+    }
+
+    long getStallCount() {
+        return stallCount.get();
+    }
+}
@@ -49,6 +49,7 @@ import java.util.Map;
 import java.util.PriorityQueue;
 import java.util.Queue;
 import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
@@ -58,6 +59,7 @@ public class SwappablePriorityQueue {
     private static final Logger logger = LoggerFactory.getLogger(SwappablePriorityQueue.class);
     private static final int SWAP_RECORD_POLL_SIZE = 10_000;
     private static final int MAX_EXPIRED_RECORDS_PER_ITERATION = 10_000;
+    private static final String FIRST_IN_FIRST_OUT_PRIORITIZER_CLASS = "org.apache.nifi.prioritizer.FirstInFirstOutPrioritizer";
 
     private final int swapThreshold;
     private final FlowFileSwapManager swapManager;
@@ -66,6 +68,7 @@ public class SwappablePriorityQueue {
     private final DropFlowFileAction dropAction;
     private volatile List<FlowFilePrioritizer> priorities = new ArrayList<>();
     private final String swapPartitionName;
+    private final SwapInPrefetcher swapInPrefetcher;
 
     private final List<String> swapLocations = new ArrayList<>();
     private final AtomicReference<FlowFileQueueSize> size = new AtomicReference<>(new FlowFileQueueSize(0, 0L, 0, 0L, 0, 0, 0L));
@@ -82,11 +85,18 @@ public class SwappablePriorityQueue {
     // keeping these separate, we are able to guarantee that FlowFiles are swapped in in the same order
     // that they are swapped out.
     // Guarded by lock.
-    private PriorityQueue<FlowFileRecord> activeQueue;
+    private Queue<FlowFileRecord> activeQueue;
     private ArrayList<FlowFileRecord> swapQueue;
-    private boolean swapMode = false;
+    private volatile boolean swapMode = false;
     private volatile long topPenaltyExpiration = -1L;
 
+    // When the active queue is arrival ordered and we are not in swap mode, unpenalized FlowFiles that are put to the queue are added to this
+    // queue without obtaining the write lock, so that producers do not contend with one another or with consumers. The FlowFiles
+    // are counted in the active queue size as soon as they are added, and they are moved into the active queue (or the swap queue)
+    // by whichever thread next obtains the write lock, before it reads or modifies the active queue. Polling still obtains the write lock.
+    private final Queue<FlowFileRecord> pendingPuts = new ConcurrentLinkedQueue<>();
+    private volatile boolean arrivalOrdered = true;
+
     // The following members are used to keep metrics in memory for reporting purposes so that we don't have to constantly
     // read these values from swap files on disk.
     private final Map<String, Long> minQueueDateInSwapLocation = new HashMap<>();
@@ -97,12 +107,13 @@ public class SwappablePriorityQueue {
         this.swapManager = swapManager;
         this.swapThreshold = swapThreshold;
 
-        this.activeQueue = new PriorityQueue<>(20, new QueuePrioritizer(Collections.emptyList()));
+        this.activeQueue = createActiveQueue(Collections.emptyList(), 20);
         this.swapQueue = new ArrayList<>();
         this.eventReporter = eventReporter;
         this.flowFileQueue = flowFileQueue;
         this.dropAction = dropAction;
         this.swapPartitionName = swapPartitionName;
+        this.swapInPrefetcher = new SwapInPrefetcher(swapManager, flowFileQueue);
 
         final ReentrantReadWriteLock lock = new ReentrantReadWriteLock(true);
         readLock = new TimedLock(lock.readLock(), flowFileQueue.getIdentifier() + " Read Lock", 100);
@@ -120,24 +131,46 @@ public class SwappablePriorityQueue {
     public void setPriorities(final List<FlowFilePrioritizer> newPriorities) {
         writeLock.lock();
         try {
+            drainPendingPuts();
             this.priorities = new ArrayList<>(newPriorities);
 
-            final PriorityQueue<FlowFileRecord> newQueue = new PriorityQueue<>(Math.max(20, activeQueue.size()), new QueuePrioritizer(newPriorities));
+            final Queue<FlowFileRecord> newQueue = createActiveQueue(newPriorities, Math.max(20, activeQueue.size()));
             newQueue.addAll(activeQueue);
             activeQueue = newQueue;
+            arrivalOrdered = isArrivalOrdered(newPriorities);
         } finally {
             writeLock.unlock("setPriorities");
         }
     }
 
 
+    /**
+     * Creates the Active Queue for the given prioritizers. When no prioritizers are configured or the only prioritizer is the FirstInFirstOutPrioritizer,
+     * FlowFiles nearly always arrive in priority order, so there is no need to maintain a heap of all FlowFiles, and a queue is used that adds and polls
+     * such FlowFiles in constant time, while ordering FlowFiles in exactly the same way.
+     */
+    private static Queue<FlowFileRecord> createActiveQueue(final List<FlowFilePrioritizer> prioritizers, final int initialCapacity) {
+        final QueuePrioritizer queuePrioritizer = new QueuePrioritizer(prioritizers);
+        if (isArrivalOrdered(prioritizers)) {
+            return new ArrivalOrderedPriorityQueue(initialCapacity, queuePrioritizer);
+        }
+
+        return new PriorityQueue<>(initialCapacity, queuePrioritizer);
+    }
+
+    private static boolean isArrivalOrdered(final List<FlowFilePrioritizer> prioritizers) {
+        // The prioritizer is compared by name because the standard prioritizers are not a dependency of the framework
+        return prioritizers.stream().allMatch(prioritizer -> FIRST_IN_FIRST_OUT_PRIORITIZER_CLASS.equals(prioritizer.getClass().getName()));
+    }
+
     public LocalQueuePartitionDiagnostics getQueueDiagnostics() {
         readLock.lock();
         try {
             final boolean anyPenalized = !activeQueue.isEmpty() && activeQueue.peek().isPenalized();
             final boolean allPenalized = anyPenalized && activeQueue.stream().anyMatch(FlowFileRecord::isPenalized);
 
-            return new StandardLocalQueuePartitionDiagnostics(getFlowFileQueueSize(), anyPenalized, allPenalized);
+            return new StandardLocalQueuePartitionDiagnostics(getFlowFileQueueSize(), anyPenalized, allPenalized,
+                swapInPrefetcher.getHitCount(), swapInPrefetcher.getStallCount());
         } finally {
             readLock.unlock("getQueueDiagnostics");
         }
@@ -146,7 +179,9 @@ public class SwappablePriorityQueue {
     public List<FlowFileRecord> getActiveFlowFiles() {
         readLock.lock();
         try {
-            return new ArrayList<>(activeQueue);
+            final List<FlowFileRecord> activeFlowFiles = new ArrayList<>(activeQueue);
+            activeFlowFiles.addAll(pendingPuts);
+            return activeFlowFiles;
         } finally {
             readLock.unlock("getActiveFlowFiles");
         }
@@ -291,6 +326,7 @@ public class SwappablePriorityQueue {
         // Swap Queue to the Active Queue. However, we don't do this if there are FlowFiles already swapped out
         // to disk, because we want them to be swapped back in in the same order that they were swapped out.
         if (!activeQueue.isEmpty()) {
+            prefetchSwapFileIfNecessary();
             return;
         }
 
@@ -301,6 +337,7 @@ public class SwappablePriorityQueue {
         // first.
         if (!swapLocations.isEmpty()) {
             swapIn();
+            prefetchSwapFileIfNecessary();
             return;
         }
 
@@ -351,13 +388,36 @@ public class SwappablePriorityQueue {
         }
     }
 
+    /**
+     * Once the active queue has been drained to below the low-water mark, begins reading the next swap file in the background so that
+     * its FlowFiles are ready by the time that the active queue is empty.
+     *
+     * This method MUST be called with the writeLock held.
+     */
+    private void prefetchSwapFileIfNecessary() {
+        if (swapLocations.isEmpty() || activeQueue.size() >= getPrefetchLowWaterMark()) {
+            return;
+        }
+
+        swapInPrefetcher.prefetch(swapLocations.get(0));
+    }
+
+    private int getPrefetchLowWaterMark() {
+        return Math.min(swapThreshold, SWAP_RECORD_POLL_SIZE) / 2;
+    }
+
     private void swapIn() {
         final String swapLocation = swapLocations.get(0);
         boolean partialContents = false;
         SwapContents swapContents;
         try {
             logger.debug("Attempting to swap in {}; all swap locations = {}", swapLocation, swapLocations);
-            swapContents = swapManager.swapIn(swapLocation, flowFileQueue);
+            final SwapContents prefetchedContents = swapInPrefetcher.take(swapLocation);
+            if (prefetchedContents == null) {
+                swapContents = swapManager.swapIn(swapLocation, flowFileQueue);
+            } else {
+                swapContents = swapManager.swapIn(swapLocation, flowFileQueue, prefetchedContents);
+            }
             swapLocations.remove(0);
             minQueueDateInSwapLocation.remove(swapLocation);
             totalQueueDateInSwapLocation.remove(swapLocation);
@@ -442,6 +502,11 @@ public class SwappablePriorityQueue {
             return FlowFileAvailability.ACTIVE_QUEUE_EMPTY;
         }
 
+        // FlowFiles that were put without the write lock are never penalized but are not yet reflected in the top penalty expiration
+        if (!pendingPuts.isEmpty()) {
+            return FlowFileAvailability.FLOWFILE_AVAILABLE;
+        }
+
         final long expiration = topPenaltyExpiration;
         if (expiration > 0 && expiration > System.currentTimeMillis()) { // compare against 0 to avoid unnecessary System call
             return FlowFileAvailability.HEAD_OF_QUEUE_PENALIZED;
@@ -468,8 +533,17 @@ public class SwappablePriorityQueue {
 
 
     public void put(final FlowFileRecord flowFile) {
+        if (!flowFile.isPenalized() && isPutWithoutLockAllowed(1)) {
+            // Increment the size before the FlowFile can be polled so that the active count can never become negative
+            incrementActiveQueueSize(1, flowFile.getSize());
+            pendingPuts.add(flowFile);
+            logger.trace("{} put to {}", flowFile, this);
+            return;
+        }
+
         writeLock.lock();
         try {
+            drainPendingPuts();
             if (swapMode || activeQueue.size() >= swapThreshold) {
                 swapQueue.add(flowFile);
                 incrementSwapQueueSize(1, flowFile.getSize(), 0);
@@ -490,12 +564,22 @@ public class SwappablePriorityQueue {
     public void putAll(final Collection<FlowFileRecord> flowFiles) {
         final int numFiles = flowFiles.size();
         long bytes = 0L;
+        boolean anyPenalized = false;
         for (final FlowFile flowFile : flowFiles) {
             bytes += flowFile.getSize();
+            anyPenalized |= flowFile.isPenalized();
+        }
+
+        if (!anyPenalized && isPutWithoutLockAllowed(numFiles)) {
+            incrementActiveQueueSize(numFiles, bytes);
+            pendingPuts.addAll(flowFiles);
+            logger.trace("{} put to {}", flowFiles, this);
+            return;
         }
 
         writeLock.lock();
         try {
+            drainPendingPuts();
             if (swapMode || activeQueue.size() >= swapThreshold - numFiles) {
                 swapQueue.addAll(flowFiles);
                 incrementSwapQueueSize(numFiles, bytes, 0);
@@ -513,6 +597,37 @@ public class SwappablePriorityQueue {
         }
     }
 
+    private boolean isPutWithoutLockAllowed(final int numFiles) {
+        return arrivalOrdered && !swapMode && getFlowFileQueueSize().getActiveCount() + numFiles <= swapThreshold;
+    }
+
+    /**
+     * Moves any FlowFiles that were put without obtaining the write lock into the active queue, or into the swap queue if we are in
+     * swap mode or the active queue has reached the swap threshold. These FlowFiles were already counted in the active queue size when they were put.
+     *
+     * This method MUST be called with the writeLock held.
+     */
+    private void drainPendingPuts() {
+        int swappedCount = 0;
+        long swappedBytes = 0L;
+        FlowFileRecord flowFile;
+        while ((flowFile = pendingPuts.poll()) != null) {
+            if (swapMode || activeQueue.size() >= swapThreshold) {
+                swapQueue.add(flowFile);
+                swapMode = true;
+                swappedCount++;
+                swappedBytes += flowFile.getSize();
+            } else {
+                activeQueue.add(flowFile);
+            }
+        }
+
+        if (swappedCount > 0) {
+            transferActiveToSwapQueueSize(swappedCount, swappedBytes);
+            writeSwapFilesIfNecessary();
+        }
+    }
+
     public FlowFileRecord poll(final Set<FlowFileRecord> expiredRecords, final long expirationMillis) {
         return poll(expiredRecords, expirationMillis, PollStrategy.UNPENALIZED_FLOWFILES);
     }
@@ -523,6 +638,7 @@ public class SwappablePriorityQueue {
         // First check if we have any records Pre-Fetched.
         writeLock.lock();
         try {
+            drainPendingPuts();
             flowFile = doPoll(expiredRecords, expirationMillis, pollStrategy);
 
             if (flowFile != null) {
@@ -582,6 +698,7 @@ public class SwappablePriorityQueue {
         // First check if we have any records Pre-Fetched.
         writeLock.lock();
         try {
+            drainPendingPuts();
             doPoll(records, maxResults, expiredRecords, expirationMillis, pollStrategy);
             updateTopPenaltyExpiration();
         } finally {
@@ -609,6 +726,7 @@ public class SwappablePriorityQueue {
 
         writeLock.lock();
         try {
+            drainPendingPuts();
             migrateSwapToActive();
 
             final List<FlowFileRecord> selectedFlowFiles = new ArrayList<>();
@@ -764,6 +882,12 @@ public class SwappablePriorityQueue {
                     return flowFile;
                 }
             }
+
+            for (final FlowFileRecord flowFile : pendingPuts) {
+                if (flowFileUuid.equals(flowFile.getAttribute(CoreAttributes.UUID.key()))) {
+                    return flowFile;
+                }
+            }
         } finally {
             readLock.unlock("getFlowFile");
         }
@@ -777,6 +901,7 @@ public class SwappablePriorityQueue {
 
         writeLock.lock();
         try {
+            drainPendingPuts();
             dropRequest.setState(DropFlowFileState.DROPPING_FLOWFILES);
             logger.debug("For DropFlowFileRequest {}, original size is {}", requestIdentifier, size());
 
@@ -830,6 +955,7 @@ public class SwappablePriorityQueue {
                 incrementSwapQueueSize(-droppedSize.getObjectCount(), -droppedSize.getByteCount(), 0);
                 logger.debug("For DropFlowFileRequest {}, dropped {} from Swap Queue", requestIdentifier, droppedSize);
 
+                swapInPrefetcher.cancel();
                 final int swapFileCount = swapLocations.size();
                 final Iterator<String> swapLocationItr = swapLocations.iterator();
                 while (swapLocationItr.hasNext()) {
@@ -908,6 +1034,7 @@ public class SwappablePriorityQueue {
 
         writeLock.lock();
         try {
+            drainPendingPuts();
             final List<String> swapLocationsFromSwapManager;
             try {
                 swapLocationsFromSwapManager = swapManager.recoverSwapLocations(flowFileQueue, swapPartitionName);
@@ -992,6 +1119,8 @@ public class SwappablePriorityQueue {
         try {
             // We want the oldest timestamp, which will be the min
             long min = getMinLastQueueDate(activeQueue, 0L);
+            final long pendingMin = getMinLastQueueDate(pendingPuts, min);
+            min = min == 0 ? pendingMin : Long.min(min, pendingMin);
             min = Long.min(min, getMinLastQueueDate(swapQueue, min));
 
             for(Long minSwapQueueDate: minQueueDateInSwapLocation.values()) {
@@ -1022,6 +1151,10 @@ public class SwappablePriorityQueue {
                 sum += (fromTimestamp - flowFileRecord.getLastQueueDate());
             }
 
+            for (FlowFileRecord flowFileRecord : pendingPuts) {
+                sum += (fromTimestamp - flowFileRecord.getLastQueueDate());
+            }
+
             for (FlowFileRecord flowFileRecord : swapQueue) {
                 sum += (fromTimestamp - flowFileRecord.getLastQueueDate());
             }
@@ -1057,6 +1190,21 @@ public class SwappablePriorityQueue {
         }
     }
 
+    private void transferActiveToSwapQueueSize(final int count, final long bytes) {
+        boolean updated = false;
+        while (!updated) {
+            final FlowFileQueueSize original = getFlowFileQueueSize();
+            final FlowFileQueueSize newSize = new FlowFileQueueSize(original.getActiveCount() - count, original.getActiveBytes() - bytes,
+                original.getSwappedCount() + count, original.getSwappedBytes() + bytes, original.getSwapFileCount(),
+                original.getUnacknowledgedCount(), original.getUnacknowledgedBytes());
+
+            updated = updateSize(original, newSize);
+            if (updated) {
+                logIfNegative(original, newSize, "swap");
+            }
+        }
+    }
+
     private void incrementSwapQueueSize(final int count, final long bytes, final int fileCount) {
         boolean updated = false;
         while (!updated) {
@@ -1134,6 +1282,7 @@ public class SwappablePriorityQueue {
     public void inheritQueueContents(final FlowFileQueueContents queueContents) {
         writeLock.lock();
         try {
+            drainPendingPuts();
             putAll(queueContents.getActiveFlowFiles());
 
             final List<String> inheritedSwapLocations = queueContents.getSwapLocations();
@@ -1151,7 +1300,10 @@ public class SwappablePriorityQueue {
     public FlowFileQueueContents packageForRebalance(final String newPartitionName) {
         writeLock.lock();
         try {
+            drainPendingPuts();
             final List<FlowFileRecord> activeRecords = new ArrayList<>(this.activeQueue);
+            final int activeQueueCount = activeRecords.size();
+            final long activeQueueBytes = activeRecords.stream().mapToLong(FlowFileRecord::getSize).sum();
 
             final List<String> updatedSwapLocations = new ArrayList<>(swapLocations.size());
             for (final String swapLocation : swapLocations) {
@@ -1165,6 +1317,7 @@ public class SwappablePriorityQueue {
 
             this.swapLocations.clear();
             this.activeQueue.clear();
+            swapInPrefetcher.cancel();
 
             final int swapQueueCount = swapQueue.size();
             final long swapQueueBytes = swapQueue.stream().mapToLong(FlowFileRecord::getSize).sum();
@@ -1179,7 +1332,9 @@ public class SwappablePriorityQueue {
                 final FlowFileQueueSize currentSize = getFlowFileQueueSize();
                 swapSize = new QueueSize(currentSize.getSwappedCount() - swapQueueCount, currentSize.getSwappedBytes() - swapQueueBytes);
 
-                final FlowFileQueueSize updatedSize = new FlowFileQueueSize(0, 0, 0, 0, 0, currentSize.getUnacknowledgedCount(), currentSize.getUnacknowledgedBytes());
+                // FlowFiles that are concurrently put without the write lock remain counted in the active queue size
+                final FlowFileQueueSize updatedSize = new FlowFileQueueSize(currentSize.getActiveCount() - activeQueueCount, currentSize.getActiveBytes() - activeQueueBytes,
+                    0, 0, 0, currentSize.getUnacknowledgedCount(), currentSize.getUnacknowledgedBytes());
                 updated = updateSize(currentSize, updatedSize);
             } while (!updated);
 
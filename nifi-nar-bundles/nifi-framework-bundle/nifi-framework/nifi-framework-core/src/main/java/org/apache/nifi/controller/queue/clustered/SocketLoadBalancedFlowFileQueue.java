@@ -40,6 +40,7 @@ import org.apache.nifi.controller.queue.RemoteQueuePartitionDiagnostics;
 import org.apache.nifi.controller.queue.StandardQueueDiagnostics;
 import org.apache.nifi.controller.queue.SwappablePriorityQueue;
 import org.apache.nifi.controller.queue.clustered.client.async.AsyncLoadBalanceClientRegistry;
+import org.apache.nifi.controller.queue.clustered.partition.ConsistentHashPartitioner;
 import org.apache.nifi.controller.queue.clustered.partition.CorrelationAttributePartitioner;
 import org.apache.nifi.controller.queue.clustered.partition.FirstNodePartitioner;
 import org.apache.nifi.controller.queue.clustered.partition.FlowFilePartitioner;
@@ -225,6 +226,9 @@ public class SocketLoadBalancedFlowFileQueue extends AbstractFlowFileQueue imple
             case PARTITION_BY_ATTRIBUTE:
                 partitioner = new CorrelationAttributePartitioner(partitioningAttribute);
                 break;
+            case PARTITION_BY_ATTRIBUTE_CONSISTENT_HASH:
+                partitioner = new ConsistentHashPartitioner(partitioningAttribute, clusterCoordinator::getLocalNodeIdentifier);
+                break;
             case ROUND_ROBIN:
                 partitioner = new RoundRobinPartitioner();
                 break;
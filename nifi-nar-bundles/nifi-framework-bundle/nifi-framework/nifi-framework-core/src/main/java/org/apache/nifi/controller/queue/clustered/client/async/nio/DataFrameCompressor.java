@@ -0,0 +1,221 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.nifi.controller.queue.clustered.client.async.nio;
+
+import net.jpountz.lz4.LZ4Compressor;
+import net.jpountz.lz4.LZ4Factory;
+import org.apache.nifi.controller.queue.clustered.protocol.ZstdCompression;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * Builds the frames that a {@link LoadBalanceSession} sends over a {@link PeerChannel}: an indicator byte, followed by the 4-byte length of the data,
+ * followed by the data itself, which may be compressed. When FlowFiles from several partitions are multiplexed over the channel, the indicator byte is
+ * followed by the 2-byte index of the partition that the frame belongs to.
+ *
+ * A PeerChannel is used by only one session at a time, and a session does not build a new frame until the previous one has been written, so the
+ * buffers and the Deflater are owned by the channel and reused for every frame, rather than being allocated for each frame. A frame that is returned
+ * is therefore only valid until the next frame is built.
+ */
+public class DataFrameCompressor {
+    public static final int NO_PARTITION_INDEX = -1;
+
+    private static final int FRAME_HEADER_LENGTH = 5;
+    private static final int PARTITION_INDEX_LENGTH = 2;
+    private static final int INITIAL_FRAME_LENGTH = 16 * 1024;
+    private static final int GZIP_TRAILER_LENGTH = 8;
+    private static final byte[] GZIP_HEADER = {(byte) 0x1f, (byte) 0x8b, Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, 0};
+
+    private static final LZ4Compressor lz4Compressor = LZ4Factory.fastestInstance().fastCompressor();
+
+    private final ReusableByteArrayOutputStream metadataBuffer = new ReusableByteArrayOutputStream();
+    private final CRC32 crc = new CRC32();
+    private Deflater deflater;
+    private ByteBuffer frameBuffer = ByteBuffer.allocate(0);
+
+    /**
+     * @return an empty buffer into which a FlowFile's metadata can be encoded before it is framed
+     */
+    public ReusableByteArrayOutputStream getMetadataBuffer() {
+        metadataBuffer.reset();
+        return metadataBuffer;
+    }
+
+    /**
+     * Builds a frame whose data is not compressed
+     */
+    public ByteBuffer createFrame(final int indicator, final byte[] data, final int length) {
+        return createFrame(indicator, NO_PARTITION_INDEX, data, length);
+    }
+
+    /**
+     * Builds a frame whose data is not compressed, for the partition with the given index, or {@link #NO_PARTITION_INDEX}
+     */
+    public ByteBuffer createFrame(final int indicator, final int partitionIndex, final byte[] data, final int length) {
+        final int headerLength = getHeaderLength(partitionIndex);
+        final byte[] frame = ensureCapacity(headerLength + length, 0);
+        System.arraycopy(data, 0, frame, headerLength, length);
+        return completeFrame(indicator, partitionIndex, length);
+    }
+
+    /**
+     * Builds a frame whose data is compressed in the GZIP format, using the fastest compression level
+     */
+    public ByteBuffer createGzipFrame(final int indicator, final byte[] data, final int length) {
+        return createGzipFrame(indicator, NO_PARTITION_INDEX, data, length);
+    }
+
+    /**
+     * Builds a frame whose data is compressed in the GZIP format, for the partition with the given index, or {@link #NO_PARTITION_INDEX}
+     */
+    public ByteBuffer createGzipFrame(final int indicator, final int partitionIndex, final byte[] data, final int length) {
+        if (deflater == null) {
+            deflater = new Deflater(1, true);
+        }
+
+        deflater.reset();
+        deflater.setInput(data, 0, length);
+        deflater.finish();
+
+        // Worst case size of the deflated data, as calculated by zlib's deflateBound()
+        final int deflateBound = length + (length >> 12) + (length >> 14) + (length >> 25) + 13;
+        final int headerLength = getHeaderLength(partitionIndex);
+        byte[] frame = ensureCapacity(headerLength + GZIP_HEADER.length + deflateBound + GZIP_TRAILER_LENGTH, 0);
+
+        int position = headerLength;
+        System.arraycopy(GZIP_HEADER, 0, frame, position, GZIP_HEADER.length);
+        position += GZIP_HEADER.length;
+
+        while (!deflater.finished()) {
+            if (position == frame.length) {
+                frame = ensureCapacity(frame.length * 2, position);
+            }
+            position += deflater.deflate(frame, position, frame.length - position);
+        }
+
+        crc.reset();
+        crc.update(data, 0, length);
+        frame = ensureCapacity(position + GZIP_TRAILER_LENGTH, position);
+        position = writeIntLittleEndian(frame, position, (int) crc.getValue());
+        position = writeIntLittleEndian(frame, position, length);
+
+        return completeFrame(indicator, partitionIndex, position - headerLength);
+    }
+
+    /**
+     * Builds a frame whose data is the 4-byte uncompressed length of the data, followed by the data compressed as an LZ4 block
+     */
+    public ByteBuffer createLz4Frame(final int indicator, final byte[] data, final int length) {
+        return createLz4Frame(indicator, NO_PARTITION_INDEX, data, length);
+    }
+
+    /**
+     * Builds a frame whose data is compressed as an LZ4 block, for the partition with the given index, or {@link #NO_PARTITION_INDEX}
+     */
+    public ByteBuffer createLz4Frame(final int indicator, final int partitionIndex, final byte[] data, final int length) {
+        final int headerLength = getHeaderLength(partitionIndex);
+        final int maxCompressedLength = lz4Compressor.maxCompressedLength(length);
+        final byte[] frame = ensureCapacity(headerLength + 4 + maxCompressedLength, 0);
+
+        frameBuffer.putInt(headerLength, length);
+        final int compressedLength = lz4Compressor.compress(data, 0, length, frame, headerLength + 4, maxCompressedLength);
+
+        return completeFrame(indicator, partitionIndex, 4 + compressedLength);
+    }
+
+    /**
+     * Builds a frame whose data is the 4-byte uncompressed length of the data, followed by the data compressed as a Zstandard frame
+     */
+    public ByteBuffer createZstdFrame(final int indicator, final byte[] data, final int length) {
+        return createZstdFrame(indicator, NO_PARTITION_INDEX, data, length);
+    }
+
+    /**
+     * Builds a frame whose data is compressed as a Zstandard frame, for the partition with the given index, or {@link #NO_PARTITION_INDEX}.
+     * Must only be called if {@link ZstdCompression#isAvailable()}.
+     */
+    public ByteBuffer createZstdFrame(final int indicator, final int partitionIndex, final byte[] data, final int length) {
+        final int headerLength = getHeaderLength(partitionIndex);
+        final int maxCompressedLength = ZstdCompression.maxCompressedLength(length);
+        final byte[] frame = ensureCapacity(headerLength + 4 + maxCompressedLength, 0);
+
+        frameBuffer.putInt(headerLength, length);
+        final int compressedLength = ZstdCompression.compress(data, 0, length, frame, headerLength + 4, maxCompressedLength);
+
+        return completeFrame(indicator, partitionIndex, 4 + compressedLength);
+    }
+
+    /**
+     * Releases the native resources that are held by the compressor
+     */
+    public void close() {
+        if (deflater != null) {
+            deflater.end();
+            deflater = null;
+        }
+    }
+
+    private ByteBuffer completeFrame(final int indicator, final int partitionIndex, final int dataLength) {
+        frameBuffer.clear();
+        frameBuffer.put(0, (byte) indicator);
+
+        int position = 1;
+        if (partitionIndex != NO_PARTITION_INDEX) {
+            frameBuffer.putShort(position, (short) partitionIndex);
+            position += PARTITION_INDEX_LENGTH;
+        }
+
+        frameBuffer.putInt(position, dataLength);
+        frameBuffer.limit(getHeaderLength(partitionIndex) + dataLength);
+        return frameBuffer;
+    }
+
+    private static int getHeaderLength(final int partitionIndex) {
+        return partitionIndex == NO_PARTITION_INDEX ? FRAME_HEADER_LENGTH : FRAME_HEADER_LENGTH + PARTITION_INDEX_LENGTH;
+    }
+
+    private byte[] ensureCapacity(final int capacity, final int bytesToRetain) {
+        if (frameBuffer.capacity() < capacity) {
+            final ByteBuffer expanded = ByteBuffer.allocate(Math.max(capacity, INITIAL_FRAME_LENGTH));
+            System.arraycopy(frameBuffer.array(), 0, expanded.array(), 0, bytesToRetain);
+            frameBuffer = expanded;
+        }
+
+        return frameBuffer.array();
+    }
+
+    private static int writeIntLittleEndian(final byte[] destination, final int offset, final int value) {
+        destination[offset] = (byte) value;
+        destination[offset + 1] = (byte) (value >> 8);
+        destination[offset + 2] = (byte) (value >> 16);
+        destination[offset + 3] = (byte) (value >> 24);
+        return offset + 4;
+    }
+
+    /**
+     * A ByteArrayOutputStream that exposes its buffer, so that its contents can be framed without being copied to a new array
+     */
+    public static class ReusableByteArrayOutputStream extends ByteArrayOutputStream {
+        public byte[] getBuffer() {
+            return buf;
+        }
+    }
+}
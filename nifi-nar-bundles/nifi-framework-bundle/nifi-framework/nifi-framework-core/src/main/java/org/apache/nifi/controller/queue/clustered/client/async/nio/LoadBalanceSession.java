@@ -22,30 +22,31 @@ import org.apache.nifi.controller.queue.clustered.FlowFileContentAccess;
 import org.apache.nifi.controller.queue.clustered.TransactionThreshold;
 import org.apache.nifi.controller.queue.clustered.client.LoadBalanceFlowFileCodec;
 import org.apache.nifi.controller.queue.clustered.protocol.LoadBalanceProtocolConstants;
+import org.apache.nifi.controller.queue.clustered.protocol.ZstdCompression;
 import org.apache.nifi.controller.queue.clustered.server.TransactionAbortedException;
 import org.apache.nifi.controller.repository.ContentNotFoundException;
 import org.apache.nifi.controller.repository.FlowFileRecord;
 import org.apache.nifi.remote.StandardVersionNegotiator;
 import org.apache.nifi.remote.VersionNegotiator;
-import org.apache.nifi.stream.io.ByteCountingOutputStream;
-import org.apache.nifi.stream.io.GZIPOutputStream;
 import org.apache.nifi.stream.io.StreamUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.io.ByteArrayOutputStream;
 import java.io.EOFException;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.OutputStream;
 import java.net.SocketTimeoutException;
 import java.nio.ByteBuffer;
 import java.nio.channels.SelectionKey;
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.OptionalInt;
-import java.util.function.Supplier;
 import java.util.zip.CRC32;
 import java.util.zip.Checksum;
 
@@ -60,29 +61,36 @@ import static org.apache.nifi.controller.queue.clustered.protocol.LoadBalancePro
 import static org.apache.nifi.controller.queue.clustered.protocol.LoadBalanceProtocolConstants.VERSION_ACCEPTED;
 
 
+/**
+ * Transfers FlowFiles from one or more {@link RegisteredPartition}s to a Peer. As of version 3 of the protocol, the FlowFiles of all partitions are
+ * interleaved over the same channel and acknowledged by a single checksum; with earlier versions, only the first partition is sent.
+ */
 public class LoadBalanceSession {
     private static final Logger logger = LoggerFactory.getLogger(LoadBalanceSession.class);
     static final int MAX_DATA_FRAME_SIZE = 65535;
+    static final int MAX_PARTITIONS = 0xFFFF;
 
-    private final RegisteredPartition partition;
-    private final Supplier<FlowFileRecord> flowFileSupplier;
+    private final List<SessionPartition> partitions;
     private final FlowFileContentAccess flowFileContentAccess;
     private final LoadBalanceFlowFileCodec flowFileCodec;
     private final PeerChannel channel;
+    private final DataFrameCompressor frameCompressor;
     private final int timeoutMillis;
     private final String peerDescription;
-    private final String connectionId;
     private final TransactionThreshold transactionThreshold;
 
-    final VersionNegotiator negotiator = new StandardVersionNegotiator(1);
-    private int protocolVersion = 1;
+    final VersionNegotiator negotiator = new StandardVersionNegotiator(3, 2, 1);
+    private int protocolVersion = 3;
 
     private final Checksum checksum = new CRC32();
 
     // guarded by synchronizing on 'this'
     private ByteBuffer preparedFrame;
     private FlowFileRecord currentFlowFile;
-    private final List<FlowFileRecord> flowFilesSent = new ArrayList<>();
+    private SessionPartition currentPartition;
+    private int nextPartitionIndex = 0;
+    private int completionResponsesReceived = 0;
+    private final Deque<SessionPartition> spaceResponsesPending = new ArrayDeque<>();
     private TransactionPhase phase = TransactionPhase.RECOMMEND_PROTOCOL_VERSION;
     private InputStream flowFileInputStream;
     private final byte[] byteBuffer = new byte[MAX_DATA_FRAME_SIZE];
@@ -91,12 +99,24 @@ public class LoadBalanceSession {
 
     public LoadBalanceSession(final RegisteredPartition partition, final FlowFileContentAccess contentAccess, final LoadBalanceFlowFileCodec flowFileCodec, final PeerChannel peerChannel,
                               final int timeoutMillis, final TransactionThreshold transactionThreshold) {
-        this.partition = partition;
-        this.flowFileSupplier = partition.getFlowFileRecordSupplier();
-        this.connectionId = partition.getConnectionId();
+        this(Collections.singletonList(partition), contentAccess, flowFileCodec, peerChannel, timeoutMillis, transactionThreshold);
+    }
+
+    public LoadBalanceSession(final List<RegisteredPartition> partitions, final FlowFileContentAccess contentAccess, final LoadBalanceFlowFileCodec flowFileCodec,
+                              final PeerChannel peerChannel, final int timeoutMillis, final TransactionThreshold transactionThreshold) {
+        if (partitions.isEmpty() || partitions.size() > MAX_PARTITIONS) {
+            throw new IllegalArgumentException("A Load Balance Session must have between 1 and " + MAX_PARTITIONS + " partitions but " + partitions.size() + " were given");
+        }
+
+        this.partitions = new ArrayList<>(partitions.size());
+        for (final RegisteredPartition partition : partitions) {
+            this.partitions.add(new SessionPartition(this.partitions.size(), partition));
+        }
+
         this.flowFileContentAccess = contentAccess;
         this.flowFileCodec = flowFileCodec;
         this.channel = peerChannel;
+        this.frameCompressor = peerChannel.getFrameCompressor();
         this.peerDescription = peerChannel.getPeerDescription();
 
         if (timeoutMillis < 1) {
@@ -106,17 +126,52 @@ public class LoadBalanceSession {
         this.transactionThreshold = transactionThreshold;
     }
 
-    public RegisteredPartition getPartition() {
-        return partition;
+    /**
+     * @return the partitions whose FlowFiles are sent in this session. This may shrink to only the first partition if the Peer does not support
+     * multiplexing partitions over the same channel.
+     */
+    public synchronized List<RegisteredPartition> getPartitions() {
+        final List<RegisteredPartition> registeredPartitions = new ArrayList<>(partitions.size());
+        for (final SessionPartition sessionPartition : partitions) {
+            registeredPartitions.add(sessionPartition.getPartition());
+        }
+
+        return registeredPartitions;
     }
 
     public synchronized int getDesiredReadinessFlag() {
         return phase.getRequiredSelectionKey();
     }
 
-    public synchronized List<FlowFileRecord> getAndPurgeFlowFilesSent() {
-        final List<FlowFileRecord> copy = new ArrayList<>(flowFilesSent);
-        flowFilesSent.clear();
+    /**
+     * @return the FlowFiles that have been sent for each of the session's partitions, excluding any that the Peer refused to accept
+     */
+    public synchronized Map<RegisteredPartition, List<FlowFileRecord>> getAndPurgeFlowFilesSent() {
+        final Map<RegisteredPartition, List<FlowFileRecord>> flowFilesSent = new LinkedHashMap<>();
+        for (final SessionPartition sessionPartition : partitions) {
+            flowFilesSent.put(sessionPartition.getPartition(), purge(sessionPartition.flowFilesSent));
+        }
+
+        return flowFilesSent;
+    }
+
+    /**
+     * @return the FlowFiles that were sent for those partitions whose transfer the Peer aborted after the rest of the transaction had completed
+     */
+    public synchronized Map<RegisteredPartition, List<FlowFileRecord>> getAndPurgeFlowFilesRejected() {
+        final Map<RegisteredPartition, List<FlowFileRecord>> flowFilesRejected = new LinkedHashMap<>();
+        for (final SessionPartition sessionPartition : partitions) {
+            if (!sessionPartition.flowFilesRejected.isEmpty()) {
+                flowFilesRejected.put(sessionPartition.getPartition(), purge(sessionPartition.flowFilesRejected));
+            }
+        }
+
+        return flowFilesRejected;
+    }
+
+    private static List<FlowFileRecord> purge(final List<FlowFileRecord> flowFiles) {
+        final List<FlowFileRecord> copy = new ArrayList<>(flowFiles);
+        flowFiles.clear();
         return copy;
     }
 
@@ -189,15 +244,33 @@ public class LoadBalanceSession {
             throw new EOFException("Confirmed checksum when writing data to Peer " + peerDescription + " but encountered End-of-File when expecting a Transaction Complete confirmation");
         }
 
+        // As of version 3 of the protocol, the Peer confirms or aborts the transfer of each partition separately, because a single
+        // queue rejecting the data must not cause the data that was accepted by the other queues to be sent again.
+        final SessionPartition respondingPartition = partitions.get(completionResponsesReceived);
         if (response == ABORT_TRANSACTION) {
-            throw new TransactionAbortedException("Confirmed checksum when writing data to Peer " + peerDescription + " but Peer aborted transaction instead of completing it");
-        }
-        if (response != CONFIRM_COMPLETE_TRANSACTION) {
+            if (protocolVersion < 3) {
+                throw new TransactionAbortedException("Confirmed checksum when writing data to Peer " + peerDescription + " but Peer aborted transaction instead of completing it");
+            }
+
+            logger.debug("Peer {} aborted the transfer of {} FlowFiles for Connection {}", peerDescription, respondingPartition.flowFilesSent.size(), respondingPartition.getConnectionId());
+            respondingPartition.flowFilesRejected.addAll(respondingPartition.flowFilesSent);
+            respondingPartition.flowFilesSent.clear();
+        } else if (response != CONFIRM_COMPLETE_TRANSACTION) {
             throw new IOException("Expected a CONFIRM_COMPLETE_TRANSACTION response from Peer " + peerDescription + " but received a value of " + response);
         }
 
+        completionResponsesReceived++;
+        if (completionResponsesReceived < partitions.size()) {
+            return true;
+        }
+
         sessionState = LoadBalanceSessionState.COMPLETED_SUCCESSFULLY;
-        logger.debug("Successfully completed Transaction to send {} FlowFiles to Peer {} for Connection {}", flowFilesSent.size(), peerDescription, connectionId);
+        if (logger.isDebugEnabled()) {
+            for (final SessionPartition sessionPartition : partitions) {
+                logger.debug("Successfully completed Transaction to send {} FlowFiles to Peer {} for Connection {}", sessionPartition.flowFilesSent.size(), peerDescription,
+                    sessionPartition.getConnectionId());
+            }
+        }
 
         return true;
     }
@@ -288,8 +361,6 @@ public class LoadBalanceSession {
     }
 
     private ByteBuffer getFlowFileContent() throws IOException {
-        // This method is fairly inefficient, copying lots of byte[]. Can do better. But keeping it simple for
-        // now to get this working. Revisit with optimizations later.
         try {
             if (flowFileInputStream == null) {
                 flowFileInputStream = flowFileContentAccess.read(currentFlowFile);
@@ -314,53 +385,38 @@ public class LoadBalanceSession {
             }
 
             logger.trace("Sending Data Frame that is {} bytes long to Peer {}", bytesRead, peerDescription);
-            final ByteBuffer buffer;
-
-            if (partition.getCompression() == LoadBalanceCompression.COMPRESS_ATTRIBUTES_AND_CONTENT) {
-                final byte[] compressed = compressDataFrame(byteBuffer, bytesRead);
-                final int compressedMaxLen = compressed.length;
 
-                buffer = ByteBuffer.allocate(5 + compressedMaxLen);
-                buffer.put((byte) LoadBalanceProtocolConstants.DATA_FRAME_FOLLOWS);
-                buffer.putInt(compressedMaxLen);
-
-                buffer.put(compressed, 0, compressedMaxLen);
-            } else {
-                buffer = ByteBuffer.allocate(5 + bytesRead);
-                buffer.put((byte) LoadBalanceProtocolConstants.DATA_FRAME_FOLLOWS);
-                buffer.putInt(bytesRead);
-
-                buffer.put(byteBuffer, 0, bytesRead);
+            final ByteBuffer buffer;
+            switch (currentPartition.compression) {
+                case COMPRESS_ATTRIBUTES_AND_CONTENT:
+                    buffer = frameCompressor.createGzipFrame(LoadBalanceProtocolConstants.DATA_FRAME_FOLLOWS, byteBuffer, bytesRead);
+                    break;
+                case COMPRESS_ATTRIBUTES_AND_CONTENT_LZ4:
+                    buffer = frameCompressor.createLz4Frame(LoadBalanceProtocolConstants.DATA_FRAME_FOLLOWS, byteBuffer, bytesRead);
+                    break;
+                case COMPRESS_ATTRIBUTES_AND_CONTENT_ZSTD:
+                    buffer = frameCompressor.createZstdFrame(LoadBalanceProtocolConstants.DATA_FRAME_FOLLOWS, byteBuffer, bytesRead);
+                    break;
+                default:
+                    buffer = frameCompressor.createFrame(LoadBalanceProtocolConstants.DATA_FRAME_FOLLOWS, byteBuffer, bytesRead);
+                    break;
             }
 
-            final byte[] frameArray = buffer.array();
-            checksum.update(frameArray, 0, frameArray.length);
+            checksum.update(buffer.array(), 0, buffer.limit());
 
             phase = TransactionPhase.SEND_FLOWFILE_CONTENTS;
-            buffer.rewind();
             return buffer;
         } catch (final ContentNotFoundException cnfe) {
             throw new ContentNotFoundException(currentFlowFile, cnfe.getMissingClaim(), cnfe.getMessage());
         }
     }
 
-    private byte[] compressDataFrame(final byte[] uncompressed, final int byteCount) throws IOException {
-        try (final ByteArrayOutputStream baos = new ByteArrayOutputStream();
-             final OutputStream gzipOut = new GZIPOutputStream(baos, 1)) {
-
-            gzipOut.write(uncompressed, 0, byteCount);
-            gzipOut.close();
-
-            return baos.toByteArray();
-        }
-    }
-
     private ByteBuffer getNextFlowFile() throws IOException {
         if (transactionThreshold.isThresholdMet()) {
             currentFlowFile = null;
             logger.debug("Transaction Threshold reached sending to Peer {}; Transitioning phase to SEND_CHECKSUM", peerDescription);
         } else {
-            currentFlowFile = flowFileSupplier.get();
+            currentFlowFile = pollNextFlowFile();
 
             if (currentFlowFile == null) {
                 logger.debug("No more FlowFiles to send to Peer {}; Transitioning phase to SEND_CHECKSUM", peerDescription);
@@ -373,45 +429,62 @@ public class LoadBalanceSession {
         }
 
         transactionThreshold.adjust(1, currentFlowFile.getSize());
-        logger.debug("Next FlowFile to send to Peer {} is {}", peerDescription, currentFlowFile);
-        flowFilesSent.add(currentFlowFile);
+        logger.debug("Next FlowFile to send to Peer {} is {} for Connection {}", peerDescription, currentFlowFile, currentPartition.getConnectionId());
+        currentPartition.flowFilesSent.add(currentFlowFile);
 
-        final LoadBalanceCompression compression = partition.getCompression();
-        final boolean compressAttributes = compression != LoadBalanceCompression.DO_NOT_COMPRESS;
+        final LoadBalanceCompression compression = currentPartition.compression;
         logger.debug("Compression to use for sending to Peer {} is {}", peerDescription, compression);
 
-        final byte[] flowFileEncoded;
-        try (final ByteArrayOutputStream baos = new ByteArrayOutputStream()) {
-            if (compressAttributes) {
-                try (final OutputStream gzipOut = new GZIPOutputStream(baos, 1);
-                     final ByteCountingOutputStream out = new ByteCountingOutputStream(gzipOut)) {
+        final DataFrameCompressor.ReusableByteArrayOutputStream metadataOut = frameCompressor.getMetadataBuffer();
+        flowFileCodec.encode(currentFlowFile, metadataOut);
+
+        final int partitionIndex = protocolVersion < 3 ? DataFrameCompressor.NO_PARTITION_INDEX : currentPartition.index;
+        final ByteBuffer buffer;
+        switch (compression) {
+            case DO_NOT_COMPRESS:
+                buffer = frameCompressor.createFrame(LoadBalanceProtocolConstants.MORE_FLOWFILES, partitionIndex, metadataOut.getBuffer(), metadataOut.size());
+                break;
+            case COMPRESS_ATTRIBUTES_AND_CONTENT_LZ4:
+                buffer = frameCompressor.createLz4Frame(LoadBalanceProtocolConstants.MORE_FLOWFILES, partitionIndex, metadataOut.getBuffer(), metadataOut.size());
+                break;
+            case COMPRESS_ATTRIBUTES_AND_CONTENT_ZSTD:
+                buffer = frameCompressor.createZstdFrame(LoadBalanceProtocolConstants.MORE_FLOWFILES, partitionIndex, metadataOut.getBuffer(), metadataOut.size());
+                break;
+            default:
+                buffer = frameCompressor.createGzipFrame(LoadBalanceProtocolConstants.MORE_FLOWFILES, partitionIndex, metadataOut.getBuffer(), metadataOut.size());
+                break;
+        }
 
-                    flowFileCodec.encode(currentFlowFile, out);
-                }
-            } else {
-                flowFileCodec.encode(currentFlowFile, baos);
-            }
+        checksum.update(buffer.array(), 0, buffer.limit());
 
-            flowFileEncoded = baos.toByteArray();
-        }
+        phase = TransactionPhase.SEND_FLOWFILE_DEFINITION;
+        return buffer;
+    }
 
-        final int metadataLength = flowFileEncoded.length;
-        final ByteBuffer buffer = ByteBuffer.allocate(flowFileEncoded.length + 5);
-        buffer.put((byte) LoadBalanceProtocolConstants.MORE_FLOWFILES);
-        checksum.update(LoadBalanceProtocolConstants.MORE_FLOWFILES);
+    /**
+     * Takes the next FlowFile from the partitions in a round-robin fashion, so that the FlowFiles of all partitions are interleaved
+     * rather than one busy partition filling the transaction before the others are given a chance to send any data.
+     */
+    private FlowFileRecord pollNextFlowFile() {
+        for (int i = 0; i < partitions.size(); i++) {
+            final SessionPartition candidate = partitions.get(nextPartitionIndex);
+            nextPartitionIndex = (nextPartitionIndex + 1) % partitions.size();
+
+            if (candidate.queueFull || candidate.exhausted) {
+                continue;
+            }
 
-        buffer.putInt(metadataLength);
-        checksum.update((metadataLength >> 24) & 0xFF);
-        checksum.update((metadataLength >> 16) & 0xFF);
-        checksum.update((metadataLength >> 8) & 0xFF);
-        checksum.update(metadataLength & 0xFF);
+            final FlowFileRecord flowFile = candidate.getPartition().getFlowFileRecordSupplier().get();
+            if (flowFile == null) {
+                candidate.exhausted = true;
+                continue;
+            }
 
-        buffer.put(flowFileEncoded);
-        checksum.update(flowFileEncoded, 0, flowFileEncoded.length);
+            currentPartition = candidate;
+            return flowFile;
+        }
 
-        phase = TransactionPhase.SEND_FLOWFILE_DEFINITION;
-        buffer.rewind();
-        return buffer;
+        return null;
     }
 
 
@@ -515,11 +588,31 @@ public class LoadBalanceSession {
     }
 
     private ByteBuffer getConnectionId() {
+        if (protocolVersion >= 3) {
+            return getBatchHeader();
+        }
+
+        // Versions prior to 3 of the protocol are able to send the FlowFiles of only a single partition per transaction.
+        if (partitions.size() > 1) {
+            logger.debug("Peer {} does not support sending multiple partitions per transaction so will send FlowFiles only for Connection {}", peerDescription,
+                partitions.get(0).getConnectionId());
+            partitions.subList(1, partitions.size()).clear();
+        }
+
+        currentPartition = partitions.get(0);
+        final String connectionId = currentPartition.getConnectionId();
         logger.debug("Sending Connection ID {} to Peer {}", connectionId, peerDescription);
 
-        final ByteBuffer buffer = ByteBuffer.allocate(connectionId.length() + 2);
+        // As of version 2 of the protocol, the compression that is used is sent along with the Connection ID, rather than the Peer
+        // relying on its own configuration of the Connection. Version 1 only supports GZIP compression.
+        final LoadBalanceCompression compression = currentPartition.snapshotCompression(protocolVersion);
+
+        final ByteBuffer buffer = ByteBuffer.allocate(connectionId.length() + (protocolVersion < 2 ? 2 : 3));
         buffer.putShort((short) connectionId.length());
         buffer.put(connectionId.getBytes(StandardCharsets.UTF_8));
+        if (protocolVersion >= 2) {
+            buffer.put((byte) getCompressionIndicator(compression));
+        }
         buffer.rewind();
 
         final byte[] frameBytes = buffer.array();
@@ -529,14 +622,95 @@ public class LoadBalanceSession {
         return buffer;
     }
 
+    /**
+     * As of version 3 of the protocol, the Connection ID, compression, and space check of every partition in the transaction are sent up front,
+     * so that the Peer can respond to all of the space checks at once and demultiplex the FlowFiles that follow by partition index.
+     */
+    private ByteBuffer getBatchHeader() {
+        final List<byte[]> connectionIds = new ArrayList<>(partitions.size());
+        int headerLength = 2;
+        for (final SessionPartition sessionPartition : partitions) {
+            final byte[] connectionId = sessionPartition.getConnectionId().getBytes(StandardCharsets.UTF_8);
+            connectionIds.add(connectionId);
+            headerLength += 2 + connectionId.length + 2;
+        }
+
+        final ByteBuffer buffer = ByteBuffer.allocate(headerLength);
+        buffer.putShort((short) partitions.size());
+        for (final SessionPartition sessionPartition : partitions) {
+            final byte[] connectionId = connectionIds.get(sessionPartition.index);
+            buffer.putShort((short) connectionId.length);
+            buffer.put(connectionId);
+            buffer.put((byte) getCompressionIndicator(sessionPartition.snapshotCompression(protocolVersion)));
+
+            if (sessionPartition.getPartition().isHonorBackpressure()) {
+                buffer.put((byte) LoadBalanceProtocolConstants.CHECK_SPACE);
+                spaceResponsesPending.add(sessionPartition);
+            } else {
+                buffer.put((byte) LoadBalanceProtocolConstants.SKIP_SPACE_CHECK);
+            }
+        }
+        buffer.rewind();
+
+        logger.debug("Sending Connection IDs for {} partitions to Peer {}", partitions.size(), peerDescription);
+        checksum.update(buffer.array(), 0, buffer.limit());
+
+        if (spaceResponsesPending.isEmpty()) {
+            phase = TransactionPhase.GET_NEXT_FLOWFILE;
+        } else {
+            readTimeout = System.currentTimeMillis() + timeoutMillis;
+            phase = TransactionPhase.RECEIVE_SPACE_RESPONSE;
+        }
+
+        return buffer;
+    }
+
+    /**
+     * Determines the compression to use for a connection, given what the connection is configured to use and what the Peer and this node support.
+     * Version 1 of the protocol only supports GZIP compression, and version 2 does not support Zstandard. Zstandard falls back to LZ4, rather
+     * than GZIP, because it is chosen to reduce the CPU that is spent compressing data.
+     *
+     * @param configured the compression that the connection is configured to use
+     * @param protocolVersion the version of the protocol that was negotiated with the Peer
+     * @param zstdAvailable whether or not the Zstandard library is available on this node
+     * @return the compression to use
+     */
+    static LoadBalanceCompression getSupportedCompression(final LoadBalanceCompression configured, final int protocolVersion, final boolean zstdAvailable) {
+        LoadBalanceCompression compression = configured;
+        if (compression == LoadBalanceCompression.COMPRESS_ATTRIBUTES_AND_CONTENT_ZSTD && (protocolVersion < 3 || !zstdAvailable)) {
+            compression = LoadBalanceCompression.COMPRESS_ATTRIBUTES_AND_CONTENT_LZ4;
+        }
+        if (compression == LoadBalanceCompression.COMPRESS_ATTRIBUTES_AND_CONTENT_LZ4 && protocolVersion < 2) {
+            compression = LoadBalanceCompression.COMPRESS_ATTRIBUTES_AND_CONTENT;
+        }
+
+        return compression;
+    }
+
+    private static int getCompressionIndicator(final LoadBalanceCompression compression) {
+        switch (compression) {
+            case COMPRESS_ATTRIBUTES_ONLY:
+                return LoadBalanceProtocolConstants.COMPRESSION_GZIP_ATTRIBUTES;
+            case COMPRESS_ATTRIBUTES_AND_CONTENT:
+                return LoadBalanceProtocolConstants.COMPRESSION_GZIP_ATTRIBUTES_AND_CONTENT;
+            case COMPRESS_ATTRIBUTES_AND_CONTENT_LZ4:
+                return LoadBalanceProtocolConstants.COMPRESSION_LZ4_ATTRIBUTES_AND_CONTENT;
+            case COMPRESS_ATTRIBUTES_AND_CONTENT_ZSTD:
+                return LoadBalanceProtocolConstants.COMPRESSION_ZSTD_ATTRIBUTES_AND_CONTENT;
+            default:
+                return LoadBalanceProtocolConstants.COMPRESSION_NONE;
+        }
+    }
+
     private ByteBuffer checkSpace() {
         logger.debug("Sending a 'Check Space' request to Peer {} to determine if there is space in the queue for more FlowFiles", peerDescription);
 
         final ByteBuffer buffer = ByteBuffer.allocate(1);
 
-        if (partition.isHonorBackpressure()) {
+        if (currentPartition.getPartition().isHonorBackpressure()) {
             buffer.put((byte) LoadBalanceProtocolConstants.CHECK_SPACE);
             checksum.update(LoadBalanceProtocolConstants.CHECK_SPACE);
+            spaceResponsesPending.add(currentPartition);
 
             readTimeout = System.currentTimeMillis() + timeoutMillis;
             phase = TransactionPhase.RECEIVE_SPACE_RESPONSE;
@@ -553,6 +727,8 @@ public class LoadBalanceSession {
 
 
     private boolean receiveSpaceAvailableResponse() throws IOException {
+        final SessionPartition sessionPartition = spaceResponsesPending.peek();
+        final String connectionId = sessionPartition.getConnectionId();
         logger.debug("Receiving response from Peer {} to determine whether or not space is available in queue {}", peerDescription, connectionId);
 
         final OptionalInt spaceAvailableResponse = channel.read();
@@ -571,18 +747,29 @@ public class LoadBalanceSession {
 
         if (response == SPACE_AVAILABLE) {
             logger.debug("Peer {} has confirmed that space is available in Connection {}", peerDescription, connectionId);
-            phase = TransactionPhase.GET_NEXT_FLOWFILE;
         } else if (response == QUEUE_FULL) {
             logger.debug("Peer {} has confirmed that the queue is full for Connection {}", peerDescription, connectionId);
+            sessionPartition.queueFull = true;
+            sessionPartition.getPartition().penalize(1000L);
+        } else {
+            throw new TransactionAbortedException("After requesting to know whether or not Peer " + peerDescription + " has space available in Connection " + connectionId
+                + ", received unexpected response of " + response + ". Aborting transaction.");
+        }
+
+        spaceResponsesPending.poll();
+        if (!spaceResponsesPending.isEmpty()) {
+            return true;
+        }
+
+        final boolean anySpaceAvailable = partitions.stream().anyMatch(candidate -> !candidate.queueFull);
+        if (anySpaceAvailable) {
+            phase = TransactionPhase.GET_NEXT_FLOWFILE;
+        } else {
             phase = TransactionPhase.RECOMMEND_PROTOCOL_VERSION;
             checksum.reset(); // We are restarting the session entirely so we need to reset our checksum
 
             // consider complete because there's nothing else that we can do in this session. Allow client to move on to a different session.
             sessionState = LoadBalanceSessionState.COMPLETED_SUCCESSFULLY;
-            partition.penalize(1000L);
-        } else {
-            throw new TransactionAbortedException("After requesting to know whether or not Peer " + peerDescription + " has space available in Connection " + connectionId
-                + ", received unexpected response of " + response + ". Aborting transaction.");
         }
 
         return true;
@@ -590,6 +777,34 @@ public class LoadBalanceSession {
 
 
 
+    private static class SessionPartition {
+        private final int index;
+        private final RegisteredPartition partition;
+        private final List<FlowFileRecord> flowFilesSent = new ArrayList<>();
+        private final List<FlowFileRecord> flowFilesRejected = new ArrayList<>();
+        private LoadBalanceCompression compression;
+        private boolean queueFull = false;
+        private boolean exhausted = false;
+
+        SessionPartition(final int index, final RegisteredPartition partition) {
+            this.index = index;
+            this.partition = partition;
+        }
+
+        RegisteredPartition getPartition() {
+            return partition;
+        }
+
+        String getConnectionId() {
+            return partition.getConnectionId();
+        }
+
+        LoadBalanceCompression snapshotCompression(final int protocolVersion) {
+            compression = getSupportedCompression(partition.getCompression(), protocolVersion, ZstdCompression.isAvailable());
+            return compression;
+        }
+    }
+
     private enum TransactionPhase {
         RECOMMEND_PROTOCOL_VERSION(SelectionKey.OP_WRITE),
 
@@ -29,6 +29,7 @@ import org.apache.nifi.controller.queue.clustered.client.LoadBalanceFlowFileCode
 import org.apache.nifi.controller.queue.clustered.client.async.AsyncLoadBalanceClient;
 import org.apache.nifi.controller.queue.clustered.client.async.TransactionCompleteCallback;
 import org.apache.nifi.controller.queue.clustered.client.async.TransactionFailureCallback;
+import org.apache.nifi.controller.queue.clustered.server.TransactionAbortedException;
 import org.apache.nifi.controller.repository.FlowFileRecord;
 import org.apache.nifi.events.EventReporter;
 import org.apache.nifi.reporting.Severity;
@@ -62,6 +63,7 @@ import java.util.function.Supplier;
 public class NioAsyncLoadBalanceClient implements AsyncLoadBalanceClient {
     private static final Logger logger = LoggerFactory.getLogger(NioAsyncLoadBalanceClient.class);
     private static final long PENALIZATION_MILLIS = TimeUnit.SECONDS.toMillis(1L);
+    private static final int MAX_PARTITIONS_PER_SESSION = 100;
 
     private final NodeIdentifier nodeIdentifier;
     private final SSLContext sslContext;
@@ -129,15 +131,20 @@ public class NioAsyncLoadBalanceClient implements AsyncLoadBalanceClient {
         }
 
         logger.debug("{} Unregistered Connection with ID {}. Will fail any in-flight FlowFiles for Registered Partition {}", this, connectionId, removedPartition);
-        final boolean validSession = loadBalanceSession != null && connectionId.equals(loadBalanceSession.getPartition().getConnectionId());
+        final boolean validSession = loadBalanceSession != null && loadBalanceSession.getPartitions().contains(removedPartition);
         if (validSession && !loadBalanceSession.getSessionState().isComplete()) {
-            // Attempt to cancel the session. If successful, trigger the failure callback for the partition.
+            // Attempt to cancel the session. If successful, trigger the failure callback for each of the session's partitions, as the FlowFiles
+            // of the other partitions that share the session will not be sent either.
             // If not successful, it indicates that another thread has completed the session and is responsible or the transaction success/failure
             if (loadBalanceSession.cancel()) {
-                final List<FlowFileRecord> flowFilesSent = loadBalanceSession.getAndPurgeFlowFilesSent();
+                for (final Map.Entry<RegisteredPartition, List<FlowFileRecord>> entry : loadBalanceSession.getAndPurgeFlowFilesSent().entrySet()) {
+                    final RegisteredPartition partition = entry.getKey();
+                    final List<FlowFileRecord> flowFilesSent = entry.getValue();
 
-                logger.debug("{} Triggering failure callback for {} FlowFiles for Registered Partition {} because partition was unregistered", this, flowFilesSent.size(), removedPartition);
-                removedPartition.getFailureCallback().onTransactionFailed(flowFilesSent, TransactionFailureCallback.TransactionPhase.SENDING);
+                    logger.debug("{} Triggering failure callback for {} FlowFiles for Registered Partition {} because partition {} was unregistered", this, flowFilesSent.size(), partition,
+                        removedPartition);
+                    partition.getFailureCallback().onTransactionFailed(flowFilesSent, TransactionFailureCallback.TransactionPhase.SENDING);
+                }
             }
         }
     }
@@ -266,10 +273,12 @@ public class NioAsyncLoadBalanceClient implements AsyncLoadBalanceClient {
                 } catch (final Exception e) {
                     logger.error("Failed to communicate with Peer {}", nodeIdentifier.toString(), e);
                     eventReporter.reportEvent(Severity.ERROR, "Load Balanced Connection", "Failed to communicate with Peer " + nodeIdentifier + " when load balancing data for Connection with ID " +
-                        loadBalanceSession.getPartition().getConnectionId() + " due to " + e);
+                        getConnectionIds(loadBalanceSession) + " due to " + e);
 
                     penalize();
-                    loadBalanceSession.getPartition().getFailureCallback().onTransactionFailed(loadBalanceSession.getAndPurgeFlowFilesSent(), e, TransactionFailureCallback.TransactionPhase.SENDING);
+                    for (final Map.Entry<RegisteredPartition, List<FlowFileRecord>> entry : loadBalanceSession.getAndPurgeFlowFilesSent().entrySet()) {
+                        entry.getKey().getFailureCallback().onTransactionFailed(entry.getValue(), e, TransactionFailureCallback.TransactionPhase.SENDING);
+                    }
                     close();
 
                     return false;
@@ -280,7 +289,15 @@ public class NioAsyncLoadBalanceClient implements AsyncLoadBalanceClient {
 
             final LoadBalanceSession.LoadBalanceSessionState sessionState = loadBalanceSession.getSessionState();
             if (sessionState.isComplete() && sessionState != LoadBalanceSession.LoadBalanceSessionState.CANCELED) {
-                loadBalanceSession.getPartition().getSuccessCallback().onTransactionComplete(loadBalanceSession.getAndPurgeFlowFilesSent(), nodeIdentifier);
+                for (final Map.Entry<RegisteredPartition, List<FlowFileRecord>> entry : loadBalanceSession.getAndPurgeFlowFilesRejected().entrySet()) {
+                    final TransactionAbortedException abortedException = new TransactionAbortedException("Peer " + nodeIdentifier + " aborted the transfer of FlowFiles for Connection with ID "
+                        + entry.getKey().getConnectionId());
+                    entry.getKey().getFailureCallback().onTransactionFailed(entry.getValue(), abortedException, TransactionFailureCallback.TransactionPhase.SENDING);
+                }
+
+                for (final Map.Entry<RegisteredPartition, List<FlowFileRecord>> entry : loadBalanceSession.getAndPurgeFlowFilesSent().entrySet()) {
+                    entry.getKey().getSuccessCallback().onTransactionComplete(entry.getValue(), nodeIdentifier);
+                }
             }
 
             return anySuccess;
@@ -313,10 +330,12 @@ public class NioAsyncLoadBalanceClient implements AsyncLoadBalanceClient {
                 loadBalanceSession = null;
 
                 logger.debug("Node {} disconnected so will terminate the Load Balancing Session", nodeIdentifier);
-                final List<FlowFileRecord> flowFilesSent = session.getAndPurgeFlowFilesSent();
+                for (final Map.Entry<RegisteredPartition, List<FlowFileRecord>> entry : session.getAndPurgeFlowFilesSent().entrySet()) {
+                    final List<FlowFileRecord> flowFilesSent = entry.getValue();
 
-                if (!flowFilesSent.isEmpty()) {
-                    session.getPartition().getFailureCallback().onTransactionFailed(flowFilesSent, TransactionFailureCallback.TransactionPhase.SENDING);
+                    if (!flowFilesSent.isEmpty()) {
+                        entry.getKey().getFailureCallback().onTransactionFailed(flowFilesSent, TransactionFailureCallback.TransactionPhase.SENDING);
+                    }
                 }
 
                 close();
@@ -412,12 +431,31 @@ public class NioAsyncLoadBalanceClient implements AsyncLoadBalanceClient {
             return null;
         }
 
-        loadBalanceSession = new LoadBalanceSession(readyPartition, flowFileContentAccess, flowFileCodec, channel, timeoutMillis, newTransactionThreshold());
-        partitionQueue.offer(readyPartition);
+        // Gather up any other partitions that have data ready so that their FlowFiles can be multiplexed over the channel in the same transaction,
+        // rather than each partition requiring its own transaction, with its own round trips to the peer.
+        final List<RegisteredPartition> readyPartitions = new ArrayList<>();
+        readyPartitions.add(readyPartition);
+
+        RegisteredPartition additionalPartition;
+        while (readyPartitions.size() < MAX_PARTITIONS_PER_SESSION && (additionalPartition = getReadyPartition()) != null) {
+            readyPartitions.add(additionalPartition);
+        }
+
+        loadBalanceSession = new LoadBalanceSession(readyPartitions, flowFileContentAccess, flowFileCodec, channel, timeoutMillis, newTransactionThreshold());
+        partitionQueue.addAll(readyPartitions);
 
         return loadBalanceSession;
     }
 
+    private static List<String> getConnectionIds(final LoadBalanceSession session) {
+        final List<String> connectionIds = new ArrayList<>();
+        for (final RegisteredPartition partition : session.getPartitions()) {
+            connectionIds.add(partition.getConnectionId());
+        }
+
+        return connectionIds;
+    }
+
     private TransactionThreshold newTransactionThreshold() {
          return new SimpleLimitThreshold(1000, 10_000_000L);
     }
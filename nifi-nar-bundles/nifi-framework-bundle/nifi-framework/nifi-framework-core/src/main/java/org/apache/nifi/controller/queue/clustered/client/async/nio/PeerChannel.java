@@ -45,6 +45,7 @@ public class PeerChannel implements Closeable {
     private ByteBuffer destinationBuffer = ByteBuffer.allocate(16 * 1024); // buffer that SSLEngine is to write into
     private final ByteBuffer streamBuffer = ByteBuffer.allocate(16 * 1024); // buffer for data that is read from SocketChannel
     private ByteBuffer applicationBuffer = ByteBuffer.allocate(0); // buffer for application-level data that is ready to be served up (i.e., already decrypted if necessary)
+    private final DataFrameCompressor frameCompressor = new DataFrameCompressor(); // builds the frames of each session, reusing its buffers across frames and sessions
 
     public PeerChannel(final SocketChannel socketChannel, final SSLEngine sslEngine, final String peerDescription) {
         this.socketChannel = socketChannel;
@@ -89,6 +90,7 @@ public class PeerChannel implements Closeable {
             }
         } finally {
             logger.debug("Closing Peer Channel [{}] Socket Channel close started", peerDescription);
+            frameCompressor.close();
             socketChannel.close();
         }
     }
@@ -105,6 +107,10 @@ public class PeerChannel implements Closeable {
         return peerDescription;
     }
 
+    public DataFrameCompressor getFrameCompressor() {
+        return frameCompressor;
+    }
+
     /**
      * Write one byte to the channel
      *
@@ -0,0 +1,172 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.nifi.controller.queue.clustered.partition;
+
+import org.apache.nifi.cluster.protocol.NodeIdentifier;
+import org.apache.nifi.controller.repository.FlowFileRecord;
+import org.apache.nifi.flowfile.attributes.CoreAttributes;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Supplier;
+
+/**
+ * Partitions FlowFiles by the value of an attribute using rendezvous (highest random weight) hashing. For each FlowFile, every partition is given a
+ * score derived from the attribute value and the identity of the node that the partition belongs to, and the partition with the highest score wins.
+ * Because the score that a node receives for a given value does not depend on which other nodes are in the cluster, removing a node moves only the
+ * FlowFiles that were assigned to that node, and adding a node moves only the FlowFiles that the new node now wins: roughly 1/N of them in either case,
+ * as opposed to nearly all of them with the {@link CorrelationAttributePartitioner}.
+ */
+public class ConsistentHashPartitioner implements FlowFilePartitioner {
+    private static final Logger logger = LoggerFactory.getLogger(ConsistentHashPartitioner.class);
+
+    private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+    private static final long GOLDEN_RATIO = 0x9E3779B97F4A7C15L;
+
+    private final String partitioningAttribute;
+    private final Supplier<NodeIdentifier> localNodeIdentifierSupplier;
+
+    private volatile NodeHashes nodeHashes;
+
+    public ConsistentHashPartitioner(final String partitioningAttribute, final Supplier<NodeIdentifier> localNodeIdentifierSupplier) {
+        this.partitioningAttribute = partitioningAttribute;
+        this.localNodeIdentifierSupplier = localNodeIdentifierSupplier;
+    }
+
+    @Override
+    public QueuePartition getPartition(final FlowFileRecord flowFile, final QueuePartition[] partitions, final QueuePartition localPartition) {
+        final long[] hashes = getNodeHashes(partitions, localPartition);
+        final long valueHash = hash(flowFile.getAttribute(partitioningAttribute));
+
+        int index = 0;
+        long highestScore = score(valueHash, hashes[0]);
+        for (int i = 1; i < hashes.length; i++) {
+            final long score = score(valueHash, hashes[i]);
+
+            // Break ties by node hash rather than by position so that every node in the cluster makes the same choice.
+            if (score > highestScore || (score == highestScore && hashes[i] > hashes[index])) {
+                highestScore = score;
+                index = i;
+            }
+        }
+
+        if (logger.isDebugEnabled()) {
+            final List<String> partitionDescriptions = new ArrayList<>(partitions.length);
+            for (final QueuePartition partition : partitions) {
+                partitionDescriptions.add(partition.getSwapPartitionName());
+            }
+
+            logger.debug("Assigning Partition {} to {} based on {}", index, flowFile.getAttribute(CoreAttributes.UUID.key()), partitionDescriptions);
+        }
+
+        return partitions[index];
+    }
+
+    @Override
+    public boolean isRebalanceOnClusterResize() {
+        return true;
+    }
+
+    @Override
+    public boolean isRebalanceOnFailure() {
+        return false;
+    }
+
+    /**
+     * Returns the hash of each partition's node, in the same order as the given partitions. The queue replaces its array of partitions whenever
+     * the cluster topology changes, so the hashes are computed once per array rather than once per FlowFile.
+     */
+    private long[] getNodeHashes(final QueuePartition[] partitions, final QueuePartition localPartition) {
+        final NodeHashes cached = nodeHashes;
+        if (cached != null && cached.partitions == partitions && cached.localPartition == localPartition) {
+            return cached.hashes;
+        }
+
+        final long[] hashes = new long[partitions.length];
+        for (int i = 0; i < partitions.length; i++) {
+            hashes[i] = hash(getNodeKey(partitions[i], localPartition));
+        }
+
+        // Do not cache the hashes until the local node's identity is known, since until then the local partition is keyed by its name.
+        if (localNodeIdentifierSupplier.get() != null) {
+            nodeHashes = new NodeHashes(partitions, localPartition, hashes);
+        }
+
+        return hashes;
+    }
+
+    private String getNodeKey(final QueuePartition partition, final QueuePartition localPartition) {
+        final Optional<NodeIdentifier> partitionNodeId = partition.getNodeIdentifier();
+        final NodeIdentifier nodeId = partitionNodeId.isPresent() ? partitionNodeId.get() : (partition == localPartition ? localNodeIdentifierSupplier.get() : null);
+        if (nodeId == null) {
+            return partition.getSwapPartitionName();
+        }
+
+        // Use the same address and port that the queue sorts its partitions by, so that all nodes in the cluster derive the same key for a given node.
+        return nodeId.getApiAddress() + ":" + nodeId.getApiPort();
+    }
+
+    private static long score(final long valueHash, final long nodeHash) {
+        return mix(valueHash ^ (nodeHash * GOLDEN_RATIO));
+    }
+
+    /**
+     * 64-bit FNV-1a hash of the given value. Unlike {@link String#hashCode()}, this spreads values across the full range of a long.
+     */
+    static long hash(final String value) {
+        long hash = FNV_OFFSET_BASIS;
+        if (value == null) {
+            return hash;
+        }
+
+        for (int i = 0; i < value.length(); i++) {
+            hash ^= value.charAt(i);
+            hash *= FNV_PRIME;
+        }
+
+        return hash;
+    }
+
+    /**
+     * Finalization step of MurmurHash3's 64-bit hash, used so that every bit of the input affects every bit of the score.
+     */
+    private static long mix(long value) {
+        value ^= value >>> 33;
+        value *= 0xff51afd7ed558ccdL;
+        value ^= value >>> 33;
+        value *= 0xc4ceb93fe53e5a77L;
+        value ^= value >>> 33;
+        return value;
+    }
+
+    private static class NodeHashes {
+        private final QueuePartition[] partitions;
+        private final QueuePartition localPartition;
+        private final long[] hashes;
+
+        private NodeHashes(final QueuePartition[] partitions, final QueuePartition localPartition, final long[] hashes) {
+            this.partitions = partitions;
+            this.localPartition = localPartition;
+            this.hashes = hashes;
+        }
+    }
+}
@@ -43,4 +43,11 @@ public class LoadBalanceProtocolConstants {
     // data frame constants
     public static final int NO_DATA_FRAME = 0x40;
     public static final int DATA_FRAME_FOLLOWS = 0x42;
+
+    // compression constants, sent after the Connection ID as of version 2 of the protocol
+    public static final int COMPRESSION_NONE = 0x70;
+    public static final int COMPRESSION_GZIP_ATTRIBUTES = 0x71;
+    public static final int COMPRESSION_GZIP_ATTRIBUTES_AND_CONTENT = 0x72;
+    public static final int COMPRESSION_LZ4_ATTRIBUTES_AND_CONTENT = 0x73;
+    public static final int COMPRESSION_ZSTD_ATTRIBUTES_AND_CONTENT = 0x74;
 }
@@ -0,0 +1,169 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.nifi.controller.queue.clustered.protocol;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+
+/**
+ * Compresses and decompresses the data frames of load-balanced connections that are configured to use Zstandard. Zstandard is provided by the
+ * zstd-jni native library, which is not available on every platform, so the library is loaded reflectively: when it cannot be loaded,
+ * {@link #isAvailable()} returns <code>false</code> and connections that are configured to use Zstandard are sent using LZ4 instead.
+ */
+public final class ZstdCompression {
+    private static final Logger logger = LoggerFactory.getLogger(ZstdCompression.class);
+
+    private static final String ZSTD_CLASS_NAME = "com.github.luben.zstd.Zstd";
+    private static final int COMPRESSION_LEVEL = 1;
+
+    private static final MethodHandle compressBound;
+    private static final MethodHandle compressByteArray;
+    private static final MethodHandle decompressByteArray;
+    private static final MethodHandle isError;
+    private static final MethodHandle getErrorName;
+
+    static {
+        MethodHandle bound = null;
+        MethodHandle compress = null;
+        MethodHandle decompress = null;
+        MethodHandle error = null;
+        MethodHandle errorName = null;
+
+        try {
+            final Class<?> zstdClass = Class.forName(ZSTD_CLASS_NAME, true, ZstdCompression.class.getClassLoader());
+            final MethodHandles.Lookup lookup = MethodHandles.publicLookup();
+            bound = lookup.findStatic(zstdClass, "compressBound", MethodType.methodType(long.class, long.class));
+            compress = lookup.findStatic(zstdClass, "compressByteArray",
+                MethodType.methodType(long.class, byte[].class, int.class, int.class, byte[].class, int.class, int.class, int.class));
+            decompress = lookup.findStatic(zstdClass, "decompressByteArray",
+                MethodType.methodType(long.class, byte[].class, int.class, int.class, byte[].class, int.class, int.class));
+            error = lookup.findStatic(zstdClass, "isError", MethodType.methodType(boolean.class, long.class));
+            errorName = lookup.findStatic(zstdClass, "getErrorName", MethodType.methodType(String.class, long.class));
+
+            // Ensure that the native library can actually be loaded on this platform
+            final long unused = (long) bound.invokeExact(0L);
+        } catch (final Throwable t) {
+            logger.debug("Zstandard compression is not available for load-balanced connections; connections configured to use it will use LZ4 instead", t);
+            bound = null;
+        }
+
+        compressBound = bound;
+        compressByteArray = compress;
+        decompressByteArray = decompress;
+        isError = error;
+        getErrorName = errorName;
+    }
+
+    private ZstdCompression() {
+    }
+
+    /**
+     * @return <code>true</code> if the zstd-jni library could be loaded, <code>false</code> otherwise
+     */
+    public static boolean isAvailable() {
+        return compressBound != null;
+    }
+
+    /**
+     * @param length the number of bytes to compress
+     * @return the maximum number of bytes that compressing the given number of bytes can produce
+     */
+    public static int maxCompressedLength(final int length) {
+        checkAvailable();
+
+        try {
+            return (int) (long) compressBound.invokeExact((long) length);
+        } catch (final Throwable t) {
+            throw new IllegalStateException("Failed to determine maximum Zstandard compressed length", t);
+        }
+    }
+
+    /**
+     * Compresses the given data as a single Zstandard frame
+     *
+     * @return the number of compressed bytes that were written to the destination
+     */
+    public static int compress(final byte[] source, final int sourceOffset, final int sourceLength, final byte[] destination, final int destinationOffset,
+                               final int destinationLength) {
+        checkAvailable();
+
+        final long result;
+        try {
+            result = (long) compressByteArray.invokeExact(destination, destinationOffset, destinationLength, source, sourceOffset, sourceLength, COMPRESSION_LEVEL);
+        } catch (final Throwable t) {
+            throw new IllegalStateException("Failed to compress data using Zstandard", t);
+        }
+
+        if (isError(result)) {
+            throw new IllegalStateException("Failed to compress data using Zstandard: " + getErrorName(result));
+        }
+
+        return (int) result;
+    }
+
+    /**
+     * Decompresses the given Zstandard frame
+     *
+     * @return the number of decompressed bytes that were written to the destination
+     * @throws IOException if the data is not a valid Zstandard frame or does not fit in the destination
+     */
+    public static int decompress(final byte[] source, final int sourceOffset, final int sourceLength, final byte[] destination, final int destinationOffset,
+                                 final int destinationLength) throws IOException {
+        checkAvailable();
+
+        final long result;
+        try {
+            result = (long) decompressByteArray.invokeExact(destination, destinationOffset, destinationLength, source, sourceOffset, sourceLength);
+        } catch (final Throwable t) {
+            throw new IOException("Failed to decompress Zstandard data", t);
+        }
+
+        if (isError(result)) {
+            throw new IOException("Failed to decompress Zstandard data: " + getErrorName(result));
+        }
+
+        return (int) result;
+    }
+
+    private static boolean isError(final long result) {
+        try {
+            return (boolean) isError.invokeExact(result);
+        } catch (final Throwable t) {
+            throw new IllegalStateException("Failed to check Zstandard result code", t);
+        }
+    }
+
+    private static String getErrorName(final long result) {
+        try {
+            return (String) getErrorName.invokeExact(result);
+        } catch (final Throwable t) {
+            return "error code " + result;
+        }
+    }
+
+    private static void checkAvailable() {
+        if (!isAvailable()) {
+            throw new IllegalStateException("Zstandard compression is not available because the zstd-jni library could not be loaded");
+        }
+    }
+}
@@ -17,12 +17,16 @@
 
 package org.apache.nifi.controller.queue.clustered.server;
 
+import net.jpountz.lz4.LZ4Exception;
+import net.jpountz.lz4.LZ4Factory;
+import net.jpountz.lz4.LZ4SafeDecompressor;
 import org.apache.nifi.connectable.Connection;
 import org.apache.nifi.controller.FlowController;
 import org.apache.nifi.controller.queue.FlowFileQueue;
 import org.apache.nifi.controller.queue.IllegalClusterStateException;
 import org.apache.nifi.controller.queue.LoadBalanceCompression;
 import org.apache.nifi.controller.queue.LoadBalancedFlowFileQueue;
+import org.apache.nifi.controller.queue.clustered.protocol.ZstdCompression;
 import org.apache.nifi.controller.repository.ContentRepository;
 import org.apache.nifi.controller.repository.FlowFileRecord;
 import org.apache.nifi.controller.repository.FlowFileRepository;
@@ -47,6 +51,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import javax.net.ssl.SSLSocket;
+import java.io.ByteArrayInputStream;
 import java.io.DataInputStream;
 import java.io.EOFException;
 import java.io.IOException;
@@ -57,6 +62,7 @@ import java.net.SocketTimeoutException;
 import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -72,6 +78,11 @@ import static org.apache.nifi.controller.queue.clustered.protocol.LoadBalancePro
 import static org.apache.nifi.controller.queue.clustered.protocol.LoadBalanceProtocolConstants.ABORT_TRANSACTION;
 import static org.apache.nifi.controller.queue.clustered.protocol.LoadBalanceProtocolConstants.CHECK_SPACE;
 import static org.apache.nifi.controller.queue.clustered.protocol.LoadBalanceProtocolConstants.COMPLETE_TRANSACTION;
+import static org.apache.nifi.controller.queue.clustered.protocol.LoadBalanceProtocolConstants.COMPRESSION_GZIP_ATTRIBUTES;
+import static org.apache.nifi.controller.queue.clustered.protocol.LoadBalanceProtocolConstants.COMPRESSION_GZIP_ATTRIBUTES_AND_CONTENT;
+import static org.apache.nifi.controller.queue.clustered.protocol.LoadBalanceProtocolConstants.COMPRESSION_LZ4_ATTRIBUTES_AND_CONTENT;
+import static org.apache.nifi.controller.queue.clustered.protocol.LoadBalanceProtocolConstants.COMPRESSION_NONE;
+import static org.apache.nifi.controller.queue.clustered.protocol.LoadBalanceProtocolConstants.COMPRESSION_ZSTD_ATTRIBUTES_AND_CONTENT;
 import static org.apache.nifi.controller.queue.clustered.protocol.LoadBalanceProtocolConstants.CONFIRM_CHECKSUM;
 import static org.apache.nifi.controller.queue.clustered.protocol.LoadBalanceProtocolConstants.CONFIRM_COMPLETE_TRANSACTION;
 import static org.apache.nifi.controller.queue.clustered.protocol.LoadBalanceProtocolConstants.DATA_FRAME_FOLLOWS;
@@ -98,6 +109,8 @@ public class StandardLoadBalanceProtocol implements LoadBalanceProtocol {
     private final LoadBalanceAuthorizer authorizer;
 
     private final ThreadLocal<byte[]> dataBuffer = new ThreadLocal<>();
+    private final ThreadLocal<byte[]> compressedDataBuffer = new ThreadLocal<>();
+    private final LZ4SafeDecompressor lz4Decompressor = LZ4Factory.fastestInstance().safeDecompressor();
     private final AtomicLong lineageStartIndex = new AtomicLong(0L);
 
     public StandardLoadBalanceProtocol(final FlowFileRepository flowFileRepository, final ContentRepository contentRepository, final ProvenanceRepository provenanceRepository,
@@ -138,7 +151,7 @@ public class StandardLoadBalanceProtocol implements LoadBalanceProtocol {
 
 
     protected int negotiateProtocolVersion(final InputStream in, final OutputStream out, final String peerDescription, final String channelDescription) throws IOException {
-        final VersionNegotiator negotiator = new StandardVersionNegotiator(1);
+        final VersionNegotiator negotiator = new StandardVersionNegotiator(3, 2, 1);
 
         for (int i=0;; i++) {
             final int requestedVersion;
@@ -196,64 +209,34 @@ public class StandardLoadBalanceProtocol implements LoadBalanceProtocol {
         final InputStream checkedInput = new CheckedInputStream(in, checksum);
 
         final DataInputStream dataIn = new DataInputStream(checkedInput);
-        final String connectionId = getConnectionID(dataIn, peerDescription);
-        if (connectionId == null) {
+        final List<ReceivingPartition> partitions = protocolVersion < 3 ? receivePartition(dataIn, peerDescription, protocolVersion) : receivePartitions(dataIn, peerDescription);
+        if (partitions == null) {
             logger.debug("Received no Connection ID from Peer {}. Will consider receipt of FlowFiles complete", peerDescription);
             return;
         }
 
-        final Connection connection = flowController.getFlowManager().getConnection(connectionId);
-        if (connection == null) {
-            logger.error("Attempted to receive FlowFiles from Peer {} for Connection with ID {} but no connection exists with that ID", peerDescription, connectionId);
-            throw new TransactionAbortedException("Attempted to receive FlowFiles from Peer " + peerDescription + " for Connection with ID " + connectionId + " but no Connection exists with that ID");
-        }
-
-        final FlowFileQueue flowFileQueue = connection.getFlowFileQueue();
-        if (!(flowFileQueue instanceof LoadBalancedFlowFileQueue)) {
-            throw new TransactionAbortedException("Attempted to receive FlowFiles from Peer " + peerDescription + " for Connection with ID " + connectionId + " but the Connection with that ID is " +
-                    "not configured to allow for Load Balancing");
-        }
-
-        final LoadBalancedFlowFileQueue loadBalancedFlowFileQueue = (LoadBalancedFlowFileQueue) flowFileQueue;
-
-        final int spaceCheck = dataIn.read();
-        if (spaceCheck < 0) {
-            throw new EOFException("Expected to receive a request to determine whether or not space was available for Connection with ID " + connectionId + " from Peer " + peerDescription);
-        }
-
-        if (spaceCheck == CHECK_SPACE) {
-            if (loadBalancedFlowFileQueue.isLocalPartitionFull()) {
-                logger.debug("Received a 'Check Space' request from Peer {} for Connection with ID {}; responding with QUEUE_FULL", peerDescription, connectionId);
-                out.write(QUEUE_FULL);
-                out.flush();
-                return; // we're finished receiving flowfiles for now, and we'll restart the communication process.
-            } else {
-                logger.debug("Received a 'Check Space' request from Peer {} for Connection with ID {}; responding with SPACE_AVAILABLE", peerDescription, connectionId);
-                out.write(SPACE_AVAILABLE);
-                out.flush();
-            }
-        } else if (spaceCheck != SKIP_SPACE_CHECK) {
-            throw new TransactionAbortedException("Expected to receive a request to determine whether or not space was available for Connection with ID "
-                + connectionId + " from Peer " + peerDescription + " but instead received value " + spaceCheck);
+        if (!checkSpace(out, partitions, peerDescription)) {
+            return; // we're finished receiving flowfiles for now, and we'll restart the communication process.
         }
 
-        final LoadBalanceCompression compression = connection.getFlowFileQueue().getLoadBalanceCompression();
-        logger.debug("Receiving FlowFiles from Peer {} for Connection {}; Compression = {}", peerDescription, connectionId, compression);
-
         ContentClaim contentClaim = null;
         final List<RemoteFlowFileRecord> flowFilesReceived = new ArrayList<>();
         OutputStream contentClaimOut = null;
         long claimOffset = 0L;
+        boolean committed = false;
 
         try {
             try {
                 while (isMoreFlowFiles(dataIn, protocolVersion)) {
+                    // As of version 3 of the protocol, each FlowFile is preceded by the index of the partition that it belongs to.
+                    final ReceivingPartition partition = protocolVersion < 3 ? partitions.get(0) : getPartition(dataIn, partitions, peerDescription);
+
                     if (contentClaim == null) {
                         contentClaim = contentRepository.create(false);
                         contentClaimOut = contentRepository.write(contentClaim);
                     }
 
-                    final RemoteFlowFileRecord flowFile = receiveFlowFile(dataIn, contentClaimOut, contentClaim, claimOffset, protocolVersion, peerDescription, compression);
+                    final RemoteFlowFileRecord flowFile = receiveFlowFile(dataIn, contentClaimOut, contentClaim, claimOffset, protocolVersion, peerDescription, partition.getCompression());
 
                     // The FlowFile's Content Claim will either be null or equal to the provided Content Claim.
                     // Incrementing the FlowFile's content claim will increment the count for the provided Content Claim, if it was
@@ -261,6 +244,7 @@ public class StandardLoadBalanceProtocol implements LoadBalanceProtocol {
                     contentRepository.incrementClaimaintCount(flowFile.getFlowFile().getContentClaim());
 
                     flowFilesReceived.add(flowFile);
+                    partition.getFlowFilesReceived().add(flowFile);
 
                     claimOffset += flowFile.getFlowFile().getSize();
                 }
@@ -276,28 +260,159 @@ public class StandardLoadBalanceProtocol implements LoadBalanceProtocol {
             final int count = contentRepository.decrementClaimantCount(contentClaim);
 
             verifyChecksum(checksum, in, out, peerDescription, flowFilesReceived.size());
-            completeTransaction(in, out, peerDescription, flowFilesReceived, connectionId, startTimestamp, (LoadBalancedFlowFileQueue) flowFileQueue);
+            receiveCompletionIndicator(in, out, peerDescription);
 
             if (count == 0) {
                 contentRepository.remove(contentClaim);
             }
+
+            // Once the FlowFile Repository has been updated, the FlowFiles own their Content Claims, so from here on any failure
+            // must be handled without decrementing the claimant counts or removing the Content Claim.
+            commitFlowFiles(partitions, peerDescription, startTimestamp);
+            committed = true;
         } catch (final Exception e) {
-            // If any Exception occurs, we need to decrement the claimant counts for the Content Claims that we wrote to because
-            // they are no longer needed.
-            for (final RemoteFlowFileRecord remoteFlowFile : flowFilesReceived) {
-                contentRepository.decrementClaimantCount(remoteFlowFile.getFlowFile().getContentClaim());
-            }
+            if (!committed) {
+                // If any Exception occurs before the FlowFiles are committed, we need to decrement the claimant counts for the Content Claims
+                // that we wrote to because they are no longer needed.
+                for (final RemoteFlowFileRecord remoteFlowFile : flowFilesReceived) {
+                    contentRepository.decrementClaimantCount(remoteFlowFile.getFlowFile().getContentClaim());
+                }
 
-            contentRepository.remove(contentClaim);
+                contentRepository.remove(contentClaim);
+            }
 
             throw e;
         }
 
-        logger.debug("Successfully received {} FlowFiles from Peer {} to Load Balance for Connection {}", flowFilesReceived.size(), peerDescription, connectionId);
+        completeTransaction(out, partitions, peerDescription);
+
+        for (final ReceivingPartition partition : partitions) {
+            logger.debug("Successfully received {} FlowFiles from Peer {} to Load Balance for Connection {}", partition.getFlowFilesReceived().size(), peerDescription,
+                partition.getConnectionId());
+        }
+    }
+
+    private List<ReceivingPartition> receivePartition(final DataInputStream dataIn, final String peerDescription, final int protocolVersion) throws IOException {
+        final String connectionId = getConnectionID(dataIn, peerDescription);
+        if (connectionId == null) {
+            return null;
+        }
+
+        // As of version 2 of the protocol, the Peer indicates which compression it uses. Otherwise, the compression is determined by the Connection's configuration.
+        final LoadBalanceCompression peerCompression = protocolVersion < 2 ? null : getCompression(dataIn, peerDescription);
+        final LoadBalancedFlowFileQueue flowFileQueue = getLoadBalancedFlowFileQueue(connectionId, peerDescription);
+        final boolean spaceCheckRequested = isSpaceCheckRequested(dataIn, connectionId, peerDescription);
+
+        final LoadBalanceCompression compression = peerCompression == null ? flowFileQueue.getLoadBalanceCompression() : peerCompression;
+        return Collections.singletonList(new ReceivingPartition(connectionId, flowFileQueue, compression, spaceCheckRequested));
+    }
+
+    /**
+     * As of version 3 of the protocol, the Peer may multiplex the FlowFiles of many Connections over a single transaction. The transaction begins with the
+     * number of Connections, followed by the ID, compression, and space check request for each of them.
+     */
+    private List<ReceivingPartition> receivePartitions(final DataInputStream dataIn, final String peerDescription) throws IOException {
+        final int partitionCount;
+        try {
+            partitionCount = dataIn.readUnsignedShort();
+        } catch (final EOFException eof) {
+            logger.debug("Encountered EOFException when trying to receive Connection IDs from Peer {}. Returning null for Connection IDs", peerDescription);
+            return null;
+        }
+
+        final List<ReceivingPartition> partitions = new ArrayList<>(partitionCount);
+        for (int i = 0; i < partitionCount; i++) {
+            final String connectionId = dataIn.readUTF();
+            final LoadBalanceCompression compression = getCompression(dataIn, peerDescription);
+            final LoadBalancedFlowFileQueue flowFileQueue = getLoadBalancedFlowFileQueue(connectionId, peerDescription);
+            final boolean spaceCheckRequested = isSpaceCheckRequested(dataIn, connectionId, peerDescription);
+
+            partitions.add(new ReceivingPartition(connectionId, flowFileQueue, compression, spaceCheckRequested));
+        }
+
+        logger.debug("Receiving FlowFiles from Peer {} for {} Connections", peerDescription, partitionCount);
+        return partitions;
+    }
+
+    private ReceivingPartition getPartition(final DataInputStream dataIn, final List<ReceivingPartition> partitions, final String peerDescription) throws IOException {
+        final int partitionIndex = dataIn.readUnsignedShort();
+        if (partitionIndex >= partitions.size()) {
+            throw new IOException("Peer " + peerDescription + " sent a FlowFile for partition " + partitionIndex + " but only " + partitions.size() + " partitions are part of the transaction");
+        }
+
+        final ReceivingPartition partition = partitions.get(partitionIndex);
+        if (partition.isQueueFull()) {
+            throw new IOException("Peer " + peerDescription + " sent a FlowFile for Connection with ID " + partition.getConnectionId() + " after being told that the queue is full");
+        }
+
+        return partition;
+    }
+
+    private LoadBalancedFlowFileQueue getLoadBalancedFlowFileQueue(final String connectionId, final String peerDescription) throws IOException {
+        final Connection connection = flowController.getFlowManager().getConnection(connectionId);
+        if (connection == null) {
+            logger.error("Attempted to receive FlowFiles from Peer {} for Connection with ID {} but no connection exists with that ID", peerDescription, connectionId);
+            throw new TransactionAbortedException("Attempted to receive FlowFiles from Peer " + peerDescription + " for Connection with ID " + connectionId + " but no Connection exists with that ID");
+        }
+
+        final FlowFileQueue flowFileQueue = connection.getFlowFileQueue();
+        if (!(flowFileQueue instanceof LoadBalancedFlowFileQueue)) {
+            throw new TransactionAbortedException("Attempted to receive FlowFiles from Peer " + peerDescription + " for Connection with ID " + connectionId + " but the Connection with that ID is " +
+                    "not configured to allow for Load Balancing");
+        }
+
+        return (LoadBalancedFlowFileQueue) flowFileQueue;
+    }
+
+    private boolean isSpaceCheckRequested(final DataInputStream dataIn, final String connectionId, final String peerDescription) throws IOException {
+        final int spaceCheck = dataIn.read();
+        if (spaceCheck < 0) {
+            throw new EOFException("Expected to receive a request to determine whether or not space was available for Connection with ID " + connectionId + " from Peer " + peerDescription);
+        }
+
+        if (spaceCheck != CHECK_SPACE && spaceCheck != SKIP_SPACE_CHECK) {
+            throw new TransactionAbortedException("Expected to receive a request to determine whether or not space was available for Connection with ID "
+                + connectionId + " from Peer " + peerDescription + " but instead received value " + spaceCheck);
+        }
+
+        return spaceCheck == CHECK_SPACE;
     }
 
-    private void completeTransaction(final InputStream in, final OutputStream out, final String peerDescription, final List<RemoteFlowFileRecord> flowFilesReceived,
-                                     final String connectionId, final long startTimestamp, final LoadBalancedFlowFileQueue flowFileQueue) throws IOException {
+    /**
+     * Responds to each of the space checks that the Peer requested, in the order of the partitions
+     *
+     * @return <code>true</code> if space is available for at least one of the partitions, <code>false</code> if all of the partitions are full
+     */
+    private boolean checkSpace(final OutputStream out, final List<ReceivingPartition> partitions, final String peerDescription) throws IOException {
+        boolean spaceChecked = false;
+        boolean spaceAvailable = false;
+
+        for (final ReceivingPartition partition : partitions) {
+            if (!partition.isSpaceCheckRequested()) {
+                spaceAvailable = true;
+                continue;
+            }
+
+            spaceChecked = true;
+            if (partition.getFlowFileQueue().isLocalPartitionFull()) {
+                logger.debug("Received a 'Check Space' request from Peer {} for Connection with ID {}; responding with QUEUE_FULL", peerDescription, partition.getConnectionId());
+                out.write(QUEUE_FULL);
+                partition.setQueueFull();
+            } else {
+                logger.debug("Received a 'Check Space' request from Peer {} for Connection with ID {}; responding with SPACE_AVAILABLE", peerDescription, partition.getConnectionId());
+                out.write(SPACE_AVAILABLE);
+                spaceAvailable = true;
+            }
+        }
+
+        if (spaceChecked) {
+            out.flush();
+        }
+
+        return spaceAvailable;
+    }
+
+    private void receiveCompletionIndicator(final InputStream in, final OutputStream out, final String peerDescription) throws IOException {
         final int completionIndicator = in.read();
         if (completionIndicator < 0) {
             throw new EOFException("Expected to receive a Transaction Completion Indicator from Peer " + peerDescription + " but encountered EOF");
@@ -316,15 +431,54 @@ public class StandardLoadBalanceProtocol implements LoadBalanceProtocol {
         }
 
         logger.debug("Received Complete Transaction indicator from Peer {}", peerDescription);
-        registerReceiveProvenanceEvents(flowFilesReceived, peerDescription, connectionId, startTimestamp);
-        updateFlowFileRepository(flowFilesReceived, flowFileQueue);
+    }
+
+    /**
+     * Registers the RECEIVE events for the FlowFiles of all partitions and then writes all of them to the FlowFile Repository in a single update, so that
+     * either all of the FlowFiles in the transaction are persisted or none of them are.
+     */
+    private void commitFlowFiles(final List<ReceivingPartition> partitions, final String peerDescription, final long startTimestamp) throws IOException {
+        final List<RepositoryRecord> repoRecords = new ArrayList<>();
+        for (final ReceivingPartition partition : partitions) {
+            final List<RemoteFlowFileRecord> flowFilesReceived = partition.getFlowFilesReceived();
+            if (flowFilesReceived.isEmpty()) {
+                continue;
+            }
+
+            registerReceiveProvenanceEvents(flowFilesReceived, peerDescription, partition.getConnectionId(), startTimestamp);
+            repoRecords.addAll(createRepositoryRecords(flowFilesReceived, partition.getFlowFileQueue()));
+        }
+
+        flowFileRepository.updateRepository(repoRecords);
+    }
+
+    /**
+     * Transfers the committed FlowFiles of each partition to its queue and then confirms or aborts each partition. As of version 3 of the protocol, the transfer
+     * of each partition is confirmed or aborted separately, so that one queue rejecting the data does not cause the data accepted by the other queues to be sent again.
+     * All of the FlowFiles are transferred before any response is written, so that a failure to write the responses cannot leave committed FlowFiles outside of a queue.
+     */
+    private void completeTransaction(final OutputStream out, final List<ReceivingPartition> partitions, final String peerDescription) throws IOException {
+        final boolean[] accepted = new boolean[partitions.size()];
+        for (int i = 0; i < partitions.size(); i++) {
+            final ReceivingPartition partition = partitions.get(i);
+            final List<RemoteFlowFileRecord> flowFilesReceived = partition.getFlowFilesReceived();
+            accepted[i] = flowFilesReceived.isEmpty() || transferFlowFilesToQueue(flowFilesReceived, partition.getFlowFileQueue());
+        }
+
+        for (final boolean partitionAccepted : accepted) {
+            out.write(partitionAccepted ? CONFIRM_COMPLETE_TRANSACTION : ABORT_TRANSACTION);
+        }
 
+        out.flush();
+        logger.debug("Completed Load Balance Transaction with Peer {}", peerDescription);
+    }
+
+    private boolean transferFlowFilesToQueue(final List<RemoteFlowFileRecord> flowFilesReceived, final LoadBalancedFlowFileQueue flowFileQueue) {
         try {
-            transferFlowFilesToQueue(flowFilesReceived, flowFileQueue);
+            final List<FlowFileRecord> flowFiles = flowFilesReceived.stream().map(RemoteFlowFileRecord::getFlowFile).collect(Collectors.toList());
+            flowFileQueue.receiveFromPeer(flowFiles);
         } catch (final IllegalClusterStateException e) {
             logger.error("Failed to transferred received data into FlowFile Queue {}", flowFileQueue, e);
-            out.write(ABORT_TRANSACTION);
-            out.flush();
 
             try {
                 cleanupRepositoriesOnTransferFailure(flowFilesReceived, flowFileQueue, "Rejected transfer due to " + e.getMessage());
@@ -332,15 +486,13 @@ public class StandardLoadBalanceProtocol implements LoadBalanceProtocol {
                 logger.error("Failed to update FlowFile/Provenance Repositories to denote that the data that could not be received should no longer be present on this node", e1);
             }
 
-            // We log the error here and cleanup. We do not throw an Exception. If we did throw an Exception,
-            // the caller of this method would catch the Exception and decrement the Content Claims, etc. However,
-            // since we have already updated the FlowFile Repository to DROP the data, that would decrement the claims
-            // twice, which could lead to data loss.
-            return;
+            // We log the error here and cleanup. We do not throw an Exception, so that the FlowFiles of the other partitions
+            // in the transaction are still transferred to their queues and confirmed. The FlowFile Repository now owns the
+            // Content Claims of the dropped FlowFiles, so they must not be decremented again.
+            return false;
         }
 
-        out.write(CONFIRM_COMPLETE_TRANSACTION);
-        out.flush();
+        return true;
     }
 
     private void cleanupRepositoriesOnTransferFailure(final List<RemoteFlowFileRecord> flowFilesReceived, final FlowFileQueue flowFileQueue, final String details) throws IOException {
@@ -421,20 +573,14 @@ public class StandardLoadBalanceProtocol implements LoadBalanceProtocol {
         provenanceRepository.registerEvents(events);
     }
 
-    private void updateFlowFileRepository(final List<RemoteFlowFileRecord> flowFiles, final FlowFileQueue flowFileQueue) throws IOException {
-        final List<RepositoryRecord> repoRecords = flowFiles.stream()
+    private List<RepositoryRecord> createRepositoryRecords(final List<RemoteFlowFileRecord> flowFiles, final FlowFileQueue flowFileQueue) {
+        return flowFiles.stream()
                 .map(remoteFlowFile -> {
                     final StandardRepositoryRecord record = new StandardRepositoryRecord(flowFileQueue, remoteFlowFile.getFlowFile());
                     record.setDestination(flowFileQueue);
                     return record;
                 })
                 .collect(Collectors.toList());
-        flowFileRepository.updateRepository(repoRecords);
-    }
-
-    private void transferFlowFilesToQueue(final List<RemoteFlowFileRecord> remoteFlowFiles, final LoadBalancedFlowFileQueue flowFileQueue) throws IllegalClusterStateException {
-        final List<FlowFileRecord> flowFiles = remoteFlowFiles.stream().map(RemoteFlowFileRecord::getFlowFile).collect(Collectors.toList());
-        flowFileQueue.receiveFromPeer(flowFiles);
     }
 
     private void verifyChecksum(final Checksum checksum, final InputStream in, final OutputStream out, final String peerDescription, final int flowFileCount) throws IOException {
@@ -477,6 +623,29 @@ public class StandardLoadBalanceProtocol implements LoadBalanceProtocol {
         }
     }
 
+    private LoadBalanceCompression getCompression(final DataInputStream in, final String peerDescription) throws IOException {
+        final int indicator = in.read();
+        switch (indicator) {
+            case COMPRESSION_NONE:
+                return LoadBalanceCompression.DO_NOT_COMPRESS;
+            case COMPRESSION_GZIP_ATTRIBUTES:
+                return LoadBalanceCompression.COMPRESS_ATTRIBUTES_ONLY;
+            case COMPRESSION_GZIP_ATTRIBUTES_AND_CONTENT:
+                return LoadBalanceCompression.COMPRESS_ATTRIBUTES_AND_CONTENT;
+            case COMPRESSION_LZ4_ATTRIBUTES_AND_CONTENT:
+                return LoadBalanceCompression.COMPRESS_ATTRIBUTES_AND_CONTENT_LZ4;
+            case COMPRESSION_ZSTD_ATTRIBUTES_AND_CONTENT:
+                if (!ZstdCompression.isAvailable()) {
+                    throw new IOException("Peer " + peerDescription + " sent FlowFiles compressed using Zstandard, but the zstd-jni library could not be loaded on this node");
+                }
+                return LoadBalanceCompression.COMPRESS_ATTRIBUTES_AND_CONTENT_ZSTD;
+            case -1:
+                throw new EOFException("Encountered End-of-File when expecting to receive Compression Indicator from Peer " + peerDescription);
+            default:
+                throw new IOException("Expected a Compression Indicator from Peer " + peerDescription + " but received a value of " + indicator);
+        }
+    }
+
     private boolean isMoreFlowFiles(final DataInputStream in, final int protocolVersion) throws IOException {
         final int indicator = in.read();
         if (indicator < 0) {
@@ -501,7 +670,16 @@ public class StandardLoadBalanceProtocol implements LoadBalanceProtocol {
         final int metadataLength = dis.readInt();
 
         DataInputStream metadataIn = new DataInputStream(new LimitingInputStream(dis, metadataLength));
-        if (compression != LoadBalanceCompression.DO_NOT_COMPRESS) {
+        if (isBlockCompressed(compression)) {
+            final int uncompressedLength = metadataIn.readInt();
+            if (uncompressedLength < 0) {
+                throw new IOException("Received invalid Metadata Length of " + uncompressedLength + " from Peer " + peerDescription);
+            }
+
+            final byte[] metadata = new byte[uncompressedLength];
+            decompressBlock(metadataIn, metadataLength - 4, metadata, uncompressedLength, peerDescription, compression);
+            metadataIn = new DataInputStream(new ByteArrayInputStream(metadata));
+        } else if (compression != LoadBalanceCompression.DO_NOT_COMPRESS) {
             metadataIn = new DataInputStream(new GZIPInputStream(metadataIn));
         }
 
@@ -514,7 +692,7 @@ public class StandardLoadBalanceProtocol implements LoadBalanceProtocol {
         final long entryDate = metadataIn.readLong();
         final long penaltyExpirationMillis = metadataIn.readLong();
 
-        final ContentClaimTriple contentClaimTriple = consumeContent(dis, out, contentClaim, claimOffset, peerDescription, compression == LoadBalanceCompression.COMPRESS_ATTRIBUTES_AND_CONTENT);
+        final ContentClaimTriple contentClaimTriple = consumeContent(dis, out, contentClaim, claimOffset, peerDescription, compression);
 
         final FlowFileRecord flowFileRecord = new StandardFlowFileRecord.Builder()
             .id(flowFileRepository.getNextFlowFileSequence())
@@ -554,7 +732,7 @@ public class StandardLoadBalanceProtocol implements LoadBalanceProtocol {
     }
 
     private ContentClaimTriple consumeContent(final DataInputStream in, final OutputStream out, final ContentClaim contentClaim, final long claimOffset,
-                                              final String peerDescription, final boolean compressed) throws IOException {
+                                              final String peerDescription, final LoadBalanceCompression compression) throws IOException {
         logger.debug("Consuming content from Peer {}", peerDescription);
 
         int dataFrameIndicator = in.read();
@@ -579,13 +757,25 @@ public class StandardLoadBalanceProtocol implements LoadBalanceProtocol {
 
         long claimLength = 0;
         while (true) {
-            final InputStream limitedIn = new LimitedInputStream(in, dataFrameLength);
-            final ByteCountingInputStream bcis = new ByteCountingInputStream(limitedIn);
-            final InputStream contentIn = compressed ? new GZIPInputStream(bcis) : bcis;
-            final int decompressedSize = StreamUtils.fillBuffer(contentIn, buffer, false);
+            final int decompressedSize;
+            if (isBlockCompressed(compression)) {
+                final int uncompressedLength = in.readInt();
+                if (uncompressedLength < 0 || uncompressedLength > buffer.length) {
+                    throw new IOException("Received invalid Data Frame Length of " + uncompressedLength + " from Peer " + peerDescription);
+                }
 
-            if (bcis.getBytesRead() < dataFrameLength) {
-                throw new EOFException("Expected to receive a Data Frame of length " + dataFrameLength + " bytes but received only " + bcis.getBytesRead() + " bytes");
+                decompressBlock(in, dataFrameLength - 4, buffer, uncompressedLength, peerDescription, compression);
+                decompressedSize = uncompressedLength;
+            } else {
+                final InputStream limitedIn = new LimitedInputStream(in, dataFrameLength);
+                final ByteCountingInputStream bcis = new ByteCountingInputStream(limitedIn);
+                final boolean compressed = compression == LoadBalanceCompression.COMPRESS_ATTRIBUTES_AND_CONTENT;
+                final InputStream contentIn = compressed ? new GZIPInputStream(bcis) : bcis;
+                decompressedSize = StreamUtils.fillBuffer(contentIn, buffer, false);
+
+                if (bcis.getBytesRead() < dataFrameLength) {
+                    throw new EOFException("Expected to receive a Data Frame of length " + dataFrameLength + " bytes but received only " + bcis.getBytesRead() + " bytes");
+                }
             }
 
             out.write(buffer, 0, decompressedSize);
@@ -615,6 +805,54 @@ public class StandardLoadBalanceProtocol implements LoadBalanceProtocol {
         return new ContentClaimTriple(contentClaim, claimOffset, claimLength);
     }
 
+    /**
+     * @return <code>true</code> if each frame's data is the 4-byte uncompressed length of the data followed by a compressed block, rather than a GZIP stream
+     */
+    private static boolean isBlockCompressed(final LoadBalanceCompression compression) {
+        return compression == LoadBalanceCompression.COMPRESS_ATTRIBUTES_AND_CONTENT_LZ4 || compression == LoadBalanceCompression.COMPRESS_ATTRIBUTES_AND_CONTENT_ZSTD;
+    }
+
+    /**
+     * Reads an LZ4 block or Zstandard frame of the given length and decompresses it into the beginning of the given buffer
+     */
+    private void decompressBlock(final DataInputStream in, final int compressedLength, final byte[] destination, final int uncompressedLength,
+                                 final String peerDescription, final LoadBalanceCompression compression) throws IOException {
+        if (compressedLength < 0) {
+            throw new IOException("Received invalid Data Frame Length of " + compressedLength + " from Peer " + peerDescription);
+        }
+
+        byte[] compressed = compressedDataBuffer.get();
+        if (compressed == null || compressed.length < compressedLength) {
+            compressed = new byte[Math.max(compressedLength, 65536 + 4096)];
+            compressedDataBuffer.set(compressed);
+        }
+
+        in.readFully(compressed, 0, compressedLength);
+
+        final String algorithm;
+        final long decompressedLength;
+        if (compression == LoadBalanceCompression.COMPRESS_ATTRIBUTES_AND_CONTENT_ZSTD) {
+            algorithm = "Zstandard";
+            try {
+                decompressedLength = ZstdCompression.decompress(compressed, 0, compressedLength, destination, 0, uncompressedLength);
+            } catch (final IOException e) {
+                throw new IOException("Failed to decompress Zstandard Data Frame received from Peer " + peerDescription, e);
+            }
+        } else {
+            algorithm = "LZ4";
+            try {
+                decompressedLength = lz4Decompressor.decompress(compressed, 0, compressedLength, destination, 0, uncompressedLength);
+            } catch (final LZ4Exception e) {
+                throw new IOException("Failed to decompress LZ4 Data Frame received from Peer " + peerDescription, e);
+            }
+        }
+
+        if (decompressedLength != uncompressedLength) {
+            throw new IOException("Expected " + algorithm + " Data Frame from Peer " + peerDescription + " to decompress to " + uncompressedLength
+                + " bytes but it decompressed to " + decompressedLength + " bytes");
+        }
+    }
+
     private static class ContentClaimTriple {
         private final ContentClaim contentClaim;
         private final long claimOffset;
@@ -639,6 +877,50 @@ public class StandardLoadBalanceProtocol implements LoadBalanceProtocol {
         }
     }
 
+    private static class ReceivingPartition {
+        private final String connectionId;
+        private final LoadBalancedFlowFileQueue flowFileQueue;
+        private final LoadBalanceCompression compression;
+        private final boolean spaceCheckRequested;
+        private final List<RemoteFlowFileRecord> flowFilesReceived = new ArrayList<>();
+        private boolean queueFull = false;
+
+        public ReceivingPartition(final String connectionId, final LoadBalancedFlowFileQueue flowFileQueue, final LoadBalanceCompression compression, final boolean spaceCheckRequested) {
+            this.connectionId = connectionId;
+            this.flowFileQueue = flowFileQueue;
+            this.compression = compression;
+            this.spaceCheckRequested = spaceCheckRequested;
+        }
+
+        public String getConnectionId() {
+            return connectionId;
+        }
+
+        public LoadBalancedFlowFileQueue getFlowFileQueue() {
+            return flowFileQueue;
+        }
+
+        public LoadBalanceCompression getCompression() {
+            return compression;
+        }
+
+        public boolean isSpaceCheckRequested() {
+            return spaceCheckRequested;
+        }
+
+        public List<RemoteFlowFileRecord> getFlowFilesReceived() {
+            return flowFilesReceived;
+        }
+
+        public boolean isQueueFull() {
+            return queueFull;
+        }
+
+        public void setQueueFull() {
+            this.queueFull = true;
+        }
+    }
+
     private static class RemoteFlowFileRecord {
         private final String remoteUuid;
         private final FlowFileRecord flowFile;
@@ -34,7 +34,9 @@ import org.slf4j.LoggerFactory;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.channels.WritableByteChannel;
 import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
 import java.util.Map;
@@ -42,12 +44,27 @@ import java.util.Set;
 import java.util.function.Consumer;
 import java.util.regex.Pattern;
 
+/**
+ * <p>
+ * A ProcessSessionFactory for Processors that support batching. Every session that is created is backed by the same StandardProcessSession,
+ * and committing it only checkpoints the work that has been done, so that all of the work performed while the Processor is triggered repeatedly
+ * during its Run Duration is committed together, by a single update to the FlowFile Repository, a single batch of Provenance Events, and a single
+ * enqueue per destination Connection, when {@link #commitAsync(Consumer)} is called.
+ * </p>
+ *
+ * <p>
+ * Callbacks that are provided to {@link ProcessSession#commitAsync(Runnable, Consumer)} are not triggered until that combined commit has completed,
+ * so a Processor that acknowledges data to its source only upon success is not notified until the data has been persisted.
+ * </p>
+ */
 public class BatchingSessionFactory implements ProcessSessionFactory {
     private static final Logger logger = LoggerFactory.getLogger(BatchingSessionFactory.class);
 
+    private final StandardProcessSession standardProcessSession;
     private final HighThroughputSession highThroughputSession;
 
     public BatchingSessionFactory(final StandardProcessSession standardProcessSession) {
+        this.standardProcessSession = standardProcessSession;
         highThroughputSession = new HighThroughputSession(standardProcessSession);
     }
 
@@ -56,10 +73,49 @@ public class BatchingSessionFactory implements ProcessSessionFactory {
         return highThroughputSession;
     }
 
+    /**
+     * Commits all of the work that has been committed to the sessions created by this factory, and then triggers the callbacks that were registered
+     * by calls to {@link ProcessSession#commitAsync(Runnable, Consumer)}, in the order in which they were registered.
+     *
+     * @param onFailure called if unable to commit the work, before the failure callbacks that were registered by the Processor; may be <code>null</code>
+     */
+    public void commitAsync(final Consumer<Throwable> onFailure) {
+        final List<Runnable> successCallbacks = highThroughputSession.successCallbacks;
+        final List<Consumer<Throwable>> failureCallbacks = highThroughputSession.failureCallbacks;
+        highThroughputSession.successCallbacks = new ArrayList<>();
+        highThroughputSession.failureCallbacks = new ArrayList<>();
+
+        standardProcessSession.commitAsync(() -> {
+            for (final Runnable callback : successCallbacks) {
+                try {
+                    callback.run();
+                } catch (final Throwable t) {
+                    logger.error("Successfully committed session asynchronously but failed to trigger success callback", t);
+                }
+            }
+        }, failure -> {
+            if (onFailure != null) {
+                onFailure.accept(failure);
+            }
+
+            for (final Consumer<Throwable> callback : failureCallbacks) {
+                try {
+                    callback.accept(failure);
+                } catch (final Throwable t) {
+                    logger.error("Failed to asynchronously commit session and failed to trigger failure callback", t);
+                }
+            }
+        });
+    }
+
 
     private static class HighThroughputSession implements ProcessSession {
         private final StandardProcessSession session;
 
+        // Callbacks for work that has been checkpointed but not yet committed
+        private List<Runnable> successCallbacks = new ArrayList<>();
+        private List<Consumer<Throwable>> failureCallbacks = new ArrayList<>();
+
         public HighThroughputSession(final StandardProcessSession session) {
             this.session = session;
         }
@@ -81,13 +137,18 @@ public class BatchingSessionFactory implements ProcessSessionFactory {
             } catch (final Throwable t) {
                 rollback();
                 logger.error("Failed to asynchronously commit session", t);
-                onFailure.accept(t);
+                if (onFailure != null) {
+                    onFailure.accept(t);
+                }
+                return;
             }
 
-            try {
-                onSuccess.run();
-            } catch (final Throwable t) {
-                logger.error("Successfully committed session asynchronously but failed to trigger success callback", t);
+            // The work is only checkpointed, so the callbacks must wait until the checkpoint is committed along with the rest of the batch
+            if (onSuccess != null) {
+                successCallbacks.add(onSuccess);
+            }
+            if (onFailure != null) {
+                failureCallbacks.add(onFailure);
             }
         }
 
@@ -281,6 +342,11 @@ public class BatchingSessionFactory implements ProcessSessionFactory {
             session.exportTo(flowFile, destination);
         }
 
+        @Override
+        public void exportTo(FlowFile flowFile, WritableByteChannel destination) {
+            session.exportTo(flowFile, destination);
+        }
+
         @Override
         public ProvenanceReporter getProvenanceReporter() {
             return session.getProvenanceReporter();
@@ -21,6 +21,7 @@ import org.apache.nifi.controller.repository.claim.ContentClaim;
 import org.apache.nifi.controller.repository.claim.ResourceClaim;
 import org.apache.nifi.controller.repository.claim.ResourceClaimManager;
 import org.apache.nifi.controller.repository.claim.StandardContentClaim;
+import org.apache.nifi.controller.repository.io.ByteBufferInputStream;
 import org.apache.nifi.controller.repository.io.LimitedInputStream;
 import org.apache.nifi.engine.FlowEngine;
 import org.apache.nifi.events.EventReporter;
@@ -46,6 +47,11 @@ import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.SelectableChannel;
+import java.nio.channels.WritableByteChannel;
 import java.nio.file.FileVisitResult;
 import java.nio.file.Files;
 import java.nio.file.NoSuchFileException;
@@ -93,6 +99,11 @@ public class FileSystemRepository implements ContentRepository {
     // unnecessarily large resource claim files
     public static final String APPENDABLE_CLAIM_LENGTH_CAP = "100 MB";
     public static final Pattern MAX_ARCHIVE_SIZE_PATTERN = Pattern.compile("\\d{1,2}%");
+    public static final String MMAP_ENABLED = "nifi.content.repository.mmap.enabled";
+    public static final String MMAP_MAX_MAPPINGS = "nifi.content.repository.mmap.max.mappings";
+    public static final String MMAP_MAX_CLAIM_SIZE = "nifi.content.repository.mmap.max.claim.size";
+    private static final int DEFAULT_MMAP_MAX_MAPPINGS = 1024;
+    private static final String DEFAULT_MMAP_MAX_CLAIM_SIZE = "16 MB";
     private static final Logger LOG = LoggerFactory.getLogger(FileSystemRepository.class);
 
     private final Logger archiveExpirationLog = LoggerFactory.getLogger(FileSystemRepository.class.getName() + ".archive.expiration");
@@ -124,6 +135,7 @@ public class FileSystemRepository implements ContentRepository {
     private final long maxArchiveMillis;
     private final Map<String, Long> minUsableContainerBytesForArchive = new HashMap<>();
     private final boolean alwaysSync;
+    private final MappedResourceClaimCache mappedClaimCache; // null if memory-mapped reads are disabled
     private final ScheduledExecutorService containerCleanupExecutor;
 
     private ResourceClaimManager resourceClaimManager; // effectively final
@@ -147,6 +159,7 @@ public class FileSystemRepository implements ContentRepository {
         archiveData = false;
         maxArchiveMillis = 0;
         alwaysSync = false;
+        mappedClaimCache = null;
         containerCleanupExecutor = null;
         nifiProperties = null;
         maxAppendableClaimLength = 0;
@@ -252,6 +265,7 @@ public class FileSystemRepository implements ContentRepository {
 
         this.alwaysSync = Boolean.parseBoolean(nifiProperties.getProperty("nifi.content.repository.always.sync"));
         LOG.info("Initializing FileSystemRepository with 'Always Sync' set to {}", alwaysSync);
+        this.mappedClaimCache = createMappedClaimCache(nifiProperties);
         initializeRepository();
 
         containerCleanupExecutor = new FlowEngine(containers.size(), "Cleanup FileSystemRepository Container", true);
@@ -297,6 +311,27 @@ public class FileSystemRepository implements ContentRepository {
             } catch (final IOException ioe) {
             }
         }
+
+        if (mappedClaimCache != null) {
+            mappedClaimCache.clear();
+        }
+    }
+
+    private static MappedResourceClaimCache createMappedClaimCache(final NiFiProperties nifiProperties) {
+        if (!Boolean.parseBoolean(nifiProperties.getProperty(MMAP_ENABLED, "false"))) {
+            return null;
+        }
+
+        // Windows does not allow a file to be moved or deleted while it is mapped, which would prevent content from being archived or destroyed
+        if (System.getProperty("os.name", "").toLowerCase().startsWith("windows")) {
+            LOG.warn("Property '{}' is set to true but memory-mapped reads are not supported on Windows; content will be read without memory mapping", MMAP_ENABLED);
+            return null;
+        }
+
+        final int maxMappings = nifiProperties.getIntegerProperty(MMAP_MAX_MAPPINGS, DEFAULT_MMAP_MAX_MAPPINGS);
+        final long maxClaimBytes = DataUnit.parseDataSize(nifiProperties.getProperty(MMAP_MAX_CLAIM_SIZE, DEFAULT_MMAP_MAX_CLAIM_SIZE), DataUnit.B).longValue();
+        LOG.info("Initializing FileSystemRepository with memory-mapped reads enabled for up to {} Resource Claims of up to {} bytes each", maxMappings, maxClaimBytes);
+        return new MappedResourceClaimCache(maxMappings, maxClaimBytes);
     }
 
     private static double getRatio(final String value) {
@@ -758,6 +793,7 @@ public class FileSystemRepository implements ContentRepository {
 
         // Ensure that we have no writable claim streams for this resource claim
         final ByteCountingOutputStream bcos = writableClaimStreams.remove(claim);
+        invalidateMapping(claim);
 
         if (bcos != null) {
             try {
@@ -848,6 +884,16 @@ public class FileSystemRepository implements ContentRepository {
             return 0L;
         }
 
+        if (isTransferSupported(claim)) {
+            try (final FileOutputStream fos = new FileOutputStream(destination.toFile(), append)) {
+                final long copied = transfer(claim, 0L, claim.getLength(), fos.getChannel());
+                if (alwaysSync) {
+                    fos.getFD().sync();
+                }
+                return copied;
+            }
+        }
+
         try (final InputStream in = read(claim);
              final FileOutputStream fos = new FileOutputStream(destination.toFile(), append)) {
             final long copied = StreamUtils.copy(in, fos);
@@ -877,6 +923,19 @@ public class FileSystemRepository implements ContentRepository {
 
         }
 
+        if (isTransferSupported(claim)) {
+            try (final FileOutputStream fos = new FileOutputStream(destination.toFile(), append)) {
+                final long copied = transfer(claim, offset, length, fos.getChannel());
+                if (copied < length) {
+                    throw new EOFException("Attempted to copy " + length + " bytes but only " + copied + " bytes were available");
+                }
+                if (alwaysSync) {
+                    fos.getFD().sync();
+                }
+                return length;
+            }
+        }
+
         try (final InputStream in = read(claim);
              final FileOutputStream fos = new FileOutputStream(destination.toFile(), append)) {
             if (offset > 0) {
@@ -896,6 +955,11 @@ public class FileSystemRepository implements ContentRepository {
             return 0L;
         }
 
+        final FileChannel destinationChannel = getFileChannel(destination);
+        if (destinationChannel != null && isTransferSupported(claim)) {
+            return transfer(claim, 0L, claim.getLength(), destinationChannel);
+        }
+
         try (final InputStream in = read(claim)) {
             return StreamUtils.copy(in, destination);
         }
@@ -913,6 +977,12 @@ public class FileSystemRepository implements ContentRepository {
         if (offset == 0 && length == claimSize) {
             return exportTo(claim, destination);
         }
+
+        final FileChannel destinationChannel = getFileChannel(destination);
+        if (destinationChannel != null && isTransferSupported(claim)) {
+            return transfer(claim, offset, length, destinationChannel);
+        }
+
         try (final InputStream in = read(claim)) {
             StreamUtils.skip(in, offset);
             final byte[] buffer = new byte[8192];
@@ -926,6 +996,96 @@ public class FileSystemRepository implements ContentRepository {
         }
     }
 
+    @Override
+    public long exportTo(final ContentClaim claim, final WritableByteChannel destination, final long offset, final long length) throws IOException {
+        if (destination instanceof SelectableChannel && !((SelectableChannel) destination).isBlocking()) {
+            throw new IllegalArgumentException("Cannot export content to a channel that is not in blocking mode");
+        }
+        if (claim == null) {
+            return 0L;
+        }
+        if (offset < 0) {
+            throw new IllegalArgumentException("offset cannot be negative");
+        }
+        final long claimSize = size(claim);
+        if (offset > claimSize) {
+            throw new IllegalArgumentException("offset of " + offset + " exceeds claim size of " + claimSize);
+        }
+
+        if (isTransferSupported(claim)) {
+            return transfer(claim, offset, length, destination);
+        }
+
+        return exportTo(claim, Channels.newOutputStream(destination), offset, length);
+    }
+
+    /**
+     * Indicates whether or not content may be exported by transferring bytes directly from the file that holds it, rather than by reading
+     * it through {@link #read(ContentClaim)}. Implementations that transform content as it is read must return <code>false</code>.
+     *
+     * @return <code>true</code> if content may be transferred directly from the file system
+     */
+    protected boolean isDirectTransferSupported() {
+        return true;
+    }
+
+    private boolean isTransferSupported(final ContentClaim claim) {
+        // A claim whose length is not yet known is still being written to, so its bounds cannot be determined up front
+        return claim != null && claim.getLength() >= 0 && isDirectTransferSupported();
+    }
+
+    private FileChannel getFileChannel(final OutputStream destination) {
+        if (destination instanceof FileOutputStream) {
+            return ((FileOutputStream) destination).getChannel();
+        }
+
+        return null;
+    }
+
+    /**
+     * Transfers the given range of the claim to the destination using {@link FileChannel#transferTo(long, long, WritableByteChannel)}, which allows
+     * the operating system to copy the bytes from the file to the destination without copying them into user space. The range is limited to the
+     * bytes of the claim, so that the content of the claims that follow it in the same file is never transferred.
+     */
+    private long transfer(final ContentClaim claim, final long offset, final long length, final WritableByteChannel destination) throws IOException {
+        final long bytesToTransfer = Math.min(length, claim.getLength() - offset);
+        try (final FileChannel source = openChannel(claim)) {
+            final long start = claim.getOffset() + offset;
+            long transferred = 0L;
+            while (transferred < bytesToTransfer) {
+                final long count = source.transferTo(start + transferred, bytesToTransfer - transferred, destination);
+                if (count <= 0) {
+                    // End of the file: as with the stream-based export, return the number of bytes that were available rather than failing
+                    break;
+                }
+
+                transferred += count;
+            }
+
+            return transferred;
+        }
+    }
+
+    private FileChannel openChannel(final ContentClaim claim) throws IOException {
+        final ResourceClaim resourceClaim = claim.getResourceClaim();
+        final Path path = getPath(resourceClaim);
+        if (path == null) {
+            throw new ContentNotFoundException(claim);
+        }
+
+        try {
+            return FileChannel.open(path, StandardOpenOption.READ);
+        } catch (final NoSuchFileException nsfe) {
+            // If this occurs, we will also check the archive directory.
+        }
+
+        try {
+            return FileChannel.open(getArchivePath(resourceClaim), StandardOpenOption.READ);
+        } catch (final NoSuchFileException nsfe) {
+            throw new ContentNotFoundException(claim, nsfe);
+        }
+    }
+
     @Override
     public long size(final ContentClaim claim) throws IOException {
         if (claim == null) {
@@ -965,6 +1125,11 @@ public class FileSystemRepository implements ContentRepository {
             return new ByteArrayInputStream(new byte[0]);
         }
 
+        final ByteBuffer mappedContent = getMappedView(claim);
+        if (mappedContent != null) {
+            return new ByteBufferInputStream(mappedContent);
+        }
+
         final InputStream fis = getInputStream(claim);
         if (claim.getOffset() > 0L) {
             try {
@@ -1003,6 +1168,54 @@ public class FileSystemRepository implements ContentRepository {
         }
     }
 
+    /**
+     * Returns a read-only view of the content of the given claim that is backed by a memory mapping of its Resource Claim, without copying the content.
+     * The view is available only if memory-mapped reads are enabled, the claim's Resource Claim is no longer writable (and therefore its content can no
+     * longer change), and the Resource Claim is not too large to be mapped.
+     *
+     * @param claim the claim whose content is to be read
+     * @return a read-only ByteBuffer whose position is 0 and whose limit is the length of the content, or <code>null</code> if the content cannot be
+     *         provided as a memory-mapped view
+     * @throws IOException if unable to map the Resource Claim
+     */
+    public ByteBuffer getMappedContent(final ContentClaim claim) throws IOException {
+        return getMappedView(claim);
+    }
+
+    private ByteBuffer getMappedView(final ContentClaim claim) throws IOException {
+        if (mappedClaimCache == null || claim == null || claim.getLength() < 0) {
+            return null;
+        }
+
+        final ResourceClaim resourceClaim = claim.getResourceClaim();
+        if (resourceClaim.isWritable()) {
+            return null;
+        }
+
+        ByteBuffer mapping = mappedClaimCache.getMapping(resourceClaim);
+        if (mapping == null) {
+            final Path path = getPath(claim, false);
+            if (path == null) {
+                return null;
+            }
+
+            mapping = mappedClaimCache.map(resourceClaim, path);
+            if (mapping == null) {
+                return null;
+            }
+        }
+
+        final long end = claim.getOffset() + claim.getLength();
+        if (end > mapping.capacity()) {
+            // Let the standard read path determine how to handle a claim that extends beyond the end of its Resource Claim
+            return null;
+        }
+
+        mapping.limit((int) end);
+        mapping.position((int) claim.getOffset());
+        return mapping.slice();
+    }
+
     private void closeQuietly(final Closeable closeable) {
         if (closeable == null) {
             return;
@@ -1186,6 +1399,8 @@ public class FileSystemRepository implements ContentRepository {
             }
         }
 
+        invalidateMapping(claim);
+
         final Path curPath = getPath(claim);
         if (curPath == null) {
             return false;
@@ -1196,6 +1411,17 @@ public class FileSystemRepository implements ContentRepository {
         return archived;
     }
 
+    private void invalidateMapping(final ResourceClaim claim) {
+        if (mappedClaimCache != null) {
+            mappedClaimCache.invalidate(claim);
+        }
+    }
+
+    // visible for testing
+    int getMappedClaimCount() {
+        return mappedClaimCache == null ? 0 : mappedClaimCache.size();
+    }
+
     protected int getOpenStreamCount() {
         return writableClaimStreams.size();
     }
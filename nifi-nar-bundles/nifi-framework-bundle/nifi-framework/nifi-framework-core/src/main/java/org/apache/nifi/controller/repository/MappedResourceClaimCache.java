@@ -0,0 +1,129 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.controller.repository;
+
+import org.apache.nifi.controller.repository.claim.ResourceClaim;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * <p>
+ * A bounded, least-recently-used cache of read-only memory mappings of Resource Claim files. Only Resource Claims that are no longer writable
+ * may be mapped, as the content of such a claim can no longer change.
+ * </p>
+ *
+ * <p>
+ * Evicting or invalidating a mapping does not unmap it immediately: the mapping remains valid for as long as any ByteBuffer that was obtained
+ * from it is still reachable, and the memory is released by the JVM once it is garbage collected. Readers therefore never observe a mapping
+ * being released out from under them.
+ * </p>
+ */
+class MappedResourceClaimCache {
+    private static final Logger logger = LoggerFactory.getLogger(MappedResourceClaimCache.class);
+
+    private final long maxMappedClaimBytes;
+    private final Map<ResourceClaim, ByteBuffer> mappings; // guarded by synchronizing on 'this'
+
+    MappedResourceClaimCache(final int maxMappings, final long maxMappedClaimBytes) {
+        this.maxMappedClaimBytes = Math.min(maxMappedClaimBytes, Integer.MAX_VALUE);
+        this.mappings = new LinkedHashMap<ResourceClaim, ByteBuffer>(16, 0.75F, true) {
+            @Override
+            protected boolean removeEldestEntry(final Map.Entry<ResourceClaim, ByteBuffer> eldest) {
+                return size() > maxMappings;
+            }
+        };
+    }
+
+    /**
+     * Returns the existing mapping for the given Resource Claim, if there is one
+     *
+     * @param resourceClaim the Resource Claim
+     * @return a duplicate of the mapping whose position and limit may be freely modified, or <code>null</code> if the Resource Claim is not mapped
+     */
+    ByteBuffer getMapping(final ResourceClaim resourceClaim) {
+        final ByteBuffer mapping;
+        synchronized (this) {
+            mapping = mappings.get(resourceClaim);
+        }
+
+        return mapping == null ? null : mapping.duplicate();
+    }
+
+    /**
+     * Maps the file at the given path and caches the mapping for the given Resource Claim
+     *
+     * @param resourceClaim the Resource Claim
+     * @param path the path of the Resource Claim's file
+     * @return a duplicate of the mapping whose position and limit may be freely modified, or <code>null</code> if the file could not be mapped
+     *         because it does not exist or is too large
+     * @throws IOException if unable to map the file
+     */
+    ByteBuffer map(final ResourceClaim resourceClaim, final Path path) throws IOException {
+        if (resourceClaim.isWritable()) {
+            throw new IllegalArgumentException("Cannot map " + resourceClaim + " because it is still writable");
+        }
+
+        final ByteBuffer mapping;
+        try (final FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            final long size = channel.size();
+            if (size > maxMappedClaimBytes) {
+                logger.debug("Will not map {} because its size of {} bytes exceeds the maximum of {} bytes", resourceClaim, size, maxMappedClaimBytes);
+                return null;
+            }
+
+            mapping = channel.map(FileChannel.MapMode.READ_ONLY, 0L, size);
+        } catch (final NoSuchFileException nsfe) {
+            return null;
+        }
+
+        final ByteBuffer cached;
+        synchronized (this) {
+            // If another thread mapped the same claim concurrently, use its mapping so that only one is cached
+            final ByteBuffer existing = mappings.putIfAbsent(resourceClaim, mapping);
+            cached = existing == null ? mapping : existing;
+        }
+
+        logger.debug("Mapped {} bytes of {} at {}", cached.capacity(), resourceClaim, path);
+        return cached.duplicate();
+    }
+
+    /**
+     * Removes any mapping for the given Resource Claim from the cache
+     *
+     * @param resourceClaim the Resource Claim
+     */
+    synchronized void invalidate(final ResourceClaim resourceClaim) {
+        mappings.remove(resourceClaim);
+    }
+
+    synchronized void clear() {
+        mappings.clear();
+    }
+
+    synchronized int size() {
+        return mappings.size();
+    }
+}
@@ -22,11 +22,14 @@ import org.apache.nifi.controller.repository.claim.ContentClaim;
 import org.apache.nifi.controller.repository.claim.ResourceClaim;
 import org.apache.nifi.controller.repository.claim.ResourceClaimManager;
 import org.apache.nifi.flowfile.attributes.CoreAttributes;
+import org.apache.nifi.processor.DataUnit;
 import org.apache.nifi.repository.encryption.configuration.EncryptionProtocol;
 import org.apache.nifi.repository.schema.FieldCache;
 import org.apache.nifi.util.FormatUtils;
 import org.apache.nifi.util.NiFiProperties;
 import org.apache.nifi.wali.EncryptedSequentialAccessWriteAheadLog;
+import org.apache.nifi.wali.HashMapSnapshot;
+import org.apache.nifi.wali.OffHeapSnapshot;
 import org.apache.nifi.wali.SequentialAccessWriteAheadLog;
 import org.apache.nifi.wali.SnapshotCapture;
 import org.slf4j.Logger;
@@ -90,6 +93,12 @@ public class WriteAheadFlowFileRepository implements FlowFileRepository, SyncLis
     private static final String WRITE_AHEAD_LOG_IMPL = "nifi.flowfile.repository.wal.implementation";
     private static final String RETAIN_ORPHANED_FLOWFILES = "nifi.flowfile.repository.retain.orphaned.flowfiles";
     private static final String FLOWFILE_REPO_CACHE_SIZE = "nifi.flowfile.repository.wal.cache.characters";
+    private static final String WRITE_AHEAD_LOG_SNAPSHOT_IMPL = "nifi.flowfile.repository.wal.snapshot.implementation";
+    private static final String OFF_HEAP_SNAPSHOT_BLOCK_SIZE = "nifi.flowfile.repository.wal.snapshot.off.heap.block.size";
+    private static final String RECOVERY_THREADS = "nifi.flowfile.repository.wal.recovery.threads";
+    private static final String GROUP_COMMIT_ENABLED = "nifi.flowfile.repository.wal.group.commit.enabled";
+    private static final String GROUP_COMMIT_WINDOW = "nifi.flowfile.repository.wal.group.commit.window";
+    private static final String GROUP_COMMIT_MAX_SIZE = "nifi.flowfile.repository.wal.group.commit.max.size";
 
     static final String SEQUENTIAL_ACCESS_WAL = "org.apache.nifi.wali.SequentialAccessWriteAheadLog";
     static final String ENCRYPTED_SEQUENTIAL_ACCESS_WAL = "org.apache.nifi.wali.EncryptedSequentialAccessWriteAheadLog";
@@ -97,7 +106,21 @@ public class WriteAheadFlowFileRepository implements FlowFileRepository, SyncLis
     private static final String DEFAULT_WAL_IMPLEMENTATION = SEQUENTIAL_ACCESS_WAL;
     private static final int DEFAULT_CACHE_SIZE = 10_000_000;
 
+    static final String HASH_MAP_SNAPSHOT = "org.apache.nifi.wali.HashMapSnapshot";
+    static final String OFF_HEAP_SNAPSHOT = "org.apache.nifi.wali.OffHeapSnapshot";
+    private static final String DEFAULT_SNAPSHOT_IMPLEMENTATION = HASH_MAP_SNAPSHOT;
+    private static final String DEFAULT_OFF_HEAP_SNAPSHOT_BLOCK_SIZE = "64 MB";
+    private static final int DEFAULT_RECOVERY_THREADS = 1;
+    private static final String DEFAULT_GROUP_COMMIT_WINDOW = "0 millis";
+    private static final String DEFAULT_GROUP_COMMIT_MAX_SIZE = "1 MB";
+
     private final String walImplementation;
+    private final String snapshotImplementation;
+    private final int offHeapSnapshotBlockSize;
+    private final int recoveryThreads;
+    private final boolean groupCommitEnabled;
+    private final long groupCommitWindowNanos;
+    private final long groupCommitMaxBytes;
     protected final NiFiProperties nifiProperties;
 
     private final AtomicLong flowFileSequenceGenerator = new AtomicLong(0L);
@@ -155,6 +178,12 @@ public class WriteAheadFlowFileRepository implements FlowFileRepository, SyncLis
         checkpointDelayMillis = 0L;
         checkpointExecutor = null;
         walImplementation = null;
+        snapshotImplementation = null;
+        offHeapSnapshotBlockSize = 0;
+        recoveryThreads = DEFAULT_RECOVERY_THREADS;
+        groupCommitEnabled = false;
+        groupCommitWindowNanos = 0L;
+        groupCommitMaxBytes = 0L;
         nifiProperties = null;
         retainOrphanedFlowFiles = true;
         maxCharactersToCache = 0;
@@ -174,6 +203,16 @@ public class WriteAheadFlowFileRepository implements FlowFileRepository, SyncLis
         }
         this.walImplementation = writeAheadLogImpl;
         this.maxCharactersToCache = nifiProperties.getIntegerProperty(FLOWFILE_REPO_CACHE_SIZE, DEFAULT_CACHE_SIZE);
+        this.snapshotImplementation = nifiProperties.getProperty(WRITE_AHEAD_LOG_SNAPSHOT_IMPL, DEFAULT_SNAPSHOT_IMPLEMENTATION).trim();
+        this.offHeapSnapshotBlockSize = DataUnit.parseDataSize(nifiProperties.getProperty(OFF_HEAP_SNAPSHOT_BLOCK_SIZE, DEFAULT_OFF_HEAP_SNAPSHOT_BLOCK_SIZE), DataUnit.B).intValue();
+        this.recoveryThreads = nifiProperties.getIntegerProperty(RECOVERY_THREADS, DEFAULT_RECOVERY_THREADS);
+        if (recoveryThreads < 1) {
+            throw new IllegalStateException("Cannot create FlowFile Repository because the configured property '" + RECOVERY_THREADS + "' has an invalid value of '"
+                + recoveryThreads + "'; the value must be at least 1");
+        }
+        this.groupCommitEnabled = Boolean.parseBoolean(nifiProperties.getProperty(GROUP_COMMIT_ENABLED, "false"));
+        this.groupCommitWindowNanos = Math.round(FormatUtils.getPreciseTimeDuration(nifiProperties.getProperty(GROUP_COMMIT_WINDOW, DEFAULT_GROUP_COMMIT_WINDOW), TimeUnit.NANOSECONDS));
+        this.groupCommitMaxBytes = DataUnit.parseDataSize(nifiProperties.getProperty(GROUP_COMMIT_MAX_SIZE, DEFAULT_GROUP_COMMIT_MAX_SIZE), DataUnit.B).longValue();
 
         // We used to use one implementation (minimal locking) of the write-ahead log, but we now want to use the other
         // (sequential access), we must address this. Since the MinimalLockingWriteAheadLog supports multiple partitions,
@@ -245,7 +284,7 @@ public class WriteAheadFlowFileRepository implements FlowFileRepository, SyncLis
         // The specified implementation can be plaintext or encrypted; the only difference is the serde factory
         if (isSequentialAccessWAL(walImplementation)) {
             // TODO: May need to instantiate ESAWAL for clarity?
-            wal = new SequentialAccessWriteAheadLog<>(flowFileRepositoryPaths.get(0), serdeFactory, this);
+            wal = createSequentialAccessWriteAheadLog(flowFileRepositoryPaths.get(0), serdeFactory);
         } else if (walImplementation.equals(MINIMAL_LOCKING_WALI)) {
             final SortedSet<Path> paths = flowFileRepositoryPaths.stream()
                     .map(File::toPath)
@@ -260,6 +299,29 @@ public class WriteAheadFlowFileRepository implements FlowFileRepository, SyncLis
         logger.info("Initialized FlowFile Repository");
     }
 
+    private SequentialAccessWriteAheadLog<SerializedRepositoryRecord> createSequentialAccessWriteAheadLog(final File storageDirectory, final RepositoryRecordSerdeFactory serdeFactory)
+            throws IOException {
+        if (groupCommitEnabled) {
+            logger.info("Creating FlowFile Repository with group commit enabled, using a window of {} nanoseconds and a maximum group size of {} bytes",
+                groupCommitWindowNanos, groupCommitMaxBytes);
+        }
+
+        // Only write the chunked snapshot encoding if parallel recovery is configured, as earlier versions of NiFi cannot read it
+        final boolean chunkedSnapshot = recoveryThreads > 1;
+
+        if (snapshotImplementation.equals(HASH_MAP_SNAPSHOT)) {
+            return new SequentialAccessWriteAheadLog<>(storageDirectory, serdeFactory, this, new HashMapSnapshot<>(storageDirectory, serdeFactory, chunkedSnapshot), recoveryThreads,
+                groupCommitEnabled, groupCommitWindowNanos, TimeUnit.NANOSECONDS, groupCommitMaxBytes);
+        } else if (snapshotImplementation.equals(OFF_HEAP_SNAPSHOT)) {
+            logger.info("Creating FlowFile Repository with off-heap Snapshot using blocks of {} bytes", offHeapSnapshotBlockSize);
+            return new SequentialAccessWriteAheadLog<>(storageDirectory, serdeFactory, this, new OffHeapSnapshot<>(storageDirectory, serdeFactory, offHeapSnapshotBlockSize, chunkedSnapshot),
+                recoveryThreads, groupCommitEnabled, groupCommitWindowNanos, TimeUnit.NANOSECONDS, groupCommitMaxBytes);
+        }
+
+        throw new IllegalStateException("Cannot create Write-Ahead Log because the configured property '" + WRITE_AHEAD_LOG_SNAPSHOT_IMPL + "' has an invalid value of '" + snapshotImplementation
+                + "'. Please update nifi.properties to indicate a valid value for this property.");
+    }
+
     @Override
     public void close() throws IOException {
         if (checkpointFuture != null) {
@@ -156,6 +156,16 @@ public class EncryptedFileSystemRepository extends FileSystemRepository {
         return super.exportTo(claim, destination, append, offset, length);
     }
 
+    /**
+     * Content must always be read through the decrypting stream, so it is never transferred directly from the file system
+     *
+     * @return <code>false</code>
+     */
+    @Override
+    protected boolean isDirectTransferSupported() {
+        return false;
+    }
+
     @Override
     public InputStream read(final ResourceClaim claim) {
         throw new UnsupportedOperationException("Cannot read full ResourceClaim as a Stream when using EncryptedFileSystemRepository");
@@ -166,6 +176,18 @@ public class EncryptedFileSystemRepository extends FileSystemRepository {
         return false;
     }
 
+    /**
+     * Memory-mapped views are not supported because the bytes on disk are encrypted. Content that is read using
+     * {@link #read(ContentClaim)} is still decrypted from a memory mapping when one is available.
+     *
+     * @param claim the content claim
+     * @return null
+     */
+    @Override
+    public ByteBuffer getMappedContent(final ContentClaim claim) {
+        return null;
+    }
+
     /**
      * Returns an InputStream (actually a {@link javax.crypto.CipherInputStream}) which wraps
      * the {@link java.io.FileInputStream} from the content repository claim on disk. This
@@ -222,14 +222,15 @@ public class EventDrivenSchedulingAgent extends AbstractSchedulingAgent {
 
                         final long runNanos = procNode.getRunDuration(TimeUnit.NANOSECONDS);
                         final ProcessSessionFactory sessionFactory;
-                        final StandardProcessSession rawSession;
+                        final BatchingSessionFactory batchingSessionFactory;
                         final boolean batch;
                         if (procNode.isSessionBatchingSupported() && runNanos > 0L) {
-                            rawSession = new StandardProcessSession(context, scheduleState::isTerminated, new NopPerformanceTracker());
-                            sessionFactory = new BatchingSessionFactory(rawSession);
+                            final StandardProcessSession rawSession = new StandardProcessSession(context, scheduleState::isTerminated, new NopPerformanceTracker());
+                            batchingSessionFactory = new BatchingSessionFactory(rawSession);
+                            sessionFactory = batchingSessionFactory;
                             batch = true;
                         } else {
-                            rawSession = null;
+                            batchingSessionFactory = null;
                             sessionFactory = new StandardProcessSessionFactory(context, scheduleState::isTerminated, new NopPerformanceTracker());
                             batch = false;
                         }
@@ -263,9 +264,9 @@ public class EventDrivenSchedulingAgent extends AbstractSchedulingAgent {
                                 shouldRun = (eventCount > 0);
                             }
                         } finally {
-                            if (batch && rawSession != null) {
+                            if (batch && batchingSessionFactory != null) {
                                 try {
-                                    rawSession.commitAsync();
+                                    batchingSessionFactory.commitAsync(null);
                                 } catch (final RuntimeException re) {
                                     logger.error("Unable to commit process session", re);
                                 }
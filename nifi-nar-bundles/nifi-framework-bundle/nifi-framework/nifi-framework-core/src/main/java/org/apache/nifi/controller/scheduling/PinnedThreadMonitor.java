@@ -0,0 +1,178 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.controller.scheduling;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.reflect.Method;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Consumer;
+
+/**
+ * Records, for each component that runs on virtual threads, how often and for how long its virtual threads were pinned to their carrier threads,
+ * such as when blocking while holding a monitor or while in a native method. A pinned virtual thread prevents other virtual threads from using its
+ * carrier thread, so a component that is frequently pinned should instead run on the Timer-Driven Thread Pool.
+ *
+ * Pinned threads are detected using the jdk.VirtualThreadPinned event of JDK Flight Recorder, which is accessed reflectively because it is not
+ * available on all supported versions of Java.
+ */
+class PinnedThreadMonitor {
+    private static final Logger logger = LoggerFactory.getLogger(PinnedThreadMonitor.class);
+
+    private static final String PINNED_EVENT_NAME = "jdk.VirtualThreadPinned";
+    private static final int MAX_STACK_FRAMES = 5;
+
+    private final long thresholdMillis;
+    private final AutoCloseable recordingStream;
+    private final ConcurrentMap<String, PinnedStatistics> statistics = new ConcurrentHashMap<>();
+
+    private PinnedThreadMonitor(final long thresholdMillis, final AutoCloseable recordingStream) {
+        this.thresholdMillis = thresholdMillis;
+        this.recordingStream = recordingStream;
+    }
+
+    /**
+     * @param thresholdMillis the minimum number of milliseconds that a virtual thread must be pinned for in order to be recorded
+     * @return a Pinned Thread Monitor that has started recording pinned virtual threads, or <code>null</code> if JDK Flight Recorder is not available
+     */
+    static PinnedThreadMonitor start(final long thresholdMillis) {
+        try {
+            final Class<?> recordingStreamClass = Class.forName("jdk.jfr.consumer.RecordingStream");
+            final AutoCloseable recordingStream = (AutoCloseable) recordingStreamClass.getConstructor().newInstance();
+            final PinnedThreadMonitor monitor = new PinnedThreadMonitor(thresholdMillis, recordingStream);
+
+            final Object eventSettings = recordingStreamClass.getMethod("enable", String.class).invoke(recordingStream, PINNED_EVENT_NAME);
+            final Class<?> eventSettingsClass = Class.forName("jdk.jfr.EventSettings");
+            eventSettingsClass.getMethod("withThreshold", Duration.class).invoke(eventSettings, Duration.ofMillis(thresholdMillis));
+            eventSettingsClass.getMethod("withStackTrace").invoke(eventSettings);
+
+            final Consumer<Object> eventHandler = monitor::onPinned;
+            recordingStreamClass.getMethod("onEvent", String.class, Consumer.class).invoke(recordingStream, PINNED_EVENT_NAME, eventHandler);
+            recordingStreamClass.getMethod("startAsync").invoke(recordingStream);
+
+            return monitor;
+        } catch (final Exception e) {
+            logger.warn("Unable to monitor pinned virtual threads because JDK Flight Recorder is not available");
+            logger.debug("Failed to start JDK Flight Recorder stream for {} events", PINNED_EVENT_NAME, e);
+            return null;
+        }
+    }
+
+    private void onPinned(final Object recordedEvent) {
+        try {
+            final Object recordedThread = invoke(recordedEvent, "getThread");
+            final String threadName = recordedThread == null ? null : (String) invoke(recordedThread, "getJavaName");
+            final String componentId = VirtualThreadExecution.getComponentId(threadName);
+            if (componentId == null) {
+                return;
+            }
+
+            final Duration duration = (Duration) invoke(recordedEvent, "getDuration");
+            final String stackTrace = getStackTrace(invoke(recordedEvent, "getStackTrace"));
+            record(componentId, duration.toMillis(), stackTrace);
+        } catch (final Exception e) {
+            logger.debug("Failed to process {} event", PINNED_EVENT_NAME, e);
+        }
+    }
+
+    void record(final String componentId, final long pinnedMillis, final String stackTrace) {
+        statistics.computeIfAbsent(componentId, id -> new PinnedStatistics()).record(pinnedMillis, stackTrace);
+    }
+
+    private static String getStackTrace(final Object recordedStackTrace) throws ReflectiveOperationException {
+        if (recordedStackTrace == null) {
+            return null;
+        }
+
+        final List<?> frames = (List<?>) invoke(recordedStackTrace, "getFrames");
+        final StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < Math.min(MAX_STACK_FRAMES, frames.size()); i++) {
+            final Object method = invoke(frames.get(i), "getMethod");
+            final Object type = invoke(method, "getType");
+
+            if (i > 0) {
+                sb.append(" <- ");
+            }
+            sb.append(invoke(type, "getName")).append('.').append(invoke(method, "getName")).append(':').append(invoke(frames.get(i), "getLineNumber"));
+        }
+
+        return sb.toString();
+    }
+
+    private static Object invoke(final Object target, final String methodName) throws ReflectiveOperationException {
+        final Method method = target.getClass().getMethod(methodName);
+        method.setAccessible(true);
+        return method.invoke(target);
+    }
+
+    long getThresholdMillis() {
+        return thresholdMillis;
+    }
+
+    /**
+     * @return a snapshot of the pinned thread statistics, keyed by component ID
+     */
+    Map<String, PinnedStatistics> getStatistics() {
+        return new HashMap<>(statistics);
+    }
+
+    void close() {
+        try {
+            recordingStream.close();
+        } catch (final Exception e) {
+            logger.warn("Failed to close JDK Flight Recorder stream for {} events", PINNED_EVENT_NAME, e);
+        }
+    }
+
+    static class PinnedStatistics {
+        private long count;
+        private long totalMillis;
+        private long maxMillis;
+        private String lastStackTrace;
+
+        synchronized void record(final long pinnedMillis, final String stackTrace) {
+            count++;
+            totalMillis += pinnedMillis;
+            maxMillis = Math.max(maxMillis, pinnedMillis);
+            if (stackTrace != null) {
+                lastStackTrace = stackTrace;
+            }
+        }
+
+        synchronized long getCount() {
+            return count;
+        }
+
+        synchronized long getTotalMillis() {
+            return totalMillis;
+        }
+
+        synchronized long getMaxMillis() {
+            return maxMillis;
+        }
+
+        synchronized String getLastStackTrace() {
+            return lastStackTrace;
+        }
+    }
+}
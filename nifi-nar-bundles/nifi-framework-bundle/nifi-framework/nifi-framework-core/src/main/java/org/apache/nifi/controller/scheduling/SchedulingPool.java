@@ -0,0 +1,183 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.controller.scheduling;
+
+import org.apache.nifi.controller.status.SchedulingPoolStatus;
+import org.apache.nifi.engine.FlowEngine;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A named, bounded pool of threads that runs the Timer-Driven components of the Process Groups that are assigned to it, so that those components
+ * cannot starve the components that run on the Timer-Driven Thread Pool, or on other scheduling pools, of threads.
+ *
+ * A pool may also be given a CPU quota, expressed as a number of CPU cores. The CPU time that each invocation of a component uses is measured and
+ * charged to the pool, and once the pool has used more than its quota, allowing for a burst of up to one second's worth of quota, its components are
+ * not triggered again until their average usage has fallen back to the quota.
+ */
+public class SchedulingPool {
+    private static final long BURST_NANOS = TimeUnit.SECONDS.toNanos(1L);
+    private static final ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+
+    private final String name;
+    private final int maxThreads;
+    private final double cpuQuota;
+    private final Set<String> processGroupIds;
+    private final FlowEngine flowEngine;
+
+    private final AtomicLong cpuNanos = new AtomicLong(0L);
+    private final AtomicLong throttledInvocations = new AtomicLong(0L);
+    // The time, in System.nanoTime(), until which the CPU time charged to the pool has been paid for by its quota
+    private final AtomicLong quotaPaidUntilNanos;
+
+    private long lastSampleNanos;
+    private long lastSampleCpuNanos;
+    private long lastSampleThrottledInvocations;
+
+    /**
+     * @param name the name of the pool
+     * @param maxThreads the number of threads in the pool
+     * @param cpuQuota the number of CPU cores that the pool's components may use, or <code>0</code> if the pool is not limited
+     * @param processGroupIds the identifiers of the Process Groups that are assigned to the pool
+     */
+    public SchedulingPool(final String name, final int maxThreads, final double cpuQuota, final Set<String> processGroupIds) {
+        if (maxThreads < 1) {
+            throw new IllegalArgumentException("Scheduling Pool " + name + " must have at least 1 thread");
+        }
+        if (cpuQuota < 0D) {
+            throw new IllegalArgumentException("CPU quota of Scheduling Pool " + name + " must not be negative");
+        }
+
+        this.name = name;
+        this.maxThreads = maxThreads;
+        this.cpuQuota = cpuQuota;
+        this.processGroupIds = Collections.unmodifiableSet(processGroupIds);
+        this.flowEngine = new FlowEngine(maxThreads, "Timer-Driven Process [" + name + "]");
+
+        final long now = System.nanoTime();
+        this.quotaPaidUntilNanos = new AtomicLong(now - BURST_NANOS);
+        this.lastSampleNanos = now;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getMaxThreads() {
+        return maxThreads;
+    }
+
+    public double getCpuQuota() {
+        return cpuQuota;
+    }
+
+    public Set<String> getProcessGroupIds() {
+        return processGroupIds;
+    }
+
+    public FlowEngine getFlowEngine() {
+        return flowEngine;
+    }
+
+    public int getActiveThreadCount() {
+        return flowEngine.getActiveCount();
+    }
+
+    /**
+     * @return the CPU time, in nanoseconds, that the current thread has used, or <code>-1</code> if CPU time cannot be measured by this JVM
+     */
+    static long getCurrentThreadCpuTime() {
+        if (!threadMXBean.isCurrentThreadCpuTimeSupported() || !threadMXBean.isThreadCpuTimeEnabled()) {
+            return -1L;
+        }
+
+        return threadMXBean.getCurrentThreadCpuTime();
+    }
+
+    /**
+     * Charges the pool for CPU time used by one of its components
+     *
+     * @param nanos the CPU time that was used, in nanoseconds
+     */
+    void recordCpuTime(final long nanos) {
+        if (nanos <= 0L) {
+            return;
+        }
+
+        cpuNanos.addAndGet(nanos);
+
+        if (cpuQuota > 0D) {
+            final long quotaNanos = (long) (nanos / cpuQuota);
+            final long now = System.nanoTime();
+            quotaPaidUntilNanos.updateAndGet(paidUntil -> Math.max(paidUntil, now - BURST_NANOS) + quotaNanos);
+        }
+    }
+
+    /**
+     * @return the number of nanoseconds that the pool's components must wait before being triggered in order to remain within the pool's CPU quota,
+     * or <code>0</code> if they may be triggered now
+     */
+    long getThrottleNanos() {
+        if (cpuQuota <= 0D) {
+            return 0L;
+        }
+
+        return Math.max(0L, quotaPaidUntilNanos.get() - System.nanoTime());
+    }
+
+    void onThrottled() {
+        throttledInvocations.incrementAndGet();
+    }
+
+    /**
+     * Returns the status of the pool, with the CPU time, utilization and throttled invocations measured since the previous call to this method
+     *
+     * @return the status of the pool
+     */
+    public synchronized SchedulingPoolStatus sampleStatus() {
+        final long now = System.nanoTime();
+        final long cpu = cpuNanos.get();
+        final long throttled = throttledInvocations.get();
+
+        final long elapsedNanos = Math.max(1L, now - lastSampleNanos);
+        final long cpuDelta = cpu - lastSampleCpuNanos;
+        final double capacity = cpuQuota > 0D ? cpuQuota : maxThreads;
+
+        final SchedulingPoolStatus status = new SchedulingPoolStatus();
+        status.setName(name);
+        status.setMaxThreads(maxThreads);
+        status.setActiveThreads(getActiveThreadCount());
+        status.setCpuTimeMillis(TimeUnit.NANOSECONDS.toMillis(cpuDelta));
+        status.setCpuUtilization(Math.round(cpuDelta * 100D / (elapsedNanos * capacity)));
+        status.setThrottledInvocations(throttled - lastSampleThrottledInvocations);
+
+        lastSampleNanos = now;
+        lastSampleCpuNanos = cpu;
+        lastSampleThrottledInvocations = throttled;
+        return status;
+    }
+
+    @Override
+    public String toString() {
+        return "SchedulingPool[name=" + name + ", maxThreads=" + maxThreads + ", cpuQuota=" + cpuQuota + "]";
+    }
+}
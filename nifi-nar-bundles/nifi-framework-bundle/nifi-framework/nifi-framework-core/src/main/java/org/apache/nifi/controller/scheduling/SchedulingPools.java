@@ -0,0 +1,173 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.controller.scheduling;
+
+import org.apache.nifi.connectable.Connectable;
+import org.apache.nifi.controller.status.SchedulingPoolStatus;
+import org.apache.nifi.groups.ProcessGroup;
+import org.apache.nifi.util.NiFiProperties;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The scheduling pools that are configured in nifi.properties, and the Process Groups that are assigned to them. A component runs in the pool of the
+ * nearest Process Group, starting with its own, that is assigned to a pool, or on the Timer-Driven Thread Pool if no such Process Group exists.
+ */
+public class SchedulingPools {
+    private static final Logger logger = LoggerFactory.getLogger(SchedulingPools.class);
+
+    private final Map<String, SchedulingPool> poolsByName = new TreeMap<>();
+    private final Map<String, SchedulingPool> poolsByGroupId = new HashMap<>();
+
+    public SchedulingPools(final Collection<SchedulingPool> pools) {
+        for (final SchedulingPool pool : pools) {
+            poolsByName.put(pool.getName(), pool);
+
+            for (final String groupId : pool.getProcessGroupIds()) {
+                final SchedulingPool existing = poolsByGroupId.put(groupId, pool);
+                if (existing != null) {
+                    throw new IllegalArgumentException("Process Group " + groupId + " is assigned to both Scheduling Pool " + existing.getName() + " and " + pool.getName());
+                }
+            }
+        }
+    }
+
+    public static SchedulingPools create(final NiFiProperties nifiProperties) {
+        final List<SchedulingPool> pools = new ArrayList<>();
+
+        for (final String poolName : nifiProperties.getSchedulingPoolNames()) {
+            final String prefix = NiFiProperties.SCHEDULING_POOL_PREFIX + poolName;
+
+            final String threadsProperty = prefix + NiFiProperties.SCHEDULING_POOL_THREADS_SUFFIX;
+            final int threads;
+            try {
+                threads = Integer.parseInt(nifiProperties.getProperty(threadsProperty).trim());
+            } catch (final NumberFormatException e) {
+                throw new IllegalArgumentException("The " + threadsProperty + " property must be set to a positive integer but was " + nifiProperties.getProperty(threadsProperty));
+            }
+
+            final String cpuQuotaProperty = prefix + NiFiProperties.SCHEDULING_POOL_CPU_QUOTA_SUFFIX;
+            final String cpuQuotaValue = nifiProperties.getProperty(cpuQuotaProperty);
+            final double cpuQuota;
+            try {
+                cpuQuota = cpuQuotaValue == null || cpuQuotaValue.trim().isEmpty() ? 0D : Double.parseDouble(cpuQuotaValue.trim());
+            } catch (final NumberFormatException e) {
+                throw new IllegalArgumentException("The " + cpuQuotaProperty + " property must be set to a number of CPU cores but was " + cpuQuotaValue);
+            }
+
+            final Set<String> groupIds = new HashSet<>();
+            final String groupIdsValue = nifiProperties.getProperty(prefix + NiFiProperties.SCHEDULING_POOL_PROCESS_GROUPS_SUFFIX, "");
+            for (final String groupId : groupIdsValue.split(",")) {
+                if (!groupId.trim().isEmpty()) {
+                    groupIds.add(groupId.trim());
+                }
+            }
+
+            if (cpuQuota > 0D && SchedulingPool.getCurrentThreadCpuTime() < 0L) {
+                logger.warn("Scheduling Pool {} has a CPU quota but this JVM does not support measuring thread CPU time, so the quota will not be enforced", poolName);
+            }
+
+            pools.add(new SchedulingPool(poolName, threads, cpuQuota, groupIds));
+            logger.info("Created Scheduling Pool {} with {} threads and {} for Process Groups {}", poolName, threads,
+                cpuQuota > 0D ? "a CPU quota of " + cpuQuota + " cores" : "no CPU quota", groupIds);
+        }
+
+        return new SchedulingPools(pools);
+    }
+
+    /**
+     * @param connectable the component
+     * @return the pool that the component runs in, or <code>null</code> if it runs on the Timer-Driven Thread Pool
+     */
+    public SchedulingPool getPool(final Connectable connectable) {
+        if (poolsByGroupId.isEmpty()) {
+            return null;
+        }
+
+        ProcessGroup group = connectable.getProcessGroup();
+        while (group != null) {
+            final SchedulingPool pool = poolsByGroupId.get(group.getIdentifier());
+            if (pool != null) {
+                return pool;
+            }
+
+            group = group.getParent();
+        }
+
+        return null;
+    }
+
+    public Collection<SchedulingPool> getPools() {
+        return Collections.unmodifiableCollection(poolsByName.values());
+    }
+
+    public int getActiveThreadCount() {
+        int activeThreads = 0;
+        for (final SchedulingPool pool : poolsByName.values()) {
+            activeThreads += pool.getActiveThreadCount();
+        }
+        return activeThreads;
+    }
+
+    /**
+     * @return the status of each pool, as measured since the previous call to this method
+     */
+    public List<SchedulingPoolStatus> sampleStatus() {
+        final List<SchedulingPoolStatus> statuses = new ArrayList<>(poolsByName.size());
+        for (final SchedulingPool pool : poolsByName.values()) {
+            statuses.add(pool.sampleStatus());
+        }
+        return statuses;
+    }
+
+    public void shutdown(final boolean kill) {
+        for (final SchedulingPool pool : poolsByName.values()) {
+            if (kill) {
+                pool.getFlowEngine().shutdownNow();
+            } else {
+                pool.getFlowEngine().shutdown();
+            }
+        }
+    }
+
+    public void awaitTermination(final long timeout, final TimeUnit timeUnit) throws InterruptedException {
+        final long deadline = System.nanoTime() + timeUnit.toNanos(timeout);
+        for (final SchedulingPool pool : poolsByName.values()) {
+            pool.getFlowEngine().awaitTermination(Math.max(0L, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+        }
+    }
+
+    public boolean isTerminated() {
+        for (final SchedulingPool pool : poolsByName.values()) {
+            if (!pool.getFlowEngine().isTerminated()) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
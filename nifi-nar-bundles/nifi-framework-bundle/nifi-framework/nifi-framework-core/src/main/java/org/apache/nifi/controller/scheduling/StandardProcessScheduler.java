@@ -515,6 +515,19 @@ public final class StandardProcessScheduler implements ProcessScheduler {
         // that gave very bad results.
     }
 
+    @Override
+    public boolean isEventNotificationRequired(final SchedulingStrategy schedulingStrategy) {
+        switch (schedulingStrategy) {
+            case EVENT_DRIVEN:
+                return true;
+            case TIMER_DRIVEN:
+                // Timer-Driven components only need to be notified of enqueued FlowFiles when they may be parked waiting for them
+                return getSchedulingAgent(schedulingStrategy) instanceof WorkAwareSchedulingAgent;
+            default:
+                return false;
+        }
+    }
+
     @Override
     public void registerEvent(final Connectable worker) {
         getSchedulingAgent(worker).onEvent(worker);
@@ -34,10 +34,19 @@ import java.util.concurrent.atomic.AtomicReference;
 
 public class TimerDrivenSchedulingAgent extends AbstractTimeBasedSchedulingAgent {
     private final long noWorkYieldNanos;
+    private final VirtualThreadExecution virtualThreadExecution;
+    private final SchedulingPools schedulingPools;
 
     public TimerDrivenSchedulingAgent(final FlowController flowController, final FlowEngine flowEngine, final RepositoryContextFactory contextFactory,
                                       final NiFiProperties nifiProperties) {
+        this(flowController, flowEngine, contextFactory, nifiProperties, VirtualThreadExecution.create(nifiProperties), SchedulingPools.create(nifiProperties));
+    }
+
+    TimerDrivenSchedulingAgent(final FlowController flowController, final FlowEngine flowEngine, final RepositoryContextFactory contextFactory,
+                               final NiFiProperties nifiProperties, final VirtualThreadExecution virtualThreadExecution, final SchedulingPools schedulingPools) {
         super(flowEngine, flowController, contextFactory);
+        this.virtualThreadExecution = virtualThreadExecution;
+        this.schedulingPools = schedulingPools;
 
         final String boredYieldDuration = nifiProperties.getBoredYieldDuration();
         try {
@@ -50,6 +59,34 @@ public class TimerDrivenSchedulingAgent extends AbstractTimeBasedSchedulingAgent
     @Override
     public void shutdown() {
         flowEngine.shutdown();
+        schedulingPools.shutdown(false);
+
+        if (virtualThreadExecution != null) {
+            virtualThreadExecution.shutdown();
+        }
+    }
+
+    /**
+     * @return the Virtual Thread Execution that runs selected components on virtual threads, or <code>null</code> if no components run on virtual threads
+     */
+    public VirtualThreadExecution getVirtualThreadExecution() {
+        return virtualThreadExecution;
+    }
+
+    /**
+     * @return the scheduling pools that run the components of the Process Groups that are assigned to them
+     */
+    public SchedulingPools getSchedulingPools() {
+        return schedulingPools;
+    }
+
+    /**
+     * @param connectable the component
+     * @return the Flow Engine that runs the given component, which is that of the component's scheduling pool, if it has one
+     */
+    protected FlowEngine getFlowEngine(final Connectable connectable) {
+        final SchedulingPool pool = schedulingPools.getPool(connectable);
+        return pool == null ? flowEngine : pool.getFlowEngine();
     }
 
     @Override
@@ -70,14 +107,32 @@ public class TimerDrivenSchedulingAgent extends AbstractTimeBasedSchedulingAgent
         final List<ScheduledFuture<?>> futures = new ArrayList<>();
         final ConnectableTask connectableTask = new ConnectableTask(this, connectable, flowController, contextFactory, scheduleState);
 
+        // A component in a scheduling pool always runs on the pool's threads, even if it is eligible to run on virtual threads, so that it remains
+        // subject to the pool's thread bound and CPU quota.
+        final SchedulingPool pool = schedulingPools.getPool(connectable);
+        final boolean virtualThreadEligible = virtualThreadExecution != null && virtualThreadExecution.isEligible(connectable);
+        if (virtualThreadEligible && pool == null) {
+            scheduleState.setFutures(futures);
+            virtualThreadExecution.start(connectable, scheduleState, connectable.getMaxConcurrentTasks(),
+                virtualTasks -> createVirtualThreadTrigger(connectableTask, virtualTasks));
+            logger.info("Scheduled {} to run with {} virtual threads", connectable, connectable.getMaxConcurrentTasks());
+            return;
+        }
+
+        if (virtualThreadEligible) {
+            logger.info("{} is eligible to run on virtual threads but is in Scheduling Pool {}, so it will run on the pool's threads", connectable, pool.getName());
+        }
+
+        final FlowEngine engine = pool == null ? flowEngine : pool.getFlowEngine();
+
         for (int i = 0; i < connectable.getMaxConcurrentTasks(); i++) {
             // Determine the task to run and create it.
             final AtomicReference<ScheduledFuture<?>> futureRef = new AtomicReference<>();
 
-            final Runnable trigger = createTrigger(connectableTask, scheduleState, futureRef);
+            final Runnable trigger = createTrigger(connectableTask, scheduleState, futureRef, pool);
 
             // Schedule the task to run
-            final ScheduledFuture<?> future = flowEngine.scheduleWithFixedDelay(trigger, 0L,
+            final ScheduledFuture<?> future = engine.scheduleWithFixedDelay(trigger, 0L,
                 connectable.getSchedulingPeriod(TimeUnit.NANOSECONDS), TimeUnit.NANOSECONDS);
 
             // now that we have the future, set the atomic reference so that if the component is yielded we
@@ -89,17 +144,37 @@ public class TimerDrivenSchedulingAgent extends AbstractTimeBasedSchedulingAgent
         }
 
         scheduleState.setFutures(futures);
-        logger.info("Scheduled {} to run with {} threads", connectable, connectable.getMaxConcurrentTasks());
+        if (pool == null) {
+            logger.info("Scheduled {} to run with {} threads", connectable, connectable.getMaxConcurrentTasks());
+        } else {
+            logger.info("Scheduled {} to run with {} threads in Scheduling Pool {}", connectable, connectable.getMaxConcurrentTasks(), pool.getName());
+        }
     }
 
-    private Runnable createTrigger(final ConnectableTask connectableTask, final LifecycleState scheduleState, final AtomicReference<ScheduledFuture<?>> futureRef) {
+    private Runnable createTrigger(final ConnectableTask connectableTask, final LifecycleState scheduleState, final AtomicReference<ScheduledFuture<?>> futureRef,
+                                   final SchedulingPool pool) {
         final Connectable connectable = connectableTask.getConnectable();
         final Runnable yieldDetectionRunnable = new Runnable() {
             @Override
             public void run() {
+                onTriggerRun(this, connectable);
+
+                // If the component's scheduling pool has used up its CPU quota, do not trigger the component until the quota allows it.
+                final long throttleNanos = pool == null ? 0L : pool.getThrottleNanos();
+                if (throttleNanos > 0L) {
+                    pool.onThrottled();
+                    reschedule(this, connectable, scheduleState, futureRef, throttleNanos);
+                    return;
+                }
+
                 // Call the task. It will return a boolean indicating whether or not we should yield
                 // based on a lack of work for to do for the component.
+                final long startCpuNanos = pool == null ? -1L : SchedulingPool.getCurrentThreadCpuTime();
                 final InvocationResult invocationResult = connectableTask.invoke();
+                if (startCpuNanos >= 0L) {
+                    pool.recordCpuTime(SchedulingPool.getCurrentThreadCpuTime() - startCpuNanos);
+                }
+
                 if (invocationResult.isYield()) {
                     logger.debug("Yielding {} due to {}", connectable, invocationResult.getYieldExplanation());
                 }
@@ -111,54 +186,107 @@ public class TimerDrivenSchedulingAgent extends AbstractTimeBasedSchedulingAgent
                 if (newYieldExpiration > now) {
                     final long yieldMillis = newYieldExpiration - now;
                     final long scheduleMillis = connectable.getSchedulingPeriod(TimeUnit.MILLISECONDS);
-                    final ScheduledFuture<?> scheduledFuture = futureRef.get();
-                    if (scheduledFuture == null) {
-                        return;
-                    }
+                    final long yieldNanos = Math.max(TimeUnit.MILLISECONDS.toNanos(scheduleMillis), TimeUnit.MILLISECONDS.toNanos(yieldMillis));
+                    reschedule(this, connectable, scheduleState, futureRef, yieldNanos);
+                } else if (invocationResult.isYield()) {
+                    onBored(this, connectable, invocationResult, scheduleState, futureRef);
+                }
+            }
+        };
 
-                    // If we are able to cancel the future, create a new one and update the ScheduleState so that it has
-                    // an accurate accounting of which futures are outstanding; we must then also update the futureRef
-                    // so that we can do this again the next time that the component is yielded.
-                    if (scheduledFuture.cancel(false)) {
-                        final long yieldNanos = Math.max(TimeUnit.MILLISECONDS.toNanos(scheduleMillis), TimeUnit.MILLISECONDS.toNanos(yieldMillis));
-
-                        synchronized (scheduleState) {
-                            if (scheduleState.isScheduled()) {
-                                final long schedulingNanos = connectable.getSchedulingPeriod(TimeUnit.NANOSECONDS);
-                                final ScheduledFuture<?> newFuture = flowEngine.scheduleWithFixedDelay(this, yieldNanos, schedulingNanos, TimeUnit.NANOSECONDS);
-
-                                scheduleState.replaceFuture(scheduledFuture, newFuture);
-                                futureRef.set(newFuture);
-                            }
-                        }
-                    }
-                } else if (noWorkYieldNanos > 0L && invocationResult.isYield()) {
-                    // Component itself didn't yield but there was no work to do, so the framework will choose
-                    // to yield the component automatically for a short period of time.
-                    final ScheduledFuture<?> scheduledFuture = futureRef.get();
-                    if (scheduledFuture == null) {
-                        return;
+        return yieldDetectionRunnable;
+    }
+
+    /**
+     * Creates a trigger that runs on its own virtual thread, invoking the component repeatedly and waiting between invocations in the same way that the
+     * Timer-Driven Thread Pool would, until the start of the component that created the trigger is stopped
+     */
+    private Runnable createVirtualThreadTrigger(final ConnectableTask connectableTask, final VirtualThreadExecution.VirtualTasks virtualTasks) {
+        final Connectable connectable = connectableTask.getConnectable();
+
+        return () -> {
+            while (!virtualTasks.isStopped()) {
+                long delayNanos = connectable.getSchedulingPeriod(TimeUnit.NANOSECONDS);
+
+                try {
+                    final InvocationResult invocationResult = connectableTask.invoke();
+                    if (invocationResult.isYield()) {
+                        logger.debug("Yielding {} due to {}", connectable, invocationResult.getYieldExplanation());
                     }
 
-                    // If we are able to cancel the future, create a new one and update the ScheduleState so that it has
-                    // an accurate accounting of which futures are outstanding; we must then also update the futureRef
-                    // so that we can do this again the next time that the component is yielded.
-                    if (scheduledFuture.cancel(false)) {
-                        synchronized (scheduleState) {
-                            if (scheduleState.isScheduled()) {
-                                final ScheduledFuture<?> newFuture = flowEngine.scheduleWithFixedDelay(this, noWorkYieldNanos,
-                                    connectable.getSchedulingPeriod(TimeUnit.NANOSECONDS), TimeUnit.NANOSECONDS);
-
-                                scheduleState.replaceFuture(scheduledFuture, newFuture);
-                                futureRef.set(newFuture);
-                            }
-                        }
+                    final long yieldMillis = connectable.getYieldExpiration() - System.currentTimeMillis();
+                    if (yieldMillis > 0L) {
+                        delayNanos = Math.max(delayNanos, TimeUnit.MILLISECONDS.toNanos(yieldMillis));
+                    } else if (invocationResult.isYield()) {
+                        delayNanos = Math.max(delayNanos, noWorkYieldNanos);
                     }
+                } catch (final Throwable t) {
+                    logger.error("Failed to trigger {} on virtual thread", connectable, t);
+                    delayNanos = Math.max(delayNanos, connectable.getYieldPeriod(TimeUnit.NANOSECONDS));
                 }
+
+                virtualThreadExecution.await(virtualTasks, delayNanos);
             }
         };
+    }
 
-        return yieldDetectionRunnable;
+    /**
+     * Called each time that a trigger created by this agent runs, before the component is checked for work or invoked
+     *
+     * @param trigger the trigger that runs the component
+     * @param connectable the component
+     */
+    protected void onTriggerRun(final Runnable trigger, final Connectable connectable) {
+    }
+
+    /**
+     * Called when the framework chose not to trigger a component, such as when it has no work to do, although the component itself did not yield.
+     *
+     * @param trigger the trigger that runs the component
+     * @param connectable the component
+     * @param invocationResult the result of the invocation, explaining why the component was not triggered
+     * @param scheduleState the schedule state of the component
+     * @param futureRef the future that is currently running the trigger
+     */
+    protected void onBored(final Runnable trigger, final Connectable connectable, final InvocationResult invocationResult, final LifecycleState scheduleState,
+                           final AtomicReference<ScheduledFuture<?>> futureRef) {
+        if (noWorkYieldNanos > 0L) {
+            // Component itself didn't yield but there was no work to do, so the framework will choose
+            // to yield the component automatically for a short period of time.
+            reschedule(trigger, connectable, scheduleState, futureRef, noWorkYieldNanos);
+        }
+    }
+
+    /**
+     * Cancels the future that is running the given trigger and, if the component is still scheduled, schedules the trigger to run again after the given delay
+     *
+     * @param trigger the trigger that runs the component
+     * @param connectable the component
+     * @param scheduleState the schedule state of the component
+     * @param futureRef the future that is currently running the trigger, which is updated to the new future
+     * @param delayNanos the number of nanoseconds to wait before running the trigger again
+     */
+    protected void reschedule(final Runnable trigger, final Connectable connectable, final LifecycleState scheduleState, final AtomicReference<ScheduledFuture<?>> futureRef,
+                              final long delayNanos) {
+        final ScheduledFuture<?> scheduledFuture = futureRef.get();
+        if (scheduledFuture == null) {
+            return;
+        }
+
+        // If we are able to cancel the future, create a new one and update the ScheduleState so that it has
+        // an accurate accounting of which futures are outstanding; we must then also update the futureRef
+        // so that we can do this again the next time that the component is yielded.
+        if (scheduledFuture.cancel(false)) {
+            synchronized (scheduleState) {
+                if (scheduleState.isScheduled()) {
+                    final long schedulingNanos = connectable.getSchedulingPeriod(TimeUnit.NANOSECONDS);
+                    final ScheduledFuture<?> newFuture = getFlowEngine(connectable).scheduleWithFixedDelay(trigger, delayNanos, schedulingNanos, TimeUnit.NANOSECONDS);
+
+                    scheduleState.replaceFuture(scheduledFuture, newFuture);
+                    futureRef.set(newFuture);
+                }
+            }
+        }
     }
 
     @Override
@@ -168,6 +296,11 @@ public class TimerDrivenSchedulingAgent extends AbstractTimeBasedSchedulingAgent
             future.cancel(false);
         }
 
+        if (virtualThreadExecution != null) {
+            // wake the virtual threads so that they observe that the component is no longer scheduled, but do not interrupt currently running tasks.
+            virtualThreadExecution.stop(scheduleState);
+        }
+
         logger.info("Stopped scheduling {} to run", connectable);
     }
 
@@ -0,0 +1,301 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.controller.scheduling;
+
+import org.apache.nifi.connectable.Connectable;
+import org.apache.nifi.controller.ComponentNode;
+import org.apache.nifi.util.FormatUtils;
+import org.apache.nifi.util.NiFiProperties;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Function;
+
+/**
+ * Runs the tasks of selected Timer-Driven components on virtual threads rather than on the Timer-Driven Thread Pool, so that components that spend
+ * most of their time blocked on I/O do not hold platform threads while they wait. Each of a component's Concurrent Tasks is a virtual thread that
+ * triggers the component, waits for its Run Schedule, yield or bored yield to elapse, and triggers it again, until the component is unscheduled.
+ * The number of tasks that can trigger a component at once is therefore still limited by its Concurrent Tasks.
+ *
+ * Components in a scheduling pool are not run on virtual threads, because virtual threads would escape the pool's thread bound and CPU quota;
+ * they always run on the threads of their pool.
+ *
+ * Virtual threads require Java 21 or later. On earlier versions, virtual thread execution is disabled and all components run on the
+ * Timer-Driven Thread Pool.
+ */
+public class VirtualThreadExecution {
+    private static final Logger logger = LoggerFactory.getLogger(VirtualThreadExecution.class);
+
+    static final String THREAD_NAME_PREFIX = "Virtual Timer-Driven Process Thread";
+
+    private final Set<String> componentTypes;
+    private final Function<String, ThreadFactory> threadFactoryCreator;
+    private final PinnedThreadMonitor pinnedThreadMonitor;
+    private final ConcurrentMap<LifecycleState, VirtualTasks> scheduledTasks = new ConcurrentHashMap<>();
+
+    VirtualThreadExecution(final Set<String> componentTypes, final Function<String, ThreadFactory> threadFactoryCreator, final PinnedThreadMonitor pinnedThreadMonitor) {
+        this.componentTypes = componentTypes;
+        this.threadFactoryCreator = threadFactoryCreator;
+        this.pinnedThreadMonitor = pinnedThreadMonitor;
+    }
+
+    /**
+     * @param nifiProperties the NiFi Properties
+     * @return the Virtual Thread Execution for the given properties, or <code>null</code> if virtual thread execution is not enabled or if virtual
+     * threads are not supported by this JVM
+     */
+    public static VirtualThreadExecution create(final NiFiProperties nifiProperties) {
+        if (!nifiProperties.isVirtualThreadsEnabled()) {
+            return null;
+        }
+
+        final Set<String> componentTypes = new HashSet<>();
+        final String componentTypeNames = nifiProperties.getProperty(NiFiProperties.VIRTUAL_THREADS_COMPONENT_TYPES, "");
+        for (final String componentType : componentTypeNames.split(",")) {
+            if (!componentType.trim().isEmpty()) {
+                componentTypes.add(componentType.trim());
+            }
+        }
+
+        if (componentTypes.isEmpty()) {
+            logger.warn("Virtual thread execution is enabled but no component types are configured in the {} property, so all components will run on the Timer-Driven Thread Pool",
+                NiFiProperties.VIRTUAL_THREADS_COMPONENT_TYPES);
+            return null;
+        }
+
+        final Function<String, ThreadFactory> threadFactoryCreator;
+        try {
+            threadFactoryCreator = createVirtualThreadFactoryCreator();
+            // Ensure that virtual threads can actually be created, as they are a preview feature in Java 19 and 20
+            threadFactoryCreator.apply(THREAD_NAME_PREFIX).newThread(() -> { });
+        } catch (final Exception e) {
+            logger.warn("Virtual thread execution is enabled but virtual threads are not supported by Java {}; all components will run on the Timer-Driven Thread Pool",
+                System.getProperty("java.version"));
+            logger.debug("Failed to create virtual thread", e);
+            return null;
+        }
+
+        final long pinnedThresholdMillis = Math.round(FormatUtils.getPreciseTimeDuration(nifiProperties.getVirtualThreadsPinnedThreshold(), TimeUnit.MILLISECONDS));
+        final PinnedThreadMonitor pinnedThreadMonitor = PinnedThreadMonitor.start(pinnedThresholdMillis);
+
+        logger.info("Components of types {} will run on virtual threads", componentTypes);
+        return new VirtualThreadExecution(componentTypes, threadFactoryCreator, pinnedThreadMonitor);
+    }
+
+    private static Function<String, ThreadFactory> createVirtualThreadFactoryCreator() throws ReflectiveOperationException {
+        // Virtual threads are created reflectively so that NiFi can still be built and run on Java versions that do not support them
+        final Method ofVirtual = Thread.class.getMethod("ofVirtual");
+        final Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+        final Method name = builderClass.getMethod("name", String.class, long.class);
+        final Method factory = builderClass.getMethod("factory");
+
+        return namePrefix -> {
+            try {
+                final Object builder = name.invoke(ofVirtual.invoke(null), namePrefix, 1L);
+                return (ThreadFactory) factory.invoke(builder);
+            } catch (final ReflectiveOperationException e) {
+                throw new IllegalStateException("Failed to create Virtual Thread Factory", e);
+            }
+        };
+    }
+
+    /**
+     * @param connectable the component
+     * @return <code>true</code> if the component's tasks should run on virtual threads
+     */
+    public boolean isEligible(final Connectable connectable) {
+        if (componentTypes.contains(connectable.getComponentType())) {
+            return true;
+        }
+
+        return connectable instanceof ComponentNode && componentTypes.contains(((ComponentNode) connectable).getCanonicalClassName());
+    }
+
+    /**
+     * Starts one virtual thread for each of the component's Concurrent Tasks. Each start of the component has its own {@link VirtualTasks}, which the tasks
+     * must use to determine when to stop, rather than the schedule state: the schedule state is reused when the component is restarted, so a task that is
+     * still completing an invocation when the component is stopped and started again would otherwise continue to run alongside the newly started tasks.
+     *
+     * @param connectable the component that the tasks run
+     * @param scheduleState the schedule state of the component
+     * @param concurrentTasks the number of tasks to start
+     * @param taskFactory creates each task, given the Virtual Tasks that it belongs to
+     */
+    void start(final Connectable connectable, final LifecycleState scheduleState, final int concurrentTasks, final Function<VirtualTasks, Runnable> taskFactory) {
+        final ThreadFactory threadFactory = threadFactoryCreator.apply(getThreadNamePrefix(connectable));
+        final VirtualTasks virtualTasks = new VirtualTasks(connectable, concurrentTasks);
+        final VirtualTasks previousTasks = scheduledTasks.put(scheduleState, virtualTasks);
+        if (previousTasks != null) {
+            previousTasks.stop();
+        }
+
+        for (int i = 0; i < concurrentTasks; i++) {
+            final Runnable task = taskFactory.apply(virtualTasks);
+            final Thread thread = threadFactory.newThread(() -> {
+                try {
+                    task.run();
+                } finally {
+                    virtualTasks.threads.remove(Thread.currentThread());
+                }
+            });
+
+            virtualTasks.threads.add(thread);
+            thread.start();
+        }
+    }
+
+    /**
+     * Wakes the virtual threads of a component that has been unscheduled, so that they stop as soon as their current invocation completes.
+     * Invocations that are in progress are not interrupted.
+     *
+     * @param scheduleState the schedule state of the component, which must already indicate that the component is not scheduled
+     */
+    void stop(final LifecycleState scheduleState) {
+        final VirtualTasks virtualTasks = scheduledTasks.remove(scheduleState);
+        if (virtualTasks != null) {
+            virtualTasks.stop();
+        }
+    }
+
+    /**
+     * Waits for the given amount of time, or until the tasks are stopped
+     *
+     * @param virtualTasks the tasks that the current thread belongs to
+     * @param delayNanos the number of nanoseconds to wait
+     */
+    void await(final VirtualTasks virtualTasks, final long delayNanos) {
+        final long deadline = System.nanoTime() + delayNanos;
+        long remainingNanos = delayNanos;
+        while (remainingNanos > 0L && !virtualTasks.isStopped()) {
+            LockSupport.parkNanos(this, remainingNanos);
+            remainingNanos = deadline - System.nanoTime();
+        }
+    }
+
+    boolean isRunning(final LifecycleState scheduleState) {
+        return scheduledTasks.containsKey(scheduleState);
+    }
+
+    /**
+     * @return a description of each component that runs on virtual threads, and of the times that its virtual threads pinned their carrier threads
+     */
+    public List<String> getDiagnostics() {
+        final List<String> details = new ArrayList<>();
+        details.add("Component Types: " + componentTypes);
+        details.add("");
+
+        for (final VirtualTasks virtualTasks : scheduledTasks.values()) {
+            details.add(virtualTasks.connectable + " - Concurrent Tasks: " + virtualTasks.concurrentTasks + ", Live Virtual Threads: " + virtualTasks.threads.size());
+        }
+
+        details.add("");
+        if (pinnedThreadMonitor == null) {
+            details.add("Pinned virtual threads are not being monitored because JDK Flight Recorder is not available");
+            return details;
+        }
+
+        final Map<String, PinnedThreadMonitor.PinnedStatistics> pinnedStatistics = pinnedThreadMonitor.getStatistics();
+        if (pinnedStatistics.isEmpty()) {
+            details.add("No virtual threads have been pinned to their carrier threads for longer than " + pinnedThreadMonitor.getThresholdMillis() + " millis");
+            return details;
+        }
+
+        details.add("Virtual threads that were pinned to their carrier threads for longer than " + pinnedThreadMonitor.getThresholdMillis() + " millis, by component ID:");
+        final List<String> componentIds = new ArrayList<>(pinnedStatistics.keySet());
+        Collections.sort(componentIds);
+        for (final String componentId : componentIds) {
+            final PinnedThreadMonitor.PinnedStatistics statistics = pinnedStatistics.get(componentId);
+            details.add(componentId + " - Pinned Count: " + statistics.getCount() + ", Total Pinned Millis: " + statistics.getTotalMillis()
+                + ", Longest Pinned Millis: " + statistics.getMaxMillis());
+            if (statistics.getLastStackTrace() != null) {
+                details.add("    Last pinned at: " + statistics.getLastStackTrace());
+            }
+        }
+
+        return details;
+    }
+
+    public void shutdown() {
+        if (pinnedThreadMonitor != null) {
+            pinnedThreadMonitor.close();
+        }
+    }
+
+    static String getThreadNamePrefix(final Connectable connectable) {
+        return THREAD_NAME_PREFIX + " [" + connectable.getIdentifier() + "]-";
+    }
+
+    /**
+     * @param threadName the name of a virtual thread
+     * @return the identifier of the component that the thread runs, or <code>null</code> if the thread was not created by this class
+     */
+    static String getComponentId(final String threadName) {
+        if (threadName == null || !threadName.startsWith(THREAD_NAME_PREFIX)) {
+            return null;
+        }
+
+        final int start = threadName.indexOf('[', THREAD_NAME_PREFIX.length());
+        final int end = threadName.indexOf(']', start + 1);
+        if (start < 0 || end < 0) {
+            return null;
+        }
+
+        return threadName.substring(start + 1, end);
+    }
+
+    /**
+     * The virtual threads that were started by a single start of a component
+     */
+    static class VirtualTasks {
+        private final Connectable connectable;
+        private final int concurrentTasks;
+        private final List<Thread> threads = new CopyOnWriteArrayList<>();
+        private volatile boolean stopped = false;
+
+        VirtualTasks(final Connectable connectable, final int concurrentTasks) {
+            this.connectable = connectable;
+            this.concurrentTasks = concurrentTasks;
+        }
+
+        /**
+         * @return <code>true</code> if the component has been stopped since these tasks were started, in which case the tasks must not trigger it again
+         */
+        boolean isStopped() {
+            return stopped;
+        }
+
+        private void stop() {
+            stopped = true;
+            for (final Thread thread : threads) {
+                LockSupport.unpark(thread);
+            }
+        }
+    }
+}
@@ -0,0 +1,146 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.controller.scheduling;
+
+import org.apache.nifi.connectable.Connectable;
+import org.apache.nifi.controller.FlowController;
+import org.apache.nifi.controller.tasks.InvocationResult;
+import org.apache.nifi.engine.FlowEngine;
+import org.apache.nifi.util.Connectables;
+import org.apache.nifi.util.FormatUtils;
+import org.apache.nifi.util.NiFiProperties;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * A Timer-Driven Scheduling Agent that does not repeatedly poll components that are waiting for incoming FlowFiles. When a component is
+ * not triggered because none of its incoming connections has any FlowFiles queued, its tasks are parked until a FlowFile is enqueued into
+ * one of those connections, at which point the connection notifies the agent via {@link #onEvent(Connectable)} and the tasks are run
+ * immediately. While parked, the tasks are checked only once per idle check interval, as a safeguard.
+ *
+ * Source components, which do not require incoming FlowFiles in order to be triggered, are scheduled exactly as they are by the
+ * {@link TimerDrivenSchedulingAgent}, as there is no event that indicates when they have work to do.
+ */
+public class WorkAwareSchedulingAgent extends TimerDrivenSchedulingAgent {
+    private final long idleCheckNanos;
+
+    // Component identifier -> (trigger -> parked task)
+    private final ConcurrentMap<String, ConcurrentMap<Runnable, ParkedTask>> parkedTasks = new ConcurrentHashMap<>();
+
+    public WorkAwareSchedulingAgent(final FlowController flowController, final FlowEngine flowEngine, final RepositoryContextFactory contextFactory,
+                                    final NiFiProperties nifiProperties) {
+        super(flowController, flowEngine, contextFactory, nifiProperties);
+
+        final String idleCheckInterval = nifiProperties.getWorkAwareSchedulingIdleCheckInterval();
+        try {
+            idleCheckNanos = FormatUtils.getTimeDuration(idleCheckInterval, TimeUnit.NANOSECONDS);
+        } catch (final IllegalArgumentException e) {
+            throw new RuntimeException("Failed to create SchedulingAgent because the " + NiFiProperties.WORK_AWARE_SCHEDULING_IDLE_CHECK_INTERVAL
+                + " property is set to an invalid time duration: " + idleCheckInterval);
+        }
+    }
+
+    @Override
+    protected void onTriggerRun(final Runnable trigger, final Connectable connectable) {
+        // The task is no longer parked once it runs, whether it was woken by an event or by the idle check. Otherwise, a later event would
+        // reschedule a task that is already running on its normal schedule.
+        final Map<Runnable, ParkedTask> parked = parkedTasks.get(connectable.getIdentifier());
+        if (parked != null) {
+            parked.remove(trigger);
+        }
+    }
+
+    @Override
+    protected void onBored(final Runnable trigger, final Connectable connectable, final InvocationResult invocationResult, final LifecycleState scheduleState,
+                           final AtomicReference<ScheduledFuture<?>> futureRef) {
+        if (invocationResult != InvocationResult.NO_WORK_TO_DO) {
+            super.onBored(trigger, connectable, invocationResult, scheduleState, futureRef);
+            return;
+        }
+
+        // Reschedule the task before registering it as parked, so that a wake-up never races with the task parking itself. Then check the queues
+        // again, because a FlowFile may have been enqueued after the task checked for work but before it was registered, in which case the
+        // connection's event has already been missed.
+        reschedule(trigger, connectable, scheduleState, futureRef, idleCheckNanos);
+        parkedTasks.computeIfAbsent(connectable.getIdentifier(), id -> new ConcurrentHashMap<>())
+            .put(trigger, new ParkedTask(trigger, scheduleState, futureRef));
+
+        if (Connectables.flowFilesQueued(connectable)) {
+            onEvent(connectable);
+        }
+    }
+
+    @Override
+    public void onEvent(final Connectable connectable) {
+        final Map<Runnable, ParkedTask> parked = parkedTasks.get(connectable.getIdentifier());
+        if (parked == null || parked.isEmpty()) {
+            return;
+        }
+
+        final Iterator<ParkedTask> itr = parked.values().iterator();
+        while (itr.hasNext()) {
+            final ParkedTask parkedTask = itr.next();
+
+            // Only the thread that removes the task may wake it up, so that concurrent events do not reschedule it more than once
+            if (parked.remove(parkedTask.getTrigger(), parkedTask)) {
+                logger.debug("Waking {} because FlowFiles were enqueued", connectable);
+                reschedule(parkedTask.getTrigger(), connectable, parkedTask.getScheduleState(), parkedTask.getFutureRef(), 0L);
+            }
+        }
+    }
+
+    @Override
+    public void doUnschedule(final Connectable connectable, final LifecycleState scheduleState) {
+        super.doUnschedule(connectable, scheduleState);
+        parkedTasks.remove(connectable.getIdentifier());
+    }
+
+    int getParkedTaskCount(final Connectable connectable) {
+        final Map<Runnable, ParkedTask> parked = parkedTasks.get(connectable.getIdentifier());
+        return parked == null ? 0 : parked.size();
+    }
+
+    private static class ParkedTask {
+        private final Runnable trigger;
+        private final LifecycleState scheduleState;
+        private final AtomicReference<ScheduledFuture<?>> futureRef;
+
+        ParkedTask(final Runnable trigger, final LifecycleState scheduleState, final AtomicReference<ScheduledFuture<?>> futureRef) {
+            this.trigger = trigger;
+            this.scheduleState = scheduleState;
+            this.futureRef = futureRef;
+        }
+
+        Runnable getTrigger() {
+            return trigger;
+        }
+
+        LifecycleState getScheduleState() {
+            return scheduleState;
+        }
+
+        AtomicReference<ScheduledFuture<?>> getFutureRef() {
+            return futureRef;
+        }
+    }
+}
@@ -164,6 +164,32 @@ public enum ProcessorStatusDescriptor {
             }
         },
         true
+    ),
+
+    RUN_DURATION(
+        "runDuration",
+        "Run Duration",
+        "The run duration that the Processor was using, which is chosen by the framework when run duration tuning is enabled",
+        Formatter.DURATION,
+        ProcessorStatus::getRunDurationMillis,
+        new ValueReducer<StatusSnapshot, Long>() {
+            @Override
+            public Long reduce(final List<StatusSnapshot> values) {
+                long totalMillis = 0L;
+                int count = 0;
+
+                for (final StatusSnapshot snapshot : values) {
+                    final Long runDurationMillis = snapshot.getStatusMetric(RUN_DURATION.getDescriptor());
+                    if (runDurationMillis != null) {
+                        totalMillis += runDurationMillis.longValue();
+                        count++;
+                    }
+                }
+
+                return count == 0 ? 0L : totalMillis / count;
+            }
+        },
+        true
     );
 
 
@@ -27,6 +27,7 @@ import org.apache.nifi.util.RingBuffer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Date;
 import java.util.HashMap;
@@ -61,6 +62,11 @@ public class VolatileComponentStatusRepository implements StatusHistoryRepositor
     private static final String STORAGE_FREE_DESCRIPTION = "The usable space available for use by the underlying storage mechanism.";
     private static final String STORAGE_USED_DESCRIPTION = "The space in use on the underlying storage mechanism";
 
+    private static final String POOL_ACTIVE_THREADS_DESCRIPTION = "The number of threads of the scheduling pool that were running components when the measurement was taken.";
+    private static final String POOL_CPU_TIME_DESCRIPTION = "The CPU time used by the components of the scheduling pool since the last measurement.";
+    private static final String POOL_CPU_UTILIZATION_DESCRIPTION = "The percentage of the scheduling pool's CPU quota, or of its threads if it has no quota, used since the last measurement.";
+    private static final String POOL_THROTTLED_DESCRIPTION = "The number of times since the last measurement that a component was delayed because the scheduling pool had used up its CPU quota.";
+
     private static final String GC_TIME_DESCRIPTION = "The sum time the garbage collection has run since the start of the Java virtual machine.";
     private static final String GC_TIME_DIFF_DESCRIPTION = "The sum time the garbage collection has run since the last measurement.";
     private static final String GC_COUNT_DESCRIPTION = "The sum amount of occasions the garbage collection has run since the start of the Java virtual machine.";
@@ -198,6 +204,10 @@ public class VolatileComponentStatusRepository implements StatusHistoryRepositor
                 nodeStatusDescriptors.add(getProvenanceStorageFree(referenceNodeStatus, i, counter.incrementAndGet()));
                 nodeStatusDescriptors.add(getProvenanceStorageUsed(referenceNodeStatus, i, counter.incrementAndGet()));
             }
+
+            for (int i = 0; i < referenceNodeStatus.getSchedulingPools().size(); i++) {
+                nodeStatusDescriptors.addAll(getSchedulingPoolDescriptors(referenceNodeStatus, i, counter));
+            }
         }
 
         // Uses the first measurement (if any) as reference for GC metrics descriptors. The reference will be used
@@ -294,6 +304,51 @@ public class VolatileComponentStatusRepository implements StatusHistoryRepositor
         );
     }
 
+    // Descriptors for scheduling pools
+
+    private static List<StandardMetricDescriptor<NodeStatus>> getSchedulingPoolDescriptors(final NodeStatus referenceNodeStatus, final int poolNumber, final AtomicInteger counter) {
+        final String poolName = referenceNodeStatus.getSchedulingPools().get(poolNumber).getName();
+        final List<StandardMetricDescriptor<NodeStatus>> descriptors = new ArrayList<>();
+
+        final int activeThreadsOrder = counter.incrementAndGet();
+        descriptors.add(new StandardMetricDescriptor<>(
+                () -> activeThreadsOrder,
+                "schedulingPool" + poolNumber + "ActiveThreads",
+                "Scheduling Pool (" + poolName + ") Active Threads",
+                POOL_ACTIVE_THREADS_DESCRIPTION,
+                MetricDescriptor.Formatter.COUNT,
+                n -> (long) n.getSchedulingPools().get(poolNumber).getActiveThreads()));
+
+        final int cpuTimeOrder = counter.incrementAndGet();
+        descriptors.add(new StandardMetricDescriptor<>(
+                () -> cpuTimeOrder,
+                "schedulingPool" + poolNumber + "CpuTime",
+                "Scheduling Pool (" + poolName + ") CPU Time",
+                POOL_CPU_TIME_DESCRIPTION,
+                MetricDescriptor.Formatter.DURATION,
+                n -> n.getSchedulingPools().get(poolNumber).getCpuTimeMillis()));
+
+        final int cpuUtilizationOrder = counter.incrementAndGet();
+        descriptors.add(new StandardMetricDescriptor<>(
+                () -> cpuUtilizationOrder,
+                "schedulingPool" + poolNumber + "CpuUtilization",
+                "Scheduling Pool (" + poolName + ") CPU Utilization (%)",
+                POOL_CPU_UTILIZATION_DESCRIPTION,
+                MetricDescriptor.Formatter.COUNT,
+                n -> n.getSchedulingPools().get(poolNumber).getCpuUtilization()));
+
+        final int throttledOrder = counter.incrementAndGet();
+        descriptors.add(new StandardMetricDescriptor<>(
+                () -> throttledOrder,
+                "schedulingPool" + poolNumber + "ThrottledInvocations",
+                "Scheduling Pool (" + poolName + ") Throttled Invocations",
+                POOL_THROTTLED_DESCRIPTION,
+                MetricDescriptor.Formatter.COUNT,
+                n -> n.getSchedulingPools().get(poolNumber).getThrottledInvocations()));
+
+        return descriptors;
+    }
+
     // Descriptors for garbage collectors
 
     private static StandardMetricDescriptor<List<GarbageCollectionStatus>> getGarbageCollectorCount(final int gcNumber, final String memoryManagerName, final int order) {
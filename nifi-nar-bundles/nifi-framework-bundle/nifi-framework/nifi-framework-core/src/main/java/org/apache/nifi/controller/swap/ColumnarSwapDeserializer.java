@@ -0,0 +1,210 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.nifi.controller.swap;
+
+import net.jpountz.lz4.LZ4BlockInputStream;
+import org.apache.nifi.controller.queue.FlowFileQueue;
+import org.apache.nifi.controller.queue.QueueSize;
+import org.apache.nifi.controller.repository.FlowFileRecord;
+import org.apache.nifi.controller.repository.StandardFlowFileRecord;
+import org.apache.nifi.controller.repository.SwapContents;
+import org.apache.nifi.controller.repository.SwapSummary;
+import org.apache.nifi.controller.repository.claim.ResourceClaim;
+import org.apache.nifi.controller.repository.claim.ResourceClaimManager;
+import org.apache.nifi.controller.repository.claim.StandardContentClaim;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reads swap files that were written by the {@link ColumnarSwapSerializer}.
+ */
+public class ColumnarSwapDeserializer implements SwapDeserializer {
+
+    @Override
+    public SwapContents deserializeFlowFiles(final DataInputStream in, final String swapLocation, final FlowFileQueue queue, final ResourceClaimManager claimManager) throws IOException {
+        final Summary summary = readSummary(in, swapLocation, claimManager);
+        final int flowFileCount = summary.swapSummary.getQueueSize().getObjectCount();
+
+        final DataInputStream bodyIn = new DataInputStream(new LZ4BlockInputStream(in));
+
+        final int dictionarySize = bodyIn.readInt();
+        final String[] dictionary = new String[dictionarySize];
+        for (int i = 0; i < dictionarySize; i++) {
+            dictionary[i] = readString(bodyIn);
+        }
+
+        final long[] ids = readDeltas(bodyIn, flowFileCount);
+        final long[] entryDates = readDeltas(bodyIn, flowFileCount);
+        final long[] lineageStartDates = readDeltas(bodyIn, flowFileCount);
+        final long[] lineageStartIndices = readDeltas(bodyIn, flowFileCount);
+        final long[] lastQueueDates = readDeltas(bodyIn, flowFileCount);
+        final long[] queueDateIndices = readDeltas(bodyIn, flowFileCount);
+        final long[] sizes = readDeltas(bodyIn, flowFileCount);
+
+        final int[] resourceClaimIndices = new int[flowFileCount];
+        int withContent = 0;
+        for (int i = 0; i < flowFileCount; i++) {
+            resourceClaimIndices[i] = bodyIn.readInt();
+            if (resourceClaimIndices[i] >= 0) {
+                withContent++;
+            }
+        }
+
+        final long[] resourceClaimOffsets = readDeltas(bodyIn, withContent);
+        final long[] contentClaimLengths = readDeltas(bodyIn, withContent);
+        final long[] contentClaimOffsets = readDeltas(bodyIn, withContent);
+
+        final int[] attributeCounts = new int[flowFileCount];
+        for (int i = 0; i < flowFileCount; i++) {
+            attributeCounts[i] = bodyIn.readInt();
+        }
+
+        final List<FlowFileRecord> flowFiles = new ArrayList<>(flowFileCount);
+        int contentIndex = 0;
+        for (int i = 0; i < flowFileCount; i++) {
+            final Map<String, String> attributes = new HashMap<>(attributeCounts[i] * 2);
+            for (int j = 0; j < attributeCounts[i]; j++) {
+                final String key = lookup(dictionary, bodyIn.readInt(), swapLocation);
+                final String value = lookup(dictionary, bodyIn.readInt(), swapLocation);
+                attributes.put(key, value);
+            }
+
+            final StandardFlowFileRecord.Builder builder = new StandardFlowFileRecord.Builder()
+                .id(ids[i])
+                .entryDate(entryDates[i])
+                .lineageStart(lineageStartDates[i], lineageStartIndices[i])
+                .lastQueued(lastQueueDates[i], queueDateIndices[i])
+                .size(sizes[i])
+                .addAttributes(attributes);
+
+            final int resourceClaimIndex = resourceClaimIndices[i];
+            if (resourceClaimIndex >= 0) {
+                if (resourceClaimIndex >= summary.resourceClaims.length) {
+                    throw new IOException("Swap file " + swapLocation + " is corrupt: FlowFile refers to Resource Claim " + resourceClaimIndex
+                        + " but only " + summary.resourceClaims.length + " Resource Claims exist");
+                }
+
+                final StandardContentClaim contentClaim = new StandardContentClaim(summary.resourceClaims[resourceClaimIndex], resourceClaimOffsets[contentIndex]);
+                contentClaim.setLength(contentClaimLengths[contentIndex]);
+                builder.contentClaim(contentClaim);
+                builder.contentClaimOffset(contentClaimOffsets[contentIndex]);
+                contentIndex++;
+            }
+
+            flowFiles.add(builder.build());
+        }
+
+        return new StandardSwapContents(summary.swapSummary, flowFiles);
+    }
+
+    @Override
+    public SwapSummary getSwapSummary(final DataInputStream in, final String swapLocation, final ResourceClaimManager claimManager) throws IOException {
+        return readSummary(in, swapLocation, claimManager).swapSummary;
+    }
+
+    private Summary readSummary(final DataInputStream in, final String swapLocation, final ResourceClaimManager claimManager) throws IOException {
+        final int encodingVersion = in.readInt();
+        if (encodingVersion > ColumnarSwapSerializer.ENCODING_VERSION) {
+            throw new IOException("Cannot read swap file " + swapLocation + " because it was written using encoding version " + encodingVersion
+                + " but this version of NiFi supports only up to version " + ColumnarSwapSerializer.ENCODING_VERSION);
+        }
+
+        in.readUTF(); // queue identifier
+
+        final int flowFileCount = in.readInt();
+        final long contentSize = in.readLong();
+        final long maxFlowFileId = in.readLong();
+        final long minLastQueueDate = in.readLong();
+        final long totalLastQueueDate = in.readLong();
+
+        final int resourceClaimCount = in.readInt();
+        final ResourceClaim[] resourceClaims = new ResourceClaim[resourceClaimCount];
+        final List<ResourceClaim> flowFileResourceClaims = new ArrayList<>(flowFileCount);
+        for (int i = 0; i < resourceClaimCount; i++) {
+            final String container = readString(in);
+            final String section = readString(in);
+            final String identifier = readString(in);
+            final boolean lossTolerant = in.readBoolean();
+            final int claimantCount = in.readInt();
+
+            // Make sure that we preserve the existing ResourceClaim, if there is already one held by the Resource Claim Manager
+            // because we need to honor its determination of whether or not the claim is writable.
+            ResourceClaim resourceClaim = claimManager.getResourceClaim(container, section, identifier);
+            if (resourceClaim == null) {
+                resourceClaim = claimManager.newResourceClaim(container, section, identifier, lossTolerant, false);
+            }
+
+            resourceClaims[i] = resourceClaim;
+            for (int j = 0; j < claimantCount; j++) {
+                flowFileResourceClaims.add(resourceClaim);
+            }
+        }
+
+        final SwapSummary swapSummary = new StandardSwapSummary(new QueueSize(flowFileCount, contentSize), maxFlowFileId, flowFileResourceClaims, minLastQueueDate, totalLastQueueDate);
+        return new Summary(swapSummary, resourceClaims);
+    }
+
+    private static long[] readDeltas(final DataInputStream in, final int count) throws IOException {
+        final long[] values = new long[count];
+        long previous = 0L;
+        for (int i = 0; i < count; i++) {
+            previous += in.readLong();
+            values[i] = previous;
+        }
+
+        return values;
+    }
+
+    private static String lookup(final String[] dictionary, final int index, final String swapLocation) throws IOException {
+        if (index < 0) {
+            return null;
+        }
+        if (index >= dictionary.length) {
+            throw new IOException("Swap file " + swapLocation + " is corrupt: attribute refers to dictionary entry " + index + " but the dictionary has only " + dictionary.length + " entries");
+        }
+
+        return dictionary[index];
+    }
+
+    private static String readString(final DataInputStream in) throws IOException {
+        final int length = in.readInt();
+        final byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    public static String getSerializationName() {
+        return ColumnarSwapSerializer.SERIALIZATION_NAME;
+    }
+
+    private static class Summary {
+        private final SwapSummary swapSummary;
+        private final ResourceClaim[] resourceClaims;
+
+        private Summary(final SwapSummary swapSummary, final ResourceClaim[] resourceClaims) {
+            this.swapSummary = swapSummary;
+            this.resourceClaims = resourceClaims;
+        }
+    }
+}
@@ -0,0 +1,216 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.nifi.controller.swap;
+
+import net.jpountz.lz4.LZ4BlockOutputStream;
+import org.apache.nifi.controller.queue.FlowFileQueue;
+import org.apache.nifi.controller.repository.FlowFileRecord;
+import org.apache.nifi.controller.repository.claim.ContentClaim;
+import org.apache.nifi.controller.repository.claim.ResourceClaim;
+import org.apache.nifi.stream.io.NonCloseableOutputStream;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * <p>
+ * A {@link SwapSerializer} that writes FlowFiles column by column rather than record by record. Every attribute key and value is
+ * written once to a dictionary that is shared by all FlowFiles in the swap file, and each FlowFile refers to its attributes by their
+ * positions in the dictionary. Numeric fields are written as the difference from the previous FlowFile's value, so that FlowFiles
+ * that were queued at about the same time produce long runs of similar bytes.
+ * </p>
+ *
+ * <p>
+ * The swap file begins with an uncompressed summary of the FlowFiles, which allows the summary to be read without decoding
+ * the FlowFiles themselves. The FlowFiles follow, compressed using LZ4:
+ * </p>
+ *
+ * <pre>
+ * encoding version: int
+ * queue identifier: UTF
+ * summary: FlowFile count (int), content size (long), max FlowFile id (long), min last queue date (long), total last queue date (long)
+ * resource claims: count (int), then for each: container, section, identifier (strings), loss tolerant (boolean), number of FlowFiles (int)
+ * LZ4 compressed body:
+ *   dictionary: count (int), then each string
+ *   columns, one value per FlowFile: id, entry date, lineage start date, lineage start index, last queue date, queue date index, size
+ *   content claims: resource claim index (int, -1 for none), then resource claim offset, length and content claim offset for each claim
+ *   attributes: number of attributes for each FlowFile (int), then dictionary indices of each key and value (int)
+ * </pre>
+ */
+public class ColumnarSwapSerializer implements SwapSerializer {
+    static final String SERIALIZATION_NAME = "Columnar Swap Serialization";
+    static final int ENCODING_VERSION = 1;
+    static final int COMPRESSION_BLOCK_SIZE = 256 * 1024;
+
+    @Override
+    public void serializeFlowFiles(final List<FlowFileRecord> toSwap, final FlowFileQueue queue, final String swapLocation, final OutputStream destination) throws IOException {
+        final DataOutputStream out = new DataOutputStream(destination);
+        out.writeInt(ENCODING_VERSION);
+        out.writeUTF(queue.getIdentifier());
+
+        final Map<ResourceClaim, Integer> resourceClaimIndices = writeSummary(toSwap, out);
+        out.flush();
+
+        final LZ4BlockOutputStream compressedOut = new LZ4BlockOutputStream(new NonCloseableOutputStream(destination), COMPRESSION_BLOCK_SIZE);
+        final DataOutputStream bodyOut = new DataOutputStream(compressedOut);
+        writeBody(toSwap, resourceClaimIndices, bodyOut);
+        bodyOut.flush();
+        compressedOut.finish();
+        destination.flush();
+    }
+
+    private Map<ResourceClaim, Integer> writeSummary(final List<FlowFileRecord> toSwap, final DataOutputStream out) throws IOException {
+        long contentSize = 0L;
+        long maxFlowFileId = -1L;
+        long minLastQueueDate = Long.MAX_VALUE;
+        long totalLastQueueDate = 0L;
+        final Map<ResourceClaim, Integer> resourceClaimCounts = new LinkedHashMap<>();
+        for (final FlowFileRecord flowFile : toSwap) {
+            contentSize += flowFile.getSize();
+            maxFlowFileId = Math.max(maxFlowFileId, flowFile.getId());
+            minLastQueueDate = Math.min(minLastQueueDate, flowFile.getLastQueueDate());
+            totalLastQueueDate += flowFile.getLastQueueDate();
+
+            final ContentClaim contentClaim = flowFile.getContentClaim();
+            if (contentClaim != null) {
+                resourceClaimCounts.merge(contentClaim.getResourceClaim(), 1, Integer::sum);
+            }
+        }
+
+        out.writeInt(toSwap.size());
+        out.writeLong(contentSize);
+        out.writeLong(maxFlowFileId);
+        out.writeLong(toSwap.isEmpty() ? 0L : minLastQueueDate);
+        out.writeLong(totalLastQueueDate);
+
+        out.writeInt(resourceClaimCounts.size());
+        final Map<ResourceClaim, Integer> resourceClaimIndices = new HashMap<>(resourceClaimCounts.size() * 2);
+        for (final Map.Entry<ResourceClaim, Integer> entry : resourceClaimCounts.entrySet()) {
+            final ResourceClaim resourceClaim = entry.getKey();
+            writeString(resourceClaim.getContainer(), out);
+            writeString(resourceClaim.getSection(), out);
+            writeString(resourceClaim.getId(), out);
+            out.writeBoolean(resourceClaim.isLossTolerant());
+            out.writeInt(entry.getValue());
+
+            resourceClaimIndices.put(resourceClaim, resourceClaimIndices.size());
+        }
+
+        return resourceClaimIndices;
+    }
+
+    private void writeBody(final List<FlowFileRecord> toSwap, final Map<ResourceClaim, Integer> resourceClaimIndices, final DataOutputStream out) throws IOException {
+        final Map<String, Integer> dictionary = new LinkedHashMap<>();
+        final List<int[]> attributeIndices = new ArrayList<>(toSwap.size());
+        for (final FlowFileRecord flowFile : toSwap) {
+            final Map<String, String> attributes = flowFile.getAttributes();
+            final int[] indices = new int[attributes.size() * 2];
+            int i = 0;
+            for (final Map.Entry<String, String> entry : attributes.entrySet()) {
+                indices[i++] = getDictionaryIndex(entry.getKey(), dictionary);
+                indices[i++] = getDictionaryIndex(entry.getValue(), dictionary);
+            }
+
+            attributeIndices.add(indices);
+        }
+
+        out.writeInt(dictionary.size());
+        for (final String value : dictionary.keySet()) {
+            writeString(value, out);
+        }
+
+        writeDeltas(toSwap, FlowFileRecord::getId, out);
+        writeDeltas(toSwap, FlowFileRecord::getEntryDate, out);
+        writeDeltas(toSwap, FlowFileRecord::getLineageStartDate, out);
+        writeDeltas(toSwap, FlowFileRecord::getLineageStartIndex, out);
+        writeDeltas(toSwap, FlowFileRecord::getLastQueueDate, out);
+        writeDeltas(toSwap, FlowFileRecord::getQueueDateIndex, out);
+        writeDeltas(toSwap, FlowFileRecord::getSize, out);
+
+        final List<FlowFileRecord> withContent = new ArrayList<>(toSwap.size());
+        for (final FlowFileRecord flowFile : toSwap) {
+            final ContentClaim contentClaim = flowFile.getContentClaim();
+            if (contentClaim == null) {
+                out.writeInt(-1);
+            } else {
+                out.writeInt(resourceClaimIndices.get(contentClaim.getResourceClaim()));
+                withContent.add(flowFile);
+            }
+        }
+
+        writeDeltas(withContent, flowFile -> flowFile.getContentClaim().getOffset(), out);
+        writeDeltas(withContent, flowFile -> flowFile.getContentClaim().getLength(), out);
+        writeDeltas(withContent, FlowFileRecord::getContentClaimOffset, out);
+
+        for (final int[] indices : attributeIndices) {
+            out.writeInt(indices.length / 2);
+        }
+        for (final int[] indices : attributeIndices) {
+            for (final int index : indices) {
+                out.writeInt(index);
+            }
+        }
+    }
+
+    private static int getDictionaryIndex(final String value, final Map<String, Integer> dictionary) {
+        if (value == null) {
+            return -1;
+        }
+
+        final Integer existing = dictionary.get(value);
+        if (existing != null) {
+            return existing;
+        }
+
+        final int index = dictionary.size();
+        dictionary.put(value, index);
+        return index;
+    }
+
+    private static void writeDeltas(final List<FlowFileRecord> flowFiles, final LongField field, final DataOutputStream out) throws IOException {
+        long previous = 0L;
+        for (final FlowFileRecord flowFile : flowFiles) {
+            final long value = field.getValue(flowFile);
+            out.writeLong(value - previous);
+            previous = value;
+        }
+    }
+
+    static void writeString(final String value, final DataOutputStream out) throws IOException {
+        // Attribute values may exceed the 65,535 byte limit of writeUTF
+        final byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    @Override
+    public String getSerializationName() {
+        return SERIALIZATION_NAME;
+    }
+
+    private interface LongField {
+        long getValue(FlowFileRecord flowFile);
+    }
+}
@@ -77,6 +77,7 @@ public class ConnectableTask {
     private final AtomicLong invocations = new AtomicLong(0L);
     private volatile SampledMetrics sampledMetrics = new SampledMetrics();
     private final int perfTrackingNthIteration;
+    private final RunDurationTuner runDurationTuner;
 
     public ConnectableTask(final SchedulingAgent schedulingAgent, final Connectable connectable,
                            final FlowController flowController, final RepositoryContextFactory contextFactory, final LifecycleState scheduleState) {
@@ -106,6 +107,13 @@ public class ConnectableTask {
         } else {
             perfTrackingNthIteration = 100 / perfTrackingPercentage;
         }
+
+        if (connectable instanceof ProcessorNode && connectable.isSessionBatchingSupported() && flowController.isRunDurationTuningEnabled()) {
+            runDurationTuner = new RunDurationTuner((ProcessorNode) connectable, repositoryContext.getFlowFileEventRepository(),
+                flowController.getRunDurationLatencyBudget(TimeUnit.MILLISECONDS));
+        } else {
+            runDurationTuner = null;
+        }
     }
 
     public Connectable getConnectable() {
@@ -187,7 +195,7 @@ public class ConnectableTask {
         // Make sure processor has work to do.
         if (!isWorkToDo()) {
             logger.debug("Yielding {} because it has no work to do", connectable);
-            return InvocationResult.yield("No work to do");
+            return InvocationResult.NO_WORK_TO_DO;
         }
 
         if (numRelationships > 0) {
@@ -215,16 +223,17 @@ public class ConnectableTask {
 
         final PerformanceTracker performanceTracker = measureExpensiveMetrics ? new NanoTimePerformanceTracker() : new NopPerformanceTracker();
 
-        final long batchNanos = connectable.getRunDuration(TimeUnit.NANOSECONDS);
+        final long batchNanos = getRunDurationNanos();
         final ProcessSessionFactory sessionFactory;
-        final StandardProcessSession rawSession;
+        final BatchingSessionFactory batchingSessionFactory;
         final boolean batch;
         if (connectable.isSessionBatchingSupported() && batchNanos > 0L) {
-            rawSession = new StandardProcessSession(repositoryContext, scheduleState::isTerminated, performanceTracker);
-            sessionFactory = new BatchingSessionFactory(rawSession);
+            final StandardProcessSession rawSession = new StandardProcessSession(repositoryContext, scheduleState::isTerminated, performanceTracker);
+            batchingSessionFactory = new BatchingSessionFactory(rawSession);
+            sessionFactory = batchingSessionFactory;
             batch = true;
         } else {
-            rawSession = null;
+            batchingSessionFactory = null;
             sessionFactory = new StandardProcessSessionFactory(repositoryContext, scheduleState::isTerminated, performanceTracker);
             batch = false;
         }
@@ -292,8 +301,8 @@ public class ConnectableTask {
                     final ComponentLog procLog = new SimpleProcessLogger(connectable.getIdentifier(), connectable.getRunnableComponent());
 
                     try {
-                        rawSession.commitAsync(null, t -> {
-                            procLog.error("Failed to commit session {} due to {}; rolling back", new Object[]{rawSession, t.toString()}, t);
+                        batchingSessionFactory.commitAsync(t -> {
+                            procLog.error("Failed to commit batch session due to {}; rolling back", new Object[]{t.toString()}, t);
                         });
                     } catch (final TerminatedTaskException tte) {
                         procLog.debug("Cannot commit Batch Process Session because the Task was forcefully terminated", tte);
@@ -315,6 +324,15 @@ public class ConnectableTask {
         return InvocationResult.DO_NOT_YIELD;
     }
 
+    private long getRunDurationNanos() {
+        if (runDurationTuner == null) {
+            return connectable.getRunDuration(TimeUnit.NANOSECONDS);
+        }
+
+        runDurationTuner.tuneIfNecessary();
+        return runDurationTuner.getRunDuration(TimeUnit.NANOSECONDS);
+    }
+
     private void updateEventRepo(final long startNanoTime, final long startCpuTime, final long startGcMillis, final int invocationCount, final boolean measureCpuTime,
                                  final PerformanceTracker performanceTracker)
                 throws IOException {
@@ -35,6 +35,11 @@ public interface InvocationResult {
         }
     };
 
+    /**
+     * Indicates that the component was not triggered because it requires incoming FlowFiles and none are queued
+     */
+    public static InvocationResult NO_WORK_TO_DO = yield("No work to do");
+
     public static InvocationResult yield(final String explanation) {
         return new InvocationResult() {
             @Override
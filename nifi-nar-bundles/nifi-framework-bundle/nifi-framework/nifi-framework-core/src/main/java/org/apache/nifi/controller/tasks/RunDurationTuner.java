@@ -0,0 +1,185 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.controller.tasks;
+
+import org.apache.nifi.connectable.Connection;
+import org.apache.nifi.controller.ProcessorNode;
+import org.apache.nifi.controller.repository.FlowFileEvent;
+import org.apache.nifi.controller.repository.FlowFileEventRepository;
+import org.apache.nifi.groups.ProcessGroup;
+import org.apache.nifi.util.FormatUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Chooses the Run Duration of a Processor that supports batching, based on how the Processor is behaving, rather than relying on the Run Duration
+ * that the user configured.
+ *
+ * The Run Duration is always one of the values that the user can choose from. While the Processor has a backlog of FlowFiles and the per-invocation
+ * overhead, as reported by the FlowFile Event Repository, is significant, the Run Duration is stepped up so that more work is committed in each session.
+ * Once the backlog has cleared, it is stepped back down so that FlowFiles are not held back waiting for a batch to complete. The Run Duration never
+ * exceeds the latency budget, which may be given by the {@value #LATENCY_BUDGET_VARIABLE} variable of the Processor's Process Group or one of its
+ * ancestors, and otherwise by the default latency budget.
+ */
+public class RunDurationTuner {
+    private static final Logger logger = LoggerFactory.getLogger(RunDurationTuner.class);
+
+    public static final String LATENCY_BUDGET_VARIABLE = "nifi.run.duration.latency.budget";
+
+    static final long[] RUN_DURATION_MILLIS = {0L, 25L, 50L, 100L, 250L, 500L, 1000L, 2000L};
+    static final int BACKLOG_THRESHOLD = 100;
+    static final double SIGNIFICANT_COMMIT_RATIO = 0.1D;
+    static final long SHORT_INVOCATION_NANOS = TimeUnit.MILLISECONDS.toNanos(1L);
+    private static final long TUNING_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(5L);
+
+    private final ProcessorNode procNode;
+    private final FlowFileEventRepository eventRepository;
+    private final long defaultLatencyBudgetMillis;
+    private final AtomicLong nextTuningNanos;
+    private volatile int step;
+
+    /**
+     * @param procNode the Processor whose Run Duration is to be tuned
+     * @param eventRepository the repository that holds the Processor's recent performance metrics
+     * @param defaultLatencyBudgetMillis the largest Run Duration to choose, in milliseconds, when the Processor's Process Group does not specify a latency budget
+     */
+    public RunDurationTuner(final ProcessorNode procNode, final FlowFileEventRepository eventRepository, final long defaultLatencyBudgetMillis) {
+        this.procNode = procNode;
+        this.eventRepository = eventRepository;
+        this.defaultLatencyBudgetMillis = defaultLatencyBudgetMillis;
+        this.nextTuningNanos = new AtomicLong(System.nanoTime() + TUNING_INTERVAL_NANOS);
+
+        // Start from the configured Run Duration, so that the Processor behaves as it did before it was tuned
+        final int configuredStep = getStep(procNode.getRunDuration(TimeUnit.MILLISECONDS));
+        this.step = Math.min(configuredStep, getStep(getLatencyBudgetMillis()));
+        procNode.setTunedRunDuration(RUN_DURATION_MILLIS[step], TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * @param timeUnit the unit of the returned duration
+     * @return the Run Duration that the Processor should currently use
+     */
+    public long getRunDuration(final TimeUnit timeUnit) {
+        return timeUnit.convert(RUN_DURATION_MILLIS[step], TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Re-evaluates the Run Duration if it has not been evaluated recently. Only one of the threads that call this method concurrently performs the evaluation.
+     */
+    public void tuneIfNecessary() {
+        final long now = System.nanoTime();
+        final long nextTuning = nextTuningNanos.get();
+        if (now - nextTuning < 0L) {
+            return;
+        }
+
+        if (nextTuningNanos.compareAndSet(nextTuning, now + TUNING_INTERVAL_NANOS)) {
+            tune();
+        }
+    }
+
+    void tune() {
+        final int maxStep = getStep(getLatencyBudgetMillis());
+        final int currentStep = step;
+
+        final long queued = getQueuedCount();
+        final boolean source = queued < 0L;
+        final FlowFileEvent event = eventRepository.reportTransferEvents(procNode.getIdentifier(), System.currentTimeMillis());
+        final boolean idle = event == null || event.getInvocations() == 0 || queued == 0L;
+
+        int updatedStep = currentStep;
+        if (idle) {
+            updatedStep--;
+        } else if ((source || queued >= BACKLOG_THRESHOLD) && isOverheadSignificant(event)) {
+            updatedStep++;
+        }
+        updatedStep = Math.max(0, Math.min(updatedStep, maxStep));
+
+        if (updatedStep != currentStep) {
+            step = updatedStep;
+            procNode.setTunedRunDuration(RUN_DURATION_MILLIS[updatedStep], TimeUnit.MILLISECONDS);
+            logger.debug("Changed Run Duration of {} from {} millis to {} millis; {} FlowFiles queued", procNode, RUN_DURATION_MILLIS[currentStep], RUN_DURATION_MILLIS[updatedStep], queued);
+        }
+    }
+
+    private boolean isOverheadSignificant(final FlowFileEvent event) {
+        final long processingNanos = event.getProcessingNanoseconds();
+        if (processingNanos <= 0L) {
+            return false;
+        }
+
+        // Session commit time is only known when performance tracking is enabled. Otherwise, short invocations indicate that the fixed cost of
+        // scheduling the Processor and committing its session makes up much of the time spent.
+        final long commitNanos = event.getSessionCommitNanoseconds();
+        if (commitNanos > 0L) {
+            return (double) commitNanos / (double) processingNanos >= SIGNIFICANT_COMMIT_RATIO;
+        }
+
+        return processingNanos / event.getInvocations() < SHORT_INVOCATION_NANOS;
+    }
+
+    /**
+     * @return the number of FlowFiles queued for the Processor by other components, or <code>-1</code> if the Processor is a source, which does not consume FlowFiles
+     */
+    private long getQueuedCount() {
+        if (procNode.isTriggerWhenEmpty()) {
+            return -1L;
+        }
+
+        long queued = 0L;
+        boolean hasNonLoopConnection = false;
+        for (final Connection connection : procNode.getIncomingConnections()) {
+            if (connection.getSource() == procNode) {
+                continue;
+            }
+
+            hasNonLoopConnection = true;
+            queued += connection.getFlowFileQueue().size().getObjectCount();
+        }
+
+        return hasNonLoopConnection ? queued : -1L;
+    }
+
+    private long getLatencyBudgetMillis() {
+        final ProcessGroup group = procNode.getProcessGroup();
+        final String budget = group == null ? null : group.getVariableRegistry().getVariableValue(LATENCY_BUDGET_VARIABLE);
+        if (budget == null || budget.trim().isEmpty()) {
+            return defaultLatencyBudgetMillis;
+        }
+
+        try {
+            return Math.round(FormatUtils.getPreciseTimeDuration(budget.trim(), TimeUnit.MILLISECONDS));
+        } catch (final IllegalArgumentException e) {
+            logger.warn("Invalid value [{}] for variable {} of {}; using default latency budget of {} millis", budget, LATENCY_BUDGET_VARIABLE, group, defaultLatencyBudgetMillis);
+            return defaultLatencyBudgetMillis;
+        }
+    }
+
+    /**
+     * @return the index of the largest Run Duration that does not exceed the given number of milliseconds
+     */
+    private static int getStep(final long millis) {
+        int index = 0;
+        while (index < RUN_DURATION_MILLIS.length - 1 && RUN_DURATION_MILLIS[index + 1] <= millis) {
+            index++;
+        }
+        return index;
+    }
+}
@@ -38,6 +38,7 @@ import org.apache.nifi.diagnostics.bootstrap.tasks.NiFiPropertiesDiagnosticTask;
 import org.apache.nifi.diagnostics.bootstrap.tasks.OperatingSystemDiagnosticTask;
 import org.apache.nifi.diagnostics.bootstrap.tasks.ProcessorTimingDiagnosticTask;
 import org.apache.nifi.diagnostics.bootstrap.tasks.RepositoryDiagnosticTask;
+import org.apache.nifi.diagnostics.bootstrap.tasks.VirtualThreadDiagnosticTask;
 import org.apache.nifi.util.NiFiProperties;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -77,6 +78,7 @@ public class BootstrapDiagnosticsFactory implements DiagnosticsFactory {
         tasks.add(new FlowConfigurationDiagnosticTask(flowController));
         tasks.add(new ProcessorTimingDiagnosticTask(flowController.getFlowFileEventRepository(), flowController.getFlowManager()));
         tasks.add(new LongRunningProcessorTask(flowController));
+        tasks.add(new VirtualThreadDiagnosticTask(flowController));
         tasks.add(new ClusterDiagnosticTask(flowController));
         tasks.add(new GarbageCollectionDiagnosticTask(flowController));
         tasks.add(new MemoryPoolPeakUsageTask());
@@ -24,12 +24,15 @@ import org.apache.nifi.controller.status.ProcessGroupStatus;
 import org.apache.nifi.diagnostics.DiagnosticTask;
 import org.apache.nifi.diagnostics.DiagnosticsDumpElement;
 import org.apache.nifi.diagnostics.StandardDiagnosticsDumpElement;
+import org.apache.nifi.provenance.ProvenanceIndexStatus;
 import org.apache.nifi.provenance.ProvenanceRepository;
 import org.apache.nifi.util.FormatUtils;
 
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
 
 public class RepositoryDiagnosticTask implements DiagnosticTask {
     private final FlowController flowController;
@@ -95,6 +98,16 @@ public class RepositoryDiagnosticTask implements DiagnosticTask {
             details.add("Provenance Repository <" + containerName + "> Storage Capacity: " + FormatUtils.formatDataSize(repository.getContainerCapacity(containerName)));
             details.add("Provenance Repository <" + containerName + "> Usable Space: " + FormatUtils.formatDataSize(repository.getContainerUsableSpace(containerName)));
         }
+
+        final Optional<ProvenanceIndexStatus> indexStatusOption = repository.getIndexStatus();
+        if (indexStatusOption.isPresent()) {
+            final ProvenanceIndexStatus indexStatus = indexStatusOption.get();
+            details.add("Provenance Events Awaiting Index: " + FormatUtils.formatCount(indexStatus.getEventsAwaitingIndex()));
+            details.add("Provenance Events Indexed: " + FormatUtils.formatCount(indexStatus.getEventsIndexed()));
+            details.add("Provenance Index Threads Active: " + indexStatus.getActiveIndexThreads() + " of " + indexStatus.getIndexThreads());
+            details.add("Provenance Index Commits: " + FormatUtils.formatCount(indexStatus.getCommitCount()));
+            details.add("Time Spent Waiting for Provenance Indexing (Last 5 mins): " + FormatUtils.formatMinutesSeconds(indexStatus.getBackPressureMillis(), TimeUnit.MILLISECONDS));
+        }
     }
 
 }
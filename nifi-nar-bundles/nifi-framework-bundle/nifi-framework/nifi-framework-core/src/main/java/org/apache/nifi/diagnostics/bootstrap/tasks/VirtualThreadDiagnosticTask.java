@@ -0,0 +1,53 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.diagnostics.bootstrap.tasks;
+
+import org.apache.nifi.controller.FlowController;
+import org.apache.nifi.controller.scheduling.SchedulingAgent;
+import org.apache.nifi.controller.scheduling.TimerDrivenSchedulingAgent;
+import org.apache.nifi.controller.scheduling.VirtualThreadExecution;
+import org.apache.nifi.diagnostics.DiagnosticTask;
+import org.apache.nifi.diagnostics.DiagnosticsDumpElement;
+import org.apache.nifi.diagnostics.StandardDiagnosticsDumpElement;
+import org.apache.nifi.scheduling.SchedulingStrategy;
+
+import java.util.Collections;
+import java.util.List;
+
+public class VirtualThreadDiagnosticTask implements DiagnosticTask {
+    private final FlowController flowController;
+
+    public VirtualThreadDiagnosticTask(final FlowController flowController) {
+        this.flowController = flowController;
+    }
+
+    @Override
+    public DiagnosticsDumpElement captureDump(final boolean verbose) {
+        final SchedulingAgent schedulingAgent = flowController.getProcessScheduler().getSchedulingAgent(SchedulingStrategy.TIMER_DRIVEN);
+        final VirtualThreadExecution virtualThreadExecution = schedulingAgent instanceof TimerDrivenSchedulingAgent
+            ? ((TimerDrivenSchedulingAgent) schedulingAgent).getVirtualThreadExecution() : null;
+
+        final List<String> details;
+        if (virtualThreadExecution == null) {
+            details = Collections.singletonList("No components are running on virtual threads");
+        } else {
+            details = virtualThreadExecution.getDiagnostics();
+        }
+
+        return new StandardDiagnosticsDumpElement("Virtual Threads", details);
+    }
+}
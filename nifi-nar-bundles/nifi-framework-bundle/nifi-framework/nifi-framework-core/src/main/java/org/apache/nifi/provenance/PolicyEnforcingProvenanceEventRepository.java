@@ -0,0 +1,126 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.nifi.provenance;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.function.Supplier;
+
+/**
+ * A view of a {@link ProvenanceRepository} that is handed to a single component and that applies the component's
+ * {@link ProvenancePolicy} to each event before the event is handed to the underlying repository to be serialized.
+ * All read operations are delegated to the underlying repository.
+ */
+class PolicyEnforcingProvenanceEventRepository implements ProvenanceEventRepository {
+    private final ProvenanceRepository delegate;
+    private final Supplier<ProvenancePolicy> policySupplier;
+
+    PolicyEnforcingProvenanceEventRepository(final ProvenanceRepository delegate, final Supplier<ProvenancePolicy> policySupplier) {
+        this.delegate = delegate;
+        this.policySupplier = policySupplier;
+    }
+
+    @Override
+    public ProvenanceEventBuilder eventBuilder() {
+        return delegate.eventBuilder();
+    }
+
+    @Override
+    public void registerEvent(final ProvenanceEventRecord event) {
+        registerEvents(Collections.singletonList(event));
+    }
+
+    @Override
+    public void registerEvents(final Iterable<ProvenanceEventRecord> events) {
+        final ProvenancePolicy policy = policySupplier.get();
+        switch (policy.getAction()) {
+            case DROP:
+                return;
+            case STORE:
+                delegate.registerUnindexedEvents(events);
+                return;
+            case SAMPLE:
+                delegate.registerEvents(() -> new RetainedEventIterator(events.iterator(), policy));
+                return;
+            case INDEX:
+            default:
+                delegate.registerEvents(events);
+        }
+    }
+
+    @Override
+    public List<ProvenanceEventRecord> getEvents(final long firstRecordId, final int maxRecords) throws IOException {
+        return delegate.getEvents(firstRecordId, maxRecords);
+    }
+
+    @Override
+    public Long getMaxEventId() {
+        return delegate.getMaxEventId();
+    }
+
+    @Override
+    public ProvenanceEventRecord getEvent(final long id) throws IOException {
+        return delegate.getEvent(id);
+    }
+
+    @Override
+    public void close() {
+        // The underlying repository is shared by all components and is closed by the framework
+    }
+
+    /**
+     * Lazily filters out the events that a policy does not retain, so that the events are still enriched one at a time as the
+     * underlying repository serializes them
+     */
+    private static class RetainedEventIterator implements Iterator<ProvenanceEventRecord> {
+        private final Iterator<ProvenanceEventRecord> events;
+        private final ProvenancePolicy policy;
+        private ProvenanceEventRecord next;
+
+        RetainedEventIterator(final Iterator<ProvenanceEventRecord> events, final ProvenancePolicy policy) {
+            this.events = events;
+            this.policy = policy;
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (next == null && events.hasNext()) {
+                final ProvenanceEventRecord event = events.next();
+                if (policy.isRetained(event)) {
+                    next = event;
+                }
+            }
+
+            return next != null;
+        }
+
+        @Override
+        public ProvenanceEventRecord next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+
+            final ProvenanceEventRecord event = next;
+            next = null;
+            return event;
+        }
+    }
+}
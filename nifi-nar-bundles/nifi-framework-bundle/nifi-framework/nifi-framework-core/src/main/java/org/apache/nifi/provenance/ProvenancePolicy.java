@@ -0,0 +1,156 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.nifi.provenance;
+
+import java.util.Objects;
+
+/**
+ * Describes what should happen to the Provenance Events that are generated by a component
+ */
+public final class ProvenancePolicy {
+    public static final ProvenancePolicy INDEX = new ProvenancePolicy(Action.INDEX, 1);
+    public static final ProvenancePolicy STORE = new ProvenancePolicy(Action.STORE, 1);
+    public static final ProvenancePolicy DROP = new ProvenancePolicy(Action.DROP, 1);
+
+    private static final String SAMPLE_PREFIX = "sample:";
+
+    public enum Action {
+        /**
+         * Events are stored and indexed, so that they can be searched
+         */
+        INDEX,
+
+        /**
+         * Events are stored but not indexed, so that they can be retrieved by ID but are not returned by Provenance queries
+         */
+        STORE,
+
+        /**
+         * The events for one in every N FlowFiles are stored and indexed; all other events are dropped
+         */
+        SAMPLE,
+
+        /**
+         * Events are dropped without being stored
+         */
+        DROP
+    }
+
+    private final Action action;
+    private final int sampleRate;
+
+    private ProvenancePolicy(final Action action, final int sampleRate) {
+        this.action = action;
+        this.sampleRate = sampleRate;
+    }
+
+    /**
+     * Creates a policy that stores and indexes the events for one in every <code>sampleRate</code> FlowFiles
+     *
+     * @param sampleRate the number of FlowFiles for which one FlowFile's events are retained
+     * @return the sampling policy
+     */
+    public static ProvenancePolicy sample(final int sampleRate) {
+        if (sampleRate < 1) {
+            throw new IllegalArgumentException("Provenance sample rate must be at least 1 but was " + sampleRate);
+        }
+
+        return sampleRate == 1 ? INDEX : new ProvenancePolicy(Action.SAMPLE, sampleRate);
+    }
+
+    /**
+     * Parses a policy from its textual form, which is one of <code>index</code>, <code>store</code>, <code>drop</code>,
+     * or <code>sample:N</code>, ignoring case
+     *
+     * @param value the textual form of the policy
+     * @return the policy
+     * @throws IllegalArgumentException if the value is not a valid policy
+     */
+    public static ProvenancePolicy parse(final String value) {
+        final String trimmed = value.trim().toLowerCase();
+        if (trimmed.startsWith(SAMPLE_PREFIX)) {
+            final String rate = trimmed.substring(SAMPLE_PREFIX.length()).trim();
+            try {
+                return sample(Integer.parseInt(rate));
+            } catch (final NumberFormatException nfe) {
+                throw new IllegalArgumentException("Invalid Provenance sample rate '" + rate + "'; expected a positive integer");
+            }
+        }
+
+        switch (trimmed) {
+            case "index":
+                return INDEX;
+            case "store":
+                return STORE;
+            case "drop":
+                return DROP;
+            default:
+                throw new IllegalArgumentException("Invalid Provenance policy '" + value + "'; valid values are index, store, drop, and sample:N");
+        }
+    }
+
+    public Action getAction() {
+        return action;
+    }
+
+    public int getSampleRate() {
+        return sampleRate;
+    }
+
+    /**
+     * Determines whether or not the given event should be retained. Sampling is based on the UUID of the event's FlowFile, rather than
+     * on the event itself, so that either all or none of the events that a component generates for a given FlowFile are retained.
+     *
+     * @param event the event
+     * @return <code>true</code> if the event should be stored, <code>false</code> if it should be dropped
+     */
+    public boolean isRetained(final ProvenanceEventRecord event) {
+        switch (action) {
+            case DROP:
+                return false;
+            case SAMPLE:
+                final String flowFileUuid = event.getFlowFileUuid();
+                return flowFileUuid == null || Math.floorMod(flowFileUuid.hashCode(), sampleRate) == 0;
+            default:
+                return true;
+        }
+    }
+
+    @Override
+    public boolean equals(final Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (!(obj instanceof ProvenancePolicy)) {
+            return false;
+        }
+
+        final ProvenancePolicy other = (ProvenancePolicy) obj;
+        return action == other.action && sampleRate == other.sampleRate;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(action, sampleRate);
+    }
+
+    @Override
+    public String toString() {
+        return action == Action.SAMPLE ? SAMPLE_PREFIX + sampleRate : action.name().toLowerCase();
+    }
+}
@@ -0,0 +1,163 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.nifi.provenance;
+
+import org.apache.nifi.connectable.Connectable;
+import org.apache.nifi.controller.ComponentNode;
+import org.apache.nifi.groups.ProcessGroup;
+import org.apache.nifi.util.NiFiProperties;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * <p>
+ * Determines the {@link ProvenancePolicy} that applies to the events generated by a given component. Policies are configured in nifi.properties:
+ * </p>
+ *
+ * <ul>
+ *     <li><code>nifi.provenance.policy.process.group.&lt;group id&gt;</code> applies to all components within the Process Group, including
+ *     those in child groups that do not have a policy of their own</li>
+ *     <li><code>nifi.provenance.policy.component.type.&lt;type&gt;</code> applies to all components of the given type, which may be given
+ *     either as the simple type (e.g., <code>UpdateAttribute</code>) or as the fully qualified class name</li>
+ *     <li><code>nifi.provenance.policy.default</code> applies to all other components</li>
+ * </ul>
+ *
+ * <p>
+ * The policy of the nearest Process Group takes precedence over a component type policy, which takes precedence over the default.
+ * The policy is resolved each time that events are registered, so that a component that is moved to another Process Group picks
+ * up that group's policy.
+ * </p>
+ */
+public class ProvenancePolicyEngine {
+    public static final String DEFAULT_POLICY = "nifi.provenance.policy.default";
+    public static final String COMPONENT_TYPE_POLICY_PREFIX = "nifi.provenance.policy.component.type.";
+    public static final String PROCESS_GROUP_POLICY_PREFIX = "nifi.provenance.policy.process.group.";
+
+    public static final ProvenancePolicyEngine INDEX_ALL = new ProvenancePolicyEngine(ProvenancePolicy.INDEX, Collections.emptyMap(), Collections.emptyMap());
+
+    private final ProvenancePolicy defaultPolicy;
+    private final Map<String, ProvenancePolicy> componentTypePolicies;
+    private final Map<String, ProvenancePolicy> processGroupPolicies;
+    private final boolean indexAll;
+
+    public ProvenancePolicyEngine(final ProvenancePolicy defaultPolicy, final Map<String, ProvenancePolicy> componentTypePolicies,
+                                  final Map<String, ProvenancePolicy> processGroupPolicies) {
+        this.defaultPolicy = defaultPolicy;
+        this.componentTypePolicies = new HashMap<>(componentTypePolicies);
+        this.processGroupPolicies = new HashMap<>(processGroupPolicies);
+        this.indexAll = ProvenancePolicy.INDEX.equals(defaultPolicy)
+            && componentTypePolicies.values().stream().allMatch(ProvenancePolicy.INDEX::equals)
+            && processGroupPolicies.values().stream().allMatch(ProvenancePolicy.INDEX::equals);
+    }
+
+    /**
+     * Creates a policy engine from the policies that are configured in the given properties
+     *
+     * @param nifiProperties the properties
+     * @return the policy engine, or {@link #INDEX_ALL} if no policies are configured
+     * @throws IllegalArgumentException if any configured policy is invalid
+     */
+    public static ProvenancePolicyEngine create(final NiFiProperties nifiProperties) {
+        final ProvenancePolicy defaultPolicy = parse(DEFAULT_POLICY, nifiProperties.getProperty(DEFAULT_POLICY, ProvenancePolicy.INDEX.toString()));
+        final Map<String, ProvenancePolicy> componentTypePolicies = parsePolicies(nifiProperties, COMPONENT_TYPE_POLICY_PREFIX);
+        final Map<String, ProvenancePolicy> processGroupPolicies = parsePolicies(nifiProperties, PROCESS_GROUP_POLICY_PREFIX);
+
+        final ProvenancePolicyEngine engine = new ProvenancePolicyEngine(defaultPolicy, componentTypePolicies, processGroupPolicies);
+        return engine.isIndexAll() ? INDEX_ALL : engine;
+    }
+
+    private static Map<String, ProvenancePolicy> parsePolicies(final NiFiProperties nifiProperties, final String prefix) {
+        final Map<String, ProvenancePolicy> policies = new HashMap<>();
+        for (final Map.Entry<String, String> entry : nifiProperties.getPropertiesWithPrefix(prefix).entrySet()) {
+            final String name = entry.getKey().substring(prefix.length());
+            if (!name.isEmpty() && entry.getValue() != null && !entry.getValue().trim().isEmpty()) {
+                policies.put(name, parse(entry.getKey(), entry.getValue()));
+            }
+        }
+
+        return policies;
+    }
+
+    private static ProvenancePolicy parse(final String propertyName, final String value) {
+        try {
+            return ProvenancePolicy.parse(value);
+        } catch (final IllegalArgumentException iae) {
+            throw new IllegalArgumentException("Invalid value for property " + propertyName + ": " + iae.getMessage(), iae);
+        }
+    }
+
+    /**
+     * @return <code>true</code> if every event is to be stored and indexed, regardless of the component that generated it
+     */
+    public boolean isIndexAll() {
+        return indexAll;
+    }
+
+    /**
+     * Determines the policy that applies to the events generated by the given component
+     *
+     * @param connectable the component
+     * @return the policy that applies to the component's events
+     */
+    public ProvenancePolicy getPolicy(final Connectable connectable) {
+        if (!processGroupPolicies.isEmpty()) {
+            ProcessGroup group = connectable.getProcessGroup();
+            while (group != null) {
+                final ProvenancePolicy groupPolicy = processGroupPolicies.get(group.getIdentifier());
+                if (groupPolicy != null) {
+                    return groupPolicy;
+                }
+
+                group = group.getParent();
+            }
+        }
+
+        if (!componentTypePolicies.isEmpty()) {
+            final ProvenancePolicy typePolicy = componentTypePolicies.get(connectable.getComponentType());
+            if (typePolicy != null) {
+                return typePolicy;
+            }
+
+            if (connectable instanceof ComponentNode) {
+                final ProvenancePolicy classPolicy = componentTypePolicies.get(((ComponentNode) connectable).getCanonicalClassName());
+                if (classPolicy != null) {
+                    return classPolicy;
+                }
+            }
+        }
+
+        return defaultPolicy;
+    }
+
+    /**
+     * Returns a view of the given repository that applies this engine's policy for the given component to each event that is registered
+     *
+     * @param repository the repository to register events with
+     * @param connectable the component whose events are registered through the returned repository
+     * @return a repository that enforces the component's policy, or the given repository if every event is to be indexed
+     */
+    public ProvenanceEventRepository wrap(final ProvenanceRepository repository, final Connectable connectable) {
+        if (isIndexAll()) {
+            return repository;
+        }
+
+        return new PolicyEnforcingProvenanceEventRepository(repository, () -> getPolicy(connectable));
+    }
+}
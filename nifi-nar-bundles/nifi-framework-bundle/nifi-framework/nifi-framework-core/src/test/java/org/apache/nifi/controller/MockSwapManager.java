@@ -37,6 +37,8 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Future;
 import java.util.stream.Collectors;
 
 public class MockSwapManager implements FlowFileSwapManager {
@@ -52,6 +54,9 @@ public class MockSwapManager implements FlowFileSwapManager {
     private int failSwapOutAfterN = -1;
     private IOException failSwapOutFailure = null;
 
+    public boolean prefetchEnabled = false;
+    public int prefetchCalledCount = 0;
+
     public void setSwapInFailure(final Throwable t) {
         this.failSwapInFailure = t;
     }
@@ -129,6 +134,30 @@ public class MockSwapManager implements FlowFileSwapManager {
         return new StandardSwapContents(getSwapSummary(swapLocation), swappedOut.remove(swapLocation));
     }
 
+    @Override
+    public Future<SwapContents> prefetch(final String swapLocation, final FlowFileQueue flowFileQueue) {
+        if (!prefetchEnabled) {
+            return null;
+        }
+
+        prefetchCalledCount++;
+        final CompletableFuture<SwapContents> future = new CompletableFuture<>();
+        try {
+            future.complete(peek(swapLocation, flowFileQueue));
+        } catch (final IOException ioe) {
+            future.completeExceptionally(ioe);
+        }
+
+        return future;
+    }
+
+    @Override
+    public SwapContents swapIn(final String swapLocation, final FlowFileQueue flowFileQueue, final SwapContents contents) {
+        swapInCalledCount++;
+        swappedOut.remove(swapLocation);
+        return contents;
+    }
+
     @Override
     public List<String> recoverSwapLocations(FlowFileQueue flowFileQueue, final String partitionName) throws IOException {
         return swappedOut.keySet().stream()
@@ -42,12 +42,20 @@ import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
+import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 public class TestFileSystemSwapManager {
@@ -144,6 +152,68 @@ public class TestFileSystemSwapManager {
         assertEquals(10000, contents.getFlowFiles().size());
     }
 
+    @Test
+    public void testColumnarSwapOutAndIn() throws IOException {
+        final FlowFileQueue flowFileQueue = Mockito.mock(FlowFileQueue.class);
+        when(flowFileQueue.getIdentifier()).thenReturn("87bb99fe-412c-49f6-a441-d1b0af4e20b4");
+
+        final FlowFileRepository flowFileRepo = Mockito.mock(FlowFileRepository.class);
+        when(flowFileRepo.isValidSwapLocationSuffix(anyString())).thenReturn(true);
+        final FileSystemSwapManager swapManager = createSwapManager(flowFileRepo, FileSystemSwapManager.COLUMNAR_SERIALIZATION_FORMAT);
+
+        final List<FlowFileRecord> flowFileRecords = new ArrayList<>();
+        for (int i = 0; i < 10000; i++) {
+            flowFileRecords.add(new MockFlowFileRecord(i));
+        }
+
+        final String swapLocation = swapManager.swapOut(flowFileRecords, flowFileQueue, "partition-1");
+        assertEquals(10000, swapManager.getSwapSummary(swapLocation).getQueueSize().getObjectCount());
+
+        final SwapContents contents = swapManager.swapIn(swapLocation, flowFileQueue);
+        assertEquals(10000, contents.getFlowFiles().size());
+        for (int i = 0; i < 10000; i++) {
+            assertEquals(flowFileRecords.get(i).getAttributes(), contents.getFlowFiles().get(i).getAttributes());
+        }
+    }
+
+    @Test
+    public void testPrefetchThenSwapIn() throws Exception {
+        final FlowFileQueue flowFileQueue = Mockito.mock(FlowFileQueue.class);
+        when(flowFileQueue.getIdentifier()).thenReturn("87bb99fe-412c-49f6-a441-d1b0af4e20b4");
+
+        final FlowFileRepository flowFileRepo = Mockito.mock(FlowFileRepository.class);
+        when(flowFileRepo.isValidSwapLocationSuffix(anyString())).thenReturn(true);
+        final FileSystemSwapManager swapManager = createSwapManager(flowFileRepo, FileSystemSwapManager.SCHEMA_SERIALIZATION_FORMAT, 1);
+
+        final List<FlowFileRecord> flowFileRecords = new ArrayList<>();
+        for (int i = 0; i < 10000; i++) {
+            flowFileRecords.add(new MockFlowFileRecord(i));
+        }
+
+        final String swapLocation = swapManager.swapOut(flowFileRecords, flowFileQueue, "partition-1");
+
+        final Future<SwapContents> future = swapManager.prefetch(swapLocation, flowFileQueue);
+        assertNotNull(future);
+        final SwapContents prefetched = future.get(10, TimeUnit.SECONDS);
+        assertEquals(10000, prefetched.getFlowFiles().size());
+
+        // Prefetching must not modify the swap file or the FlowFile Repository
+        assertTrue(new File(swapLocation).exists());
+        verify(flowFileRepo, never()).swapFlowFilesIn(anyString(), any(), any());
+
+        final SwapContents contents = swapManager.swapIn(swapLocation, flowFileQueue, prefetched);
+        assertSame(prefetched, contents);
+        assertFalse(new File(swapLocation).exists());
+        verify(flowFileRepo).swapFlowFilesIn(new File(swapLocation).getAbsolutePath(), prefetched.getFlowFiles(), flowFileQueue);
+    }
+
+    @Test
+    public void testPrefetchDisabledByDefault() {
+        final FlowFileQueue flowFileQueue = Mockito.mock(FlowFileQueue.class);
+        final FileSystemSwapManager swapManager = createSwapManager(Mockito.mock(FlowFileRepository.class));
+        assertNull(swapManager.prefetch("swap-location", flowFileQueue));
+    }
+
     private FileSystemSwapManager createSwapManager() throws IOException {
         final FlowFileRepository flowFileRepo = Mockito.mock(FlowFileRepository.class);
         return createSwapManager(flowFileRepo);
@@ -153,7 +223,15 @@ public class TestFileSystemSwapManager {
     public Path temporaryFolder;
 
     private FileSystemSwapManager createSwapManager(final FlowFileRepository flowFileRepo) {
-        final FileSystemSwapManager swapManager = new FileSystemSwapManager(temporaryFolder);
+        return createSwapManager(flowFileRepo, FileSystemSwapManager.SCHEMA_SERIALIZATION_FORMAT);
+    }
+
+    private FileSystemSwapManager createSwapManager(final FlowFileRepository flowFileRepo, final String serializationFormat) {
+        return createSwapManager(flowFileRepo, serializationFormat, 0);
+    }
+
+    private FileSystemSwapManager createSwapManager(final FlowFileRepository flowFileRepo, final String serializationFormat, final int prefetchThreads) {
+        final FileSystemSwapManager swapManager = new FileSystemSwapManager(temporaryFolder, serializationFormat, prefetchThreads);
         final ResourceClaimManager resourceClaimManager = new NopResourceClaimManager();
         swapManager.initialize(new SwapManagerInitializationContext() {
             @Override
@@ -0,0 +1,209 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.nifi.controller.queue;
+
+import org.apache.nifi.controller.MockFlowFileRecord;
+import org.apache.nifi.controller.repository.FlowFileRecord;
+import org.apache.nifi.flowfile.FlowFilePrioritizer;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class TestArrivalOrderedPriorityQueue {
+    private static final FlowFilePrioritizer FIRST_IN_FIRST_OUT = (o1, o2) -> {
+        final int dateComparison = o1.getLastQueueDate().compareTo(o2.getLastQueueDate());
+        return dateComparison == 0 ? Long.compare(o1.getQueueDateIndex(), o2.getQueueDateIndex()) : dateComparison;
+    };
+
+    @Test
+    public void testPollsInQueueOrder() {
+        final ArrivalOrderedPriorityQueue queue = createQueue();
+        final List<FlowFileRecord> flowFiles = createFlowFiles(100);
+        queue.addAll(flowFiles);
+
+        assertEquals(100, queue.size());
+        for (final FlowFileRecord flowFile : flowFiles) {
+            assertSame(flowFile, queue.peek());
+            assertSame(flowFile, queue.poll());
+        }
+
+        assertTrue(queue.isEmpty());
+        assertNull(queue.poll());
+    }
+
+    @Test
+    public void testFlowFileReturnedToQueueIsPolledFirst() {
+        final ArrivalOrderedPriorityQueue queue = createQueue();
+        final List<FlowFileRecord> flowFiles = createFlowFiles(10);
+        queue.addAll(flowFiles);
+
+        final FlowFileRecord first = queue.poll();
+        final FlowFileRecord second = queue.poll();
+        queue.add(first);
+        queue.add(second);
+
+        for (final FlowFileRecord flowFile : flowFiles) {
+            assertSame(flowFile, queue.poll());
+        }
+    }
+
+    @Test
+    public void testSameOrderAsPriorityQueueWithFirstInFirstOutPrioritizer() {
+        verifySameOrderAsPriorityQueue(Collections.singletonList(FIRST_IN_FIRST_OUT));
+    }
+
+    @Test
+    public void testSameOrderAsPriorityQueueWithNoPrioritizers() {
+        verifySameOrderAsPriorityQueue(Collections.emptyList());
+    }
+
+    private void verifySameOrderAsPriorityQueue(final List<FlowFilePrioritizer> prioritizers) {
+        final List<FlowFileRecord> flowFiles = createFlowFiles(1000);
+        for (int i = 0; i < flowFiles.size(); i += 10) {
+            ((MockFlowFileRecord) flowFiles.get(i)).setPenaltyExpiration(System.currentTimeMillis() + 60_000L + i);
+        }
+
+        final List<FlowFileRecord> shuffled = new ArrayList<>(flowFiles);
+        Collections.shuffle(shuffled, new Random(1L));
+
+        final ArrivalOrderedPriorityQueue queue = new ArrivalOrderedPriorityQueue(20, new QueuePrioritizer(prioritizers));
+        final PriorityQueue<FlowFileRecord> expected = new PriorityQueue<>(new QueuePrioritizer(prioritizers));
+
+        // Interleave adds and polls so that FlowFiles are added both in order and out of order
+        for (int i = 0; i < shuffled.size(); i++) {
+            queue.add(shuffled.get(i));
+            expected.add(shuffled.get(i));
+
+            if (i % 3 == 0) {
+                assertSame(expected.poll(), queue.poll());
+            }
+        }
+
+        while (!expected.isEmpty()) {
+            assertSame(expected.peek(), queue.peek());
+            assertSame(expected.poll(), queue.poll());
+        }
+        assertTrue(queue.isEmpty());
+    }
+
+    @Test
+    public void testPenalizedFlowFilesPolledLast() {
+        final ArrivalOrderedPriorityQueue queue = createQueue();
+        final List<FlowFileRecord> flowFiles = createFlowFiles(3);
+
+        final MockFlowFileRecord penalizedLater = new MockFlowFileRecord();
+        penalizedLater.setPenaltyExpiration(System.currentTimeMillis() + 60_000L);
+        final MockFlowFileRecord penalizedSooner = new MockFlowFileRecord();
+        penalizedSooner.setPenaltyExpiration(System.currentTimeMillis() + 30_000L);
+
+        queue.add(penalizedLater);
+        queue.add(penalizedSooner);
+        queue.addAll(flowFiles);
+        assertEquals(5, queue.size());
+
+        for (final FlowFileRecord flowFile : flowFiles) {
+            assertSame(flowFile, queue.poll());
+        }
+
+        assertSame(penalizedSooner, queue.poll());
+        assertSame(penalizedLater, queue.poll());
+        assertNull(queue.poll());
+    }
+
+    @Test
+    public void testExpiredPenaltyOrderedWithUnpenalizedFlowFiles() {
+        final ArrivalOrderedPriorityQueue queue = createQueue();
+
+        final MockFlowFileRecord penalized = new MockFlowFileRecord();
+        penalized.setLastQueuedDate(1L);
+        penalized.setPenaltyExpiration(System.currentTimeMillis() + 60_000L);
+        queue.add(penalized);
+
+        final List<FlowFileRecord> flowFiles = createFlowFiles(3);
+        queue.addAll(flowFiles);
+
+        assertSame(flowFiles.get(0), queue.peek());
+
+        // Once the penalty expires, the FlowFile is ordered by when it was queued
+        penalized.setPenaltyExpiration(0L);
+        assertSame(penalized, queue.poll());
+        for (final FlowFileRecord flowFile : flowFiles) {
+            assertSame(flowFile, queue.poll());
+        }
+    }
+
+    @Test
+    public void testIteratorRemove() {
+        final ArrivalOrderedPriorityQueue queue = createQueue();
+        final List<FlowFileRecord> flowFiles = createFlowFiles(10);
+        queue.addAll(flowFiles);
+        final FlowFileRecord returned = queue.poll();
+        queue.add(returned);
+
+        final MockFlowFileRecord penalized = new MockFlowFileRecord();
+        penalized.setPenaltyExpiration(System.currentTimeMillis() + 60_000L);
+        queue.add(penalized);
+
+        final Set<FlowFileRecord> iterated = new HashSet<>();
+        int retained = 0;
+        final Iterator<FlowFileRecord> itr = queue.iterator();
+        while (itr.hasNext()) {
+            final FlowFileRecord flowFile = itr.next();
+            iterated.add(flowFile);
+            if (flowFile.getId() % 2 == 0) {
+                itr.remove();
+            } else {
+                retained++;
+            }
+        }
+
+        assertEquals(11, iterated.size());
+        assertEquals(retained, queue.size());
+        for (final FlowFileRecord flowFile : queue) {
+            assertEquals(1, flowFile.getId() % 2);
+        }
+    }
+
+    private ArrivalOrderedPriorityQueue createQueue() {
+        return new ArrivalOrderedPriorityQueue(20, new QueuePrioritizer(Collections.singletonList(FIRST_IN_FIRST_OUT)));
+    }
+
+    private List<FlowFileRecord> createFlowFiles(final int count) {
+        final long queueDate = System.currentTimeMillis();
+        final List<FlowFileRecord> flowFiles = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            final MockFlowFileRecord flowFile = new MockFlowFileRecord();
+            flowFile.setLastQueuedDate(queueDate + i);
+            flowFiles.add(flowFile);
+        }
+
+        return flowFiles;
+    }
+}
@@ -753,6 +753,96 @@ public class LoadBalancedQueueIT {
         }
     }
 
+    @Test
+    @Timeout(20)
+    public void testTransferToRemoteNodeLz4Compression() throws IOException, InterruptedException {
+        localNodeId = new NodeIdentifier("unit-test-local", "localhost", 7090, "localhost", 7090, "localhost", 7090, null, null, null, false, null);
+        nodeIdentifiers.add(localNodeId);
+        compressionReference.set(LoadBalanceCompression.COMPRESS_ATTRIBUTES_AND_CONTENT_LZ4);
+
+        // Create the server
+        final int timeoutMillis = 30000;
+        final LoadBalanceProtocol loadBalanceProtocol = new StandardLoadBalanceProtocol(serverFlowFileRepo, serverContentRepo, serverProvRepo, flowController, ALWAYS_AUTHORIZED);
+        final SSLContext sslContext = null;
+
+        final ConnectionLoadBalanceServer server = new ConnectionLoadBalanceServer("localhost", 0, sslContext, 2, loadBalanceProtocol, eventReporter, timeoutMillis);
+        server.start();
+
+        try {
+            final int loadBalancePort = server.getPort();
+
+            // Create the Load Balanced FlowFile Queue
+            final NodeIdentifier remoteNodeId = new NodeIdentifier("unit-test", "localhost", 8090, "localhost", 8090, "localhost", loadBalancePort, null, null, null, false, null);
+            nodeIdentifiers.add(remoteNodeId);
+
+            final NioAsyncLoadBalanceClientRegistry clientRegistry = new NioAsyncLoadBalanceClientRegistry(createClientFactory(sslContext), 1);
+            clientRegistry.start();
+
+            final NodeConnectionStatus connectionStatus = mock(NodeConnectionStatus.class);
+            when(connectionStatus.getState()).thenReturn(NodeConnectionState.CONNECTED);
+            when(clusterCoordinator.getConnectionStatus(any(NodeIdentifier.class))).thenReturn(connectionStatus);
+            final NioAsyncLoadBalanceClientTask clientTask = new NioAsyncLoadBalanceClientTask(clientRegistry, clusterCoordinator, eventReporter);
+
+            final Thread clientThread = new Thread(clientTask);
+            clientThread.setDaemon(true);
+            clientThread.start();
+
+            final SocketLoadBalancedFlowFileQueue flowFileQueue = new SocketLoadBalancedFlowFileQueue(queueId, new NopConnectionEventListener(), processScheduler, clientFlowFileRepo, clientProvRepo,
+                    clientContentRepo, resourceClaimManager, clusterCoordinator, clientRegistry, flowFileSwapManager, swapThreshold, eventReporter);
+            flowFileQueue.setFlowFilePartitioner(new RoundRobinPartitioner());
+            flowFileQueue.setLoadBalanceCompression(LoadBalanceCompression.COMPRESS_ATTRIBUTES_AND_CONTENT_LZ4);
+
+            try {
+                final MockFlowFileRecord firstFlowFile = new MockFlowFileRecord(0L);
+                flowFileQueue.put(firstFlowFile);
+
+                final Map<String, String> attributes = new HashMap<>();
+                attributes.put("integration", "test");
+                attributes.put("unit-test", "false");
+                attributes.put("integration-test", "true");
+
+                final ContentClaim contentClaim = createContentClaim("hello".getBytes());
+                final MockFlowFileRecord secondFlowFile = new MockFlowFileRecord(attributes, 5L, contentClaim);
+                flowFileQueue.put(secondFlowFile);
+
+                flowFileQueue.startLoadBalancing();
+
+                // Wait up to 10 seconds for the server's FlowFile Repository to be updated
+                final long endTime = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(10L);
+                while (serverRepoRecords.isEmpty() && System.currentTimeMillis() < endTime) {
+                    Thread.sleep(10L);
+                }
+
+                assertFalse(serverRepoRecords.isEmpty(),"Server's FlowFile Repo was never updated");
+
+                assertEquals(1, serverRepoRecords.size());
+
+                final RepositoryRecord serverRecord = serverRepoRecords.iterator().next();
+                final FlowFileRecord serverFlowFile = serverRecord.getCurrent();
+                assertEquals("test", serverFlowFile.getAttribute("integration"));
+                assertEquals("false", serverFlowFile.getAttribute("unit-test"));
+                assertEquals("true", serverFlowFile.getAttribute("integration-test"));
+
+                final ContentClaim serverContentClaim = serverFlowFile.getContentClaim();
+                final byte[] serverFlowFileContent = serverClaimContents.get(serverContentClaim);
+                assertArrayEquals("hello".getBytes(), serverFlowFileContent);
+
+                while (clientRepoRecords.size() == 0) {
+                    Thread.sleep(10L);
+                }
+
+                assertEquals(1, clientRepoRecords.size());
+                final RepositoryRecord clientRecord = clientRepoRecords.iterator().next();
+                assertEquals(RepositoryRecordType.DELETE, clientRecord.getType());
+            } finally {
+                flowFileQueue.stopLoadBalancing();
+                clientRegistry.getAllClients().forEach(AsyncLoadBalanceClient::stop);
+            }
+        } finally {
+            server.stop();
+        }
+    }
+
     @Test
     @Timeout(20)
     public void testWithSSLContext() throws IOException, InterruptedException, UnrecoverableKeyException, CertificateException, NoSuchAlgorithmException, KeyStoreException, KeyManagementException {
@@ -39,6 +39,7 @@ import org.mockito.Mockito;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
@@ -435,6 +436,83 @@ public class TestSwappablePriorityQueue {
         assertEquals(10000, queue.getQueueDiagnostics().getActiveQueueSize().getObjectCount());
     }
 
+    @Test
+    public void testSwapInUsesPrefetchedContents() {
+        swapManager.prefetchEnabled = true;
+
+        for (int i = 0; i < 30000; i++) {
+            queue.put(new MockFlowFileRecord());
+        }
+
+        assertEquals(2, swapManager.swapOutCalledCount);
+        assertEquals(10000, queue.getQueueDiagnostics().getActiveQueueSize().getObjectCount());
+
+        // Prefetching should not begin until the active queue falls below the low-water mark
+        for (int i = 0; i < 5001; i++) {
+            assertNotNull(queue.poll(Collections.emptySet(), 0L));
+        }
+        assertEquals(0, swapManager.prefetchCalledCount);
+
+        assertNotNull(queue.poll(Collections.emptySet(), 0L));
+        assertEquals(1, swapManager.prefetchCalledCount);
+        assertEquals(0, swapManager.swapInCalledCount);
+
+        long previousId = -1L;
+        for (int i = 0; i < 29998 - 5000; i++) {
+            final FlowFileRecord flowFile = queue.poll(Collections.emptySet(), 0L);
+            assertNotNull(flowFile);
+            assertTrue(flowFile.getId() > previousId);
+            previousId = flowFile.getId();
+        }
+
+        assertNull(queue.poll(Collections.emptySet(), 0L));
+        assertTrue(queue.isActiveQueueEmpty());
+        assertEquals(2, swapManager.prefetchCalledCount);
+        assertEquals(2, swapManager.swapInCalledCount);
+        assertTrue(swapManager.swappedOut.isEmpty());
+
+        assertEquals(2, queue.getQueueDiagnostics().getSwapInPrefetchHitCount());
+        assertEquals(0, queue.getQueueDiagnostics().getSwapInStallCount());
+    }
+
+    @Test
+    public void testSwapInStallsWithoutPrefetch() {
+        for (int i = 0; i < 20000; i++) {
+            queue.put(new MockFlowFileRecord());
+        }
+
+        assertEquals(1, swapManager.swapOutCalledCount);
+        assertEquals(10000, queue.poll(Integer.MAX_VALUE, Collections.emptySet(), 0L).size());
+        assertEquals(10000, queue.poll(Integer.MAX_VALUE, Collections.emptySet(), 0L).size());
+
+        assertEquals(0, queue.getQueueDiagnostics().getSwapInPrefetchHitCount());
+        assertEquals(1, queue.getQueueDiagnostics().getSwapInStallCount());
+    }
+
+    @Test
+    public void testPrefetchedContentsDiscardedOnRebalance() {
+        swapManager.prefetchEnabled = true;
+
+        for (int i = 0; i < 20000; i++) {
+            queue.put(new MockFlowFileRecord());
+        }
+
+        for (int i = 0; i < 6000; i++) {
+            assertNotNull(queue.poll(Collections.emptySet(), 0L));
+        }
+        assertEquals(1, swapManager.prefetchCalledCount);
+
+        final SwappablePriorityQueue inheritingQueue = new SwappablePriorityQueue(swapManager, 10000, eventReporter, flowFileQueue, dropAction, "other");
+        inheritingQueue.inheritQueueContents(queue.packageForRebalance("other"));
+        assertTrue(queue.isActiveQueueEmpty());
+        assertEquals(0, queue.getQueueDiagnostics().getSwapFileCount());
+
+        assertEquals(4000, inheritingQueue.poll(Integer.MAX_VALUE, Collections.emptySet(), 0L).size());
+        assertEquals(10000, inheritingQueue.poll(Integer.MAX_VALUE, Collections.emptySet(), 0L).size());
+        assertTrue(inheritingQueue.isActiveQueueEmpty());
+        assertTrue(swapManager.swappedOut.isEmpty());
+    }
+
     @Test
     public void testLowestPrioritySwappedOutFirst() {
         final List<FlowFilePrioritizer> prioritizers = new ArrayList<>();
@@ -672,6 +750,74 @@ public class TestSwappablePriorityQueue {
     }
 
 
+    @Test
+    @Timeout(30)
+    public void testConcurrentPutsAndPollsWithSwapping() throws InterruptedException {
+        final int producers = 4;
+        final int flowFilesPerProducer = 15_000;
+        final int totalFlowFiles = producers * flowFilesPerProducer;
+
+        final List<Thread> producerThreads = new ArrayList<>();
+        for (int i = 0; i < producers; i++) {
+            final boolean putAll = i % 2 == 0;
+            final Thread thread = new Thread(() -> {
+                for (int j = 0; j < flowFilesPerProducer; j += 10) {
+                    final List<FlowFileRecord> flowFiles = new ArrayList<>();
+                    for (int k = 0; k < 10; k++) {
+                        flowFiles.add(new MockFlowFileRecord(1));
+                    }
+
+                    if (putAll) {
+                        queue.putAll(flowFiles);
+                    } else {
+                        flowFiles.forEach(queue::put);
+                    }
+                }
+            });
+            producerThreads.add(thread);
+            thread.start();
+        }
+
+        final Set<Long> polledIds = new HashSet<>();
+        while (polledIds.size() < totalFlowFiles) {
+            final List<FlowFileRecord> polled = queue.poll(100, new HashSet<>(), 0L);
+            for (final FlowFileRecord flowFile : polled) {
+                assertTrue(polledIds.add(flowFile.getId()));
+            }
+            queue.acknowledge(polled);
+        }
+
+        for (final Thread thread : producerThreads) {
+            thread.join();
+        }
+
+        assertNull(queue.poll(new HashSet<>(), 0L));
+        assertTrue(queue.isEmpty());
+        assertEquals(0, queue.size().getObjectCount());
+        assertEquals(0L, queue.size().getByteCount());
+    }
+
+    @Test
+    public void testFlowFilesPutWithoutLockAreReordered() {
+        final List<MockFlowFileRecord> flowFiles = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            flowFiles.add(new MockFlowFileRecord(new HashMap<>(Collections.singletonMap("i", String.valueOf(i))), 1));
+        }
+
+        // These are put while the queue is arrival ordered
+        for (int i = flowFiles.size() - 1; i >= 0; i--) {
+            queue.put(flowFiles.get(i));
+        }
+        assertEquals(10, queue.getActiveFlowFiles().size());
+
+        final FlowFilePrioritizer iAttributePrioritizer = (o1, o2) -> Integer.compare(Integer.parseInt(o1.getAttribute("i")), Integer.parseInt(o2.getAttribute("i")));
+        queue.setPriorities(Collections.singletonList(iAttributePrioritizer));
+
+        for (int i = 0; i < flowFiles.size(); i++) {
+            assertSame(flowFiles.get(i), queue.poll(Collections.emptySet(), 0L));
+        }
+    }
+
     @Test
     @Timeout(5)
     public void testListFlowFilesResultsLimited() throws InterruptedException {
@@ -0,0 +1,205 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.nifi.controller.queue.clustered.client.async.nio;
+
+import net.jpountz.lz4.LZ4Factory;
+import org.apache.nifi.controller.queue.clustered.protocol.LoadBalanceProtocolConstants;
+import org.apache.nifi.controller.queue.clustered.protocol.ZstdCompression;
+import org.apache.nifi.stream.io.StreamUtils;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+public class TestDataFrameCompressor {
+    private DataFrameCompressor compressor;
+
+    @BeforeEach
+    public void setup() {
+        compressor = new DataFrameCompressor();
+    }
+
+    @AfterEach
+    public void cleanup() {
+        compressor.close();
+    }
+
+    @Test
+    public void testUncompressedFrame() {
+        final byte[] data = "hello".getBytes();
+        final ByteBuffer frame = compressor.createFrame(LoadBalanceProtocolConstants.DATA_FRAME_FOLLOWS, data, data.length);
+
+        assertEquals(LoadBalanceProtocolConstants.DATA_FRAME_FOLLOWS, frame.get());
+        assertEquals(data.length, frame.getInt());
+        assertArrayEquals(data, getRemaining(frame));
+    }
+
+    @Test
+    public void testGzipFrame() throws IOException {
+        final byte[] data = createData(65535, false);
+        final ByteBuffer frame = compressor.createGzipFrame(LoadBalanceProtocolConstants.DATA_FRAME_FOLLOWS, data, data.length);
+
+        assertEquals(LoadBalanceProtocolConstants.DATA_FRAME_FOLLOWS, frame.get());
+        final int length = frame.getInt();
+        assertEquals(frame.remaining(), length);
+        assertTrue(length < data.length);
+
+        assertArrayEquals(data, gunzip(getRemaining(frame), data.length));
+    }
+
+    @Test
+    public void testGzipFrameOfIncompressibleData() throws IOException {
+        final byte[] data = createData(65535, true);
+        final ByteBuffer frame = compressor.createGzipFrame(LoadBalanceProtocolConstants.DATA_FRAME_FOLLOWS, data, data.length);
+
+        frame.position(5);
+        assertArrayEquals(data, gunzip(getRemaining(frame), data.length));
+    }
+
+    @Test
+    public void testLz4Frame() {
+        final byte[] data = createData(65535, false);
+        final ByteBuffer frame = compressor.createLz4Frame(LoadBalanceProtocolConstants.MORE_FLOWFILES, data, data.length);
+
+        assertEquals(LoadBalanceProtocolConstants.MORE_FLOWFILES, frame.get());
+        final int length = frame.getInt();
+        assertEquals(frame.remaining(), length);
+        assertEquals(data.length, frame.getInt());
+
+        final byte[] compressed = getRemaining(frame);
+        final byte[] decompressed = new byte[data.length];
+        LZ4Factory.fastestInstance().safeDecompressor().decompress(compressed, 0, compressed.length, decompressed, 0, decompressed.length);
+        assertArrayEquals(data, decompressed);
+    }
+
+    @Test
+    public void testZstdFrame() throws IOException {
+        assumeTrue(ZstdCompression.isAvailable(), "The zstd-jni library is not available");
+
+        final byte[] data = createData(65535, false);
+        final ByteBuffer frame = compressor.createZstdFrame(LoadBalanceProtocolConstants.MORE_FLOWFILES, data, data.length);
+
+        assertEquals(LoadBalanceProtocolConstants.MORE_FLOWFILES, frame.get());
+        final int length = frame.getInt();
+        assertEquals(frame.remaining(), length);
+        assertEquals(data.length, frame.getInt());
+        assertTrue(length < data.length);
+
+        final byte[] compressed = getRemaining(frame);
+        final byte[] decompressed = new byte[data.length];
+        assertEquals(data.length, ZstdCompression.decompress(compressed, 0, compressed.length, decompressed, 0, decompressed.length));
+        assertArrayEquals(data, decompressed);
+    }
+
+    @Test
+    public void testZstdFrameOfIncompressibleData() throws IOException {
+        assumeTrue(ZstdCompression.isAvailable(), "The zstd-jni library is not available");
+
+        final byte[] data = createData(65535, true);
+        final ByteBuffer frame = compressor.createZstdFrame(LoadBalanceProtocolConstants.DATA_FRAME_FOLLOWS, 3, data, data.length);
+
+        assertEquals(LoadBalanceProtocolConstants.DATA_FRAME_FOLLOWS, frame.get());
+        assertEquals(3, frame.getShort());
+        assertEquals(frame.remaining(), frame.getInt());
+        assertEquals(data.length, frame.getInt());
+
+        final byte[] compressed = getRemaining(frame);
+        final byte[] decompressed = new byte[data.length];
+        assertEquals(data.length, ZstdCompression.decompress(compressed, 0, compressed.length, decompressed, 0, decompressed.length));
+        assertArrayEquals(data, decompressed);
+    }
+
+    @Test
+    public void testFramesWithPartitionIndex() throws IOException {
+        final byte[] data = createData(1000, false);
+
+        final ByteBuffer uncompressed = compressor.createFrame(LoadBalanceProtocolConstants.MORE_FLOWFILES, 7, data, data.length);
+        assertEquals(LoadBalanceProtocolConstants.MORE_FLOWFILES, uncompressed.get());
+        assertEquals(7, uncompressed.getShort());
+        assertEquals(data.length, uncompressed.getInt());
+        assertArrayEquals(data, getRemaining(uncompressed));
+
+        final ByteBuffer gzip = compressor.createGzipFrame(LoadBalanceProtocolConstants.MORE_FLOWFILES, 65535, data, data.length);
+        assertEquals(LoadBalanceProtocolConstants.MORE_FLOWFILES, gzip.get());
+        assertEquals(65535, gzip.getShort() & 0xFFFF);
+        final int gzipLength = gzip.getInt();
+        assertEquals(gzip.remaining(), gzipLength);
+        assertArrayEquals(data, gunzip(getRemaining(gzip), data.length));
+
+        final ByteBuffer lz4 = compressor.createLz4Frame(LoadBalanceProtocolConstants.MORE_FLOWFILES, 0, data, data.length);
+        assertEquals(LoadBalanceProtocolConstants.MORE_FLOWFILES, lz4.get());
+        assertEquals(0, lz4.getShort());
+        final int lz4Length = lz4.getInt();
+        assertEquals(lz4.remaining(), lz4Length);
+        assertEquals(data.length, lz4.getInt());
+    }
+
+    @Test
+    public void testFrameBufferReused() throws IOException {
+        final byte[] data = createData(65535, true);
+        final ByteBuffer first = compressor.createLz4Frame(LoadBalanceProtocolConstants.DATA_FRAME_FOLLOWS, data, data.length);
+        final ByteBuffer second = compressor.createGzipFrame(LoadBalanceProtocolConstants.DATA_FRAME_FOLLOWS, data, data.length);
+        final ByteBuffer third = compressor.createGzipFrame(LoadBalanceProtocolConstants.DATA_FRAME_FOLLOWS, data, 100);
+
+        assertSame(first, second);
+        assertSame(second, third);
+
+        third.position(5);
+        assertArrayEquals(Arrays.copyOf(data, 100), gunzip(getRemaining(third), 100));
+    }
+
+    private static byte[] createData(final int length, final boolean random) {
+        final byte[] data = new byte[length];
+        if (random) {
+            new Random(1L).nextBytes(data);
+        } else {
+            for (int i = 0; i < length; i++) {
+                data[i] = (byte) ('A' + i % 13);
+            }
+        }
+        return data;
+    }
+
+    private static byte[] getRemaining(final ByteBuffer buffer) {
+        final byte[] remaining = new byte[buffer.remaining()];
+        buffer.get(remaining);
+        return remaining;
+    }
+
+    private static byte[] gunzip(final byte[] compressed, final int length) throws IOException {
+        try (final InputStream in = new GZIPInputStream(new ByteArrayInputStream(compressed))) {
+            final byte[] decompressed = new byte[length];
+            StreamUtils.fillBuffer(in, decompressed, true);
+            assertEquals(-1, in.read());
+            return decompressed;
+        }
+    }
+}
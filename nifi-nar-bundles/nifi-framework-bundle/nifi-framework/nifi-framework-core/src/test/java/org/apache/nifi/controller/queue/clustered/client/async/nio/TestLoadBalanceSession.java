@@ -40,6 +40,7 @@ import java.net.ServerSocket;
 import java.net.Socket;
 import java.nio.channels.SocketChannel;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
@@ -70,6 +71,8 @@ public class TestLoadBalanceSession {
     private ByteArrayOutputStream received;
     private ServerSocket serverSocket;
     private int port;
+    private volatile byte[] serverResponses = {LoadBalanceProtocolConstants.VERSION_ACCEPTED, LoadBalanceProtocolConstants.SPACE_AVAILABLE,
+        LoadBalanceProtocolConstants.CONFIRM_CHECKSUM, LoadBalanceProtocolConstants.CONFIRM_COMPLETE_TRANSACTION};
 
     @BeforeEach
     public void setup() throws IOException {
@@ -83,10 +86,7 @@ public class TestLoadBalanceSession {
                 final InputStream in = socket.getInputStream();
                 int data;
 
-                socket.getOutputStream().write(LoadBalanceProtocolConstants.VERSION_ACCEPTED);
-                socket.getOutputStream().write(LoadBalanceProtocolConstants.SPACE_AVAILABLE);
-                socket.getOutputStream().write(LoadBalanceProtocolConstants.CONFIRM_CHECKSUM);
-                socket.getOutputStream().write(LoadBalanceProtocolConstants.CONFIRM_COMPLETE_TRANSACTION);
+                socket.getOutputStream().write(serverResponses);
 
                 while ((data = in.read()) != -1) {
                     received.write(data);
@@ -137,13 +137,16 @@ public class TestLoadBalanceSession {
 
         final Checksum expectedChecksum = new CRC32();
         final ByteArrayOutputStream expectedOut = new ByteArrayOutputStream();
-        expectedOut.write(1); // Protocol Version
+        expectedOut.write(3); // Protocol Version
 
         final DataOutputStream expectedDos = new DataOutputStream(new CheckedOutputStream(expectedOut, expectedChecksum));
+        expectedDos.writeShort(1); // partition count
         expectedDos.writeUTF("unit-test-connection");
+        expectedDos.write(LoadBalanceProtocolConstants.COMPRESSION_NONE);
 
         expectedDos.write(LoadBalanceProtocolConstants.CHECK_SPACE);
         expectedDos.write(LoadBalanceProtocolConstants.MORE_FLOWFILES);
+        expectedDos.writeShort(0); // partition index
         expectedDos.writeInt(76); // metadata length
         expectedDos.writeInt(1); // 1 attribute
         expectedDos.writeInt(4); // length of attribute
@@ -159,6 +162,7 @@ public class TestLoadBalanceSession {
         expectedDos.write(LoadBalanceProtocolConstants.NO_DATA_FRAME);
 
         expectedDos.write(LoadBalanceProtocolConstants.MORE_FLOWFILES);
+        expectedDos.writeShort(0); // partition index
         expectedDos.writeInt(76); // metadata length
         expectedDos.writeInt(1); // 1 attribute
         expectedDos.writeInt(4); // length of attribute
@@ -186,10 +190,30 @@ public class TestLoadBalanceSession {
 
         assertArrayEquals(expectedSent, dataSent);
 
-        assertEquals(Arrays.asList(flowFile1, flowFile2), transaction.getAndPurgeFlowFilesSent());
+        assertEquals(Arrays.asList(flowFile1, flowFile2), transaction.getAndPurgeFlowFilesSent().get(partition));
     }
 
 
+    @Test
+    public void testSupportedCompression() {
+        assertEquals(LoadBalanceCompression.COMPRESS_ATTRIBUTES_AND_CONTENT_ZSTD,
+            LoadBalanceSession.getSupportedCompression(LoadBalanceCompression.COMPRESS_ATTRIBUTES_AND_CONTENT_ZSTD, 3, true));
+        assertEquals(LoadBalanceCompression.COMPRESS_ATTRIBUTES_AND_CONTENT_LZ4,
+            LoadBalanceSession.getSupportedCompression(LoadBalanceCompression.COMPRESS_ATTRIBUTES_AND_CONTENT_ZSTD, 3, false));
+        assertEquals(LoadBalanceCompression.COMPRESS_ATTRIBUTES_AND_CONTENT_LZ4,
+            LoadBalanceSession.getSupportedCompression(LoadBalanceCompression.COMPRESS_ATTRIBUTES_AND_CONTENT_ZSTD, 2, true));
+        assertEquals(LoadBalanceCompression.COMPRESS_ATTRIBUTES_AND_CONTENT,
+            LoadBalanceSession.getSupportedCompression(LoadBalanceCompression.COMPRESS_ATTRIBUTES_AND_CONTENT_ZSTD, 1, true));
+        assertEquals(LoadBalanceCompression.COMPRESS_ATTRIBUTES_AND_CONTENT,
+            LoadBalanceSession.getSupportedCompression(LoadBalanceCompression.COMPRESS_ATTRIBUTES_AND_CONTENT_LZ4, 1, true));
+        assertEquals(LoadBalanceCompression.COMPRESS_ATTRIBUTES_AND_CONTENT_LZ4,
+            LoadBalanceSession.getSupportedCompression(LoadBalanceCompression.COMPRESS_ATTRIBUTES_AND_CONTENT_LZ4, 2, false));
+        assertEquals(LoadBalanceCompression.COMPRESS_ATTRIBUTES_ONLY,
+            LoadBalanceSession.getSupportedCompression(LoadBalanceCompression.COMPRESS_ATTRIBUTES_ONLY, 1, false));
+        assertEquals(LoadBalanceCompression.DO_NOT_COMPRESS,
+            LoadBalanceSession.getSupportedCompression(LoadBalanceCompression.DO_NOT_COMPRESS, 3, true));
+    }
+
     @Test
     @Timeout(10)
     public void testLargeContent() throws InterruptedException, IOException {
@@ -226,14 +250,17 @@ public class TestLoadBalanceSession {
 
         final Checksum expectedChecksum = new CRC32();
         final ByteArrayOutputStream expectedOut = new ByteArrayOutputStream();
-        expectedOut.write(1); // Protocol Version
+        expectedOut.write(3); // Protocol Version
 
         final DataOutputStream expectedDos = new DataOutputStream(new CheckedOutputStream(expectedOut, expectedChecksum));
 
+        expectedDos.writeShort(1); // partition count
         expectedDos.writeUTF("unit-test-connection");
+        expectedDos.write(LoadBalanceProtocolConstants.COMPRESSION_NONE);
 
         expectedDos.write(LoadBalanceProtocolConstants.CHECK_SPACE);
         expectedDos.write(LoadBalanceProtocolConstants.MORE_FLOWFILES);
+        expectedDos.writeShort(0); // partition index
         expectedDos.writeInt(76); // metadata length
         expectedDos.writeInt(1); // 1 attribute
         expectedDos.writeInt(4); // length of attribute
@@ -268,6 +295,119 @@ public class TestLoadBalanceSession {
 
         assertArrayEquals(expectedSent, dataSent);
 
-        assertEquals(Arrays.asList(flowFile1), transaction.getAndPurgeFlowFilesSent());
+        assertEquals(Arrays.asList(flowFile1), transaction.getAndPurgeFlowFilesSent().get(partition));
+    }
+
+    @Test
+    @Timeout(10)
+    public void testMultiplexedPartitions() throws InterruptedException, IOException {
+        serverResponses = new byte[] {LoadBalanceProtocolConstants.VERSION_ACCEPTED, LoadBalanceProtocolConstants.QUEUE_FULL, LoadBalanceProtocolConstants.CONFIRM_CHECKSUM,
+            LoadBalanceProtocolConstants.CONFIRM_COMPLETE_TRANSACTION, LoadBalanceProtocolConstants.CONFIRM_COMPLETE_TRANSACTION, LoadBalanceProtocolConstants.ABORT_TRANSACTION};
+
+        final Queue<FlowFileRecord> firstFlowFiles = new LinkedList<>();
+        final FlowFileRecord flowFile1 = new MockFlowFileRecord(5);
+        final FlowFileRecord flowFile2 = new MockFlowFileRecord(0);
+        firstFlowFiles.offer(flowFile1);
+        firstFlowFiles.offer(flowFile2);
+
+        final Queue<FlowFileRecord> secondFlowFiles = new LinkedList<>();
+        final FlowFileRecord flowFile3 = new MockFlowFileRecord(8);
+        secondFlowFiles.offer(flowFile3);
+
+        final Queue<FlowFileRecord> fullFlowFiles = new LinkedList<>();
+        fullFlowFiles.offer(new MockFlowFileRecord(1));
+
+        final Map<FlowFileRecord, InputStream> contentMap = new HashMap<>();
+        contentMap.put(flowFile1, new ByteArrayInputStream("hello".getBytes()));
+        contentMap.put(flowFile2, new ByteArrayInputStream(new byte[0]));
+        contentMap.put(flowFile3, new ByteArrayInputStream("good-bye".getBytes()));
+
+        final RegisteredPartition firstPartition = new RegisteredPartition("first-connection", () -> false,
+            firstFlowFiles::poll, NOP_FAILURE_CALLBACK, (ff, nodeId) -> {}, () -> LoadBalanceCompression.DO_NOT_COMPRESS, () -> false);
+        final RegisteredPartition fullPartition = new RegisteredPartition("full-connection", () -> false,
+            fullFlowFiles::poll, NOP_FAILURE_CALLBACK, (ff, nodeId) -> {}, () -> LoadBalanceCompression.DO_NOT_COMPRESS, () -> true);
+        final RegisteredPartition secondPartition = new RegisteredPartition("second-connection", () -> false,
+            secondFlowFiles::poll, NOP_FAILURE_CALLBACK, (ff, nodeId) -> {}, () -> LoadBalanceCompression.DO_NOT_COMPRESS, () -> false);
+
+        final SocketChannel socketChannel = SocketChannel.open(new InetSocketAddress("localhost", port));
+
+        socketChannel.configureBlocking(false);
+        final PeerChannel peerChannel = new PeerChannel(socketChannel, null, "unit-test");
+        final LoadBalanceSession transaction = new LoadBalanceSession(Arrays.asList(firstPartition, fullPartition, secondPartition), contentMap::get,
+            new StandardLoadBalanceFlowFileCodec(), peerChannel, 30000, new SimpleLimitThreshold(100, 10_000_000));
+
+        Thread.sleep(100L);
+
+        while (transaction.communicate()) {
+        }
+
+        assertEquals(LoadBalanceSession.LoadBalanceSessionState.COMPLETED_SUCCESSFULLY, transaction.getSessionState());
+        socketChannel.close();
+
+        final Checksum expectedChecksum = new CRC32();
+        final ByteArrayOutputStream expectedOut = new ByteArrayOutputStream();
+        expectedOut.write(3); // Protocol Version
+
+        final DataOutputStream expectedDos = new DataOutputStream(new CheckedOutputStream(expectedOut, expectedChecksum));
+        expectedDos.writeShort(3); // partition count
+        expectedDos.writeUTF("first-connection");
+        expectedDos.write(LoadBalanceProtocolConstants.COMPRESSION_NONE);
+        expectedDos.write(LoadBalanceProtocolConstants.SKIP_SPACE_CHECK);
+        expectedDos.writeUTF("full-connection");
+        expectedDos.write(LoadBalanceProtocolConstants.COMPRESSION_NONE);
+        expectedDos.write(LoadBalanceProtocolConstants.CHECK_SPACE);
+        expectedDos.writeUTF("second-connection");
+        expectedDos.write(LoadBalanceProtocolConstants.COMPRESSION_NONE);
+        expectedDos.write(LoadBalanceProtocolConstants.SKIP_SPACE_CHECK);
+
+        // The FlowFiles of the partitions are interleaved, skipping the partition whose queue is full
+        writeExpectedFlowFile(expectedDos, 0, flowFile1, "hello");
+        writeExpectedFlowFile(expectedDos, 2, flowFile3, "good-bye");
+        writeExpectedFlowFile(expectedDos, 0, flowFile2, null);
+
+        expectedDos.write(LoadBalanceProtocolConstants.NO_MORE_FLOWFILES);
+        expectedDos.writeLong(expectedChecksum.getValue());
+        expectedDos.write(LoadBalanceProtocolConstants.COMPLETE_TRANSACTION);
+
+        final byte[] expectedSent = expectedOut.toByteArray();
+
+        while (received.size() < expectedSent.length) {
+            Thread.sleep(10L);
+        }
+        final byte[] dataSent = received.toByteArray();
+
+        assertArrayEquals(expectedSent, dataSent);
+
+        assertEquals(1, fullFlowFiles.size());
+        assertTrue(fullPartition.isPenalized());
+
+        final Map<RegisteredPartition, List<FlowFileRecord>> flowFilesRejected = transaction.getAndPurgeFlowFilesRejected();
+        assertEquals(Collections.singletonMap(secondPartition, Arrays.asList(flowFile3)), flowFilesRejected);
+
+        final Map<RegisteredPartition, List<FlowFileRecord>> flowFilesSent = transaction.getAndPurgeFlowFilesSent();
+        assertEquals(Arrays.asList(flowFile1, flowFile2), flowFilesSent.get(firstPartition));
+        assertTrue(flowFilesSent.get(fullPartition).isEmpty());
+        assertTrue(flowFilesSent.get(secondPartition).isEmpty());
+    }
+
+    private void writeExpectedFlowFile(final DataOutputStream expectedDos, final int partitionIndex, final FlowFileRecord flowFile, final String content) throws IOException {
+        expectedDos.write(LoadBalanceProtocolConstants.MORE_FLOWFILES);
+        expectedDos.writeShort(partitionIndex);
+        expectedDos.writeInt(76); // metadata length
+        expectedDos.writeInt(1); // 1 attribute
+        expectedDos.writeInt(4); // length of attribute
+        expectedDos.write("uuid".getBytes());
+        expectedDos.writeInt(flowFile.getAttribute("uuid").length());
+        expectedDos.write(flowFile.getAttribute("uuid").getBytes());
+        expectedDos.writeLong(flowFile.getLineageStartDate()); // lineage start date
+        expectedDos.writeLong(flowFile.getEntryDate()); // entry date
+        expectedDos.writeLong(flowFile.getPenaltyExpirationMillis()); // penalty expiration time
+
+        if (content != null) {
+            expectedDos.write(LoadBalanceProtocolConstants.DATA_FRAME_FOLLOWS);
+            expectedDos.writeInt(content.length());
+            expectedDos.write(content.getBytes());
+        }
+        expectedDos.write(LoadBalanceProtocolConstants.NO_DATA_FRAME);
     }
 }
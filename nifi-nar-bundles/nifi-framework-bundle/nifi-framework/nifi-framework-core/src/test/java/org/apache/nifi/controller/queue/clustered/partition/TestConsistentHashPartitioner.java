@@ -0,0 +1,179 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.nifi.controller.queue.clustered.partition;
+
+import org.apache.nifi.cluster.protocol.NodeIdentifier;
+import org.apache.nifi.controller.MockFlowFileRecord;
+import org.apache.nifi.controller.repository.FlowFileRecord;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class TestConsistentHashPartitioner {
+    private static final String PARTITIONING_ATTRIBUTE = "group";
+    private static final int FLOWFILE_COUNT = 10_000;
+
+    private int nodePort = 8080;
+    private List<NodeIdentifier> nodeIds;
+    private List<FlowFileRecord> flowFiles;
+
+    @BeforeEach
+    public void setup() {
+        nodeIds = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            nodeIds.add(createNodeIdentifier("node-" + i));
+        }
+
+        flowFiles = new ArrayList<>(FLOWFILE_COUNT);
+        for (int i = 0; i < FLOWFILE_COUNT; i++) {
+            flowFiles.add(new MockFlowFileRecord(createAttributes("group-" + i), 0L));
+        }
+    }
+
+    @Test
+    public void testSameValueSamePartition() {
+        final ConsistentHashPartitioner partitioner = new ConsistentHashPartitioner(PARTITIONING_ATTRIBUTE, () -> nodeIds.get(0));
+        final QueuePartition[] partitions = createPartitions(nodeIds, nodeIds.get(0));
+
+        final FlowFileRecord first = new MockFlowFileRecord(createAttributes("abc"), 0L);
+        final FlowFileRecord second = new MockFlowFileRecord(createAttributes("abc"), 0L);
+        final QueuePartition expected = partitioner.getPartition(first, partitions, partitions[0]);
+        for (int i = 0; i < 10; i++) {
+            assertSame(expected, partitioner.getPartition(second, partitions, partitions[0]));
+        }
+
+        final FlowFileRecord noAttribute = new MockFlowFileRecord(0L);
+        assertSame(partitioner.getPartition(noAttribute, partitions, partitions[0]), partitioner.getPartition(noAttribute, partitions, partitions[0]));
+    }
+
+    @Test
+    public void testFlowFilesDistributedEvenly() {
+        final Map<FlowFileRecord, NodeIdentifier> assignments = assignFlowFiles(nodeIds, nodeIds.get(0));
+
+        final Map<NodeIdentifier, Integer> counts = new HashMap<>();
+        assignments.values().forEach(nodeId -> counts.merge(nodeId, 1, Integer::sum));
+
+        assertEquals(nodeIds.size(), counts.size());
+        for (final Integer count : counts.values()) {
+            assertTrue(count > 800 && count < 1200, "Expected roughly 1,000 FlowFiles per node but got " + counts);
+        }
+    }
+
+    @Test
+    public void testNodeRemovedMovesOnlyItsFlowFiles() {
+        final NodeIdentifier removedNodeId = nodeIds.get(4);
+        final List<NodeIdentifier> remainingNodeIds = new ArrayList<>(nodeIds);
+        remainingNodeIds.remove(removedNodeId);
+
+        final Map<FlowFileRecord, NodeIdentifier> before = assignFlowFiles(nodeIds, nodeIds.get(0));
+        final Map<FlowFileRecord, NodeIdentifier> after = assignFlowFiles(remainingNodeIds, nodeIds.get(0));
+
+        int moved = 0;
+        for (final FlowFileRecord flowFile : flowFiles) {
+            if (before.get(flowFile).equals(removedNodeId)) {
+                assertNotEquals(removedNodeId, after.get(flowFile));
+                moved++;
+            } else {
+                assertEquals(before.get(flowFile), after.get(flowFile));
+            }
+        }
+
+        assertTrue(moved > 800 && moved < 1200, "Expected roughly 1/10 of FlowFiles to move but " + moved + " moved");
+    }
+
+    @Test
+    public void testNodeAddedReceivesOnlyMovedFlowFiles() {
+        final NodeIdentifier addedNodeId = createNodeIdentifier("node-10");
+        final List<NodeIdentifier> expandedNodeIds = new ArrayList<>(nodeIds);
+        expandedNodeIds.add(addedNodeId);
+
+        final Map<FlowFileRecord, NodeIdentifier> before = assignFlowFiles(nodeIds, nodeIds.get(0));
+        final Map<FlowFileRecord, NodeIdentifier> after = assignFlowFiles(expandedNodeIds, nodeIds.get(0));
+
+        int moved = 0;
+        for (final FlowFileRecord flowFile : flowFiles) {
+            if (!before.get(flowFile).equals(after.get(flowFile))) {
+                assertEquals(addedNodeId, after.get(flowFile));
+                moved++;
+            }
+        }
+
+        assertTrue(moved > 700 && moved < 1100, "Expected roughly 1/11 of FlowFiles to move but " + moved + " moved");
+    }
+
+    @Test
+    public void testAllNodesAgree() {
+        final Map<FlowFileRecord, NodeIdentifier> expected = assignFlowFiles(nodeIds, nodeIds.get(0));
+        for (final NodeIdentifier localNodeId : nodeIds) {
+            assertEquals(expected, assignFlowFiles(nodeIds, localNodeId));
+        }
+    }
+
+    private Map<FlowFileRecord, NodeIdentifier> assignFlowFiles(final List<NodeIdentifier> clusterNodeIds, final NodeIdentifier localNodeId) {
+        final ConsistentHashPartitioner partitioner = new ConsistentHashPartitioner(PARTITIONING_ATTRIBUTE, () -> localNodeId);
+        final QueuePartition[] partitions = createPartitions(clusterNodeIds, localNodeId);
+        final QueuePartition localPartition = partitions[clusterNodeIds.indexOf(localNodeId)];
+
+        final Map<QueuePartition, NodeIdentifier> partitionNodeIds = new HashMap<>();
+        for (int i = 0; i < partitions.length; i++) {
+            partitionNodeIds.put(partitions[i], clusterNodeIds.get(i));
+        }
+
+        final Map<FlowFileRecord, NodeIdentifier> assignments = new HashMap<>();
+        for (final FlowFileRecord flowFile : flowFiles) {
+            assignments.put(flowFile, partitionNodeIds.get(partitioner.getPartition(flowFile, partitions, localPartition)));
+        }
+        return assignments;
+    }
+
+    private QueuePartition[] createPartitions(final List<NodeIdentifier> clusterNodeIds, final NodeIdentifier localNodeId) {
+        final QueuePartition[] partitions = new QueuePartition[clusterNodeIds.size()];
+        for (int i = 0; i < partitions.length; i++) {
+            final NodeIdentifier nodeId = clusterNodeIds.get(i);
+            final QueuePartition partition = mock(QueuePartition.class);
+            when(partition.getNodeIdentifier()).thenReturn(nodeId.equals(localNodeId) ? Optional.empty() : Optional.of(nodeId));
+            when(partition.getSwapPartitionName()).thenReturn(nodeId.equals(localNodeId) ? "local" : nodeId.getId());
+            partitions[i] = partition;
+        }
+        return partitions;
+    }
+
+    private Map<String, String> createAttributes(final String partitioningValue) {
+        final Map<String, String> attributes = new HashMap<>();
+        attributes.put(PARTITIONING_ATTRIBUTE, partitioningValue);
+        return attributes;
+    }
+
+    private NodeIdentifier createNodeIdentifier(final String uuid) {
+        return new NodeIdentifier(uuid, "localhost", nodePort++, "localhost", nodePort++,
+            "localhost", nodePort++, "localhost", nodePort++, nodePort++, true, Collections.emptySet());
+    }
+}
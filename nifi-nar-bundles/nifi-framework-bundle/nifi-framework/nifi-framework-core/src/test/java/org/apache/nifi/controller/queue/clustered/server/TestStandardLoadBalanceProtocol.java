@@ -23,6 +23,8 @@ import org.apache.nifi.controller.flow.FlowManager;
 import org.apache.nifi.controller.queue.IllegalClusterStateException;
 import org.apache.nifi.controller.queue.LoadBalanceCompression;
 import org.apache.nifi.controller.queue.LoadBalancedFlowFileQueue;
+import org.apache.nifi.controller.queue.clustered.client.async.nio.DataFrameCompressor;
+import org.apache.nifi.controller.queue.clustered.protocol.ZstdCompression;
 import org.apache.nifi.controller.repository.ContentRepository;
 import org.apache.nifi.controller.repository.FlowFileRecord;
 import org.apache.nifi.controller.repository.FlowFileRepository;
@@ -45,8 +47,10 @@ import java.io.IOException;
 import java.io.OutputStream;
 import java.io.PipedInputStream;
 import java.io.PipedOutputStream;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
@@ -60,12 +64,16 @@ import java.util.zip.Checksum;
 import static org.apache.nifi.controller.queue.clustered.protocol.LoadBalanceProtocolConstants.ABORT_TRANSACTION;
 import static org.apache.nifi.controller.queue.clustered.protocol.LoadBalanceProtocolConstants.CHECK_SPACE;
 import static org.apache.nifi.controller.queue.clustered.protocol.LoadBalanceProtocolConstants.COMPLETE_TRANSACTION;
+import static org.apache.nifi.controller.queue.clustered.protocol.LoadBalanceProtocolConstants.COMPRESSION_LZ4_ATTRIBUTES_AND_CONTENT;
+import static org.apache.nifi.controller.queue.clustered.protocol.LoadBalanceProtocolConstants.COMPRESSION_NONE;
+import static org.apache.nifi.controller.queue.clustered.protocol.LoadBalanceProtocolConstants.COMPRESSION_ZSTD_ATTRIBUTES_AND_CONTENT;
 import static org.apache.nifi.controller.queue.clustered.protocol.LoadBalanceProtocolConstants.CONFIRM_CHECKSUM;
 import static org.apache.nifi.controller.queue.clustered.protocol.LoadBalanceProtocolConstants.CONFIRM_COMPLETE_TRANSACTION;
 import static org.apache.nifi.controller.queue.clustered.protocol.LoadBalanceProtocolConstants.DATA_FRAME_FOLLOWS;
 import static org.apache.nifi.controller.queue.clustered.protocol.LoadBalanceProtocolConstants.MORE_FLOWFILES;
 import static org.apache.nifi.controller.queue.clustered.protocol.LoadBalanceProtocolConstants.NO_DATA_FRAME;
 import static org.apache.nifi.controller.queue.clustered.protocol.LoadBalanceProtocolConstants.NO_MORE_FLOWFILES;
+import static org.apache.nifi.controller.queue.clustered.protocol.LoadBalanceProtocolConstants.QUEUE_FULL;
 import static org.apache.nifi.controller.queue.clustered.protocol.LoadBalanceProtocolConstants.REJECT_CHECKSUM;
 import static org.apache.nifi.controller.queue.clustered.protocol.LoadBalanceProtocolConstants.SKIP_SPACE_CHECK;
 import static org.apache.nifi.controller.queue.clustered.protocol.LoadBalanceProtocolConstants.SPACE_AVAILABLE;
@@ -73,6 +81,8 @@ import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeFalse;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
 import static org.mockito.ArgumentMatchers.anyCollection;
 import static org.mockito.ArgumentMatchers.anyList;
 import static org.mockito.Mockito.times;
@@ -225,6 +235,86 @@ public class TestStandardLoadBalanceProtocol {
         Mockito.verify(flowFileQueue, times(1)).receiveFromPeer(anyCollection());
     }
 
+    @Test
+    public void testLz4CompressedFlowFileTransaction() throws IOException {
+        final DataFrameCompressor compressor = new DataFrameCompressor();
+        testBlockCompressedFlowFileTransaction(COMPRESSION_LZ4_ATTRIBUTES_AND_CONTENT, compressor::createLz4Frame);
+    }
+
+    @Test
+    public void testZstdCompressedFlowFileTransaction() throws IOException {
+        assumeTrue(ZstdCompression.isAvailable(), "The zstd-jni library is not available");
+
+        final DataFrameCompressor compressor = new DataFrameCompressor();
+        testBlockCompressedFlowFileTransaction(COMPRESSION_ZSTD_ATTRIBUTES_AND_CONTENT, compressor::createZstdFrame);
+    }
+
+    @Test
+    public void testZstdRejectedWhenUnavailable() throws IOException {
+        assumeFalse(ZstdCompression.isAvailable(), "The zstd-jni library is available");
+
+        final StandardLoadBalanceProtocol protocol = new StandardLoadBalanceProtocol(flowFileRepo, contentRepo, provenanceRepo, flowController, ALWAYS_AUTHORIZED);
+
+        final PipedInputStream serverInput = new PipedInputStream();
+        final PipedOutputStream serverContentSource = new PipedOutputStream();
+        serverInput.connect(serverContentSource);
+
+        final DataOutputStream dos = new DataOutputStream(serverContentSource);
+        dos.writeShort(1); // partition count
+        dos.writeUTF("unit-test-connection-id");
+        dos.write(COMPRESSION_ZSTD_ATTRIBUTES_AND_CONTENT);
+        dos.close();
+
+        final IOException e = assertThrows(IOException.class, () -> protocol.receiveFlowFiles(serverInput, new ByteArrayOutputStream(), "Unit Test", 3));
+        assertTrue(e.getMessage().contains("Zstandard"));
+        assertTrue(claimContents.isEmpty());
+    }
+
+    private void testBlockCompressedFlowFileTransaction(final int compressionIndicator, final FrameFactory frameFactory) throws IOException {
+        final StandardLoadBalanceProtocol protocol = new StandardLoadBalanceProtocol(flowFileRepo, contentRepo, provenanceRepo, flowController, ALWAYS_AUTHORIZED);
+
+        final PipedInputStream serverInput = new PipedInputStream(256 * 1024);
+        final PipedOutputStream serverContentSource = new PipedOutputStream();
+        serverInput.connect(serverContentSource);
+
+        final ByteArrayOutputStream serverOutput = new ByteArrayOutputStream();
+
+        // Write connection ID, followed by the compression that is used, as of version 2 of the protocol
+        final Checksum checksum = new CRC32();
+        final OutputStream checkedOutput = new CheckedOutputStream(serverContentSource, checksum);
+        final DataOutputStream dos = new DataOutputStream(checkedOutput);
+        dos.writeUTF("unit-test-connection-id");
+        dos.write(compressionIndicator);
+
+        final byte[] content = new byte[100_000];
+        for (int i = 0; i < content.length; i++) {
+            content[i] = (byte) ('A' + i % 7);
+        }
+
+        dos.write(CHECK_SPACE);
+        final byte[] metadata = encodeAttributes(Collections.singletonMap("uuid", "unit-test-id"));
+        writeFrame(frameFactory.createFrame(MORE_FLOWFILES, metadata, metadata.length), dos);
+        writeFrame(frameFactory.createFrame(DATA_FRAME_FOLLOWS, content, 65535), dos);
+        writeFrame(frameFactory.createFrame(DATA_FRAME_FOLLOWS, Arrays.copyOfRange(content, 65535, content.length), content.length - 65535), dos);
+        dos.write(NO_DATA_FRAME);
+        dos.write(NO_MORE_FLOWFILES);
+
+        dos.writeLong(checksum.getValue());
+        dos.write(COMPLETE_TRANSACTION);
+
+        protocol.receiveFlowFiles(serverInput, serverOutput, "Unit Test", 2);
+
+        final byte[] serverResponse = serverOutput.toByteArray();
+        assertEquals(3, serverResponse.length);
+        assertEquals(SPACE_AVAILABLE, serverResponse[0]);
+        assertEquals(CONFIRM_CHECKSUM, serverResponse[1]);
+        assertEquals(CONFIRM_COMPLETE_TRANSACTION, serverResponse[2]);
+
+        assertEquals(1, claimContents.size());
+        assertArrayEquals(content, claimContents.values().iterator().next());
+        assertEquals(1, flowFileQueueReceiveRecords.size());
+    }
+
     @Test
     public void testMultipleFlowFiles() throws IOException {
         final StandardLoadBalanceProtocol protocol = new StandardLoadBalanceProtocol(flowFileRepo, contentRepo, provenanceRepo, flowController, ALWAYS_AUTHORIZED);
@@ -603,6 +693,250 @@ public class TestStandardLoadBalanceProtocol {
         Mockito.verify(flowFileQueue, times(1)).receiveFromPeer(anyCollection());
     }
 
+    @Test
+    public void testMultiplexedFlowFileTransaction() throws IOException {
+        final StandardLoadBalanceProtocol protocol = new StandardLoadBalanceProtocol(flowFileRepo, contentRepo, provenanceRepo, flowController, ALWAYS_AUTHORIZED);
+        final List<FlowFileRecord> secondQueueReceiveRecords = new ArrayList<>();
+        final LoadBalancedFlowFileQueue secondQueue = mockSecondQueue("second-connection-id", secondQueueReceiveRecords);
+
+        final PipedInputStream serverInput = new PipedInputStream(256 * 1024);
+        final PipedOutputStream serverContentSource = new PipedOutputStream();
+        serverInput.connect(serverContentSource);
+
+        final ByteArrayOutputStream serverOutput = new ByteArrayOutputStream();
+
+        // As of version 3 of the protocol, the Connection ID, compression, and space check of each partition are sent up front
+        final Checksum checksum = new CRC32();
+        final OutputStream checkedOutput = new CheckedOutputStream(serverContentSource, checksum);
+        final DataOutputStream dos = new DataOutputStream(checkedOutput);
+        dos.writeShort(2);
+        dos.writeUTF("unit-test-connection-id");
+        dos.write(COMPRESSION_NONE);
+        dos.write(CHECK_SPACE);
+        dos.writeUTF("second-connection-id");
+        dos.write(COMPRESSION_LZ4_ATTRIBUTES_AND_CONTENT);
+        dos.write(SKIP_SPACE_CHECK);
+
+        // Interleave the FlowFiles of both partitions, each preceded by the index of its partition
+        dos.write(MORE_FLOWFILES);
+        dos.writeShort(0);
+        writeAttributes(Collections.singletonMap("uuid", "unit-test-id-1"), dos);
+        writeContent("hello".getBytes(), dos);
+
+        final DataFrameCompressor compressor = new DataFrameCompressor();
+        final byte[] metadata = encodeAttributes(Collections.singletonMap("uuid", "unit-test-id-2"));
+        writeFrame(compressor.createLz4Frame(MORE_FLOWFILES, 1, metadata, metadata.length), dos);
+        writeFrame(compressor.createLz4Frame(DATA_FRAME_FOLLOWS, "greetings".getBytes(), 9), dos);
+        dos.write(NO_DATA_FRAME);
+
+        dos.write(MORE_FLOWFILES);
+        dos.writeShort(0);
+        writeAttributes(Collections.singletonMap("uuid", "unit-test-id-3"), dos);
+        writeContent("good-bye".getBytes(), dos);
+
+        dos.write(NO_MORE_FLOWFILES);
+        dos.writeLong(checksum.getValue());
+        dos.write(COMPLETE_TRANSACTION);
+
+        protocol.receiveFlowFiles(serverInput, serverOutput, "Unit Test", 3);
+
+        final byte[] serverResponse = serverOutput.toByteArray();
+        assertEquals(4, serverResponse.length);
+        assertEquals(SPACE_AVAILABLE, serverResponse[0]);
+        assertEquals(CONFIRM_CHECKSUM, serverResponse[1]);
+        assertEquals(CONFIRM_COMPLETE_TRANSACTION, serverResponse[2]);
+        assertEquals(CONFIRM_COMPLETE_TRANSACTION, serverResponse[3]);
+
+        // The FlowFiles of all partitions share a single Content Claim
+        assertEquals(1, claimContents.size());
+        assertArrayEquals("hellogreetingsgood-bye".getBytes(), claimContents.values().iterator().next());
+
+        assertEquals(2, flowFileQueueReceiveRecords.size());
+        assertEquals(5, flowFileQueueReceiveRecords.get(0).getSize());
+        assertEquals(8, flowFileQueueReceiveRecords.get(1).getSize());
+        assertEquals(1, secondQueueReceiveRecords.size());
+        assertEquals(9, secondQueueReceiveRecords.get(0).getSize());
+        assertEquals(5, secondQueueReceiveRecords.get(0).getContentClaimOffset());
+
+        Mockito.verify(secondQueue, times(0)).isLocalPartitionFull();
+        assertEquals(3, flowFileRepoUpdateRecords.size());
+        assertEquals(3, provRepoUpdateRecords.size());
+    }
+
+    @Test
+    public void testMultiplexedTransactionWithFullAndRejectingQueues() throws IOException, IllegalClusterStateException {
+        final StandardLoadBalanceProtocol protocol = new StandardLoadBalanceProtocol(flowFileRepo, contentRepo, provenanceRepo, flowController, ALWAYS_AUTHORIZED);
+        final LoadBalancedFlowFileQueue secondQueue = mockSecondQueue("second-connection-id", new ArrayList<>());
+        Mockito.doThrow(new IllegalClusterStateException("Unit Test")).when(secondQueue).receiveFromPeer(anyCollection());
+        when(flowFileQueue.isLocalPartitionFull()).thenReturn(true);
+
+        final PipedInputStream serverInput = new PipedInputStream();
+        final PipedOutputStream serverContentSource = new PipedOutputStream();
+        serverInput.connect(serverContentSource);
+
+        final ByteArrayOutputStream serverOutput = new ByteArrayOutputStream();
+
+        final Checksum checksum = new CRC32();
+        final OutputStream checkedOutput = new CheckedOutputStream(serverContentSource, checksum);
+        final DataOutputStream dos = new DataOutputStream(checkedOutput);
+        dos.writeShort(2);
+        dos.writeUTF("unit-test-connection-id");
+        dos.write(COMPRESSION_NONE);
+        dos.write(CHECK_SPACE);
+        dos.writeUTF("second-connection-id");
+        dos.write(COMPRESSION_NONE);
+        dos.write(SKIP_SPACE_CHECK);
+
+        // The first queue is full, so only the second partition's FlowFiles are sent
+        dos.write(MORE_FLOWFILES);
+        dos.writeShort(1);
+        writeAttributes(Collections.singletonMap("uuid", "unit-test-id"), dos);
+        writeContent("hello".getBytes(), dos);
+
+        dos.write(NO_MORE_FLOWFILES);
+        dos.writeLong(checksum.getValue());
+        dos.write(COMPLETE_TRANSACTION);
+
+        protocol.receiveFlowFiles(serverInput, serverOutput, "Unit Test", 3);
+
+        final byte[] serverResponse = serverOutput.toByteArray();
+        assertEquals(4, serverResponse.length);
+        assertEquals(QUEUE_FULL, serverResponse[0]);
+        assertEquals(CONFIRM_CHECKSUM, serverResponse[1]);
+        assertEquals(CONFIRM_COMPLETE_TRANSACTION, serverResponse[2]);
+        assertEquals(ABORT_TRANSACTION, serverResponse[3]);
+
+        Mockito.verify(flowFileQueue, times(0)).receiveFromPeer(anyCollection());
+        assertTrue(provRepoUpdateRecords.stream().anyMatch(event -> event.getEventType() == ProvenanceEventType.DROP));
+
+        // The rejected FlowFiles were committed before being dropped, so the FlowFile Repository, not the protocol, releases their claim
+        Mockito.verify(contentRepo, times(1)).decrementClaimantCount(claimContents.keySet().iterator().next());
+    }
+
+    @Test
+    public void testMultiplexedTransactionRepositoryUpdateFails() throws IOException, IllegalClusterStateException {
+        final StandardLoadBalanceProtocol protocol = new StandardLoadBalanceProtocol(flowFileRepo, contentRepo, provenanceRepo, flowController, ALWAYS_AUTHORIZED);
+        final LoadBalancedFlowFileQueue secondQueue = mockSecondQueue("second-connection-id", new ArrayList<>());
+
+        // Fail the repository update if it includes the second partition's FlowFiles
+        Mockito.doAnswer(invocation -> {
+            final Collection<RepositoryRecord> records = invocation.getArgument(0);
+            if (records.stream().anyMatch(record -> record.getDestination() == secondQueue)) {
+                throw new IOException("Unit Test - Intentional Repository Failure");
+            }
+
+            flowFileRepoUpdateRecords.addAll(records);
+            return null;
+        }).when(flowFileRepo).updateRepository(anyCollection());
+
+        final PipedInputStream serverInput = new PipedInputStream();
+        final PipedOutputStream serverContentSource = new PipedOutputStream();
+        serverInput.connect(serverContentSource);
+
+        final ByteArrayOutputStream serverOutput = new ByteArrayOutputStream();
+
+        final Checksum checksum = new CRC32();
+        final OutputStream checkedOutput = new CheckedOutputStream(serverContentSource, checksum);
+        final DataOutputStream dos = new DataOutputStream(checkedOutput);
+        dos.writeShort(2);
+        dos.writeUTF("unit-test-connection-id");
+        dos.write(COMPRESSION_NONE);
+        dos.write(SKIP_SPACE_CHECK);
+        dos.writeUTF("second-connection-id");
+        dos.write(COMPRESSION_NONE);
+        dos.write(SKIP_SPACE_CHECK);
+
+        dos.write(MORE_FLOWFILES);
+        dos.writeShort(0);
+        writeAttributes(Collections.singletonMap("uuid", "unit-test-id-1"), dos);
+        writeContent("hello".getBytes(), dos);
+
+        dos.write(MORE_FLOWFILES);
+        dos.writeShort(1);
+        writeAttributes(Collections.singletonMap("uuid", "unit-test-id-2"), dos);
+        writeContent("greetings".getBytes(), dos);
+
+        dos.write(NO_MORE_FLOWFILES);
+        dos.writeLong(checksum.getValue());
+        dos.write(COMPLETE_TRANSACTION);
+
+        assertThrows(IOException.class, () -> protocol.receiveFlowFiles(serverInput, serverOutput, "Unit Test", 3));
+
+        // Neither partition is committed or confirmed, so the Peer sends all of the FlowFiles again
+        final byte[] serverResponse = serverOutput.toByteArray();
+        assertEquals(1, serverResponse.length);
+        assertEquals(CONFIRM_CHECKSUM, serverResponse[0]);
+
+        assertEquals(0, flowFileRepoUpdateRecords.size());
+        Mockito.verify(flowFileQueue, times(0)).receiveFromPeer(anyCollection());
+        Mockito.verify(secondQueue, times(0)).receiveFromPeer(anyCollection());
+
+        // One decrement for the Content Claim's initial count and one for each FlowFile, none of which were committed
+        final ContentClaim contentClaim = claimContents.keySet().iterator().next();
+        Mockito.verify(contentRepo, times(3)).decrementClaimantCount(contentClaim);
+        Mockito.verify(contentRepo, Mockito.atLeastOnce()).remove(contentClaim);
+    }
+
+    @Test
+    public void testMultiplexedTransactionAllQueuesFull() throws IOException {
+        final StandardLoadBalanceProtocol protocol = new StandardLoadBalanceProtocol(flowFileRepo, contentRepo, provenanceRepo, flowController, ALWAYS_AUTHORIZED);
+        when(flowFileQueue.isLocalPartitionFull()).thenReturn(true);
+
+        final PipedInputStream serverInput = new PipedInputStream();
+        final PipedOutputStream serverContentSource = new PipedOutputStream();
+        serverInput.connect(serverContentSource);
+
+        final ByteArrayOutputStream serverOutput = new ByteArrayOutputStream();
+
+        final DataOutputStream dos = new DataOutputStream(serverContentSource);
+        dos.writeShort(1);
+        dos.writeUTF("unit-test-connection-id");
+        dos.write(COMPRESSION_NONE);
+        dos.write(CHECK_SPACE);
+
+        protocol.receiveFlowFiles(serverInput, serverOutput, "Unit Test", 3);
+
+        final byte[] serverResponse = serverOutput.toByteArray();
+        assertEquals(1, serverResponse.length);
+        assertEquals(QUEUE_FULL, serverResponse[0]);
+        assertEquals(0, claimContents.size());
+    }
+
+    private LoadBalancedFlowFileQueue mockSecondQueue(final String connectionId, final List<FlowFileRecord> receivedRecords) throws IOException {
+        final LoadBalancedFlowFileQueue secondQueue = Mockito.mock(LoadBalancedFlowFileQueue.class);
+        when(secondQueue.getIdentifier()).thenReturn(connectionId);
+
+        try {
+            Mockito.doAnswer(invocation -> receivedRecords.addAll(invocation.getArgument(0))).when(secondQueue).receiveFromPeer(anyCollection());
+        } catch (final IllegalClusterStateException e) {
+            throw new AssertionError(e);
+        }
+
+        final Connection secondConnection = Mockito.mock(Connection.class);
+        when(secondConnection.getFlowFileQueue()).thenReturn(secondQueue);
+        when(flowController.getFlowManager().getConnection(connectionId)).thenReturn(secondConnection);
+
+        return secondQueue;
+    }
+
+    private interface FrameFactory {
+        ByteBuffer createFrame(int indicator, byte[] data, int length);
+    }
+
+    private void writeFrame(final ByteBuffer frame, final DataOutputStream dos) throws IOException {
+        dos.write(frame.array(), frame.position(), frame.remaining());
+    }
+
+    private byte[] encodeAttributes(final Map<String, String> attributes) throws IOException {
+        final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        try (final DataOutputStream dos = new DataOutputStream(baos)) {
+            writeAttributes(attributes, dos);
+        }
+
+        // Skip the length that precedes the attributes, as the frame provides its own length
+        return Arrays.copyOfRange(baos.toByteArray(), 4, baos.size());
+    }
+
     private void writeAttributes(final Map<String, String> attributes, final DataOutputStream dos) throws IOException {
         try (final ByteArrayOutputStream baos = new ByteArrayOutputStream();
              final DataOutputStream out = new DataOutputStream(baos)) {
@@ -51,6 +51,7 @@ import org.apache.nifi.processor.exception.FlowFileAccessException;
 import org.apache.nifi.processor.exception.FlowFileHandlingException;
 import org.apache.nifi.processor.exception.MissingFlowFileException;
 import org.apache.nifi.processor.exception.ProcessException;
+import org.apache.nifi.processor.exception.TerminatedTaskException;
 import org.apache.nifi.processor.io.InputStreamCallback;
 import org.apache.nifi.processor.io.OutputStreamCallback;
 import org.apache.nifi.processor.io.StreamCallback;
@@ -79,6 +80,9 @@ import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
@@ -96,6 +100,7 @@ import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicReference;
@@ -120,6 +125,7 @@ import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.ArgumentMatchers.notNull;
 import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -367,6 +373,38 @@ public class StandardProcessSessionIT {
         secondSession.commit();
     }
 
+    @Test
+    public void testBatchedSessionsCommittedTogether() throws IOException {
+        final ProvenanceEventRepository provenanceRepoSpy = Mockito.spy(new MockProvenanceRepository());
+        final StandardRepositoryContext batchContext = new StandardRepositoryContext(connectable, new AtomicLong(0L), contentRepo, flowFileRepo, flowFileEventRepository,
+            counterRepository, provenanceRepoSpy, stateManager);
+        final BatchingSessionFactory sessionFactory = new BatchingSessionFactory(new StandardProcessSession(batchContext, () -> false, new NopPerformanceTracker()));
+        final Relationship relationship = new Relationship.Builder().name("A").build();
+
+        for (int i = 0; i < 5; i++) {
+            final ProcessSession batchedSession = sessionFactory.createSession();
+            FlowFile flowFile = batchedSession.create();
+            flowFile = batchedSession.putAttribute(flowFile, "index", String.valueOf(i));
+            batchedSession.transfer(flowFile, relationship);
+            batchedSession.commitAsync();
+        }
+
+        // Committing each of the sessions only checkpoints it
+        assertEquals(0, flowFileRepo.getUpdateCount());
+        verify(provenanceRepoSpy, never()).registerEvents(any());
+        assertEquals(0, flowFileQueue.size().getObjectCount());
+
+        sessionFactory.commitAsync(null);
+
+        // All of the sessions are committed with a single update of each repository and a single enqueue
+        assertEquals(1, flowFileRepo.getUpdateCount());
+        assertEquals(5, flowFileRepo.getUpdates().size());
+        verify(provenanceRepoSpy, times(1)).registerEvents(any());
+        assertEquals(5, provenanceRepoSpy.getEvents(0L, 100).size());
+        verify(flowFileQueue, times(1)).putAll(any());
+        assertEquals(5, flowFileQueue.size().getObjectCount());
+    }
+
     @Test
     public void testCloneForkChildMigrateCommit() throws IOException {
         final StandardFlowFileRecord.Builder flowFileRecordBuilder = new StandardFlowFileRecord.Builder()
@@ -1288,6 +1326,106 @@ public class StandardProcessSessionIT {
         assertThrows(ProcessException.class, () -> session.exportTo(finalFlowfile, mock));
     }
 
+    @Test
+    public void testExportToChannel() throws IOException {
+        final ContentClaim claim = contentRepo.create(false);
+        final FlowFileRecord flowFileRecord = new StandardFlowFileRecord.Builder()
+                .contentClaim(claim)
+                .addAttribute("uuid", "12345678-1234-1234-1234-123456789012")
+                .entryDate(System.currentTimeMillis())
+                .build();
+        flowFileQueue.put(flowFileRecord);
+        FlowFile flowFile = session.get();
+        assertNotNull(flowFile);
+
+        flowFile = session.append(flowFile, out -> out.write("Hello World".getBytes()));
+
+        final ByteArrayOutputStream os = new ByteArrayOutputStream();
+        session.exportTo(flowFile, Channels.newChannel(os));
+        assertEquals("Hello World", new String(os.toByteArray()));
+    }
+
+    @Test
+    public void testExportToChannelPreventsRemoveDuringExport() {
+        final FlowFile flowFile = session.write(session.create(), out -> out.write("Hello World".getBytes()));
+
+        final ByteArrayOutputStream os = new ByteArrayOutputStream();
+        final AtomicReference<Exception> removeFailure = new AtomicReference<>();
+        session.exportTo(flowFile, createChannel(os, () -> {
+            try {
+                session.remove(flowFile);
+            } catch (final IllegalStateException e) {
+                removeFailure.set(e);
+            }
+        }));
+
+        assertEquals("Hello World", new String(os.toByteArray()));
+        assertNotNull(removeFailure.get());
+
+        // Once the export has completed, the FlowFile can be removed
+        session.remove(flowFile);
+    }
+
+    @Test
+    public void testExportToChannelStopsWhenTaskTerminated() {
+        final AtomicBoolean terminated = new AtomicBoolean(false);
+        final ProcessSession terminatingSession = new StandardProcessSession(context, terminated::get, new NopPerformanceTracker());
+
+        final byte[] content = new byte[3 * 1024 * 1024];
+        final FlowFile flowFile = terminatingSession.write(terminatingSession.create(), out -> out.write(content));
+
+        // Terminate the task as soon as the export begins; the chunk in progress completes but no further chunks are exported
+        final ByteArrayOutputStream os = new ByteArrayOutputStream();
+        assertThrows(TerminatedTaskException.class, () -> terminatingSession.exportTo(flowFile, createChannel(os, () -> terminated.set(true))));
+        assertEquals(1024 * 1024, os.size());
+    }
+
+    @Test
+    public void testExportToChannelIOExceptionThrowsProcessException() {
+        final FlowFile flowFile = session.write(session.create(), out -> out.write("Hello World".getBytes()));
+
+        final WritableByteChannel failingChannel = new WritableByteChannel() {
+            @Override
+            public int write(final ByteBuffer src) throws IOException {
+                throw new IOException("Intentional Unit Test Exception");
+            }
+
+            @Override
+            public boolean isOpen() {
+                return true;
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+
+        final ProcessException processException = assertThrows(ProcessException.class, () -> session.exportTo(flowFile, failingChannel));
+        assertTrue(processException.getCause() instanceof IOException);
+    }
+
+    private WritableByteChannel createChannel(final OutputStream destination, final Runnable onWrite) {
+        final WritableByteChannel delegate = Channels.newChannel(destination);
+
+        return new WritableByteChannel() {
+            @Override
+            public int write(final ByteBuffer src) throws IOException {
+                onWrite.run();
+                return delegate.write(src);
+            }
+
+            @Override
+            public boolean isOpen() {
+                return delegate.isOpen();
+            }
+
+            @Override
+            public void close() throws IOException {
+                delegate.close();
+            }
+        };
+    }
+
     @Test
     public void testReadAfterSessionClosesStream() throws IOException {
         final ContentClaim claim = contentRepo.create(false);
@@ -3152,6 +3290,7 @@ public class StandardProcessSessionIT {
         private boolean failOnUpdate = false;
         private final AtomicLong idGenerator = new AtomicLong(0L);
         private final List<RepositoryRecord> updates = new ArrayList<>();
+        private int updateCount = 0;
         private final ContentRepository contentRepo;
 
         public MockFlowFileRepository(final ContentRepository contentRepo) {
@@ -3186,6 +3325,7 @@ public class StandardProcessSessionIT {
                 throw new IOException("FlowFile Repository told to fail on update for unit test");
             }
             updates.addAll(records);
+            updateCount++;
 
             for (final RepositoryRecord record : records) {
                 if (record.getType() == RepositoryRecordType.DELETE) {
@@ -3202,6 +3342,10 @@ public class StandardProcessSessionIT {
             return updates;
         }
 
+        public int getUpdateCount() {
+            return updateCount;
+        }
+
         @Override
         public long getStorageCapacity() throws IOException {
             return 0;
@@ -3431,7 +3575,11 @@ public class StandardProcessSessionIT {
 
         @Override
         public long exportTo(ContentClaim claim, OutputStream destination, long offset, long length) throws IOException {
-            throw new UnsupportedOperationException();
+            try (final InputStream in = read(claim)) {
+                StreamUtils.skip(in, offset);
+                StreamUtils.copy(in, destination, length);
+                return length;
+            }
         }
 
         @Override
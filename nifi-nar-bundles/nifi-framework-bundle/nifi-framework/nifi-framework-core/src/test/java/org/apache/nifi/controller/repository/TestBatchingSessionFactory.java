@@ -0,0 +1,118 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.controller.repository;
+
+import org.apache.nifi.processor.ProcessSession;
+import org.apache.nifi.processor.exception.ProcessException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+public class TestBatchingSessionFactory {
+    private StandardProcessSession rawSession;
+    private BatchingSessionFactory sessionFactory;
+
+    @BeforeEach
+    public void setup() {
+        rawSession = mock(StandardProcessSession.class);
+        sessionFactory = new BatchingSessionFactory(rawSession);
+    }
+
+    @Test
+    public void testSuccessCallbacksDeferredUntilBatchCommitted() {
+        final List<Integer> completed = new ArrayList<>();
+        doAnswer(invocation -> {
+            final Runnable onSuccess = invocation.getArgument(0);
+            onSuccess.run();
+            return null;
+        }).when(rawSession).commitAsync(any(Runnable.class), any());
+
+        for (int i = 0; i < 3; i++) {
+            final int index = i;
+            final ProcessSession session = sessionFactory.createSession();
+            session.commitAsync(() -> completed.add(index), t -> completed.add(-1));
+        }
+
+        verify(rawSession, times(3)).checkpoint();
+        assertTrue(completed.isEmpty());
+
+        sessionFactory.commitAsync(null);
+        assertEquals(Arrays.asList(0, 1, 2), completed);
+
+        // Callbacks are only triggered once
+        sessionFactory.commitAsync(null);
+        assertEquals(Arrays.asList(0, 1, 2), completed);
+    }
+
+    @Test
+    public void testFailureCallbacksTriggeredWhenBatchFails() {
+        final ProcessException failure = new ProcessException("Intentional Unit Test Exception");
+        doAnswer(invocation -> {
+            final Consumer<Throwable> onFailure = invocation.getArgument(1);
+            onFailure.accept(failure);
+            throw failure;
+        }).when(rawSession).commitAsync(any(Runnable.class), any());
+
+        final AtomicInteger successCount = new AtomicInteger(0);
+        final List<Throwable> failures = new ArrayList<>();
+        sessionFactory.createSession().commitAsync(successCount::incrementAndGet, failures::add);
+        sessionFactory.createSession().commitAsync(successCount::incrementAndGet, failures::add);
+
+        final List<Throwable> frameworkFailures = new ArrayList<>();
+        assertThrows(ProcessException.class, () -> sessionFactory.commitAsync(frameworkFailures::add));
+
+        assertEquals(0, successCount.get());
+        assertEquals(1, frameworkFailures.size());
+        assertEquals(2, failures.size());
+        assertSame(failure, failures.get(0));
+        assertSame(failure, failures.get(1));
+    }
+
+    @Test
+    public void testFailedCheckpointDoesNotTriggerSuccessCallback() {
+        final ProcessException failure = new ProcessException("Intentional Unit Test Exception");
+        doThrow(failure).when(rawSession).checkpoint();
+
+        final AtomicInteger successCount = new AtomicInteger(0);
+        final List<Throwable> failures = new ArrayList<>();
+        sessionFactory.createSession().commitAsync(successCount::incrementAndGet, failures::add);
+
+        verify(rawSession).rollback();
+        assertEquals(Collections.singletonList(failure), failures);
+
+        sessionFactory.commitAsync(null);
+        assertEquals(0, successCount.get());
+        assertEquals(1, failures.size());
+    }
+}
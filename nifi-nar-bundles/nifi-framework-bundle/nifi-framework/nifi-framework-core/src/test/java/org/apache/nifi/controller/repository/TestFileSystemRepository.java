@@ -21,6 +21,7 @@ import org.apache.nifi.controller.repository.claim.ResourceClaim;
 import org.apache.nifi.controller.repository.claim.StandardContentClaim;
 import org.apache.nifi.controller.repository.claim.StandardResourceClaim;
 import org.apache.nifi.controller.repository.claim.StandardResourceClaimManager;
+import org.apache.nifi.controller.repository.io.ByteBufferInputStream;
 import org.apache.nifi.controller.repository.util.DiskUtils;
 import org.apache.nifi.events.EventReporter;
 import org.apache.nifi.processor.DataUnit;
@@ -35,12 +36,15 @@ import org.junit.jupiter.api.condition.OS;
 
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
@@ -50,6 +54,7 @@ import java.nio.file.StandardOpenOption;
 import java.text.NumberFormat;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
@@ -61,6 +66,7 @@ import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
@@ -394,6 +400,60 @@ public class TestFileSystemRepository {
         assertFalse(Files.exists(claimPath));
     }
 
+    @Test
+    public void testReadMemoryMappedContent() throws IOException {
+        repository.shutdown();
+
+        final Map<String, String> additionalProperties = new HashMap<>();
+        additionalProperties.put(FileSystemRepository.MMAP_ENABLED, "true");
+        additionalProperties.put(FileSystemRepository.MMAP_MAX_MAPPINGS, "2");
+        nifiProperties = NiFiProperties.createBasicNiFiProperties(TestFileSystemRepository.class.getResource("/conf/nifi.properties").getFile(), additionalProperties);
+        repository = new FileSystemRepository(nifiProperties);
+        claimManager = new StandardResourceClaimManager();
+        repository.initialize(new StandardContentRepositoryContext(claimManager, EventReporter.NO_OP));
+        repository.purge();
+
+        final ContentClaim firstClaim = repository.create(false);
+        try (final OutputStream out = repository.write(firstClaim)) {
+            out.write("Hello".getBytes(StandardCharsets.UTF_8));
+        }
+
+        final ContentClaim secondClaim = repository.create(false);
+        assertEquals(firstClaim.getResourceClaim(), secondClaim.getResourceClaim());
+        try (final OutputStream out = repository.write(secondClaim)) {
+            out.write("World".getBytes(StandardCharsets.UTF_8));
+        }
+
+        // The Resource Claim is still writable, so its content must not be mapped
+        assertNull(repository.getMappedContent(secondClaim));
+        try (final InputStream in = repository.read(secondClaim)) {
+            assertEquals("World", new String(readFully(in, 5), StandardCharsets.UTF_8));
+        }
+        assertEquals(0, repository.getMappedClaimCount());
+
+        claimManager.freeze(firstClaim.getResourceClaim());
+
+        try (final InputStream in = repository.read(secondClaim)) {
+            assertTrue(in instanceof ByteBufferInputStream);
+            final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+            StreamUtils.copy(in, baos);
+            assertEquals("World", new String(baos.toByteArray(), StandardCharsets.UTF_8));
+        }
+        assertEquals(1, repository.getMappedClaimCount());
+
+        final ByteBuffer mappedContent = repository.getMappedContent(firstClaim);
+        assertEquals(5, mappedContent.remaining());
+        final byte[] firstContent = new byte[5];
+        mappedContent.get(firstContent);
+        assertEquals("Hello", new String(firstContent, StandardCharsets.UTF_8));
+
+        // Once there are no more claimants, the mapping must be released when the claim is destroyed
+        repository.decrementClaimantCount(firstClaim);
+        repository.decrementClaimantCount(secondClaim);
+        assertTrue(repository.remove(firstClaim));
+        assertEquals(0, repository.getMappedClaimCount());
+    }
+
     private Path getPath(final ContentClaim claim) {
         try {
             final Method m = repository.getClass().getDeclaredMethod("getPath", ContentClaim.class);
@@ -482,6 +542,72 @@ public class TestFileSystemRepository {
         assertArrayEquals(doubleExpected, Files.readAllBytes(outPath));
     }
 
+    @Test
+    public void testExportToChannel() throws IOException {
+        final ContentClaim firstClaim = repository.create(false);
+        try (final OutputStream out = repository.write(firstClaim)) {
+            out.write("Hello".getBytes(StandardCharsets.UTF_8));
+        }
+
+        final ContentClaim secondClaim = repository.create(false);
+        assertEquals(firstClaim.getResourceClaim(), secondClaim.getResourceClaim());
+        try (final OutputStream out = repository.write(secondClaim)) {
+            out.write("World".getBytes(StandardCharsets.UTF_8));
+        }
+
+        final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        assertEquals(3, repository.exportTo(secondClaim, Channels.newChannel(baos), 1L, 3L));
+        assertEquals("orl", new String(baos.toByteArray(), StandardCharsets.UTF_8));
+
+        final File outFile = new File("target/testExportToChannel");
+        final Path outPath = outFile.toPath();
+        Files.deleteIfExists(outPath);
+
+        try (final FileOutputStream fos = new FileOutputStream(outFile)) {
+            assertEquals(5, repository.exportTo(secondClaim, fos));
+            assertEquals(4, repository.exportTo(firstClaim, fos, 1L, 4L));
+        }
+        assertEquals("Worldello", new String(Files.readAllBytes(outPath), StandardCharsets.UTF_8));
+
+        repository.exportTo(secondClaim, outPath, false, 2L, 3L);
+        assertEquals("rld", new String(Files.readAllBytes(outPath), StandardCharsets.UTF_8));
+
+        // Requesting more bytes than are available returns a short count, as the stream-based export does
+        final ByteArrayOutputStream streamOut = new ByteArrayOutputStream();
+        assertEquals(4, repository.exportTo(secondClaim, streamOut, 1L, 5L));
+        try (final FileOutputStream fos = new FileOutputStream(outFile)) {
+            assertEquals(4, repository.exportTo(secondClaim, fos.getChannel(), 1L, 5L));
+        }
+        assertEquals("orld", new String(Files.readAllBytes(outPath), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void testExportToFileWithClaimShorterThanRange() throws IOException {
+        final ContentClaim firstClaim = repository.create(false);
+        try (final OutputStream out = repository.write(firstClaim)) {
+            out.write("Hello".getBytes(StandardCharsets.UTF_8));
+        }
+
+        final ContentClaim secondClaim = repository.create(false);
+        assertEquals(firstClaim.getResourceClaim(), secondClaim.getResourceClaim());
+        try (final OutputStream out = repository.write(secondClaim)) {
+            out.write("World".getBytes(StandardCharsets.UTF_8));
+        }
+
+        final Path outPath = new File("target/testExportToFileWithClaimShorterThanRange").toPath();
+        Files.deleteIfExists(outPath);
+
+        // The range extends past the end of the first claim, into the second claim's content in the same file
+        assertThrows(EOFException.class, () -> repository.exportTo(firstClaim, outPath, false, 1L, 10L));
+        assertEquals("ello", new String(Files.readAllBytes(outPath), StandardCharsets.UTF_8));
+
+        try (final FileOutputStream fos = new FileOutputStream(outPath.toFile())) {
+            assertEquals(4, repository.exportTo(firstClaim, fos, 1L, 10L));
+            assertEquals(4, repository.exportTo(firstClaim, fos.getChannel(), 1L, 10L));
+        }
+        assertEquals("elloello", new String(Files.readAllBytes(outPath), StandardCharsets.UTF_8));
+    }
+
     @Test
     public void testSize() throws IOException {
         final ContentClaim claim = repository.create(true);
@@ -0,0 +1,166 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.controller.scheduling;
+
+import org.apache.nifi.connectable.Connectable;
+import org.apache.nifi.controller.status.SchedulingPoolStatus;
+import org.apache.nifi.groups.ProcessGroup;
+import org.apache.nifi.util.NiFiProperties;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.when;
+
+public class TestSchedulingPools {
+
+    @Test
+    public void testPoolsCreatedFromProperties() {
+        final Map<String, String> properties = new HashMap<>();
+        properties.put("nifi.scheduling.pool.tenant-a.threads", "4");
+        properties.put("nifi.scheduling.pool.tenant-a.cpu.quota", "1.5");
+        properties.put("nifi.scheduling.pool.tenant-a.process.groups", "group-a, group-c");
+        properties.put("nifi.scheduling.pool.tenant-b.threads", "2");
+        properties.put("nifi.scheduling.pool.tenant-b.process.groups", "group-b");
+
+        final SchedulingPools pools = SchedulingPools.create(NiFiProperties.createBasicNiFiProperties(null, properties));
+        try {
+            final List<SchedulingPool> poolList = new ArrayList<>(pools.getPools());
+            assertEquals(2, poolList.size());
+
+            final SchedulingPool tenantA = poolList.get(0);
+            assertEquals("tenant-a", tenantA.getName());
+            assertEquals(4, tenantA.getMaxThreads());
+            assertEquals(1.5D, tenantA.getCpuQuota());
+            assertEquals(new HashSet<>(Arrays.asList("group-a", "group-c")), tenantA.getProcessGroupIds());
+            assertEquals(4, tenantA.getFlowEngine().getCorePoolSize());
+
+            final SchedulingPool tenantB = poolList.get(1);
+            assertEquals(0D, tenantB.getCpuQuota());
+            assertEquals(Collections.singleton("group-b"), tenantB.getProcessGroupIds());
+        } finally {
+            pools.shutdown(true);
+        }
+    }
+
+    @Test
+    public void testInvalidProperties() {
+        final Map<String, String> properties = new HashMap<>();
+        properties.put("nifi.scheduling.pool.tenant-a.threads", "four");
+        assertThrows(IllegalArgumentException.class, () -> SchedulingPools.create(NiFiProperties.createBasicNiFiProperties(null, properties)));
+
+        properties.put("nifi.scheduling.pool.tenant-a.threads", "0");
+        assertThrows(IllegalArgumentException.class, () -> SchedulingPools.create(NiFiProperties.createBasicNiFiProperties(null, properties)));
+
+        properties.put("nifi.scheduling.pool.tenant-a.threads", "1");
+        properties.put("nifi.scheduling.pool.tenant-a.cpu.quota", "-1");
+        assertThrows(IllegalArgumentException.class, () -> SchedulingPools.create(NiFiProperties.createBasicNiFiProperties(null, properties)));
+    }
+
+    @Test
+    public void testGroupAssignedToMultiplePools() {
+        final SchedulingPool poolA = new SchedulingPool("a", 1, 0D, Collections.singleton("group"));
+        final SchedulingPool poolB = new SchedulingPool("b", 1, 0D, Collections.singleton("group"));
+        try {
+            assertThrows(IllegalArgumentException.class, () -> new SchedulingPools(Arrays.asList(poolA, poolB)));
+        } finally {
+            poolA.getFlowEngine().shutdownNow();
+            poolB.getFlowEngine().shutdownNow();
+        }
+    }
+
+    @Test
+    public void testPoolInheritedFromParentGroup() {
+        final SchedulingPool pool = new SchedulingPool("tenant", 1, 0D, Collections.singleton("parent"));
+        final SchedulingPools pools = new SchedulingPools(Collections.singletonList(pool));
+        try {
+            final ProcessGroup root = createGroup("root", null);
+            final ProcessGroup parent = createGroup("parent", root);
+            final ProcessGroup child = createGroup("child", parent);
+
+            assertSame(pool, pools.getPool(createConnectable(child)));
+            assertSame(pool, pools.getPool(createConnectable(parent)));
+            assertNull(pools.getPool(createConnectable(root)));
+        } finally {
+            pools.shutdown(true);
+        }
+    }
+
+    @Test
+    public void testCpuQuota() {
+        final SchedulingPool pool = new SchedulingPool("tenant", 2, 0.5D, Collections.emptySet());
+        try {
+            // Up to one second's worth of quota may be used in a burst without throttling
+            pool.recordCpuTime(TimeUnit.MILLISECONDS.toNanos(400L));
+            assertEquals(0L, pool.getThrottleNanos());
+
+            // Two seconds of CPU time at a quota of half a core must be paid for by four seconds, less the one second burst
+            pool.recordCpuTime(TimeUnit.MILLISECONDS.toNanos(1600L));
+            final long throttleMillis = TimeUnit.NANOSECONDS.toMillis(pool.getThrottleNanos());
+            assertTrue(throttleMillis > 2500L && throttleMillis <= 3000L, "Throttled for " + throttleMillis + " millis");
+
+            pool.onThrottled();
+            final SchedulingPoolStatus status = pool.sampleStatus();
+            assertEquals("tenant", status.getName());
+            assertEquals(2, status.getMaxThreads());
+            assertEquals(2000L, status.getCpuTimeMillis());
+            assertEquals(1L, status.getThrottledInvocations());
+
+            // Values are measured since the previous sample
+            assertEquals(0L, pool.sampleStatus().getCpuTimeMillis());
+        } finally {
+            pool.getFlowEngine().shutdownNow();
+        }
+    }
+
+    @Test
+    public void testNoCpuQuota() {
+        final SchedulingPool pool = new SchedulingPool("tenant", 1, 0D, Collections.emptySet());
+        try {
+            pool.recordCpuTime(TimeUnit.SECONDS.toNanos(10L));
+            assertEquals(0L, pool.getThrottleNanos());
+        } finally {
+            pool.getFlowEngine().shutdownNow();
+        }
+    }
+
+    private ProcessGroup createGroup(final String id, final ProcessGroup parent) {
+        final ProcessGroup group = Mockito.mock(ProcessGroup.class);
+        when(group.getIdentifier()).thenReturn(id);
+        when(group.getParent()).thenReturn(parent);
+        return group;
+    }
+
+    private Connectable createConnectable(final ProcessGroup group) {
+        final Connectable connectable = Mockito.mock(Connectable.class);
+        when(connectable.getProcessGroup()).thenReturn(group);
+        return connectable;
+    }
+}
@@ -620,6 +620,16 @@ public class TestStandardProcessScheduler {
         proc.setAllowSleepInterrupt(true);
     }
 
+    @Test
+    public void testEventNotificationRequiredOnlyForWorkAwareTimerDriven() {
+        assertTrue(scheduler.isEventNotificationRequired(SchedulingStrategy.EVENT_DRIVEN));
+        assertFalse(scheduler.isEventNotificationRequired(SchedulingStrategy.CRON_DRIVEN));
+        assertFalse(scheduler.isEventNotificationRequired(SchedulingStrategy.TIMER_DRIVEN));
+
+        scheduler.setSchedulingAgent(SchedulingStrategy.TIMER_DRIVEN, Mockito.mock(WorkAwareSchedulingAgent.class));
+        assertTrue(scheduler.isEventNotificationRequired(SchedulingStrategy.TIMER_DRIVEN));
+    }
+
 
     public static class FailingService extends AbstractControllerService {
 
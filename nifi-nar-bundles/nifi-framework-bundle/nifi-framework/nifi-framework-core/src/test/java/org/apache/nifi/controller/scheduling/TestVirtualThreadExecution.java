@@ -0,0 +1,297 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.controller.scheduling;
+
+import org.apache.nifi.components.state.StateManagerProvider;
+import org.apache.nifi.connectable.Connectable;
+import org.apache.nifi.connectable.ConnectableType;
+import org.apache.nifi.controller.FlowController;
+import org.apache.nifi.controller.ProcessorNode;
+import org.apache.nifi.controller.ScheduledState;
+import org.apache.nifi.controller.repository.FlowFileEventRepository;
+import org.apache.nifi.controller.repository.RepositoryContext;
+import org.apache.nifi.controller.repository.StandardRepositoryContext;
+import org.apache.nifi.engine.FlowEngine;
+import org.apache.nifi.groups.ProcessGroup;
+import org.apache.nifi.nar.ExtensionManager;
+import org.apache.nifi.processor.Processor;
+import org.apache.nifi.util.NiFiProperties;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.mockito.Mockito;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BooleanSupplier;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+@Timeout(10)
+public class TestVirtualThreadExecution {
+    private static final String PROCESSOR_TYPE = "InvokeHTTP";
+
+    private FlowEngine flowEngine;
+    private ProcessorNode procNode;
+    private LifecycleState scheduleState;
+    private final Set<Thread> triggeringThreads = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger activeTriggers = new AtomicInteger(0);
+    private final AtomicInteger maxActiveTriggers = new AtomicInteger(0);
+    private volatile CountDownLatch triggerLatch = new CountDownLatch(0);
+
+    @BeforeEach
+    public void setup() {
+        flowEngine = new FlowEngine(1, "Virtual Thread Test", true);
+
+        procNode = Mockito.mock(ProcessorNode.class);
+        when(procNode.getIdentifier()).thenReturn("1234");
+        when(procNode.getComponentType()).thenReturn(PROCESSOR_TYPE);
+        when(procNode.getCanonicalClassName()).thenReturn("org.apache.nifi.processors.standard." + PROCESSOR_TYPE);
+        when(procNode.getConnectableType()).thenReturn(ConnectableType.PROCESSOR);
+        when(procNode.getRunnableComponent()).thenReturn(Mockito.mock(Processor.class));
+        when(procNode.getScheduledState()).thenReturn(ScheduledState.RUNNING);
+        when(procNode.getMaxConcurrentTasks()).thenReturn(3);
+        when(procNode.getSchedulingPeriod(any(TimeUnit.class))).thenAnswer(invocation -> ((TimeUnit) invocation.getArgument(0)).convert(1L, TimeUnit.MILLISECONDS));
+        when(procNode.getIncomingConnections()).thenReturn(Collections.emptyList());
+        Mockito.doAnswer(invocation -> {
+            triggeringThreads.add(Thread.currentThread());
+            final int active = activeTriggers.incrementAndGet();
+            maxActiveTriggers.accumulateAndGet(active, Math::max);
+            try {
+                triggerLatch.await();
+            } finally {
+                activeTriggers.decrementAndGet();
+            }
+            return null;
+        }).when(procNode).onTrigger(any(), any());
+
+        scheduleState = new LifecycleState();
+        scheduleState.setScheduled(true);
+    }
+
+    @AfterEach
+    public void cleanup() {
+        flowEngine.shutdownNow();
+    }
+
+    @Test
+    public void testEligibility() {
+        final VirtualThreadExecution execution = createExecution(PROCESSOR_TYPE);
+        assertTrue(execution.isEligible(procNode));
+        assertTrue(createExecution("org.apache.nifi.processors.standard." + PROCESSOR_TYPE).isEligible(procNode));
+        assertFalse(createExecution("GenerateFlowFile").isEligible(procNode));
+    }
+
+    @Test
+    public void testDisabledByDefault() {
+        assertNull(VirtualThreadExecution.create(NiFiProperties.createBasicNiFiProperties(null, Collections.emptyMap())));
+    }
+
+    @Test
+    public void testConcurrentTasksRunOnOwnThreads() throws InterruptedException {
+        triggerLatch = new CountDownLatch(1);
+
+        final VirtualThreadExecution execution = createExecution(PROCESSOR_TYPE);
+        final TimerDrivenSchedulingAgent agent = createAgent(execution);
+        agent.doSchedule(procNode, scheduleState);
+
+        // Each Concurrent Task blocks in its own thread, and no more than Concurrent Tasks threads trigger the processor at once
+        waitFor(() -> activeTriggers.get() == 3);
+        Thread.sleep(50L);
+        assertEquals(3, maxActiveTriggers.get());
+        assertTrue(scheduleState.getFutures().isEmpty());
+        for (final Thread thread : triggeringThreads) {
+            assertTrue(thread.getName().startsWith(VirtualThreadExecution.getThreadNamePrefix(procNode)));
+            assertEquals("1234", VirtualThreadExecution.getComponentId(thread.getName()));
+        }
+
+        final List<String> diagnostics = execution.getDiagnostics();
+        assertTrue(diagnostics.stream().anyMatch(line -> line.contains("Concurrent Tasks: 3, Live Virtual Threads: 3")), diagnostics.toString());
+
+        triggerLatch.countDown();
+        scheduleState.setScheduled(false);
+        agent.doUnschedule(procNode, scheduleState);
+        assertFalse(execution.isRunning(scheduleState));
+
+        for (final Thread thread : triggeringThreads) {
+            thread.join();
+        }
+    }
+
+    @Test
+    public void testUnscheduleWakesWaitingThreads() throws InterruptedException {
+        // Once triggered, yield the processor for a long time so that its threads are waiting when it is unscheduled
+        when(procNode.getYieldExpiration()).thenAnswer(invocation -> triggeringThreads.contains(Thread.currentThread())
+            ? System.currentTimeMillis() + TimeUnit.HOURS.toMillis(1L) : 0L);
+
+        final TimerDrivenSchedulingAgent agent = createAgent(createExecution(PROCESSOR_TYPE));
+        agent.doSchedule(procNode, scheduleState);
+        waitFor(() -> triggeringThreads.size() == 3);
+
+        scheduleState.setScheduled(false);
+        agent.doUnschedule(procNode, scheduleState);
+        for (final Thread thread : triggeringThreads) {
+            thread.join();
+        }
+    }
+
+    @Test
+    public void testRestartWhileTriggeringStopsPreviousThreads() throws InterruptedException {
+        triggerLatch = new CountDownLatch(1);
+
+        final VirtualThreadExecution execution = createExecution(PROCESSOR_TYPE);
+        final TimerDrivenSchedulingAgent agent = createAgent(execution);
+        agent.doSchedule(procNode, scheduleState);
+        waitFor(() -> activeTriggers.get() == 3);
+        final Set<Thread> firstThreads = new HashSet<>(triggeringThreads);
+
+        // Stop and restart the processor, reusing its schedule state, while the first threads are still triggering it
+        scheduleState.setScheduled(false);
+        agent.doUnschedule(procNode, scheduleState);
+        scheduleState.setScheduled(true);
+        agent.doSchedule(procNode, scheduleState);
+        waitFor(() -> activeTriggers.get() == 6);
+
+        // Once their invocations complete, the threads of the first start must stop rather than continue alongside those of the second start
+        triggerLatch.countDown();
+        for (final Thread thread : firstThreads) {
+            thread.join();
+        }
+
+        final List<String> diagnostics = execution.getDiagnostics();
+        assertTrue(diagnostics.stream().anyMatch(line -> line.contains("Concurrent Tasks: 3, Live Virtual Threads: 3")), diagnostics.toString());
+
+        scheduleState.setScheduled(false);
+        agent.doUnschedule(procNode, scheduleState);
+        for (final Thread thread : triggeringThreads) {
+            thread.join();
+        }
+    }
+
+    @Test
+    public void testComponentInSchedulingPoolRunsOnPoolThreads() throws InterruptedException {
+        final ProcessGroup group = Mockito.mock(ProcessGroup.class);
+        when(group.getIdentifier()).thenReturn("tenant-group");
+        when(procNode.getProcessGroup()).thenReturn(group);
+
+        final SchedulingPool pool = new SchedulingPool("tenant", 1, 0D, Collections.singleton("tenant-group"));
+        final SchedulingPools pools = new SchedulingPools(Collections.singletonList(pool));
+        try {
+            final VirtualThreadExecution execution = createExecution(PROCESSOR_TYPE);
+            final TimerDrivenSchedulingAgent agent = createAgent(execution, pools);
+            agent.doSchedule(procNode, scheduleState);
+            waitFor(() -> !triggeringThreads.isEmpty());
+
+            // The processor is eligible for virtual threads, but its pool's single thread bounds it, so it must run on that thread only
+            assertFalse(execution.isRunning(scheduleState));
+            assertEquals(3, scheduleState.getFutures().size());
+            assertEquals(1, maxActiveTriggers.get());
+            for (final Thread thread : triggeringThreads) {
+                assertNull(VirtualThreadExecution.getComponentId(thread.getName()));
+            }
+
+            scheduleState.setScheduled(false);
+            agent.doUnschedule(procNode, scheduleState);
+        } finally {
+            pools.shutdown(true);
+        }
+    }
+
+    @Test
+    public void testPinnedStatistics() {
+        final PinnedThreadMonitor monitor = PinnedThreadMonitor.start(20L);
+        if (monitor == null) {
+            return;
+        }
+
+        try {
+            monitor.record("1234", 30L, "Processor.onTrigger:10");
+            monitor.record("1234", 50L, null);
+
+            final PinnedThreadMonitor.PinnedStatistics statistics = monitor.getStatistics().get("1234");
+            assertEquals(2L, statistics.getCount());
+            assertEquals(80L, statistics.getTotalMillis());
+            assertEquals(50L, statistics.getMaxMillis());
+            assertEquals("Processor.onTrigger:10", statistics.getLastStackTrace());
+        } finally {
+            monitor.close();
+        }
+    }
+
+    private VirtualThreadExecution createExecution(final String componentType) {
+        // Platform threads stand in for virtual threads, which are not available on all supported versions of Java
+        final Function<String, ThreadFactory> threadFactoryCreator = namePrefix -> {
+            final AtomicLong counter = new AtomicLong(0L);
+            return runnable -> {
+                final Thread thread = new Thread(runnable, namePrefix + counter.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            };
+        };
+
+        return new VirtualThreadExecution(Collections.singleton(componentType), threadFactoryCreator, null);
+    }
+
+    private TimerDrivenSchedulingAgent createAgent(final VirtualThreadExecution execution) {
+        return createAgent(execution, new SchedulingPools(Collections.emptyList()));
+    }
+
+    private TimerDrivenSchedulingAgent createAgent(final VirtualThreadExecution execution, final SchedulingPools schedulingPools) {
+        final FlowController flowController = Mockito.mock(FlowController.class);
+        when(flowController.getStateManagerProvider()).thenReturn(Mockito.mock(StateManagerProvider.class));
+        when(flowController.getExtensionManager()).thenReturn(Mockito.mock(ExtensionManager.class));
+
+        final RepositoryContext repoContext = Mockito.mock(StandardRepositoryContext.class);
+        when(repoContext.getFlowFileEventRepository()).thenReturn(Mockito.mock(FlowFileEventRepository.class));
+
+        final RepositoryContextFactory contextFactory = Mockito.mock(RepositoryContextFactory.class);
+        when(contextFactory.newProcessContext(any(Connectable.class), any(AtomicLong.class))).thenReturn(repoContext);
+
+        final Map<String, String> properties = new HashMap<>();
+        properties.put(NiFiProperties.BORED_YIELD_DURATION, "1 millis");
+        return new TimerDrivenSchedulingAgent(flowController, flowEngine, contextFactory, NiFiProperties.createBasicNiFiProperties(null, properties), execution,
+            schedulingPools);
+    }
+
+    private void waitFor(final BooleanSupplier condition) {
+        while (!condition.getAsBoolean()) {
+            try {
+                Thread.sleep(10L);
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+}
@@ -0,0 +1,182 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.controller.scheduling;
+
+import org.apache.nifi.components.state.StateManagerProvider;
+import org.apache.nifi.connectable.Connectable;
+import org.apache.nifi.connectable.ConnectableType;
+import org.apache.nifi.connectable.Connection;
+import org.apache.nifi.controller.FlowController;
+import org.apache.nifi.controller.ProcessorNode;
+import org.apache.nifi.controller.ScheduledState;
+import org.apache.nifi.controller.queue.FlowFileQueue;
+import org.apache.nifi.controller.repository.FlowFileEventRepository;
+import org.apache.nifi.controller.repository.RepositoryContext;
+import org.apache.nifi.controller.repository.StandardRepositoryContext;
+import org.apache.nifi.controller.status.FlowFileAvailability;
+import org.apache.nifi.engine.FlowEngine;
+import org.apache.nifi.nar.ExtensionManager;
+import org.apache.nifi.processor.Processor;
+import org.apache.nifi.util.NiFiProperties;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.mockito.Mockito;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+@Timeout(10)
+public class TestWorkAwareSchedulingAgent {
+    private FlowEngine flowEngine;
+    private ProcessorNode procNode;
+    private LifecycleState scheduleState;
+    private final AtomicReference<FlowFileAvailability> availability = new AtomicReference<>(FlowFileAvailability.ACTIVE_QUEUE_EMPTY);
+    private final AtomicInteger workChecks = new AtomicInteger(0);
+    private final AtomicInteger triggers = new AtomicInteger(0);
+
+    @BeforeEach
+    public void setup() {
+        flowEngine = new FlowEngine(2, "Work-Aware Scheduling Test", true);
+
+        procNode = Mockito.mock(ProcessorNode.class);
+        when(procNode.getIdentifier()).thenReturn("1234");
+        when(procNode.getConnectableType()).thenReturn(ConnectableType.PROCESSOR);
+        when(procNode.getRunnableComponent()).thenReturn(Mockito.mock(Processor.class));
+        when(procNode.getScheduledState()).thenReturn(ScheduledState.RUNNING);
+        when(procNode.getMaxConcurrentTasks()).thenReturn(1);
+        when(procNode.getSchedulingPeriod(any(TimeUnit.class))).thenAnswer(invocation -> ((TimeUnit) invocation.getArgument(0)).convert(1L, TimeUnit.MILLISECONDS));
+        when(procNode.hasIncomingConnection()).thenReturn(true);
+        Mockito.doAnswer(invocation -> triggers.incrementAndGet()).when(procNode).onTrigger(any(), any());
+
+        final FlowFileQueue queue = Mockito.mock(FlowFileQueue.class);
+        when(queue.getFlowFileAvailability()).thenAnswer(invocation -> {
+            workChecks.incrementAndGet();
+            return availability.get();
+        });
+
+        final Connection connection = Mockito.mock(Connection.class);
+        when(connection.getSource()).thenReturn(Mockito.mock(ProcessorNode.class));
+        when(connection.getDestination()).thenReturn(procNode);
+        when(connection.getFlowFileQueue()).thenReturn(queue);
+        when(procNode.getIncomingConnections()).thenReturn(Collections.singletonList(connection));
+
+        scheduleState = new LifecycleState();
+        scheduleState.setScheduled(true);
+    }
+
+    @AfterEach
+    public void cleanup() {
+        flowEngine.shutdownNow();
+    }
+
+    @Test
+    public void testParkedUntilFlowFilesEnqueued() throws InterruptedException {
+        final WorkAwareSchedulingAgent agent = createAgent("1 hour");
+        agent.doSchedule(procNode, scheduleState);
+        waitFor(() -> agent.getParkedTaskCount(procNode) == 1);
+
+        // While parked, the processor is not checked for work every bored yield
+        final int checksWhenParked = workChecks.get();
+        Thread.sleep(250L);
+        assertTrue(workChecks.get() - checksWhenParked <= 1, "Parked processor was checked for work " + (workChecks.get() - checksWhenParked) + " times");
+        assertEquals(0, triggers.get());
+
+        // Enqueuing a FlowFile wakes the processor immediately
+        availability.set(FlowFileAvailability.FLOWFILE_AVAILABLE);
+        agent.onEvent(procNode);
+        waitFor(() -> triggers.get() > 0);
+        assertEquals(0, agent.getParkedTaskCount(procNode));
+
+        // Once the queue is empty again, the processor is parked again
+        availability.set(FlowFileAvailability.ACTIVE_QUEUE_EMPTY);
+        waitFor(() -> agent.getParkedTaskCount(procNode) == 1);
+
+        scheduleState.setScheduled(false);
+        agent.doUnschedule(procNode, scheduleState);
+        assertEquals(0, agent.getParkedTaskCount(procNode));
+    }
+
+    @Test
+    public void testParkedProcessorCheckedEveryIdleCheckInterval() {
+        final WorkAwareSchedulingAgent agent = createAgent("50 millis");
+        agent.doSchedule(procNode, scheduleState);
+        waitFor(() -> agent.getParkedTaskCount(procNode) == 1);
+
+        // FlowFiles that become available without an event are found by the idle check, which also unparks the task
+        availability.set(FlowFileAvailability.FLOWFILE_AVAILABLE);
+        waitFor(() -> triggers.get() > 0);
+        assertEquals(0, agent.getParkedTaskCount(procNode));
+
+        scheduleState.setScheduled(false);
+        agent.doUnschedule(procNode, scheduleState);
+    }
+
+    @Test
+    public void testSourceProcessorNotParked() {
+        when(procNode.hasIncomingConnection()).thenReturn(false);
+        when(procNode.getIncomingConnections()).thenReturn(Collections.emptyList());
+
+        final WorkAwareSchedulingAgent agent = createAgent("1 hour");
+        agent.doSchedule(procNode, scheduleState);
+        waitFor(() -> triggers.get() > 5);
+        assertEquals(0, agent.getParkedTaskCount(procNode));
+
+        scheduleState.setScheduled(false);
+        agent.doUnschedule(procNode, scheduleState);
+    }
+
+    private WorkAwareSchedulingAgent createAgent(final String idleCheckInterval) {
+        final FlowController flowController = Mockito.mock(FlowController.class);
+        when(flowController.getStateManagerProvider()).thenReturn(Mockito.mock(StateManagerProvider.class));
+        when(flowController.getExtensionManager()).thenReturn(Mockito.mock(ExtensionManager.class));
+
+        final RepositoryContext repoContext = Mockito.mock(StandardRepositoryContext.class);
+        when(repoContext.getFlowFileEventRepository()).thenReturn(Mockito.mock(FlowFileEventRepository.class));
+
+        final RepositoryContextFactory contextFactory = Mockito.mock(RepositoryContextFactory.class);
+        when(contextFactory.newProcessContext(any(Connectable.class), any(AtomicLong.class))).thenReturn(repoContext);
+
+        final Map<String, String> properties = new HashMap<>();
+        properties.put(NiFiProperties.BORED_YIELD_DURATION, "1 millis");
+        properties.put(NiFiProperties.WORK_AWARE_SCHEDULING_IDLE_CHECK_INTERVAL, idleCheckInterval);
+        return new WorkAwareSchedulingAgent(flowController, flowEngine, contextFactory, NiFiProperties.createBasicNiFiProperties(null, properties));
+    }
+
+    private void waitFor(final BooleanSupplier condition) {
+        while (!condition.getAsBoolean()) {
+            try {
+                Thread.sleep(10L);
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+}
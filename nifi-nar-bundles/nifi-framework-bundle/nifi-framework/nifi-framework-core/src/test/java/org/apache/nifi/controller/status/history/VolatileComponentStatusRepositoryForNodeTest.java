@@ -17,12 +17,14 @@
 package org.apache.nifi.controller.status.history;
 
 import org.apache.nifi.controller.status.NodeStatus;
+import org.apache.nifi.controller.status.SchedulingPoolStatus;
 import org.apache.nifi.controller.status.StorageStatus;
 import org.apache.nifi.util.NiFiProperties;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
 
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.Date;
 import java.util.List;
 import java.util.Set;
@@ -130,6 +132,50 @@ public class VolatileComponentStatusRepositoryForNodeTest extends AbstractStatus
         assertEquals(3L, getMetricAtOrdinal(snapshot2, g1CountDiffOrdinal));
     }
 
+    @Test
+    public void testSchedulingPoolStatusHistory() {
+        final NiFiProperties niFiProperties = Mockito.mock(NiFiProperties.class);
+        Mockito.when(niFiProperties.getIntegerProperty(VolatileComponentStatusRepository.NUM_DATA_POINTS_PROPERTY, VolatileComponentStatusRepository.DEFAULT_NUM_DATA_POINTS)).thenReturn(10);
+        final VolatileComponentStatusRepository testSubject = new VolatileComponentStatusRepository(niFiProperties);
+
+        final Date capturedAt = new Date();
+        for (int i = 0; i < 2; i++) {
+            final SchedulingPoolStatus poolStatus = new SchedulingPoolStatus();
+            poolStatus.setName("tenant-a");
+            poolStatus.setMaxThreads(4);
+            poolStatus.setActiveThreads(1 + i);
+            poolStatus.setCpuTimeMillis(1000L + i);
+            poolStatus.setCpuUtilization(50L + i);
+            poolStatus.setThrottledInvocations(3L + i);
+
+            final NodeStatus nodeStatus = givenNodeStatus(i);
+            nodeStatus.setSchedulingPools(Collections.singletonList(poolStatus));
+            testSubject.capture(nodeStatus, givenSimpleRootProcessGroupStatus(), givenGarbageCollectionStatuses(capturedAt, 1, 100, 2, 300), capturedAt);
+        }
+
+        final StatusHistory result = testSubject.getNodeStatusHistory(new Date(0), new Date());
+        assertEquals(2, result.getStatusSnapshots().size());
+
+        for (int i = 0; i < result.getStatusSnapshots().size(); i++) {
+            final StatusSnapshot snapshot = result.getStatusSnapshots().get(i);
+            assertEquals(1L + i, getMetricByField(snapshot, "schedulingPool0ActiveThreads"));
+            assertEquals(1000L + i, getMetricByField(snapshot, "schedulingPool0CpuTime"));
+            assertEquals(50L + i, getMetricByField(snapshot, "schedulingPool0CpuUtilization"));
+            assertEquals(3L + i, getMetricByField(snapshot, "schedulingPool0ThrottledInvocations"));
+        }
+    }
+
+    private static long getMetricByField(final StatusSnapshot snapshot, final String field) {
+        for (final MetricDescriptor<?> metricDescriptor : snapshot.getMetricDescriptors()) {
+            if (metricDescriptor.getField().equals(field)) {
+                return snapshot.getStatusMetric(metricDescriptor);
+            }
+        }
+
+        fail();
+        return Long.MIN_VALUE;
+    }
+
     private static long getMetricAtOrdinal(final StatusSnapshot snapshot, final long ordinal) {
         final Set<MetricDescriptor<?>> metricDescriptors = snapshot.getMetricDescriptors();
 
@@ -0,0 +1,188 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.nifi.controller.swap;
+
+import org.apache.nifi.controller.queue.FlowFileQueue;
+import org.apache.nifi.controller.repository.FlowFileRecord;
+import org.apache.nifi.controller.repository.SwapContents;
+import org.apache.nifi.controller.repository.SwapSummary;
+import org.apache.nifi.controller.repository.claim.ContentClaim;
+import org.apache.nifi.controller.repository.claim.ResourceClaim;
+import org.apache.nifi.controller.repository.claim.ResourceClaimManager;
+import org.apache.nifi.controller.repository.claim.StandardResourceClaimManager;
+import org.apache.nifi.flowfile.FlowFile;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class TestColumnarSwapSerializerDeserializer {
+    private FlowFileQueue flowFileQueue;
+
+    @BeforeEach
+    public void setup() {
+        MockFlowFile.resetIdGenerator();
+
+        flowFileQueue = Mockito.mock(FlowFileQueue.class);
+        Mockito.when(flowFileQueue.getIdentifier()).thenReturn("87bb99fe-412c-49f6-a441-d1b0af4e20b4");
+    }
+
+    @Test
+    public void testRoundTripSerializeDeserializeSummary() throws IOException {
+        final ResourceClaimManager resourceClaimManager = new StandardResourceClaimManager();
+        final ContentClaim sharedClaim = MockFlowFile.createContentClaim("id", resourceClaimManager);
+
+        final List<FlowFileRecord> toSwap = new ArrayList<>(10000);
+        final Map<String, String> attrs = new HashMap<>();
+        long size = 0L;
+        for (int i = 0; i < 10000; i++) {
+            attrs.put("i", String.valueOf(i));
+            toSwap.add(i < 2 ? new MockFlowFile(attrs, i, sharedClaim) : new MockFlowFile(attrs, i, resourceClaimManager));
+            size += i;
+        }
+
+        final byte[] serialized = serialize(toSwap);
+
+        final SwapSummary swapSummary;
+        try (final DataInputStream in = new DataInputStream(new ByteArrayInputStream(serialized))) {
+            swapSummary = new ColumnarSwapDeserializer().getSwapSummary(in, "swap-location", resourceClaimManager);
+        }
+
+        assertEquals(10000, swapSummary.getQueueSize().getObjectCount());
+        assertEquals(size, swapSummary.getQueueSize().getByteCount());
+        assertEquals(9999, swapSummary.getMaxFlowFileId().intValue());
+
+        final List<ResourceClaim> resourceClaims = swapSummary.getResourceClaims();
+        assertEquals(10000, resourceClaims.size());
+        assertEquals(2, resourceClaims.stream().filter(claim -> claim.getId().equals("id")).count());
+
+        final Set<ResourceClaim> uniqueClaims = new HashSet<>(resourceClaims);
+        assertEquals(9999, uniqueClaims.size());
+
+        assertEquals((Long) toSwap.stream().mapToLong(FlowFile::getLastQueueDate).sum(), swapSummary.getTotalLastQueueDate());
+        assertEquals((Long) toSwap.stream().mapToLong(FlowFile::getLastQueueDate).min().getAsLong(), swapSummary.getMinLastQueueDate());
+    }
+
+    @Test
+    public void testRoundTripSerializeDeserializeFullSwapFile() throws IOException {
+        final ResourceClaimManager resourceClaimManager = new StandardResourceClaimManager();
+        final ContentClaim sharedClaim = MockFlowFile.createContentClaim("shared", resourceClaimManager);
+
+        final List<FlowFileRecord> toSwap = new ArrayList<>(10000);
+        final Map<String, String> attrs = new HashMap<>();
+        attrs.put("path", "./");
+        attrs.put("large", createLargeValue());
+        long size = 0L;
+        for (int i = 0; i < 10000; i++) {
+            attrs.put("i", String.valueOf(i));
+            final ContentClaim contentClaim = i % 3 == 0 ? null : sharedClaim;
+            toSwap.add(new MockFlowFile(attrs, i, contentClaim));
+            size += i;
+        }
+
+        final byte[] serialized = serialize(toSwap);
+
+        final SwapContents contents;
+        try (final DataInputStream in = new DataInputStream(new ByteArrayInputStream(serialized))) {
+            contents = new ColumnarSwapDeserializer().deserializeFlowFiles(in, "swap-location", flowFileQueue, resourceClaimManager);
+        }
+
+        final SwapSummary swapSummary = contents.getSummary();
+        assertEquals(10000, swapSummary.getQueueSize().getObjectCount());
+        assertEquals(size, swapSummary.getQueueSize().getByteCount());
+        assertEquals(9999, swapSummary.getMaxFlowFileId().intValue());
+        assertEquals(6666, swapSummary.getResourceClaims().size());
+
+        assertEquals(10000, contents.getFlowFiles().size());
+
+        int counter = 0;
+        for (final FlowFileRecord flowFile : contents.getFlowFiles()) {
+            final int i = counter;
+            final FlowFileRecord original = toSwap.get(counter++);
+
+            assertEquals(original.getId(), flowFile.getId());
+            assertEquals(original.getEntryDate(), flowFile.getEntryDate());
+            assertEquals(original.getLineageStartDate(), flowFile.getLineageStartDate());
+            assertEquals(original.getLastQueueDate(), flowFile.getLastQueueDate());
+            assertEquals(original.getQueueDateIndex(), flowFile.getQueueDateIndex());
+            assertEquals(i, flowFile.getSize());
+            assertEquals(original.getAttributes(), flowFile.getAttributes());
+
+            if (i % 3 == 0) {
+                assertNull(flowFile.getContentClaim());
+            } else {
+                assertSame(sharedClaim.getResourceClaim(), flowFile.getContentClaim().getResourceClaim());
+                assertEquals(sharedClaim.getOffset(), flowFile.getContentClaim().getOffset());
+                assertEquals(sharedClaim.getLength(), flowFile.getContentClaim().getLength());
+                assertEquals(original.getContentClaimOffset(), flowFile.getContentClaimOffset());
+            }
+        }
+
+        // The dictionary is shared, so FlowFiles with the same attribute value refer to the same String
+        assertSame(contents.getFlowFiles().get(0).getAttribute("large"), contents.getFlowFiles().get(1).getAttribute("large"));
+    }
+
+    @Test
+    public void testSmallerThanSchemaSerialization() throws IOException {
+        final ResourceClaimManager resourceClaimManager = new StandardResourceClaimManager();
+
+        final List<FlowFileRecord> toSwap = new ArrayList<>(10000);
+        final Map<String, String> attrs = new HashMap<>();
+        attrs.put("filename", "data.json");
+        attrs.put("mime.type", "application/json");
+        for (int i = 0; i < 10000; i++) {
+            attrs.put("i", String.valueOf(i));
+            toSwap.add(new MockFlowFile(attrs, i, resourceClaimManager));
+        }
+
+        final ByteArrayOutputStream schemaOut = new ByteArrayOutputStream();
+        new SchemaSwapSerializer().serializeFlowFiles(toSwap, flowFileQueue, "swap-location", schemaOut);
+
+        final byte[] columnar = serialize(toSwap);
+        assertTrue(columnar.length < schemaOut.size(), "Columnar swap file of " + columnar.length + " bytes was not smaller than Schema swap file of " + schemaOut.size() + " bytes");
+    }
+
+    private byte[] serialize(final List<FlowFileRecord> toSwap) throws IOException {
+        final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        new ColumnarSwapSerializer().serializeFlowFiles(toSwap, flowFileQueue, "swap-location", baos);
+        return baos.toByteArray();
+    }
+
+    private String createLargeValue() {
+        final StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 70_000; i++) {
+            sb.append((char) ('a' + i % 26));
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,150 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.controller.tasks;
+
+import org.apache.nifi.connectable.Connection;
+import org.apache.nifi.controller.ProcessorNode;
+import org.apache.nifi.controller.queue.FlowFileQueue;
+import org.apache.nifi.controller.queue.QueueSize;
+import org.apache.nifi.controller.repository.FlowFileEventRepository;
+import org.apache.nifi.controller.repository.metrics.StandardFlowFileEvent;
+import org.apache.nifi.groups.ProcessGroup;
+import org.apache.nifi.registry.ComponentVariableRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class TestRunDurationTuner {
+    private static final String PROCESSOR_ID = "processor-1";
+
+    private ProcessorNode procNode;
+    private FlowFileQueue queue;
+    private ComponentVariableRegistry variableRegistry;
+    private FlowFileEventRepository eventRepository;
+    private StandardFlowFileEvent event;
+
+    @BeforeEach
+    public void setup() {
+        procNode = mock(ProcessorNode.class, Mockito.CALLS_REAL_METHODS);
+        Mockito.doReturn(PROCESSOR_ID).when(procNode).getIdentifier();
+        Mockito.doReturn(0L).when(procNode).getRunDuration(TimeUnit.MILLISECONDS);
+        Mockito.doReturn(false).when(procNode).isTriggerWhenEmpty();
+
+        queue = mock(FlowFileQueue.class);
+        final Connection connection = mock(Connection.class);
+        when(connection.getFlowFileQueue()).thenReturn(queue);
+        Mockito.doReturn(Collections.singletonList(connection)).when(procNode).getIncomingConnections();
+
+        variableRegistry = mock(ComponentVariableRegistry.class);
+        final ProcessGroup group = mock(ProcessGroup.class);
+        when(group.getVariableRegistry()).thenReturn(variableRegistry);
+        Mockito.doReturn(group).when(procNode).getProcessGroup();
+
+        event = new StandardFlowFileEvent();
+        event.setInvocations(10000);
+        event.setProcessingNanos(TimeUnit.SECONDS.toNanos(1L));
+        eventRepository = mock(FlowFileEventRepository.class);
+        when(eventRepository.reportTransferEvents(eq(PROCESSOR_ID), anyLong())).thenReturn(event);
+    }
+
+    private void setQueued(final int count) {
+        when(queue.size()).thenReturn(new QueueSize(count, count * 10L));
+    }
+
+    @Test
+    public void testStartsFromConfiguredRunDuration() {
+        Mockito.doReturn(60L).when(procNode).getRunDuration(TimeUnit.MILLISECONDS);
+
+        final RunDurationTuner tuner = new RunDurationTuner(procNode, eventRepository, 100L);
+        assertEquals(50L, tuner.getRunDuration(TimeUnit.MILLISECONDS));
+        assertEquals(50L, procNode.getEffectiveRunDuration(TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    public void testStepsUpWithBacklogUntilBudget() {
+        setQueued(5000);
+
+        final RunDurationTuner tuner = new RunDurationTuner(procNode, eventRepository, 100L);
+        assertEquals(0L, tuner.getRunDuration(TimeUnit.MILLISECONDS));
+
+        tuner.tune();
+        assertEquals(25L, tuner.getRunDuration(TimeUnit.MILLISECONDS));
+        tuner.tune();
+        tuner.tune();
+        assertEquals(100L, tuner.getRunDuration(TimeUnit.MILLISECONDS));
+        assertEquals(100L, procNode.getTunedRunDuration(TimeUnit.MILLISECONDS));
+
+        tuner.tune();
+        assertEquals(100L, tuner.getRunDuration(TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    public void testStepsDownWhenBacklogCleared() {
+        Mockito.doReturn(250L).when(procNode).getRunDuration(TimeUnit.MILLISECONDS);
+        setQueued(0);
+
+        final RunDurationTuner tuner = new RunDurationTuner(procNode, eventRepository, 1000L);
+        assertEquals(250L, tuner.getRunDuration(TimeUnit.MILLISECONDS));
+
+        tuner.tune();
+        assertEquals(100L, tuner.getRunDuration(TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    public void testDoesNotStepUpWhenOverheadInsignificant() {
+        setQueued(5000);
+        event.setInvocations(10);
+        event.setSessionCommitNanos(TimeUnit.MILLISECONDS.toNanos(10L));
+
+        final RunDurationTuner tuner = new RunDurationTuner(procNode, eventRepository, 1000L);
+        tuner.tune();
+        assertEquals(0L, tuner.getRunDuration(TimeUnit.MILLISECONDS));
+
+        event.setSessionCommitNanos(TimeUnit.MILLISECONDS.toNanos(200L));
+        tuner.tune();
+        assertEquals(25L, tuner.getRunDuration(TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    public void testProcessGroupLatencyBudget() {
+        setQueued(5000);
+        when(variableRegistry.getVariableValue(RunDurationTuner.LATENCY_BUDGET_VARIABLE)).thenReturn("0 millis");
+
+        final RunDurationTuner tuner = new RunDurationTuner(procNode, eventRepository, 1000L);
+        tuner.tune();
+        assertEquals(0L, tuner.getRunDuration(TimeUnit.MILLISECONDS));
+
+        when(variableRegistry.getVariableValue(RunDurationTuner.LATENCY_BUDGET_VARIABLE)).thenReturn("60 millis");
+        for (int i = 0; i < 5; i++) {
+            tuner.tune();
+        }
+        assertEquals(50L, tuner.getRunDuration(TimeUnit.MILLISECONDS));
+
+        when(variableRegistry.getVariableValue(RunDurationTuner.LATENCY_BUDGET_VARIABLE)).thenReturn("not a duration");
+        tuner.tune();
+        assertEquals(100L, tuner.getRunDuration(TimeUnit.MILLISECONDS));
+    }
+}
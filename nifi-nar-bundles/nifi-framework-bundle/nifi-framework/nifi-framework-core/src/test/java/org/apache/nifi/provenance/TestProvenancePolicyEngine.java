@@ -0,0 +1,170 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.nifi.provenance;
+
+import org.apache.nifi.connectable.Connectable;
+import org.apache.nifi.groups.ProcessGroup;
+import org.apache.nifi.util.NiFiProperties;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class TestProvenancePolicyEngine {
+
+    @Test
+    public void testParse() {
+        assertEquals(ProvenancePolicy.INDEX, ProvenancePolicy.parse("index"));
+        assertEquals(ProvenancePolicy.STORE, ProvenancePolicy.parse(" STORE "));
+        assertEquals(ProvenancePolicy.DROP, ProvenancePolicy.parse("Drop"));
+        assertEquals(ProvenancePolicy.sample(10), ProvenancePolicy.parse("sample:10"));
+        assertEquals(ProvenancePolicy.INDEX, ProvenancePolicy.parse("sample:1"));
+
+        assertThrows(IllegalArgumentException.class, () -> ProvenancePolicy.parse("sample:0"));
+        assertThrows(IllegalArgumentException.class, () -> ProvenancePolicy.parse("sample:abc"));
+        assertThrows(IllegalArgumentException.class, () -> ProvenancePolicy.parse("ignore"));
+    }
+
+    @Test
+    public void testNoPoliciesConfigured() {
+        final ProvenancePolicyEngine engine = ProvenancePolicyEngine.create(createProperties(new HashMap<>()));
+        assertSame(ProvenancePolicyEngine.INDEX_ALL, engine);
+
+        final ProvenanceRepository repository = mock(ProvenanceRepository.class);
+        assertSame(repository, engine.wrap(repository, mock(Connectable.class)));
+    }
+
+    @Test
+    public void testInvalidPolicy() {
+        final Map<String, String> properties = new HashMap<>();
+        properties.put(ProvenancePolicyEngine.COMPONENT_TYPE_POLICY_PREFIX + "LogAttribute", "sometimes");
+        assertThrows(IllegalArgumentException.class, () -> ProvenancePolicyEngine.create(createProperties(properties)));
+    }
+
+    @Test
+    public void testPolicyPrecedence() {
+        final Map<String, String> properties = new HashMap<>();
+        properties.put(ProvenancePolicyEngine.DEFAULT_POLICY, "store");
+        properties.put(ProvenancePolicyEngine.COMPONENT_TYPE_POLICY_PREFIX + "LogAttribute", "drop");
+        properties.put(ProvenancePolicyEngine.PROCESS_GROUP_POLICY_PREFIX + "parent", "sample:4");
+        final ProvenancePolicyEngine engine = ProvenancePolicyEngine.create(createProperties(properties));
+        assertFalse(engine.isIndexAll());
+
+        final ProcessGroup root = createGroup("root", null);
+        final ProcessGroup parent = createGroup("parent", root);
+        final ProcessGroup child = createGroup("child", parent);
+
+        assertEquals(ProvenancePolicy.STORE, engine.getPolicy(createConnectable("UpdateAttribute", root)));
+        assertEquals(ProvenancePolicy.DROP, engine.getPolicy(createConnectable("LogAttribute", root)));
+        assertEquals(ProvenancePolicy.sample(4), engine.getPolicy(createConnectable("LogAttribute", child)));
+        assertEquals(ProvenancePolicy.sample(4), engine.getPolicy(createConnectable("UpdateAttribute", parent)));
+    }
+
+    @Test
+    public void testPolicyEnforced() {
+        final ProvenanceRepository repository = mock(ProvenanceRepository.class);
+        final List<ProvenanceEventRecord> events = createEvents(100);
+
+        new PolicyEnforcingProvenanceEventRepository(repository, () -> ProvenancePolicy.DROP).registerEvents(events);
+        verify(repository, never()).registerEvents(any());
+        verify(repository, never()).registerUnindexedEvents(any());
+
+        new PolicyEnforcingProvenanceEventRepository(repository, () -> ProvenancePolicy.STORE).registerEvents(events);
+        verify(repository).registerUnindexedEvents(events);
+        verify(repository, never()).registerEvents(any());
+
+        new PolicyEnforcingProvenanceEventRepository(repository, () -> ProvenancePolicy.INDEX).registerEvent(events.get(0));
+        verify(repository).registerEvents(any());
+    }
+
+    @Test
+    public void testSampledByFlowFile() {
+        final ProvenanceRepository repository = mock(ProvenanceRepository.class);
+        final ProvenancePolicy policy = ProvenancePolicy.sample(4);
+
+        // Two events for each FlowFile; both events for a FlowFile must be either retained or dropped
+        final List<ProvenanceEventRecord> events = new ArrayList<>();
+        for (final ProvenanceEventRecord event : createEvents(1000)) {
+            events.add(event);
+            events.add(createEvent(event.getFlowFileUuid()));
+        }
+
+        new PolicyEnforcingProvenanceEventRepository(repository, () -> policy).registerEvents(events);
+
+        @SuppressWarnings("unchecked")
+        final ArgumentCaptor<Iterable<ProvenanceEventRecord>> captor = ArgumentCaptor.forClass(Iterable.class);
+        verify(repository).registerEvents(captor.capture());
+
+        final List<ProvenanceEventRecord> registered = new ArrayList<>();
+        captor.getValue().forEach(registered::add);
+
+        assertTrue(registered.size() > 300 && registered.size() < 700, "Expected roughly one in four FlowFiles to be retained but retained " + registered.size() + " events");
+        assertEquals(0, registered.size() % 2);
+        for (int i = 0; i < registered.size(); i += 2) {
+            assertEquals(registered.get(i).getFlowFileUuid(), registered.get(i + 1).getFlowFileUuid());
+        }
+    }
+
+    private NiFiProperties createProperties(final Map<String, String> properties) {
+        return NiFiProperties.createBasicNiFiProperties(null, properties);
+    }
+
+    private ProcessGroup createGroup(final String id, final ProcessGroup parent) {
+        final ProcessGroup group = mock(ProcessGroup.class);
+        when(group.getIdentifier()).thenReturn(id);
+        when(group.getParent()).thenReturn(parent);
+        return group;
+    }
+
+    private Connectable createConnectable(final String type, final ProcessGroup group) {
+        final Connectable connectable = mock(Connectable.class);
+        when(connectable.getComponentType()).thenReturn(type);
+        when(connectable.getProcessGroup()).thenReturn(group);
+        return connectable;
+    }
+
+    private List<ProvenanceEventRecord> createEvents(final int count) {
+        final List<ProvenanceEventRecord> events = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            events.add(createEvent(UUID.randomUUID().toString()));
+        }
+
+        return events;
+    }
+
+    private ProvenanceEventRecord createEvent(final String flowFileUuid) {
+        final ProvenanceEventRecord event = mock(ProvenanceEventRecord.class);
+        when(event.getFlowFileUuid()).thenReturn(flowFileUuid);
+        return event;
+    }
+}
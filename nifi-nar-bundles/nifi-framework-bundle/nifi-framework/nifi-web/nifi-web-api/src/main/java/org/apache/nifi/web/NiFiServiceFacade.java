@@ -32,6 +32,7 @@ import org.apache.nifi.parameter.ParameterContext;
 import org.apache.nifi.flow.ExternalControllerServiceReference;
 import org.apache.nifi.flow.ParameterProviderReference;
 import org.apache.nifi.parameter.ParameterGroupConfiguration;
+import org.apache.nifi.provenance.ProvenanceRollupQuery;
 import org.apache.nifi.registry.flow.RegisteredFlow;
 import org.apache.nifi.registry.flow.RegisteredFlowSnapshot;
 import org.apache.nifi.flow.VersionedParameterContext;
@@ -82,6 +83,9 @@ import org.apache.nifi.web.api.dto.action.HistoryQueryDTO;
 import org.apache.nifi.web.api.dto.provenance.ProvenanceDTO;
 import org.apache.nifi.web.api.dto.provenance.ProvenanceEventDTO;
 import org.apache.nifi.web.api.dto.provenance.ProvenanceOptionsDTO;
+import org.apache.nifi.web.api.dto.provenance.ProvenancePageDTO;
+import org.apache.nifi.web.api.dto.provenance.ProvenanceRollupsDTO;
+import org.apache.nifi.web.api.dto.provenance.ProvenanceRequestDTO;
 import org.apache.nifi.web.api.dto.provenance.lineage.LineageDTO;
 import org.apache.nifi.web.api.dto.search.SearchResultsDTO;
 import org.apache.nifi.web.api.dto.status.ControllerStatusDTO;
@@ -265,6 +269,29 @@ public interface NiFiServiceFacade {
      */
     ProvenanceDTO getProvenance(String queryId, Boolean summarize, Boolean incrementalResults);
 
+    /**
+     * Retrieves a single page of the provenance events that match the given request, newest first.
+     *
+     * @param request the provenance request
+     * @param continuationToken the token returned with the previous page, or null for the first page
+     * @param pageSize the maximum number of events to return
+     * @param summarize whether to summarize the event dtos
+     * @return the page of events
+     */
+    ProvenancePageDTO getProvenancePage(ProvenanceRequestDTO request, String continuationToken, int pageSize, boolean summarize);
+
+    /**
+     * Retrieves the rollups of provenance events into fixed time buckets.
+     *
+     * @param granularity the size of the time buckets
+     * @param startDate the earliest time to retrieve rollups for
+     * @param endDate the latest time to retrieve rollups for
+     * @param componentId the id of the component to retrieve rollups for, or null for all components
+     * @param eventType the type of event to retrieve rollups for, or null for all event types
+     * @return the rollups
+     */
+    ProvenanceRollupsDTO getProvenanceRollups(ProvenanceRollupQuery.Granularity granularity, Date startDate, Date endDate, String componentId, String eventType);
+
     /**
      * Deletes provenance.
      *
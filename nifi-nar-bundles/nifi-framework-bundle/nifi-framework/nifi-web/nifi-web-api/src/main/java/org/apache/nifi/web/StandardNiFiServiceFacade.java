@@ -137,6 +137,7 @@ import org.apache.nifi.prometheus.util.ConnectionAnalyticsMetricsRegistry;
 import org.apache.nifi.prometheus.util.JvmMetricsRegistry;
 import org.apache.nifi.prometheus.util.NiFiMetricsRegistry;
 import org.apache.nifi.prometheus.util.PrometheusMetricsUtil;
+import org.apache.nifi.provenance.ProvenanceRollupQuery;
 import org.apache.nifi.registry.ComponentVariableRegistry;
 import org.apache.nifi.registry.flow.FlowRegistryBucket;
 import org.apache.nifi.registry.flow.FlowRegistryClientContextFactory;
@@ -253,6 +254,9 @@ import org.apache.nifi.web.api.dto.flow.FlowDTO;
 import org.apache.nifi.web.api.dto.provenance.ProvenanceDTO;
 import org.apache.nifi.web.api.dto.provenance.ProvenanceEventDTO;
 import org.apache.nifi.web.api.dto.provenance.ProvenanceOptionsDTO;
+import org.apache.nifi.web.api.dto.provenance.ProvenancePageDTO;
+import org.apache.nifi.web.api.dto.provenance.ProvenanceRollupsDTO;
+import org.apache.nifi.web.api.dto.provenance.ProvenanceRequestDTO;
 import org.apache.nifi.web.api.dto.provenance.lineage.LineageDTO;
 import org.apache.nifi.web.api.dto.search.SearchResultsDTO;
 import org.apache.nifi.web.api.dto.status.ConnectionStatisticsDTO;
@@ -3531,6 +3535,17 @@ public class StandardNiFiServiceFacade implements NiFiServiceFacade {
         return controllerFacade.submitProvenance(query);
     }
 
+    @Override
+    public ProvenancePageDTO getProvenancePage(final ProvenanceRequestDTO request, final String continuationToken, final int pageSize, final boolean summarize) {
+        return controllerFacade.getProvenancePage(request, continuationToken, pageSize, summarize);
+    }
+
+    @Override
+    public ProvenanceRollupsDTO getProvenanceRollups(final ProvenanceRollupQuery.Granularity granularity, final Date startDate, final Date endDate,
+                                                     final String componentId, final String eventType) {
+        return controllerFacade.getProvenanceRollups(granularity, startDate, endDate, componentId, eventType);
+    }
+
     @Override
     public void deleteProvenance(final String queryId) {
         controllerFacade.deleteProvenanceQuery(queryId);
@@ -26,9 +26,14 @@ import org.apache.nifi.authorization.Authorizer;
 import org.apache.nifi.authorization.RequestAction;
 import org.apache.nifi.authorization.resource.Authorizable;
 import org.apache.nifi.authorization.user.NiFiUserUtils;
+import org.apache.nifi.cluster.coordination.http.endpoints.ProvenancePageEndpointMerger;
+import org.apache.nifi.provenance.ProvenanceRollupQuery;
 import org.apache.nifi.web.NiFiServiceFacade;
 import org.apache.nifi.web.api.dto.provenance.ProvenanceDTO;
 import org.apache.nifi.web.api.dto.provenance.ProvenanceOptionsDTO;
+import org.apache.nifi.web.api.dto.provenance.ProvenancePageDTO;
+import org.apache.nifi.web.api.dto.provenance.ProvenanceRequestDTO;
+import org.apache.nifi.web.api.dto.provenance.ProvenanceRollupsDTO;
 import org.apache.nifi.web.api.dto.provenance.lineage.LineageDTO;
 import org.apache.nifi.web.api.dto.provenance.lineage.LineageRequestDTO;
 import org.apache.nifi.web.api.dto.provenance.lineage.LineageResultsDTO;
@@ -36,6 +41,9 @@ import org.apache.nifi.web.api.entity.ComponentEntity;
 import org.apache.nifi.web.api.entity.LineageEntity;
 import org.apache.nifi.web.api.entity.ProvenanceEntity;
 import org.apache.nifi.web.api.entity.ProvenanceOptionsEntity;
+import org.apache.nifi.web.api.entity.ProvenancePageEntity;
+import org.apache.nifi.web.api.entity.ProvenanceRollupsEntity;
+import org.apache.nifi.web.api.request.DateTimeParameter;
 
 import javax.servlet.http.HttpServletRequest;
 import javax.ws.rs.Consumes;
@@ -52,6 +60,8 @@ import javax.ws.rs.core.Context;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
 import java.net.URI;
+import java.util.ArrayList;
+import java.util.Date;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -243,6 +253,240 @@ public class ProvenanceResource extends ApplicationResource {
         );
     }
 
+    /**
+     * Retrieves a single page of the provenance events that match the specified query criteria.
+     *
+     * @param httpServletRequest request
+     * @param continuationToken the token returned with the previous page, if any
+     * @param pageSize the maximum number of events to return
+     * @param summarize whether to summarize the events
+     * @param requestProvenanceEntity A provenanceEntity
+     * @return A provenancePageEntity
+     */
+    @POST
+    @Consumes(MediaType.APPLICATION_JSON)
+    @Produces(MediaType.APPLICATION_JSON)
+    @Path("page")
+    @ApiOperation(
+            value = "Gets a page of provenance events",
+            notes = "Synchronously retrieves a page of the provenance events that match the query, newest first. Unlike a submitted provenance "
+                    + "query, no state is held on the server between requests. If more events are available, the response will include a "
+                    + "continuation token that can be provided with the same query in order to get the next page. Events that are added after "
+                    + "the first page is retrieved are not included in subsequent pages. The maximum number of results of the query is ignored.",
+            response = ProvenancePageEntity.class,
+            authorizations = {
+                    @Authorization(value = "Read - /provenance"),
+                    @Authorization(value = "Read - /data/{component-type}/{uuid}")
+            }
+    )
+    @ApiResponses(
+            value = {
+                    @ApiResponse(code = 400, message = "NiFi was unable to complete the request because it was invalid. The request should not be retried without modification."),
+                    @ApiResponse(code = 401, message = "Client could not be authenticated."),
+                    @ApiResponse(code = 403, message = "Client is not authorized to make this request."),
+                    @ApiResponse(code = 409, message = "The request was valid but NiFi was not in the appropriate state to process it. Retrying the same request later may be successful.")
+            }
+    )
+    public Response getProvenancePage(
+            @Context final HttpServletRequest httpServletRequest,
+            @ApiParam(
+                    value = "The continuation token returned with the previous page. If not specified, the first page is returned.",
+                    required = false
+            )
+            @QueryParam(ProvenancePageEndpointMerger.CONTINUATION_TOKEN_PARAM) final String continuationToken,
+            @ApiParam(
+                    value = "The maximum number of provenance events to return.",
+                    required = false
+            )
+            @QueryParam(ProvenancePageEndpointMerger.PAGE_SIZE_PARAM) @DefaultValue(value = "100") final Integer pageSize,
+            @ApiParam(
+                    value = "Whether or not to summarize provenance events returned. This property is false by default.",
+                    required = false
+            )
+            @QueryParam("summarize") @DefaultValue(value = "false") final Boolean summarize,
+            @ApiParam(
+                    value = "The provenance query details.",
+                    required = true
+            ) ProvenanceEntity requestProvenanceEntity) {
+
+        if (pageSize == null || pageSize < 1) {
+            throw new IllegalArgumentException("The page size must be a positive integer.");
+        }
+
+        // check the request
+        if (requestProvenanceEntity == null) {
+            requestProvenanceEntity = new ProvenanceEntity();
+        }
+        if (requestProvenanceEntity.getProvenance() == null) {
+            requestProvenanceEntity.setProvenance(new ProvenanceDTO());
+        }
+
+        final ProvenanceRequestDTO requestDto = requestProvenanceEntity.getProvenance().getRequest();
+
+        // replicate if cluster manager, retaining the query parameters so that each node is able to find where it left off
+        if (isReplicateRequest()) {
+            // change content type to JSON for serializing entity
+            final Map<String, String> headersToOverride = new HashMap<>();
+            headersToOverride.put("content-type", MediaType.APPLICATION_JSON);
+
+            // determine where this request should be sent
+            if (requestDto == null || requestDto.getClusterNodeId() == null) {
+                // replicate to all nodes
+                try {
+                    return replicateNodeResponse(getRequestUri(), HttpMethod.POST, requestProvenanceEntity, headersToOverride).getResponse();
+                } catch (final InterruptedException ie) {
+                    return Response.status(Response.Status.INTERNAL_SERVER_ERROR).entity("Request to " + HttpMethod.POST + " " + getRequestUri() + " was interrupted")
+                            .type("text/plain").build();
+                }
+            } else {
+                return replicate(getRequestUri(), HttpMethod.POST, requestProvenanceEntity, requestDto.getClusterNodeId(), headersToOverride);
+            }
+        }
+
+        return withWriteLock(
+                serviceFacade,
+                requestProvenanceEntity,
+                lookup -> authorizeProvenanceRequest(),
+                null,
+                (provenanceEntity) -> {
+                    // when clustered, the continuation token holds the position of each node
+                    final String nodeContinuationToken;
+                    if (isConnectedToCluster()) {
+                        nodeContinuationToken = ProvenancePageEndpointMerger.getNodeContinuationToken(continuationToken, getClusterCoordinator().getLocalNodeIdentifier().getId());
+                    } else {
+                        nodeContinuationToken = continuationToken;
+                    }
+
+                    final ProvenancePageDTO dto;
+                    if (ProvenancePageEndpointMerger.EXHAUSTED.equals(nodeContinuationToken)) {
+                        // this node has no further events for the query
+                        dto = new ProvenancePageDTO();
+                        dto.setProvenanceEvents(new ArrayList<>());
+                    } else {
+                        dto = serviceFacade.getProvenancePage(provenanceEntity.getProvenance().getRequest(), nodeContinuationToken, pageSize, Boolean.TRUE.equals(summarize));
+                    }
+
+                    // create the response entity
+                    final ProvenancePageEntity entity = new ProvenancePageEntity();
+                    entity.setPage(dto);
+
+                    // generate the response
+                    return generateOkResponse(entity).build();
+                }
+        );
+    }
+
+    /**
+     * Gets the rollups of provenance events into fixed time buckets.
+     *
+     * @param granularity the size of the time buckets
+     * @param startDate the earliest time to get rollups for
+     * @param endDate the latest time to get rollups for
+     * @param componentId the id of the component to get rollups for
+     * @param eventType the type of event to get rollups for
+     * @param clusterNodeId the id of the node to get rollups from
+     * @return A provenanceRollupsEntity
+     */
+    @GET
+    @Consumes(MediaType.WILDCARD)
+    @Produces(MediaType.APPLICATION_JSON)
+    @Path("rollups")
+    @ApiOperation(
+            value = "Gets rollups of provenance events",
+            notes = "Gets the number of provenance events, and the total size of the flowfiles that they referenced, for each component, event type, and destination "
+                    + "in fixed time buckets of one minute or one hour. Rollups are maintained as events are stored, so they are retrieved without searching the events "
+                    + "and remain available after the events have been aged off. Rollups for components whose provenance data the user is not authorized to access are "
+                    + "not returned.",
+            response = ProvenanceRollupsEntity.class,
+            authorizations = {
+                    @Authorization(value = "Read - /provenance"),
+                    @Authorization(value = "Read - /data/{component-type}/{uuid}")
+            }
+    )
+    @ApiResponses(
+            value = {
+                    @ApiResponse(code = 400, message = "NiFi was unable to complete the request because it was invalid. The request should not be retried without modification."),
+                    @ApiResponse(code = 401, message = "Client could not be authenticated."),
+                    @ApiResponse(code = 403, message = "Client is not authorized to make this request."),
+                    @ApiResponse(code = 409, message = "The request was valid but NiFi was not in the appropriate state to process it. Retrying the same request later may be successful.")
+            }
+    )
+    public Response getProvenanceRollups(
+            @ApiParam(
+                    value = "The size of the time buckets.",
+                    allowableValues = "MINUTE, HOUR",
+                    required = false
+            )
+            @QueryParam("granularity") @DefaultValue(value = "HOUR") final String granularity,
+            @ApiParam(
+                    value = "The earliest time to get rollups for, in the format MM/dd/yyyy HH:mm:ss. Defaults to 24 hours before the end date for hourly rollups "
+                            + "and to 1 hour before the end date for rollups by the minute.",
+                    required = false
+            )
+            @QueryParam("startDate") final DateTimeParameter startDate,
+            @ApiParam(
+                    value = "The latest time to get rollups for, in the format MM/dd/yyyy HH:mm:ss. Defaults to the current time.",
+                    required = false
+            )
+            @QueryParam("endDate") final DateTimeParameter endDate,
+            @ApiParam(
+                    value = "The id of the component to get rollups for. If not specified, rollups for all components are returned.",
+                    required = false
+            )
+            @QueryParam("componentId") final String componentId,
+            @ApiParam(
+                    value = "The type of provenance event to get rollups for. If not specified, rollups for all event types are returned.",
+                    required = false
+            )
+            @QueryParam("eventType") final String eventType,
+            @ApiParam(
+                    value = "The id of the node to get rollups from if clustered. If not specified, the rollups of all nodes are combined.",
+                    required = false
+            )
+            @QueryParam("clusterNodeId") final String clusterNodeId) {
+
+        final ProvenanceRollupQuery.Granularity bucketGranularity;
+        try {
+            bucketGranularity = ProvenanceRollupQuery.Granularity.valueOf(granularity.toUpperCase());
+        } catch (final IllegalArgumentException iae) {
+            throw new IllegalArgumentException("The granularity must be MINUTE or HOUR.");
+        }
+
+        final Date end = endDate == null ? new Date() : endDate.getDateTime();
+        final Date start;
+        if (startDate == null) {
+            start = new Date(end.getTime() - (bucketGranularity == ProvenanceRollupQuery.Granularity.HOUR ? 24 : 60) * bucketGranularity.getBucketMillis());
+        } else {
+            start = startDate.getDateTime();
+        }
+        if (end.before(start)) {
+            throw new IllegalArgumentException("The end date must not be before the start date.");
+        }
+
+        authorizeProvenanceRequest();
+
+        // replicate if cluster manager
+        if (isReplicateRequest()) {
+            // determine where this request should be sent
+            if (clusterNodeId == null) {
+                // replicate to all nodes
+                return replicate(HttpMethod.GET);
+            } else {
+                return replicate(HttpMethod.GET, clusterNodeId);
+            }
+        }
+
+        // get the rollups
+        final ProvenanceRollupsDTO dto = serviceFacade.getProvenanceRollups(bucketGranularity, start, end, componentId, eventType);
+
+        // create the response entity
+        final ProvenanceRollupsEntity entity = new ProvenanceRollupsEntity();
+        entity.setRollups(dto);
+
+        // generate the response
+        return generateOkResponse(entity).build();
+    }
+
     /**
      * Gets the provenance with the specified id.
      *
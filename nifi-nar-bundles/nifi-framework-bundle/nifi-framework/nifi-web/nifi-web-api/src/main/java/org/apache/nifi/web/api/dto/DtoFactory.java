@@ -3909,6 +3909,8 @@ public final class DtoFactory {
 
         dto.setAllActiveQueueFlowFilesPenalized(queueDiagnostics.isAllActiveFlowFilesPenalized());
         dto.setAnyActiveQueueFlowFilesPenalized(queueDiagnostics.isAnyActiveFlowFilePenalized());
+        dto.setSwapInPrefetchHitCount(queueDiagnostics.getSwapInPrefetchHitCount());
+        dto.setSwapInStallCount(queueDiagnostics.getSwapInStallCount());
 
         return dto;
     }
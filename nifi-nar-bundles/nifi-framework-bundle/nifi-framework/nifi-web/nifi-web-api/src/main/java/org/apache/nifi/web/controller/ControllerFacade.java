@@ -76,10 +76,15 @@ import org.apache.nifi.parameter.ParameterProvider;
 import org.apache.nifi.processor.Processor;
 import org.apache.nifi.processor.Relationship;
 import org.apache.nifi.provenance.ProvenanceEventRecord;
+import org.apache.nifi.provenance.ProvenanceEventRollup;
+import org.apache.nifi.provenance.ProvenanceEventType;
+import org.apache.nifi.provenance.ProvenanceQueryCursor;
 import org.apache.nifi.provenance.ProvenanceRepository;
+import org.apache.nifi.provenance.ProvenanceRollupQuery;
 import org.apache.nifi.provenance.SearchableFields;
 import org.apache.nifi.provenance.lineage.ComputeLineageSubmission;
 import org.apache.nifi.provenance.search.Query;
+import org.apache.nifi.provenance.search.QueryPage;
 import org.apache.nifi.provenance.search.QueryResult;
 import org.apache.nifi.provenance.search.QuerySubmission;
 import org.apache.nifi.provenance.search.SearchTerm;
@@ -106,6 +111,9 @@ import org.apache.nifi.web.api.dto.provenance.AttributeDTO;
 import org.apache.nifi.web.api.dto.provenance.ProvenanceDTO;
 import org.apache.nifi.web.api.dto.provenance.ProvenanceEventDTO;
 import org.apache.nifi.web.api.dto.provenance.ProvenanceOptionsDTO;
+import org.apache.nifi.web.api.dto.provenance.ProvenancePageDTO;
+import org.apache.nifi.web.api.dto.provenance.ProvenanceRollupDTO;
+import org.apache.nifi.web.api.dto.provenance.ProvenanceRollupsDTO;
 import org.apache.nifi.web.api.dto.provenance.ProvenanceRequestDTO;
 import org.apache.nifi.web.api.dto.provenance.ProvenanceResultsDTO;
 import org.apache.nifi.web.api.dto.provenance.ProvenanceSearchValueDTO;
@@ -141,6 +149,7 @@ import java.util.Set;
 import java.util.SortedSet;
 import java.util.TimeZone;
 import java.util.TreeSet;
+import java.util.UUID;
 import java.util.concurrent.TimeUnit;
 import java.util.function.Consumer;
 import java.util.function.Function;
@@ -1089,7 +1098,143 @@ public class ControllerFacade implements Authorizable {
         final ProvenanceRequestDTO requestDto = provenanceDto.getRequest();
 
         // create the query
-        final Query query = new Query(provenanceDto.getId());
+        final Query query = createQuery(provenanceDto.getId(), requestDto);
+
+        // submit the query to the provenance repository
+        final ProvenanceRepository provenanceRepository = flowController.getProvenanceRepository();
+        final QuerySubmission querySubmission = provenanceRepository.submitQuery(query, NiFiUserUtils.getNiFiUser());
+
+        // return the query with the results populated at this point
+        return getProvenanceQuery(querySubmission.getQueryIdentifier(), requestDto.getSummarize(), requestDto.getIncrementalResults());
+    }
+
+    /**
+     * Retrieves a single page of the provenance events that match the given request, newest first.
+     *
+     * @param requestDto the provenance request
+     * @param continuationToken the token returned with the previous page, or null for the first page
+     * @param pageSize the maximum number of events to return
+     * @param summarize whether to summarize the events
+     * @return the page of events
+     */
+    public ProvenancePageDTO getProvenancePage(final ProvenanceRequestDTO requestDto, final String continuationToken, final int pageSize, final boolean summarize) {
+        final Query query = createQuery(UUID.randomUUID().toString(), requestDto);
+
+        final ProvenanceRepository provenanceRepository = flowController.getProvenanceRepository();
+        QueryPage queryPage;
+        try {
+            queryPage = provenanceRepository.queryEvents(query, NiFiUserUtils.getNiFiUser(), continuationToken, pageSize);
+        } catch (final IOException ioe) {
+            throw new NiFiCoreException("An error occurred while searching the provenance events.", ioe);
+        } catch (final UnsupportedOperationException uoe) {
+            queryPage = getProvenancePageFromSubmission(provenanceRepository, query, continuationToken, pageSize);
+        }
+
+        final List<ProvenanceEventDTO> events = new ArrayList<>(queryPage.getEvents().size());
+        for (final ProvenanceEventRecord record : queryPage.getEvents()) {
+            events.add(createProvenanceEventDto(record, summarize));
+        }
+
+        final ProvenancePageDTO pageDto = new ProvenancePageDTO();
+        pageDto.setProvenanceEvents(events);
+        pageDto.setContinuationToken(queryPage.getContinuationToken());
+        return pageDto;
+    }
+
+    /**
+     * Retrieves the rollups of provenance events into fixed time buckets.
+     *
+     * @param granularity the size of the time buckets
+     * @param startDate the earliest time to retrieve rollups for
+     * @param endDate the latest time to retrieve rollups for
+     * @param componentId the id of the component to retrieve rollups for, or null for all components
+     * @param eventType the type of event to retrieve rollups for, or null for all event types
+     * @return the rollups
+     */
+    public ProvenanceRollupsDTO getProvenanceRollups(final ProvenanceRollupQuery.Granularity granularity, final Date startDate, final Date endDate,
+                                                     final String componentId, final String eventType) {
+        ProvenanceEventType provenanceEventType = null;
+        if (eventType != null) {
+            try {
+                provenanceEventType = ProvenanceEventType.valueOf(eventType.toUpperCase());
+            } catch (final IllegalArgumentException iae) {
+                throw new IllegalArgumentException("Unknown provenance event type: " + eventType);
+            }
+        }
+
+        final ProvenanceRollupQuery query = new ProvenanceRollupQuery(granularity, startDate.getTime(), endDate.getTime(), componentId, provenanceEventType);
+
+        final List<ProvenanceEventRollup> rollups;
+        try {
+            final ProvenanceRepository provenanceRepository = flowController.getProvenanceRepository();
+            rollups = provenanceRepository.getEventRollups(query, NiFiUserUtils.getNiFiUser());
+        } catch (final UnsupportedOperationException uoe) {
+            throw new IllegalStateException("The configured Provenance Repository does not maintain rollups of provenance events.", uoe);
+        }
+
+        final List<ProvenanceRollupDTO> rollupDtos = new ArrayList<>(rollups.size());
+        for (final ProvenanceEventRollup rollup : rollups) {
+            final ProvenanceRollupDTO rollupDto = new ProvenanceRollupDTO();
+            rollupDto.setBucketStart(new Date(rollup.getBucketStart()));
+            rollupDto.setComponentId(rollup.getComponentId());
+            rollupDto.setComponentType(rollup.getComponentType());
+            rollupDto.setEventType(rollup.getEventType().name());
+            rollupDto.setDestination(rollup.getDestination());
+            rollupDto.setEventCount(rollup.getEventCount());
+            rollupDto.setByteCount(rollup.getByteCount());
+            rollupDtos.add(rollupDto);
+        }
+
+        final ProvenanceRollupsDTO rollupsDto = new ProvenanceRollupsDTO();
+        rollupsDto.setGranularity(granularity.name());
+        rollupsDto.setStartDate(startDate);
+        rollupsDto.setEndDate(endDate);
+        rollupsDto.setRollups(rollupDtos);
+        return rollupsDto;
+    }
+
+    /**
+     * Retrieves a single page of provenance events from a repository that does not support paginated queries by submitting the query and
+     * selecting the page from its results. The query is bounded by the event time of the previous page's last event, so each page is taken
+     * from the newest events that follow it, up to the maximum number of results of the query.
+     */
+    private QueryPage getProvenancePageFromSubmission(final ProvenanceRepository provenanceRepository, final Query query, final String continuationToken, final int pageSize) {
+        final ProvenanceQueryCursor after = ProvenanceQueryCursor.fromToken(continuationToken);
+        if (after != null && (query.getEndDate() == null || query.getEndDate().getTime() > after.getEventTime())) {
+            query.setEndDate(new Date(after.getEventTime()));
+        }
+        query.setMaxResults((int) Math.max(query.getMaxResults(), Math.min(Integer.MAX_VALUE, pageSize + 1L)));
+
+        final QueryResult queryResult = provenanceRepository.submitQuery(query, NiFiUserUtils.getNiFiUser()).getResult();
+        try {
+            while (!queryResult.awaitCompletion(1, TimeUnit.SECONDS)) {
+                logger.debug("Waiting for provenance query {} to complete", query.getIdentifier());
+            }
+        } catch (final InterruptedException ie) {
+            Thread.currentThread().interrupt();
+            throw new NiFiCoreException("Interrupted while searching the provenance events.", ie);
+        }
+
+        if (queryResult.getError() != null) {
+            throw new NiFiCoreException("An error occurred while searching the provenance events: " + queryResult.getError());
+        }
+
+        final List<ProvenanceEventRecord> events = new ArrayList<>();
+        for (final ProvenanceEventRecord event : queryResult.getMatchingEvents()) {
+            if (after == null || after.isFollowedBy(event.getEventTime(), event.getEventId())) {
+                events.add(event);
+            }
+        }
+        events.sort(Comparator.comparing(ProvenanceQueryCursor::of, ProvenanceQueryCursor.NEWEST_FIRST));
+
+        final boolean moreAvailable = events.size() > pageSize || queryResult.getTotalHitCount() > queryResult.getMatchingEvents().size();
+        final List<ProvenanceEventRecord> page = events.size() > pageSize ? new ArrayList<>(events.subList(0, pageSize)) : events;
+        final String nextToken = moreAvailable && !page.isEmpty() ? ProvenanceQueryCursor.of(page.get(page.size() - 1)).toToken() : null;
+        return new QueryPage(page, nextToken);
+    }
+
+    private Query createQuery(final String queryId, final ProvenanceRequestDTO requestDto) {
+        final Query query = new Query(queryId);
 
         // if the request was specified
         if (requestDto != null) {
@@ -1125,12 +1270,7 @@ public class ControllerFacade implements Authorizable {
             query.setMaxResults(requestDto.getMaxResults());
         }
 
-        // submit the query to the provenance repository
-        final ProvenanceRepository provenanceRepository = flowController.getProvenanceRepository();
-        final QuerySubmission querySubmission = provenanceRepository.submitQuery(query, NiFiUserUtils.getNiFiUser());
-
-        // return the query with the results populated at this point
-        return getProvenanceQuery(querySubmission.getQueryIdentifier(), requestDto.getSummarize(), requestDto.getIncrementalResults());
+        return query;
     }
 
     /**
@@ -972,7 +972,7 @@
         var prioritizers = $('#prioritizer-selected').sortable('toArray');
         var loadBalanceStrategy = $('#load-balance-strategy-combo').combo('getSelectedOption').value;
         var shouldLoadBalance = 'DO_NOT_LOAD_BALANCE' !== loadBalanceStrategy;
-        var loadBalancePartitionAttribute = shouldLoadBalance && 'PARTITION_BY_ATTRIBUTE' === loadBalanceStrategy ? $('#load-balance-partition-attribute').val() : '';
+        var loadBalancePartitionAttribute = shouldLoadBalance && nfCommon.isPartitionByAttribute(loadBalanceStrategy) ? $('#load-balance-partition-attribute').val() : '';
         var loadBalanceCompression = shouldLoadBalance ? $('#load-balance-compression-combo').combo('getSelectedOption').value : 'DO_NOT_COMPRESS';
 
         if (validateSettings()) {
@@ -1077,7 +1077,7 @@
         var prioritizers = $('#prioritizer-selected').sortable('toArray');
         var loadBalanceStrategy = $('#load-balance-strategy-combo').combo('getSelectedOption').value;
         var shouldLoadBalance = 'DO_NOT_LOAD_BALANCE' !== loadBalanceStrategy;
-        var loadBalancePartitionAttribute = shouldLoadBalance && 'PARTITION_BY_ATTRIBUTE' === loadBalanceStrategy ? $('#load-balance-partition-attribute').val() : '';
+        var loadBalancePartitionAttribute = shouldLoadBalance && nfCommon.isPartitionByAttribute(loadBalanceStrategy) ? $('#load-balance-partition-attribute').val() : '';
         var loadBalanceCompression = shouldLoadBalance ? $('#load-balance-compression-combo').combo('getSelectedOption').value : 'DO_NOT_COMPRESS';
 
         if (validateSettings()) {
@@ -1174,7 +1174,7 @@
         if (nfCommon.isBlank($('#back-pressure-data-size-threshold').val())) {
             errors.push('Back pressure data size threshold must be specified');
         }
-        if ($('#load-balance-strategy-combo').combo('getSelectedOption').value === 'PARTITION_BY_ATTRIBUTE'
+        if (nfCommon.isPartitionByAttribute($('#load-balance-strategy-combo').combo('getSelectedOption').value)
             && nfCommon.isBlank($('#load-balance-partition-attribute').val())) {
             errors.push('Cannot set Load Balance Strategy to "Partition by attribute" without providing a partitioning "Attribute Name"');
         }
@@ -1312,7 +1312,7 @@
                 options: nfCommon.loadBalanceStrategyOptions,
                 select: function (selectedOption) {
                     // Show the appropriate configurations
-                    if (selectedOption.value === 'PARTITION_BY_ATTRIBUTE') {
+                    if (nfCommon.isPartitionByAttribute(selectedOption.value)) {
                         $('#load-balance-partition-attribute-setting-separator').show();
                         $('#load-balance-partition-attribute-setting').show();
                     } else {
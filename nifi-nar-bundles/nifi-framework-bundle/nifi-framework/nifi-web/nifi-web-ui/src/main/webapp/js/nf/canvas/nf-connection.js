@@ -1427,7 +1427,7 @@
                         }).select('title').text(function () {
                             if (d.permissions.canRead) {
                                 var loadBalanceStrategy = nfCommon.getComboOptionText(nfCommon.loadBalanceStrategyOptions, d.component.loadBalanceStrategy);
-                                if ('PARTITION_BY_ATTRIBUTE' === d.component.loadBalanceStrategy) {
+                                if (nfCommon.isPartitionByAttribute(d.component.loadBalanceStrategy)) {
                                     loadBalanceStrategy += ' (' + d.component.loadBalancePartitionAttribute + ')'
                                 }
 
@@ -1439,6 +1439,12 @@
                                     case 'COMPRESS_ATTRIBUTES_AND_CONTENT':
                                         loadBalanceCompression = '\'Attribute and content\' compression';
                                         break;
+                                    case 'COMPRESS_ATTRIBUTES_AND_CONTENT_LZ4':
+                                        loadBalanceCompression = '\'Attribute and content\' LZ4 compression';
+                                        break;
+                                    case 'COMPRESS_ATTRIBUTES_AND_CONTENT_ZSTD':
+                                        loadBalanceCompression = '\'Attribute and content\' Zstandard compression';
+                                        break;
                                 }
                                 var loadBalanceStatus = 'LOAD_BALANCE_ACTIVE' === d.component.loadBalanceStatus ? ' Actively balancing...' : '';
                                 return 'Load Balance is configured'
@@ -1294,6 +1294,12 @@
                 value: 'PARTITION_BY_ATTRIBUTE',
                 description: 'Determine which node to send a given FlowFile to based on the value of a user-specified FlowFile Attribute.'
                                 + ' All FlowFiles that have the same value for said Attribute will be sent to the same node in the cluster.'
+            }, {
+                text: 'Partition by attribute (consistent hashing)',
+                value: 'PARTITION_BY_ATTRIBUTE_CONSISTENT_HASH',
+                description: 'Determine which node to send a given FlowFile to based on the value of a user-specified FlowFile Attribute, using consistent hashing.'
+                                + ' All FlowFiles that have the same value for said Attribute will be sent to the same node in the cluster, and when a node joins or leaves'
+                                + ' the cluster, only the FlowFiles whose node changes are redistributed.'
             }, {
                 text: 'Round robin',
                 value: 'ROUND_ROBIN',
@@ -1317,6 +1323,14 @@
                 text: 'Compress attributes and content',
                 value: 'COMPRESS_ATTRIBUTES_AND_CONTENT',
                 description: 'FlowFiles\' attributes and content will be compressed'
+            }, {
+                text: 'Compress attributes and content (LZ4)',
+                value: 'COMPRESS_ATTRIBUTES_AND_CONTENT_LZ4',
+                description: 'FlowFiles\' attributes and content will be compressed using LZ4, which requires far less CPU but does not compress as well'
+            }, {
+                text: 'Compress attributes and content (Zstandard)',
+                value: 'COMPRESS_ATTRIBUTES_AND_CONTENT_ZSTD',
+                description: 'FlowFiles\' attributes and content will be compressed using Zstandard, which compresses about as well but requires less CPU'
         }],
 
         /**
@@ -1819,6 +1833,16 @@
             return nfCommon.isDefinedAndNotNull(matchedOption) ? matchedOption.text : undefined;
         },
 
+        /**
+         * Determines whether the specified load balance strategy partitions FlowFiles by the value of an attribute.
+         *
+         * @param {string} loadBalanceStrategy    The load balance strategy
+         * @returns {boolean}                     Whether the strategy requires a partitioning attribute
+         */
+        isPartitionByAttribute: function (loadBalanceStrategy) {
+            return loadBalanceStrategy === 'PARTITION_BY_ATTRIBUTE' || loadBalanceStrategy === 'PARTITION_BY_ATTRIBUTE_CONSISTENT_HASH';
+        },
+
         /**
          * Creates a throttled function that invokes at most once every wait milliseconds.
          *
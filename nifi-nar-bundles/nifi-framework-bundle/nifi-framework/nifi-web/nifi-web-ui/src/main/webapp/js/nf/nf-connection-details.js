@@ -540,7 +540,7 @@
                         nfCommon.populateField('read-only-load-balance-compression', nfCommon.getComboOptionText(nfCommon.loadBalanceCompressionOptions, connection.loadBalanceCompression));
 
                         // Show the appropriate load-balance configurations
-                        if (connection.loadBalanceStrategy === 'PARTITION_BY_ATTRIBUTE') {
+                        if (nfCommon.isPartitionByAttribute(connection.loadBalanceStrategy)) {
                             $('#read-only-load-balance-partition-attribute-setting').show();
                         } else {
                             $('#read-only-load-balance-partition-attribute-setting').hide();
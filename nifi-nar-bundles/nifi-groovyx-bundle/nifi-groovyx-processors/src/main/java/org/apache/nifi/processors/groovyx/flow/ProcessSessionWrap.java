@@ -36,6 +36,7 @@ import org.apache.nifi.provenance.ProvenanceReporter;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.channels.WritableByteChannel;
 import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.Collection;
@@ -936,6 +937,20 @@ public abstract class ProcessSessionWrap implements ProcessSession {
         session.exportTo(flowFile, destination);
     }
 
+    /**
+     * Writes the content of the given FlowFile to the given destination channel
+     *
+     * @param flowFile    to export the content of
+     * @param destination to export the content to
+     * @throws FlowFileHandlingException if the given FlowFile is already transferred or removed or doesn't belong to this session. Automatic rollback will occur.
+     * @throws FlowFileAccessException   if some IO problem occurs accessing FlowFile content
+     */
+    @Override
+    public void exportTo(FlowFile flowFile, WritableByteChannel destination) {
+        flowFile = unwrap(flowFile);
+        session.exportTo(flowFile, destination);
+    }
+
     /**
      * Returns a ProvenanceReporter that is tied to this ProcessSession.
      *
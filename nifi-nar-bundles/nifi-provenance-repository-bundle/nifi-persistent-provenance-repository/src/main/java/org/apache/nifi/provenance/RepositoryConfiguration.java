@@ -28,6 +28,7 @@ import java.util.Optional;
 import java.util.concurrent.TimeUnit;
 import org.apache.nifi.processor.DataUnit;
 import org.apache.nifi.provenance.search.SearchableField;
+import org.apache.nifi.provenance.serialization.CompressionCodec;
 import org.apache.nifi.util.FormatUtils;
 import org.apache.nifi.util.NiFiProperties;
 import org.slf4j.Logger;
@@ -39,8 +40,24 @@ public class RepositoryConfiguration {
     public static final String CONCURRENT_MERGE_THREADS = "nifi.provenance.repository.concurrent.merge.threads";
     public static final String WARM_CACHE_FREQUENCY = "nifi.provenance.repository.warm.cache.frequency";
     public static final String MAINTENACE_FREQUENCY = "nifi.provenance.repository.maintenance.frequency";
+    public static final String COMPRESSION_CODEC = "nifi.provenance.repository.compression.codec";
+    public static final String LINEAGE_INDEX_ENABLED = "nifi.provenance.repository.lineage.index.enabled";
+    public static final String INDEX_BATCH_SIZE = "nifi.provenance.repository.index.batch.size";
+    public static final String INDEX_COMMIT_MIN_INTERVAL = "nifi.provenance.repository.index.commit.min.interval";
+    public static final String INDEX_COMMIT_MAX_INTERVAL = "nifi.provenance.repository.index.commit.max.interval";
+    public static final String COLD_DIRECTORY_PREFIX = "nifi.provenance.repository.cold.directory.";
+    public static final String COLD_TIER_AGE = "nifi.provenance.repository.cold.tier.age";
+    public static final String COLD_MAX_STORAGE_TIME = "nifi.provenance.repository.cold.max.storage.time";
+    public static final String COLD_MAX_STORAGE_SIZE = "nifi.provenance.repository.cold.max.storage.size";
+    public static final String COLD_SEGMENT_SIZE = "nifi.provenance.repository.cold.segment.size";
+    public static final String COLD_COMPRESSION_CODEC = "nifi.provenance.repository.cold.compression.codec";
+    public static final String ROLLUP_ENABLED = "nifi.provenance.repository.rollup.enabled";
+    public static final String ROLLUP_MINUTE_RETENTION = "nifi.provenance.repository.rollup.minute.retention";
+    public static final String ROLLUP_HOUR_RETENTION = "nifi.provenance.repository.rollup.hour.retention";
+    public static final String ROLLUP_MAX_KEYS_PER_BUCKET = "nifi.provenance.repository.rollup.max.keys.per.bucket";
 
     private final Map<String, File> storageDirectories = new LinkedHashMap<>();
+    private final Map<String, File> coldStorageDirectories = new LinkedHashMap<>();
     private long recordLifeMillis = TimeUnit.MILLISECONDS.convert(24, TimeUnit.HOURS);
     private long storageCapacity = 1024L * 1024L * 1024L;   // 1 GB
     private long eventFileMillis = TimeUnit.MILLISECONDS.convert(5, TimeUnit.MINUTES);
@@ -52,13 +69,27 @@ public class RepositoryConfiguration {
     private int maxAttributeChars = 65536;
     private int debugFrequency = 1_000_000;
     private long maintenanceFrequencyMillis = TimeUnit.MINUTES.toMillis(1L);
+    private long coldTierAgeMillis = TimeUnit.HOURS.toMillis(6L);
+    private long coldRecordLifeMillis = TimeUnit.DAYS.toMillis(30L);
+    private long coldStorageCapacity = 1024L * 1024L * 1024L * 10L;   // 10 GB
+    private long coldSegmentBytes = 1024L * 1024L * 1024L;   // 1 GB
+    private CompressionCodec coldCompressionCodec = CompressionCodec.GZIP;
+    private boolean rollupsEnabled = false;
+    private long minuteRollupRetentionMillis = TimeUnit.HOURS.toMillis(6L);
+    private long hourRollupRetentionMillis = TimeUnit.DAYS.toMillis(7L);
+    private int maxRollupKeysPerBucket = 1000;
 
     private List<SearchableField> searchableFields = new ArrayList<>();
     private List<SearchableField> searchableAttributes = new ArrayList<>();
     private boolean compress = true;
+    private CompressionCodec compressionCodec = CompressionCodec.GZIP;
     private boolean alwaysSync = false;
+    private boolean lineageIndexEnabled = false;
     private int queryThreadPoolSize = 2;
     private int indexThreadPoolSize = 1;
+    private int indexBatchSize = 100;
+    private long minIndexCommitMillis = TimeUnit.SECONDS.toMillis(30L);
+    private long maxIndexCommitMillis = TimeUnit.SECONDS.toMillis(30L);
     private boolean allowRollover = true;
     private int concurrentMergeThreads = 4;
     private Integer warmCacheFrequencyMinutes = null;
@@ -101,6 +132,84 @@ public class RepositoryConfiguration {
         this.storageDirectories.putAll(storageDirectories);
     }
 
+    /**
+     * Specifies where the repository moves event files once they are older than the {@link #getColdTierAge(TimeUnit) cold tier age}. The keys
+     * are the names of the partitions whose event files are moved, which must match the names used for the {@link #getStorageDirectories() storage directories}.
+     * A partition that has no cold storage directory keeps its event files in its storage directory until they are aged off.
+     *
+     * @return the directories where event files of the cold tier will be stored
+     */
+    public Map<String, File> getColdStorageDirectories() {
+        return Collections.unmodifiableMap(coldStorageDirectories);
+    }
+
+    /**
+     * Specifies where the repository should store the cold tier of the given partition
+     *
+     * @param partitionName the name of the partition
+     * @param coldStorageDirectory the directory to store the partition's cold event files
+     */
+    public void addColdStorageDirectory(final String partitionName, final File coldStorageDirectory) {
+        this.coldStorageDirectories.put(partitionName, coldStorageDirectory);
+    }
+
+    /**
+     * @param timeUnit the desired time unit
+     * @return how old an event file must be before it is moved to the cold tier
+     */
+    public long getColdTierAge(final TimeUnit timeUnit) {
+        return timeUnit.convert(coldTierAgeMillis, TimeUnit.MILLISECONDS);
+    }
+
+    public void setColdTierAge(final long coldTierAge, final TimeUnit timeUnit) {
+        this.coldTierAgeMillis = timeUnit.toMillis(coldTierAge);
+    }
+
+    /**
+     * @param timeUnit the desired time unit
+     * @return the max amount of time that a given record will stay in the cold tier
+     */
+    public long getMaxColdRecordLife(final TimeUnit timeUnit) {
+        return timeUnit.convert(coldRecordLifeMillis, TimeUnit.MILLISECONDS);
+    }
+
+    public void setMaxColdRecordLife(final long maxRecordLife, final TimeUnit timeUnit) {
+        this.coldRecordLifeMillis = timeUnit.toMillis(maxRecordLife);
+    }
+
+    /**
+     * @return the maximum amount of data to store in the cold tier, across all partitions (in bytes)
+     */
+    public long getMaxColdStorageCapacity() {
+        return coldStorageCapacity;
+    }
+
+    public void setMaxColdStorageCapacity(final long maxColdStorageCapacity) {
+        this.coldStorageCapacity = maxColdStorageCapacity;
+    }
+
+    /**
+     * @return the number of bytes of event files that are merged into a single segment of the cold tier
+     */
+    public long getColdSegmentSize() {
+        return coldSegmentBytes;
+    }
+
+    public void setColdSegmentSize(final long coldSegmentBytes) {
+        this.coldSegmentBytes = coldSegmentBytes;
+    }
+
+    /**
+     * @return the codec that is used to compress the segments of the cold tier
+     */
+    public CompressionCodec getColdCompressionCodec() {
+        return coldCompressionCodec;
+    }
+
+    public void setColdCompressionCodec(final CompressionCodec coldCompressionCodec) {
+        this.coldCompressionCodec = coldCompressionCodec;
+    }
+
     /**
      * @param timeUnit the desired time unit
      * @return the max amount of time that a given record will stay in the repository
@@ -226,6 +335,80 @@ public class RepositoryConfiguration {
         this.compress = compress;
     }
 
+    /**
+     * @return the codec that is used to compress event files when they are rolled over
+     */
+    public CompressionCodec getCompressionCodec() {
+        return compressionCodec;
+    }
+
+    /**
+     * @param compressionCodec the codec to use to compress event files when they are rolled over
+     */
+    public void setCompressionCodec(final CompressionCodec compressionCodec) {
+        this.compressionCodec = compressionCodec;
+    }
+
+    /**
+     * @return whether or not a Lineage Index is maintained alongside the event files, so that lineage can be computed without searching the Event Index
+     */
+    public boolean isLineageIndexEnabled() {
+        return lineageIndexEnabled;
+    }
+
+    /**
+     * @param lineageIndexEnabled if true, a Lineage Index will be maintained alongside the event files
+     */
+    public void setLineageIndexEnabled(final boolean lineageIndexEnabled) {
+        this.lineageIndexEnabled = lineageIndexEnabled;
+    }
+
+    /**
+     * @return <code>true</code> if the repository should maintain time-bucketed rollups of the events that it stores
+     */
+    public boolean isRollupsEnabled() {
+        return rollupsEnabled;
+    }
+
+    public void setRollupsEnabled(final boolean rollupsEnabled) {
+        this.rollupsEnabled = rollupsEnabled;
+    }
+
+    /**
+     * @param timeUnit the unit to return the retention period in
+     * @return how long rollups of events into one-minute buckets are retained
+     */
+    public long getMinuteRollupRetention(final TimeUnit timeUnit) {
+        return timeUnit.convert(minuteRollupRetentionMillis, TimeUnit.MILLISECONDS);
+    }
+
+    public void setMinuteRollupRetention(final long retention, final TimeUnit timeUnit) {
+        this.minuteRollupRetentionMillis = timeUnit.toMillis(retention);
+    }
+
+    /**
+     * @param timeUnit the unit to return the retention period in
+     * @return how long rollups of events into one-hour buckets are retained
+     */
+    public long getHourRollupRetention(final TimeUnit timeUnit) {
+        return timeUnit.convert(hourRollupRetentionMillis, TimeUnit.MILLISECONDS);
+    }
+
+    public void setHourRollupRetention(final long retention, final TimeUnit timeUnit) {
+        this.hourRollupRetentionMillis = timeUnit.toMillis(retention);
+    }
+
+    /**
+     * @return the maximum number of distinct component, event type, and destination combinations that each rollup bucket holds
+     */
+    public int getMaxRollupKeysPerBucket() {
+        return maxRollupKeysPerBucket;
+    }
+
+    public void setMaxRollupKeysPerBucket(final int maxRollupKeysPerBucket) {
+        this.maxRollupKeysPerBucket = maxRollupKeysPerBucket;
+    }
+
     /**
      * @return the number of threads to use to query the repo
      */
@@ -254,6 +437,52 @@ public class RepositoryConfiguration {
         this.indexThreadPoolSize = indexThreadPoolSize;
     }
 
+    /**
+     * @return the maximum number of events that an indexing thread adds to an index at once
+     */
+    public int getIndexBatchSize() {
+        return indexBatchSize;
+    }
+
+    public void setIndexBatchSize(final int indexBatchSize) {
+        if (indexBatchSize < 1) {
+            throw new IllegalArgumentException("Index batch size must be at least 1");
+        }
+        this.indexBatchSize = indexBatchSize;
+    }
+
+    /**
+     * @param timeUnit the unit of the returned value
+     * @return the amount of time that an index may go without being committed when no events are waiting to be indexed
+     */
+    public long getMinIndexCommitInterval(final TimeUnit timeUnit) {
+        return timeUnit.convert(minIndexCommitMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * @param timeUnit the unit of the returned value
+     * @return the amount of time that an index may go without being committed when the indexing threads are falling behind
+     */
+    public long getMaxIndexCommitInterval(final TimeUnit timeUnit) {
+        return timeUnit.convert(maxIndexCommitMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Specifies how long an index may go without being committed. The interval is scaled between the minimum and the maximum according to how many
+     * events are waiting to be indexed.
+     *
+     * @param minInterval the interval to use when no events are waiting to be indexed
+     * @param maxInterval the interval to use when the indexing threads are falling behind
+     * @param timeUnit the unit of the given intervals
+     */
+    public void setIndexCommitInterval(final long minInterval, final long maxInterval, final TimeUnit timeUnit) {
+        if (minInterval < 0 || maxInterval < minInterval) {
+            throw new IllegalArgumentException("Minimum index commit interval must not be negative and must not be greater than the maximum index commit interval");
+        }
+        this.minIndexCommitMillis = timeUnit.toMillis(minInterval);
+        this.maxIndexCommitMillis = timeUnit.toMillis(maxInterval);
+    }
+
     public void setConcurrentMergeThreads(final int mergeThreads) {
         this.concurrentMergeThreads = mergeThreads;
     }
@@ -392,6 +621,9 @@ public class RepositoryConfiguration {
         final String shardSize = nifiProperties.getProperty(NiFiProperties.PROVENANCE_INDEX_SHARD_SIZE, "500 MB");
         final int queryThreads = nifiProperties.getIntegerProperty(NiFiProperties.PROVENANCE_QUERY_THREAD_POOL_SIZE, 2);
         final int indexThreads = nifiProperties.getIntegerProperty(NiFiProperties.PROVENANCE_INDEX_THREAD_POOL_SIZE, 2);
+        final int indexBatchSize = nifiProperties.getIntegerProperty(INDEX_BATCH_SIZE, 500);
+        final long minIndexCommitMillis = FormatUtils.getTimeDuration(nifiProperties.getProperty(INDEX_COMMIT_MIN_INTERVAL, "5 secs"), TimeUnit.MILLISECONDS);
+        final long maxIndexCommitMillis = FormatUtils.getTimeDuration(nifiProperties.getProperty(INDEX_COMMIT_MAX_INTERVAL, "30 secs"), TimeUnit.MILLISECONDS);
         final int journalCount = nifiProperties.getIntegerProperty(NiFiProperties.PROVENANCE_JOURNAL_COUNT, 16);
         final int concurrentMergeThreads = nifiProperties.getIntegerProperty(CONCURRENT_MERGE_THREADS, 2);
         final String warmCacheFrequency = nifiProperties.getProperty(WARM_CACHE_FREQUENCY);
@@ -402,10 +634,61 @@ public class RepositoryConfiguration {
         final long rolloverBytes = DataUnit.parseDataSize(rolloverSize, DataUnit.B).longValue();
 
         final boolean compressOnRollover = Boolean.parseBoolean(nifiProperties.getProperty(NiFiProperties.PROVENANCE_COMPRESS_ON_ROLLOVER));
+        final CompressionCodec compressionCodec = CompressionCodec.fromName(nifiProperties.getProperty(COMPRESSION_CODEC, CompressionCodec.GZIP.name()));
+        if (compressOnRollover && !compressionCodec.isAvailable()) {
+            throw new IllegalArgumentException("Provenance Repository is configured to compress event files using " + compressionCodec + " but the native library for "
+                + compressionCodec + " could not be loaded on this platform; configure a different value for the " + COMPRESSION_CODEC + " property");
+        }
+
+        final Map<String, File> coldStorageDirectories = new LinkedHashMap<>();
+        for (final String propertyName : nifiProperties.getPropertyKeys()) {
+            if (propertyName.startsWith(COLD_DIRECTORY_PREFIX)) {
+                final String partitionName = propertyName.substring(COLD_DIRECTORY_PREFIX.length());
+                final Path storageDirectory = storageDirectories.get(partitionName);
+                if (storageDirectory == null) {
+                    throw new IllegalArgumentException("Provenance Repository property " + propertyName + " configures a cold tier for partition " + partitionName
+                        + " but no storage directory is configured for a partition with that name");
+                }
+
+                final File coldStorageDirectory = Paths.get(nifiProperties.getProperty(propertyName)).toFile();
+                if (coldStorageDirectory.getAbsoluteFile().equals(storageDirectory.toFile().getAbsoluteFile())) {
+                    throw new IllegalArgumentException("Provenance Repository property " + propertyName + " must not use the storage directory of partition " + partitionName);
+                }
+
+                coldStorageDirectories.put(partitionName, coldStorageDirectory);
+            }
+        }
+
+        final long coldTierAgeMillis = FormatUtils.getTimeDuration(nifiProperties.getProperty(COLD_TIER_AGE, "6 hours"), TimeUnit.MILLISECONDS);
+        final long coldStorageMillis = FormatUtils.getTimeDuration(nifiProperties.getProperty(COLD_MAX_STORAGE_TIME, "30 days"), TimeUnit.MILLISECONDS);
+        final long maxColdStorageBytes = DataUnit.parseDataSize(nifiProperties.getProperty(COLD_MAX_STORAGE_SIZE, "10 GB"), DataUnit.B).longValue();
+        final long coldSegmentBytes = DataUnit.parseDataSize(nifiProperties.getProperty(COLD_SEGMENT_SIZE, "1 GB"), DataUnit.B).longValue();
+
+        // Segments of the cold tier are read far less often than they are stored, so favor the best compression ratio that is available
+        final String coldCodecName = nifiProperties.getProperty(COLD_COMPRESSION_CODEC);
+        final CompressionCodec coldCompressionCodec;
+        if (coldCodecName == null || coldCodecName.trim().isEmpty()) {
+            coldCompressionCodec = CompressionCodec.ZSTD.isAvailable() ? CompressionCodec.ZSTD : CompressionCodec.GZIP;
+        } else {
+            coldCompressionCodec = CompressionCodec.fromName(coldCodecName);
+            if (!coldStorageDirectories.isEmpty() && !coldCompressionCodec.isAvailable()) {
+                throw new IllegalArgumentException("Provenance Repository is configured to compress the cold tier using " + coldCompressionCodec + " but the native library for "
+                    + coldCompressionCodec + " could not be loaded on this platform; configure a different value for the " + COLD_COMPRESSION_CODEC + " property");
+            }
+        }
+
         final String indexedFieldString = nifiProperties.getProperty(NiFiProperties.PROVENANCE_INDEXED_FIELDS);
         final String indexedAttrString = nifiProperties.getProperty(NiFiProperties.PROVENANCE_INDEXED_ATTRIBUTES);
 
         final Boolean alwaysSync = Boolean.parseBoolean(nifiProperties.getProperty("nifi.provenance.repository.always.sync", "false"));
+        final boolean lineageIndexEnabled = Boolean.parseBoolean(nifiProperties.getProperty(LINEAGE_INDEX_ENABLED, "false"));
+        final boolean rollupsEnabled = Boolean.parseBoolean(nifiProperties.getProperty(ROLLUP_ENABLED, "false"));
+        final long minuteRollupRetentionMillis = FormatUtils.getTimeDuration(nifiProperties.getProperty(ROLLUP_MINUTE_RETENTION, "6 hours"), TimeUnit.MILLISECONDS);
+        final long hourRollupRetentionMillis = FormatUtils.getTimeDuration(nifiProperties.getProperty(ROLLUP_HOUR_RETENTION, "7 days"), TimeUnit.MILLISECONDS);
+        final int maxRollupKeysPerBucket = nifiProperties.getIntegerProperty(ROLLUP_MAX_KEYS_PER_BUCKET, 1000);
+        if (maxRollupKeysPerBucket < 1) {
+            throw new IllegalArgumentException("The " + ROLLUP_MAX_KEYS_PER_BUCKET + " property must be a positive integer but was " + maxRollupKeysPerBucket);
+        }
 
         final int defaultMaxAttrChars = 65536;
         final String maxAttrLength = nifiProperties.getProperty("nifi.provenance.repository.max.attribute.length", String.valueOf(defaultMaxAttrChars));
@@ -435,6 +718,12 @@ public class RepositoryConfiguration {
             config.addStorageDirectory(entry.getKey(), entry.getValue().toFile());
         }
         config.setCompressOnRollover(compressOnRollover);
+        config.setCompressionCodec(compressionCodec);
+        config.setLineageIndexEnabled(lineageIndexEnabled);
+        config.setRollupsEnabled(rollupsEnabled);
+        config.setMinuteRollupRetention(minuteRollupRetentionMillis, TimeUnit.MILLISECONDS);
+        config.setHourRollupRetention(hourRollupRetentionMillis, TimeUnit.MILLISECONDS);
+        config.setMaxRollupKeysPerBucket(maxRollupKeysPerBucket);
         config.setSearchableFields(searchableFields);
         config.setSearchableAttributes(searchableAttributes);
         config.setMaxEventFileCapacity(rolloverBytes);
@@ -442,8 +731,18 @@ public class RepositoryConfiguration {
         config.setMaxEventFileLife(rolloverMillis, TimeUnit.MILLISECONDS);
         config.setMaxRecordLife(storageMillis, TimeUnit.MILLISECONDS);
         config.setMaxStorageCapacity(maxStorageBytes);
+        for (final Map.Entry<String, File> entry : coldStorageDirectories.entrySet()) {
+            config.addColdStorageDirectory(entry.getKey(), entry.getValue());
+        }
+        config.setColdTierAge(coldTierAgeMillis, TimeUnit.MILLISECONDS);
+        config.setMaxColdRecordLife(coldStorageMillis, TimeUnit.MILLISECONDS);
+        config.setMaxColdStorageCapacity(maxColdStorageBytes);
+        config.setColdSegmentSize(coldSegmentBytes);
+        config.setColdCompressionCodec(coldCompressionCodec);
         config.setQueryThreadPoolSize(queryThreads);
         config.setIndexThreadPoolSize(indexThreads);
+        config.setIndexBatchSize(indexBatchSize);
+        config.setIndexCommitInterval(minIndexCommitMillis, maxIndexCommitMillis, TimeUnit.MILLISECONDS);
         config.setJournalCount(journalCount);
         config.setMaxAttributeChars(maxAttrChars);
         config.setConcurrentMergeThreads(concurrentMergeThreads);
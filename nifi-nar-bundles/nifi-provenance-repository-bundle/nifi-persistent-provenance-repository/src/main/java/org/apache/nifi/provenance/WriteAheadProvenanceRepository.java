@@ -29,7 +29,9 @@ import org.apache.nifi.provenance.index.lucene.LuceneEventIndex;
 import org.apache.nifi.provenance.lineage.ComputeLineageSubmission;
 import org.apache.nifi.provenance.lucene.IndexManager;
 import org.apache.nifi.provenance.lucene.StandardIndexManager;
+import org.apache.nifi.provenance.rollup.EventRollupStore;
 import org.apache.nifi.provenance.search.Query;
+import org.apache.nifi.provenance.search.QueryPage;
 import org.apache.nifi.provenance.search.QuerySubmission;
 import org.apache.nifi.provenance.search.SearchableField;
 import org.apache.nifi.provenance.serialization.RecordReaders;
@@ -44,9 +46,11 @@ import org.apache.nifi.provenance.toc.StandardTocWriter;
 import org.apache.nifi.provenance.toc.TocUtil;
 import org.apache.nifi.provenance.toc.TocWriter;
 import org.apache.nifi.provenance.util.CloseableUtil;
+import org.apache.nifi.provenance.util.NamedThreadFactory;
 import org.apache.nifi.reporting.Severity;
 import org.apache.nifi.util.NiFiProperties;
 import org.apache.nifi.util.file.FileUtils;
+import org.apache.nifi.web.ResourceNotFoundException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -59,6 +63,9 @@ import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
 
 /**
@@ -101,6 +108,8 @@ public class WriteAheadProvenanceRepository implements ProvenanceRepository {
     private EventReporter eventReporter;
     private Authorizer authorizer;
     private ProvenanceAuthorizableFactory resourceFactory;
+    private EventRollupStore rollupStore;
+    private ScheduledExecutorService rollupExecutor;
 
     /**
      * This constructor exists solely for the use of the Java Service Loader mechanism and should not be used.
@@ -167,6 +176,31 @@ public class WriteAheadProvenanceRepository implements ProvenanceRepository {
         } else {
             logger.info("Provenance Event Index indicates that no events should be re-indexed upon startup. Will not wait for re-indexing to occur.");
         }
+
+        if (config.isRollupsEnabled()) {
+            initializeRollups();
+        }
+    }
+
+    private void initializeRollups() throws IOException {
+        final File storageDirectory = config.getStorageDirectories().values().iterator().next();
+        rollupStore = new EventRollupStore(new File(storageDirectory, EventRollupStore.DIRECTORY_NAME),
+            config.getMinuteRollupRetention(TimeUnit.MILLISECONDS), config.getHourRollupRetention(TimeUnit.MILLISECONDS), config.getMaxRollupKeysPerBucket());
+        rollupStore.initialize();
+
+        final long maintenanceMillis = config.getMaintenanceFrequency(TimeUnit.MILLISECONDS);
+        rollupExecutor = Executors.newSingleThreadScheduledExecutor(new NamedThreadFactory("Provenance Rollup Maintenance", true));
+        rollupExecutor.scheduleWithFixedDelay(this::persistRollups, maintenanceMillis, maintenanceMillis, TimeUnit.MILLISECONDS);
+    }
+
+    private void persistRollups() {
+        try {
+            rollupStore.purgeExpired(System.currentTimeMillis());
+            rollupStore.persist();
+        } catch (final Exception e) {
+            logger.error("Failed to write the rollups of Provenance Events to disk", e);
+            eventReporter.reportEvent(Severity.WARNING, EVENT_CATEGORY, "Failed to write the rollups of Provenance Events to disk. See logs for more details.");
+        }
     }
 
     @Override
@@ -181,6 +215,15 @@ public class WriteAheadProvenanceRepository implements ProvenanceRepository {
 
     @Override
     public void registerEvents(final Iterable<ProvenanceEventRecord> events) {
+        registerEvents(events, true);
+    }
+
+    @Override
+    public void registerUnindexedEvents(final Iterable<ProvenanceEventRecord> events) {
+        registerEvents(events, false);
+    }
+
+    private void registerEvents(final Iterable<ProvenanceEventRecord> events, final boolean index) {
         final StorageResult storageResult;
 
         try {
@@ -192,9 +235,13 @@ public class WriteAheadProvenanceRepository implements ProvenanceRepository {
         }
 
         final Map<ProvenanceEventRecord, StorageSummary> locationMap = storageResult.getStorageLocations();
-        if (!locationMap.isEmpty()) {
+        if (index && !locationMap.isEmpty()) {
             eventIndex.addEvents(locationMap);
         }
+
+        if (rollupStore != null) {
+            rollupStore.update(events);
+        }
     }
 
     @Override
@@ -214,6 +261,11 @@ public class WriteAheadProvenanceRepository implements ProvenanceRepository {
 
     @Override
     public void close() {
+        if (rollupExecutor != null) {
+            rollupExecutor.shutdownNow();
+            persistRollups();
+        }
+
         CloseableUtil.closeQuietly(eventStore, eventIndex);
     }
 
@@ -258,6 +310,39 @@ public class WriteAheadProvenanceRepository implements ProvenanceRepository {
         return eventIndex.submitQuery(query, createEventAuthorizer(user), user == null ? null : user.getIdentity());
     }
 
+    @Override
+    public QueryPage queryEvents(final Query query, final NiFiUser user, final String continuationToken, final int pageSize) throws IOException {
+        return eventIndex.queryEvents(query, createEventAuthorizer(user), continuationToken, pageSize);
+    }
+
+    @Override
+    public List<ProvenanceEventRollup> getEventRollups(final ProvenanceRollupQuery query, final NiFiUser user) {
+        if (rollupStore == null) {
+            throw new UnsupportedOperationException("Rollups of Provenance Events are not enabled; set the " + RepositoryConfiguration.ROLLUP_ENABLED
+                + " property to true in order to enable them");
+        }
+
+        return rollupStore.getRollups(query, componentId -> isAuthorized(componentId, user));
+    }
+
+    private boolean isAuthorized(final String componentId, final NiFiUser user) {
+        if (authorizer == null || user == null) {
+            return true;
+        }
+
+        try {
+            final Authorizable dataAuthorizable = resourceFactory.createProvenanceDataAuthorizable(componentId);
+            return dataAuthorizable.isAuthorized(authorizer, RequestAction.READ, user);
+        } catch (final ResourceNotFoundException rnfe) {
+            return false;
+        }
+    }
+
+    @Override
+    public Optional<ProvenanceIndexStatus> getIndexStatus() {
+        return eventIndex == null ? Optional.empty() : Optional.of(eventIndex.getIndexStatus());
+    }
+
     @Override
     public Optional<ProvenanceEventRecord> getLatestCachedEvent(final String componentId) throws IOException {
         return eventIndex.getLatestCachedEvent(componentId);
@@ -19,9 +19,11 @@ package org.apache.nifi.provenance.index;
 
 import org.apache.nifi.authorization.user.NiFiUser;
 import org.apache.nifi.provenance.ProvenanceEventRecord;
+import org.apache.nifi.provenance.ProvenanceIndexStatus;
 import org.apache.nifi.provenance.authorization.EventAuthorizer;
 import org.apache.nifi.provenance.lineage.ComputeLineageSubmission;
 import org.apache.nifi.provenance.search.Query;
+import org.apache.nifi.provenance.search.QueryPage;
 import org.apache.nifi.provenance.search.QuerySubmission;
 import org.apache.nifi.provenance.serialization.StorageSummary;
 import org.apache.nifi.provenance.store.EventStore;
@@ -82,6 +84,25 @@ public interface EventIndex extends Closeable {
      */
     QuerySubmission submitQuery(Query query, EventAuthorizer authorizer, String userId);
 
+    /**
+     * Synchronously retrieves a single page of the events that match the given query, newest first
+     *
+     * @param query the query to perform
+     * @param authorizer the authorizer to use in order to determine whether or not a particular event should be included in the result
+     * @param continuationToken the token that was returned with the previous page, or <code>null</code> to retrieve the first page
+     * @param pageSize the maximum number of events to return
+     *
+     * @return the page of events, along with the token to use in order to retrieve the next page
+     * @throws IOException if unable to search the index or read the events from the Event Store
+     * @throws IllegalArgumentException if the continuation token is not valid
+     */
+    QueryPage queryEvents(Query query, EventAuthorizer authorizer, String continuationToken, int pageSize) throws IOException;
+
+    /**
+     * @return the current status of the indexing of events
+     */
+    ProvenanceIndexStatus getIndexStatus();
+
     /**
      * Retrieves the most recent Provenance Event that is cached for the given component that is also accessible by the given user
      * @param componentId the ID of the component
@@ -31,6 +31,17 @@ public interface EventIndexWriter extends Closeable {
 
     boolean index(List<Document> documents, int commitThreshold) throws IOException;
 
+    /**
+     * Adds the given documents to the index
+     *
+     * @param documents the documents to index
+     * @param commitThreshold the number of documents that may be indexed before the writer should be committed
+     * @param commitIntervalNanos the amount of time that may elapse after the last commit before the writer should be committed
+     * @return <code>true</code> if the caller should commit the writer
+     * @throws IOException if unable to add the documents to the index
+     */
+    boolean index(List<Document> documents, int commitThreshold, long commitIntervalNanos) throws IOException;
+
     File getDirectory();
 
     long commit() throws IOException;
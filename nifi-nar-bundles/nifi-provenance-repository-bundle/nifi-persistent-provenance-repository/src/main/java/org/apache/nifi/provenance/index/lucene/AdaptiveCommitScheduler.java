@@ -0,0 +1,65 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.nifi.provenance.index.lucene;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Determines how long an Index Writer may go without being committed, based on how far indexing has fallen behind. Committing an index flushes
+ * and syncs its segments, which is expensive and stalls the threads that are writing to it, so while events are waiting to be indexed, commits are
+ * deferred for up to the maximum interval in order to maximize throughput. When indexing has caught up, commits are made as often as every minimum
+ * interval, so that fewer events have to be re-indexed if NiFi is restarted.
+ */
+public class AdaptiveCommitScheduler {
+    private final long minIntervalNanos;
+    private final long maxIntervalNanos;
+
+    public AdaptiveCommitScheduler(final long minInterval, final long maxInterval, final TimeUnit timeUnit) {
+        if (minInterval < 0 || maxInterval < minInterval) {
+            throw new IllegalArgumentException("Minimum commit interval must not be negative and must not be greater than the maximum commit interval");
+        }
+
+        this.minIntervalNanos = timeUnit.toNanos(minInterval);
+        this.maxIntervalNanos = timeUnit.toNanos(maxInterval);
+    }
+
+    /**
+     * Returns the amount of time that may elapse between commits of an Index Writer, scaling linearly from the minimum interval, when no events
+     * are waiting to be indexed, to the maximum interval, when the queue of events waiting to be indexed is full.
+     *
+     * @param queuedEvents the number of events waiting to be indexed
+     * @param queueCapacity the number of events that may wait to be indexed before the repository applies back-pressure
+     * @return the commit interval, in nanoseconds
+     */
+    public long getCommitIntervalNanos(final int queuedEvents, final int queueCapacity) {
+        if (queuedEvents <= 0 || queueCapacity <= 0) {
+            return minIntervalNanos;
+        }
+
+        final double fullness = Math.min(1D, (double) queuedEvents / queueCapacity);
+        return minIntervalNanos + (long) ((maxIntervalNanos - minIntervalNanos) * fullness);
+    }
+
+    public long getMinIntervalNanos() {
+        return minIntervalNanos;
+    }
+
+    public long getMaxIntervalNanos() {
+        return maxIntervalNanos;
+    }
+}
@@ -21,6 +21,7 @@ import org.apache.lucene.document.Field;
 import org.apache.lucene.document.Field.Store;
 import org.apache.lucene.document.FieldType;
 import org.apache.lucene.document.LongPoint;
+import org.apache.lucene.document.NumericDocValuesField;
 import org.apache.lucene.document.StringField;
 import org.apache.lucene.index.DocValuesType;
 import org.apache.lucene.index.IndexOptions;
@@ -32,12 +33,21 @@ import org.apache.nifi.provenance.lucene.LuceneUtil;
 import org.apache.nifi.provenance.search.SearchableField;
 import org.apache.nifi.provenance.serialization.StorageSummary;
 
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 public class ConvertEventToLuceneDocument {
+    /**
+     * The name of the field that holds the Event Time as a numeric doc value, so that paginated queries can sort their hits by Event Time.
+     * It is separate from the Event Time point field because indexes that were written before it was introduced hold no doc values for that field.
+     */
+    public static final String EVENT_TIME_SORT_FIELD = "EventTimeSort";
+
     private final Set<SearchableField> searchableEventFields;
     private final Set<SearchableField> searchableAttributeFields;
 
@@ -46,12 +56,12 @@ public class ConvertEventToLuceneDocument {
         this.searchableAttributeFields = Collections.unmodifiableSet(new HashSet<>(searchableAttributes));
     }
 
-    private void addField(final Document doc, final SearchableField field, final String value) {
+    private void addField(final DocumentBuilder builder, final SearchableField field, final String value) {
         if (value == null || (!field.isAttribute() && !searchableEventFields.contains(field))) {
             return;
         }
 
-        doc.add(new StringField(field.getSearchableFieldName(), value.toLowerCase(), Store.NO));
+        builder.addString(field.getSearchableFieldName(), value.toLowerCase());
     }
 
 
@@ -60,52 +70,67 @@ public class ConvertEventToLuceneDocument {
     }
 
     public Document convert(final ProvenanceEventRecord record, final long eventId) {
-        final Document doc = new Document();
-        addField(doc, SearchableFields.FlowFileUUID, record.getFlowFileUuid());
-        addField(doc, SearchableFields.Filename, record.getAttribute(CoreAttributes.FILENAME.key()));
-        addField(doc, SearchableFields.ComponentID, record.getComponentId());
-        addField(doc, SearchableFields.AlternateIdentifierURI, record.getAlternateIdentifierUri());
-        addField(doc, SearchableFields.EventType, record.getEventType().name());
-        addField(doc, SearchableFields.Relationship, record.getRelationship());
-        addField(doc, SearchableFields.Details, record.getDetails());
-        addField(doc, SearchableFields.ContentClaimSection, record.getContentClaimSection());
-        addField(doc, SearchableFields.ContentClaimContainer, record.getContentClaimContainer());
-        addField(doc, SearchableFields.ContentClaimIdentifier, record.getContentClaimIdentifier());
-        addField(doc, SearchableFields.SourceQueueIdentifier, record.getSourceQueueIdentifier());
-        addField(doc, SearchableFields.TransitURI, record.getTransitUri());
+        final NewDocumentBuilder builder = new NewDocumentBuilder();
+        return populate(builder, record, eventId) ? builder.getDocument() : null;
+    }
+
+    /**
+     * Converts the given event into the given ReusableDocument, replacing any values that it previously held. The returned Document is owned by the
+     * ReusableDocument, so it must not be retained once it has been handed to the Index Writer, as the next conversion will overwrite it.
+     *
+     * @param record the event to convert
+     * @param eventId the ID of the event
+     * @param reusableDocument the document to populate
+     * @return the populated Document, or <code>null</code> if the event has nothing that should be indexed
+     */
+    public Document convert(final ProvenanceEventRecord record, final long eventId, final ReusableDocument reusableDocument) {
+        reusableDocument.reset();
+        return populate(reusableDocument, record, eventId) ? reusableDocument.getDocument() : null;
+    }
+
+    private boolean populate(final DocumentBuilder builder, final ProvenanceEventRecord record, final long eventId) {
+        addField(builder, SearchableFields.FlowFileUUID, record.getFlowFileUuid());
+        addField(builder, SearchableFields.Filename, record.getAttribute(CoreAttributes.FILENAME.key()));
+        addField(builder, SearchableFields.ComponentID, record.getComponentId());
+        addField(builder, SearchableFields.AlternateIdentifierURI, record.getAlternateIdentifierUri());
+        addField(builder, SearchableFields.EventType, record.getEventType().name());
+        addField(builder, SearchableFields.Relationship, record.getRelationship());
+        addField(builder, SearchableFields.Details, record.getDetails());
+        addField(builder, SearchableFields.ContentClaimSection, record.getContentClaimSection());
+        addField(builder, SearchableFields.ContentClaimContainer, record.getContentClaimContainer());
+        addField(builder, SearchableFields.ContentClaimIdentifier, record.getContentClaimIdentifier());
+        addField(builder, SearchableFields.SourceQueueIdentifier, record.getSourceQueueIdentifier());
+        addField(builder, SearchableFields.TransitURI, record.getTransitUri());
 
         for (final SearchableField searchableField : searchableAttributeFields) {
-            addField(doc, searchableField, LuceneUtil.truncateIndexField(record.getAttribute(searchableField.getSearchableFieldName())));
+            addField(builder, searchableField, LuceneUtil.truncateIndexField(record.getAttribute(searchableField.getSearchableFieldName())));
         }
 
         // Index the fields that we always index (unless there's nothing else to index at all)
-        if (doc.getFields().isEmpty()) {
-            return null;
+        if (builder.isEmpty()) {
+            return false;
         }
 
         // Always include Lineage Start Date because it allows us to make our Lineage queries more efficient.
-        doc.add(new LongPoint(SearchableFields.LineageStartDate.getSearchableFieldName(), record.getLineageStartDate()));
         // Always include Event Time because most queries are bound by a start and end time.
-        doc.add(new LongPoint(SearchableFields.EventTime.getSearchableFieldName(), record.getEventTime()));
         // We always include File Size because the UI wants to always render the controls for specifying this. This idea could be revisited.
-        doc.add(new LongPoint(SearchableFields.FileSize.getSearchableFieldName(), record.getFileSize()));
         // We always store the event Event ID in the Document but do not index it. It doesn't make sense to query based on Event ID because
         // if we want a particular Event ID, we can just obtain it directly from the EventStore. But when we obtain a Document, this info must
-        // be stored so that we know how to lookup the event in the store.
-        doc.add(new UnIndexedLongField(SearchableFields.Identifier.getSearchableFieldName(), eventId));
+        // be stored so that we know how to lookup the event in the store. The Event Time is also stored as a doc value in order to sort paginated queries.
+        builder.addAlwaysIndexedFields(record.getLineageStartDate(), record.getEventTime(), record.getFileSize(), eventId);
 
         // If it's event is a FORK, or JOIN, add the FlowFileUUID for all child/parent UUIDs.
         final ProvenanceEventType eventType = record.getEventType();
         if (eventType == ProvenanceEventType.FORK || eventType == ProvenanceEventType.CLONE || eventType == ProvenanceEventType.REPLAY) {
             for (final String uuid : record.getChildUuids()) {
                 if (!uuid.equals(record.getFlowFileUuid())) {
-                    addField(doc, SearchableFields.FlowFileUUID, uuid);
+                    addField(builder, SearchableFields.FlowFileUUID, uuid);
                 }
             }
         } else if (eventType == ProvenanceEventType.JOIN) {
             for (final String uuid : record.getParentUuids()) {
                 if (!uuid.equals(record.getFlowFileUuid())) {
-                    addField(doc, SearchableFields.FlowFileUUID, uuid);
+                    addField(builder, SearchableFields.FlowFileUUID, uuid);
                 }
             }
         } else if (eventType == ProvenanceEventType.RECEIVE && record.getSourceSystemFlowFileIdentifier() != null) {
@@ -121,11 +146,115 @@ public class ConvertEventToLuceneDocument {
             }
 
             if (sourceFlowFileUUID != null) {
-                addField(doc, SearchableFields.FlowFileUUID, sourceFlowFileUUID);
+                addField(builder, SearchableFields.FlowFileUUID, sourceFlowFileUUID);
             }
         }
 
-        return doc;
+        return true;
+    }
+
+    private interface DocumentBuilder {
+        void addString(String fieldName, String value);
+
+        void addAlwaysIndexedFields(long lineageStartDate, long eventTime, long fileSize, long eventId);
+
+        boolean isEmpty();
+    }
+
+    private static class NewDocumentBuilder implements DocumentBuilder {
+        private final Document document = new Document();
+
+        @Override
+        public void addString(final String fieldName, final String value) {
+            document.add(new StringField(fieldName, value, Store.NO));
+        }
+
+        @Override
+        public void addAlwaysIndexedFields(final long lineageStartDate, final long eventTime, final long fileSize, final long eventId) {
+            document.add(new LongPoint(SearchableFields.LineageStartDate.getSearchableFieldName(), lineageStartDate));
+            document.add(new LongPoint(SearchableFields.EventTime.getSearchableFieldName(), eventTime));
+            document.add(new NumericDocValuesField(EVENT_TIME_SORT_FIELD, eventTime));
+            document.add(new LongPoint(SearchableFields.FileSize.getSearchableFieldName(), fileSize));
+            document.add(new UnIndexedLongField(SearchableFields.Identifier.getSearchableFieldName(), eventId));
+        }
+
+        @Override
+        public boolean isEmpty() {
+            return document.getFields().isEmpty();
+        }
+
+        Document getDocument() {
+            return document;
+        }
+    }
+
+    /**
+     * A Document whose Field instances are retained and re-populated for each event that is converted into it, rather than being created anew.
+     * Lucene consumes the values of a Document's fields when the Document is added to the index, so once the Index Writer has returned, the same
+     * Document and Fields can be used for another event. This avoids allocating a Document and a dozen or so Fields for every event indexed.
+     * A ReusableDocument is not thread-safe.
+     */
+    public static class ReusableDocument implements DocumentBuilder {
+        private final Document document = new Document();
+        private final Map<String, FieldSlots> stringFields = new HashMap<>();
+        private final LongPoint lineageStartDate = new LongPoint(SearchableFields.LineageStartDate.getSearchableFieldName(), 0L);
+        private final LongPoint eventTime = new LongPoint(SearchableFields.EventTime.getSearchableFieldName(), 0L);
+        private final NumericDocValuesField eventTimeSort = new NumericDocValuesField(EVENT_TIME_SORT_FIELD, 0L);
+        private final LongPoint fileSize = new LongPoint(SearchableFields.FileSize.getSearchableFieldName(), 0L);
+        private final UnIndexedLongField eventId = new UnIndexedLongField(SearchableFields.Identifier.getSearchableFieldName(), 0L);
+
+        void reset() {
+            document.clear();
+            for (final FieldSlots slots : stringFields.values()) {
+                slots.used = 0;
+            }
+        }
+
+        @Override
+        public void addString(final String fieldName, final String value) {
+            final FieldSlots slots = stringFields.computeIfAbsent(fieldName, name -> new FieldSlots());
+
+            final StringField field;
+            if (slots.used < slots.fields.size()) {
+                field = slots.fields.get(slots.used);
+                field.setStringValue(value);
+            } else {
+                field = new StringField(fieldName, value, Store.NO);
+                slots.fields.add(field);
+            }
+
+            slots.used++;
+            document.add(field);
+        }
+
+        @Override
+        public void addAlwaysIndexedFields(final long lineageStartDate, final long eventTime, final long fileSize, final long eventId) {
+            this.lineageStartDate.setLongValue(lineageStartDate);
+            this.eventTime.setLongValue(eventTime);
+            this.eventTimeSort.setLongValue(eventTime);
+            this.fileSize.setLongValue(fileSize);
+            this.eventId.setLongValue(eventId);
+
+            document.add(this.lineageStartDate);
+            document.add(this.eventTime);
+            document.add(this.eventTimeSort);
+            document.add(this.fileSize);
+            document.add(this.eventId);
+        }
+
+        @Override
+        public boolean isEmpty() {
+            return document.getFields().isEmpty();
+        }
+
+        Document getDocument() {
+            return document;
+        }
+    }
+
+    private static class FieldSlots {
+        private final List<StringField> fields = new ArrayList<>(2);
+        private int used = 0;
     }
 
     private static class UnIndexedLongField extends Field {
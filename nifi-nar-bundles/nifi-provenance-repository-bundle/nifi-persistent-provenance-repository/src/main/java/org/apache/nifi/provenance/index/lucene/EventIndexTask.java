@@ -21,9 +21,12 @@ import org.apache.lucene.document.Document;
 import org.apache.lucene.document.LongPoint;
 import org.apache.lucene.search.Query;
 import org.apache.nifi.events.EventReporter;
+import org.apache.nifi.provenance.ProvenanceEventRecord;
 import org.apache.nifi.provenance.SearchableFields;
 import org.apache.nifi.provenance.index.EventIndexWriter;
+import org.apache.nifi.provenance.index.lucene.ConvertEventToLuceneDocument.ReusableDocument;
 import org.apache.nifi.provenance.lucene.IndexManager;
+import org.apache.nifi.provenance.serialization.StorageSummary;
 import org.apache.nifi.reporting.Severity;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -31,6 +34,7 @@ import org.slf4j.LoggerFactory;
 import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -38,6 +42,7 @@ import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.stream.Collectors;
 
 public class EventIndexTask implements Runnable {
@@ -45,23 +50,55 @@ public class EventIndexTask implements Runnable {
     private static final String EVENT_CATEGORY = "Provenance Repository";
     public static final int MAX_DOCUMENTS_PER_THREAD = 100;
     public static final int DEFAULT_MAX_EVENTS_PER_COMMIT = 1_000_000;
+    public static final long DEFAULT_COMMIT_INTERVAL_SECONDS = 30L;
 
     private final BlockingQueue<StoredDocument> documentQueue;
+    private final int queueCapacity;
     private final IndexManager indexManager;
     private volatile boolean shutdown = false;
 
     private final IndexDirectoryManager directoryManager;
+    private final ConvertEventToLuceneDocument eventConverter;
     private final EventReporter eventReporter;
+    private final int batchSize;
     private final int commitThreshold;
+    private final AdaptiveCommitScheduler commitScheduler;
+
+    private final AtomicLong eventsProcessed = new AtomicLong(0L);
+    private final AtomicLong eventsIndexed = new AtomicLong(0L);
+    private final AtomicLong commitCount = new AtomicLong(0L);
+    private volatile boolean indexing = false;
 
     private volatile CompletableFuture<Void> shutdownComplete;
 
     public EventIndexTask(final BlockingQueue<StoredDocument> documentQueue, final IndexManager indexManager,
         final IndexDirectoryManager directoryManager, final int maxEventsPerCommit, final EventReporter eventReporter) {
+        this(documentQueue, indexManager, directoryManager, null, MAX_DOCUMENTS_PER_THREAD, maxEventsPerCommit,
+            new AdaptiveCommitScheduler(DEFAULT_COMMIT_INTERVAL_SECONDS, DEFAULT_COMMIT_INTERVAL_SECONDS, TimeUnit.SECONDS), eventReporter);
+    }
+
+    /**
+     * @param documentQueue the queue to pull documents from
+     * @param indexManager the Index Manager that provides Index Writers
+     * @param directoryManager the manager of the index directories
+     * @param eventConverter the converter to use to create Documents for any queued events that do not yet have a Document; may be null if all queued
+     *            events will already have a Document
+     * @param batchSize the maximum number of documents to pull from the queue and add to an index at once
+     * @param maxEventsPerCommit the number of events that may be indexed before an Index Writer is committed
+     * @param commitScheduler determines how long an Index Writer may go without being committed
+     * @param eventReporter the Event Reporter for reporting errors
+     */
+    public EventIndexTask(final BlockingQueue<StoredDocument> documentQueue, final IndexManager indexManager, final IndexDirectoryManager directoryManager,
+        final ConvertEventToLuceneDocument eventConverter, final int batchSize, final int maxEventsPerCommit, final AdaptiveCommitScheduler commitScheduler,
+        final EventReporter eventReporter) {
         this.documentQueue = documentQueue;
+        this.queueCapacity = (int) Math.min(Integer.MAX_VALUE, (long) documentQueue.size() + documentQueue.remainingCapacity());
         this.indexManager = indexManager;
         this.directoryManager = directoryManager;
+        this.eventConverter = eventConverter;
+        this.batchSize = batchSize;
         this.commitThreshold = maxEventsPerCommit;
+        this.commitScheduler = commitScheduler;
         this.eventReporter = eventReporter;
     }
 
@@ -85,12 +122,13 @@ public class EventIndexTask implements Runnable {
         }
 
         destination.add(firstDoc);
-        documentQueue.drainTo(destination, MAX_DOCUMENTS_PER_THREAD - 1);
+        documentQueue.drainTo(destination, batchSize - 1);
     }
 
     @Override
     public void run() {
-        final List<StoredDocument> toIndex = new ArrayList<>(MAX_DOCUMENTS_PER_THREAD);
+        final List<StoredDocument> toIndex = new ArrayList<>(batchSize);
+        final List<ReusableDocument> reusableDocuments = new ArrayList<>();
 
         while (!shutdown) {
             try {
@@ -102,15 +140,20 @@ public class EventIndexTask implements Runnable {
                     continue;
                 }
 
-                // Write documents to the currently active index.
-                final Map<String, List<StoredDocument>> docsByPartition = toIndex.stream()
-                    .collect(Collectors.groupingBy(doc -> doc.getStorageSummary().getPartitionName().get()));
+                indexing = true;
+                try {
+                    // Write documents to the currently active index.
+                    final Map<String, List<Document>> docsByPartition = createDocuments(toIndex, reusableDocuments);
 
-                for (final Map.Entry<String, List<StoredDocument>> entry : docsByPartition.entrySet()) {
-                    final String partitionName = entry.getKey();
-                    final List<StoredDocument> docs = entry.getValue();
+                    for (final Map.Entry<String, List<Document>> entry : docsByPartition.entrySet()) {
+                        final String partitionName = entry.getKey();
+                        final List<Document> docs = entry.getValue();
 
-                    index(docs, partitionName);
+                        index(docs, partitionName);
+                    }
+                } finally {
+                    indexing = false;
+                    eventsProcessed.addAndGet(toIndex.size());
                 }
             } catch (final Exception e) {
                 logger.error("Failed to index Provenance Events", e);
@@ -124,6 +167,67 @@ public class EventIndexTask implements Runnable {
         }
     }
 
+    /**
+     * Groups the Documents for the given stored events by partition, creating the Documents for any events that do not yet have one. Documents
+     * are created in the given ReusableDocuments, which are only valid until the next call to this method.
+     */
+    private Map<String, List<Document>> createDocuments(final List<StoredDocument> storedDocuments, final List<ReusableDocument> reusableDocuments) {
+        final Map<String, List<Document>> docsByPartition = new HashMap<>();
+
+        int reusableIndex = 0;
+        for (final StoredDocument storedDocument : storedDocuments) {
+            final StorageSummary summary = storedDocument.getStorageSummary();
+
+            Document document = storedDocument.getDocument();
+            if (document == null) {
+                if (reusableIndex == reusableDocuments.size()) {
+                    reusableDocuments.add(new ReusableDocument());
+                }
+
+                final ProvenanceEventRecord event = storedDocument.getEvent();
+                document = eventConverter.convert(event, summary.getEventId(), reusableDocuments.get(reusableIndex));
+                if (document == null) {
+                    logger.debug("Received Provenance Event {} to index but it contained no information that should be indexed, so skipping it", summary.getEventId());
+                    continue;
+                }
+
+                reusableIndex++;
+            }
+
+            docsByPartition.computeIfAbsent(summary.getPartitionName().get(), partition -> new ArrayList<>()).add(document);
+        }
+
+        return docsByPartition;
+    }
+
+    /**
+     * @return the number of events that this task has taken from the queue and either indexed or determined need not be indexed
+     */
+    public long getEventsProcessed() {
+        return eventsProcessed.get();
+    }
+
+    /**
+     * @return the number of Documents that this task has added to an index
+     */
+    public long getEventsIndexed() {
+        return eventsIndexed.get();
+    }
+
+    /**
+     * @return the number of times that this task has committed an Index Writer
+     */
+    public long getCommitCount() {
+        return commitCount.get();
+    }
+
+    /**
+     * @return <code>true</code> if this task is currently indexing events, <code>false</code> if it is waiting for events to index
+     */
+    public boolean isIndexing() {
+        return indexing;
+    }
+
 
     /**
      * Re-indexes the documents given. The IndexableDocument's provided are required to have the IndexDirectory provided.
@@ -169,21 +273,16 @@ public class EventIndexTask implements Runnable {
     }
 
 
-    private void index(final List<StoredDocument> toIndex, final String partitionName) throws IOException {
-        if (toIndex.isEmpty()) {
+    private void index(final List<Document> documents, final String partitionName) throws IOException {
+        if (documents.isEmpty()) {
             return;
         }
 
-        // Convert the IndexableDocument list into a List of Documents so that we can pass them to the Index Writer.
-        final List<Document> documents = toIndex.stream()
-            .map(StoredDocument::getDocument)
-            .collect(Collectors.toList());
-
         boolean requestClose = false;
         boolean requestCommit = false;
 
-        final long minEventTime = toIndex.stream()
-            .mapToLong(doc -> doc.getDocument().getField(SearchableFields.EventTime.getSearchableFieldName()).numericValue().longValue())
+        final long minEventTime = documents.stream()
+            .mapToLong(doc -> doc.getField(SearchableFields.EventTime.getSearchableFieldName()).numericValue().longValue())
             .min()
             .getAsLong();
 
@@ -198,8 +297,11 @@ public class EventIndexTask implements Runnable {
         }
 
         try {
-            // Perform the actual indexing.
-            boolean writerIndicatesCommit = indexWriter.index(documents, commitThreshold);
+            // Perform the actual indexing. The longer the queue of events waiting to be indexed, the longer we allow the writer to go without
+            // being committed, as committing stalls indexing.
+            final long commitIntervalNanos = commitScheduler.getCommitIntervalNanos(documentQueue.size(), queueCapacity);
+            boolean writerIndicatesCommit = indexWriter.index(documents, commitThreshold, commitIntervalNanos);
+            eventsIndexed.addAndGet(documents.size());
 
             // If we don't need to commit index based on what index writer tells us, we will still want
             // to commit the index if it's assigned to a partition and this is no longer the active index
@@ -251,6 +353,7 @@ public class EventIndexTask implements Runnable {
     protected void commit(final EventIndexWriter indexWriter) throws IOException {
         final long start = System.nanoTime();
         final long approximateCommitCount = indexWriter.commit();
+        commitCount.incrementAndGet();
         final long millis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
         logger.debug("Successfully committed approximately {} Events to {} in {} millis", approximateCommitCount, indexWriter, millis);
     }
@@ -29,6 +29,8 @@ import org.apache.nifi.events.EventReporter;
 import org.apache.nifi.provenance.AsyncLineageSubmission;
 import org.apache.nifi.provenance.AsyncQuerySubmission;
 import org.apache.nifi.provenance.ProvenanceEventRecord;
+import org.apache.nifi.provenance.ProvenanceIndexStatus;
+import org.apache.nifi.provenance.ProvenanceQueryCursor;
 import org.apache.nifi.provenance.RepositoryConfiguration;
 import org.apache.nifi.provenance.SearchableFields;
 import org.apache.nifi.provenance.StandardLineageResult;
@@ -43,9 +45,11 @@ import org.apache.nifi.provenance.lineage.LineageComputationType;
 import org.apache.nifi.provenance.lucene.IndexManager;
 import org.apache.nifi.provenance.lucene.LuceneUtil;
 import org.apache.nifi.provenance.search.Query;
+import org.apache.nifi.provenance.search.QueryPage;
 import org.apache.nifi.provenance.search.QuerySubmission;
 import org.apache.nifi.provenance.serialization.StorageSummary;
 import org.apache.nifi.provenance.store.EventStore;
+import org.apache.nifi.provenance.store.LineageIndex;
 import org.apache.nifi.provenance.util.DirectoryUtils;
 import org.apache.nifi.provenance.util.NamedThreadFactory;
 import org.apache.nifi.reporting.Severity;
@@ -62,14 +66,18 @@ import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.Date;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.SortedSet;
+import java.util.TreeSet;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
@@ -88,10 +96,11 @@ public class LuceneEventIndex implements EventIndex {
     public static final int MAX_LINEAGE_NODES = 1000;
     public static final int MAX_INDEX_THREADS = 100;
     public static final int MAX_LINEAGE_UUIDS = 100;
+    public static final int DEFAULT_INDEX_QUEUE_CAPACITY = 1000;
 
     private final ConcurrentMap<String, AsyncQuerySubmission> querySubmissionMap = new ConcurrentHashMap<>();
     private final ConcurrentMap<String, AsyncLineageSubmission> lineageSubmissionMap = new ConcurrentHashMap<>();
-    private final BlockingQueue<StoredDocument> documentQueue = new LinkedBlockingQueue<>(1000);
+    private final BlockingQueue<StoredDocument> documentQueue;
     private final List<EventIndexTask> indexTasks = Collections.synchronizedList(new ArrayList<>());
     private final ExecutorService queryExecutor;
     private final ExecutorService indexExecutor;
@@ -143,15 +152,24 @@ public class LuceneEventIndex implements EventIndex {
             numIndexThreads = configuredIndexPoolSize;
         }
 
+        this.config = config;
+        this.indexManager = indexManager;
+        this.eventConverter = new ConvertEventToLuceneDocument(config.getSearchableFields(), config.getSearchableAttributes());
+
+        // Events are converted into Lucene Documents by the indexing threads, in batches of up to the configured batch size. Allow enough
+        // events to be queued that each thread can take two full batches before the repository applies back-pressure.
+        final int batchSize = config.getIndexBatchSize();
+        final int queueCapacity = Math.max(DEFAULT_INDEX_QUEUE_CAPACITY, 2 * batchSize * numIndexThreads);
+        documentQueue = new LinkedBlockingQueue<>(queueCapacity);
+
+        final AdaptiveCommitScheduler commitScheduler = new AdaptiveCommitScheduler(config.getMinIndexCommitInterval(TimeUnit.MILLISECONDS),
+            config.getMaxIndexCommitInterval(TimeUnit.MILLISECONDS), TimeUnit.MILLISECONDS);
+
         for (int i = 0; i < numIndexThreads; i++) {
-            final EventIndexTask task = new EventIndexTask(documentQueue, indexManager, directoryManager, maxEventsPerCommit, eventReporter);
+            final EventIndexTask task = new EventIndexTask(documentQueue, indexManager, directoryManager, eventConverter, batchSize, maxEventsPerCommit, commitScheduler, eventReporter);
             indexTasks.add(task);
             indexExecutor.submit(task);
         }
-
-        this.config = config;
-        this.indexManager = indexManager;
-        this.eventConverter = new ConvertEventToLuceneDocument(config.getSearchableFields(), config.getSearchableAttributes());
     }
 
     @Override
@@ -308,7 +326,8 @@ public class LuceneEventIndex implements EventIndex {
 
     @Override
     public long getMinimumEventIdToReindex(final String partitionName) {
-        return Math.max(0, getMaxEventId(partitionName) - EventIndexTask.MAX_DOCUMENTS_PER_THREAD * LuceneEventIndex.MAX_INDEX_THREADS);
+        final int maxDocumentsPerThread = Math.max(EventIndexTask.MAX_DOCUMENTS_PER_THREAD, config.getIndexBatchSize());
+        return Math.max(0, getMaxEventId(partitionName) - (long) maxDocumentsPerThread * LuceneEventIndex.MAX_INDEX_THREADS);
     }
 
     protected IndexDirectoryManager getDirectoryManager() {
@@ -455,33 +474,30 @@ public class LuceneEventIndex implements EventIndex {
             cachedQuery.update(event, location);
         }
 
-        final Document document = eventConverter.convert(event, location);
-        if (document == null) {
-            logger.debug("Received Provenance Event {} to index but it contained no information that should be indexed, so skipping it", event.getEventId());
-        } else {
-            final StoredDocument doc = new StoredDocument(document, location);
-            boolean added = false;
-            while (!added && !closed) {
+        // The event is converted into a Lucene Document by the indexing thread, so that conversion is done in parallel and off of the thread that
+        // is storing the events.
+        final StoredDocument doc = new StoredDocument(event, location);
+        boolean added = false;
+        while (!added && !closed) {
 
-                added = documentQueue.offer(doc);
-                if (!added) {
-                    final long start = System.nanoTime();
-                    try {
-                        added = documentQueue.offer(doc, 1, TimeUnit.SECONDS);
-                    } catch (final InterruptedException e) {
-                        Thread.currentThread().interrupt();
-                        logger.warn("Interrupted while attempting to enqueue Provenance Event for indexing; this event will not be indexed");
-                        return;
-                    }
-                    final long nanos = System.nanoTime() - start;
-                    queuePauseNanos.add(new TimestampedLong(nanos));
+            added = documentQueue.offer(doc);
+            if (!added) {
+                final long start = System.nanoTime();
+                try {
+                    added = documentQueue.offer(doc, 1, TimeUnit.SECONDS);
+                } catch (final InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    logger.warn("Interrupted while attempting to enqueue Provenance Event for indexing; this event will not be indexed");
+                    return;
                 }
+                final long nanos = System.nanoTime() - start;
+                queuePauseNanos.add(new TimestampedLong(nanos));
+            }
 
-                if (added) {
-                    final long totalEventCount = eventCount.incrementAndGet();
-                    if (totalEventCount % 1_000_000 == 0 && logger.isDebugEnabled()) {
-                        incrementAndReportStats();
-                    }
+            if (added) {
+                final long totalEventCount = eventCount.incrementAndGet();
+                if (totalEventCount % 1_000_000 == 0 && logger.isDebugEnabled()) {
+                    incrementAndReportStats();
                 }
             }
         }
@@ -506,6 +522,35 @@ public class LuceneEventIndex implements EventIndex {
             millis, numEventsLast5, eventCount.get());
     }
 
+    @Override
+    public ProvenanceIndexStatus getIndexStatus() {
+        long eventsProcessed = 0L;
+        long eventsIndexed = 0L;
+        long commitCount = 0L;
+        int activeThreads = 0;
+
+        final List<EventIndexTask> tasks;
+        synchronized (indexTasks) {
+            tasks = new ArrayList<>(indexTasks);
+        }
+
+        for (final EventIndexTask task : tasks) {
+            eventsProcessed += task.getEventsProcessed();
+            eventsIndexed += task.getEventsIndexed();
+            commitCount += task.getCommitCount();
+            if (task.isIndexing()) {
+                activeThreads++;
+            }
+        }
+
+        final long eventsAwaitingIndex = Math.max(0L, eventCount.get() - eventsProcessed);
+
+        final TimestampedLong pauseNanos = queuePauseNanos.getAggregateValue(System.currentTimeMillis() - TimeUnit.MINUTES.toMillis(5));
+        final long backPressureMillis = pauseNanos == null ? 0L : TimeUnit.NANOSECONDS.toMillis(pauseNanos.getValue());
+
+        return new ProvenanceIndexStatus(eventsAwaitingIndex, eventsIndexed, tasks.size(), activeThreads, commitCount, backPressureMillis);
+    }
+
     @Override
     public void addEvents(final Map<ProvenanceEventRecord, StorageSummary> events) {
         eventsIndexed.add(new TimestampedLong((long) events.size()));
@@ -548,6 +593,12 @@ public class LuceneEventIndex implements EventIndex {
             throw new IllegalArgumentException(String.format("Cannot compute lineage for more than %s FlowFiles. This lineage contains %s.", MAX_LINEAGE_UUIDS, flowFileUuids.size()));
         }
 
+        // If the Event Store is able to tell us which events make up the lineage, there is no need to search the index
+        final Optional<List<Long>> lineageEventIds = getLineageEventIds(flowFileUuids);
+        if (lineageEventIds.isPresent()) {
+            return submitLineageComputation(lineageEventIds.get(), flowFileUuids, user, eventAuthorizer, computationType, eventId);
+        }
+
         final List<File> indexDirs = directoryManager.getDirectories(startTimestamp, endTimestamp);
         final AsyncLineageSubmission submission = new AsyncLineageSubmission(computationType, eventId, flowFileUuids, indexDirs.size(), user == null ? null : user.getIdentity());
         lineageSubmissionMap.put(submission.getLineageIdentifier(), submission);
@@ -577,6 +628,71 @@ public class LuceneEventIndex implements EventIndex {
         return submission;
     }
 
+    private Optional<List<Long>> getLineageEventIds(final Collection<String> flowFileUuids) {
+        try {
+            return eventStore.getLineageEventIds(flowFileUuids);
+        } catch (final Exception e) {
+            logger.warn("Failed to look up lineage of FlowFiles {} in the Event Store; will search the Event Index instead", flowFileUuids, e);
+            return Optional.empty();
+        }
+    }
+
+    private ComputeLineageSubmission submitLineageComputation(final List<Long> lineageEventIds, final Collection<String> flowFileUuids, final NiFiUser user,
+        final EventAuthorizer eventAuthorizer, final LineageComputationType computationType, final Long eventId) {
+
+        final AsyncLineageSubmission submission = new AsyncLineageSubmission(computationType, eventId, flowFileUuids, 1, user == null ? null : user.getIdentity());
+        lineageSubmissionMap.put(submission.getLineageIdentifier(), submission);
+        logger.debug("Event Store provided {} candidate Event IDs for lineage of FlowFiles {}", lineageEventIds.size(), flowFileUuids);
+
+        queryExecutor.submit(() -> {
+            try {
+                final List<ProvenanceEventRecord> events = getLineageEvents(lineageEventIds, flowFileUuids, eventAuthorizer);
+                submission.getResult().update(events, events.size());
+            } catch (final Exception e) {
+                submission.getResult().setError("Failed to retrieve Provenance Events from store; see logs for more details");
+                logger.error("Failed to retrieve Provenance Events from store", e);
+            }
+        });
+
+        try {
+            submission.getResult().awaitCompletion(500, TimeUnit.MILLISECONDS);
+        } catch (final InterruptedException ie) {
+            Thread.currentThread().interrupt();
+        }
+
+        return submission;
+    }
+
+    private List<ProvenanceEventRecord> getLineageEvents(final List<Long> lineageEventIds, final Collection<String> flowFileUuids, final EventAuthorizer eventAuthorizer)
+            throws IOException {
+        // As with the Event Index, keep the most recent events if there are more than MAX_LINEAGE_NODES. Events are retrieved in batches because
+        // the candidate Event IDs may include some events that are not part of the lineage and must be discarded. This must happen before
+        // unauthorized events are replaced with placeholders, since a placeholder no longer indicates which FlowFiles the event relates to.
+        final List<ProvenanceEventRecord> lineageEvents = new ArrayList<>();
+        int end = lineageEventIds.size();
+        while (end > 0 && lineageEvents.size() < MAX_LINEAGE_NODES) {
+            final int start = Math.max(0, end - MAX_LINEAGE_NODES);
+            final List<ProvenanceEventRecord> events = eventStore.getEvents(lineageEventIds.subList(start, end), EventAuthorizer.GRANT_ALL, EventTransformer.EMPTY_TRANSFORMER);
+
+            for (int i = events.size() - 1; i >= 0 && lineageEvents.size() < MAX_LINEAGE_NODES; i--) {
+                final ProvenanceEventRecord event = events.get(i);
+                if (!LineageIndex.isRelated(event, flowFileUuids)) {
+                    continue;
+                }
+
+                if (eventAuthorizer.isAuthorized(event)) {
+                    lineageEvents.add(event);
+                } else {
+                    EventTransformer.PLACEHOLDER_TRANSFORMER.transform(event).ifPresent(lineageEvents::add);
+                }
+            }
+
+            end = start;
+        }
+
+        return lineageEvents;
+    }
+
     private BooleanQuery buildLineageQuery(final Collection<String> flowFileUuids) {
         // Create a query for all Events related to the FlowFiles of interest. We do this by adding all ID's as
         // "SHOULD" clauses and then setting the minimum required to 1.
@@ -669,6 +785,86 @@ public class LuceneEventIndex implements EventIndex {
         return submission;
     }
 
+    @Override
+    public QueryPage queryEvents(final Query query, final EventAuthorizer authorizer, final String continuationToken, final int pageSize) throws IOException {
+        if (pageSize < 1) {
+            throw new IllegalArgumentException("Page size must be at least 1 but was " + pageSize);
+        }
+        if (query.getEndDate() != null && query.getStartDate() != null && query.getStartDate().getTime() > query.getEndDate().getTime()) {
+            throw new IllegalArgumentException("Query End Time cannot be before Query Start Time");
+        }
+
+        final ProvenanceQueryCursor after = ProvenanceQueryCursor.fromToken(continuationToken);
+
+        // No event on a later page can be newer than the cursor, so newer index directories need not be searched
+        Long endTime = query.getEndDate() == null ? null : query.getEndDate().getTime();
+        if (after != null && (endTime == null || after.getEventTime() < endTime)) {
+            endTime = after.getEventTime();
+        }
+
+        final List<File> indexDirectories = directoryManager.getDirectories(query.getStartDate() == null ? null : query.getStartDate().getTime(), endTime);
+        indexDirectories.sort(DirectoryUtils.NEWEST_INDEX_FIRST);
+
+        final org.apache.lucene.search.Query luceneQuery = LuceneUtil.convertQuery(query);
+        logger.debug("Querying {} index directories for page of {} events after {} for query {}", indexDirectories.size(), pageSize, after, luceneQuery);
+
+        // Each directory provides only its newest page of matching events, so no more than one page per directory is ever held in memory.
+        final List<Future<PagedQueryTask.DirectoryPage>> futures = new ArrayList<>(indexDirectories.size());
+        for (final File indexDir : indexDirectories) {
+            futures.add(queryExecutor.submit(new PagedQueryTask(luceneQuery, after, pageSize, indexManager, indexDir)));
+        }
+
+        // Merge the pages of all directories by Event Time
+        final SortedSet<ProvenanceQueryCursor> candidates = new TreeSet<>(ProvenanceQueryCursor.NEWEST_FIRST);
+        boolean moreAvailable = false;
+        for (final Future<PagedQueryTask.DirectoryPage> future : futures) {
+            final PagedQueryTask.DirectoryPage directoryPage;
+            try {
+                directoryPage = future.get();
+            } catch (final InterruptedException ie) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted while querying Provenance Index", ie);
+            } catch (final ExecutionException ee) {
+                throw new IOException("Failed to query Provenance Index", ee.getCause());
+            }
+
+            for (final ProvenanceQueryCursor hit : directoryPage.getHits()) {
+                if (hit.getEventTime() != Long.MIN_VALUE) {
+                    candidates.add(hit);
+                    continue;
+                }
+
+                // The event was indexed before the Event Time was stored in the index, so it must be obtained from the Event Store
+                final Optional<ProvenanceEventRecord> event = eventStore.getEvent(hit.getEventId());
+                event.ifPresent(record -> candidates.add(ProvenanceQueryCursor.of(record)));
+            }
+
+            if (!directoryPage.isExhausted()) {
+                moreAvailable = true;
+            }
+        }
+
+        final List<Long> pageIds = new ArrayList<>(Math.min(pageSize, candidates.size()));
+        ProvenanceQueryCursor last = null;
+        for (final ProvenanceQueryCursor candidate : candidates) {
+            if (pageIds.size() >= pageSize) {
+                moreAvailable = true;
+                break;
+            }
+
+            pageIds.add(candidate.getEventId());
+            last = candidate;
+        }
+
+        final String nextToken = moreAvailable && last != null ? last.toToken() : null;
+
+        final List<ProvenanceEventRecord> events = new ArrayList<>(eventStore.getEvents(pageIds, authorizer, EventTransformer.EMPTY_TRANSFORMER));
+        events.sort(Comparator.comparing(ProvenanceQueryCursor::of, ProvenanceQueryCursor.NEWEST_FIRST));
+        logger.debug("Retrieved {} of {} events for page of query {}; continuation token is {}", events.size(), pageIds.size(), luceneQuery, nextToken);
+
+        return new QueryPage(events, nextToken);
+    }
+
     @Override
     public Optional<ProvenanceEventRecord> getLatestCachedEvent(final String componentId) throws IOException {
         final List<Long> eventIds = latestEventsPerProcessorQuery.getLatestEventIds(componentId);
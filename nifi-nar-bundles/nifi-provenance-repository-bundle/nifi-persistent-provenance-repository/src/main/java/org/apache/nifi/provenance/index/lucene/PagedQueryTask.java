@@ -0,0 +1,162 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.nifi.provenance.index.lucene;
+
+import org.apache.lucene.document.LongPoint;
+import org.apache.lucene.document.NumericDocValuesField;
+import org.apache.lucene.search.BooleanClause;
+import org.apache.lucene.search.BooleanQuery;
+import org.apache.lucene.search.FieldDoc;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.search.Sort;
+import org.apache.lucene.search.SortField;
+import org.apache.lucene.search.TopFieldDocs;
+import org.apache.nifi.provenance.ProvenanceQueryCursor;
+import org.apache.nifi.provenance.SearchableFields;
+import org.apache.nifi.provenance.index.EventIndexSearcher;
+import org.apache.nifi.provenance.lucene.IndexManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Finds the newest events in a single index directory that match a query and that come after a given cursor, ordered by Event Time
+ * and then by Event ID. The bound and the sort are both applied by Lucene, so that only a single page of hits is ever collected, no
+ * matter how many events match the query.
+ */
+public class PagedQueryTask implements Callable<PagedQueryTask.DirectoryPage> {
+    private static final Logger logger = LoggerFactory.getLogger(PagedQueryTask.class);
+    private static final String EVENT_ID_FIELD = SearchableFields.Identifier.getSearchableFieldName();
+    private static final String EVENT_TIME_FIELD = SearchableFields.EventTime.getSearchableFieldName();
+    private static final Sort NEWEST_FIRST;
+
+    static {
+        // Documents that were indexed before the Event Time was stored as a doc value are sorted last, by Event ID
+        final SortField eventTimeSortField = new SortField(ConvertEventToLuceneDocument.EVENT_TIME_SORT_FIELD, SortField.Type.LONG, true);
+        eventTimeSortField.setMissingValue(Long.MIN_VALUE);
+        NEWEST_FIRST = new Sort(eventTimeSortField, new SortField(EVENT_ID_FIELD, SortField.Type.LONG, true));
+    }
+
+    private final Query query;
+    private final ProvenanceQueryCursor after;
+    private final int pageSize;
+    private final IndexManager indexManager;
+    private final File indexDir;
+
+    /**
+     * @param query the query to perform
+     * @param after the cursor of the last event of the previous page, or <code>null</code> for the first page
+     * @param pageSize the maximum number of events to find
+     * @param indexManager the index manager
+     * @param indexDir the index directory to search
+     */
+    public PagedQueryTask(final Query query, final ProvenanceQueryCursor after, final int pageSize, final IndexManager indexManager, final File indexDir) {
+        this.query = query;
+        this.after = after;
+        this.pageSize = pageSize;
+        this.indexManager = indexManager;
+        this.indexDir = indexDir;
+    }
+
+    @Override
+    public DirectoryPage call() throws Exception {
+        final EventIndexSearcher searcher;
+        try {
+            searcher = indexManager.borrowIndexSearcher(indexDir);
+        } catch (final FileNotFoundException fnfe) {
+            // The index has either not yet been committed or has already aged off; either way, it holds no results.
+            logger.debug("Will not search Provenance Index {} because it does not contain a valid Lucene index", indexDir);
+            return new DirectoryPage(Collections.emptyList(), true);
+        }
+
+        try {
+            final long startNanos = System.nanoTime();
+            final TopFieldDocs topDocs = searcher.getIndexSearcher().search(createBoundedQuery(), pageSize, NEWEST_FIRST);
+
+            final List<ProvenanceQueryCursor> hits = new ArrayList<>(topDocs.scoreDocs.length);
+            for (final ScoreDoc scoreDoc : topDocs.scoreDocs) {
+                final Object[] sortValues = ((FieldDoc) scoreDoc).fields;
+                hits.add(new ProvenanceQueryCursor((Long) sortValues[0], (Long) sortValues[1]));
+            }
+
+            final long millis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+            logger.debug("Found {} events after {} in index {} for query {} in {} millis", hits.size(), after, indexDir, query, millis);
+
+            // If fewer hits than the page size were found, there cannot be any more matching events in this directory.
+            return new DirectoryPage(hits, hits.size() < pageSize);
+        } finally {
+            indexManager.returnIndexSearcher(searcher);
+        }
+    }
+
+    private Query createBoundedQuery() {
+        if (after == null) {
+            return query;
+        }
+
+        // The Event Time point field is present in every index, so the bound does not depend on the Event Time doc value
+        final Query sameTimeSmallerId = new BooleanQuery.Builder()
+            .add(LongPoint.newExactQuery(EVENT_TIME_FIELD, after.getEventTime()), BooleanClause.Occur.FILTER)
+            .add(NumericDocValuesField.newSlowRangeQuery(EVENT_ID_FIELD, Long.MIN_VALUE, after.getEventId() - 1), BooleanClause.Occur.FILTER)
+            .build();
+        final Query bound = new BooleanQuery.Builder()
+            .add(LongPoint.newRangeQuery(EVENT_TIME_FIELD, Long.MIN_VALUE, after.getEventTime() - 1), BooleanClause.Occur.SHOULD)
+            .add(sameTimeSmallerId, BooleanClause.Occur.SHOULD)
+            .setMinimumNumberShouldMatch(1)
+            .build();
+
+        return new BooleanQuery.Builder()
+            .add(query, BooleanClause.Occur.MUST)
+            .add(bound, BooleanClause.Occur.FILTER)
+            .build();
+    }
+
+    /**
+     * The newest matching events in an index directory, newest first. An event may be listed more than once if it was indexed under
+     * multiple documents. An event that was indexed before the Event Time was stored as a doc value has an Event Time of
+     * {@link Long#MIN_VALUE}, and its actual Event Time must be obtained from the Event Store.
+     */
+    public static class DirectoryPage {
+        private final List<ProvenanceQueryCursor> hits;
+        private final boolean exhausted;
+
+        DirectoryPage(final List<ProvenanceQueryCursor> hits, final boolean exhausted) {
+            this.hits = hits;
+            this.exhausted = exhausted;
+        }
+
+        public List<ProvenanceQueryCursor> getHits() {
+            return hits;
+        }
+
+        /**
+         * @return <code>true</code> if the directory holds no matching events other than those in this page
+         */
+        public boolean isExhausted() {
+            return exhausted;
+        }
+    }
+}
@@ -18,21 +18,44 @@
 package org.apache.nifi.provenance.index.lucene;
 
 import org.apache.lucene.document.Document;
+import org.apache.nifi.provenance.ProvenanceEventRecord;
 import org.apache.nifi.provenance.serialization.StorageSummary;
 
+/**
+ * An event that has been stored and is waiting to be indexed. Either the Lucene Document has already been created, or the event is held
+ * so that the Document can be created by the thread that indexes it.
+ */
 public class StoredDocument {
     private final Document document;
+    private final ProvenanceEventRecord event;
     private final StorageSummary storageSummary;
 
     public StoredDocument(final Document document, final StorageSummary summary) {
         this.document = document;
+        this.event = null;
+        this.storageSummary = summary;
+    }
+
+    public StoredDocument(final ProvenanceEventRecord event, final StorageSummary summary) {
+        this.document = null;
+        this.event = event;
         this.storageSummary = summary;
     }
 
+    /**
+     * @return the Document to index, or <code>null</code> if the Document has not yet been created from the event
+     */
     public Document getDocument() {
         return document;
     }
 
+    /**
+     * @return the event to create the Document from, or <code>null</code> if the Document has already been created
+     */
+    public ProvenanceEventRecord getEvent() {
+        return event;
+    }
+
     public StorageSummary getStorageSummary() {
         return storageSummary;
     }
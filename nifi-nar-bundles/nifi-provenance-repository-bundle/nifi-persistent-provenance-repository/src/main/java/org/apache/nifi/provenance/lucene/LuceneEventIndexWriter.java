@@ -47,7 +47,7 @@ public class LuceneEventIndexWriter implements EventIndexWriter {
         this.directory = directory;
         this.maxCommitNanos = maxCommitNanos;
 
-        commitStats.set(new CommitStats(0, System.nanoTime() + maxCommitNanos));
+        commitStats.set(new CommitStats(0, System.nanoTime()));
     }
 
     @Override
@@ -61,7 +61,12 @@ public class LuceneEventIndexWriter implements EventIndexWriter {
     }
 
     @Override
-    public boolean index(List<Document> documents, final int commitThreshold) throws IOException {
+    public boolean index(final List<Document> documents, final int commitThreshold) throws IOException {
+        return index(documents, commitThreshold, maxCommitNanos);
+    }
+
+    @Override
+    public boolean index(final List<Document> documents, final int commitThreshold, final long commitIntervalNanos) throws IOException {
         if (documents.isEmpty()) {
             return false;
         }
@@ -73,10 +78,10 @@ public class LuceneEventIndexWriter implements EventIndexWriter {
         boolean updated = false;
         while (!updated) {
             final CommitStats stats = commitStats.get();
-            CommitStats updatedStats = new CommitStats(stats.getIndexedSinceCommit() + numDocs, stats.getNextCommitTimestamp());
+            CommitStats updatedStats = new CommitStats(stats.getIndexedSinceCommit() + numDocs, stats.getLastCommitTimestamp());
 
-            if (updatedStats.getIndexedSinceCommit() >= commitThreshold || System.nanoTime() >= updatedStats.getNextCommitTimestamp()) {
-                updatedStats = new CommitStats(0, System.nanoTime() + maxCommitNanos);
+            if (updatedStats.getIndexedSinceCommit() >= commitThreshold || System.nanoTime() - updatedStats.getLastCommitTimestamp() >= commitIntervalNanos) {
+                updatedStats = new CommitStats(0, System.nanoTime());
                 updated = commitStats.compareAndSet(stats, updatedStats);
                 if (updated) {
                     return true;
@@ -99,7 +104,7 @@ public class LuceneEventIndexWriter implements EventIndexWriter {
         final long lastCommitCount = lastCommitTotalIndexed.get();
         final long currentCommitCount = totalIndexed.get();
         indexWriter.commit();
-        commitStats.set(new CommitStats(0, System.nanoTime() + maxCommitNanos));
+        commitStats.set(new CommitStats(0, System.nanoTime()));
         lastCommitTotalIndexed.set(currentCommitCount);
         return currentCommitCount - lastCommitCount;
     }
@@ -125,16 +130,16 @@ public class LuceneEventIndexWriter implements EventIndexWriter {
     }
 
     private static class CommitStats {
-        private final long nextCommitTimestamp;
+        private final long lastCommitTimestamp;
         private final int indexedSinceCommit;
 
-        public CommitStats(final int indexedCount, final long nextCommitTime) {
-            this.nextCommitTimestamp = nextCommitTime;
+        public CommitStats(final int indexedCount, final long lastCommitTime) {
+            this.lastCommitTimestamp = lastCommitTime;
             this.indexedSinceCommit = indexedCount;
         }
 
-        public long getNextCommitTimestamp() {
-            return nextCommitTimestamp;
+        public long getLastCommitTimestamp() {
+            return lastCommitTimestamp;
         }
 
         public int getIndexedSinceCommit() {
@@ -0,0 +1,410 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.nifi.provenance.rollup;
+
+import org.apache.nifi.provenance.ProvenanceEventRecord;
+import org.apache.nifi.provenance.ProvenanceEventRollup;
+import org.apache.nifi.provenance.ProvenanceEventType;
+import org.apache.nifi.provenance.ProvenanceRollupQuery;
+import org.apache.nifi.provenance.ProvenanceRollupQuery.Granularity;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Predicate;
+
+/**
+ * <p>
+ * Maintains, for each component and event type, the number of Provenance Events and the total size of the FlowFiles that they referenced,
+ * in fixed time buckets of one minute and of one hour. For events that transfer data to or from an external system, such as SEND, RECEIVE,
+ * and FETCH events, the counts are further broken down by the scheme and authority of the Transit URI, so that questions such as how many
+ * bytes were sent to each destination per hour can be answered.
+ * </p>
+ *
+ * <p>
+ * The rollups are updated as events are registered, so answering such a question requires only a lookup of the relevant buckets rather than
+ * a search of the events. Because each granularity is retained for its own configurable period, independent of the events themselves,
+ * the rollups remain available after the events have aged off. The rollups are held in memory and are periodically written to a single file,
+ * so that they are not lost when NiFi is restarted; events that were registered after the last time that the rollups were written are not
+ * counted after a restart.
+ * </p>
+ *
+ * <p>
+ * In order to bound the memory that the rollups use, each bucket holds at most a configured number of keys. Once a bucket is full, events whose
+ * key is not already in it are counted under the same component and event type but with a destination of {@value #OTHER_DESTINATION}, so that
+ * the totals of each component remain accurate even when it transfers data to or from a very large number of distinct destinations.
+ * </p>
+ */
+public class EventRollupStore {
+    private static final Logger logger = LoggerFactory.getLogger(EventRollupStore.class);
+
+    public static final String DIRECTORY_NAME = "rollups";
+    public static final String OTHER_DESTINATION = "other";
+    static final String FILENAME = "rollups.dat";
+    private static final String PARTIAL_FILENAME = FILENAME + ".partial";
+    private static final int ENCODING_VERSION = 1;
+
+    private static final Comparator<ProvenanceEventRollup> ROLLUP_ORDER = Comparator.comparingLong(ProvenanceEventRollup::getBucketStart)
+        .thenComparing(ProvenanceEventRollup::getComponentId, Comparator.nullsFirst(Comparator.naturalOrder()))
+        .thenComparing(ProvenanceEventRollup::getEventType)
+        .thenComparing(ProvenanceEventRollup::getDestination, Comparator.nullsFirst(Comparator.naturalOrder()));
+
+    private final File rollupDirectory;
+    private final int maxKeysPerBucket;
+    private final Map<Granularity, Long> retentionMillis = new EnumMap<>(Granularity.class);
+    private final Map<Granularity, ConcurrentNavigableMap<Long, ConcurrentMap<RollupKey, RollupCounter>>> buckets = new EnumMap<>(Granularity.class);
+    private volatile boolean modified = false;
+
+    public EventRollupStore(final File rollupDirectory, final long minuteRetentionMillis, final long hourRetentionMillis, final int maxKeysPerBucket) {
+        this.rollupDirectory = rollupDirectory;
+        this.maxKeysPerBucket = maxKeysPerBucket;
+        retentionMillis.put(Granularity.MINUTE, minuteRetentionMillis);
+        retentionMillis.put(Granularity.HOUR, hourRetentionMillis);
+
+        for (final Granularity granularity : Granularity.values()) {
+            buckets.put(granularity, new ConcurrentSkipListMap<>());
+        }
+    }
+
+    /**
+     * Restores the rollups that were last written to disk, if any
+     *
+     * @throws IOException if unable to create the directory that the rollups are written to
+     */
+    public void initialize() throws IOException {
+        Files.createDirectories(rollupDirectory.toPath());
+
+        final File rollupFile = new File(rollupDirectory, FILENAME);
+        if (!rollupFile.exists()) {
+            return;
+        }
+
+        try (final InputStream fis = new FileInputStream(rollupFile);
+             final DataInputStream in = new DataInputStream(new BufferedInputStream(fis))) {
+            read(in);
+        } catch (final IOException ioe) {
+            // The rollups cannot be rebuilt from the events, as the events may have aged off, so start over rather than failing to start
+            logger.warn("Failed to restore the rollups of Provenance Events from {}; rollups of events that were registered before NiFi was restarted will not be available",
+                rollupFile, ioe);
+            for (final Map<Long, ConcurrentMap<RollupKey, RollupCounter>> granularityBuckets : buckets.values()) {
+                granularityBuckets.clear();
+            }
+        }
+
+        purgeExpired(System.currentTimeMillis());
+        logger.info("Restored {} minute and {} hour buckets of Provenance Event rollups from {}", buckets.get(Granularity.MINUTE).size(),
+            buckets.get(Granularity.HOUR).size(), rollupFile);
+    }
+
+    /**
+     * Adds the given events to the rollups
+     *
+     * @param events the events to add
+     */
+    public void update(final Iterable<ProvenanceEventRecord> events) {
+        final long now = System.currentTimeMillis();
+
+        for (final ProvenanceEventRecord event : events) {
+            final RollupKey key = new RollupKey(event.getComponentId(), event.getComponentType(), event.getEventType(), getDestination(event.getTransitUri()));
+            final long bytes = Math.max(0L, event.getFileSize());
+
+            for (final Granularity granularity : Granularity.values()) {
+                final long bucketStart = granularity.getBucketStart(event.getEventTime());
+                if (bucketStart + granularity.getBucketMillis() < now - retentionMillis.get(granularity)) {
+                    continue;
+                }
+
+                final ConcurrentMap<RollupKey, RollupCounter> bucket = buckets.get(granularity).computeIfAbsent(bucketStart, start -> new ConcurrentHashMap<>());
+                RollupCounter counter = bucket.get(key);
+                if (counter == null) {
+                    final RollupKey bucketKey = bucket.size() < maxKeysPerBucket ? key : key.toOtherDestination();
+                    counter = bucket.computeIfAbsent(bucketKey, k -> new RollupCounter());
+                }
+
+                counter.add(bytes);
+            }
+        }
+
+        modified = true;
+    }
+
+    /**
+     * Returns the rollups that match the given query, ordered by bucket start time
+     *
+     * @param query the query
+     * @param componentFilter a filter that determines whether or not the rollups of the component with a given ID may be returned
+     * @return the matching rollups
+     */
+    public List<ProvenanceEventRollup> getRollups(final ProvenanceRollupQuery query, final Predicate<String> componentFilter) {
+        final Granularity granularity = query.getGranularity();
+        final long firstBucket = granularity.getBucketStart(query.getStartTime());
+        final Map<String, Boolean> componentAccess = new HashMap<>();
+
+        final List<ProvenanceEventRollup> rollups = new ArrayList<>();
+        final Map<Long, ConcurrentMap<RollupKey, RollupCounter>> matchingBuckets = buckets.get(granularity).subMap(firstBucket, true, query.getEndTime(), true);
+        for (final Map.Entry<Long, ConcurrentMap<RollupKey, RollupCounter>> bucket : matchingBuckets.entrySet()) {
+            for (final Map.Entry<RollupKey, RollupCounter> entry : bucket.getValue().entrySet()) {
+                final RollupKey key = entry.getKey();
+                if (query.getComponentId() != null && !query.getComponentId().equals(key.componentId)) {
+                    continue;
+                }
+                if (query.getEventType() != null && query.getEventType() != key.eventType) {
+                    continue;
+                }
+                if (!componentAccess.computeIfAbsent(key.componentId, componentFilter::test)) {
+                    continue;
+                }
+
+                final RollupCounter counter = entry.getValue();
+                rollups.add(new ProvenanceEventRollup(bucket.getKey(), granularity.getBucketMillis(), key.componentId, key.componentType, key.eventType,
+                    key.destination, counter.getEventCount(), counter.getByteCount()));
+            }
+        }
+
+        rollups.sort(ROLLUP_ORDER);
+        return rollups;
+    }
+
+    /**
+     * Removes any bucket that is older than the retention period of its granularity
+     *
+     * @param now the current time, in milliseconds since epoch
+     */
+    public void purgeExpired(final long now) {
+        for (final Granularity granularity : Granularity.values()) {
+            final Map<Long, ConcurrentMap<RollupKey, RollupCounter>> expired = buckets.get(granularity).headMap(now - retentionMillis.get(granularity) - granularity.getBucketMillis());
+            if (!expired.isEmpty()) {
+                expired.clear();
+                modified = true;
+            }
+        }
+    }
+
+    /**
+     * Writes the rollups to disk, if they have been modified since they were last written
+     *
+     * @throws IOException if unable to write the rollups
+     */
+    public synchronized void persist() throws IOException {
+        if (!modified) {
+            return;
+        }
+
+        // Clear the flag first so that an update that happens while writing is not forgotten
+        modified = false;
+
+        final File partialFile = new File(rollupDirectory, PARTIAL_FILENAME);
+        try (final OutputStream fos = new FileOutputStream(partialFile);
+             final DataOutputStream out = new DataOutputStream(new BufferedOutputStream(fos))) {
+            write(out);
+        } catch (final IOException ioe) {
+            modified = true;
+            throw ioe;
+        }
+
+        Files.move(partialFile.toPath(), new File(rollupDirectory, FILENAME).toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private void write(final DataOutputStream out) throws IOException {
+        out.writeInt(ENCODING_VERSION);
+
+        for (final Granularity granularity : Granularity.values()) {
+            // Copy the buckets so that the count that is written matches the number of buckets that follow
+            final Map<Long, ConcurrentMap<RollupKey, RollupCounter>> granularityBuckets = new ConcurrentSkipListMap<>(buckets.get(granularity));
+
+            out.writeUTF(granularity.name());
+            out.writeInt(granularityBuckets.size());
+            for (final Map.Entry<Long, ConcurrentMap<RollupKey, RollupCounter>> bucket : granularityBuckets.entrySet()) {
+                final Map<RollupKey, RollupCounter> counters = new ConcurrentHashMap<>(bucket.getValue());
+
+                out.writeLong(bucket.getKey());
+                out.writeInt(counters.size());
+                for (final Map.Entry<RollupKey, RollupCounter> entry : counters.entrySet()) {
+                    final RollupKey key = entry.getKey();
+                    writeNullableString(out, key.componentId);
+                    writeNullableString(out, key.componentType);
+                    out.writeUTF(key.eventType.name());
+                    writeNullableString(out, key.destination);
+                    out.writeLong(entry.getValue().getEventCount());
+                    out.writeLong(entry.getValue().getByteCount());
+                }
+            }
+        }
+    }
+
+    private void read(final DataInputStream in) throws IOException {
+        final int version = in.readInt();
+        if (version != ENCODING_VERSION) {
+            throw new IOException("Unsupported encoding version " + version + " for rollups of Provenance Events");
+        }
+
+        for (int i = 0; i < Granularity.values().length; i++) {
+            final Granularity granularity = Granularity.valueOf(in.readUTF());
+            final Map<Long, ConcurrentMap<RollupKey, RollupCounter>> granularityBuckets = buckets.get(granularity);
+
+            final int bucketCount = in.readInt();
+            for (int j = 0; j < bucketCount; j++) {
+                final long bucketStart = in.readLong();
+                final ConcurrentMap<RollupKey, RollupCounter> counters = new ConcurrentHashMap<>();
+
+                final int counterCount = in.readInt();
+                for (int k = 0; k < counterCount; k++) {
+                    final String componentId = readNullableString(in);
+                    final String componentType = readNullableString(in);
+                    final ProvenanceEventType eventType = ProvenanceEventType.valueOf(in.readUTF());
+                    final String destination = readNullableString(in);
+
+                    final RollupCounter counter = new RollupCounter();
+                    counter.eventCount.add(in.readLong());
+                    counter.byteCount.add(in.readLong());
+                    counters.put(new RollupKey(componentId, componentType, eventType, destination), counter);
+                }
+
+                granularityBuckets.put(bucketStart, counters);
+            }
+        }
+    }
+
+    private static void writeNullableString(final DataOutputStream out, final String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeUTF(value);
+        }
+    }
+
+    private static String readNullableString(final DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+
+    /**
+     * Returns the scheme and authority of the given Transit URI, without any user information, so that events are rolled up per
+     * destination rather than per file or path. Transit URIs that do not have an authority are rolled up by their scheme alone.
+     *
+     * @param transitUri the Transit URI of an event
+     * @return the destination of the event, or <code>null</code> if the event has no Transit URI
+     */
+    static String getDestination(final String transitUri) {
+        if (transitUri == null) {
+            return null;
+        }
+
+        final int schemeEnd = transitUri.indexOf(':');
+        if (schemeEnd < 1) {
+            return null;
+        }
+
+        final String scheme = transitUri.substring(0, schemeEnd).toLowerCase();
+        if (!transitUri.startsWith("//", schemeEnd + 1)) {
+            return scheme;
+        }
+
+        final int authorityStart = schemeEnd + 3;
+        int authorityEnd = transitUri.length();
+        for (int i = authorityStart; i < transitUri.length(); i++) {
+            final char c = transitUri.charAt(i);
+            if (c == '/' || c == '?' || c == '#') {
+                authorityEnd = i;
+                break;
+            }
+        }
+
+        final String authority = transitUri.substring(authorityStart, authorityEnd);
+        final String host = authority.substring(authority.lastIndexOf('@') + 1);
+        return host.isEmpty() ? scheme : scheme + "://" + host;
+    }
+
+    private static class RollupKey {
+        private final String componentId;
+        private final String componentType;
+        private final ProvenanceEventType eventType;
+        private final String destination;
+        private final int hashCode;
+
+        private RollupKey(final String componentId, final String componentType, final ProvenanceEventType eventType, final String destination) {
+            this.componentId = componentId;
+            this.componentType = componentType;
+            this.eventType = eventType;
+            this.destination = destination;
+            this.hashCode = Objects.hash(componentId, componentType, eventType, destination);
+        }
+
+        private RollupKey toOtherDestination() {
+            return new RollupKey(componentId, componentType, eventType, OTHER_DESTINATION);
+        }
+
+        @Override
+        public boolean equals(final Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof RollupKey)) {
+                return false;
+            }
+
+            final RollupKey other = (RollupKey) obj;
+            return hashCode == other.hashCode && eventType == other.eventType && Objects.equals(componentId, other.componentId)
+                && Objects.equals(componentType, other.componentType) && Objects.equals(destination, other.destination);
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+    }
+
+    private static class RollupCounter {
+        private final LongAdder eventCount = new LongAdder();
+        private final LongAdder byteCount = new LongAdder();
+
+        private void add(final long bytes) {
+            eventCount.increment();
+            byteCount.add(bytes);
+        }
+
+        private long getEventCount() {
+            return eventCount.sum();
+        }
+
+        private long getByteCount() {
+            return byteCount.sum();
+        }
+    }
+}
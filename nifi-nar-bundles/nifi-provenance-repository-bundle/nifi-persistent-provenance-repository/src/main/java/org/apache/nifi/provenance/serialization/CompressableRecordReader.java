@@ -24,7 +24,6 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.nio.charset.StandardCharsets;
 import java.util.Optional;
-import java.util.zip.GZIPInputStream;
 import org.apache.nifi.provenance.ProvenanceEventRecord;
 import org.apache.nifi.provenance.StandardProvenanceEventRecord;
 import org.apache.nifi.provenance.toc.TocReader;
@@ -40,7 +39,7 @@ public abstract class CompressableRecordReader implements RecordReader {
     private final ByteCountingInputStream rawInputStream;
     private final String filename;
     private final int serializationVersion;
-    private final boolean compressed;
+    private final CompressionCodec compressionCodec;
     private final TocReader tocReader;
     private final int headerLength;
     private final int maxAttributeChars;
@@ -71,13 +70,13 @@ public abstract class CompressableRecordReader implements RecordReader {
             }
         }
 
+        compressionCodec = CompressionCodec.forEventFile(filename, tocReader);
+
         final InputStream readableStream;
-        if (filename.endsWith(".gz")) {
-            readableStream = new BufferedInputStream(new GZIPInputStream(limitedStream));
-            compressed = true;
-        } else {
+        if (compressionCodec == null) {
             readableStream = new BufferedInputStream(limitedStream);
-            compressed = false;
+        } else {
+            readableStream = new BufferedInputStream(compressionCodec.decompress(limitedStream));
         }
 
         byteCountingIn = new ByteCountingInputStream(readableStream);
@@ -144,10 +143,10 @@ public abstract class CompressableRecordReader implements RecordReader {
         }
 
         final InputStream readableStream;
-        if (compressed) {
-            readableStream = new BufferedInputStream(new GZIPInputStream(limitedStream));
-        } else {
+        if (compressionCodec == null) {
             readableStream = new BufferedInputStream(limitedStream);
+        } else {
+            readableStream = new BufferedInputStream(compressionCodec.decompress(limitedStream));
         }
 
         byteCountingIn = new ByteCountingInputStream(readableStream, rawInputStream.getBytesConsumed());
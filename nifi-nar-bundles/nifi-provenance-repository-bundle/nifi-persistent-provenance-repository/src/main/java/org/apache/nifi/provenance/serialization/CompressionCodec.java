@@ -0,0 +1,230 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.nifi.provenance.serialization;
+
+import net.jpountz.lz4.LZ4BlockInputStream;
+import net.jpountz.lz4.LZ4BlockOutputStream;
+import org.apache.commons.compress.compressors.zstandard.ZstdCompressorInputStream;
+import org.apache.commons.compress.compressors.zstandard.ZstdCompressorOutputStream;
+import org.apache.commons.compress.compressors.zstandard.ZstdUtils;
+import org.apache.nifi.provenance.toc.TocReader;
+import org.apache.nifi.stream.io.GZIPOutputStream;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * <p>
+ * The compression algorithms that may be used to compress the blocks of a Provenance Event File. Each block of an Event File is
+ * compressed independently, so that a reader can use the Table of Contents to seek directly to the block that holds a given event.
+ * </p>
+ *
+ * <p>
+ * The codec that was used for an Event File is recorded in the header of its Table of Contents file and is also reflected in the
+ * extension of the Event File's name. Event Files written before the codec was recorded in the Table of Contents are always
+ * compressed with GZIP and use the <code>.gz</code> extension.
+ * </p>
+ */
+public enum CompressionCodec {
+    GZIP(1, ".gz") {
+        @Override
+        public OutputStream compress(final OutputStream out) throws IOException {
+            return new GZIPOutputStream(out, 1);
+        }
+
+        @Override
+        public InputStream decompress(final InputStream in) throws IOException {
+            return new GZIPInputStream(in);
+        }
+    },
+
+    LZ4(2, ".lz4") {
+        @Override
+        public OutputStream compress(final OutputStream out) {
+            return new LZ4BlockOutputStream(out, LZ4_BLOCK_SIZE);
+        }
+
+        @Override
+        public InputStream decompress(final InputStream in) {
+            // Do not stop on the end mark so that, when no Table of Contents is available, all blocks can be read consecutively
+            return new LZ4BlockInputStream(in, false);
+        }
+    },
+
+    ZSTD(3, ".zst") {
+        @Override
+        public OutputStream compress(final OutputStream out) throws IOException {
+            return ZstdStreams.compress(out);
+        }
+
+        @Override
+        public InputStream decompress(final InputStream in) throws IOException {
+            return ZstdStreams.decompress(in);
+        }
+
+        @Override
+        public boolean isAvailable() {
+            try {
+                return ZstdStreams.isAvailable();
+            } catch (final NoClassDefFoundError e) {
+                // commons-compress is not on the classpath
+                return false;
+            }
+        }
+    };
+
+    private static final int LZ4_BLOCK_SIZE = 64 * 1024;
+
+    private final int tocFlag;
+    private final String fileExtension;
+
+    CompressionCodec(final int tocFlag, final String fileExtension) {
+        this.tocFlag = tocFlag;
+        this.fileExtension = fileExtension;
+    }
+
+    /**
+     * Wraps the given OutputStream so that everything written to the returned stream is compressed. The returned stream must be closed
+     * in order to write any trailing bytes; closing it will also close the given stream.
+     *
+     * @param out the stream to write the compressed bytes to
+     * @return a stream that compresses the data written to it
+     * @throws IOException if unable to write the header of the compressed stream
+     */
+    public abstract OutputStream compress(OutputStream out) throws IOException;
+
+    /**
+     * Wraps the given InputStream so that the data read from the returned stream is decompressed
+     *
+     * @param in the stream to read the compressed bytes from
+     * @return a stream that decompresses the data read from the given stream
+     * @throws IOException if unable to read the header of the compressed stream
+     */
+    public abstract InputStream decompress(InputStream in) throws IOException;
+
+    /**
+     * @return <code>true</code> if the libraries that are necessary for this codec are available, <code>false</code> otherwise
+     */
+    public boolean isAvailable() {
+        return true;
+    }
+
+    /**
+     * @return the value that is written to the header of a Table of Contents file to indicate that this codec was used
+     */
+    public int getTocFlag() {
+        return tocFlag;
+    }
+
+    /**
+     * @return the extension that is appended to the name of an Event File that has been compressed using this codec
+     */
+    public String getFileExtension() {
+        return fileExtension;
+    }
+
+    /**
+     * Returns the codec that is indicated by the given Table of Contents header flag
+     *
+     * @param tocFlag the compression flag that was read from the header of a Table of Contents file
+     * @return the codec that the flag indicates, or <code>null</code> if the flag indicates that the Event File is not compressed
+     * @throws IllegalArgumentException if the flag does not correspond to any known codec
+     */
+    public static CompressionCodec fromTocFlag(final int tocFlag) {
+        if (tocFlag == 0) {
+            return null;
+        }
+
+        for (final CompressionCodec codec : values()) {
+            if (codec.tocFlag == tocFlag) {
+                return codec;
+            }
+        }
+
+        throw new IllegalArgumentException("Unknown compression flag: " + tocFlag);
+    }
+
+    /**
+     * Returns the codec that is indicated by the extension of the given Event File name
+     *
+     * @param filename the name of the Event File
+     * @return the codec that the file's extension indicates, or <code>null</code> if the file's extension does not indicate that it is compressed
+     */
+    public static CompressionCodec fromFilename(final String filename) {
+        for (final CompressionCodec codec : values()) {
+            if (filename.endsWith(codec.fileExtension)) {
+                return codec;
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Determines the codec that was used to compress an Event File. The Table of Contents is consulted first; because older versions did not
+     * always record the compression in the Table of Contents, the extension of the filename is used if the Table of Contents does not indicate
+     * that the file is compressed.
+     *
+     * @param filename the name of the Event File
+     * @param tocReader the reader for the Event File's Table of Contents, or <code>null</code> if there is no Table of Contents
+     * @return the codec that was used to compress the Event File, or <code>null</code> if the Event File is not compressed
+     */
+    public static CompressionCodec forEventFile(final String filename, final TocReader tocReader) {
+        final CompressionCodec tocCodec = tocReader == null ? null : tocReader.getCompressionCodec();
+        return tocCodec == null ? fromFilename(filename) : tocCodec;
+    }
+
+    /**
+     * Returns the codec with the given name, ignoring case
+     *
+     * @param name the name of the codec
+     * @return the codec with the given name
+     * @throws IllegalArgumentException if no codec exists with the given name
+     */
+    public static CompressionCodec fromName(final String name) {
+        for (final CompressionCodec codec : values()) {
+            if (codec.name().equalsIgnoreCase(name.trim())) {
+                return codec;
+            }
+        }
+
+        throw new IllegalArgumentException("Unknown compression codec '" + name + "'; valid values are GZIP, LZ4, and ZSTD");
+    }
+
+    /**
+     * Holds the references to the commons-compress Zstandard classes, so that they are only loaded when the ZSTD codec is used. Referencing them
+     * from the ZSTD constant itself would cause this enum to fail to initialize when commons-compress is not on the classpath.
+     */
+    private static final class ZstdStreams {
+        private static final int ZSTD_LEVEL = 1;
+
+        static OutputStream compress(final OutputStream out) throws IOException {
+            return new ZstdCompressorOutputStream(out, ZSTD_LEVEL);
+        }
+
+        static InputStream decompress(final InputStream in) throws IOException {
+            return new ZstdCompressorInputStream(in);
+        }
+
+        static boolean isAvailable() {
+            return ZstdUtils.isZstdCompressionAvailable();
+        }
+    }
+}
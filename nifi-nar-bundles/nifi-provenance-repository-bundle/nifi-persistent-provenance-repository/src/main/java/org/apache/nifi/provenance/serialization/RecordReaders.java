@@ -37,9 +37,10 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.nio.file.Path;
 import java.util.Collection;
-import java.util.zip.GZIPInputStream;
 
 public class RecordReaders {
+    private static final String[] EVENT_FILE_EXTENSIONS = {".prov.gz", ".prov.lz4", ".prov.zst", ".prov"};
+
     /**
      * Creates a new Record Reader that is capable of reading Provenance Event Journals
      *
@@ -82,11 +83,11 @@ public class RecordReaders {
                 final File dir = file.getParentFile();
                 final String baseName = LuceneUtil.substringBefore(file.getName(), ".prov");
 
-                // depending on which rollover actions have occurred, we could have 2 possibilities for the
-                // filename that we need. The majority of the time, we will use the extension ".prov.gz"
-                // because most often we are compressing on rollover and most often we have already finished
-                // compressing by the time that we are querying the data.
-                for (final String extension : new String[]{".prov.gz", ".prov"}) {
+                // depending on which rollover actions have occurred, the file may or may not have been compressed
+                // yet. The majority of the time, we will find the compressed file (".prov.gz" unless another codec
+                // is configured) because most often we are compressing on rollover and most often we have already
+                // finished compressing by the time that we are querying the data.
+                for (final String extension : EVENT_FILE_EXTENSIONS) {
                     file = new File(dir, baseName + extension);
                     if (file.exists()) {
                         try {
@@ -112,13 +113,23 @@ public class RecordReaders {
             final File tocFile = TocUtil.getTocFile(file);
 
             final InputStream bufferedInStream = new BufferedInputStream(fis);
+            final CompressionCodec codec = CompressionCodec.fromFilename(filename);
             final String serializationName;
             try {
-                bufferedInStream.mark(4096);
-                final InputStream in = filename.endsWith(".gz") ? new GZIPInputStream(bufferedInStream) : bufferedInStream;
-                final DataInputStream dis = new DataInputStream(in);
-                serializationName = dis.readUTF();
-                bufferedInStream.reset();
+                if (codec == null) {
+                    bufferedInStream.mark(4096);
+                    final DataInputStream dis = new DataInputStream(bufferedInStream);
+                    serializationName = dis.readUTF();
+                    bufferedInStream.reset();
+                } else {
+                    // Decompressing the header may require reading an entire compressed block, which could exceed the mark limit
+                    // of the stream, so the header is read from a separate stream instead.
+                    try (final InputStream headerFileIn = new FileInputStream(file);
+                         final InputStream headerIn = codec.decompress(new BufferedInputStream(headerFileIn))) {
+                        final DataInputStream dis = new DataInputStream(headerIn);
+                        serializationName = dis.readUTF();
+                    }
+                }
             } catch (final EOFException eof) {
                 fis.close();
                 return new EmptyRecordReader();
@@ -26,6 +26,7 @@ import org.apache.nifi.provenance.store.iterator.EventIterator;
 
 import java.io.Closeable;
 import java.io.IOException;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -115,6 +116,18 @@ public interface EventStore extends Closeable {
      */
     List<ProvenanceEventRecord> getEvents(List<Long> eventIds, EventAuthorizer authorizer, EventTransformer unauthorizedTransformer) throws IOException;
 
+    /**
+     * Looks up the ID's of the events that make up the lineage of the given FlowFiles without searching the Event Index. Because the
+     * lookup may be based on a hash of each UUID, the returned ID's may include events that are not related to the given FlowFiles,
+     * and the caller is responsible for discarding any such events once they have been retrieved.
+     *
+     * @param flowFileUuids the UUIDs of the FlowFiles whose lineage is of interest
+     * @return an Optional containing the ID's of the events, in ascending order, or an empty Optional if the store does not maintain
+     *         a lineage index or the lineage index is not yet complete, in which case the lineage must be determined by the Event Index
+     * @throws IOException if unable to read the lineage index
+     */
+    Optional<List<Long>> getLineageEventIds(Collection<String> flowFileUuids) throws IOException;
+
     /**
      * Causes the latest events in this store to be re-indexed by the given Event Index
      *
@@ -19,6 +19,7 @@ package org.apache.nifi.provenance.store;
 
 import java.io.Closeable;
 import java.io.IOException;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.concurrent.TimeUnit;
@@ -96,6 +97,17 @@ public interface EventStorePartition extends Closeable {
      */
     EventIterator createEventIterator(List<Long> eventIds);
 
+    /**
+     * Looks up the ID's of the events in this partition that make up the lineage of the given FlowFiles. The returned ID's may include
+     * events that are not related to the given FlowFiles.
+     *
+     * @param flowFileUuids the UUIDs of the FlowFiles whose lineage is of interest
+     * @return an Optional containing the ID's of the events, in ascending order, or an empty Optional if the partition does not maintain
+     *         a lineage index or the lineage index is not yet complete
+     * @throws IOException if unable to read the lineage index
+     */
+    Optional<List<Long>> getLineageEventIds(Collection<String> flowFileUuids) throws IOException;
+
     /**
      * Purges any events from the partition that are older than the given amount of time
      *
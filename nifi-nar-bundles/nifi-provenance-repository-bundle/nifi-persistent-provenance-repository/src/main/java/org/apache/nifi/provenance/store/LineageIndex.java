@@ -0,0 +1,483 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.nifi.provenance.store;
+
+import org.apache.nifi.provenance.ProvenanceEventRecord;
+import org.apache.nifi.provenance.ProvenanceEventType;
+import org.apache.nifi.provenance.serialization.RecordReader;
+import org.apache.nifi.provenance.serialization.StorageSummary;
+import org.apache.nifi.provenance.util.DirectoryUtils;
+import org.apache.nifi.provenance.util.NamedThreadFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+import java.util.function.LongConsumer;
+
+/**
+ * <p>
+ * A secondary index that maps FlowFile UUIDs to the IDs of the Provenance Events that are part of each FlowFile's lineage, so that a
+ * lineage graph can be built by looking up the events directly rather than searching the Lucene index. An event is indexed under the
+ * same FlowFile UUIDs that it is indexed under in Lucene: the UUID of the event's FlowFile, the children of a FORK, CLONE, or REPLAY
+ * event, the parents of a JOIN event, and the UUID that a source system used to refer to the data of a RECEIVE event.
+ * </p>
+ *
+ * <p>
+ * One Lineage Index file is kept for each Event File in the partition, in the partition's <code>lineage</code> directory, and is named
+ * using the minimum Event ID of the Event File. While an Event File is being written to, its entries are kept in memory; when the
+ * Event File is rolled over, the entries are sorted and written to disk. Lineage Index files that are missing at startup, such as
+ * the file for the Event File that was active when NiFi was stopped, are rebuilt from their Event Files in the background.
+ * </p>
+ *
+ * <p>
+ * To keep the index compact, UUIDs are stored as 64-bit hashes. As a result, a lookup may return the ID of an event that is not
+ * related to any of the given UUIDs, and callers must use {@link #isRelated(ProvenanceEventRecord, Collection)} to discard such events.
+ * </p>
+ */
+public class LineageIndex implements Closeable {
+    private static final Logger logger = LoggerFactory.getLogger(LineageIndex.class);
+
+    static final String DIRECTORY_NAME = "lineage";
+    private static final String FILE_EXTENSION = ".lineage";
+
+    private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private final File indexDirectory;
+    private final RecordReaderFactory recordReaderFactory;
+    private final int maxAttributeChars;
+
+    private final ConcurrentMap<Long, ActiveIndex> activeIndices = new ConcurrentHashMap<>();
+    private final ConcurrentMap<Long, ActiveIndex> mergingIndices = new ConcurrentHashMap<>();
+    private final ConcurrentMap<Long, LineageIndexFile> indexFiles = new ConcurrentHashMap<>();
+    private final Set<Long> filesToRebuild = ConcurrentHashMap.newKeySet();
+    private final ExecutorService rebuildExecutor;
+
+    public LineageIndex(final File partitionDirectory, final RecordReaderFactory recordReaderFactory, final int maxAttributeChars) {
+        this.indexDirectory = new File(partitionDirectory, DIRECTORY_NAME);
+        this.recordReaderFactory = recordReaderFactory;
+        this.maxAttributeChars = maxAttributeChars;
+        this.rebuildExecutor = Executors.newSingleThreadExecutor(new NamedThreadFactory("Rebuild Provenance Lineage Index", true));
+    }
+
+    /**
+     * Removes any Lineage Index file that no longer has a corresponding Event File and begins rebuilding, in the background,
+     * the Lineage Index file for any Event File that does not have one.
+     *
+     * @param eventFiles the Event Files that exist in the partition
+     * @throws IOException if unable to create the directory for the Lineage Index files
+     */
+    public void initialize(final Collection<File> eventFiles) throws IOException {
+        Files.createDirectories(indexDirectory.toPath());
+
+        final Set<Long> minEventIds = new HashSet<>();
+        for (final File eventFile : eventFiles) {
+            minEventIds.add(DirectoryUtils.getMinId(eventFile));
+        }
+
+        final File[] existingIndexFiles = indexDirectory.listFiles();
+        if (existingIndexFiles != null) {
+            for (final File indexFile : existingIndexFiles) {
+                final String filename = indexFile.getName();
+                final boolean orphaned = !filename.endsWith(FILE_EXTENSION) || !minEventIds.contains(DirectoryUtils.getMinId(indexFile));
+                if (orphaned && !indexFile.delete()) {
+                    logger.warn("Failed to remove Lineage Index file {}, which no longer has a corresponding Event File", indexFile);
+                }
+            }
+        }
+
+        // Rebuild the newest files first, since they are the most likely to be needed
+        final List<File> sortedEventFiles = new ArrayList<>(eventFiles);
+        sortedEventFiles.sort(DirectoryUtils.LARGEST_ID_FIRST);
+        for (final File eventFile : sortedEventFiles) {
+            final long minEventId = DirectoryUtils.getMinId(eventFile);
+            if (!getIndexFile(minEventId).exists()) {
+                filesToRebuild.add(minEventId);
+                scheduleRebuild(eventFile);
+            }
+        }
+
+        if (!filesToRebuild.isEmpty()) {
+            logger.info("Rebuilding the Lineage Index for {} Event Files in {}; lineage will be computed using the Event Index until this completes", filesToRebuild.size(), indexDirectory);
+        }
+    }
+
+    /**
+     * Begins indexing a newly created Event File. Until the Event File is committed, lookups against it are served from memory.
+     *
+     * @param eventFile the Event File that has been created
+     */
+    public void create(final File eventFile) {
+        activeIndices.putIfAbsent(DirectoryUtils.getMinId(eventFile), new ActiveIndex());
+    }
+
+    /**
+     * Records the given events, which must have been written to the given Event File
+     *
+     * @param eventFile the Event File that the events were written to
+     * @param storageMap the events that were written, along with their storage locations
+     */
+    public void addEvents(final File eventFile, final Map<ProvenanceEventRecord, StorageSummary> storageMap) {
+        final ActiveIndex activeIndex = activeIndices.computeIfAbsent(DirectoryUtils.getMinId(eventFile), id -> new ActiveIndex());
+
+        for (final Map.Entry<ProvenanceEventRecord, StorageSummary> entry : storageMap.entrySet()) {
+            final long eventId = entry.getValue().getEventId();
+            forEachFlowFileUuid(entry.getKey(), uuid -> activeIndex.add(hash(uuid), eventId));
+        }
+    }
+
+    /**
+     * Writes the Lineage Index file for the given Event File, which must no longer be written to. If the file cannot be written,
+     * it will be rebuilt from the Event File in the background.
+     *
+     * @param eventFile the Event File that has been rolled over
+     */
+    public void commit(final File eventFile) {
+        final long minEventId = DirectoryUtils.getMinId(eventFile);
+        final ActiveIndex activeIndex = activeIndices.getOrDefault(minEventId, new ActiveIndex());
+
+        try {
+            indexFiles.put(minEventId, activeIndex.write(getIndexFile(minEventId)));
+        } catch (final IOException ioe) {
+            logger.warn("Failed to write Lineage Index for {}; it will be rebuilt from the Event File", eventFile, ioe);
+            filesToRebuild.add(minEventId);
+            scheduleRebuild(eventFile);
+        } finally {
+            activeIndices.remove(minEventId);
+        }
+    }
+
+    /**
+     * Records the given events, which have been copied into an Event File that is being created by merging other Event Files. Unlike
+     * {@link #addEvents(File, Map)}, the events are not visible to lookups until {@link #commitMerge(File, Collection)} is called.
+     *
+     * @param mergedEventFile the Event File that the events were copied into
+     * @param storageMap the events that were copied, along with their storage locations
+     */
+    public void addMergedEvents(final File mergedEventFile, final Map<ProvenanceEventRecord, StorageSummary> storageMap) {
+        final ActiveIndex mergingIndex = mergingIndices.computeIfAbsent(DirectoryUtils.getMinId(mergedEventFile), id -> new ActiveIndex());
+
+        for (final Map.Entry<ProvenanceEventRecord, StorageSummary> entry : storageMap.entrySet()) {
+            final long eventId = entry.getValue().getEventId();
+            forEachFlowFileUuid(entry.getKey(), uuid -> mergingIndex.add(hash(uuid), eventId));
+        }
+    }
+
+    /**
+     * Writes the Lineage Index for an Event File that was created by merging the given Event Files and removes the Lineage Index of
+     * each of the merged Event Files. The merged Event File must have the same minimum Event ID as the first of the given Event Files.
+     * Because the merged index covers all of the events of that first file, lookups remain correct whether they are made against
+     * the merged Event File or against the Event Files that it replaces.
+     *
+     * @param mergedEventFile the Event File that was created
+     * @param sourceEventFiles the Event Files that were merged
+     */
+    public void commitMerge(final File mergedEventFile, final Collection<File> sourceEventFiles) {
+        final long minEventId = DirectoryUtils.getMinId(mergedEventFile);
+        final ActiveIndex mergingIndex = mergingIndices.remove(minEventId);
+
+        // Fall back to the Event Index while the Lineage Index file is replaced, so that a lookup never reads the new file using the old file's fence.
+        filesToRebuild.add(minEventId);
+        indexFiles.remove(minEventId);
+        try {
+            indexFiles.put(minEventId, (mergingIndex == null ? new ActiveIndex() : mergingIndex).write(getIndexFile(minEventId)));
+            filesToRebuild.remove(minEventId);
+        } catch (final IOException ioe) {
+            logger.warn("Failed to write Lineage Index for {}; it will be rebuilt from the Event File", mergedEventFile, ioe);
+            scheduleRebuild(mergedEventFile);
+        }
+
+        for (final File sourceEventFile : sourceEventFiles) {
+            if (DirectoryUtils.getMinId(sourceEventFile) != minEventId) {
+                remove(sourceEventFile);
+            }
+        }
+    }
+
+    /**
+     * Discards the entries that were recorded for an Event File that was being created by merging other Event Files
+     *
+     * @param mergedEventFile the Event File that will not be created
+     */
+    public void abortMerge(final File mergedEventFile) {
+        mergingIndices.remove(DirectoryUtils.getMinId(mergedEventFile));
+    }
+
+    /**
+     * Removes the Lineage Index for the given Event File, which has been deleted
+     *
+     * @param eventFile the Event File that was deleted
+     */
+    public void remove(final File eventFile) {
+        final long minEventId = DirectoryUtils.getMinId(eventFile);
+        activeIndices.remove(minEventId);
+        indexFiles.remove(minEventId);
+        filesToRebuild.remove(minEventId);
+
+        final File indexFile = getIndexFile(minEventId);
+        if (indexFile.exists() && !indexFile.delete()) {
+            logger.warn("Failed to remove Lineage Index file {}; this file should be cleaned up manually", indexFile);
+        }
+    }
+
+    /**
+     * Looks up the IDs of all events in the given Event Files that are part of the lineage of any of the given FlowFiles. Because
+     * UUIDs are indexed by their hash, the result may include events that are not related to the given FlowFiles.
+     *
+     * @param flowFileUuids the UUIDs of the FlowFiles of interest
+     * @param eventFiles the Event Files to search
+     * @return the IDs of the matching events, or an empty Optional if any of the Event Files has not yet been indexed
+     * @throws IOException if unable to read a Lineage Index file
+     */
+    public Optional<Set<Long>> getEventIds(final Collection<String> flowFileUuids, final Collection<File> eventFiles) throws IOException {
+        final long[] hashes = flowFileUuids.stream().mapToLong(LineageIndex::hash).sorted().distinct().toArray();
+        final Set<Long> eventIds = new HashSet<>();
+        final LongConsumer eventIdConsumer = eventIds::add;
+
+        for (final File eventFile : eventFiles) {
+            final long minEventId = DirectoryUtils.getMinId(eventFile);
+
+            final ActiveIndex activeIndex = activeIndices.get(minEventId);
+            if (activeIndex != null) {
+                activeIndex.findEventIds(hashes, eventIdConsumer);
+                continue;
+            }
+
+            if (filesToRebuild.contains(minEventId)) {
+                logger.debug("Lineage Index for {} has not yet been rebuilt", eventFile);
+                return Optional.empty();
+            }
+
+            final Optional<LineageIndexFile> indexFile = getLineageIndexFile(minEventId);
+            if (!indexFile.isPresent()) {
+                logger.debug("No Lineage Index exists for {}", eventFile);
+                return Optional.empty();
+            }
+
+            indexFile.get().findEventIds(hashes, eventIdConsumer);
+        }
+
+        return Optional.of(eventIds);
+    }
+
+    private Optional<LineageIndexFile> getLineageIndexFile(final long minEventId) throws IOException {
+        final LineageIndexFile cached = indexFiles.get(minEventId);
+        if (cached != null) {
+            return Optional.of(cached);
+        }
+
+        final File file = getIndexFile(minEventId);
+        final LineageIndexFile indexFile;
+        try {
+            indexFile = LineageIndexFile.open(file);
+        } catch (final NoSuchFileException nsfe) {
+            return Optional.empty();
+        }
+
+        indexFiles.put(minEventId, indexFile);
+        return Optional.of(indexFile);
+    }
+
+    private void scheduleRebuild(final File eventFile) {
+        rebuildExecutor.submit(() -> rebuild(eventFile));
+    }
+
+    private void rebuild(final File eventFile) {
+        final long minEventId = DirectoryUtils.getMinId(eventFile);
+        if (!filesToRebuild.contains(minEventId)) {
+            return;
+        }
+
+        final ActiveIndex rebuiltIndex = new ActiveIndex();
+        try (final RecordReader reader = recordReaderFactory.newRecordReader(eventFile, Collections.emptyList(), maxAttributeChars)) {
+            ProvenanceEventRecord event;
+            while ((event = reader.nextRecord()) != null) {
+                final long eventId = event.getEventId();
+                forEachFlowFileUuid(event, uuid -> rebuiltIndex.add(hash(uuid), eventId));
+            }
+        } catch (final FileNotFoundException fnfe) {
+            logger.debug("Event File {} was removed before its Lineage Index could be rebuilt", eventFile);
+            filesToRebuild.remove(minEventId);
+            return;
+        } catch (final EOFException eof) {
+            // The file may have been truncated if NiFi was stopped while writing to it. Index the events that could be read.
+            logger.warn("Reached unexpected end of Event File {} while rebuilding its Lineage Index; {} entries were indexed", eventFile, rebuiltIndex.size());
+        } catch (final Exception e) {
+            logger.warn("Failed to read Event File {} while rebuilding its Lineage Index; {} entries were indexed", eventFile, rebuiltIndex.size(), e);
+        }
+
+        try {
+            indexFiles.put(minEventId, rebuiltIndex.write(getIndexFile(minEventId)));
+            logger.debug("Rebuilt Lineage Index for {} with {} entries", eventFile, rebuiltIndex.size());
+        } catch (final IOException ioe) {
+            // Leave the file marked for rebuild so that lineage continues to be computed using the Event Index
+            logger.error("Failed to write Lineage Index for {}", eventFile, ioe);
+            return;
+        }
+
+        // The Event File may have been removed while its index was being rebuilt
+        if (!filesToRebuild.remove(minEventId)) {
+            remove(eventFile);
+        }
+    }
+
+    /**
+     * @return <code>true</code> if the index is up-to-date for all Event Files, <code>false</code> if some are still being rebuilt
+     */
+    public boolean isComplete() {
+        return filesToRebuild.isEmpty();
+    }
+
+    @Override
+    public void close() {
+        rebuildExecutor.shutdownNow();
+    }
+
+    private File getIndexFile(final long minEventId) {
+        return new File(indexDirectory, minEventId + FILE_EXTENSION);
+    }
+
+    /**
+     * Determines whether or not the given event is part of the lineage of any of the given FlowFiles
+     *
+     * @param event the event
+     * @param flowFileUuids the UUIDs of the FlowFiles of interest
+     * @return <code>true</code> if the event is indexed under any of the given UUIDs, <code>false</code> otherwise
+     */
+    public static boolean isRelated(final ProvenanceEventRecord event, final Collection<String> flowFileUuids) {
+        final boolean[] related = new boolean[1];
+        forEachFlowFileUuid(event, uuid -> related[0] |= flowFileUuids.contains(uuid));
+        return related[0];
+    }
+
+    private static void forEachFlowFileUuid(final ProvenanceEventRecord event, final Consumer<String> consumer) {
+        final String flowFileUuid = event.getFlowFileUuid();
+        consumer.accept(flowFileUuid);
+
+        final ProvenanceEventType eventType = event.getEventType();
+        if (eventType == ProvenanceEventType.FORK || eventType == ProvenanceEventType.CLONE || eventType == ProvenanceEventType.REPLAY) {
+            for (final String uuid : event.getChildUuids()) {
+                if (!uuid.equals(flowFileUuid)) {
+                    consumer.accept(uuid);
+                }
+            }
+        } else if (eventType == ProvenanceEventType.JOIN) {
+            for (final String uuid : event.getParentUuids()) {
+                if (!uuid.equals(flowFileUuid)) {
+                    consumer.accept(uuid);
+                }
+            }
+        } else if (eventType == ProvenanceEventType.RECEIVE && event.getSourceSystemFlowFileIdentifier() != null) {
+            final String sourceIdentifier = event.getSourceSystemFlowFileIdentifier();
+            final int lastColon = sourceIdentifier.lastIndexOf(":");
+            if (lastColon > -1 && lastColon < sourceIdentifier.length() - 2) {
+                consumer.accept(sourceIdentifier.substring(lastColon + 1));
+            }
+        }
+    }
+
+    /**
+     * Computes the 64-bit FNV-1a hash of the given UUID
+     */
+    static long hash(final String uuid) {
+        long hash = FNV_OFFSET_BASIS;
+        for (final byte b : uuid.getBytes(StandardCharsets.UTF_8)) {
+            hash ^= (b & 0xFF);
+            hash *= FNV_PRIME;
+        }
+
+        return hash;
+    }
+
+
+    /**
+     * The in-memory entries for an Event File that is still being written to. Entries are appended in the order in which they are added
+     * and are only sorted when the Lineage Index file is written.
+     */
+    private static class ActiveIndex {
+        private long[] hashes = new long[1024];
+        private long[] eventIds = new long[1024];
+        private int size = 0;
+
+        synchronized void add(final long hash, final long eventId) {
+            if (size == hashes.length) {
+                hashes = Arrays.copyOf(hashes, size * 2);
+                eventIds = Arrays.copyOf(eventIds, size * 2);
+            }
+
+            hashes[size] = hash;
+            eventIds[size] = eventId;
+            size++;
+        }
+
+        synchronized int size() {
+            return size;
+        }
+
+        synchronized void findEventIds(final long[] sortedHashes, final LongConsumer consumer) {
+            for (int i = 0; i < size; i++) {
+                if (Arrays.binarySearch(sortedHashes, hashes[i]) >= 0) {
+                    consumer.accept(eventIds[i]);
+                }
+            }
+        }
+
+        synchronized LineageIndexFile write(final File file) throws IOException {
+            final Integer[] order = new Integer[size];
+            for (int i = 0; i < size; i++) {
+                order[i] = i;
+            }
+
+            Arrays.sort(order, (a, b) -> {
+                final int hashComparison = Long.compare(hashes[a], hashes[b]);
+                return hashComparison == 0 ? Long.compare(eventIds[a], eventIds[b]) : hashComparison;
+            });
+
+            final long[] sortedHashes = new long[size];
+            final long[] sortedEventIds = new long[size];
+            for (int i = 0; i < size; i++) {
+                sortedHashes[i] = hashes[order[i]];
+                sortedEventIds[i] = eventIds[order[i]];
+            }
+
+            LineageIndexFile.write(file, sortedHashes, sortedEventIds, size);
+            return LineageIndexFile.open(file);
+        }
+    }
+}
@@ -0,0 +1,212 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.nifi.provenance.store;
+
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.function.LongConsumer;
+
+/**
+ * <p>
+ * A read-only view of the Lineage Index that was written for a single Event File. The file consists of a header, followed by
+ * one entry for each FlowFile UUID that an event was indexed under, sorted by the hash of the UUID, followed by a fence that
+ * holds the hash of every {@link #FENCE_STRIDE}th entry:
+ * </p>
+ *
+ * <pre>
+ * byte   version
+ * int    entry count
+ * entry  [long uuid hash, long event id] * entry count
+ * long   [uuid hash] * ceil(entry count / FENCE_STRIDE)
+ * </pre>
+ *
+ * <p>
+ * Only the fence is held in memory, so a lookup reads a single small region of the file for each UUID.
+ * </p>
+ */
+final class LineageIndexFile {
+    static final int VERSION = 1;
+    static final int FENCE_STRIDE = 256;
+
+    private static final int HEADER_LENGTH = 5;
+    private static final int ENTRY_LENGTH = 16;
+
+    private final File file;
+    private final int entryCount;
+    private final long[] fence;
+
+    private LineageIndexFile(final File file, final int entryCount, final long[] fence) {
+        this.file = file;
+        this.entryCount = entryCount;
+        this.fence = fence;
+    }
+
+    /**
+     * Writes a Lineage Index file. The file is first written to a temporary file and then renamed, so that a partially written file is never read.
+     *
+     * @param file the file to write
+     * @param hashes the UUID hashes of the entries, which must be sorted in ascending order
+     * @param eventIds the event IDs of the entries, such that <code>eventIds[i]</code> corresponds to <code>hashes[i]</code>
+     * @param count the number of entries to write
+     * @throws IOException if unable to write the file
+     */
+    static void write(final File file, final long[] hashes, final long[] eventIds, final int count) throws IOException {
+        final File tempFile = new File(file.getParentFile(), file.getName() + ".tmp");
+
+        try (final DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tempFile)))) {
+            out.writeByte(VERSION);
+            out.writeInt(count);
+
+            for (int i = 0; i < count; i++) {
+                out.writeLong(hashes[i]);
+                out.writeLong(eventIds[i]);
+            }
+
+            for (int i = 0; i < count; i += FENCE_STRIDE) {
+                out.writeLong(hashes[i]);
+            }
+        }
+
+        Files.move(tempFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    /**
+     * Reads the header and fence of the given Lineage Index file
+     *
+     * @param file the file to open
+     * @return a view of the Lineage Index file
+     * @throws IOException if unable to read the file or the file is not a complete Lineage Index file
+     */
+    static LineageIndexFile open(final File file) throws IOException {
+        try (final FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            final DataInputStream dis = new DataInputStream(Channels.newInputStream(channel));
+
+            final int version = dis.read();
+            if (version != VERSION) {
+                throw new IOException("Cannot read Lineage Index file " + file + " because it has unsupported version " + version);
+            }
+
+            final int entryCount = dis.readInt();
+            final int fenceLength = (entryCount + FENCE_STRIDE - 1) / FENCE_STRIDE;
+            final long expectedLength = HEADER_LENGTH + (long) entryCount * ENTRY_LENGTH + (long) fenceLength * 8;
+            if (entryCount < 0 || channel.size() != expectedLength) {
+                throw new IOException("Lineage Index file " + file + " is incomplete: expected " + expectedLength + " bytes but found " + channel.size());
+            }
+
+            channel.position(expectedLength - (long) fenceLength * 8);
+            final DataInputStream fenceIn = new DataInputStream(Channels.newInputStream(channel));
+            final long[] fence = new long[fenceLength];
+            for (int i = 0; i < fenceLength; i++) {
+                fence[i] = fenceIn.readLong();
+            }
+
+            return new LineageIndexFile(file, entryCount, fence);
+        }
+    }
+
+    /**
+     * Provides the ID of every event in this file that was indexed under one of the given hashes
+     *
+     * @param sortedHashes the UUID hashes to look up, in ascending order
+     * @param consumer the consumer to provide each matching event ID to
+     * @throws IOException if unable to read from the file
+     */
+    void findEventIds(final long[] sortedHashes, final LongConsumer consumer) throws IOException {
+        if (entryCount == 0) {
+            return;
+        }
+
+        final ByteBuffer buffer = ByteBuffer.allocate(FENCE_STRIDE * ENTRY_LENGTH);
+        try (final FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            for (final long hash : sortedHashes) {
+                // Start at the last chunk whose first hash is smaller than the hash we want. Entries with the same hash may span chunks,
+                // so starting at a chunk whose first hash is equal to the hash could skip over some of them.
+                int entryIndex = findChunk(hash) * FENCE_STRIDE;
+
+                boolean passed = false;
+                while (!passed && entryIndex < entryCount) {
+                    final int entriesToRead = Math.min(FENCE_STRIDE, entryCount - entryIndex);
+                    buffer.clear();
+                    buffer.limit(entriesToRead * ENTRY_LENGTH);
+
+                    final long position = HEADER_LENGTH + (long) entryIndex * ENTRY_LENGTH;
+                    while (buffer.hasRemaining()) {
+                        if (channel.read(buffer, position + buffer.position()) < 0) {
+                            throw new EOFException("Unexpected end of Lineage Index file " + file);
+                        }
+                    }
+
+                    buffer.flip();
+                    for (int i = 0; i < entriesToRead; i++) {
+                        final long entryHash = buffer.getLong();
+                        final long eventId = buffer.getLong();
+
+                        if (entryHash > hash) {
+                            passed = true;
+                            break;
+                        }
+
+                        if (entryHash == hash) {
+                            consumer.accept(eventId);
+                        }
+                    }
+
+                    entryIndex += entriesToRead;
+                }
+            }
+        }
+    }
+
+    private int findChunk(final long hash) {
+        int low = 0;
+        int high = fence.length - 1;
+        int chunk = 0;
+
+        while (low <= high) {
+            final int mid = (low + high) >>> 1;
+            if (fence[mid] < hash) {
+                chunk = mid;
+                low = mid + 1;
+            } else {
+                high = mid - 1;
+            }
+        }
+
+        return chunk;
+    }
+
+    int getEntryCount() {
+        return entryCount;
+    }
+
+    @Override
+    public String toString() {
+        return "LineageIndexFile[file=" + file + ", entries=" + entryCount + "]";
+    }
+}
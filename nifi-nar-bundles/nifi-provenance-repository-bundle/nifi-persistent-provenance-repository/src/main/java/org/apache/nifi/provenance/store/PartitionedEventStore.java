@@ -169,6 +169,22 @@ public abstract class PartitionedEventStore implements EventStore {
         return getEvents(eventIds.size(), authorizer, part -> part.createEventIterator(eventIds), transformer);
     }
 
+    @Override
+    public Optional<List<Long>> getLineageEventIds(final Collection<String> flowFileUuids) throws IOException {
+        final List<Long> eventIds = new ArrayList<>();
+        for (final EventStorePartition partition : getPartitions()) {
+            final Optional<List<Long>> partitionEventIds = partition.getLineageEventIds(flowFileUuids);
+            if (!partitionEventIds.isPresent()) {
+                return Optional.empty();
+            }
+
+            eventIds.addAll(partitionEventIds.get());
+        }
+
+        Collections.sort(eventIds);
+        return Optional.of(eventIds);
+    }
+
     private List<ProvenanceEventRecord> getEvents(final int maxRecords, final EventAuthorizer authorizer,
         final Function<EventStorePartition, EventIterator> eventIteratorFactory, final EventTransformer transformer) throws IOException {
 
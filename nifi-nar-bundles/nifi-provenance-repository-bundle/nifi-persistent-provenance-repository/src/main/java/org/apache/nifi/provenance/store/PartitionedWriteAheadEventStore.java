@@ -24,6 +24,9 @@ import org.apache.nifi.provenance.index.EventIndex;
 import org.apache.nifi.provenance.serialization.EventFileCompressor;
 import org.apache.nifi.provenance.store.iterator.AggregateEventIterator;
 import org.apache.nifi.provenance.store.iterator.EventIterator;
+import org.apache.nifi.reporting.Severity;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import java.io.File;
 import java.io.IOException;
@@ -37,9 +40,13 @@ import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
 import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
 
 public class PartitionedWriteAheadEventStore extends PartitionedEventStore {
+    private static final Logger logger = LoggerFactory.getLogger(PartitionedWriteAheadEventStore.class);
+    private static final String EVENT_CATEGORY = "Provenance Repository";
+
     private final BlockingQueue<File> filesToCompress;
     private final List<WriteAheadStorePartition> partitions;
     private final RepositoryConfiguration repoConfig;
@@ -90,7 +97,7 @@ public class PartitionedWriteAheadEventStore extends PartitionedEventStore {
     public void initialize() throws IOException {
         if (repoConfig.isCompressOnRollover()) {
             for (int i = 0; i < repoConfig.getIndexThreadPoolSize(); i++) {
-                final EventFileCompressor compressor = new EventFileCompressor(filesToCompress, fileManager);
+                final EventFileCompressor compressor = new EventFileCompressor(filesToCompress, fileManager, repoConfig.getCompressionCodec());
                 compressionExecutor.submit(compressor);
                 fileCompressors.add(compressor);
             }
@@ -137,6 +144,70 @@ public class PartitionedWriteAheadEventStore extends PartitionedEventStore {
         }
     }
 
+    @Override
+    void performMaintenance() {
+        // Move aging event files to the cold tier before the hot tier is purged, so that they are not aged off first
+        if (!repoConfig.getColdStorageDirectories().isEmpty()) {
+            moveToColdTier();
+        }
+
+        super.performMaintenance();
+
+        if (!repoConfig.getColdStorageDirectories().isEmpty()) {
+            purgeColdTier();
+        }
+    }
+
+    private void moveToColdTier() {
+        // A segment smaller than the configured segment size is created only once its oldest event file has used up half of the time that
+        // it has left in the hot tier, so that segments are usually full-sized but event files are not aged off while waiting for more to accumulate.
+        final long coldTierAgeMillis = repoConfig.getColdTierAge(TimeUnit.MILLISECONDS);
+        final long maxWaitMillis = Math.max(coldTierAgeMillis, (coldTierAgeMillis + repoConfig.getMaxRecordLife(TimeUnit.MILLISECONDS)) / 2);
+
+        for (final WriteAheadStorePartition partition : partitions) {
+            if (!partition.isColdTierEnabled()) {
+                continue;
+            }
+
+            try {
+                partition.moveToColdTier(coldTierAgeMillis, maxWaitMillis, TimeUnit.MILLISECONDS);
+            } catch (final Exception e) {
+                logger.error("Failed to move events from {} to the cold tier", partition, e);
+                eventReporter.reportEvent(Severity.WARNING, EVENT_CATEGORY,
+                    "Failed to move events from Provenance Repository to the cold tier. See logs for more information.");
+            }
+        }
+    }
+
+    private void purgeColdTier() {
+        final long maxColdRecordLife = repoConfig.getMaxColdRecordLife(TimeUnit.MILLISECONDS);
+        long coldTierSize = 0L;
+        for (final WriteAheadStorePartition partition : partitions) {
+            partition.purgeOldColdEvents(maxColdRecordLife, TimeUnit.MILLISECONDS);
+            coldTierSize += partition.getColdTierSize();
+        }
+
+        final long maxColdStorageCapacity = repoConfig.getMaxColdStorageCapacity();
+        while (coldTierSize > maxColdStorageCapacity) {
+            long removed = 0L;
+            for (final WriteAheadStorePartition partition : partitions) {
+                try {
+                    removed += partition.purgeOldestColdEvents();
+                } catch (final Exception e) {
+                    logger.error("Failed to purge oldest cold tier events from {}", partition, e);
+                    eventReporter.reportEvent(Severity.WARNING, EVENT_CATEGORY,
+                        "Failed to purge oldest cold tier events from Provenance Repository. See logs for more information.");
+                }
+            }
+
+            if (removed == 0L) {
+                break;
+            }
+
+            coldTierSize -= removed;
+        }
+    }
+
     @Override
     protected List<WriteAheadStorePartition> getPartitions() {
         return partitions;
@@ -23,16 +23,24 @@ import org.apache.nifi.provenance.RepositoryConfiguration;
 import org.apache.nifi.provenance.StandardProvenanceEventRecord;
 import org.apache.nifi.provenance.authorization.EventAuthorizer;
 import org.apache.nifi.provenance.index.EventIndex;
+import org.apache.nifi.provenance.serialization.CompressionCodec;
+import org.apache.nifi.provenance.serialization.EventFileCompressor;
 import org.apache.nifi.provenance.serialization.RecordReader;
 import org.apache.nifi.provenance.serialization.RecordWriter;
 import org.apache.nifi.provenance.serialization.StorageSummary;
 import org.apache.nifi.provenance.store.iterator.EventIterator;
 import org.apache.nifi.provenance.store.iterator.SelectiveRecordReaderEventIterator;
 import org.apache.nifi.provenance.store.iterator.SequentialRecordReaderEventIterator;
+import org.apache.nifi.provenance.toc.StandardTocReader;
+import org.apache.nifi.provenance.toc.StandardTocWriter;
+import org.apache.nifi.provenance.toc.TocReader;
 import org.apache.nifi.provenance.toc.TocUtil;
+import org.apache.nifi.provenance.toc.TocWriter;
+import org.apache.nifi.provenance.util.CloseableUtil;
 import org.apache.nifi.provenance.util.DirectoryUtils;
 import org.apache.nifi.provenance.util.NamedThreadFactory;
 import org.apache.nifi.util.FormatUtils;
+import org.apache.nifi.util.file.FileUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -41,14 +49,17 @@ import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
 import java.util.SortedMap;
 import java.util.TreeMap;
 import java.util.concurrent.BlockingQueue;
@@ -65,8 +76,11 @@ import java.util.stream.Stream;
 public class WriteAheadStorePartition implements EventStorePartition {
     private static final Logger logger = LoggerFactory.getLogger(WriteAheadStorePartition.class);
 
+    static final String COMPACTION_DIRECTORY_NAME = "compacting";
+
     private final RepositoryConfiguration config;
     private final File partitionDirectory;
+    private final File coldDirectory;
     private final String partitionName;
     private final RecordWriterFactory recordWriterFactory;
     private final RecordReaderFactory recordReaderFactory;
@@ -74,6 +88,7 @@ public class WriteAheadStorePartition implements EventStorePartition {
     private final AtomicLong idGenerator;
     private final AtomicLong maxEventId = new AtomicLong(-1L);
     private final EventFileManager eventFileManager;
+    private final LineageIndex lineageIndex;
     private volatile boolean closed = false;
 
     private AtomicReference<RecordWriterLease> eventWriterLeaseRef = new AtomicReference<>();
@@ -88,10 +103,12 @@ public class WriteAheadStorePartition implements EventStorePartition {
         this.config = repoConfig;
         this.idGenerator = idGenerator;
         this.partitionDirectory = storageDirectory;
+        this.coldDirectory = repoConfig.getColdStorageDirectories().get(partitionName);
         this.recordWriterFactory = recordWriterFactory;
         this.recordReaderFactory = recordReaderFactory;
         this.filesToCompress = filesToCompress;
         this.eventFileManager = eventFileManager;
+        this.lineageIndex = repoConfig.isLineageIndexEnabled() ? new LineageIndex(storageDirectory, recordReaderFactory, repoConfig.getMaxAttributeChars()) : null;
     }
 
     @Override
@@ -102,6 +119,12 @@ public class WriteAheadStorePartition implements EventStorePartition {
         if (lease != null) {
             lease.close();
         }
+
+        // The Lineage Index for the active Event File is not written here because events may still be in the process of being written
+        // to it. It will be rebuilt from the Event File when the partition is next initialized.
+        if (lineageIndex != null) {
+            lineageIndex.close();
+        }
     }
 
     @Override
@@ -115,13 +138,17 @@ public class WriteAheadStorePartition implements EventStorePartition {
             throw new IOException("Could not access files in the " + partitionDirectory + " directory");
         }
 
+        final List<File> fileList = new ArrayList<>(Arrays.asList(files));
+        if (coldDirectory != null) {
+            fileList.addAll(recoverColdTier(fileList));
+        }
+
         // We need to determine what the largest Event ID is in this partition. To do this, we
         // iterate over all files starting with the file that has the greatest ID, and try to find
         // the largest Event ID in that file. Once we successfully determine the greatest Event ID
         // in any one of the files, we are done, since we are iterating over the files in order of
         // the Largest Event ID to the smallest.
         long maxEventId = -1L;
-        final List<File> fileList = Arrays.asList(files);
         fileList.sort(DirectoryUtils.LARGEST_ID_FIRST);
         for (final File file : fileList) {
             try {
@@ -145,6 +172,10 @@ public class WriteAheadStorePartition implements EventStorePartition {
 
         this.maxEventId.set(maxEventId);
 
+        if (lineageIndex != null) {
+            lineageIndex.initialize(fileList);
+        }
+
         // If configured to compress, compress any files that are not yet compressed.
         if (config.isCompressOnRollover()) {
             final File[] uncompressedFiles = partitionDirectory.listFiles(f -> f.getName().endsWith(".prov"));
@@ -152,10 +183,13 @@ public class WriteAheadStorePartition implements EventStorePartition {
                 for (final File file : uncompressedFiles) {
                     // If we have both a compressed file and an uncompressed file for the same .prov file, then
                     // we must have been in the process of compressing it when NiFi was restarted. Delete the partial
-                    // .gz file and we will start compressing it again.
-                    final File compressed = new File(file.getParentFile(), file.getName() + ".gz");
-                    if (compressed.exists()) {
-                        compressed.delete();
+                    // compressed file and we will start compressing it again. The codec may have been changed since,
+                    // so check for a partial file written by any codec.
+                    for (final CompressionCodec codec : CompressionCodec.values()) {
+                        final File compressed = new File(file.getParentFile(), file.getName() + codec.getFileExtension());
+                        if (compressed.exists()) {
+                            compressed.delete();
+                        }
                     }
                 }
             }
@@ -168,6 +202,59 @@ public class WriteAheadStorePartition implements EventStorePartition {
     }
 
 
+    /**
+     * Prepares the cold storage directory for use, removing anything that was left behind by a compaction that did not complete
+     * before NiFi was stopped.
+     *
+     * @param hotFiles the Event Files in the partition directory. Any Event File whose events were already merged into a segment is removed from the List.
+     * @return the segments of the cold tier
+     * @throws IOException if unable to access the cold storage directory
+     */
+    private List<File> recoverColdTier(final List<File> hotFiles) throws IOException {
+        Files.createDirectories(coldDirectory.toPath());
+
+        // A segment is only moved into the cold storage directory once it is complete, so anything still in the compaction directory is partial.
+        final File compactionDirectory = new File(coldDirectory, COMPACTION_DIRECTORY_NAME);
+        if (compactionDirectory.exists()) {
+            FileUtils.deleteFile(compactionDirectory, true);
+        }
+
+        final File[] coldFiles = coldDirectory.listFiles(DirectoryUtils.EVENT_FILE_FILTER);
+        if (coldFiles == null) {
+            throw new IOException("Could not access files in the " + coldDirectory + " directory");
+        }
+
+        // If NiFi was stopped after a segment was moved into place but before the Event Files that it replaces were deleted, delete them now.
+        for (final File coldFile : coldFiles) {
+            final long minEventId = DirectoryUtils.getMinId(coldFile);
+            final long maxEventId;
+            try (final RecordReader reader = recordReaderFactory.newRecordReader(coldFile, Collections.emptyList(), Integer.MAX_VALUE)) {
+                maxEventId = reader.getMaxEventId();
+            } catch (final Exception e) {
+                logger.warn("Could not read cold tier segment {}", coldFile, e);
+                continue;
+            }
+
+            final List<File> mergedFiles = hotFiles.stream()
+                .filter(file -> DirectoryUtils.getMinId(file) >= minEventId && DirectoryUtils.getMinId(file) <= maxEventId)
+                .collect(Collectors.toList());
+
+            if (!mergedFiles.isEmpty()) {
+                logger.info("Removing {} Event Files from {} because their events were merged into cold tier segment {}: {}", mergedFiles.size(), partitionDirectory, coldFile, mergedFiles);
+                mergedFiles.forEach(this::deleteEventFile);
+                hotFiles.removeAll(mergedFiles);
+
+                // The Lineage Index may not yet have been replaced by that of the segment, so it will be rebuilt
+                if (lineageIndex != null) {
+                    lineageIndex.remove(coldFile);
+                }
+            }
+        }
+
+        return Arrays.asList(coldFiles);
+    }
+
+
     @Override
     public StorageResult addEvents(final Iterable<ProvenanceEventRecord> events) throws IOException {
         if (closed) {
@@ -289,8 +376,17 @@ public class WriteAheadStorePartition implements EventStorePartition {
         }
 
         logger.trace("Updated lease from {} to {}", lease, updatedLease);
+        if (lineageIndex != null) {
+            lineageIndex.create(updatedEventFile);
+        }
+
         if (lease != null) {
             lease.close();
+
+            // No more events can be written to the old Event File, so its Lineage Index can be written out
+            if (lineageIndex != null) {
+                lineageIndex.commit(lease.getWriter().getFile());
+            }
         }
 
         synchronized (minEventIdToPathMap) {
@@ -339,6 +435,10 @@ public class WriteAheadStorePartition implements EventStorePartition {
 
             writer.flush();
 
+            if (lineageIndex != null) {
+                lineageIndex.addEvents(writer.getFile(), locationMap);
+            }
+
             // Update max event id to be equal to be the greater of the current value or the
             // max value just written.
             final long maxIdWritten = maxId;
@@ -362,16 +462,45 @@ public class WriteAheadStorePartition implements EventStorePartition {
 
     @Override
     public long getSize() {
-        return getEventFilesFromDisk()
+        return getAllEventFilesFromDisk()
+            .collect(Collectors.summarizingLong(File::length))
+            .getSum();
+    }
+
+    /**
+     * @return the number of bytes occupied by the segments of the cold tier
+     */
+    long getColdTierSize() {
+        return getColdEventFilesFromDisk()
             .collect(Collectors.summarizingLong(File::length))
             .getSum();
     }
 
+    /**
+     * @return <code>true</code> if a cold storage directory is configured for this partition, <code>false</code> otherwise
+     */
+    boolean isColdTierEnabled() {
+        return coldDirectory != null;
+    }
+
     private Stream<File> getEventFilesFromDisk() {
         final File[] files = partitionDirectory.listFiles(DirectoryUtils.EVENT_FILE_FILTER);
         return files == null ? Stream.empty() : Arrays.stream(files);
     }
 
+    private Stream<File> getColdEventFilesFromDisk() {
+        if (coldDirectory == null) {
+            return Stream.empty();
+        }
+
+        final File[] files = coldDirectory.listFiles(DirectoryUtils.EVENT_FILE_FILTER);
+        return files == null ? Stream.empty() : Arrays.stream(files);
+    }
+
+    private Stream<File> getAllEventFilesFromDisk() {
+        return Stream.concat(getColdEventFilesFromDisk(), getEventFilesFromDisk());
+    }
+
     @Override
     public long getMaxEventId() {
         return maxEventId.get();
@@ -474,6 +603,21 @@ public class WriteAheadStorePartition implements EventStorePartition {
         return new SelectiveRecordReaderEventIterator(allFiles, recordReaderFactory, eventIds, config.getMaxAttributeChars());
     }
 
+    @Override
+    public Optional<List<Long>> getLineageEventIds(final Collection<String> flowFileUuids) throws IOException {
+        if (lineageIndex == null) {
+            return Optional.empty();
+        }
+
+        final List<File> allFiles;
+        synchronized (minEventIdToPathMap) {
+            allFiles = new ArrayList<>(minEventIdToPathMap.values());
+        }
+
+        final Optional<Set<Long>> eventIds = lineageIndex.getEventIds(flowFileUuids, allFiles);
+        return eventIds.map(ids -> ids.stream().sorted().collect(Collectors.toList()));
+    }
+
     private Optional<File> getPathForEventId(final long id) {
         File lastFile = null;
 
@@ -559,6 +703,18 @@ public class WriteAheadStorePartition implements EventStorePartition {
             minEventIdToPathMap.remove(firstEventId);
         }
 
+        if (!deleteEventFile(file)) {
+            return false;
+        }
+
+        if (lineageIndex != null) {
+            lineageIndex.remove(file);
+        }
+
+        return true;
+    }
+
+    private boolean deleteEventFile(final File file) {
         eventFileManager.obtainWriteLock(file);
         try {
             if (!file.delete()) {
@@ -577,8 +733,228 @@ public class WriteAheadStorePartition implements EventStorePartition {
         }
     }
 
-    void reindexLatestEvents(final EventIndex eventIndex) {
+    /**
+     * Moves the oldest Event Files of the partition into the cold tier, if a cold storage directory is configured for the partition. Consecutive
+     * Event Files that have not been written to for the given amount of time are merged into segments of up to the configured segment size, each
+     * of which is compressed using the cold tier's codec and has a single Lineage Index. Each segment takes the place of the Event Files that it
+     * replaces, so its events remain available to Event Iterators and to lookups by Event ID.
+     *
+     * @param olderThan the amount of time since an Event File was last written to before it may be moved
+     * @param maxWait the amount of time since an Event File was last written to before it is moved even if there are not yet enough Event Files to fill a segment
+     * @param unit the unit of time that applies to the other arguments
+     * @return the number of Event Files that were moved
+     * @throws IOException if unable to create a segment
+     */
+    int moveToColdTier(final long olderThan, final long maxWait, final TimeUnit unit) throws IOException {
+        if (coldDirectory == null) {
+            return 0;
+        }
+
+        final File activeEventFile = getActiveEventFile();
+        if (activeEventFile == null) {
+            logger.debug("There is currently no Active Event File for {}. Will not move events to the cold tier until the Active Event File has been established.", this);
+            return 0;
+        }
+
+        final long now = System.currentTimeMillis();
+        final long timeCutoff = now - unit.toMillis(olderThan);
         final List<File> eventFiles = getEventFilesFromDisk().sorted(DirectoryUtils.SMALLEST_ID_FIRST).collect(Collectors.toList());
+
+        // Only the oldest Event Files are merged, so that each segment holds a contiguous range of Event IDs and can take their place in the minEventIdToPathMap
+        final List<List<File>> segments = new ArrayList<>();
+        List<File> segmentFiles = new ArrayList<>();
+        long segmentBytes = 0L;
+        for (final File eventFile : eventFiles) {
+            if (eventFile.equals(activeEventFile) || eventFile.lastModified() >= timeCutoff) {
+                break;
+            }
+
+            // If configured to compress on rollover, an uncompressed Event File may not yet have been compressed
+            if (config.isCompressOnRollover() && eventFile.getName().endsWith(".prov")) {
+                break;
+            }
+
+            segmentFiles.add(eventFile);
+            segmentBytes += eventFile.length();
+            if (segmentBytes >= config.getColdSegmentSize()) {
+                segments.add(segmentFiles);
+                segmentFiles = new ArrayList<>();
+                segmentBytes = 0L;
+            }
+        }
+
+        // Wait for more Event Files to age before creating a segment that is smaller than the segment size, unless the files have already waited too long.
+        if (!segmentFiles.isEmpty() && segmentFiles.get(0).lastModified() < now - unit.toMillis(maxWait)) {
+            segments.add(segmentFiles);
+        }
+
+        int filesMoved = 0;
+        for (final List<File> sourceFiles : segments) {
+            if (closed) {
+                break;
+            }
+
+            createColdSegment(sourceFiles);
+            filesMoved += sourceFiles.size();
+        }
+
+        return filesMoved;
+    }
+
+    private void createColdSegment(final List<File> sourceFiles) throws IOException {
+        final long start = System.nanoTime();
+        final long minEventId = DirectoryUtils.getMinId(sourceFiles.get(0));
+        final CompressionCodec codec = config.getColdCompressionCodec();
+
+        // The segment is written to the compaction directory and moved into place only once it is complete.
+        final File compactionDirectory = new File(coldDirectory, COMPACTION_DIRECTORY_NAME);
+        final File mergedFile = new File(compactionDirectory, minEventId + ".prov");
+        final File compressedFile = new File(compactionDirectory, minEventId + ".prov" + codec.getFileExtension());
+        final File compressedTocFile = new File(compactionDirectory, minEventId + ".toc");
+        final File segmentFile = new File(coldDirectory, compressedFile.getName());
+
+        long sourceBytes = 0L;
+        long lastModified = 0L;
+        int eventCount = 0;
+        try {
+            Files.createDirectories(compactionDirectory.toPath());
+
+            try (final RecordWriter writer = recordWriterFactory.createWriter(mergedFile, new AtomicLong(minEventId), false, true)) {
+                writer.writeHeader(minEventId);
+
+                for (final File sourceFile : sourceFiles) {
+                    sourceBytes += sourceFile.length();
+                    lastModified = Math.max(lastModified, sourceFile.lastModified());
+                    eventCount += copyEvents(sourceFile, writer, segmentFile);
+                }
+
+                writer.flush();
+            }
+
+            final TocReader tocReader = new StandardTocReader(TocUtil.getTocFile(mergedFile));
+            TocWriter tocWriter = null;
+            try {
+                tocWriter = new StandardTocWriter(compressedTocFile, codec, false);
+                EventFileCompressor.compress(mergedFile, tocReader, compressedFile, tocWriter, codec);
+            } finally {
+                CloseableUtil.closeQuietly(tocReader, tocWriter);
+            }
+
+            // The segment keeps the time at which its newest Event File was last written to, so that it is aged off based on the age of its events.
+            if (!compressedFile.setLastModified(lastModified)) {
+                logger.debug("Failed to set last modified time of {}", compressedFile);
+            }
+
+            final File segmentTocFile = TocUtil.getTocFile(segmentFile);
+            Files.createDirectories(segmentTocFile.getParentFile().toPath());
+            Files.move(compressedTocFile.toPath(), segmentTocFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            Files.move(compressedFile.toPath(), segmentFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        } catch (final IOException | RuntimeException e) {
+            if (lineageIndex != null) {
+                lineageIndex.abortMerge(segmentFile);
+            }
+
+            throw e;
+        } finally {
+            FileUtils.deleteFile(compactionDirectory, true);
+        }
+
+        if (lineageIndex != null) {
+            lineageIndex.commitMerge(segmentFile, sourceFiles);
+        }
+
+        synchronized (minEventIdToPathMap) {
+            for (final File sourceFile : sourceFiles) {
+                minEventIdToPathMap.remove(DirectoryUtils.getMinId(sourceFile));
+            }
+
+            minEventIdToPathMap.put(minEventId, segmentFile);
+        }
+
+        sourceFiles.forEach(this::deleteEventFile);
+
+        final long millis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        logger.info("Moved {} Event Files ({}) containing {} events from {} to cold tier segment {} ({}) in {} millis", sourceFiles.size(), FormatUtils.formatDataSize(sourceBytes),
+            eventCount, partitionDirectory, segmentFile, FormatUtils.formatDataSize(segmentFile.length()), millis);
+    }
+
+    private int copyEvents(final File eventFile, final RecordWriter writer, final File segmentFile) throws IOException {
+        int eventCount = 0;
+
+        try (final RecordReader reader = recordReaderFactory.newRecordReader(eventFile, Collections.emptyList(), Integer.MAX_VALUE)) {
+            while (true) {
+                final ProvenanceEventRecord event;
+                try {
+                    event = reader.nextRecord();
+                } catch (final EOFException eof) {
+                    // The file may have been truncated if NiFi was stopped while writing to it. Keep the events that could be read.
+                    logger.warn("Reached unexpected end of Event File {} while moving it to the cold tier; {} events were moved", eventFile, eventCount);
+                    break;
+                }
+
+                if (event == null) {
+                    break;
+                }
+
+                // Events are written one at a time because the writer keys events by equality, which does not consider an Event ID of 0, so
+                // two events in the same batch could be mistaken for one another. Each event retains its Event ID because it already has one.
+                final Map<ProvenanceEventRecord, StorageSummary> storageMap = writer.writeRecords(Collections.singleton(event));
+                if (lineageIndex != null) {
+                    lineageIndex.addMergedEvents(segmentFile, storageMap);
+                }
+
+                eventCount++;
+            }
+        }
+
+        return eventCount;
+    }
+
+    /**
+     * Purges any segments from the cold tier that are older than the given amount of time
+     *
+     * @param olderThan the amount of time for which any segment older than this should be removed
+     * @param unit the unit of time that applies to the first argument
+     */
+    void purgeOldColdEvents(final long olderThan, final TimeUnit unit) {
+        final long timeCutoff = System.currentTimeMillis() - unit.toMillis(olderThan);
+
+        final List<File> removed = getColdEventFilesFromDisk().filter(file -> file.lastModified() < timeCutoff)
+            .sorted(DirectoryUtils.SMALLEST_ID_FIRST)
+            .filter(this::delete)
+            .collect(Collectors.toList());
+
+        if (removed.isEmpty()) {
+            logger.debug("No cold tier segments that exceed time-based threshold of {} {}", olderThan, unit);
+        } else {
+            logger.info("Purged {} cold tier segments from Provenance Repository because the events were older than {} {}: {}", removed.size(), olderThan, unit, removed);
+        }
+    }
+
+    /**
+     * Purges the oldest segment from the cold tier
+     *
+     * @return the number of bytes purged from the cold tier
+     */
+    long purgeOldestColdEvents() {
+        final Optional<File> oldestSegment = getColdEventFilesFromDisk().min(DirectoryUtils.SMALLEST_ID_FIRST);
+        if (!oldestSegment.isPresent()) {
+            return 0L;
+        }
+
+        final File segmentFile = oldestSegment.get();
+        final long fileSize = segmentFile.length();
+        if (delete(segmentFile)) {
+            logger.info("{} Deleted cold tier segment {} ({}) due to storage limits", this, segmentFile, FormatUtils.formatDataSize(fileSize));
+            return fileSize;
+        }
+
+        logger.warn("{} Failed to delete oldest cold tier segment {}. This file should be cleaned up manually.", this, segmentFile);
+        return 0L;
+    }
+
+    void reindexLatestEvents(final EventIndex eventIndex) {
+        final List<File> eventFiles = getAllEventFilesFromDisk().sorted(DirectoryUtils.SMALLEST_ID_FIRST).collect(Collectors.toList());
         if (eventFiles.isEmpty()) {
             return;
         }
@@ -705,7 +1081,7 @@ public class WriteAheadStorePartition implements EventStorePartition {
         // within the given time range. If we then reach a file whose first event comes before our minTimestamp,
         // this means that all other files that we later encounter will have a max timestamp that comes before
         // our earliest event time, so we can stop adding files at that point.
-        final List<File> eventFiles = getEventFilesFromDisk().sorted(DirectoryUtils.LARGEST_ID_FIRST).collect(Collectors.toList());
+        final List<File> eventFiles = getAllEventFilesFromDisk().sorted(DirectoryUtils.LARGEST_ID_FIRST).collect(Collectors.toList());
         if (eventFiles.isEmpty()) {
             return EventIterator.EMPTY;
         }
@@ -19,6 +19,8 @@ package org.apache.nifi.provenance.toc;
 import java.io.Closeable;
 import java.io.File;
 
+import org.apache.nifi.provenance.serialization.CompressionCodec;
+
 /**
  * <p>
  * Reads a Table of Contents (.toc file) for a corresponding Journal File. We use a Table of Contents
@@ -37,6 +39,14 @@ public interface TocReader extends Closeable {
      */
     boolean isCompressed();
 
+    /**
+     * Indicates which codec the corresponding Journal file is compressed with. Journals that were written before the codec was
+     * recorded in the Table of Contents may be compressed even though this method returns <code>null</code>.
+     *
+     * @return the codec that the Journal file is compressed with, or <code>null</code> if the Table of Contents does not indicate compression
+     */
+    CompressionCodec getCompressionCodec();
+
     /**
      * @return the file that holds the TOC information
      */
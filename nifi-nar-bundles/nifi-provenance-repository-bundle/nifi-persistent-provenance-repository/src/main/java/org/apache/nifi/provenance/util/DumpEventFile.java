@@ -24,6 +24,7 @@ import java.util.Date;
 
 import org.apache.nifi.provenance.ProvenanceEventRecord;
 import org.apache.nifi.provenance.StandardProvenanceEventRecord;
+import org.apache.nifi.provenance.serialization.CompressionCodec;
 import org.apache.nifi.provenance.serialization.RecordReader;
 import org.apache.nifi.provenance.serialization.RecordReaders;
 
@@ -49,6 +50,10 @@ public class DumpEventFile {
         }
 
         try (final RecordReader reader = RecordReaders.newRecordReader(file, Collections.emptyList(), 65535)) {
+            final CompressionCodec codec = CompressionCodec.forEventFile(file.getName(), reader.getTocReader());
+            System.out.println("Compression Codec = " + (codec == null ? "None" : codec.name()));
+            System.out.println();
+
             StandardProvenanceEventRecord event;
             int index = 0;
             while ((event = reader.nextRecord()) != null) {
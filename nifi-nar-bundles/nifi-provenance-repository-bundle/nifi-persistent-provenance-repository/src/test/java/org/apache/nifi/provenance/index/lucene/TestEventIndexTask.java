@@ -21,8 +21,10 @@ import org.apache.lucene.document.Document;
 import org.apache.lucene.document.LongPoint;
 import org.apache.lucene.index.IndexWriter;
 import org.apache.nifi.events.EventReporter;
+import org.apache.nifi.provenance.ProvenanceEventRecord;
 import org.apache.nifi.provenance.RepositoryConfiguration;
 import org.apache.nifi.provenance.SearchableFields;
+import org.apache.nifi.provenance.TestUtil;
 import org.apache.nifi.provenance.index.EventIndexWriter;
 import org.apache.nifi.provenance.lucene.IndexManager;
 import org.apache.nifi.provenance.lucene.LuceneEventIndexWriter;
@@ -33,12 +35,19 @@ import org.mockito.Mockito;
 import java.io.File;
 import java.io.IOException;
 import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertTimeout;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 public class TestEventIndexTask {
 
@@ -138,4 +147,68 @@ public class TestEventIndexTask {
         Thread.sleep(100L);
         assertEquals(1, commitCount.get());
     }
+
+    @Test
+    public void testEventsConvertedInBatches() {
+        assertTimeout(Duration.ofSeconds(5), this::runEventsConvertedInBatches);
+    }
+
+    private void runEventsConvertedInBatches() throws InterruptedException, IOException {
+        final BlockingQueue<StoredDocument> docQueue = new LinkedBlockingQueue<>(1000);
+        final RepositoryConfiguration repoConfig = new RepositoryConfiguration();
+        final File storageDir = new File("target/storage/TestEventIndexTask/2");
+        repoConfig.addStorageDirectory("1", storageDir);
+
+        // Capture the FlowFile UUID of each document at the time that it is indexed, as the Documents are reused for subsequent batches.
+        final List<String> indexedUuids = Collections.synchronizedList(new ArrayList<>());
+        final AtomicInteger largestBatch = new AtomicInteger(0);
+        final IndexWriter indexWriter = Mockito.mock(IndexWriter.class);
+        Mockito.when(indexWriter.addDocuments(Mockito.anyIterable())).thenAnswer(invocation -> {
+            final List<Document> documents = invocation.getArgument(0);
+            largestBatch.accumulateAndGet(documents.size(), Math::max);
+            documents.forEach(document -> indexedUuids.add(document.get(SearchableFields.FlowFileUUID.getSearchableFieldName())));
+            return 0L;
+        });
+        final EventIndexWriter eventIndexWriter = new LuceneEventIndexWriter(indexWriter, storageDir);
+
+        final IndexManager indexManager = Mockito.mock(IndexManager.class);
+        Mockito.when(indexManager.borrowIndexWriter(Mockito.any(File.class))).thenReturn(eventIndexWriter);
+
+        final IndexDirectoryManager directoryManager = new IndexDirectoryManager(repoConfig);
+        final ConvertEventToLuceneDocument converter = new ConvertEventToLuceneDocument(Collections.singletonList(SearchableFields.FlowFileUUID), Collections.emptyList());
+
+        final Set<String> expectedUuids = new HashSet<>();
+        for (int i = 0; i < 250; i++) {
+            final ProvenanceEventRecord event = TestUtil.createEvent();
+            expectedUuids.add(event.getFlowFileUuid());
+
+            final StorageSummary location = new StorageSummary(i, "0.0.prov", "1", 0, 1000L, 1000L);
+            docQueue.add(new StoredDocument(event, location));
+        }
+
+        final EventIndexTask task = new EventIndexTask(docQueue, indexManager, directoryManager, converter, 100, 1_000_000,
+            new AdaptiveCommitScheduler(30, 30, TimeUnit.SECONDS), EventReporter.NO_OP);
+        final Thread thread = new Thread(task);
+        thread.setDaemon(true);
+        thread.start();
+
+        while (task.getEventsProcessed() < 250) {
+            Thread.sleep(10L);
+        }
+        task.shutdown();
+
+        assertEquals(250, task.getEventsIndexed());
+        assertEquals(250, indexedUuids.size());
+        assertEquals(expectedUuids, new HashSet<>(indexedUuids));
+        assertTrue(largestBatch.get() <= 100);
+    }
+
+    @Test
+    public void testCommitIntervalScalesWithQueuedEvents() {
+        final AdaptiveCommitScheduler scheduler = new AdaptiveCommitScheduler(5, 30, TimeUnit.SECONDS);
+        assertEquals(TimeUnit.SECONDS.toNanos(5), scheduler.getCommitIntervalNanos(0, 1000));
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(17_500), scheduler.getCommitIntervalNanos(500, 1000));
+        assertEquals(TimeUnit.SECONDS.toNanos(30), scheduler.getCommitIntervalNanos(1000, 1000));
+        assertEquals(TimeUnit.SECONDS.toNanos(30), scheduler.getCommitIntervalNanos(5000, 1000));
+    }
 }
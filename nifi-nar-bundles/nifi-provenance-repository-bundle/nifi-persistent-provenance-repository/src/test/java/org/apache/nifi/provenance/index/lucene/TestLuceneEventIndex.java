@@ -21,6 +21,7 @@ import org.apache.nifi.authorization.user.NiFiUser;
 import org.apache.nifi.events.EventReporter;
 import org.apache.nifi.provenance.ProvenanceEventRecord;
 import org.apache.nifi.provenance.ProvenanceEventType;
+import org.apache.nifi.provenance.ProvenanceQueryCursor;
 import org.apache.nifi.provenance.RepositoryConfiguration;
 import org.apache.nifi.provenance.SearchableFields;
 import org.apache.nifi.provenance.StandardProvenanceEventRecord;
@@ -32,6 +33,7 @@ import org.apache.nifi.provenance.lineage.ProvenanceEventLineageNode;
 import org.apache.nifi.provenance.lucene.IndexManager;
 import org.apache.nifi.provenance.lucene.StandardIndexManager;
 import org.apache.nifi.provenance.search.Query;
+import org.apache.nifi.provenance.search.QueryPage;
 import org.apache.nifi.provenance.search.QueryResult;
 import org.apache.nifi.provenance.search.QuerySubmission;
 import org.apache.nifi.provenance.search.SearchTerms;
@@ -53,6 +55,7 @@ import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -65,6 +68,7 @@ import java.util.stream.Collectors;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 @DisabledOnOs(OS.WINDOWS)
@@ -490,6 +494,69 @@ public class TestLuceneEventIndex {
         assertEquals(event2, matchingEvents.get(0));
     }
 
+    @Test
+    public void testQueryEventsByPage() throws InterruptedException, IOException {
+        final RepositoryConfiguration repoConfig = createConfig();
+        repoConfig.setSearchableFields(Collections.singletonList(SearchableFields.ComponentID));
+        final IndexManager indexManager = new StandardIndexManager(repoConfig);
+
+        final LuceneEventIndex index = new LuceneEventIndex(repoConfig, indexManager, 1, EventReporter.NO_OP);
+
+        final ArrayListEventStore eventStore = new ArrayListEventStore();
+        final List<ProvenanceEventRecord> expectedEvents = new ArrayList<>();
+        final long now = System.currentTimeMillis();
+        for (int i = 0; i < 25; i++) {
+            // Event Times are deliberately not in the same order as Event IDs
+            final String componentId = i % 2 == 0 ? "component-1" : "component-2";
+            final ProvenanceEventRecord event = createEvent(now - (i % 3) * 1000L, UUID.randomUUID().toString(), componentId);
+            eventStore.addEvent(event);
+            index.addEvent(event, createStorageSummary(event.getEventId()));
+
+            if (i % 2 == 0) {
+                expectedEvents.add(event);
+            }
+        }
+
+        expectedEvents.sort(Comparator.comparing(ProvenanceQueryCursor::of, ProvenanceQueryCursor.NEWEST_FIRST));
+        final List<Long> expectedEventIds = expectedEvents.stream().map(ProvenanceEventRecord::getEventId).collect(Collectors.toList());
+
+        index.initialize(eventStore);
+
+        final Query query = new Query(UUID.randomUUID().toString());
+        query.addSearchTerm(SearchTerms.newSearchTerm(SearchableFields.ComponentID, "component-1", null));
+
+        // We don't know how long it will take for the events to be indexed, so keep querying until all are found.
+        while (index.queryEvents(query, EventAuthorizer.GRANT_ALL, null, 100).getEvents().size() < expectedEventIds.size()) {
+            Thread.sleep(100L);
+        }
+
+        final List<Long> pagedEventIds = new ArrayList<>();
+        String continuationToken = null;
+        int pageCount = 0;
+        do {
+            final QueryPage page = index.queryEvents(query, EventAuthorizer.GRANT_ALL, continuationToken, 4);
+            assertTrue(page.getEvents().size() <= 4);
+            page.getEvents().forEach(event -> pagedEventIds.add(event.getEventId()));
+
+            continuationToken = page.getContinuationToken();
+            pageCount++;
+        } while (continuationToken != null);
+
+        assertEquals(expectedEventIds, pagedEventIds);
+        assertEquals(4, pageCount);
+
+        // Events added after the first page was retrieved must not be returned on later pages
+        final QueryPage firstPage = index.queryEvents(query, EventAuthorizer.GRANT_ALL, null, 4);
+        final ProvenanceEventRecord newEvent = createEvent(now, UUID.randomUUID().toString(), "component-1");
+        eventStore.addEvent(newEvent);
+        index.addEvent(newEvent, createStorageSummary(newEvent.getEventId()));
+
+        final QueryPage secondPage = index.queryEvents(query, EventAuthorizer.GRANT_ALL, firstPage.getContinuationToken(), 4);
+        assertEquals(expectedEventIds.subList(4, 8), secondPage.getEvents().stream().map(ProvenanceEventRecord::getEventId).collect(Collectors.toList()));
+
+        assertThrows(IllegalArgumentException.class, () -> index.queryEvents(query, EventAuthorizer.GRANT_ALL, "not-a-token", 4));
+    }
+
     private RepositoryConfiguration createConfig() {
         return createConfig(1);
     }
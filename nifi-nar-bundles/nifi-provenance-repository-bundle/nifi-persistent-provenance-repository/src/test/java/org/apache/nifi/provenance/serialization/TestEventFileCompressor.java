@@ -0,0 +1,151 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.nifi.provenance.serialization;
+
+import org.apache.nifi.provenance.EventIdFirstSchemaRecordWriter;
+import org.apache.nifi.provenance.IdentifierLookup;
+import org.apache.nifi.provenance.ProvenanceEventRecord;
+import org.apache.nifi.provenance.StandardProvenanceEventRecord;
+import org.apache.nifi.provenance.TestUtil;
+import org.apache.nifi.provenance.store.EventFileManager;
+import org.apache.nifi.provenance.toc.StandardTocReader;
+import org.apache.nifi.provenance.toc.StandardTocWriter;
+import org.apache.nifi.provenance.toc.TocReader;
+import org.apache.nifi.provenance.toc.TocUtil;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+public class TestEventFileCompressor {
+    private static final int EVENT_COUNT = 1000;
+
+    @TempDir
+    private Path tempDir;
+
+    @ParameterizedTest
+    @EnumSource(CompressionCodec.class)
+    public void testCompressedEventFileReadable(final CompressionCodec codec) throws IOException, InterruptedException {
+        assumeTrue(codec.isAvailable(), codec + " is not available on this platform");
+
+        final File eventFile = writeEventFile();
+        final File compressedFile = compress(eventFile, codec);
+        assertEquals(eventFile.getName() + codec.getFileExtension(), compressedFile.getName());
+
+        try (final TocReader tocReader = new StandardTocReader(TocUtil.getTocFile(eventFile))) {
+            assertEquals(codec, tocReader.getCompressionCodec());
+            assertTrue(tocReader.getBlockOffset(2) > 0, "Expected event file to contain multiple blocks");
+        }
+
+        // Reading sequentially must return every event in order
+        try (final RecordReader reader = RecordReaders.newRecordReader(eventFile, null, 2048)) {
+            for (int i = 0; i < EVENT_COUNT; i++) {
+                final StandardProvenanceEventRecord event = reader.nextRecord();
+                assertEquals(i, event.getEventId());
+            }
+
+            assertNull(reader.nextRecord());
+        }
+
+        // Skipping must make use of the TOC to seek directly to the block that holds the event
+        try (final RecordReader reader = RecordReaders.newRecordReader(eventFile, null, 2048)) {
+            final Optional<ProvenanceEventRecord> event = reader.skipToEvent(EVENT_COUNT - 10);
+            assertTrue(event.isPresent());
+            assertEquals(EVENT_COUNT - 10, event.get().getEventId());
+            assertTrue(reader.getBlockIndex() > 0);
+        }
+    }
+
+    @Test
+    public void testLegacyCompressedEventFileReadable() throws IOException {
+        // Older versions wrote compressed event files with a TOC that did not indicate the compression
+        final File eventFile = tempDir.resolve("0.prov.gz").toFile();
+        final StandardTocWriter tocWriter = new StandardTocWriter(TocUtil.getTocFile(eventFile), false, false);
+        try (final RecordWriter writer = new EventIdFirstSchemaRecordWriter(eventFile, new AtomicLong(0L), tocWriter, true, 1024 * 32, IdentifierLookup.EMPTY)) {
+            writer.writeHeader(0L);
+            writer.writeRecords(createEvents());
+        }
+
+        try (final RecordReader reader = RecordReaders.newRecordReader(eventFile, null, 2048)) {
+            assertNull(reader.getTocReader().getCompressionCodec());
+
+            final Optional<ProvenanceEventRecord> event = reader.skipToEvent(EVENT_COUNT - 10);
+            assertTrue(event.isPresent());
+            assertEquals(EVENT_COUNT - 10, event.get().getEventId());
+        }
+    }
+
+    private File writeEventFile() throws IOException {
+        final File eventFile = tempDir.resolve("0.prov").toFile();
+        final StandardTocWriter tocWriter = new StandardTocWriter(TocUtil.getTocFile(eventFile), false, false);
+        try (final RecordWriter writer = new EventIdFirstSchemaRecordWriter(eventFile, new AtomicLong(0L), tocWriter, false, 1024 * 32, IdentifierLookup.EMPTY)) {
+            writer.writeHeader(0L);
+            writer.writeRecords(createEvents());
+        }
+
+        return eventFile;
+    }
+
+    private List<ProvenanceEventRecord> createEvents() {
+        final List<ProvenanceEventRecord> events = new ArrayList<>(EVENT_COUNT);
+        for (int i = 0; i < EVENT_COUNT; i++) {
+            events.add(TestUtil.createEvent());
+        }
+
+        return events;
+    }
+
+    private File compress(final File eventFile, final CompressionCodec codec) throws InterruptedException {
+        final BlockingQueue<File> filesToCompress = new LinkedBlockingQueue<>();
+        filesToCompress.add(eventFile);
+
+        final EventFileCompressor compressor = new EventFileCompressor(filesToCompress, new EventFileManager(), codec);
+        final Thread compressionThread = new Thread(compressor);
+        compressionThread.start();
+
+        try {
+            final long maxTime = System.nanoTime() + TimeUnit.SECONDS.toNanos(30L);
+            while (eventFile.exists() && System.nanoTime() < maxTime) {
+                Thread.sleep(10L);
+            }
+        } finally {
+            compressor.shutdown();
+            compressionThread.join();
+        }
+
+        assertFalse(eventFile.exists(), "Uncompressed event file was not removed after compression");
+        return new File(eventFile.getParentFile(), eventFile.getName() + codec.getFileExtension());
+    }
+}
@@ -26,6 +26,7 @@ import org.apache.nifi.provenance.store.iterator.EventIterator;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
@@ -143,6 +144,11 @@ public class ArrayListEventStore implements EventStore {
         return events;
     }
 
+    @Override
+    public Optional<List<Long>> getLineageEventIds(final Collection<String> flowFileUuids) {
+        return Optional.empty();
+    }
+
     @Override
     public void reindexLatestEvents(EventIndex eventIndex) {
     }
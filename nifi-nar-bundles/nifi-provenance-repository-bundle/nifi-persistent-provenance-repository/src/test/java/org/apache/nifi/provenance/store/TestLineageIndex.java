@@ -0,0 +1,273 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.nifi.provenance.store;
+
+import org.apache.nifi.provenance.ProvenanceEventRecord;
+import org.apache.nifi.provenance.ProvenanceEventType;
+import org.apache.nifi.provenance.StandardProvenanceEventRecord;
+import org.apache.nifi.provenance.serialization.RecordReader;
+import org.apache.nifi.provenance.serialization.StorageSummary;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class TestLineageIndex {
+
+    @TempDir
+    File partitionDirectory;
+
+    private LineageIndex lineageIndex;
+
+    @AfterEach
+    public void cleanup() {
+        if (lineageIndex != null) {
+            lineageIndex.close();
+        }
+    }
+
+    @Test
+    public void testActiveAndCommittedEventFiles() throws IOException {
+        lineageIndex = new LineageIndex(partitionDirectory, unusedReaderFactory(), 65536);
+        final File firstEventFile = new File(partitionDirectory, "0.prov");
+        final File secondEventFile = new File(partitionDirectory, "10.prov");
+        lineageIndex.initialize(Collections.emptyList());
+
+        final String uuid = UUID.randomUUID().toString();
+        lineageIndex.create(firstEventFile);
+        lineageIndex.addEvents(firstEventFile, storageMap(createEvent(ProvenanceEventType.CREATE, uuid), 0L, createEvent(ProvenanceEventType.CREATE, UUID.randomUUID().toString()), 1L));
+        lineageIndex.commit(firstEventFile);
+        assertTrue(new File(partitionDirectory, "lineage/0.lineage").exists());
+
+        lineageIndex.create(secondEventFile);
+        lineageIndex.addEvents(secondEventFile, storageMap(createEvent(ProvenanceEventType.ATTRIBUTES_MODIFIED, uuid), 10L));
+        assertFalse(new File(partitionDirectory, "lineage/10.lineage").exists());
+
+        final Collection<File> eventFiles = Arrays.asList(firstEventFile, secondEventFile);
+        assertEquals(Optional.of(set(0L, 10L)), lineageIndex.getEventIds(Collections.singleton(uuid), eventFiles));
+        assertEquals(Optional.of(Collections.emptySet()), lineageIndex.getEventIds(Collections.singleton(UUID.randomUUID().toString()), eventFiles));
+        assertTrue(lineageIndex.isComplete());
+    }
+
+    @Test
+    public void testEventsIndexedUnderRelatedUuids() throws IOException {
+        lineageIndex = new LineageIndex(partitionDirectory, unusedReaderFactory(), 65536);
+        final File eventFile = new File(partitionDirectory, "0.prov");
+        lineageIndex.initialize(Collections.emptyList());
+        lineageIndex.create(eventFile);
+
+        final String parent = UUID.randomUUID().toString();
+        final String child = UUID.randomUUID().toString();
+        final String otherParent = UUID.randomUUID().toString();
+        final String sourceUuid = UUID.randomUUID().toString();
+
+        final ProvenanceEventRecord fork = createEventBuilder(ProvenanceEventType.FORK, parent).addParentUuid(parent).addChildUuid(child).build();
+        final ProvenanceEventRecord join = createEventBuilder(ProvenanceEventType.JOIN, child).addParentUuid(otherParent).addChildUuid(child).build();
+        final ProvenanceEventRecord receive = createEventBuilder(ProvenanceEventType.RECEIVE, UUID.randomUUID().toString())
+            .setTransitUri("nifi://unit-test")
+            .setSourceSystemFlowFileIdentifier("urn:nifi:" + sourceUuid)
+            .build();
+        lineageIndex.addEvents(eventFile, storageMap(fork, 0L, join, 1L, receive, 2L));
+
+        final Collection<File> eventFiles = Collections.singleton(eventFile);
+        assertEquals(Optional.of(set(0L)), lineageIndex.getEventIds(Collections.singleton(parent), eventFiles));
+        assertEquals(Optional.of(set(0L, 1L)), lineageIndex.getEventIds(Collections.singleton(child), eventFiles));
+        assertEquals(Optional.of(set(1L)), lineageIndex.getEventIds(Collections.singleton(otherParent), eventFiles));
+        assertEquals(Optional.of(set(2L)), lineageIndex.getEventIds(Collections.singleton(sourceUuid), eventFiles));
+        assertEquals(Optional.of(set(0L, 2L)), lineageIndex.getEventIds(Arrays.asList(parent, sourceUuid), eventFiles));
+
+        assertTrue(LineageIndex.isRelated(fork, Collections.singleton(child)));
+        assertTrue(LineageIndex.isRelated(join, Collections.singleton(otherParent)));
+        assertTrue(LineageIndex.isRelated(receive, Collections.singleton(sourceUuid)));
+        assertFalse(LineageIndex.isRelated(receive, Collections.singleton(parent)));
+    }
+
+    @Test
+    public void testHashCollisionIsNotRelated() throws IOException {
+        final String uuid = UUID.randomUUID().toString();
+        final ProvenanceEventRecord unrelatedEvent = createEvent(ProvenanceEventType.CREATE, UUID.randomUUID().toString());
+
+        // Simulate a collision by indexing an unrelated event under the hash of the UUID
+        final File indexDirectory = new File(partitionDirectory, "lineage");
+        Files.createDirectories(indexDirectory.toPath());
+        LineageIndexFile.write(new File(indexDirectory, "0.lineage"), new long[] {LineageIndex.hash(uuid)}, new long[] {7L}, 1);
+
+        final File eventFile = new File(partitionDirectory, "0.prov");
+        lineageIndex = new LineageIndex(partitionDirectory, unusedReaderFactory(), 65536);
+        lineageIndex.initialize(Collections.singleton(eventFile));
+        assertTrue(lineageIndex.isComplete());
+
+        assertEquals(Optional.of(set(7L)), lineageIndex.getEventIds(Collections.singleton(uuid), Collections.singleton(eventFile)));
+        assertFalse(LineageIndex.isRelated(unrelatedEvent, Collections.singleton(uuid)));
+    }
+
+    @Test
+    public void testHashIsStable() {
+        final String uuid = UUID.randomUUID().toString();
+        assertEquals(LineageIndex.hash(uuid), LineageIndex.hash(UUID.fromString(uuid).toString()));
+        assertNotEquals(LineageIndex.hash(uuid), LineageIndex.hash(UUID.randomUUID().toString()));
+
+        // 64-bit FNV-1a of the empty string is the offset basis
+        assertEquals(0xcbf29ce484222325L, LineageIndex.hash(""));
+    }
+
+    @Test
+    @Timeout(10)
+    public void testMissingIndexFileRebuilt() throws IOException, InterruptedException {
+        final String uuid = UUID.randomUUID().toString();
+        final RecordReader reader = mock(RecordReader.class);
+        when(reader.nextRecord()).thenReturn(
+            createEventBuilder(ProvenanceEventType.CREATE, uuid).setEventId(20L).build(),
+            createEventBuilder(ProvenanceEventType.CREATE, UUID.randomUUID().toString()).setEventId(21L).build(),
+            createEventBuilder(ProvenanceEventType.DROP, uuid).setEventId(22L).build(),
+            null);
+
+        final File indexDirectory = new File(partitionDirectory, "lineage");
+        Files.createDirectories(indexDirectory.toPath());
+        final File orphanedIndexFile = new File(indexDirectory, "500.lineage");
+        LineageIndexFile.write(orphanedIndexFile, new long[0], new long[0], 0);
+
+        final File eventFile = new File(partitionDirectory, "20.prov");
+        lineageIndex = new LineageIndex(partitionDirectory, (file, logFiles, maxChars) -> reader, 65536);
+        lineageIndex.initialize(Collections.singleton(eventFile));
+        assertFalse(orphanedIndexFile.exists());
+
+        while (!lineageIndex.isComplete()) {
+            Thread.sleep(10L);
+        }
+
+        assertTrue(new File(indexDirectory, "20.lineage").exists());
+        assertEquals(Optional.of(set(20L, 22L)), lineageIndex.getEventIds(Collections.singleton(uuid), Collections.singleton(eventFile)));
+    }
+
+    @Test
+    @Timeout(10)
+    public void testRebuildOfRemovedEventFile() throws IOException, InterruptedException {
+        final RecordReaderFactory readerFactory = mock(RecordReaderFactory.class);
+        when(readerFactory.newRecordReader(any(File.class), any(), anyInt())).thenThrow(new FileNotFoundException());
+
+        final File eventFile = new File(partitionDirectory, "0.prov");
+        lineageIndex = new LineageIndex(partitionDirectory, readerFactory, 65536);
+        lineageIndex.initialize(Collections.singleton(eventFile));
+
+        while (!lineageIndex.isComplete()) {
+            Thread.sleep(10L);
+        }
+
+        assertFalse(new File(partitionDirectory, "lineage/0.lineage").exists());
+        assertEquals(Optional.empty(), lineageIndex.getEventIds(Collections.singleton(UUID.randomUUID().toString()), Collections.singleton(eventFile)));
+    }
+
+    @Test
+    public void testIndexFileRemovedWhenEventFileAgesOff() throws IOException {
+        lineageIndex = new LineageIndex(partitionDirectory, unusedReaderFactory(), 65536);
+        final File eventFile = new File(partitionDirectory, "0.prov");
+        lineageIndex.initialize(Collections.emptyList());
+
+        final String uuid = UUID.randomUUID().toString();
+        lineageIndex.create(eventFile);
+        lineageIndex.addEvents(eventFile, storageMap(createEvent(ProvenanceEventType.CREATE, uuid), 0L));
+        lineageIndex.commit(eventFile);
+
+        final File indexFile = new File(partitionDirectory, "lineage/0.lineage");
+        assertTrue(indexFile.exists());
+        assertEquals(Optional.of(set(0L)), lineageIndex.getEventIds(Collections.singleton(uuid), Collections.singleton(eventFile)));
+
+        lineageIndex.remove(eventFile);
+        assertFalse(indexFile.exists());
+        assertEquals(Optional.empty(), lineageIndex.getEventIds(Collections.singleton(uuid), Collections.singleton(eventFile)));
+    }
+
+    @Test
+    public void testCommitMergeReplacesSourceIndexFiles() throws IOException {
+        lineageIndex = new LineageIndex(partitionDirectory, unusedReaderFactory(), 65536);
+        lineageIndex.initialize(Collections.emptyList());
+
+        final String uuid = UUID.randomUUID().toString();
+        final File firstEventFile = new File(partitionDirectory, "0.prov");
+        final File secondEventFile = new File(partitionDirectory, "5.prov");
+        for (final File eventFile : Arrays.asList(firstEventFile, secondEventFile)) {
+            lineageIndex.create(eventFile);
+            lineageIndex.commit(eventFile);
+        }
+
+        final File mergedEventFile = new File(partitionDirectory, "0.prov.merged");
+        lineageIndex.addMergedEvents(mergedEventFile, storageMap(createEvent(ProvenanceEventType.CREATE, uuid), 3L, createEvent(ProvenanceEventType.DROP, uuid), 6L));
+        lineageIndex.commitMerge(mergedEventFile, Arrays.asList(firstEventFile, secondEventFile));
+
+        assertTrue(new File(partitionDirectory, "lineage/0.lineage").exists());
+        assertFalse(new File(partitionDirectory, "lineage/5.lineage").exists());
+        assertEquals(Optional.of(set(3L, 6L)), lineageIndex.getEventIds(Collections.singleton(uuid), Collections.singleton(firstEventFile)));
+    }
+
+    private RecordReaderFactory unusedReaderFactory() {
+        return (file, logFiles, maxChars) -> {
+            throw new AssertionError("Event File " + file + " should not be read");
+        };
+    }
+
+    private Map<ProvenanceEventRecord, StorageSummary> storageMap(final Object... eventsAndIds) {
+        final Map<ProvenanceEventRecord, StorageSummary> storageMap = new LinkedHashMap<>();
+        for (int i = 0; i < eventsAndIds.length; i += 2) {
+            storageMap.put((ProvenanceEventRecord) eventsAndIds[i], new StorageSummary((Long) eventsAndIds[i + 1], "unit-test", null, 1, 1L));
+        }
+        return storageMap;
+    }
+
+    private Set<Long> set(final Long... eventIds) {
+        return new HashSet<>(Arrays.asList(eventIds));
+    }
+
+    private ProvenanceEventRecord createEvent(final ProvenanceEventType eventType, final String flowFileUuid) {
+        return createEventBuilder(eventType, flowFileUuid).build();
+    }
+
+    private StandardProvenanceEventRecord.Builder createEventBuilder(final ProvenanceEventType eventType, final String flowFileUuid) {
+        return new StandardProvenanceEventRecord.Builder()
+            .setEventTime(System.currentTimeMillis())
+            .setEventType(eventType)
+            .setFlowFileUUID(flowFileUuid)
+            .setAttributes(Collections.emptyMap(), Collections.singletonMap("uuid", flowFileUuid))
+            .setComponentId("1234")
+            .setComponentType("dummy processor")
+            .setCurrentContentClaim(null, null, null, null, 0L);
+    }
+}
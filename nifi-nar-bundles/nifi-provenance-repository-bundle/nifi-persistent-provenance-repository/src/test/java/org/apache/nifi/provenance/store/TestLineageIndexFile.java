@@ -0,0 +1,169 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.nifi.provenance.store;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class TestLineageIndexFile {
+
+    @TempDir
+    File tempDir;
+
+    @Test
+    public void testFileFormat() throws IOException {
+        final int count = LineageIndexFile.FENCE_STRIDE * 2 + 10;
+        final long[] hashes = new long[count];
+        final long[] eventIds = new long[count];
+        for (int i = 0; i < count; i++) {
+            hashes[i] = i * 10L - 1000L;
+            eventIds[i] = i;
+        }
+
+        final File file = new File(tempDir, "0.lineage");
+        LineageIndexFile.write(file, hashes, eventIds, count);
+
+        // header, entries, and a fence entry for each of the 3 chunks
+        assertEquals(5 + count * 16L + 3 * 8L, file.length());
+        assertFalse(new File(tempDir, "0.lineage.tmp").exists());
+
+        try (final DataInputStream in = new DataInputStream(new FileInputStream(file))) {
+            assertEquals(LineageIndexFile.VERSION, in.read());
+            assertEquals(count, in.readInt());
+
+            for (int i = 0; i < count; i++) {
+                assertEquals(hashes[i], in.readLong());
+                assertEquals(eventIds[i], in.readLong());
+            }
+
+            assertEquals(hashes[0], in.readLong());
+            assertEquals(hashes[LineageIndexFile.FENCE_STRIDE], in.readLong());
+            assertEquals(hashes[LineageIndexFile.FENCE_STRIDE * 2], in.readLong());
+            assertEquals(-1, in.read());
+        }
+
+        assertEquals(count, LineageIndexFile.open(file).getEntryCount());
+    }
+
+    @Test
+    public void testFindEventIds() throws IOException {
+        final int count = LineageIndexFile.FENCE_STRIDE * 4;
+        final long[] hashes = new long[count];
+        final long[] eventIds = new long[count];
+        for (int i = 0; i < count; i++) {
+            hashes[i] = Long.MIN_VALUE + i * 2L;
+            eventIds[i] = 1000L + i;
+        }
+
+        final File file = new File(tempDir, "1000.lineage");
+        LineageIndexFile.write(file, hashes, eventIds, count);
+        final LineageIndexFile indexFile = LineageIndexFile.open(file);
+
+        final long[] lookup = new long[] {hashes[0], hashes[LineageIndexFile.FENCE_STRIDE], hashes[LineageIndexFile.FENCE_STRIDE + 1], hashes[count - 1]};
+        assertEquals(Arrays.asList(1000L, 1000L + LineageIndexFile.FENCE_STRIDE, 1001L + LineageIndexFile.FENCE_STRIDE, 999L + count), findEventIds(indexFile, lookup));
+
+        // Hashes that fall between, before, and after the indexed hashes
+        assertTrue(findEventIds(indexFile, new long[] {Long.MIN_VALUE + 1, hashes[count - 1] + 1, Long.MAX_VALUE}).isEmpty());
+    }
+
+    @Test
+    public void testEqualHashesSpanningChunks() throws IOException {
+        // Entries with the same hash start part way through the first chunk and end part way through the third chunk
+        final int count = LineageIndexFile.FENCE_STRIDE * 3;
+        final long[] hashes = new long[count];
+        final long[] eventIds = new long[count];
+        final List<Long> expected = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            if (i < 100) {
+                hashes[i] = 1L;
+            } else if (i < count - 100) {
+                hashes[i] = 5L;
+                expected.add((long) i);
+            } else {
+                hashes[i] = 9L;
+            }
+            eventIds[i] = i;
+        }
+
+        final File file = new File(tempDir, "0.lineage");
+        LineageIndexFile.write(file, hashes, eventIds, count);
+        final LineageIndexFile indexFile = LineageIndexFile.open(file);
+
+        assertEquals(expected, findEventIds(indexFile, new long[] {5L}));
+        assertEquals(100, findEventIds(indexFile, new long[] {1L}).size());
+        assertEquals(100, findEventIds(indexFile, new long[] {9L}).size());
+        assertEquals(count, findEventIds(indexFile, new long[] {1L, 5L, 9L}).size());
+    }
+
+    @Test
+    public void testEmptyFile() throws IOException {
+        final File file = new File(tempDir, "0.lineage");
+        LineageIndexFile.write(file, new long[0], new long[0], 0);
+        assertEquals(5, file.length());
+
+        final LineageIndexFile indexFile = LineageIndexFile.open(file);
+        assertEquals(0, indexFile.getEntryCount());
+        assertTrue(findEventIds(indexFile, new long[] {0L}).isEmpty());
+    }
+
+    @Test
+    public void testTruncatedFileRejected() throws IOException {
+        final File file = new File(tempDir, "0.lineage");
+        LineageIndexFile.write(file, new long[] {1L, 2L, 3L}, new long[] {10L, 20L, 30L}, 3);
+
+        try (final RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.setLength(raf.length() - 4);
+        }
+
+        assertThrows(IOException.class, () -> LineageIndexFile.open(file));
+    }
+
+    @Test
+    public void testUnsupportedVersionRejected() throws IOException {
+        final File file = new File(tempDir, "0.lineage");
+        LineageIndexFile.write(file, new long[] {1L}, new long[] {10L}, 1);
+
+        try (final RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.write(LineageIndexFile.VERSION + 1);
+        }
+
+        assertThrows(IOException.class, () -> LineageIndexFile.open(file));
+    }
+
+    private List<Long> findEventIds(final LineageIndexFile indexFile, final long[] sortedHashes) throws IOException {
+        final List<Long> eventIds = new ArrayList<>();
+        indexFile.findEventIds(sortedHashes, eventIds::add);
+        Collections.sort(eventIds);
+        return eventIds;
+    }
+}
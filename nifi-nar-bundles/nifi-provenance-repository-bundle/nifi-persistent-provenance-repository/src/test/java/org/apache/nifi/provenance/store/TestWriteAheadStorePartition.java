@@ -21,11 +21,15 @@ import org.apache.nifi.events.EventReporter;
 import org.apache.nifi.provenance.EventIdFirstSchemaRecordWriter;
 import org.apache.nifi.provenance.IdentifierLookup;
 import org.apache.nifi.provenance.ProvenanceEventRecord;
+import org.apache.nifi.provenance.ProvenanceEventType;
 import org.apache.nifi.provenance.RepositoryConfiguration;
+import org.apache.nifi.provenance.StandardProvenanceEventRecord;
 import org.apache.nifi.provenance.TestUtil;
 import org.apache.nifi.provenance.index.EventIndex;
+import org.apache.nifi.provenance.serialization.CompressionCodec;
 import org.apache.nifi.provenance.serialization.RecordReaders;
 import org.apache.nifi.provenance.serialization.StorageSummary;
+import org.apache.nifi.provenance.store.iterator.EventIterator;
 import org.apache.nifi.provenance.toc.StandardTocWriter;
 import org.apache.nifi.provenance.toc.TocUtil;
 import org.apache.nifi.provenance.toc.TocWriter;
@@ -37,17 +41,21 @@ import org.mockito.stubbing.Answer;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.stream.Collectors;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 public class TestWriteAheadStorePartition {
@@ -139,6 +147,175 @@ public class TestWriteAheadStorePartition {
         assertEquals(maxEventId, partition.getMaxEventId());
     }
 
+    @Test
+    public void testLineageEventIds() throws IOException, InterruptedException {
+        final RepositoryConfiguration repoConfig = createConfig(1, "testLineageEventIds");
+        repoConfig.setMaxEventFileCount(5);
+        repoConfig.setLineageIndexEnabled(true);
+
+        final String partitionName = repoConfig.getStorageDirectories().keySet().iterator().next();
+        final File storageDirectory = repoConfig.getStorageDirectories().values().iterator().next();
+
+        final RecordWriterFactory recordWriterFactory = (file, idGenerator, compressed, createToc) -> {
+            final TocWriter tocWriter = createToc ? new StandardTocWriter(TocUtil.getTocFile(file), false, false) : null;
+            return new EventIdFirstSchemaRecordWriter(file, idGenerator, tocWriter, compressed, 32 * 1024, IdentifierLookup.EMPTY);
+        };
+
+        final RecordReaderFactory recordReaderFactory = RecordReaders::newRecordReader;
+
+        WriteAheadStorePartition partition = new WriteAheadStorePartition(storageDirectory, partitionName, repoConfig, recordWriterFactory,
+            recordReaderFactory, new LinkedBlockingQueue<>(), new AtomicLong(0L), EventReporter.NO_OP, Mockito.mock(EventFileManager.class));
+        partition.initialize();
+
+        final String parentUuid = UUID.randomUUID().toString();
+        final String childUuid = UUID.randomUUID().toString();
+        final List<Long> parentEventIds = new ArrayList<>();
+        final List<Long> childEventIds = new ArrayList<>();
+
+        for (int i = 0; i < 30; i++) {
+            final ProvenanceEventRecord event;
+            if (i == 15) {
+                event = createEvent(ProvenanceEventType.FORK, parentUuid, childUuid);
+            } else if (i % 3 == 0 && i < 15) {
+                event = createEvent(ProvenanceEventType.ATTRIBUTES_MODIFIED, parentUuid, null);
+            } else if (i % 3 == 1 && i > 15) {
+                event = createEvent(ProvenanceEventType.ATTRIBUTES_MODIFIED, childUuid, null);
+            } else {
+                event = TestUtil.createEvent();
+            }
+
+            final long eventId = partition.addEvents(Collections.singleton(event)).getStorageLocations().values().iterator().next().getEventId();
+            if (event.getFlowFileUuid().equals(parentUuid)) {
+                parentEventIds.add(eventId);
+            }
+            if (event.getFlowFileUuid().equals(childUuid) || i == 15) {
+                childEventIds.add(eventId);
+            }
+        }
+
+        // Events are found both in rolled over Event Files and in the active Event File
+        assertEquals(Optional.of(parentEventIds), partition.getLineageEventIds(Collections.singleton(parentUuid)));
+        assertEquals(Optional.of(childEventIds), partition.getLineageEventIds(Collections.singleton(childUuid)));
+        assertEquals(Optional.of(Collections.emptyList()), partition.getLineageEventIds(Collections.singleton(UUID.randomUUID().toString())));
+        partition.close();
+
+        // The Lineage Index for the active Event File was not written, so it must be rebuilt when the partition is initialized
+        partition = new WriteAheadStorePartition(storageDirectory, partitionName, repoConfig, recordWriterFactory,
+            recordReaderFactory, new LinkedBlockingQueue<>(), new AtomicLong(0L), EventReporter.NO_OP, Mockito.mock(EventFileManager.class));
+        partition.initialize();
+
+        Optional<List<Long>> rebuiltEventIds = partition.getLineageEventIds(Collections.singleton(childUuid));
+        final long maxTime = System.nanoTime() + TimeUnit.SECONDS.toNanos(10L);
+        while (!rebuiltEventIds.isPresent() && System.nanoTime() < maxTime) {
+            Thread.sleep(10L);
+            rebuiltEventIds = partition.getLineageEventIds(Collections.singleton(childUuid));
+        }
+
+        assertEquals(Optional.of(childEventIds), rebuiltEventIds);
+        partition.close();
+    }
+
+    @Test
+    public void testMoveToColdTier() throws IOException {
+        final RepositoryConfiguration repoConfig = createConfig(1, "testMoveToColdTier");
+        repoConfig.setMaxEventFileCount(5);
+        repoConfig.setCompressOnRollover(false);
+        repoConfig.setLineageIndexEnabled(true);
+        repoConfig.setColdCompressionCodec(CompressionCodec.LZ4);
+
+        final String partitionName = repoConfig.getStorageDirectories().keySet().iterator().next();
+        final File storageDirectory = repoConfig.getStorageDirectories().values().iterator().next();
+        final File coldDirectory = new File(storageDirectory.getParentFile(), "cold");
+        repoConfig.addColdStorageDirectory(partitionName, coldDirectory);
+
+        final RecordWriterFactory recordWriterFactory = (file, idGenerator, compressed, createToc) -> {
+            final TocWriter tocWriter = createToc ? new StandardTocWriter(TocUtil.getTocFile(file), false, false) : null;
+            return new EventIdFirstSchemaRecordWriter(file, idGenerator, tocWriter, compressed, 32 * 1024, IdentifierLookup.EMPTY);
+        };
+
+        final RecordReaderFactory recordReaderFactory = RecordReaders::newRecordReader;
+
+        WriteAheadStorePartition partition = new WriteAheadStorePartition(storageDirectory, partitionName, repoConfig, recordWriterFactory,
+            recordReaderFactory, new LinkedBlockingQueue<>(), new AtomicLong(0L), EventReporter.NO_OP, Mockito.mock(EventFileManager.class));
+        partition.initialize();
+
+        final String flowFileUuid = UUID.randomUUID().toString();
+        final List<Long> lineageEventIds = new ArrayList<>();
+        for (int i = 0; i < 30; i++) {
+            final ProvenanceEventRecord event = i % 4 == 0 ? createEvent(ProvenanceEventType.ATTRIBUTES_MODIFIED, flowFileUuid, null) : TestUtil.createEvent();
+            final long eventId = partition.addEvents(Collections.singleton(event)).getStorageLocations().values().iterator().next().getEventId();
+            if (i % 4 == 0) {
+                lineageEventIds.add(eventId);
+            }
+        }
+
+        final long lastModified = System.currentTimeMillis() - TimeUnit.HOURS.toMillis(1L);
+        for (final File eventFile : storageDirectory.listFiles(DirectoryUtils.EVENT_FILE_FILTER)) {
+            assertTrue(eventFile.setLastModified(lastModified));
+        }
+
+        // The 6 rolled over Event Files are merged into a single segment; the Active Event File, which is empty, is not moved
+        assertEquals(6, partition.moveToColdTier(1L, 1L, TimeUnit.MINUTES));
+        assertEquals(1, storageDirectory.listFiles(DirectoryUtils.EVENT_FILE_FILTER).length);
+
+        final File[] segments = coldDirectory.listFiles(DirectoryUtils.EVENT_FILE_FILTER);
+        assertEquals(1, segments.length);
+        assertEquals("0.prov.lz4", segments[0].getName());
+        assertEquals(lastModified / 1000L, segments[0].lastModified() / 1000L);
+
+        // Events in the segment are still available by ID, by iteration, and by lineage
+        for (long id = 0; id < 30; id++) {
+            final Optional<ProvenanceEventRecord> event = partition.getEvent(id);
+            assertTrue(event.isPresent());
+            assertEquals(id, event.get().getEventId());
+        }
+
+        try (final EventIterator iterator = partition.createEventIterator(0L)) {
+            for (long id = 0; id < 30; id++) {
+                assertEquals(id, iterator.nextEvent().get().getEventId());
+            }
+            assertFalse(iterator.nextEvent().isPresent());
+        }
+
+        assertEquals(Optional.of(lineageEventIds), partition.getLineageEventIds(Collections.singleton(flowFileUuid)));
+        partition.close();
+
+        // The segment is recovered when the partition is initialized
+        partition = new WriteAheadStorePartition(storageDirectory, partitionName, repoConfig, recordWriterFactory,
+            recordReaderFactory, new LinkedBlockingQueue<>(), new AtomicLong(0L), EventReporter.NO_OP, Mockito.mock(EventFileManager.class));
+        partition.initialize();
+        assertEquals(29L, partition.getMaxEventId());
+        assertEquals(12L, partition.getEvent(12L).get().getEventId());
+
+        // The segment is aged off based on the age of its events
+        partition.purgeOldColdEvents(30L, TimeUnit.MINUTES);
+        assertEquals(0, coldDirectory.listFiles(DirectoryUtils.EVENT_FILE_FILTER).length);
+        assertFalse(partition.getEvent(12L).isPresent());
+
+        final long nextEventId = partition.addEvents(Collections.singleton(TestUtil.createEvent())).getStorageLocations().values().iterator().next().getEventId();
+        assertEquals(30L, nextEventId);
+        assertEquals(30L, partition.getEvent(30L).get().getEventId());
+        partition.close();
+    }
+
+    private ProvenanceEventRecord createEvent(final ProvenanceEventType eventType, final String flowFileUuid, final String childUuid) {
+        final StandardProvenanceEventRecord.Builder builder = new StandardProvenanceEventRecord.Builder()
+            .setEventTime(System.currentTimeMillis())
+            .setEventType(eventType)
+            .setFlowFileUUID(flowFileUuid)
+            .setAttributes(Collections.emptyMap(), Collections.singletonMap("uuid", flowFileUuid))
+            .setComponentId("1234")
+            .setComponentType("dummy processor")
+            .setCurrentContentClaim(null, null, null, null, 0L);
+
+        if (childUuid != null) {
+            builder.addParentUuid(flowFileUuid);
+            builder.addChildUuid(childUuid);
+        }
+
+        return builder.build();
+    }
+
     private RepositoryConfiguration createConfig(final int numStorageDirs, final String testName) {
         final RepositoryConfiguration config = new RepositoryConfiguration();
         final File storageDir = new File("target/storage/" + testName + "/" + UUID.randomUUID());
@@ -27,6 +27,7 @@ import java.io.IOException;
 import java.io.OutputStream;
 import java.util.UUID;
 
+import org.apache.nifi.provenance.serialization.CompressionCodec;
 import org.junit.jupiter.api.Test;
 
 public class TestStandardTocReader {
@@ -56,6 +57,22 @@ public class TestStandardTocReader {
         try {
             try(final StandardTocReader reader = new StandardTocReader(file)) {
                 assertTrue(reader.isCompressed());
+                assertEquals(CompressionCodec.GZIP, reader.getCompressionCodec());
+            }
+        } finally {
+            file.delete();
+        }
+
+
+        try (final OutputStream out = new FileOutputStream(file)) {
+            out.write(0);
+            out.write(2);
+        }
+
+        try {
+            try(final StandardTocReader reader = new StandardTocReader(file)) {
+                assertTrue(reader.isCompressed());
+                assertEquals(CompressionCodec.LZ4, reader.getCompressionCodec());
             }
         } finally {
             file.delete();
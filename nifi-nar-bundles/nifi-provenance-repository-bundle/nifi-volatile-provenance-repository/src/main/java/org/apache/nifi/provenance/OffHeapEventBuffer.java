@@ -0,0 +1,227 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.provenance;
+
+import org.apache.nifi.util.RingBuffer.Filter;
+import org.apache.nifi.util.RingBuffer.ForEachEvaluator;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * A Provenance Event Buffer that holds events in serialized form in a fixed-size region of direct (off-heap) memory, so that a large number of
+ * events can be retained without increasing the size of the Java heap or the work done by the garbage collector. Events are written one after
+ * another into the region, wrapping around to the start when the end is reached and evicting the oldest events that they overwrite. Events are
+ * deserialized only when they are read.
+ *
+ * The location of each event is kept in an index of fixed size, in which the event with ID <code>n</code> occupies slot <code>n % maxEvents</code>,
+ * so that an event can be found by its ID in constant time.
+ */
+class OffHeapEventBuffer implements ProvenanceEventBuffer {
+    static final long MAX_CAPACITY = Integer.MAX_VALUE;
+
+    private final ByteBuffer arena;
+    private final int capacity;
+    private final long[] index;
+    private final int maxEvents;
+
+    private final Lock readLock;
+    private final Lock writeLock;
+
+    // guarded by the lock
+    private long oldestId = 0L;
+    private long nextId = 0L;
+    private int writePosition = 0;
+
+    OffHeapEventBuffer(final int maxEvents, final long capacity) {
+        if (maxEvents < 1) {
+            throw new IllegalArgumentException("Buffer must be able to hold at least one event");
+        }
+        if (capacity < 1 || capacity > MAX_CAPACITY) {
+            throw new IllegalArgumentException("Off-heap buffer capacity must be between 1 and " + MAX_CAPACITY + " bytes but was " + capacity);
+        }
+
+        this.arena = ByteBuffer.allocateDirect((int) capacity);
+        this.capacity = (int) capacity;
+        this.maxEvents = maxEvents;
+        this.index = new long[maxEvents];
+
+        final ReadWriteLock rwLock = new ReentrantReadWriteLock();
+        this.readLock = rwLock.readLock();
+        this.writeLock = rwLock.writeLock();
+    }
+
+    @Override
+    public boolean add(final ProvenanceEventRecord event) {
+        // Serialize before obtaining the lock so that writers only contend for the time that it takes to copy the bytes
+        final byte[] serialized = ProvenanceEventCodec.serialize(event);
+        final int length = serialized.length;
+        if (length > capacity) {
+            return false;
+        }
+
+        writeLock.lock();
+        try {
+            if ((long) writePosition + length > capacity) {
+                // Wrap around to the start of the region. Any events that remain beyond the current write position are the oldest events,
+                // and they must be evicted before the events at the start of the region, which are newer.
+                while (oldestId < nextId && getPosition(index[slot(oldestId)]) >= writePosition) {
+                    oldestId++;
+                }
+                writePosition = 0;
+            }
+
+            while (oldestId < nextId && (nextId - oldestId >= maxEvents || overlaps(index[slot(oldestId)], writePosition, length))) {
+                oldestId++;
+            }
+
+            final ByteBuffer destination = arena.duplicate();
+            destination.position(writePosition);
+            destination.put(serialized);
+
+            index[slot(nextId)] = ((long) writePosition << 32) | length;
+            nextId++;
+            writePosition += length;
+            return true;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    @Override
+    public ProvenanceEventRecord getEvent(final long id) {
+        final byte[] serialized = copyEvent(id);
+        return serialized == null ? null : ProvenanceEventCodec.deserialize(serialized, id);
+    }
+
+    @Override
+    public ProvenanceEventRecord getNewestEvent() {
+        final long newestId;
+        readLock.lock();
+        try {
+            if (nextId == oldestId) {
+                return null;
+            }
+
+            newestId = nextId - 1;
+        } finally {
+            readLock.unlock();
+        }
+
+        return getEvent(newestId);
+    }
+
+    @Override
+    public List<ProvenanceEventRecord> getSelectedEvents(final long firstEventId, final Filter<ProvenanceEventRecord> filter, final int maxEvents) {
+        final long firstId;
+        final long lastId;
+        readLock.lock();
+        try {
+            firstId = Math.max(firstEventId, oldestId);
+            lastId = nextId;
+        } finally {
+            readLock.unlock();
+        }
+
+        final List<ProvenanceEventRecord> selected = new ArrayList<>();
+        for (long id = firstId; id < lastId && selected.size() < maxEvents; id++) {
+            // Events may be evicted while iterating, in which case they are skipped
+            final ProvenanceEventRecord event = getEvent(id);
+            if (event != null && filter.select(event)) {
+                selected.add(event);
+            }
+        }
+
+        return selected;
+    }
+
+    @Override
+    public void forEachNewestFirst(final ForEachEvaluator<ProvenanceEventRecord> evaluator) {
+        final long lastId;
+        readLock.lock();
+        try {
+            lastId = nextId - 1;
+        } finally {
+            readLock.unlock();
+        }
+
+        for (long id = lastId; id >= 0; id--) {
+            final ProvenanceEventRecord event = getEvent(id);
+            if (event == null) {
+                // Once an event has been evicted, so have all events that are older than it
+                return;
+            }
+
+            if (!evaluator.evaluate(event)) {
+                return;
+            }
+        }
+    }
+
+    @Override
+    public int getSize() {
+        readLock.lock();
+        try {
+            return (int) (nextId - oldestId);
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    int getCapacity() {
+        return capacity;
+    }
+
+    private byte[] copyEvent(final long id) {
+        readLock.lock();
+        try {
+            if (id < oldestId || id >= nextId) {
+                return null;
+            }
+
+            final long location = index[slot(id)];
+            final byte[] serialized = new byte[getLength(location)];
+            final ByteBuffer source = arena.duplicate();
+            source.position(getPosition(location));
+            source.get(serialized);
+            return serialized;
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    private int slot(final long id) {
+        return (int) (id % maxEvents);
+    }
+
+    private static int getPosition(final long location) {
+        return (int) (location >>> 32);
+    }
+
+    private static int getLength(final long location) {
+        return (int) location;
+    }
+
+    private static boolean overlaps(final long location, final int position, final int length) {
+        final int existingPosition = getPosition(location);
+        return existingPosition < (long) position + length && (long) existingPosition + getLength(location) > position;
+    }
+}
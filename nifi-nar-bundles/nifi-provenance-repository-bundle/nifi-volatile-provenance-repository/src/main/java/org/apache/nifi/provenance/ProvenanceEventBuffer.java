@@ -0,0 +1,67 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.provenance;
+
+import org.apache.nifi.util.RingBuffer.Filter;
+import org.apache.nifi.util.RingBuffer.ForEachEvaluator;
+
+import java.util.List;
+
+/**
+ * A fixed-size buffer of the most recent Provenance Events. When the buffer is full, adding an event evicts the oldest events.
+ */
+interface ProvenanceEventBuffer {
+
+    /**
+     * Assigns the next Event ID to the given event and adds it to the buffer
+     *
+     * @param event the event to add
+     * @return <code>true</code> if the event was added, <code>false</code> if the event is too large to ever fit in the buffer
+     */
+    boolean add(ProvenanceEventRecord event);
+
+    /**
+     * @param id the ID of the event
+     * @return the event with the given ID, or <code>null</code> if the buffer does not contain the event
+     */
+    ProvenanceEventRecord getEvent(long id);
+
+    /**
+     * @return the most recently added event, or <code>null</code> if the buffer is empty
+     */
+    ProvenanceEventRecord getNewestEvent();
+
+    /**
+     * @param firstEventId the ID of the first event to return
+     * @param filter the filter that events must match
+     * @param maxEvents the maximum number of events to return
+     * @return the events that match the filter and have an ID of at least the given ID, in the order in which they were added
+     */
+    List<ProvenanceEventRecord> getSelectedEvents(long firstEventId, Filter<ProvenanceEventRecord> filter, int maxEvents);
+
+    /**
+     * Evaluates each event in the buffer, newest first, until the evaluator returns <code>false</code>
+     *
+     * @param evaluator the evaluator
+     */
+    void forEachNewestFirst(ForEachEvaluator<ProvenanceEventRecord> evaluator);
+
+    /**
+     * @return the number of events in the buffer
+     */
+    int getSize();
+}
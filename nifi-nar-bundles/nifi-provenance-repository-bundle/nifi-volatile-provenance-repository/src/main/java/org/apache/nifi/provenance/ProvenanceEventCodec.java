@@ -0,0 +1,214 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.provenance;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Serializes Provenance Events into a compact binary form so that they can be held outside of the Java heap. The form is never persisted,
+ * so it is not versioned and may change from one release to the next.
+ */
+final class ProvenanceEventCodec {
+    private static final ProvenanceEventType[] EVENT_TYPES = ProvenanceEventType.values();
+    private static final int NULL_LENGTH = -1;
+
+    private ProvenanceEventCodec() {
+    }
+
+    /**
+     * Serializes all fields of the given event other than its Event ID, which is implied by the event's position in the buffer
+     */
+    static byte[] serialize(final ProvenanceEventRecord event) {
+        final ByteArrayOutputStream baos = new ByteArrayOutputStream(512);
+        try (final DataOutputStream out = new DataOutputStream(baos)) {
+            out.writeByte(event.getEventType().ordinal());
+            out.writeLong(event.getEventTime());
+            out.writeLong(event.getFlowFileEntryDate());
+            out.writeLong(event.getLineageStartDate());
+            out.writeLong(event.getEventDuration());
+            writeString(out, event.getComponentId());
+            writeString(out, event.getComponentType());
+            writeString(out, event.getFlowFileUuid());
+            writeStrings(out, event.getParentUuids());
+            writeStrings(out, event.getChildUuids());
+            writeString(out, event.getTransitUri());
+            writeString(out, event.getSourceSystemFlowFileIdentifier());
+            writeString(out, event.getAlternateIdentifierUri());
+            writeString(out, event.getDetails());
+            writeString(out, event.getRelationship());
+            writeString(out, event.getSourceQueueIdentifier());
+            writeAttributes(out, event.getPreviousAttributes());
+            writeAttributes(out, event.getUpdatedAttributes());
+
+            writeString(out, event.getContentClaimContainer());
+            writeString(out, event.getContentClaimSection());
+            writeString(out, event.getContentClaimIdentifier());
+            writeNullableLong(out, event.getContentClaimOffset());
+            out.writeLong(event.getFileSize());
+
+            writeString(out, event.getPreviousContentClaimContainer());
+            writeString(out, event.getPreviousContentClaimSection());
+            writeString(out, event.getPreviousContentClaimIdentifier());
+            writeNullableLong(out, event.getPreviousContentClaimOffset());
+            writeNullableLong(out, event.getPreviousFileSize());
+        } catch (final IOException ioe) {
+            // cannot happen when writing to a byte array
+            throw new IllegalStateException("Failed to serialize Provenance Event", ioe);
+        }
+
+        return baos.toByteArray();
+    }
+
+    static ProvenanceEventRecord deserialize(final byte[] serialized, final long eventId) {
+        try (final DataInputStream in = new DataInputStream(new ByteArrayInputStream(serialized))) {
+            final StandardProvenanceEventRecord.Builder builder = new StandardProvenanceEventRecord.Builder();
+            builder.setEventId(eventId);
+            builder.setEventType(EVENT_TYPES[in.readUnsignedByte()]);
+            builder.setEventTime(in.readLong());
+            builder.setFlowFileEntryDate(in.readLong());
+            builder.setLineageStartDate(in.readLong());
+            builder.setEventDuration(in.readLong());
+            builder.setComponentId(readString(in));
+            builder.setComponentType(readString(in));
+            builder.setFlowFileUUID(readString(in));
+            builder.setParentUuids(readStrings(in));
+            builder.setChildUuids(readStrings(in));
+            builder.setTransitUri(readString(in));
+            builder.setSourceSystemFlowFileIdentifier(readString(in));
+            builder.setAlternateIdentifierUri(readString(in));
+            builder.setDetails(readString(in));
+            builder.setRelationship(readString(in));
+            builder.setSourceQueueIdentifier(readString(in));
+            builder.setAttributes(readAttributes(in), readAttributes(in));
+
+            final String container = readString(in);
+            final String section = readString(in);
+            final String identifier = readString(in);
+            final Long offset = readNullableLong(in);
+            builder.setCurrentContentClaim(container, section, identifier, offset, in.readLong());
+
+            final String previousContainer = readString(in);
+            final String previousSection = readString(in);
+            final String previousIdentifier = readString(in);
+            final Long previousOffset = readNullableLong(in);
+            final Long previousSize = readNullableLong(in);
+            if (previousSize != null) {
+                builder.setPreviousContentClaim(previousContainer, previousSection, previousIdentifier, previousOffset, previousSize);
+            }
+
+            return builder.build();
+        } catch (final IOException ioe) {
+            throw new IllegalStateException("Failed to deserialize Provenance Event", ioe);
+        }
+    }
+
+    private static void writeString(final DataOutputStream out, final String value) throws IOException {
+        if (value == null) {
+            out.writeInt(NULL_LENGTH);
+            return;
+        }
+
+        // Attribute values may be longer than DataOutputStream.writeUTF allows, so write the length as an int
+        final byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(final DataInputStream in) throws IOException {
+        final int length = in.readInt();
+        if (length == NULL_LENGTH) {
+            return null;
+        }
+
+        final byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void writeStrings(final DataOutputStream out, final Collection<String> values) throws IOException {
+        if (values == null) {
+            out.writeInt(0);
+            return;
+        }
+
+        out.writeInt(values.size());
+        for (final String value : values) {
+            writeString(out, value);
+        }
+    }
+
+    private static List<String> readStrings(final DataInputStream in) throws IOException {
+        final int count = in.readInt();
+        if (count == 0) {
+            return new ArrayList<>(0);
+        }
+
+        final List<String> values = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            values.add(readString(in));
+        }
+        return values;
+    }
+
+    private static void writeAttributes(final DataOutputStream out, final Map<String, String> attributes) throws IOException {
+        if (attributes == null) {
+            out.writeInt(0);
+            return;
+        }
+
+        out.writeInt(attributes.size());
+        for (final Map.Entry<String, String> entry : attributes.entrySet()) {
+            writeString(out, entry.getKey());
+            writeString(out, entry.getValue());
+        }
+    }
+
+    private static Map<String, String> readAttributes(final DataInputStream in) throws IOException {
+        final int count = in.readInt();
+        if (count == 0) {
+            return Collections.emptyMap();
+        }
+
+        final Map<String, String> attributes = new HashMap<>(count * 2);
+        for (int i = 0; i < count; i++) {
+            attributes.put(readString(in), readString(in));
+        }
+        return attributes;
+    }
+
+    private static void writeNullableLong(final DataOutputStream out, final Long value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeLong(value);
+        }
+    }
+
+    private static Long readNullableLong(final DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readLong() : null;
+    }
+}
@@ -31,10 +31,12 @@ import org.apache.nifi.provenance.lineage.FlowFileLineage;
 import org.apache.nifi.provenance.lineage.Lineage;
 import org.apache.nifi.provenance.lineage.LineageComputationType;
 import org.apache.nifi.provenance.search.Query;
+import org.apache.nifi.provenance.search.QueryPage;
 import org.apache.nifi.provenance.search.QueryResult;
 import org.apache.nifi.provenance.search.QuerySubmission;
 import org.apache.nifi.provenance.search.SearchTerm;
 import org.apache.nifi.provenance.search.SearchableField;
+import org.apache.nifi.reporting.Severity;
 import org.apache.nifi.util.NiFiProperties;
 import org.apache.nifi.util.RingBuffer;
 import org.apache.nifi.util.RingBuffer.Filter;
@@ -46,11 +48,13 @@ import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.Date;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.PriorityQueue;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
@@ -62,19 +66,21 @@ import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.regex.Pattern;
 
 public class VolatileProvenanceRepository implements ProvenanceRepository {
 
     // properties
     public static final String BUFFER_SIZE = "nifi.provenance.repository.buffer.size";
+    public static final String BUFFER_OFF_HEAP_CAPACITY = "nifi.provenance.repository.buffer.off.heap.capacity";
 
     // default property values
     public static final int DEFAULT_BUFFER_SIZE = 10000;
 
     public static String CONTAINER_NAME = "in-memory";
 
-    private final RingBuffer<ProvenanceEventRecord> ringBuffer;
+    private final ProvenanceEventBuffer eventBuffer;
     private final int maxSize;
     private final List<SearchableField> searchableFields;
     private final List<SearchableField> searchableAttributes;
@@ -83,9 +89,9 @@ public class VolatileProvenanceRepository implements ProvenanceRepository {
 
     private final ConcurrentMap<String, AsyncQuerySubmission> querySubmissionMap = new ConcurrentHashMap<>();
     private final ConcurrentMap<String, AsyncLineageSubmission> lineageSubmissionMap = new ConcurrentHashMap<>();
-    private final AtomicLong idGenerator = new AtomicLong(0L);
     private final AtomicBoolean initialized = new AtomicBoolean(false);
 
+    private EventReporter eventReporter;  // effectively final
     private Authorizer authorizer;  // effectively final
     private ProvenanceAuthorizableFactory resourceFactory;  // effectively final
 
@@ -93,7 +99,7 @@ public class VolatileProvenanceRepository implements ProvenanceRepository {
      * Default no args constructor for service loading only
      */
     public VolatileProvenanceRepository() {
-        ringBuffer = null;
+        eventBuffer = null;
         searchableFields = null;
         searchableAttributes = null;
         queryExecService = null;
@@ -105,13 +111,25 @@ public class VolatileProvenanceRepository implements ProvenanceRepository {
 
     public VolatileProvenanceRepository(final NiFiProperties nifiProperties) {
         this(nifiProperties.getIntegerProperty(BUFFER_SIZE, DEFAULT_BUFFER_SIZE),
+            getOffHeapCapacity(nifiProperties),
             nifiProperties.getProperty(NiFiProperties.PROVENANCE_INDEXED_FIELDS),
             nifiProperties.getProperty(NiFiProperties.PROVENANCE_INDEXED_ATTRIBUTES));
     }
 
     public VolatileProvenanceRepository(final int maxEvents, final String indexedFieldString, final String indexAttributeString) {
+        this(maxEvents, 0L, indexedFieldString, indexAttributeString);
+    }
+
+    /**
+     * @param maxEvents the maximum number of events to retain
+     * @param offHeapCapacity the number of bytes of direct memory in which to hold the events, or <code>0</code> to hold the events on the Java heap.
+     * When the events are held in direct memory, fewer than <code>maxEvents</code> events are retained if they do not all fit in the given capacity.
+     * @param indexedFieldString the fields that may be searched
+     * @param indexAttributeString the attributes that may be searched
+     */
+    public VolatileProvenanceRepository(final int maxEvents, final long offHeapCapacity, final String indexedFieldString, final String indexAttributeString) {
         maxSize = maxEvents;
-        ringBuffer = new RingBuffer<>(maxSize);
+        eventBuffer = offHeapCapacity > 0 ? new OffHeapEventBuffer(maxSize, offHeapCapacity) : new HeapEventBuffer(maxSize);
         searchableFields = Collections.unmodifiableList(SearchableFieldParser.extractSearchableFields(indexedFieldString, true));
         searchableAttributes = Collections.unmodifiableList(SearchableFieldParser.extractSearchableFields(indexAttributeString, false));
 
@@ -130,6 +148,20 @@ public class VolatileProvenanceRepository implements ProvenanceRepository {
         scheduledExecService = Executors.newScheduledThreadPool(2);
     }
 
+    private static long getOffHeapCapacity(final NiFiProperties nifiProperties) {
+        final String capacity = nifiProperties.getProperty(BUFFER_OFF_HEAP_CAPACITY);
+        if (capacity == null || capacity.trim().isEmpty()) {
+            return 0L;
+        }
+
+        final long bytes = DataUnit.parseDataSize(capacity.trim(), DataUnit.B).longValue();
+        if (bytes > OffHeapEventBuffer.MAX_CAPACITY) {
+            throw new IllegalArgumentException("The value of the '" + BUFFER_OFF_HEAP_CAPACITY + "' property must be less than 2 GB but was " + capacity);
+        }
+
+        return bytes;
+    }
+
     @Override
     public void initialize(final EventReporter eventReporter, final Authorizer authorizer, final ProvenanceAuthorizableFactory resourceFactory,
         final IdentifierLookup idLookup) throws IOException {
@@ -137,6 +169,7 @@ public class VolatileProvenanceRepository implements ProvenanceRepository {
             return;
         }
 
+        this.eventReporter = eventReporter;
         this.authorizer = authorizer;
         this.resourceFactory = resourceFactory;
 
@@ -155,8 +188,11 @@ public class VolatileProvenanceRepository implements ProvenanceRepository {
 
     @Override
     public void registerEvent(final ProvenanceEventRecord event) {
-        final long id = idGenerator.getAndIncrement();
-        ringBuffer.add(new IdEnrichedProvEvent(event, id));
+        if (!eventBuffer.add(event) && eventReporter != null) {
+            eventReporter.reportEvent(Severity.WARNING, "Provenance Repository", "Provenance Event of type " + event.getEventType() + " for component "
+                + event.getComponentId() + " was not stored because it is larger than the entire off-heap buffer. Consider increasing the value of the '"
+                + BUFFER_OFF_HEAP_CAPACITY + "' property.");
+        }
     }
 
     @Override
@@ -173,26 +209,22 @@ public class VolatileProvenanceRepository implements ProvenanceRepository {
 
     @Override
     public List<ProvenanceEventRecord> getEvents(final long firstRecordId, final int maxRecords, final NiFiUser user) throws IOException {
-        return ringBuffer.getSelectedElements(new Filter<ProvenanceEventRecord>() {
+        return eventBuffer.getSelectedEvents(firstRecordId, new Filter<ProvenanceEventRecord>() {
             @Override
             public boolean select(final ProvenanceEventRecord value) {
-                if (!isAuthorized(value, user)) {
-                    return false;
-                }
-
-                return value.getEventId() >= firstRecordId;
+                return isAuthorized(value, user);
             }
         }, maxRecords);
     }
 
     @Override
     public Long getMaxEventId() {
-        final ProvenanceEventRecord newest = ringBuffer.getNewestElement();
+        final ProvenanceEventRecord newest = eventBuffer.getNewestEvent();
         return (newest == null) ? null : newest.getEventId();
     }
 
     public ProvenanceEventRecord getEvent(final String identifier) throws IOException {
-        final List<ProvenanceEventRecord> records = ringBuffer.getSelectedElements(new Filter<ProvenanceEventRecord>() {
+        final List<ProvenanceEventRecord> records = eventBuffer.getSelectedEvents(0L, new Filter<ProvenanceEventRecord>() {
             @Override
             public boolean select(final ProvenanceEventRecord event) {
                 return identifier.equals(event.getFlowFileUuid());
@@ -203,14 +235,7 @@ public class VolatileProvenanceRepository implements ProvenanceRepository {
 
     @Override
     public ProvenanceEventRecord getEvent(final long id) {
-        final List<ProvenanceEventRecord> records = ringBuffer.getSelectedElements(new Filter<ProvenanceEventRecord>() {
-            @Override
-            public boolean select(final ProvenanceEventRecord event) {
-                return event.getEventId() == id;
-            }
-        }, 1);
-
-        return records.isEmpty() ? null : records.get(0);
+        return eventBuffer.getEvent(id);
     }
 
     @Override
@@ -479,27 +504,69 @@ public class VolatileProvenanceRepository implements ProvenanceRepository {
         final String userId = user == null ? null : user.getIdentity();
         if (query.getSearchTerms().isEmpty() && query.getStartDate() == null && query.getEndDate() == null) {
             final AsyncQuerySubmission result = new AsyncQuerySubmission(query, 1, userId);
-            queryExecService.submit(new QueryRunnable(ringBuffer, createFilter(query, user), query.getMaxResults(), result));
+            queryExecService.submit(new QueryRunnable(eventBuffer, createFilter(query, user), query.getMaxResults(), result));
             querySubmissionMap.put(query.getIdentifier(), result);
             return result;
         }
 
         final AsyncQuerySubmission result = new AsyncQuerySubmission(query, 1, userId);
         querySubmissionMap.put(query.getIdentifier(), result);
-        queryExecService.submit(new QueryRunnable(ringBuffer, createFilter(query, user), query.getMaxResults(), result));
+        queryExecService.submit(new QueryRunnable(eventBuffer, createFilter(query, user), query.getMaxResults(), result));
 
         return result;
     }
 
     @Override
-    public Optional<ProvenanceEventRecord> getLatestCachedEvent(final String componentId) throws IOException {
-        final List<ProvenanceEventRecord> matches = ringBuffer.getSelectedElements(event -> componentId.equals(event.getComponentId()));
+    public QueryPage queryEvents(final Query query, final NiFiUser user, final String continuationToken, final int pageSize) {
+        if (pageSize < 1) {
+            throw new IllegalArgumentException("Page size must be at least 1 but was " + pageSize);
+        }
+        if (query.getEndDate() != null && query.getStartDate() != null && query.getStartDate().getTime() > query.getEndDate().getTime()) {
+            throw new IllegalArgumentException("Query End Time cannot be before Query Start Time");
+        }
+
+        final ProvenanceQueryCursor after = ProvenanceQueryCursor.fromToken(continuationToken);
+        final Filter<ProvenanceEventRecord> filter = createFilter(query, user);
+        final Comparator<ProvenanceEventRecord> newestFirst = Comparator.comparing(ProvenanceQueryCursor::of, ProvenanceQueryCursor.NEWEST_FIRST);
+
+        // The buffer is ordered by Event ID rather than Event Time, so every event must be considered, but only the newest
+        // page of matching events, plus one more to determine whether or not there is another page, is retained.
+        final PriorityQueue<ProvenanceEventRecord> newestMatches = new PriorityQueue<>(newestFirst.reversed());
+        eventBuffer.forEachNewestFirst(event -> {
+            if ((after == null || after.isFollowedBy(event.getEventTime(), event.getEventId())) && filter.select(event)) {
+                newestMatches.add(event);
+                if (newestMatches.size() > pageSize + 1L) {
+                    newestMatches.poll();
+                }
+            }
+
+            return true;
+        });
 
-        if (matches.isEmpty()) {
-            return Optional.empty();
+        final List<ProvenanceEventRecord> events = new ArrayList<>(newestMatches);
+        events.sort(newestFirst);
+
+        if (events.size() <= pageSize) {
+            return new QueryPage(events, null);
         }
 
-        return Optional.of(matches.get(matches.size() - 1));
+        final List<ProvenanceEventRecord> page = new ArrayList<>(events.subList(0, pageSize));
+        return new QueryPage(page, ProvenanceQueryCursor.of(page.get(pageSize - 1)).toToken());
+    }
+
+    @Override
+    public Optional<ProvenanceEventRecord> getLatestCachedEvent(final String componentId) throws IOException {
+        final AtomicReference<ProvenanceEventRecord> latest = new AtomicReference<>();
+        eventBuffer.forEachNewestFirst(event -> {
+            if (componentId.equals(event.getComponentId())) {
+                latest.set(event);
+                return false;
+            }
+
+            return true;
+        });
+
+        return Optional.ofNullable(latest.get());
     }
 
     @Override
@@ -656,7 +723,7 @@ public class VolatileProvenanceRepository implements ProvenanceRepository {
 
     @Override
     public long getContainerUsableSpace(String containerName) throws IOException {
-        return maxSize - ringBuffer.getSize();
+        return maxSize - eventBuffer.getSize();
     }
 
     @Override
@@ -697,20 +764,20 @@ public class VolatileProvenanceRepository implements ProvenanceRepository {
             }
         };
 
-        queryExecService.submit(new ComputeLineageRunnable(ringBuffer, filter, result));
+        queryExecService.submit(new ComputeLineageRunnable(eventBuffer, filter, result));
 
         return result;
     }
 
     private static class QueryRunnable implements Runnable {
 
-        private final RingBuffer<ProvenanceEventRecord> ringBuffer;
+        private final ProvenanceEventBuffer eventBuffer;
         private final Filter<ProvenanceEventRecord> filter;
         private final AsyncQuerySubmission submission;
         private final int maxRecords;
 
-        public QueryRunnable(final RingBuffer<ProvenanceEventRecord> ringBuffer, final Filter<ProvenanceEventRecord> filter, final int maxRecords, final AsyncQuerySubmission submission) {
-            this.ringBuffer = ringBuffer;
+        public QueryRunnable(final ProvenanceEventBuffer eventBuffer, final Filter<ProvenanceEventRecord> filter, final int maxRecords, final AsyncQuerySubmission submission) {
+            this.eventBuffer = eventBuffer;
             this.filter = filter;
             this.submission = submission;
             this.maxRecords = maxRecords;
@@ -721,7 +788,7 @@ public class VolatileProvenanceRepository implements ProvenanceRepository {
             // Retrieve the most recent results and count the total number of matches
             final AtomicInteger matchingCount = new AtomicInteger(0);
             final List<ProvenanceEventRecord> matchingRecords = new ArrayList<>(maxRecords);
-            ringBuffer.forEach(new ForEachEvaluator<ProvenanceEventRecord>() {
+            eventBuffer.forEachNewestFirst(new ForEachEvaluator<ProvenanceEventRecord>() {
                 @Override
                 public boolean evaluate(final ProvenanceEventRecord record) {
                     if (filter.select(record)) {
@@ -733,7 +800,7 @@ public class VolatileProvenanceRepository implements ProvenanceRepository {
                     return true;
                 }
 
-            }, IterationDirection.BACKWARD);
+            });
 
             submission.getResult().update(matchingRecords, matchingCount.get());
         }
@@ -741,19 +808,19 @@ public class VolatileProvenanceRepository implements ProvenanceRepository {
 
     private static class ComputeLineageRunnable implements Runnable {
 
-        private final RingBuffer<ProvenanceEventRecord> ringBuffer;
+        private final ProvenanceEventBuffer eventBuffer;
         private final Filter<ProvenanceEventRecord> filter;
         private final AsyncLineageSubmission submission;
 
-        public ComputeLineageRunnable(final RingBuffer<ProvenanceEventRecord> ringBuffer, final Filter<ProvenanceEventRecord> filter, final AsyncLineageSubmission submission) {
-            this.ringBuffer = ringBuffer;
+        public ComputeLineageRunnable(final ProvenanceEventBuffer eventBuffer, final Filter<ProvenanceEventRecord> filter, final AsyncLineageSubmission submission) {
+            this.eventBuffer = eventBuffer;
             this.filter = filter;
             this.submission = submission;
         }
 
         @Override
         public void run() {
-            final List<ProvenanceEventRecord> records = ringBuffer.getSelectedElements(filter);
+            final List<ProvenanceEventRecord> records = eventBuffer.getSelectedEvents(0L, filter, Integer.MAX_VALUE);
             submission.getResult().update(records, records.size());
         }
     }
@@ -786,6 +853,51 @@ public class VolatileProvenanceRepository implements ProvenanceRepository {
         }
     }
 
+    /**
+     * A Provenance Event Buffer that holds the events on the Java heap
+     */
+    private static class HeapEventBuffer implements ProvenanceEventBuffer {
+        private final RingBuffer<ProvenanceEventRecord> ringBuffer;
+        private final AtomicLong idGenerator = new AtomicLong(0L);
+
+        public HeapEventBuffer(final int maxEvents) {
+            ringBuffer = new RingBuffer<>(maxEvents);
+        }
+
+        @Override
+        public boolean add(final ProvenanceEventRecord event) {
+            final long id = idGenerator.getAndIncrement();
+            ringBuffer.add(new IdEnrichedProvEvent(event, id));
+            return true;
+        }
+
+        @Override
+        public ProvenanceEventRecord getEvent(final long id) {
+            final List<ProvenanceEventRecord> records = ringBuffer.getSelectedElements(event -> event.getEventId() == id, 1);
+            return records.isEmpty() ? null : records.get(0);
+        }
+
+        @Override
+        public ProvenanceEventRecord getNewestEvent() {
+            return ringBuffer.getNewestElement();
+        }
+
+        @Override
+        public List<ProvenanceEventRecord> getSelectedEvents(final long firstEventId, final Filter<ProvenanceEventRecord> filter, final int maxEvents) {
+            return ringBuffer.getSelectedElements(event -> event.getEventId() >= firstEventId && filter.select(event), maxEvents);
+        }
+
+        @Override
+        public void forEachNewestFirst(final ForEachEvaluator<ProvenanceEventRecord> evaluator) {
+            ringBuffer.forEach(evaluator, IterationDirection.BACKWARD);
+        }
+
+        @Override
+        public int getSize() {
+            return ringBuffer.getSize();
+        }
+    }
+
     private static class IdEnrichedProvEvent implements ProvenanceEventRecord {
 
         private final ProvenanceEventRecord record;
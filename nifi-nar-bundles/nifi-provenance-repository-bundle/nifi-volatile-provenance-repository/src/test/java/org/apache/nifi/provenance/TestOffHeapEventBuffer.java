@@ -0,0 +1,170 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.provenance;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class TestOffHeapEventBuffer {
+
+    @Test
+    public void testEventRoundTrip() {
+        final OffHeapEventBuffer buffer = new OffHeapEventBuffer(10, 64 * 1024);
+
+        final Map<String, String> previousAttributes = new HashMap<>();
+        previousAttributes.put("filename", "file-1.txt");
+        previousAttributes.put("uuid", "11111111-1111-1111-1111-111111111111");
+        final Map<String, String> updatedAttributes = new HashMap<>();
+        updatedAttributes.put("filename", "file-2.txt");
+        updatedAttributes.put("removed", null);
+
+        final ProvenanceEventRecord original = new StandardProvenanceEventRecord.Builder()
+            .setEventType(ProvenanceEventType.FORK)
+            .setEventTime(1000L)
+            .setFlowFileEntryDate(500L)
+            .setLineageStartDate(400L)
+            .setEventDuration(12L)
+            .setComponentId("1234")
+            .setComponentType("Unit Test Processor")
+            .setFlowFileUUID("11111111-1111-1111-1111-111111111111")
+            .setParentUuids(Collections.singletonList("11111111-1111-1111-1111-111111111111"))
+            .setChildUuids(Arrays.asList("22222222-2222-2222-2222-222222222222", "33333333-3333-3333-3333-333333333333"))
+            .setDetails("details é")
+            .setRelationship("success")
+            .setSourceQueueIdentifier("queue-1")
+            .setAttributes(previousAttributes, updatedAttributes)
+            .setPreviousContentClaim("container", "section", "claim-1", 10L, 100L)
+            .setCurrentContentClaim("container", "section", "claim-2", null, 200L)
+            .build();
+
+        assertTrue(buffer.add(original));
+        final ProvenanceEventRecord recovered = buffer.getEvent(0L);
+
+        assertEquals(0L, recovered.getEventId());
+        assertEquals(original.getEventType(), recovered.getEventType());
+        assertEquals(original.getEventTime(), recovered.getEventTime());
+        assertEquals(original.getFlowFileEntryDate(), recovered.getFlowFileEntryDate());
+        assertEquals(original.getLineageStartDate(), recovered.getLineageStartDate());
+        assertEquals(original.getEventDuration(), recovered.getEventDuration());
+        assertEquals(original.getComponentId(), recovered.getComponentId());
+        assertEquals(original.getFlowFileUuid(), recovered.getFlowFileUuid());
+        assertEquals(original.getParentUuids(), recovered.getParentUuids());
+        assertEquals(original.getChildUuids(), recovered.getChildUuids());
+        assertEquals(original.getDetails(), recovered.getDetails());
+        assertEquals(original.getRelationship(), recovered.getRelationship());
+        assertEquals(original.getSourceQueueIdentifier(), recovered.getSourceQueueIdentifier());
+        assertEquals(original.getPreviousAttributes(), recovered.getPreviousAttributes());
+        assertEquals(original.getUpdatedAttributes(), recovered.getUpdatedAttributes());
+        assertEquals(original.getAttributes(), recovered.getAttributes());
+        assertEquals(original.getPreviousContentClaimIdentifier(), recovered.getPreviousContentClaimIdentifier());
+        assertEquals(original.getPreviousContentClaimOffset(), recovered.getPreviousContentClaimOffset());
+        assertEquals(original.getPreviousFileSize(), recovered.getPreviousFileSize());
+        assertEquals(original.getContentClaimIdentifier(), recovered.getContentClaimIdentifier());
+        assertNull(recovered.getContentClaimOffset());
+        assertEquals(200L, recovered.getFileSize());
+        assertNull(recovered.getTransitUri());
+    }
+
+    @Test
+    public void testOldestEventsEvictedWhenMaxEventsReached() {
+        final OffHeapEventBuffer buffer = new OffHeapEventBuffer(5, 1024 * 1024);
+        for (int i = 0; i < 12; i++) {
+            assertTrue(buffer.add(createEvent(String.valueOf(i), 0)));
+        }
+
+        assertEquals(5, buffer.getSize());
+        assertNull(buffer.getEvent(6L));
+        assertEquals("7", buffer.getEvent(7L).getComponentId());
+        assertEquals(11L, buffer.getNewestEvent().getEventId());
+        assertNull(buffer.getEvent(12L));
+
+        final List<ProvenanceEventRecord> selected = buffer.getSelectedEvents(0L, event -> true, 100);
+        assertEquals(5, selected.size());
+        assertEquals(7L, selected.get(0).getEventId());
+        assertEquals(11L, selected.get(4).getEventId());
+
+        final List<ProvenanceEventRecord> even = buffer.getSelectedEvents(8L, event -> event.getEventId() % 2 == 0, 100);
+        assertEquals(2, even.size());
+        assertEquals(8L, even.get(0).getEventId());
+        assertEquals(10L, even.get(1).getEventId());
+    }
+
+    @Test
+    public void testOldestEventsEvictedWhenArenaWraps() {
+        final int eventSize = ProvenanceEventCodec.serialize(createEvent("0", 100)).length;
+        // Room for three and a half events, so that every fourth event wraps around to the start of the arena
+        final OffHeapEventBuffer buffer = new OffHeapEventBuffer(100, eventSize * 7L / 2);
+
+        for (int i = 0; i < 50; i++) {
+            assertTrue(buffer.add(createEvent(String.valueOf(i), 100)));
+
+            // Every event that is still in the buffer must be intact
+            final List<ProvenanceEventRecord> events = buffer.getSelectedEvents(0L, event -> true, 100);
+            assertFalse(events.isEmpty());
+            assertTrue(events.size() <= 3);
+            assertEquals(i, events.get(events.size() - 1).getEventId());
+            for (final ProvenanceEventRecord event : events) {
+                assertEquals(String.valueOf(event.getEventId()), event.getComponentId());
+            }
+        }
+
+        final List<Long> newestFirst = new ArrayList<>();
+        buffer.forEachNewestFirst(event -> newestFirst.add(event.getEventId()));
+        assertEquals(buffer.getSize(), newestFirst.size());
+        assertEquals(49L, newestFirst.get(0).longValue());
+    }
+
+    @Test
+    public void testEventLargerThanArenaNotAdded() {
+        final OffHeapEventBuffer buffer = new OffHeapEventBuffer(10, 512);
+        assertTrue(buffer.add(createEvent("small", 0)));
+        assertFalse(buffer.add(createEvent("large", 1024)));
+
+        assertEquals(1, buffer.getSize());
+        assertEquals("small", buffer.getNewestEvent().getComponentId());
+
+        assertTrue(buffer.add(createEvent("next", 0)));
+        assertEquals(1L, buffer.getNewestEvent().getEventId());
+    }
+
+    private ProvenanceEventRecord createEvent(final String componentId, final int detailsLength) {
+        final char[] details = new char[detailsLength];
+        Arrays.fill(details, 'x');
+
+        return new StandardProvenanceEventRecord.Builder()
+            .setEventType(ProvenanceEventType.RECEIVE)
+            .setEventTime(System.currentTimeMillis())
+            .setComponentId(componentId)
+            .setComponentType("Unit Test Processor")
+            .setFlowFileUUID("11111111-1111-1111-1111-111111111111")
+            .setTransitUri("nifi://unit-test")
+            .setDetails(new String(details))
+            .setCurrentContentClaim(null, null, null, null, 0L)
+            .build();
+    }
+}
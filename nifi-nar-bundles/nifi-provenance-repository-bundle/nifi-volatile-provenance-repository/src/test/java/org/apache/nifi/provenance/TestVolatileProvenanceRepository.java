@@ -19,6 +19,7 @@ package org.apache.nifi.provenance;
 import org.apache.nifi.authorization.user.NiFiUser;
 import org.apache.nifi.flowfile.FlowFile;
 import org.apache.nifi.provenance.search.Query;
+import org.apache.nifi.provenance.search.QueryPage;
 import org.apache.nifi.provenance.search.QuerySubmission;
 import org.apache.nifi.provenance.search.SearchTerms;
 import org.apache.nifi.util.NiFiProperties;
@@ -27,14 +28,18 @@ import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.Timeout;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
+import java.util.stream.Collectors;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 @Timeout(value = 5)
 public class TestVolatileProvenanceRepository {
@@ -79,6 +84,108 @@ public class TestVolatileProvenanceRepository {
         }
     }
 
+    @Test
+    public void testAddAndGetOffHeap() throws IOException, InterruptedException {
+        repo = new VolatileProvenanceRepository(5, 64 * 1024, "FlowFileUUID", "abc");
+
+        final Map<String, String> attributes = new HashMap<>();
+        attributes.put("abc", "xyz");
+
+        final ProvenanceEventBuilder builder = new StandardProvenanceEventRecord.Builder();
+        builder.setEventTime(System.currentTimeMillis());
+        builder.setEventType(ProvenanceEventType.RECEIVE);
+        builder.setTransitUri("nifi://unit-test");
+        builder.setComponentType("dummy processor");
+
+        for (int i = 0; i < 8; i++) {
+            attributes.put("uuid", "00000000-0000-0000-0000-00000000000" + i);
+            builder.fromFlowFile(createFlowFile(i, 3000L, attributes));
+            builder.setComponentId(i % 2 == 0 ? "even" : "odd");
+            repo.registerEvent(builder.build());
+        }
+
+        // Only the 5 most recent events are retained
+        final List<ProvenanceEventRecord> retrieved = repo.getEvents(0L, 12);
+        assertEquals(5, retrieved.size());
+        assertEquals(3L, retrieved.get(0).getEventId());
+        assertEquals(7L, repo.getMaxEventId().longValue());
+        assertEquals("00000000-0000-0000-0000-000000000005", repo.getEvent(5L).getFlowFileUuid());
+        assertEquals(attributes, repo.getEvent(7L).getAttributes());
+        assertEquals(6L, repo.getLatestCachedEvent("even").get().getEventId());
+
+        final Query query = new Query(UUID.randomUUID().toString());
+        query.addSearchTerm(SearchTerms.newSearchTerm(SearchableFields.newSearchableAttribute("abc"), "xyz", null));
+        query.setMaxResults(2);
+
+        final QuerySubmission submission = repo.submitQuery(query, createUser());
+        while (!submission.getResult().isFinished()) {
+            Thread.sleep(100L);
+        }
+
+        assertEquals(2, submission.getResult().getMatchingEvents().size());
+        assertEquals(7L, submission.getResult().getMatchingEvents().get(0).getEventId());
+    }
+
+    @Test
+    public void testQueryEventsByPage() throws IOException {
+        repo = new VolatileProvenanceRepository(NiFiProperties.createBasicNiFiProperties(null));
+
+        final Map<String, String> attributes = new HashMap<>();
+        attributes.put("uuid", UUID.randomUUID().toString());
+
+        final ProvenanceEventBuilder builder = new StandardProvenanceEventRecord.Builder();
+        builder.setEventType(ProvenanceEventType.RECEIVE);
+        builder.setTransitUri("nifi://unit-test");
+        builder.fromFlowFile(createFlowFile(3L, 3000L, attributes));
+        builder.setComponentType("dummy processor");
+
+        // Event Times are deliberately not in the same order as Event IDs
+        final long now = System.currentTimeMillis();
+        final List<ProvenanceEventRecord> expected = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            builder.setEventTime(now - (i % 4) * 1000L);
+            builder.setComponentId(i % 2 == 0 ? "even" : "odd");
+            repo.registerEvent(builder.build());
+        }
+
+        for (final ProvenanceEventRecord event : repo.getEvents(0L, 20)) {
+            if ("even".equals(event.getComponentId())) {
+                expected.add(event);
+            }
+        }
+        expected.sort((a, b) -> a.getEventTime() == b.getEventTime() ? Long.compare(b.getEventId(), a.getEventId()) : Long.compare(b.getEventTime(), a.getEventTime()));
+        final List<Long> expectedEventIds = expected.stream().map(ProvenanceEventRecord::getEventId).collect(Collectors.toList());
+
+        final Query query = new Query(UUID.randomUUID().toString());
+        query.addSearchTerm(SearchTerms.newSearchTerm(SearchableFields.ComponentID, "even", null));
+
+        final List<Long> pagedEventIds = new ArrayList<>();
+        String continuationToken = null;
+        int pageCount = 0;
+        do {
+            final QueryPage page = repo.queryEvents(query, createUser(), continuationToken, 4);
+            assertTrue(page.getEvents().size() <= 4);
+            page.getEvents().forEach(event -> pagedEventIds.add(event.getEventId()));
+
+            continuationToken = page.getContinuationToken();
+            pageCount++;
+        } while (continuationToken != null);
+
+        assertEquals(expectedEventIds, pagedEventIds);
+        assertEquals(3, pageCount);
+
+        // Events added after the first page was retrieved must not be returned on later pages
+        final QueryPage firstPage = repo.queryEvents(query, createUser(), null, 4);
+        builder.setEventTime(now);
+        builder.setComponentId("even");
+        repo.registerEvent(builder.build());
+
+        final QueryPage secondPage = repo.queryEvents(query, createUser(), firstPage.getContinuationToken(), 4);
+        assertEquals(expectedEventIds.subList(4, 8), secondPage.getEvents().stream().map(ProvenanceEventRecord::getEventId).collect(Collectors.toList()));
+
+        assertThrows(IllegalArgumentException.class, () -> repo.queryEvents(query, createUser(), "not-a-token", 4));
+    }
+
     @Test
     public void testIndexAndCompressOnRolloverAndSubsequentSearchAsync() throws InterruptedException {
         repo = new VolatileProvenanceRepository(NiFiProperties.createBasicNiFiProperties(null));
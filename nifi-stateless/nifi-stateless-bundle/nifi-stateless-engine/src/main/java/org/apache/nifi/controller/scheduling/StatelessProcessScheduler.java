@@ -237,6 +237,11 @@ public class StatelessProcessScheduler implements ProcessScheduler {
     public void registerEvent(final Connectable worker) {
     }
 
+    @Override
+    public boolean isEventNotificationRequired(final SchedulingStrategy schedulingStrategy) {
+        return false;
+    }
+
     @Override
     public void setMaxThreadCount(final SchedulingStrategy strategy, final int maxThreadCount) {
     }